@@ -0,0 +1,85 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.benchmark.action.bulk;
+
+import org.elasticsearch.action.bulk.BulkRequestParser;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how long it takes to parse the body of a bulk request into index requests, as the coordinating node does before it routes
+ * the items to the shards. The sources of the documents are not parsed, so the cost is dominated by the action/metadata lines.
+ */
+@Fork(2)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class BulkRequestParserBenchmark {
+
+    @Param({ "10000" })
+    public int items;
+
+    /**
+     * The action/metadata lines of the items: {@code auto_id} repeats the same line without an id for every item, {@code id} gives
+     * every item its own id, and {@code routing} adds an id and a routing value to every line.
+     */
+    @Param({ "auto_id", "id", "routing" })
+    public String actionLines;
+
+    private final BulkRequestParser parser = new BulkRequestParser(true);
+    private BytesReference body;
+
+    @Setup
+    public void setup() {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < items; i++) {
+            switch (actionLines) {
+                case "auto_id":
+                    builder.append("{\"index\":{\"_index\":\"logs\"}}\n");
+                    break;
+                case "id":
+                    builder.append("{\"index\":{\"_index\":\"logs\",\"_id\":\"").append(i).append("\"}}\n");
+                    break;
+                case "routing":
+                    builder.append("{\"index\":{\"_index\":\"logs\",\"_id\":\"").append(i).append("\",\"routing\":\"")
+                        .append(i % 16).append("\"}}\n");
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown action lines [" + actionLines + "]");
+            }
+            builder.append("{\"@timestamp\":").append(1600000000000L + i).append(",\"message\":\"message ").append(i).append("\"}\n");
+        }
+        body = new BytesArray(builder.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Benchmark
+    public void parse(Blackhole blackhole) throws IOException {
+        parser.parse(body, null, null, null, null, null, true, XContentType.JSON,
+            (indexRequest, type) -> blackhole.consume(indexRequest), blackhole::consume, blackhole::consume);
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.benchmark.common.cache;
+
+import org.elasticsearch.common.cache.Cache;
+import org.elasticsearch.common.cache.CacheBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput of {@link Cache#get} hits on a warm cache for each {@link Cache.EvictionPolicy} as the number of
+ * reading threads grows. The cache is bounded by weight so that every hit has to maintain the LRU order, like the request cache.
+ */
+@Fork(2)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class CacheHitBenchmark {
+    private static final int KEYS = 1 << 16;
+    private static final int KEY_MASK = KEYS - 1;
+
+    @Param({ "LRU", "BUFFERED_LRU" })
+    public Cache.EvictionPolicy evictionPolicy;
+
+    private Cache<Integer, Integer> cache;
+    private Integer[] keys;
+
+    @Setup
+    public void setup() {
+        cache = CacheBuilder.<Integer, Integer>builder().setMaximumWeight(KEYS).setEvictionPolicy(evictionPolicy).build();
+        keys = new Integer[KEYS];
+        for (int i = 0; i < KEYS; i++) {
+            keys[i] = i;
+            cache.put(keys[i], i);
+        }
+    }
+
+    /**
+     * The keys looked up by a single benchmark thread, shuffled differently for every thread so that they do not hit the same
+     * entries in lock step.
+     */
+    @State(Scope.Thread)
+    public static class ThreadKeys {
+        private int[] order;
+        private int next;
+
+        @Setup
+        public void setup() {
+            order = new int[KEYS];
+            for (int i = 0; i < KEYS; i++) {
+                order[i] = i;
+            }
+            Random random = new Random(Thread.currentThread().getId());
+            for (int i = KEYS - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                int tmp = order[i];
+                order[i] = order[j];
+                order[j] = tmp;
+            }
+        }
+
+        int nextKey() {
+            return order[next++ & KEY_MASK];
+        }
+    }
+
+    private Integer hit(ThreadKeys threadKeys) {
+        return cache.get(keys[threadKeys.nextKey()]);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Integer hit1Thread(ThreadKeys threadKeys) {
+        return hit(threadKeys);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Integer hit4Threads(ThreadKeys threadKeys) {
+        return hit(threadKeys);
+    }
+
+    @Benchmark
+    @Threads(16)
+    public Integer hit16Threads(ThreadKeys threadKeys) {
+        return hit(threadKeys);
+    }
+
+    @Benchmark
+    @Threads(64)
+    public Integer hit64Threads(ThreadKeys threadKeys) {
+        return hit(threadKeys);
+    }
+}
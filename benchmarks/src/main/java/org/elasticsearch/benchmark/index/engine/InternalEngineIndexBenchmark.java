@@ -0,0 +1,327 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.benchmark.index.engine;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.SortedNumericDocValuesField;
+import org.apache.lucene.document.SortedSetDocValuesField;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.IOUtils;
+import org.elasticsearch.Version;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.cluster.metadata.IndexMetadata;
+import org.elasticsearch.common.UUIDs;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.lucene.uid.Versions;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.env.ShardLock;
+import org.elasticsearch.index.IndexModule;
+import org.elasticsearch.index.IndexSettings;
+import org.elasticsearch.index.VersionType;
+import org.elasticsearch.index.codec.CodecService;
+import org.elasticsearch.index.engine.Engine;
+import org.elasticsearch.index.engine.EngineConfig;
+import org.elasticsearch.index.engine.InternalEngine;
+import org.elasticsearch.index.mapper.IdFieldMapper;
+import org.elasticsearch.index.mapper.ParseContext;
+import org.elasticsearch.index.mapper.ParsedDocument;
+import org.elasticsearch.index.mapper.SeqNoFieldMapper;
+import org.elasticsearch.index.mapper.SourceFieldMapper;
+import org.elasticsearch.index.mapper.Uid;
+import org.elasticsearch.index.mapper.VersionFieldMapper;
+import org.elasticsearch.index.seqno.RetentionLeases;
+import org.elasticsearch.index.seqno.SequenceNumbers;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.index.store.Store;
+import org.elasticsearch.index.translog.Translog;
+import org.elasticsearch.index.translog.TranslogConfig;
+import org.elasticsearch.indices.breaker.NoneCircuitBreakerService;
+import org.elasticsearch.threadpool.Scheduler;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the indexing hot path of a primary shard, that is {@link InternalEngine#index} and {@link InternalEngine#delete}
+ * including the version map, the translog and the Lucene {@code IndexWriter}, without the mapping and replication layers
+ * of {@code IndexShard}. Every invocation performs a single operation, so the throughput is the number of documents per second.
+ * Run with {@code -prof gc} to see the bytes allocated per document, which is {@code gc.alloc.rate.norm}.
+ * <p>
+ * The engine is refreshed in the background at the given interval like the scheduled refresh of a shard does, which prunes the
+ * version map and opens new segments, and it is flushed once the translog grows too large like a shard does after every write.
+ * The Lucene index is kept on the heap by default while the translog is always written to {@code java.io.tmpdir}, so point
+ * that to a tmpfs to take the disk out of the picture.
+ */
+@Fork(2)
+@Warmup(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class InternalEngineIndexBenchmark {
+    private static final long PRIMARY_TERM = 1L;
+    // the number of distinct ids that updates and deletes are spread over
+    private static final int UPDATED_IDS = 1 << 14;
+    private static final String[] STATUSES = new String[] { "active", "pending", "failed", "archived" };
+
+    /**
+     * The operations that are sent to the engine.
+     */
+    public enum Workload {
+        /**
+         * Documents with auto-generated ids, which the engine indexes without looking up their ids.
+         */
+        APPEND_ONLY,
+        /**
+         * Documents with ids that have mostly been indexed before, which the engine resolves through the version map or Lucene.
+         */
+        UPDATE_HEAVY,
+        /**
+         * Like {@link #UPDATE_HEAVY}, but every fourth operation deletes a document, which leaves a soft-deleted tombstone behind.
+         */
+        DELETE_SOFT_DELETES
+    }
+
+    @Param({ "APPEND_ONLY", "UPDATE_HEAVY", "DELETE_SOFT_DELETES" })
+    public Workload workload;
+
+    @Param({ "-1", "1s", "100ms" })
+    public String refreshInterval;
+
+    @Param({ "memory", "fs" })
+    public String directory;
+
+    private Path dataPath;
+    private ThreadPool threadPool;
+    private Store store;
+    private InternalEngine engine;
+    private Scheduler.Cancellable scheduledRefresh;
+
+    private final Random random = new Random(42);
+    private long operations;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        dataPath = Files.createTempDirectory("engine");
+        threadPool = new ThreadPool(Settings.builder().put("node.name", "benchmark").build());
+
+        final ShardId shardId = new ShardId("benchmark", UUIDs.randomBase64UUID(), 0);
+        final Settings settings = Settings.builder()
+            .put(IndexMetadata.SETTING_VERSION_CREATED, Version.CURRENT)
+            .put(IndexMetadata.SETTING_NUMBER_OF_SHARDS, 1)
+            .put(IndexMetadata.SETTING_NUMBER_OF_REPLICAS, 0)
+            .put(IndexMetadata.SETTING_INDEX_UUID, shardId.getIndex().getUUID())
+            .put(IndexSettings.INDEX_SOFT_DELETES_SETTING.getKey(), true)
+            .put(IndexSettings.INDEX_REFRESH_INTERVAL_SETTING.getKey(), refreshInterval)
+            .build();
+        final IndexSettings indexSettings = new IndexSettings(IndexMetadata.builder("benchmark").settings(settings).build(),
+            Settings.EMPTY);
+
+        final Directory luceneDirectory;
+        switch (directory) {
+            case "memory":
+                luceneDirectory = new ByteBuffersDirectory();
+                break;
+            case "fs":
+                luceneDirectory = FSDirectory.open(Files.createDirectories(dataPath.resolve("index")));
+                break;
+            default:
+                throw new IllegalArgumentException("unknown directory [" + directory + "]");
+        }
+        store = new Store(shardId, indexSettings, luceneDirectory, new ShardLock(shardId) {
+            @Override
+            protected void closeInternal() {}
+        });
+        final Path translogPath = Files.createDirectories(dataPath.resolve("translog"));
+        store.createEmpty();
+        final String translogUUID = Translog.createEmptyTranslog(translogPath, SequenceNumbers.NO_OPS_PERFORMED, shardId, PRIMARY_TERM);
+        store.associateIndexWithNewTranslog(translogUUID);
+
+        final EngineConfig config = new EngineConfig(
+            shardId,
+            threadPool,
+            indexSettings,
+            null,
+            store,
+            indexSettings.getMergePolicy(),
+            new StandardAnalyzer(),
+            IndexSearcher.getDefaultSimilarity(),
+            new CodecService(null, LogManager.getLogger(InternalEngineIndexBenchmark.class)),
+            new Engine.EventListener() {},
+            IndexSearcher.getDefaultQueryCache(),
+            IndexSearcher.getDefaultQueryCachingPolicy(),
+            new TranslogConfig(shardId, translogPath, indexSettings, BigArrays.NON_RECYCLING_INSTANCE),
+            TimeValue.timeValueMinutes(5),
+            List.of(),
+            List.of(),
+            null,
+            new NoneCircuitBreakerService(),
+            // the shard has no replicas, so its global checkpoint follows its local checkpoint
+            () -> engine == null ? SequenceNumbers.NO_OPS_PERFORMED : engine.getPersistedLocalCheckpoint(),
+            () -> RetentionLeases.EMPTY,
+            () -> PRIMARY_TERM,
+            new TombstoneDocSupplier(),
+            IndexModule.DEFAULT_SNAPSHOT_COMMIT_SUPPLIER
+        );
+        engine = new InternalEngine(config);
+        engine.skipTranslogRecovery();
+
+        final TimeValue interval = indexSettings.getRefreshInterval();
+        if (interval.millis() > 0) {
+            scheduledRefresh = threadPool.scheduleWithFixedDelay(() -> engine.maybeRefresh("schedule"), interval,
+                ThreadPool.Names.REFRESH);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        if (scheduledRefresh != null) {
+            scheduledRefresh.cancel();
+        }
+        IOUtils.close(engine, store::decRef, () -> ThreadPool.terminate(threadPool, 10, TimeUnit.SECONDS));
+        IOUtils.rm(dataPath);
+    }
+
+    @Benchmark
+    public Engine.Result index() throws IOException {
+        final long operation = operations++;
+        final Engine.Result result;
+        switch (workload) {
+            case APPEND_ONLY:
+                result = engine.index(indexOp(UUIDs.base64UUID(), operation, true));
+                break;
+            case UPDATE_HEAVY:
+                result = engine.index(indexOp(Integer.toString(random.nextInt(UPDATED_IDS)), operation, false));
+                break;
+            case DELETE_SOFT_DELETES:
+                final String id = Integer.toString(random.nextInt(UPDATED_IDS));
+                if (operation % 4 == 3) {
+                    result = engine.delete(new Engine.Delete(id, new Term(IdFieldMapper.NAME, Uid.encodeId(id)),
+                        SequenceNumbers.UNASSIGNED_SEQ_NO, PRIMARY_TERM, Versions.MATCH_ANY, VersionType.INTERNAL,
+                        Engine.Operation.Origin.PRIMARY, System.nanoTime(), SequenceNumbers.UNASSIGNED_SEQ_NO, 0));
+                } else {
+                    result = engine.index(indexOp(id, operation, false));
+                }
+                break;
+            default:
+                throw new AssertionError("unknown workload [" + workload + "]");
+        }
+        if (result.getFailure() != null) {
+            throw new AssertionError("operation failed", result.getFailure());
+        }
+        // a shard checks whether it should flush after every write
+        if (engine.shouldPeriodicallyFlush()) {
+            engine.flush(false, false);
+        }
+        return result;
+    }
+
+    private Engine.Index indexOp(String id, long operation, boolean autoGeneratedId) {
+        final ParsedDocument doc = parsedDocument(id, operation);
+        return new Engine.Index(new Term(IdFieldMapper.NAME, Uid.encodeId(id)), doc, SequenceNumbers.UNASSIGNED_SEQ_NO, PRIMARY_TERM,
+            Versions.MATCH_ANY, VersionType.INTERNAL, Engine.Operation.Origin.PRIMARY, System.nanoTime(),
+            autoGeneratedId ? System.currentTimeMillis() : IndexRequest.UNSET_AUTO_GENERATED_TIMESTAMP, false,
+            SequenceNumbers.UNASSIGNED_SEQ_NO, 0);
+    }
+
+    /**
+     * Builds the Lucene fields of a small log line the way that the mappers of a {@code text}, a {@code keyword} and a {@code date}
+     * field would, along with the metadata fields that the engine fills in.
+     */
+    private ParsedDocument parsedDocument(String id, long operation) {
+        final long timestamp = 1_600_000_000_000L + operation;
+        final String status = STATUSES[(int) (operation % STATUSES.length)];
+        final String message = "operation " + operation + " of document " + id + " is " + status;
+        final BytesReference source = new BytesArray(String.format(Locale.ROOT,
+            "{\"@timestamp\":%d,\"status\":\"%s\",\"message\":\"%s\"}", timestamp, status, message).getBytes(StandardCharsets.UTF_8));
+
+        final ParseContext.Document document = new ParseContext.Document();
+        document.add(new LongPoint("@timestamp", timestamp));
+        document.add(new SortedNumericDocValuesField("@timestamp", timestamp));
+        document.add(new StringField("status", status, Field.Store.NO));
+        document.add(new SortedSetDocValuesField("status", new BytesRef(status)));
+        document.add(new TextField("message", message, Field.Store.NO));
+
+        document.add(new Field(IdFieldMapper.NAME, Uid.encodeId(id), IdFieldMapper.Defaults.FIELD_TYPE));
+        final Field versionField = new NumericDocValuesField(VersionFieldMapper.NAME, 0);
+        document.add(versionField);
+        final SeqNoFieldMapper.SequenceIDFields seqID = SeqNoFieldMapper.SequenceIDFields.emptySeqID();
+        document.add(seqID.seqNo);
+        document.add(seqID.seqNoDocValue);
+        document.add(seqID.primaryTerm);
+        final BytesRef sourceRef = source.toBytesRef();
+        document.add(new StoredField(SourceFieldMapper.NAME, sourceRef.bytes, sourceRef.offset, sourceRef.length));
+        return new ParsedDocument(versionField, seqID, id, null, List.of(document), source, XContentType.JSON, null);
+    }
+
+    private static class TombstoneDocSupplier implements EngineConfig.TombstoneDocSupplier {
+        @Override
+        public ParsedDocument newDeleteTombstoneDoc(String id) {
+            final ParseContext.Document document = new ParseContext.Document();
+            document.add(new Field(IdFieldMapper.NAME, Uid.encodeId(id), IdFieldMapper.Defaults.FIELD_TYPE));
+            return tombstone(document, id, new BytesArray("{}"));
+        }
+
+        @Override
+        public ParsedDocument newNoopTombstoneDoc(String reason) {
+            final ParseContext.Document document = new ParseContext.Document();
+            final BytesRef reasonRef = new BytesRef(reason);
+            document.add(new StoredField(SourceFieldMapper.NAME, reasonRef.bytes, reasonRef.offset, reasonRef.length));
+            return tombstone(document, null, null);
+        }
+
+        private static ParsedDocument tombstone(ParseContext.Document document, String id, BytesReference source) {
+            final Field versionField = new NumericDocValuesField(VersionFieldMapper.NAME, 0);
+            document.add(versionField);
+            final SeqNoFieldMapper.SequenceIDFields seqID = SeqNoFieldMapper.SequenceIDFields.emptySeqID();
+            document.add(seqID.seqNo);
+            document.add(seqID.seqNoDocValue);
+            document.add(seqID.primaryTerm);
+            seqID.tombstoneField.setLongValue(1);
+            document.add(seqID.tombstoneField);
+            return new ParsedDocument(versionField, seqID, id, null, List.of(document), source, XContentType.JSON, null);
+        }
+    }
+}
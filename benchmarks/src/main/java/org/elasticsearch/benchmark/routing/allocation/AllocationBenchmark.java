@@ -8,11 +8,13 @@
 package org.elasticsearch.benchmark.routing.allocation;
 
 import org.elasticsearch.Version;
+import org.elasticsearch.cluster.ClusterChangedEvent;
 import org.elasticsearch.cluster.ClusterName;
 import org.elasticsearch.cluster.ClusterState;
 import org.elasticsearch.cluster.metadata.IndexMetadata;
 import org.elasticsearch.cluster.metadata.Metadata;
 import org.elasticsearch.cluster.node.DiscoveryNodes;
+import org.elasticsearch.cluster.routing.RoutingNodes;
 import org.elasticsearch.cluster.routing.RoutingTable;
 import org.elasticsearch.cluster.routing.ShardRoutingState;
 import org.elasticsearch.cluster.routing.allocation.AllocationService;
@@ -95,13 +97,19 @@ public class AllocationBenchmark {
         "       10|     10|        2|    50",
         "      100|      1|        2|    50",
         "      100|      3|        2|    50",
-        "      100|     10|        2|    50" })
+        "      100|     10|        2|    50",
+
+        // 100k shard copies
+        "     1000|     50|        1|   200",
+        "     5000|     10|        1|   500" })
     public String indicesShardsReplicasNodes = "10|1|0|1";
 
     public int numTags = 2;
 
     private AllocationService strategy;
     private ClusterState initialClusterState;
+    private ClusterState allocatedClusterState;
+    private ClusterState updatedClusterState;
 
     @Setup
     public void setUp() throws Exception {
@@ -140,6 +148,22 @@ public class AllocationBenchmark {
             .routingTable(routingTable)
             .nodes(nb)
             .build();
+
+        allocatedClusterState = measureAllocation();
+        allocatedClusterState.getRoutingNodes();
+        // a typical update of the routing table, which only touches the routing of a single index
+        IndexMetadata newIndex = IndexMetadata.builder("test_" + (numIndices + 1))
+            .settings(Settings.builder().put("index.version.created", Version.CURRENT))
+            .numberOfShards(numShards)
+            .numberOfReplicas(numReplicas)
+            .build();
+        updatedClusterState = strategy.reroute(
+            ClusterState.builder(allocatedClusterState)
+                .metadata(Metadata.builder(allocatedClusterState.metadata()).put(newIndex, false))
+                .routingTable(RoutingTable.builder(allocatedClusterState.routingTable()).addAsNew(newIndex).build())
+                .build(),
+            "reroute"
+        );
     }
 
     private int toInt(String v) {
@@ -158,4 +182,26 @@ public class AllocationBenchmark {
         }
         return clusterState;
     }
+
+    @Benchmark
+    public RoutingNodes measureRoutingNodesFromRoutingTable() {
+        return new RoutingNodes(updatedClusterState);
+    }
+
+    @Benchmark
+    public RoutingNodes measureRoutingNodesFromPreviousClusterState() {
+        // a copy of the cluster state that has not built its routing nodes yet
+        ClusterState clusterState = ClusterState.builder(updatedClusterState).build();
+        return new ClusterChangedEvent("benchmark", clusterState, allocatedClusterState).routingNodes();
+    }
+
+    @Benchmark
+    public RoutingNodes measureMutableRoutingNodesFromRoutingTable() {
+        return new RoutingNodes(allocatedClusterState, false);
+    }
+
+    @Benchmark
+    public RoutingNodes measureMutableRoutingNodesFromReadOnlyRoutingNodes() {
+        return allocatedClusterState.mutableRoutingNodes();
+    }
 }
@@ -46,6 +46,11 @@ public final class Allocators {
             // noop
         }
 
+        @Override
+        public void afterPrimariesBeforeReplicas(RoutingAllocation allocation) {
+            // noop
+        }
+
         @Override
         public void allocateUnassigned(
             ShardRouting shardRouting,
@@ -0,0 +1,235 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.benchmark.vectors;
+
+import org.apache.lucene.codecs.DocValuesFormat;
+import org.apache.lucene.codecs.lucene80.Lucene80DocValuesFormat;
+import org.apache.lucene.codecs.lucene87.Lucene87Codec;
+import org.apache.lucene.document.BinaryDocValuesField;
+import org.apache.lucene.index.BinaryDocValues;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.IndexWriterConfig.OpenMode;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.MMapDirectory;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.IOUtils;
+import org.apache.lucene.util.PriorityQueue;
+import org.elasticsearch.xpack.vectors.codec.HnswDocValuesFormat;
+import org.elasticsearch.xpack.vectors.codec.HnswGraphBuilder;
+import org.elasticsearch.xpack.vectors.mapper.DenseVectorFieldMapper.VectorSimilarity;
+import org.elasticsearch.xpack.vectors.query.KnnVectorQuery;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the latency of the approximate <code>knn</code> query on an indexed <code>dense_vector</code> field with the brute-force
+ * comparison of the query vector with all vectors that a <code>script_score</code> query with a vector function performs. The
+ * recall of the searches is reported by the {@link Recall} counters.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class KnnSearchBenchmark {
+    private static final String FIELD = "vector";
+    private static final int NUM_QUERIES = 100;
+
+    @Param({ "100000" })
+    private int numDocs;
+
+    @Param({ "128" })
+    private int dims;
+
+    @Param({ "10" })
+    private int k;
+
+    @Param({ "100", "500" })
+    private int numCandidates;
+
+    @Param({ "cosine" })
+    private String similarity;
+
+    @Param({ "hnsw", "brute_force" })
+    private String search;
+
+    private VectorSimilarity vectorSimilarity;
+    private Directory directory;
+    private IndexReader reader;
+    private float[][] queries;
+    private int[][] nearestNeighbors;
+    private int query;
+
+    /**
+     * Counts the true nearest neighbors that the searches found and the ones they should have found, the recall is
+     * <code>found / expected</code>.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Recall {
+        public long found;
+        public long expected;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            found = 0;
+            expected = 0;
+        }
+    }
+
+    @Setup
+    public void setup() throws IOException {
+        vectorSimilarity = VectorSimilarity.valueOf(similarity.toUpperCase(Locale.ROOT));
+        Random random = new Random(0);
+        HnswDocValuesFormat format = new HnswDocValuesFormat(
+            new Lucene80DocValuesFormat(),
+            vectorSimilarity,
+            dims,
+            HnswGraphBuilder.DEFAULT_MAX_CONN,
+            HnswGraphBuilder.DEFAULT_BEAM_WIDTH
+        );
+        Path path = Path.of(System.getProperty("tests.index"));
+        IOUtils.rm(path);
+        directory = new MMapDirectory(path);
+        IndexWriterConfig config = new IndexWriterConfig().setOpenMode(OpenMode.CREATE).setCodec(new Lucene87Codec() {
+            @Override
+            public DocValuesFormat getDocValuesFormatForField(String field) {
+                return format;
+            }
+        });
+        try (IndexWriter w = new IndexWriter(directory, config)) {
+            for (int i = 0; i < numDocs; i++) {
+                w.addDocument(List.of(new BinaryDocValuesField(FIELD, encode(randomVector(random)))));
+            }
+            w.forceMerge(1);
+        }
+        reader = DirectoryReader.open(directory);
+        queries = new float[NUM_QUERIES][];
+        for (int i = 0; i < NUM_QUERIES; i++) {
+            queries[i] = randomVector(random);
+        }
+
+        nearestNeighbors = new int[NUM_QUERIES][];
+        for (int i = 0; i < NUM_QUERIES; i++) {
+            nearestNeighbors[i] = Arrays.stream(bruteForce(queries[i]).scoreDocs).mapToInt(scoreDoc -> scoreDoc.doc).sorted().toArray();
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        IOUtils.close(reader, directory);
+    }
+
+    @Benchmark
+    public TopDocs benchmark(Recall recall) throws IOException {
+        int queryIndex = query++ % NUM_QUERIES;
+        float[] queryVector = queries[queryIndex];
+        TopDocs topDocs;
+        switch (search) {
+            case "hnsw":
+                topDocs = hnsw(queryVector);
+                break;
+            case "brute_force":
+                topDocs = bruteForce(queryVector);
+                break;
+            default:
+                throw new IllegalArgumentException("Don't know how to search with [" + search + "]");
+        }
+        int[] expected = nearestNeighbors[queryIndex];
+        for (ScoreDoc scoreDoc : topDocs.scoreDocs) {
+            if (Arrays.binarySearch(expected, scoreDoc.doc) >= 0) {
+                recall.found++;
+            }
+        }
+        recall.expected += expected.length;
+        return topDocs;
+    }
+
+    private TopDocs hnsw(float[] queryVector) throws IOException {
+        return new IndexSearcher(reader).search(new KnnVectorQuery(FIELD, queryVector, k, numCandidates, vectorSimilarity), k);
+    }
+
+    /**
+     * Decodes every vector like the vector functions of <code>script_score</code> do and keeps the top <code>k</code>.
+     */
+    private TopDocs bruteForce(float[] queryVector) throws IOException {
+        PriorityQueue<ScoreDoc> queue = new PriorityQueue<>(k) {
+            @Override
+            protected boolean lessThan(ScoreDoc a, ScoreDoc b) {
+                return a.score < b.score || (a.score == b.score && a.doc > b.doc);
+            }
+        };
+        float[] vector = new float[dims];
+        for (LeafReaderContext ctx : reader.leaves()) {
+            BinaryDocValues values = ctx.reader().getBinaryDocValues(FIELD);
+            for (int doc = values.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = values.nextDoc()) {
+                BytesRef bytes = values.binaryValue();
+                ByteBuffer buffer = ByteBuffer.wrap(bytes.bytes, bytes.offset, bytes.length);
+                for (int dim = 0; dim < dims; dim++) {
+                    vector[dim] = buffer.getFloat();
+                }
+                queue.insertWithOverflow(new ScoreDoc(ctx.docBase + doc, vectorSimilarity.score(queryVector, vector)));
+            }
+        }
+        ScoreDoc[] scoreDocs = new ScoreDoc[queue.size()];
+        for (int i = scoreDocs.length - 1; i >= 0; i--) {
+            scoreDocs[i] = queue.pop();
+        }
+        return new TopDocs(null, scoreDocs);
+    }
+
+    private float[] randomVector(Random random) {
+        float[] vector = new float[dims];
+        for (int i = 0; i < dims; i++) {
+            vector[i] = random.nextFloat() * 2 - 1;
+        }
+        return vector;
+    }
+
+    private static BytesRef encode(float[] vector) {
+        ByteBuffer buffer = ByteBuffer.allocate((vector.length + 1) * Float.BYTES);
+        double squaredMagnitude = 0;
+        for (float value : vector) {
+            buffer.putFloat(value);
+            squaredMagnitude += value * value;
+        }
+        buffer.putFloat((float) Math.sqrt(squaredMagnitude));
+        return new BytesRef(buffer.array());
+    }
+}
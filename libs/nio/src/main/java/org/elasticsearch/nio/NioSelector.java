@@ -41,6 +41,7 @@ public class NioSelector implements Closeable {
     private final ConcurrentLinkedQueue<WriteOperation> queuedWrites = new ConcurrentLinkedQueue<>();
     private final ConcurrentLinkedQueue<ChannelContext<?>> channelsToClose = new ConcurrentLinkedQueue<>();
     private final ConcurrentLinkedQueue<ChannelContext<?>> channelsToRegister = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<Runnable> queuedTasks = new ConcurrentLinkedQueue<>();
     private final EventHandler eventHandler;
     private final Selector selector;
     private final ByteBuffer ioBuffer;
@@ -249,6 +250,7 @@ public class NioSelector implements Closeable {
     void preSelect() {
         setUpNewChannels();
         handleQueuedWrites();
+        handleQueuedTasks();
     }
 
     private void handleScheduledTasks(long nanoTime) {
@@ -289,6 +291,26 @@ public class NioSelector implements Closeable {
         }
     }
 
+    /**
+     * Queues a task to be run by the event loop. This can be called by any thread, which allows other threads to act on the state
+     * of channels that only the selector thread may access. When invoked from the selector thread the task is run right away. The
+     * tasks that are queued once the selector is closed are dropped, since they cannot act on its channels anymore.
+     *
+     * @param task to be run
+     */
+    public void queueTask(Runnable task) {
+        if (isOnCurrentThread()) {
+            handleTask(task);
+        } else {
+            queuedTasks.offer(task);
+            if (isOpen() == false) {
+                queuedTasks.remove(task);
+            } else {
+                wakeup();
+            }
+        }
+    }
+
     public void queueChannelClose(NioChannel channel) {
         ChannelContext<?> context = channel.getContext();
         assert context.getSelector() == this : "Must schedule a channel for closure with its selector";
@@ -472,6 +494,13 @@ public class NioSelector implements Closeable {
         }
     }
 
+    private void handleQueuedTasks() {
+        Runnable task;
+        while ((task = queuedTasks.poll()) != null) {
+            handleTask(task);
+        }
+    }
+
     private void handleQueuedWrites() {
         WriteOperation writeOperation;
         while ((writeOperation = queuedWrites.poll()) != null) {
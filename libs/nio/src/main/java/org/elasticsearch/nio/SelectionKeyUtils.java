@@ -35,6 +35,26 @@ public final class SelectionKeyUtils {
         selectionKey.interestOps(selectionKey.interestOps() & ~SelectionKey.OP_WRITE);
     }
 
+    /**
+     * Adds an interest in reads for this selection key while maintaining other interests.
+     *
+     * @param selectionKey the selection key
+     * @throws CancelledKeyException if the key was already cancelled
+     */
+    public static void setReadInterested(SelectionKey selectionKey) throws CancelledKeyException {
+        selectionKey.interestOps(selectionKey.interestOps() | SelectionKey.OP_READ);
+    }
+
+    /**
+     * Removes an interest in reads for this selection key while maintaining other interests.
+     *
+     * @param selectionKey the selection key
+     * @throws CancelledKeyException if the key was already cancelled
+     */
+    public static void removeReadInterested(SelectionKey selectionKey) throws CancelledKeyException {
+        selectionKey.interestOps(selectionKey.interestOps() & ~SelectionKey.OP_READ);
+    }
+
     /**
      * Removes an interest in connects and reads for this selection key while maintaining other interests.
      *
@@ -19,6 +19,7 @@ import java.net.Socket;
 import java.net.SocketOption;
 import java.nio.ByteBuffer;
 import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
 import java.nio.channels.SocketChannel;
 import java.security.AccessController;
 import java.security.PrivilegedActionException;
@@ -155,6 +156,25 @@ public abstract class SocketChannelContext extends ChannelContext<SocketChannel>
         pendingFlushes.addAll(channelHandler.writeToBytes(writeOperation));
     }
 
+    /**
+     * Enables or disables the reads of this channel, for instance to stop reading while the data that was read cannot be processed
+     * yet. This must be called by the selector thread.
+     *
+     * @param enabled whether the channel should be read from
+     */
+    public void setReadEnabled(boolean enabled) {
+        getSelector().assertOnSelectorThread();
+        final SelectionKey selectionKey = getSelectionKey();
+        if (selectionKey == null || selectionKey.isValid() == false) {
+            return;
+        }
+        if (enabled) {
+            SelectionKeyUtils.setReadInterested(selectionKey);
+        } else {
+            SelectionKeyUtils.removeReadInterested(selectionKey);
+        }
+    }
+
     public abstract int read() throws IOException;
 
     public abstract void flushChannel() throws IOException;
@@ -28,7 +28,9 @@ import org.elasticsearch.script.ScriptType;
 
 import java.io.InputStream;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
+import java.util.function.BiConsumer;
 
 import static org.elasticsearch.ingest.ConfigurationUtils.newConfigurationException;
 
@@ -73,6 +75,39 @@ public final class ScriptProcessor extends AbstractProcessor {
         } else {
             ingestScript = precompiledIngestScript;
         }
+        return execute(document, ingestScript);
+    }
+
+    /**
+     * Executes the script on a batch of documents, looking up a stored script and creating its instance once for the whole batch.
+     */
+    @Override
+    public void executeBatch(List<IngestDocument> documents, List<BiConsumer<IngestDocument, Exception>> handlers) {
+        final IngestScript ingestScript;
+        if (precompiledIngestScript == null) {
+            try {
+                IngestScript.Factory factory = scriptService.compile(script, IngestScript.CONTEXT);
+                ingestScript = factory.newInstance(script.getParams());
+            } catch (Exception e) {
+                handlers.forEach(handler -> handler.accept(null, e));
+                return;
+            }
+        } else {
+            ingestScript = precompiledIngestScript;
+        }
+        for (int i = 0; i < documents.size(); i++) {
+            final IngestDocument result;
+            try {
+                result = execute(documents.get(i), ingestScript);
+            } catch (Exception e) {
+                handlers.get(i).accept(null, e);
+                continue;
+            }
+            handlers.get(i).accept(result, null);
+        }
+    }
+
+    private static IngestDocument execute(IngestDocument document, IngestScript ingestScript) {
         ingestScript.execute(document.getSourceAndMetadata());
         CollectionUtils.ensureNoSelfReferences(document.getSourceAndMetadata(), "ingest script");
         return document;
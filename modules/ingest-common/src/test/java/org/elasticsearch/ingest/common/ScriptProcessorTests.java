@@ -20,12 +20,19 @@ import org.elasticsearch.script.ScriptType;
 import org.elasticsearch.test.ESTestCase;
 import org.junit.Before;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.function.BiConsumer;
 
+import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.hasKey;
 import static org.hamcrest.core.Is.is;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 public class ScriptProcessorTests extends ESTestCase {
 
@@ -71,6 +78,26 @@ public class ScriptProcessorTests extends ESTestCase {
         assertIngestDocument(ingestDocument);
     }
 
+    public void testBatchCompilesScriptOnce() {
+        ScriptService spiedScriptService = spy(scriptService);
+        ScriptProcessor processor = new ScriptProcessor(randomAlphaOfLength(10), null, script, null, spiedScriptService);
+        List<IngestDocument> ingestDocuments = new ArrayList<>();
+        List<BiConsumer<IngestDocument, Exception>> handlers = new ArrayList<>();
+        List<IngestDocument> results = new ArrayList<>();
+        int numDocs = randomIntBetween(2, 10);
+        for (int i = 0; i < numDocs; i++) {
+            ingestDocuments.add(randomDocument());
+            handlers.add((result, e) -> {
+                assertNull(e);
+                results.add(result);
+            });
+        }
+        processor.executeBatch(ingestDocuments, handlers);
+        assertThat(results, equalTo(ingestDocuments));
+        results.forEach(this::assertIngestDocument);
+        verify(spiedScriptService, times(1)).compile(script, IngestScript.CONTEXT);
+    }
+
     private IngestDocument randomDocument() {
         Map<String, Object> document = new HashMap<>();
         document.put("bytes_in", randomInt());
@@ -18,6 +18,7 @@ import com.maxmind.geoip2.record.Country;
 import com.maxmind.geoip2.record.Location;
 import com.maxmind.geoip2.record.Subdivision;
 import org.elasticsearch.ElasticsearchParseException;
+import org.elasticsearch.common.CheckedFunction;
 import org.elasticsearch.common.network.InetAddresses;
 import org.elasticsearch.common.network.NetworkAddress;
 import org.elasticsearch.ingest.AbstractProcessor;
@@ -35,6 +36,7 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.BiConsumer;
 
 import static org.elasticsearch.ingest.ConfigurationUtils.newConfigurationException;
 import static org.elasticsearch.ingest.ConfigurationUtils.readBooleanProperty;
@@ -89,6 +91,38 @@ public final class GeoIpProcessor extends AbstractProcessor {
 
     @Override
     public IngestDocument execute(IngestDocument ingestDocument) throws IOException {
+        return execute(ingestDocument, this::getGeoData);
+    }
+
+    /**
+     * Looks up every distinct ip address of the batch only once, the documents that share an ip address each get their own copy of
+     * its geo data.
+     */
+    @Override
+    public void executeBatch(List<IngestDocument> ingestDocuments, List<BiConsumer<IngestDocument, Exception>> handlers) {
+        final Map<String, Map<String, Object>> geoDataByIp = new HashMap<>();
+        final CheckedFunction<String, Map<String, Object>, IOException> lookup = ip -> {
+            Map<String, Object> geoData = geoDataByIp.get(ip);
+            if (geoData == null) {
+                geoData = getGeoData(ip);
+                geoDataByIp.put(ip, geoData);
+            }
+            return geoData.isEmpty() ? geoData : IngestDocument.deepCopyMap(geoData);
+        };
+        for (int i = 0; i < ingestDocuments.size(); i++) {
+            final IngestDocument result;
+            try {
+                result = execute(ingestDocuments.get(i), lookup);
+            } catch (Exception e) {
+                handlers.get(i).accept(null, e);
+                continue;
+            }
+            handlers.get(i).accept(result, null);
+        }
+    }
+
+    private IngestDocument execute(IngestDocument ingestDocument,
+                                   CheckedFunction<String, Map<String, Object>, IOException> lookup) throws IOException {
         Object ip = ingestDocument.getFieldValue(field, Object.class, ignoreMissing);
 
         if (ip == null && ignoreMissing) {
@@ -98,7 +132,7 @@ public final class GeoIpProcessor extends AbstractProcessor {
         }
 
         if (ip instanceof String) {
-            Map<String, Object> geoData = getGeoData((String) ip);
+            Map<String, Object> geoData = lookup.apply((String) ip);
             if (geoData.isEmpty() == false) {
                 ingestDocument.setFieldValue(targetField, geoData);
             }
@@ -109,7 +143,7 @@ public final class GeoIpProcessor extends AbstractProcessor {
                 if (ipAddr instanceof String == false) {
                     throw new IllegalArgumentException("array in field [" + field + "] should only contain strings");
                 }
-                Map<String, Object> geoData = getGeoData((String) ipAddr);
+                Map<String, Object> geoData = lookup.apply((String) ipAddr);
                 if (geoData.isEmpty()) {
                     geoDataList.add(null);
                     continue;
@@ -17,19 +17,23 @@ import org.elasticsearch.test.ESTestCase;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.BiConsumer;
 import java.util.function.Supplier;
 
 import static org.elasticsearch.ingest.IngestDocumentMatcher.assertIngestDocument;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
 
 public class GeoIpProcessorTests extends ESTestCase {
 
@@ -299,6 +303,39 @@ public class GeoIpProcessorTests extends ESTestCase {
         assertThat(ingestDocument.getSourceAndMetadata().containsKey("target_field"), is(false));
     }
 
+    public void testBatch() throws Exception {
+        GeoIpProcessor processor = new GeoIpProcessor(randomAlphaOfLength(10), null, "source_field",
+                loader("/GeoLite2-City.mmdb"), "target_field", EnumSet.allOf(GeoIpProcessor.Property.class), false, false);
+
+        List<IngestDocument> ingestDocuments = new ArrayList<>();
+        for (String ip : new String[] { "8.8.8.8", "127.0.0.1", "8.8.8.8", "invalid" }) {
+            ingestDocuments.add(RandomDocumentPicks.randomIngestDocument(random(), new HashMap<>(Map.of("source_field", ip))));
+        }
+        IngestDocument[] results = new IngestDocument[ingestDocuments.size()];
+        Exception[] failures = new Exception[ingestDocuments.size()];
+        List<BiConsumer<IngestDocument, Exception>> handlers = new ArrayList<>();
+        for (int i = 0; i < ingestDocuments.size(); i++) {
+            final int slot = i;
+            handlers.add((result, e) -> {
+                results[slot] = result;
+                failures[slot] = e;
+            });
+        }
+        processor.executeBatch(ingestDocuments, handlers);
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> geoData = (Map<String, Object>) results[0].getSourceAndMetadata().get("target_field");
+        assertThat(geoData.get("country_iso_code"), equalTo("US"));
+        assertThat(results[1].getSourceAndMetadata().containsKey("target_field"), is(false));
+        // documents with the same ip address get equal but distinct geo data
+        assertThat(results[2].getSourceAndMetadata().get("target_field"), equalTo(geoData));
+        assertThat(results[2].getSourceAndMetadata().get("target_field"), not(sameInstance(geoData)));
+        assertThat(((Map<?, ?>) results[2].getSourceAndMetadata().get("target_field")).get("location"),
+            not(sameInstance(geoData.get("location"))));
+        assertThat(results[3], nullValue());
+        assertThat(failures[3].getMessage(), containsString("not an IP string literal"));
+    }
+
     private DatabaseReaderLazyLoader loader(final String path) {
         final Supplier<InputStream> databaseInputStreamSupplier = () -> GeoIpProcessor.class.getResourceAsStream(path);
         final CheckedSupplier<DatabaseReader, IOException> loader =
@@ -0,0 +1,87 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.http.netty4;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.DecoderResult;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.LastHttpContent;
+import org.elasticsearch.ElasticsearchStatusException;
+import org.elasticsearch.rest.RestStatus;
+
+import java.util.function.Predicate;
+
+/**
+ * Aggregates the content of http requests, except for the requests whose content is streamed to their handler: the head and the
+ * content of these requests are passed on as they are received. Streamed content is limited to the maximum content length like
+ * aggregated content: requests that announce a longer content are aggregated, which rejects them, and the content of chunked requests
+ * fails once it exceeds the limit, after which the rest of the content is discarded.
+ */
+class Netty4HttpAggregator extends HttpObjectAggregator {
+
+    private final Predicate<HttpRequest> streamContent;
+    private boolean streaming;
+    private boolean discarding;
+    private long streamedBytes;
+
+    Netty4HttpAggregator(int maxContentLength, Predicate<HttpRequest> streamContent) {
+        super(maxContentLength);
+        this.streamContent = streamContent;
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        if (msg instanceof HttpRequest && msg instanceof FullHttpRequest == false) {
+            final HttpRequest request = (HttpRequest) msg;
+            streaming = request.decoderResult().isSuccess()
+                && (HttpUtil.isTransferEncodingChunked(request) || HttpUtil.getContentLength(request, 0L) > 0)
+                && HttpUtil.getContentLength(request, 0L) <= maxContentLength()
+                && streamContent.test(request);
+            discarding = false;
+            streamedBytes = 0;
+            if (streaming && HttpUtil.is100ContinueExpected(request)) {
+                // the aggregator only sends the continue response for the requests it aggregates
+                ctx.writeAndFlush(new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.CONTINUE, Unpooled.EMPTY_BUFFER));
+                request.headers().remove(HttpHeaderNames.EXPECT);
+            }
+        }
+        if (streaming) {
+            if (msg instanceof LastHttpContent) {
+                streaming = false;
+            }
+            if (msg instanceof HttpContent) {
+                final HttpContent content = (HttpContent) msg;
+                if (discarding) {
+                    content.release();
+                    return;
+                }
+                streamedBytes += content.content().readableBytes();
+                if (streamedBytes > maxContentLength()) {
+                    // fails the content stream of the request
+                    content.setDecoderResult(DecoderResult.failure(new ElasticsearchStatusException(
+                        "request body exceeds the maximum content length of [{}] bytes", RestStatus.REQUEST_ENTITY_TOO_LARGE,
+                        maxContentLength())));
+                    discarding = true;
+                }
+            }
+            ctx.fireChannelRead(msg);
+        } else {
+            super.channelRead(ctx, msg);
+        }
+    }
+}
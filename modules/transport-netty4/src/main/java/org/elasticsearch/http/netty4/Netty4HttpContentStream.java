@@ -0,0 +1,35 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.http.netty4;
+
+import io.netty.channel.Channel;
+import org.elasticsearch.http.HttpContentStream;
+
+/**
+ * A {@link HttpContentStream} that applies backpressure by turning off the automatic reads of its channel while the handler of the
+ * request does not ask for more content.
+ */
+class Netty4HttpContentStream extends HttpContentStream {
+
+    private final Channel channel;
+
+    Netty4HttpContentStream(Channel channel) {
+        this.channel = channel;
+    }
+
+    @Override
+    protected void pauseReads() {
+        channel.config().setAutoRead(false);
+    }
+
+    @Override
+    protected void resumeReads() {
+        channel.config().setAutoRead(true);
+    }
+}
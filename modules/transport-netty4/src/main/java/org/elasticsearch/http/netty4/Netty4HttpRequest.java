@@ -12,6 +12,7 @@ import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
 import io.netty.handler.codec.http.DefaultFullHttpRequest;
 import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.EmptyHttpHeaders;
 import io.netty.handler.codec.http.FullHttpRequest;
 import io.netty.handler.codec.http.HttpHeaderNames;
 import io.netty.handler.codec.http.HttpHeaders;
@@ -19,7 +20,9 @@ import io.netty.handler.codec.http.HttpMethod;
 import io.netty.handler.codec.http.cookie.Cookie;
 import io.netty.handler.codec.http.cookie.ServerCookieDecoder;
 import io.netty.handler.codec.http.cookie.ServerCookieEncoder;
+import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.http.HttpContentStream;
 import org.elasticsearch.http.HttpRequest;
 import org.elasticsearch.rest.RestRequest;
 import org.elasticsearch.rest.RestStatus;
@@ -42,6 +45,7 @@ public class Netty4HttpRequest implements HttpRequest {
     private final AtomicBoolean released;
     private final Exception inboundException;
     private final boolean pooled;
+    private final HttpContentStream contentStream;
 
     Netty4HttpRequest(FullHttpRequest request) {
         this(request, new HttpHeadersMap(request.headers()), new AtomicBoolean(false), true,
@@ -53,6 +57,18 @@ public class Netty4HttpRequest implements HttpRequest {
             Netty4Utils.toBytesReference(request.content()), inboundException);
     }
 
+    /**
+     * Creates a request from the head of a request whose content is received through the given stream.
+     */
+    Netty4HttpRequest(io.netty.handler.codec.http.HttpRequest request, HttpContentStream contentStream) {
+        this(new DefaultFullHttpRequest(request.protocolVersion(), request.method(), request.uri(), Unpooled.EMPTY_BUFFER,
+                request.headers(), EmptyHttpHeaders.INSTANCE), contentStream);
+    }
+
+    private Netty4HttpRequest(FullHttpRequest request, HttpContentStream contentStream) {
+        this(request, new HttpHeadersMap(request.headers()), new AtomicBoolean(false), false, BytesArray.EMPTY, null, contentStream);
+    }
+
     private Netty4HttpRequest(FullHttpRequest request, HttpHeadersMap headers, AtomicBoolean released, boolean pooled,
                               BytesReference content) {
         this(request, headers, released, pooled, content, null);
@@ -60,17 +76,26 @@ public class Netty4HttpRequest implements HttpRequest {
 
     private Netty4HttpRequest(FullHttpRequest request, HttpHeadersMap headers, AtomicBoolean released, boolean pooled,
                               BytesReference content, Exception inboundException) {
+        this(request, headers, released, pooled, content, inboundException, null);
+    }
+
+    private Netty4HttpRequest(FullHttpRequest request, HttpHeadersMap headers, AtomicBoolean released, boolean pooled,
+                              BytesReference content, Exception inboundException, HttpContentStream contentStream) {
         this.request = request;
         this.headers = headers;
         this.content = content;
         this.pooled = pooled;
         this.released = released;
         this.inboundException = inboundException;
+        this.contentStream = contentStream;
     }
 
     @Override
     public RestRequest.Method method() {
-        HttpMethod httpMethod = request.method();
+        return translateRequestMethod(request.method());
+    }
+
+    static RestRequest.Method translateRequestMethod(HttpMethod httpMethod) {
         if (httpMethod == HttpMethod.GET)
             return RestRequest.Method.GET;
 
@@ -117,8 +142,17 @@ public class Netty4HttpRequest implements HttpRequest {
         return content;
     }
 
+    @Override
+    public HttpContentStream contentStream() {
+        return contentStream;
+    }
+
     @Override
     public void release() {
+        if (contentStream != null) {
+            // discards the content that was not consumed
+            contentStream.close();
+        }
         if (pooled && released.compareAndSet(false, true)) {
             request.release();
         }
@@ -128,6 +162,7 @@ public class Netty4HttpRequest implements HttpRequest {
     public HttpRequest releaseAndCopy() {
         assert released.get() == false;
         if (pooled == false) {
+            // copies and streamed requests do not hold on to any pooled buffer
             return this;
         }
         try {
@@ -180,7 +215,7 @@ public class Netty4HttpRequest implements HttpRequest {
         FullHttpRequest requestWithoutHeader = new DefaultFullHttpRequest(request.protocolVersion(), request.method(), request.uri(),
             request.content(), headersWithoutContentTypeHeader, trailingHeaders);
         return new Netty4HttpRequest(requestWithoutHeader, new HttpHeadersMap(requestWithoutHeader.headers()), released,
-            pooled, content);
+            pooled, content, null, contentStream);
     }
 
     @Override
@@ -35,6 +35,9 @@ import io.netty.handler.codec.http.HttpVersion;
 import org.apache.logging.log4j.message.ParameterizedMessage;
 import org.elasticsearch.ElasticsearchException;
 import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.bytes.ReleasableBytesReference;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.network.NetworkAddress;
 import org.elasticsearch.common.network.NetworkService;
 import org.elasticsearch.common.settings.ClusterSettings;
@@ -48,6 +51,7 @@ import org.elasticsearch.common.util.MockPageCacheRecycler;
 import org.elasticsearch.common.util.concurrent.ThreadContext;
 import org.elasticsearch.http.BindHttpException;
 import org.elasticsearch.http.CorsHandler;
+import org.elasticsearch.http.HttpContentStream;
 import org.elasticsearch.http.HttpServerTransport;
 import org.elasticsearch.http.HttpTransportSettings;
 import org.elasticsearch.http.NullDispatcher;
@@ -67,6 +71,7 @@ import org.junit.Before;
 import java.io.IOException;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
@@ -194,6 +199,121 @@ public class Netty4HttpServerTransportTests extends ESTestCase {
         }
     }
 
+    public void testStreamedContent() throws InterruptedException {
+        final Settings settings = createBuilderWithPort().put(HttpTransportSettings.SETTING_HTTP_STREAM_CONTENT.getKey(), true).build();
+        final byte[] content = randomByteArrayOfLength(randomIntBetween(1, 1 << 20));
+        try (Netty4HttpServerTransport transport = new Netty4HttpServerTransport(settings, networkService, bigArrays, threadPool,
+                xContentRegistry(), new StreamingDispatcher(content), clusterSettings, new SharedGroupFactory(settings))) {
+            transport.start();
+            final TransportAddress remoteAddress = randomFrom(transport.boundAddress().boundAddresses());
+            try (Netty4HttpClient client = new Netty4HttpClient()) {
+                final FullHttpRequest request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, "/streamed",
+                    Unpooled.wrappedBuffer(content));
+                if (randomBoolean()) {
+                    HttpUtil.setContentLength(request, content.length);
+                } else {
+                    HttpUtil.setTransferEncodingChunked(request, true);
+                }
+                final FullHttpResponse response = client.send(remoteAddress.address(), request);
+                try {
+                    assertThat(response.status(), equalTo(HttpResponseStatus.OK));
+                    assertThat(new String(ByteBufUtil.getBytes(response.content()), StandardCharsets.UTF_8), is("done"));
+                } finally {
+                    response.release();
+                }
+            }
+        }
+    }
+
+    public void testStreamedContentTooLong() throws InterruptedException {
+        final int maxContentLength = randomIntBetween(1, 1 << 16);
+        final Settings settings = createBuilderWithPort()
+            .put(HttpTransportSettings.SETTING_HTTP_STREAM_CONTENT.getKey(), true)
+            .put(HttpTransportSettings.SETTING_HTTP_MAX_CONTENT_LENGTH.getKey(), maxContentLength + "b")
+            .build();
+        final byte[] content = randomByteArrayOfLength(randomIntBetween(maxContentLength + 1, 1 << 17));
+        try (Netty4HttpServerTransport transport = new Netty4HttpServerTransport(settings, networkService, bigArrays, threadPool,
+                xContentRegistry(), new StreamingDispatcher(content), clusterSettings, new SharedGroupFactory(settings))) {
+            transport.start();
+            final TransportAddress remoteAddress = randomFrom(transport.boundAddress().boundAddresses());
+            try (Netty4HttpClient client = new Netty4HttpClient()) {
+                final FullHttpRequest request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, "/streamed",
+                    Unpooled.wrappedBuffer(content));
+                // a request that announces its length is rejected before it is dispatched, a chunked one once it exceeds the limit
+                if (randomBoolean()) {
+                    HttpUtil.setContentLength(request, content.length);
+                } else {
+                    HttpUtil.setTransferEncodingChunked(request, true);
+                }
+                final FullHttpResponse response = client.send(remoteAddress.address(), request);
+                try {
+                    assertThat(response.status(), equalTo(HttpResponseStatus.REQUEST_ENTITY_TOO_LARGE));
+                } finally {
+                    response.release();
+                }
+            }
+        }
+    }
+
+    /**
+     * Receives the content of the requests to {@code /streamed} as it arrives, and responds with whether it is the expected content.
+     */
+    private class StreamingDispatcher implements HttpServerTransport.Dispatcher {
+
+        private final byte[] content;
+
+        StreamingDispatcher(byte[] content) {
+            this.content = content;
+        }
+
+        @Override
+        public void dispatchRequest(RestRequest request, RestChannel channel, ThreadContext threadContext) {
+            final HttpContentStream contentStream = request.contentStream();
+            assertNotNull(contentStream);
+            final BytesStreamOutput received = new BytesStreamOutput();
+            contentStream.setHandler(new HttpContentStream.ChunkHandler() {
+                @Override
+                public void onChunk(ReleasableBytesReference chunk, boolean isLast) {
+                    try (chunk) {
+                        chunk.writeTo(received);
+                    } catch (IOException e) {
+                        throw new AssertionError(e);
+                    }
+                    if (isLast) {
+                        final boolean matches = Arrays.equals(content, BytesReference.toBytes(received.bytes()));
+                        channel.sendResponse(new BytesRestResponse(OK, BytesRestResponse.TEXT_CONTENT_TYPE,
+                            new BytesArray(matches ? "done" : "mismatch")));
+                    } else {
+                        contentStream.next();
+                    }
+                }
+
+                @Override
+                public void onFailure(Exception e) {
+                    contentStream.close();
+                    try {
+                        channel.sendResponse(new BytesRestResponse(channel, e));
+                    } catch (IOException ioe) {
+                        throw new AssertionError(ioe);
+                    }
+                }
+            });
+            contentStream.next();
+        }
+
+        @Override
+        public void dispatchBadRequest(RestChannel channel, ThreadContext threadContext, Throwable cause) {
+            logger.error(new ParameterizedMessage("--> Unexpected bad request [{}]",
+                FakeRestRequest.requestToString(channel.request())), cause);
+            throw new AssertionError();
+        }
+
+        @Override
+        public boolean allowsStreamedContent(RestRequest.Method method, String uri) {
+            return uri.equals("/streamed");
+        }
+    }
+
     public void testBindUnavailableAddress() {
         Settings initialSettings = createSettings();
         try (Netty4HttpServerTransport transport = new Netty4HttpServerTransport(initialSettings, networkService, bigArrays, threadPool,
@@ -12,7 +12,7 @@ import io.netty.channel.ChannelHandler;
 import io.netty.handler.codec.ByteToMessageDecoder;
 import io.netty.handler.codec.http.HttpContentCompressor;
 import io.netty.handler.codec.http.HttpContentDecompressor;
-import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.HttpRequest;
 import io.netty.handler.codec.http.HttpRequestDecoder;
 import io.netty.handler.codec.http.HttpResponseEncoder;
 import org.elasticsearch.common.unit.TimeValue;
@@ -26,6 +26,7 @@ import org.elasticsearch.nio.NioChannelHandler;
 import org.elasticsearch.nio.SocketChannelContext;
 import org.elasticsearch.nio.TaskScheduler;
 import org.elasticsearch.nio.WriteOperation;
+import org.elasticsearch.rest.RestRequest;
 
 import java.io.IOException;
 import java.util.ArrayList;
@@ -61,11 +62,11 @@ public class HttpReadWriteHandler implements NioChannelHandler {
         handlers.add(decoder);
         handlers.add(new HttpContentDecompressor());
         handlers.add(new HttpResponseEncoder());
-        handlers.add(new HttpObjectAggregator(settings.getMaxContentLength()));
+        handlers.add(new NioHttpAggregator(settings.getMaxContentLength(), this::shouldStreamContent));
         if (settings.isCompression()) {
             handlers.add(new HttpContentCompressor(settings.getCompressionLevel()));
         }
-        handlers.add(new NioHttpRequestCreator());
+        handlers.add(new NioHttpRequestCreator(nioHttpChannel));
         handlers.add(new NioHttpResponseCreator());
         handlers.add(new NioHttpPipeliningHandler(transport.getLogger(), settings.getPipeliningMaxEvents()));
 
@@ -148,6 +149,17 @@ public class HttpReadWriteHandler implements NioChannelHandler {
         }
     }
 
+    private boolean shouldStreamContent(HttpRequest request) {
+        final RestRequest.Method method;
+        try {
+            method = NioHttpRequest.translateRequestMethod(request.method());
+        } catch (IllegalArgumentException e) {
+            // the request is aggregated and fails later on
+            return false;
+        }
+        return transport.shouldStreamContent(method, request.uri());
+    }
+
     private void maybeReadTimeout() {
         if (requestSinceReadTimeoutTrigger == false && inFlightRequests == 0) {
             transport.onException(nioHttpChannel, new HttpReadTimeoutException(TimeValue.nsecToMSec(readTimeoutNanos)));
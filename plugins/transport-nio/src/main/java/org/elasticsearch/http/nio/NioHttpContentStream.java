@@ -0,0 +1,43 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.http.nio;
+
+import org.elasticsearch.http.HttpContentStream;
+import org.elasticsearch.nio.NioSocketChannel;
+
+/**
+ * A {@link HttpContentStream} that applies backpressure by removing the interest of its channel in reads while the handler of the
+ * request does not ask for more content. The interest of the channel can only be changed by its selector thread, which applies the
+ * latest state that was asked for.
+ */
+class NioHttpContentStream extends HttpContentStream {
+
+    private final NioSocketChannel channel;
+    private volatile boolean readEnabled = true;
+
+    NioHttpContentStream(NioSocketChannel channel) {
+        this.channel = channel;
+    }
+
+    @Override
+    protected void pauseReads() {
+        readEnabled = false;
+        channel.getContext().getSelector().queueTask(this::applyReadEnabled);
+    }
+
+    @Override
+    protected void resumeReads() {
+        readEnabled = true;
+        channel.getContext().getSelector().queueTask(this::applyReadEnabled);
+    }
+
+    private void applyReadEnabled() {
+        channel.getContext().setReadEnabled(readEnabled);
+    }
+}
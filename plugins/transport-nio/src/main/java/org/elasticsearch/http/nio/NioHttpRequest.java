@@ -12,6 +12,7 @@ import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
 import io.netty.handler.codec.http.DefaultFullHttpRequest;
 import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.EmptyHttpHeaders;
 import io.netty.handler.codec.http.FullHttpRequest;
 import io.netty.handler.codec.http.HttpHeaderNames;
 import io.netty.handler.codec.http.HttpHeaders;
@@ -19,7 +20,9 @@ import io.netty.handler.codec.http.HttpMethod;
 import io.netty.handler.codec.http.cookie.Cookie;
 import io.netty.handler.codec.http.cookie.ServerCookieDecoder;
 import io.netty.handler.codec.http.cookie.ServerCookieEncoder;
+import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.http.HttpContentStream;
 import org.elasticsearch.http.HttpRequest;
 import org.elasticsearch.rest.RestRequest;
 import org.elasticsearch.rest.RestStatus;
@@ -41,6 +44,7 @@ public class NioHttpRequest implements HttpRequest {
     private final AtomicBoolean released;
     private final Exception inboundException;
     private final boolean pooled;
+    private final HttpContentStream contentStream;
 
     NioHttpRequest(FullHttpRequest request) {
         this(request, new HttpHeadersMap(request.headers()), new AtomicBoolean(false), true,
@@ -52,6 +56,18 @@ public class NioHttpRequest implements HttpRequest {
             ByteBufUtils.toBytesReference(request.content()), inboundException);
     }
 
+    /**
+     * Creates a request from the head of a request whose content is received through the given stream.
+     */
+    NioHttpRequest(io.netty.handler.codec.http.HttpRequest request, HttpContentStream contentStream) {
+        this(new DefaultFullHttpRequest(request.protocolVersion(), request.method(), request.uri(), Unpooled.EMPTY_BUFFER,
+                request.headers(), EmptyHttpHeaders.INSTANCE), contentStream);
+    }
+
+    private NioHttpRequest(FullHttpRequest request, HttpContentStream contentStream) {
+        this(request, new HttpHeadersMap(request.headers()), new AtomicBoolean(false), false, BytesArray.EMPTY, null, contentStream);
+    }
+
     private NioHttpRequest(FullHttpRequest request, HttpHeadersMap headers, AtomicBoolean released, boolean pooled,
                            BytesReference content) {
         this(request, headers, released, pooled, content, null);
@@ -59,17 +75,26 @@ public class NioHttpRequest implements HttpRequest {
 
     private NioHttpRequest(FullHttpRequest request, HttpHeadersMap headers, AtomicBoolean released, boolean pooled,
                            BytesReference content, Exception inboundException) {
+        this(request, headers, released, pooled, content, inboundException, null);
+    }
+
+    private NioHttpRequest(FullHttpRequest request, HttpHeadersMap headers, AtomicBoolean released, boolean pooled,
+                           BytesReference content, Exception inboundException, HttpContentStream contentStream) {
         this.request = request;
         this.headers = headers;
         this.content = content;
         this.pooled = pooled;
         this.released = released;
         this.inboundException = inboundException;
+        this.contentStream = contentStream;
     }
 
     @Override
     public RestRequest.Method method() {
-        HttpMethod httpMethod = request.method();
+        return translateRequestMethod(request.method());
+    }
+
+    static RestRequest.Method translateRequestMethod(HttpMethod httpMethod) {
         if (httpMethod == HttpMethod.GET)
             return RestRequest.Method.GET;
 
@@ -116,8 +141,17 @@ public class NioHttpRequest implements HttpRequest {
         return content;
     }
 
+    @Override
+    public HttpContentStream contentStream() {
+        return contentStream;
+    }
+
     @Override
     public void release() {
+        if (contentStream != null) {
+            // discards the content that was not consumed
+            contentStream.close();
+        }
         if (pooled && released.compareAndSet(false, true)) {
             request.release();
         }
@@ -127,6 +161,7 @@ public class NioHttpRequest implements HttpRequest {
     public HttpRequest releaseAndCopy() {
         assert released.get() == false;
         if (pooled == false) {
+            // copies and streamed requests do not hold on to any pooled buffer
             return this;
         }
         try {
@@ -178,7 +213,8 @@ public class NioHttpRequest implements HttpRequest {
         trailingHeaders.remove(header);
         FullHttpRequest requestWithoutHeader = new DefaultFullHttpRequest(request.protocolVersion(), request.method(), request.uri(),
             request.content(), headersWithoutContentTypeHeader, trailingHeaders);
-        return new NioHttpRequest(requestWithoutHeader, new HttpHeadersMap(requestWithoutHeader.headers()), released, pooled, content);
+        return new NioHttpRequest(requestWithoutHeader, new HttpHeadersMap(requestWithoutHeader.headers()), released, pooled, content,
+            null, contentStream);
     }
 
     @Override
@@ -8,31 +8,84 @@
 
 package org.elasticsearch.http.nio;
 
-import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.MessageToMessageDecoder;
 import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpObject;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.LastHttpContent;
 import org.elasticsearch.ExceptionsHelper;
+import org.elasticsearch.common.bytes.ReleasableBytesReference;
+import org.elasticsearch.nio.NioSocketChannel;
 
 import java.util.List;
 
-@ChannelHandler.Sharable
-class NioHttpRequestCreator extends MessageToMessageDecoder<FullHttpRequest> {
+/**
+ * Creates the {@link NioHttpRequest}s of a channel. The aggregated requests are created from their full content, and the requests
+ * whose content is streamed are created from their head, along with a content stream that is then fed with the rest of the request.
+ */
+class NioHttpRequestCreator extends MessageToMessageDecoder<HttpObject> {
+
+    private final NioSocketChannel channel;
+    private NioHttpContentStream contentStream;
+
+    NioHttpRequestCreator(NioSocketChannel channel) {
+        this.channel = channel;
+    }
 
     @Override
-    protected void decode(ChannelHandlerContext ctx, FullHttpRequest msg, List<Object> out) {
+    protected void decode(ChannelHandlerContext ctx, HttpObject msg, List<Object> out) {
+        if (msg instanceof FullHttpRequest) {
+            final FullHttpRequest request = (FullHttpRequest) msg;
+            final Exception inboundException = inboundException(request);
+            if (inboundException != null) {
+                out.add(new NioHttpRequest(request.retain(), inboundException));
+            } else {
+                out.add(new NioHttpRequest(request.retain()));
+            }
+        } else if (msg instanceof HttpRequest) {
+            assert contentStream == null : "the content of the previous request was not received in full";
+            contentStream = new NioHttpContentStream(channel);
+            out.add(new NioHttpRequest((HttpRequest) msg, contentStream));
+        } else if (msg instanceof HttpContent) {
+            assert contentStream != null : "received content without a request";
+            final HttpContent content = (HttpContent) msg;
+            final NioHttpContentStream stream = contentStream;
+            final Exception inboundException = inboundException(content);
+            if (inboundException != null) {
+                contentStream = null;
+                stream.onFailure(inboundException);
+            } else {
+                final boolean isLast = msg instanceof LastHttpContent;
+                if (isLast) {
+                    contentStream = null;
+                }
+                content.retain();
+                stream.onContent(new ReleasableBytesReference(ByteBufUtils.toBytesReference(content.content()), content::release), isLast);
+            }
+        }
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        if (contentStream != null) {
+            contentStream.onChannelClosed();
+            contentStream = null;
+        }
+        super.channelInactive(ctx);
+    }
+
+    private static Exception inboundException(HttpObject msg) {
         if (msg.decoderResult().isFailure()) {
             final Throwable cause = msg.decoderResult().cause();
-            final Exception nonError;
             if (cause instanceof Error) {
                 ExceptionsHelper.maybeDieOnAnotherThread(cause);
-                nonError = new Exception(cause);
+                return new Exception(cause);
             } else {
-                nonError = (Exception) cause;
+                return (Exception) cause;
             }
-            out.add(new NioHttpRequest(msg.retain(), nonError));
-        } else {
-            out.add(new NioHttpRequest(msg.retain()));
         }
+        return null;
     }
 }
@@ -362,6 +362,9 @@ public class TasksIT extends ESIntegTestCase {
                 case SearchTransportService.DFS_ACTION_NAME:
                     assertTrue(taskInfo.getDescription(), Regex.simpleMatch("shardId[[test][*]]", taskInfo.getDescription()));
                     break;
+                case SearchTransportService.QUERY_NODE_ACTION_NAME:
+                    assertTrue(taskInfo.getDescription(), Regex.simpleMatch("shardIds[[test][*]]", taskInfo.getDescription()));
+                    break;
                 case SearchTransportService.QUERY_ID_ACTION_NAME:
                     assertTrue(taskInfo.getDescription(), Regex.simpleMatch("id[*], indices[test]", taskInfo.getDescription()));
                     break;
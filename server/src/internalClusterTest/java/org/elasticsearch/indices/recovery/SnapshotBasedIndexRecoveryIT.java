@@ -0,0 +1,112 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.indices.recovery;
+
+import org.elasticsearch.action.index.IndexRequestBuilder;
+import org.elasticsearch.cluster.metadata.IndexMetadata;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.plugins.Plugin;
+import org.elasticsearch.repositories.blobstore.BlobStoreRepository;
+import org.elasticsearch.snapshots.AbstractSnapshotIntegTestCase;
+import org.elasticsearch.test.ESIntegTestCase;
+import org.elasticsearch.test.transport.MockTransportService;
+import org.elasticsearch.transport.TransportService;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertAcked;
+import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertHitCount;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+
+@ESIntegTestCase.ClusterScope(scope = ESIntegTestCase.Scope.TEST, numDataNodes = 0)
+public class SnapshotBasedIndexRecoveryIT extends AbstractSnapshotIntegTestCase {
+
+    @Override
+    protected Collection<Class<? extends Plugin>> nodePlugins() {
+        final List<Class<? extends Plugin>> plugins = new ArrayList<>(super.nodePlugins());
+        plugins.add(MockTransportService.TestPlugin.class);
+        return plugins;
+    }
+
+    public void testReplicaRestoresUnchangedFilesFromSnapshot() throws Exception {
+        testRecoveryFromSnapshot(true);
+    }
+
+    public void testReplicaReceivesAllFilesFromPrimaryWhenRepositoryIsNotUsedForPeerRecoveries() throws Exception {
+        testRecoveryFromSnapshot(false);
+    }
+
+    private void testRecoveryFromSnapshot(boolean useForPeerRecovery) throws Exception {
+        final String primaryNode = internalCluster().startNode();
+        final String indexName = "index";
+        createIndex(indexName, Settings.builder()
+            .put(IndexMetadata.SETTING_NUMBER_OF_SHARDS, 1)
+            .put(IndexMetadata.SETTING_NUMBER_OF_REPLICAS, 0)
+            .build());
+        final int numDocs = randomIntBetween(100, 300);
+        indexDocs(indexName, numDocs);
+        flush(indexName);
+
+        final String repositoryName = "repo";
+        createRepository(repositoryName, "fs", Settings.builder()
+            .put("location", randomRepoPath())
+            .put("chunk_size", randomIntBetween(1, 10), ByteSizeUnit.KB)
+            .put(BlobStoreRepository.USE_FOR_PEER_RECOVERY_SETTING.getKey(), useForPeerRecovery));
+        createSnapshot(repositoryName, "snap", List.of(indexName));
+
+        final Set<String> filesRestoredFromSnapshot = ConcurrentHashMap.newKeySet();
+        final Set<String> filesSentByPrimary = ConcurrentHashMap.newKeySet();
+        final MockTransportService primaryTransportService =
+            (MockTransportService) internalCluster().getInstance(TransportService.class, primaryNode);
+        primaryTransportService.addSendBehavior((connection, requestId, action, request, options) -> {
+            if (PeerRecoveryTargetService.Actions.RESTORE_FILE_FROM_SNAPSHOT.equals(action)) {
+                filesRestoredFromSnapshot.add(((RecoverySnapshotFileRequest) request).fileInfo().physicalName());
+            } else if (PeerRecoveryTargetService.Actions.FILE_CHUNK.equals(action)) {
+                filesSentByPrimary.add(((RecoveryFileChunkRequest) request).name());
+            }
+            connection.sendRequest(requestId, action, request, options);
+        });
+
+        internalCluster().startNode();
+        assertAcked(client().admin().indices().prepareUpdateSettings(indexName)
+            .setSettings(Settings.builder().put(IndexMetadata.SETTING_NUMBER_OF_REPLICAS, 1)));
+        ensureGreen(indexName);
+
+        if (useForPeerRecovery) {
+            assertThat(filesRestoredFromSnapshot, not(empty()));
+            for (String file : filesRestoredFromSnapshot) {
+                assertThat("file [" + file + "] was restored from the snapshot and sent by the primary",
+                    filesSentByPrimary.contains(file), is(false));
+            }
+        } else {
+            assertThat(filesRestoredFromSnapshot, empty());
+            assertThat(filesSentByPrimary, not(empty()));
+        }
+
+        internalCluster().stopRandomNode(settings -> primaryNode.equals(settings.get("node.name")));
+        ensureYellow(indexName);
+        refresh(indexName);
+        assertHitCount(client().prepareSearch(indexName).setSize(0).get(), numDocs);
+    }
+
+    private void indexDocs(String indexName, int numDocs) throws InterruptedException {
+        final IndexRequestBuilder[] builders = new IndexRequestBuilder[numDocs];
+        for (int i = 0; i < numDocs; i++) {
+            builders[i] = client().prepareIndex(indexName).setSource("field", randomAlphaOfLength(10), "num", i);
+        }
+        indexRandom(true, false, builders);
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+package org.elasticsearch.snapshots;
+
+import org.elasticsearch.Version;
+import org.elasticsearch.action.ActionRunnable;
+import org.elasticsearch.action.admin.cluster.snapshots.restore.RestoreSnapshotResponse;
+import org.elasticsearch.action.index.IndexRequestBuilder;
+import org.elasticsearch.action.support.PlainActionFuture;
+import org.elasticsearch.cluster.metadata.IndexMetadata;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.index.snapshots.blobstore.BlobStoreIndexShardSnapshot;
+import org.elasticsearch.index.snapshots.blobstore.BlobStoreIndexShardSnapshots;
+import org.elasticsearch.index.snapshots.blobstore.SnapshotFiles;
+import org.elasticsearch.repositories.IndexId;
+import org.elasticsearch.repositories.RepositoryData;
+import org.elasticsearch.repositories.blobstore.BlobStoreRepository;
+import org.elasticsearch.test.ESIntegTestCase;
+import org.elasticsearch.test.VersionUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertAcked;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+
+@ESIntegTestCase.ClusterScope(scope = ESIntegTestCase.Scope.TEST, numDataNodes = 0)
+public class ContentDefinedChunkingSnapshotIT extends AbstractSnapshotIntegTestCase {
+
+    public void testSnapshotRestoreAndDeleteWithContentDefinedChunks() throws Exception {
+        internalCluster().startMasterOnlyNode();
+        internalCluster().startDataOnlyNode();
+        final String indexName = "test-index";
+        createIndex(indexName, Settings.builder()
+            .put(IndexMetadata.SETTING_NUMBER_OF_SHARDS, 1)
+            .put(IndexMetadata.SETTING_NUMBER_OF_REPLICAS, 0)
+            .build());
+        ensureGreen(indexName);
+
+        final String repo = "test-repo";
+        final Path repoPath = randomRepoPath();
+        final Settings.Builder repositorySettings = Settings.builder()
+            .put("location", repoPath)
+            .put(BlobStoreRepository.CONTENT_DEFINED_CHUNKING_SETTING.getKey(), true)
+            .put(BlobStoreRepository.CONTENT_DEFINED_CHUNK_SIZE_SETTING.getKey(), randomIntBetween(1, 8), ByteSizeUnit.KB);
+        if (randomBoolean()) {
+            repositorySettings.put("chunk_size", randomIntBetween(4, 64), ByteSizeUnit.KB);
+        }
+        createRepository(repo, "fs", repositorySettings);
+
+        final int firstDocs = indexDocs(indexName, 0, between(50, 200));
+        createSnapshot(repo, "snap-1", List.of(indexName));
+
+        final int secondDocs = indexDocs(indexName, firstDocs, between(50, 200));
+        if (randomBoolean()) {
+            client().admin().indices().prepareForceMerge(indexName).setMaxNumSegments(1).get();
+        }
+        createSnapshot(repo, "snap-2", List.of(indexName));
+
+        final IndexId indexId = getRepositoryData(repo).resolveIndexId(indexName);
+        final Path shardPath = repoPath.resolve("indices").resolve(indexId.getId()).resolve("0");
+        final BlobStoreIndexShardSnapshots shardSnapshots = assertBlobsMatchChunkReferences(repo, indexId, shardPath);
+        assertThat(shardSnapshots.chunkNames(), not(empty()));
+
+        logger.info("--> deleting the first snapshot");
+        assertAcked(startDeleteSnapshot(repo, "snap-1").get());
+        final BlobStoreIndexShardSnapshots remainingShardSnapshots = assertBlobsMatchChunkReferences(repo, indexId, shardPath);
+        for (SnapshotFiles snapshotFiles : remainingShardSnapshots) {
+            assertThat(snapshotFiles.snapshot(), equalTo("snap-2"));
+        }
+
+        logger.info("--> restoring the second snapshot");
+        final RestoreSnapshotResponse restoreSnapshotResponse = client().admin().cluster().prepareRestoreSnapshot(repo, "snap-2")
+            .setIndices(indexName).setRenamePattern("(.+)").setRenameReplacement("$1-copy").setWaitForCompletion(true).get();
+        assertThat(restoreSnapshotResponse.getRestoreInfo().failedShards(), is(0));
+        assertDocCount(indexName + "-copy", firstDocs + secondDocs);
+
+        logger.info("--> deleting the second snapshot");
+        assertAcked(startDeleteSnapshot(repo, "snap-2").get());
+        try (Stream<Path> files = Files.walk(repoPath)) {
+            assertThat(files.map(file -> file.getFileName().toString()).filter(name -> name.startsWith("c__"))
+                .collect(Collectors.toList()), empty());
+        }
+    }
+
+    public void testNoChunksWhileRepositoryHasOlderSnapshots() throws Exception {
+        internalCluster().startMasterOnlyNode();
+        internalCluster().startDataOnlyNode();
+        final String repo = "test-repo";
+        final Path repoPath = randomRepoPath();
+        final Settings.Builder repositorySettings = Settings.builder()
+            .put("location", repoPath)
+            .put(BlobStoreRepository.CONTENT_DEFINED_CHUNKING_SETTING.getKey(), true)
+            .put(BlobStoreRepository.CONTENT_DEFINED_CHUNK_SIZE_SETTING.getKey(), randomIntBetween(1, 8), ByteSizeUnit.KB);
+        createRepository(repo, "fs", repositorySettings);
+        final Version oldVersion = VersionUtils.randomVersionBetween(random(), SnapshotsService.SHARD_GEN_IN_REPO_DATA_VERSION,
+            VersionUtils.getPreviousVersion(SnapshotsService.CONTENT_DEFINED_CHUNKS_VERSION));
+        final String oldVersionSnapshot = initWithSnapshotVersion(repo, repoPath, oldVersion);
+
+        logger.info("--> recreating repository to clear caches");
+        client().admin().cluster().prepareDeleteRepository(repo).get();
+        createRepository(repo, "fs", repositorySettings);
+
+        final String indexName = "test-index";
+        createIndex(indexName, Settings.builder()
+            .put(IndexMetadata.SETTING_NUMBER_OF_SHARDS, 1)
+            .put(IndexMetadata.SETTING_NUMBER_OF_REPLICAS, 0)
+            .build());
+        ensureGreen(indexName);
+        indexDocs(indexName, 0, between(50, 200));
+        createSnapshot(repo, "snap-1", List.of(indexName));
+
+        // the older version could not read the metadata of the shard if it had chunks
+        final IndexId indexId = getRepositoryData(repo).resolveIndexId(indexName);
+        assertThat(getShardSnapshots(repo, indexId).chunkNames(), empty());
+        assertThat(chunkBlobs(repoPath.resolve("indices").resolve(indexId.getId()).resolve("0")), empty());
+
+        logger.info("--> deleting the snapshot of the older version");
+        assertAcked(startDeleteSnapshot(repo, oldVersionSnapshot).get());
+        indexDocs(indexName, 1000, between(50, 200));
+        createSnapshot(repo, "snap-2", List.of(indexName));
+        assertThat(getShardSnapshots(repo, indexId).chunkNames(), not(empty()));
+    }
+
+    /**
+     * Checks that the chunk blobs of the shard are exactly the ones that files of its snapshots reference, and that no files are stored
+     * as parts of their own.
+     */
+    private BlobStoreIndexShardSnapshots assertBlobsMatchChunkReferences(String repo, IndexId indexId, Path shardPath) throws IOException {
+        final BlobStoreIndexShardSnapshots shardSnapshots = getShardSnapshots(repo, indexId);
+        try (Stream<Path> files = Files.list(shardPath)) {
+            assertThat(files.map(file -> file.getFileName().toString()).filter(blob -> blob.startsWith("__"))
+                .collect(Collectors.toList()), empty());
+        }
+        assertThat(chunkBlobs(shardPath), equalTo(shardSnapshots.chunkNames()));
+        for (SnapshotFiles snapshotFiles : shardSnapshots) {
+            for (BlobStoreIndexShardSnapshot.FileInfo fileInfo : snapshotFiles.indexFiles()) {
+                if (fileInfo.name().startsWith("v__") == false) {
+                    assertThat(fileInfo.chunks(), not(empty()));
+                }
+            }
+        }
+        return shardSnapshots;
+    }
+
+    private BlobStoreIndexShardSnapshots getShardSnapshots(String repo, IndexId indexId) throws IOException {
+        final RepositoryData repositoryData = getRepositoryData(repo);
+        final BlobStoreRepository repository = getRepositoryOnMaster(repo);
+        final String shardGeneration = repositoryData.shardGenerations().getShardGen(indexId, 0);
+        return PlainActionFuture.get(f -> repository.threadPool().generic().execute(
+            ActionRunnable.supply(f, () -> repository.getBlobStoreIndexShardSnapshots(indexId, 0, shardGeneration))));
+    }
+
+    private static Set<String> chunkBlobs(Path shardPath) throws IOException {
+        try (Stream<Path> files = Files.list(shardPath)) {
+            return files.map(file -> file.getFileName().toString()).filter(blob -> blob.startsWith("c__")).collect(Collectors.toSet());
+        }
+    }
+
+    private int indexDocs(String indexName, int firstId, int numDocs) throws InterruptedException {
+        final IndexRequestBuilder[] builders = new IndexRequestBuilder[numDocs];
+        for (int i = 0; i < numDocs; i++) {
+            builders[i] = client().prepareIndex(indexName).setId(Integer.toString(firstId + i))
+                .setSource("field", randomAlphaOfLength(between(10, 1000)));
+        }
+        indexRandom(true, builders);
+        flushAndRefresh(indexName);
+        return numDocs;
+    }
+}
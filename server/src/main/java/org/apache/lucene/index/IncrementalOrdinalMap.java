@@ -0,0 +1,261 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.apache.lucene.index;
+
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.Accountables;
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.LongValues;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.apache.lucene.util.packed.PackedInts;
+import org.apache.lucene.util.packed.PackedLongValues;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An {@link OrdinalMap} that is built from the ordinal map of an earlier set of segments rather than by merging the terms
+ * of all segments. This is the common case on near-real-time indices where a refresh adds a few small segments next to the
+ * segments of the previous reader. Only the terms of the new segments are read: each of them is looked up in the terms of
+ * the previous ordinal map to find where it is inserted, and the ordinals of the segments of the previous reader are then
+ * shifted by the number of new terms that sort before them, which doesn't require reading their terms.
+ */
+public final class IncrementalOrdinalMap extends OrdinalMap {
+
+    private static final long BASE_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(IncrementalOrdinalMap.class);
+
+    private final long valueCount;
+    private final PackedLongValues[] segmentToGlobalOrds;
+    private final PackedLongValues firstSegments;
+    private final PackedLongValues globalOrdDeltas;
+    private final long ramBytesUsed;
+
+    private IncrementalOrdinalMap(long valueCount, PackedLongValues[] segmentToGlobalOrds, PackedLongValues firstSegments,
+                                  PackedLongValues globalOrdDeltas) throws IOException {
+        // the super class is built empty, borrowing the segment map of an empty ordinal map: all of its methods are overridden
+        super(null, new TermsEnum[0], OrdinalMap.build(null, new TermsEnum[0], new long[0], PackedInts.DEFAULT).segmentMap,
+            PackedInts.DEFAULT);
+        this.valueCount = valueCount;
+        this.segmentToGlobalOrds = segmentToGlobalOrds;
+        this.firstSegments = firstSegments;
+        this.globalOrdDeltas = globalOrdDeltas;
+        long ramBytesUsed = BASE_RAM_BYTES_USED + RamUsageEstimator.shallowSizeOf(segmentToGlobalOrds) + firstSegments.ramBytesUsed()
+            + globalOrdDeltas.ramBytesUsed();
+        for (PackedLongValues values : segmentToGlobalOrds) {
+            ramBytesUsed += values.ramBytesUsed();
+        }
+        this.ramBytesUsed = ramBytesUsed;
+    }
+
+    /**
+     * Builds the ordinal map of the given segments from {@code previous}, the ordinal map of an earlier set of segments.
+     *
+     * @param previous            the ordinal map of the earlier segments
+     * @param previousSegments    the core cache keys of the earlier segments, in the order of {@code previous}
+     * @param previousValueCounts the number of terms of each of the earlier segments
+     * @param subs                the doc values of the segments
+     * @param segments            the core cache keys of the segments, {@code null} for segments that don't support caching
+     * @return the ordinal map, or {@code null} if an earlier segment isn't part of the segments anymore, typically because it
+     *         was merged away, in which case the ordinal map must be built from scratch
+     */
+    public static OrdinalMap build(OrdinalMap previous, IndexReader.CacheKey[] previousSegments, long[] previousValueCounts,
+                                   SortedSetDocValues[] subs, IndexReader.CacheKey[] segments) throws IOException {
+        final Map<IndexReader.CacheKey, Integer> previousSegmentIndices = new HashMap<>();
+        for (int i = 0; i < previousSegments.length; i++) {
+            if (previousSegments[i] == null) {
+                return null;
+            }
+            previousSegmentIndices.put(previousSegments[i], i);
+        }
+        final int[] previousToSegment = new int[previousSegments.length];
+        final int[] segmentToPrevious = new int[subs.length];
+        final int[] segmentToAdded = new int[subs.length];
+        final List<SortedSetDocValues> addedSubs = new ArrayList<>();
+        final List<Integer> addedSegments = new ArrayList<>();
+        int reused = 0;
+        for (int i = 0; i < subs.length; i++) {
+            Integer previousIndex = segments[i] == null ? null : previousSegmentIndices.get(segments[i]);
+            // readers that hide fields may share the core cache key of the segment, so check that the terms are the same
+            if (previousIndex != null && subs[i].getValueCount() == previousValueCounts[previousIndex]) {
+                previousToSegment[previousIndex] = i;
+                segmentToPrevious[i] = previousIndex;
+                reused++;
+            } else {
+                segmentToPrevious[i] = -1;
+                segmentToAdded[i] = addedSegments.size();
+                addedSegments.add(i);
+                addedSubs.add(subs[i]);
+            }
+        }
+        if (reused != previousSegments.length) {
+            return null;
+        }
+
+        // merge the terms of the added segments, they are usually small
+        final OrdinalMap added = OrdinalMap.build(null, addedSubs.toArray(new SortedSetDocValues[0]), PackedInts.DEFAULT);
+        final long addedCount = added.getValueCount();
+        if (addedCount > ArrayUtil.MAX_ARRAY_LENGTH) {
+            return null;
+        }
+
+        // find where the terms of the added segments go in the terms of the previous ordinal map
+        final PreviousTerms previousTerms = new PreviousTerms(previous, subs, previousToSegment);
+        final long[] addedToGlobal = new long[(int) addedCount];
+        final long[] newTermInsertions = new long[(int) addedCount];
+        final int[] newTermAddedOrds = new int[(int) addedCount];
+        int newTerms = 0;
+        long from = 0;
+        for (int addedOrd = 0; addedOrd < addedCount; addedOrd++) {
+            final BytesRef term = addedSubs.get(added.getFirstSegmentNumber(addedOrd)).lookupOrd(added.getFirstSegmentOrd(addedOrd));
+            final long insertion = previousTerms.lowerBound(term, from);
+            from = insertion;
+            // new terms that sort before this one shift its ordinal
+            addedToGlobal[addedOrd] = insertion + newTerms;
+            if (insertion == previousTerms.valueCount || previousTerms.lookup(insertion).bytesEquals(term) == false) {
+                newTermInsertions[newTerms] = insertion;
+                newTermAddedOrds[newTerms] = addedOrd;
+                newTerms++;
+            }
+        }
+
+        final PackedLongValues[] segmentToGlobalOrds = new PackedLongValues[subs.length];
+        for (int i = 0; i < subs.length; i++) {
+            final PackedLongValues.Builder builder = PackedLongValues.monotonicBuilder(PackedInts.COMPACT);
+            final long count = subs[i].getValueCount();
+            if (segmentToPrevious[i] >= 0) {
+                final LongValues previousOrds = previous.getGlobalOrds(segmentToPrevious[i]);
+                int next = 0;
+                for (long ord = 0; ord < count; ord++) {
+                    final long previousOrd = previousOrds.get(ord);
+                    while (next < newTerms && newTermInsertions[next] <= previousOrd) {
+                        next++;
+                    }
+                    builder.add(previousOrd + next);
+                }
+            } else {
+                final LongValues addedOrds = added.getGlobalOrds(segmentToAdded[i]);
+                for (long ord = 0; ord < count; ord++) {
+                    builder.add(addedToGlobal[(int) addedOrds.get(ord)]);
+                }
+            }
+            segmentToGlobalOrds[i] = builder.build();
+        }
+
+        // interleave the new terms with the terms of the previous ordinal map to record the first segment of each term
+        final PackedLongValues.Builder firstSegments = PackedLongValues.packedBuilder(PackedInts.COMPACT);
+        final PackedLongValues.Builder globalOrdDeltas = PackedLongValues.monotonicBuilder(PackedInts.COMPACT);
+        long globalOrd = 0;
+        int next = 0;
+        for (long previousOrd = 0; previousOrd <= previousTerms.valueCount; previousOrd++) {
+            while (next < newTerms && newTermInsertions[next] == previousOrd) {
+                final int addedOrd = newTermAddedOrds[next];
+                firstSegments.add(addedSegments.get(added.getFirstSegmentNumber(addedOrd)));
+                globalOrdDeltas.add(globalOrd - added.getFirstSegmentOrd(addedOrd));
+                globalOrd++;
+                next++;
+            }
+            if (previousOrd < previousTerms.valueCount) {
+                firstSegments.add(previousToSegment[previous.getFirstSegmentNumber(previousOrd)]);
+                globalOrdDeltas.add(globalOrd - previous.getFirstSegmentOrd(previousOrd));
+                globalOrd++;
+            }
+        }
+        assert globalOrd == previousTerms.valueCount + newTerms;
+        return new IncrementalOrdinalMap(globalOrd, segmentToGlobalOrds, firstSegments.build(), globalOrdDeltas.build());
+    }
+
+    @Override
+    public LongValues getGlobalOrds(int segmentIndex) {
+        return segmentToGlobalOrds[segmentIndex];
+    }
+
+    @Override
+    public long getFirstSegmentOrd(long globalOrd) {
+        return globalOrd - globalOrdDeltas.get(globalOrd);
+    }
+
+    @Override
+    public int getFirstSegmentNumber(long globalOrd) {
+        return (int) firstSegments.get(globalOrd);
+    }
+
+    @Override
+    public long getValueCount() {
+        return valueCount;
+    }
+
+    @Override
+    public long ramBytesUsed() {
+        return ramBytesUsed;
+    }
+
+    @Override
+    public Collection<Accountable> getChildResources() {
+        List<Accountable> resources = new ArrayList<>();
+        resources.add(Accountables.namedAccountable("global ord deltas", globalOrdDeltas));
+        resources.add(Accountables.namedAccountable("first segments", firstSegments));
+        for (int i = 0; i < segmentToGlobalOrds.length; i++) {
+            resources.add(Accountables.namedAccountable("segment map [" + i + "]", segmentToGlobalOrds[i]));
+        }
+        return resources;
+    }
+
+    /**
+     * Random access to the terms of the previous ordinal map through the segments that they come from.
+     */
+    private static class PreviousTerms {
+        private final OrdinalMap previous;
+        private final SortedSetDocValues[] subs;
+        private final int[] previousToSegment;
+        private final long valueCount;
+
+        PreviousTerms(OrdinalMap previous, SortedSetDocValues[] subs, int[] previousToSegment) {
+            this.previous = previous;
+            this.subs = subs;
+            this.previousToSegment = previousToSegment;
+            this.valueCount = previous.getValueCount();
+        }
+
+        BytesRef lookup(long previousOrd) throws IOException {
+            SortedSetDocValues sub = subs[previousToSegment[previous.getFirstSegmentNumber(previousOrd)]];
+            return sub.lookupOrd(previous.getFirstSegmentOrd(previousOrd));
+        }
+
+        /**
+         * Returns the first ordinal, greater than or equal to {@code from}, whose term is greater than or equal to
+         * {@code term}, or the number of terms if there is none. Terms are looked up in increasing order so this gallops
+         * from the previous result before searching the range that it found.
+         */
+        long lowerBound(BytesRef term, long from) throws IOException {
+            long low = from;
+            long high = from;
+            long step = 1;
+            while (high < valueCount && lookup(high).compareTo(term) < 0) {
+                low = high + 1;
+                high = low + step;
+                step <<= 1;
+            }
+            high = Math.min(high, valueCount);
+            while (low < high) {
+                long mid = (low + high) >>> 1;
+                if (lookup(mid).compareTo(term) < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+}
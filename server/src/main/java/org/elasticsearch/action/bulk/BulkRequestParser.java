@@ -66,13 +66,17 @@ public final class BulkRequestParser {
         this.errorOnType = errorOnType;
     }
 
-    private static int findNextMarker(byte marker, int from, BytesReference data) {
-        final int res = data.indexOf(marker, from);
+    /**
+     * Returns the position of the next marker at or after {@code from}, knowing that the bytes before {@code searchFrom} do not hold
+     * any, or {@code -1} if there is none.
+     */
+    private static int findNextMarker(byte marker, int from, int searchFrom, BytesReference data, boolean lastData) {
+        final int res = data.indexOf(marker, Math.max(from, searchFrom));
         if (res != -1) {
             assert res >= 0;
             return res;
         }
-        if (from != data.length()) {
+        if (lastData && from != data.length()) {
             throw new IllegalArgumentException("The bulk request must be terminated by a newline [\\n]");
         }
         return res;
@@ -85,7 +89,7 @@ public final class BulkRequestParser {
     private static BytesReference sliceTrimmingCarriageReturn(BytesReference bytesReference, int from, int nextMarker,
                                                               XContentType xContentType) {
         final int length;
-        if (XContentType.JSON == xContentType && bytesReference.get(nextMarker - 1) == (byte) '\r') {
+        if (XContentType.JSON == xContentType && nextMarker > from && bytesReference.get(nextMarker - 1) == (byte) '\r') {
             length = nextMarker - from - 1;
         } else {
             length = nextMarker - from;
@@ -106,169 +110,157 @@ public final class BulkRequestParser {
             BiConsumer<IndexRequest, String> indexRequestConsumer,
             Consumer<UpdateRequest> updateRequestConsumer,
             Consumer<DeleteRequest> deleteRequestConsumer) throws IOException {
-        XContent xContent = xContentType.xContent();
-        int line = 0;
-        int from = 0;
-        byte marker = xContent.streamSeparator();
-        // Bulk requests can contain a lot of repeated strings for the index, pipeline and routing parameters. This map is used to
-        // deduplicate duplicate strings parsed for these parameters. While it does not prevent instantiating the duplicate strings, it
-        // reduces their lifetime to the lifetime of this parse call instead of the lifetime of the full bulk request.
-        final Map<String, String> stringDeduplicator = new HashMap<>();
-        while (true) {
-            int nextMarker = findNextMarker(marker, from, data);
-            if (nextMarker == -1) {
-                break;
-            }
-            line++;
+        incrementalParser(defaultIndex, defaultRouting, defaultFetchSourceContext, defaultPipeline, defaultRequireAlias,
+            allowExplicitIndex, xContentType, indexRequestConsumer, updateRequestConsumer, deleteRequestConsumer).parse(data, true);
+    }
 
-            // now parse the action
-            try (XContentParser parser = createParser(data, xContent, from, nextMarker)) {
-                // move pointers
-                from = nextMarker + 1;
+    /**
+     * Create a parser for data that is received in several parts, assuming the provided default values. Requests are passed to the
+     * consumers as in {@link #parse}.
+     */
+    public IncrementalParser incrementalParser(
+            @Nullable String defaultIndex,
+            @Nullable String defaultRouting, @Nullable FetchSourceContext defaultFetchSourceContext,
+            @Nullable String defaultPipeline, @Nullable Boolean defaultRequireAlias, boolean allowExplicitIndex,
+            XContentType xContentType,
+            BiConsumer<IndexRequest, String> indexRequestConsumer,
+            Consumer<UpdateRequest> updateRequestConsumer,
+            Consumer<DeleteRequest> deleteRequestConsumer) {
+        return new IncrementalParser(defaultIndex, defaultRouting, defaultFetchSourceContext, defaultPipeline, defaultRequireAlias,
+            allowExplicitIndex, xContentType, indexRequestConsumer, updateRequestConsumer, deleteRequestConsumer);
+    }
 
-                // Move to START_OBJECT
-                XContentParser.Token token = parser.nextToken();
-                if (token == null) {
-                    continue;
-                }
-                if (token != XContentParser.Token.START_OBJECT) {
-                    throw new IllegalArgumentException("Malformed action/metadata line [" + line + "], expected "
-                            + XContentParser.Token.START_OBJECT + " but found [" + token + "]");
-                }
-                // Move to FIELD_NAME, that's the action
-                token = parser.nextToken();
-                if (token != XContentParser.Token.FIELD_NAME) {
-                    throw new IllegalArgumentException("Malformed action/metadata line [" + line + "], expected "
-                            + XContentParser.Token.FIELD_NAME + " but found [" + token + "]");
-                }
-                String action = parser.currentName();
+    /**
+     * Parses the data of a bulk request as it is received. Each call to {@link #parse} parses the complete items of the data it is
+     * given, and returns how many bytes it consumed. The bytes that were not consumed hold an incomplete item, and must be passed to
+     * the next call along with the data that follows them. The action/metadata line of an item whose source is incomplete is consumed
+     * and kept until its source is complete, and the bytes that were not consumed are not searched for the end of a line again, so
+     * an item that is received in many parts is only parsed once.
+     */
+    public final class IncrementalParser {
 
-                String index = defaultIndex;
-                String type = null;
-                String id = null;
-                String routing = defaultRouting;
-                FetchSourceContext fetchSourceContext = defaultFetchSourceContext;
-                String opType = null;
-                long version = Versions.MATCH_ANY;
-                VersionType versionType = VersionType.INTERNAL;
-                long ifSeqNo = SequenceNumbers.UNASSIGNED_SEQ_NO;
-                long ifPrimaryTerm = UNASSIGNED_PRIMARY_TERM;
-                int retryOnConflict = 0;
-                String pipeline = defaultPipeline;
-                boolean requireAlias = defaultRequireAlias != null && defaultRequireAlias;
+        @Nullable
+        private final String defaultIndex;
+        @Nullable
+        private final String defaultRouting;
+        @Nullable
+        private final FetchSourceContext defaultFetchSourceContext;
+        @Nullable
+        private final String defaultPipeline;
+        @Nullable
+        private final Boolean defaultRequireAlias;
+        private final boolean allowExplicitIndex;
+        private final XContentType xContentType;
+        private final BiConsumer<IndexRequest, String> indexRequestConsumer;
+        private final Consumer<UpdateRequest> updateRequestConsumer;
+        private final Consumer<DeleteRequest> deleteRequestConsumer;
 
-                // at this stage, next token can either be END_OBJECT (and use default index and type, with auto generated id)
-                // or START_OBJECT which will have another set of parameters
-                token = parser.nextToken();
+        // Bulk requests can contain a lot of repeated strings for the index, pipeline and routing parameters. This map is used to
+        // deduplicate duplicate strings parsed for these parameters. While it does not prevent instantiating the duplicate strings, it
+        // reduces their lifetime to the lifetime of this parser instead of the lifetime of the full bulk request.
+        private final Map<String, String> stringDeduplicator = new HashMap<>();
+        private int line = 0;
+        // the action/metadata line of an item whose source was not received in full yet
+        private ActionMetadata pendingMetadata;
+        // the number of bytes that were not consumed by the previous call, which do not hold the end of a line
+        private int searchFrom;
 
-                if (token == XContentParser.Token.START_OBJECT) {
-                    String currentFieldName = null;
-                    while ((token = parser.nextToken()) != XContentParser.Token.END_OBJECT) {
-                        if (token == XContentParser.Token.FIELD_NAME) {
-                            currentFieldName = parser.currentName();
-                        } else if (token.isValue()) {
-                            if (INDEX.match(currentFieldName, parser.getDeprecationHandler())) {
-                                if (allowExplicitIndex == false) {
-                                    throw new IllegalArgumentException("explicit index in bulk is not allowed");
-                                }
-                                index = stringDeduplicator.computeIfAbsent(parser.text(), Function.identity());
-                            } else if (TYPE.match(currentFieldName, parser.getDeprecationHandler())) {
-                                if (errorOnType) {
-                                    throw new IllegalArgumentException("Action/metadata line [" + line + "] contains an unknown parameter ["
-                                            + currentFieldName + "]");
-                                }
-                                type = stringDeduplicator.computeIfAbsent(parser.text(), Function.identity());
-                            } else if (ID.match(currentFieldName, parser.getDeprecationHandler())) {
-                                id = parser.text();
-                            } else if (ROUTING.match(currentFieldName, parser.getDeprecationHandler())) {
-                                routing = stringDeduplicator.computeIfAbsent(parser.text(), Function.identity());
-                            } else if (OP_TYPE.match(currentFieldName, parser.getDeprecationHandler())) {
-                                opType = parser.text();
-                            } else if (VERSION.match(currentFieldName, parser.getDeprecationHandler())) {
-                                version = parser.longValue();
-                            } else if (VERSION_TYPE.match(currentFieldName, parser.getDeprecationHandler())) {
-                                versionType = VersionType.fromString(parser.text());
-                            } else if (IF_SEQ_NO.match(currentFieldName, parser.getDeprecationHandler())) {
-                                ifSeqNo = parser.longValue();
-                            } else if (IF_PRIMARY_TERM.match(currentFieldName, parser.getDeprecationHandler())) {
-                                ifPrimaryTerm = parser.longValue();
-                            } else if (RETRY_ON_CONFLICT.match(currentFieldName, parser.getDeprecationHandler())) {
-                                retryOnConflict = parser.intValue();
-                            } else if (PIPELINE.match(currentFieldName, parser.getDeprecationHandler())) {
-                                pipeline = stringDeduplicator.computeIfAbsent(parser.text(), Function.identity());
-                            } else if (SOURCE.match(currentFieldName, parser.getDeprecationHandler())) {
-                                fetchSourceContext = FetchSourceContext.fromXContent(parser);
-                            } else if (REQUIRE_ALIAS.match(currentFieldName, parser.getDeprecationHandler())) {
-                                requireAlias = parser.booleanValue();
-                            } else {
-                                throw new IllegalArgumentException("Action/metadata line [" + line + "] contains an unknown parameter ["
-                                        + currentFieldName + "]");
-                            }
-                        } else if (token == XContentParser.Token.START_ARRAY) {
-                            throw new IllegalArgumentException("Malformed action/metadata line [" + line +
-                                    "], expected a simple value for field [" + currentFieldName + "] but found [" + token + "]");
-                        } else if (token == XContentParser.Token.START_OBJECT && SOURCE.match(currentFieldName,
-                                parser.getDeprecationHandler())) {
-                            fetchSourceContext = FetchSourceContext.fromXContent(parser);
-                        } else if (token != XContentParser.Token.VALUE_NULL) {
-                            throw new IllegalArgumentException("Malformed action/metadata line [" + line
-                                    + "], expected a simple value for field [" + currentFieldName + "] but found [" + token + "]");
-                        }
+        private IncrementalParser(@Nullable String defaultIndex, @Nullable String defaultRouting,
+                                  @Nullable FetchSourceContext defaultFetchSourceContext, @Nullable String defaultPipeline,
+                                  @Nullable Boolean defaultRequireAlias, boolean allowExplicitIndex, XContentType xContentType,
+                                  BiConsumer<IndexRequest, String> indexRequestConsumer, Consumer<UpdateRequest> updateRequestConsumer,
+                                  Consumer<DeleteRequest> deleteRequestConsumer) {
+            this.defaultIndex = defaultIndex;
+            this.defaultRouting = defaultRouting;
+            this.defaultFetchSourceContext = defaultFetchSourceContext;
+            this.defaultPipeline = defaultPipeline;
+            this.defaultRequireAlias = defaultRequireAlias;
+            this.allowExplicitIndex = allowExplicitIndex;
+            this.xContentType = xContentType;
+            this.indexRequestConsumer = indexRequestConsumer;
+            this.updateRequestConsumer = updateRequestConsumer;
+            this.deleteRequestConsumer = deleteRequestConsumer;
+        }
+
+        /**
+         * Parses the complete items of the given data.
+         *
+         * @param data     the data that was not consumed by the previous call, followed by the data that was received since
+         * @param lastData whether this is the end of the data of the request, in which case the data must hold complete items only
+         * @return the number of bytes of the data that were consumed
+         */
+        public int parse(BytesReference data, boolean lastData) throws IOException {
+            XContent xContent = xContentType.xContent();
+            int from = 0;
+            byte marker = xContent.streamSeparator();
+            final int searchFrom = this.searchFrom;
+            this.searchFrom = 0;
+            while (true) {
+                final ActionMetadata metadata;
+                if (pendingMetadata != null) {
+                    metadata = pendingMetadata;
+                    pendingMetadata = null;
+                } else {
+                    int nextMarker = findNextMarker(marker, from, searchFrom, data, lastData);
+                    if (nextMarker == -1) {
+                        this.searchFrom = data.length() - from;
+                        return from;
+                    }
+                    line++;
+
+                    // now parse the action
+                    try (XContentParser parser = createParser(data, xContent, from, nextMarker)) {
+                        metadata = parseActionMetadata(parser, line, defaultIndex, defaultRouting, defaultFetchSourceContext,
+                                defaultPipeline, defaultRequireAlias, allowExplicitIndex, stringDeduplicator);
+                    }
+                    // move pointers
+                    from = nextMarker + 1;
+                    if (metadata == null) {
+                        continue;
                     }
-                } else if (token != XContentParser.Token.END_OBJECT) {
-                    throw new IllegalArgumentException("Malformed action/metadata line [" + line + "], expected "
-                            + XContentParser.Token.START_OBJECT + " or " + XContentParser.Token.END_OBJECT + " but found [" + token + "]");
                 }
 
-                if ("delete".equals(action)) {
-                    deleteRequestConsumer.accept(new DeleteRequest(index).id(id).routing(routing)
-                            .version(version).versionType(versionType).setIfSeqNo(ifSeqNo).setIfPrimaryTerm(ifPrimaryTerm));
+                if ("delete".equals(metadata.action)) {
+                    deleteRequestConsumer.accept(new DeleteRequest(metadata.index).id(metadata.id).routing(metadata.routing)
+                            .version(metadata.version).versionType(metadata.versionType)
+                            .setIfSeqNo(metadata.ifSeqNo).setIfPrimaryTerm(metadata.ifPrimaryTerm));
                 } else {
-                    nextMarker = findNextMarker(marker, from, data);
+                    final int nextMarker = findNextMarker(marker, from, searchFrom, data, lastData);
                     if (nextMarker == -1) {
-                        break;
+                        if (lastData == false) {
+                            // the source of this item was not received in full yet, it is parsed along with the data that follows
+                            pendingMetadata = metadata;
+                            this.searchFrom = data.length() - from;
+                        }
+                        return from;
                     }
                     line++;
 
                     // we use internalAdd so we don't fork here, this allows us not to copy over the big byte array to small chunks
                     // of index request.
-                    if ("index".equals(action)) {
-                        if (opType == null) {
-                            indexRequestConsumer.accept(new IndexRequest(index).id(id).routing(routing)
-                                    .version(version).versionType(versionType)
-                                    .setPipeline(pipeline).setIfSeqNo(ifSeqNo).setIfPrimaryTerm(ifPrimaryTerm)
-                                    .source(sliceTrimmingCarriageReturn(data, from, nextMarker, xContentType), xContentType)
-                                    .setRequireAlias(requireAlias), type);
-                        } else {
-                            indexRequestConsumer.accept(new IndexRequest(index).id(id).routing(routing)
-                                    .version(version).versionType(versionType)
-                                    .create("create".equals(opType)).setPipeline(pipeline)
-                                    .setIfSeqNo(ifSeqNo).setIfPrimaryTerm(ifPrimaryTerm)
-                                    .source(sliceTrimmingCarriageReturn(data, from, nextMarker, xContentType), xContentType)
-                                    .setRequireAlias(requireAlias), type);
-                        }
-                    } else if ("create".equals(action)) {
-                        indexRequestConsumer.accept(new IndexRequest(index).id(id).routing(routing)
-                                .version(version).versionType(versionType)
-                                .create(true).setPipeline(pipeline).setIfSeqNo(ifSeqNo).setIfPrimaryTerm(ifPrimaryTerm)
+                    if ("index".equals(metadata.action) || "create".equals(metadata.action)) {
+                        indexRequestConsumer.accept(new IndexRequest(metadata.index).id(metadata.id).routing(metadata.routing)
+                                .version(metadata.version).versionType(metadata.versionType)
+                                .create("create".equals(metadata.action) || "create".equals(metadata.opType))
+                                .setPipeline(metadata.pipeline).setIfSeqNo(metadata.ifSeqNo).setIfPrimaryTerm(metadata.ifPrimaryTerm)
                                 .source(sliceTrimmingCarriageReturn(data, from, nextMarker, xContentType), xContentType)
-                                .setRequireAlias(requireAlias), type);
-                    } else if ("update".equals(action)) {
-                        if (version != Versions.MATCH_ANY || versionType != VersionType.INTERNAL) {
+                                .setRequireAlias(metadata.requireAlias), metadata.type);
+                    } else if ("update".equals(metadata.action)) {
+                        if (metadata.version != Versions.MATCH_ANY || metadata.versionType != VersionType.INTERNAL) {
                             throw new IllegalArgumentException("Update requests do not support versioning. " +
                                     "Please use `if_seq_no` and `if_primary_term` instead");
                         }
-                        UpdateRequest updateRequest = new UpdateRequest().index(index).id(id).routing(routing)
-                                .retryOnConflict(retryOnConflict)
-                                .setIfSeqNo(ifSeqNo).setIfPrimaryTerm(ifPrimaryTerm)
-                                .setRequireAlias(requireAlias)
-                                .routing(routing);
+                        UpdateRequest updateRequest = new UpdateRequest().index(metadata.index).id(metadata.id).routing(metadata.routing)
+                                .retryOnConflict(metadata.retryOnConflict)
+                                .setIfSeqNo(metadata.ifSeqNo).setIfPrimaryTerm(metadata.ifPrimaryTerm)
+                                .setRequireAlias(metadata.requireAlias)
+                                .routing(metadata.routing);
                         try (XContentParser sliceParser = createParser(
                                 sliceTrimmingCarriageReturn(data, from, nextMarker, xContentType), xContent)) {
                             updateRequest.fromXContent(sliceParser);
                         }
-                        if (fetchSourceContext != null) {
-                            updateRequest.fetchSource(fetchSourceContext);
+                        if (metadata.fetchSourceContext != null) {
+                            updateRequest.fetchSource(metadata.fetchSourceContext);
                         }
                         IndexRequest upsertRequest = updateRequest.upsertRequest();
                         if (upsertRequest != null) {
@@ -282,6 +274,110 @@ public final class BulkRequestParser {
                 }
             }
         }
+
+        /**
+         * Whether the given data, which follows the data that was passed to the previous call to {@link #parse}, holds the end of a
+         * line and may therefore complete an item. Data that does not can be passed to the next call along with the data that follows
+         * it rather than being parsed on its own.
+         */
+        public boolean mayCompleteItem(BytesReference data) {
+            return data.indexOf(xContentType.xContent().streamSeparator(), 0) != -1;
+        }
+    }
+
+    /**
+     * Parses an action/metadata line, returning {@code null} if the line is empty.
+     */
+    private ActionMetadata parseActionMetadata(
+            XContentParser parser, int line, @Nullable String defaultIndex,
+            @Nullable String defaultRouting, @Nullable FetchSourceContext defaultFetchSourceContext,
+            @Nullable String defaultPipeline, @Nullable Boolean defaultRequireAlias, boolean allowExplicitIndex,
+            Map<String, String> stringDeduplicator) throws IOException {
+        // Move to START_OBJECT
+        XContentParser.Token token = parser.nextToken();
+        if (token == null) {
+            return null;
+        }
+        if (token != XContentParser.Token.START_OBJECT) {
+            throw new IllegalArgumentException("Malformed action/metadata line [" + line + "], expected "
+                    + XContentParser.Token.START_OBJECT + " but found [" + token + "]");
+        }
+        // Move to FIELD_NAME, that's the action
+        token = parser.nextToken();
+        if (token != XContentParser.Token.FIELD_NAME) {
+            throw new IllegalArgumentException("Malformed action/metadata line [" + line + "], expected "
+                    + XContentParser.Token.FIELD_NAME + " but found [" + token + "]");
+        }
+        ActionMetadata metadata = new ActionMetadata(parser.currentName());
+        metadata.index = defaultIndex;
+        metadata.routing = defaultRouting;
+        metadata.fetchSourceContext = defaultFetchSourceContext;
+        metadata.pipeline = defaultPipeline;
+        metadata.requireAlias = defaultRequireAlias != null && defaultRequireAlias;
+
+        // at this stage, next token can either be END_OBJECT (and use default index and type, with auto generated id)
+        // or START_OBJECT which will have another set of parameters
+        token = parser.nextToken();
+
+        if (token == XContentParser.Token.START_OBJECT) {
+            String currentFieldName = null;
+            while ((token = parser.nextToken()) != XContentParser.Token.END_OBJECT) {
+                if (token == XContentParser.Token.FIELD_NAME) {
+                    currentFieldName = parser.currentName();
+                } else if (token.isValue()) {
+                    if (INDEX.match(currentFieldName, parser.getDeprecationHandler())) {
+                        if (allowExplicitIndex == false) {
+                            throw new IllegalArgumentException("explicit index in bulk is not allowed");
+                        }
+                        metadata.index = stringDeduplicator.computeIfAbsent(parser.text(), Function.identity());
+                    } else if (TYPE.match(currentFieldName, parser.getDeprecationHandler())) {
+                        if (errorOnType) {
+                            throw new IllegalArgumentException("Action/metadata line [" + line + "] contains an unknown parameter ["
+                                    + currentFieldName + "]");
+                        }
+                        metadata.type = stringDeduplicator.computeIfAbsent(parser.text(), Function.identity());
+                    } else if (ID.match(currentFieldName, parser.getDeprecationHandler())) {
+                        metadata.id = parser.text();
+                    } else if (ROUTING.match(currentFieldName, parser.getDeprecationHandler())) {
+                        metadata.routing = stringDeduplicator.computeIfAbsent(parser.text(), Function.identity());
+                    } else if (OP_TYPE.match(currentFieldName, parser.getDeprecationHandler())) {
+                        metadata.opType = parser.text();
+                    } else if (VERSION.match(currentFieldName, parser.getDeprecationHandler())) {
+                        metadata.version = parser.longValue();
+                    } else if (VERSION_TYPE.match(currentFieldName, parser.getDeprecationHandler())) {
+                        metadata.versionType = VersionType.fromString(parser.text());
+                    } else if (IF_SEQ_NO.match(currentFieldName, parser.getDeprecationHandler())) {
+                        metadata.ifSeqNo = parser.longValue();
+                    } else if (IF_PRIMARY_TERM.match(currentFieldName, parser.getDeprecationHandler())) {
+                        metadata.ifPrimaryTerm = parser.longValue();
+                    } else if (RETRY_ON_CONFLICT.match(currentFieldName, parser.getDeprecationHandler())) {
+                        metadata.retryOnConflict = parser.intValue();
+                    } else if (PIPELINE.match(currentFieldName, parser.getDeprecationHandler())) {
+                        metadata.pipeline = stringDeduplicator.computeIfAbsent(parser.text(), Function.identity());
+                    } else if (SOURCE.match(currentFieldName, parser.getDeprecationHandler())) {
+                        metadata.fetchSourceContext = FetchSourceContext.fromXContent(parser);
+                    } else if (REQUIRE_ALIAS.match(currentFieldName, parser.getDeprecationHandler())) {
+                        metadata.requireAlias = parser.booleanValue();
+                    } else {
+                        throw new IllegalArgumentException("Action/metadata line [" + line + "] contains an unknown parameter ["
+                                + currentFieldName + "]");
+                    }
+                } else if (token == XContentParser.Token.START_ARRAY) {
+                    throw new IllegalArgumentException("Malformed action/metadata line [" + line +
+                            "], expected a simple value for field [" + currentFieldName + "] but found [" + token + "]");
+                } else if (token == XContentParser.Token.START_OBJECT && SOURCE.match(currentFieldName,
+                        parser.getDeprecationHandler())) {
+                    metadata.fetchSourceContext = FetchSourceContext.fromXContent(parser);
+                } else if (token != XContentParser.Token.VALUE_NULL) {
+                    throw new IllegalArgumentException("Malformed action/metadata line [" + line
+                            + "], expected a simple value for field [" + currentFieldName + "] but found [" + token + "]");
+                }
+            }
+        } else if (token != XContentParser.Token.END_OBJECT) {
+            throw new IllegalArgumentException("Malformed action/metadata line [" + line + "], expected "
+                    + XContentParser.Token.START_OBJECT + " or " + XContentParser.Token.END_OBJECT + " but found [" + token + "]");
+        }
+        return metadata;
     }
 
     private static XContentParser createParser(BytesReference data, XContent xContent) throws IOException {
@@ -315,4 +411,28 @@ public final class BulkRequestParser {
         return xContent.createParser(NamedXContentRegistry.EMPTY, LoggingDeprecationHandler.INSTANCE, array.array(),
                 offset + from, nextMarker - from);
     }
+
+    /**
+     * The parameters of an action/metadata line.
+     */
+    private static final class ActionMetadata {
+        private final String action;
+        private String index;
+        private String type;
+        private String id;
+        private String routing;
+        private FetchSourceContext fetchSourceContext;
+        private String opType;
+        private long version = Versions.MATCH_ANY;
+        private VersionType versionType = VersionType.INTERNAL;
+        private long ifSeqNo = SequenceNumbers.UNASSIGNED_SEQ_NO;
+        private long ifPrimaryTerm = UNASSIGNED_PRIMARY_TERM;
+        private int retryOnConflict = 0;
+        private String pipeline;
+        private boolean requireAlias;
+
+        private ActionMetadata(String action) {
+            this.action = action;
+        }
+    }
 }
@@ -101,8 +101,8 @@ final class WriteableIngestDocument implements Writeable, ToXContentFragment {
 
     @Override
     public void writeTo(StreamOutput out) throws IOException {
-        out.writeMap(ingestDocument.getSourceAndMetadata());
-        out.writeMap(ingestDocument.getIngestMetadata());
+        out.writeMap(ingestDocument.getUnmodifiableSourceAndMetadata());
+        out.writeMap(ingestDocument.getUnmodifiableIngestMetadata());
     }
 
     IngestDocument getIngestDocument() {
@@ -118,10 +118,11 @@ final class WriteableIngestDocument implements Writeable, ToXContentFragment {
                 builder.field(metadata.getKey().getFieldName(), metadata.getValue().toString());
             }
         }
-        Map<String, Object> source = IngestDocument.deepCopyMap(ingestDocument.getSourceAndMetadata());
+        // only the top-level metadata fields are removed, the values are rendered as they are
+        Map<String, Object> source = new HashMap<>(ingestDocument.getUnmodifiableSourceAndMetadata());
         metadataMap.keySet().forEach(mD -> source.remove(mD.getFieldName()));
         builder.field(SOURCE_FIELD, source);
-        builder.field(INGEST_FIELD, ingestDocument.getIngestMetadata());
+        builder.field(INGEST_FIELD, ingestDocument.getUnmodifiableIngestMetadata());
         builder.endObject();
         return builder;
     }
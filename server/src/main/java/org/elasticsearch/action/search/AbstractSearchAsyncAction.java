@@ -23,6 +23,7 @@ import org.elasticsearch.action.support.TransportActions;
 import org.elasticsearch.cluster.ClusterState;
 import org.elasticsearch.cluster.routing.GroupShardsIterator;
 import org.elasticsearch.common.lease.Releasable;
+import org.elasticsearch.common.collect.Tuple;
 import org.elasticsearch.common.lease.Releasables;
 import org.elasticsearch.common.util.concurrent.AbstractRunnable;
 import org.elasticsearch.common.util.concurrent.AtomicArray;
@@ -218,13 +219,94 @@ abstract class AbstractSearchAsyncAction<Result extends SearchPhaseResult> exten
                         request.minCompatibleShardNode());
                 }
             }
+            final Map<Tuple<String, String>, List<ShardToSearch>> shardsPerNode = supportsPhaseOnNode() ? new HashMap<>() : null;
             for (int i = 0; i < shardsIts.size(); i++) {
                 final SearchShardIterator shardRoutings = shardsIts.get(i);
                 assert shardRoutings.skip() == false;
                 assert shardItIndexMap.containsKey(shardRoutings);
                 int shardIndex = shardItIndexMap.get(shardRoutings);
-                performPhaseOnShard(shardIndex, shardRoutings, shardRoutings.nextOrNull());
+                final SearchShardTarget shard = shardRoutings.nextOrNull();
+                if (shardsPerNode != null && shard != null) {
+                    shardsPerNode.computeIfAbsent(new Tuple<>(shard.getClusterAlias(), shard.getNodeId()), k -> new ArrayList<>())
+                        .add(new ShardToSearch(shardIndex, shardRoutings, shard));
+                } else {
+                    performPhaseOnShard(shardIndex, shardRoutings, shard);
+                }
             }
+            if (shardsPerNode != null) {
+                for (List<ShardToSearch> shards : shardsPerNode.values()) {
+                    performPhaseOnNode(shards);
+                }
+            }
+        }
+    }
+
+    /**
+     * The first shard copy to search of a shard iterator.
+     */
+    private static final class ShardToSearch {
+        final int shardIndex;
+        final SearchShardIterator shardIt;
+        final SearchShardTarget shard;
+
+        ShardToSearch(int shardIndex, SearchShardIterator shardIt, SearchShardTarget shard) {
+            this.shardIndex = shardIndex;
+            this.shardIt = shardIt;
+            this.shard = shard;
+        }
+    }
+
+    /**
+     * Sends the requests of the given shards, which are all allocated on the same node, in a single request to that node if there are
+     * more of them than the number of requests that are sent to a node concurrently. Otherwise the per shard requests would be
+     * throttled by this node anyway, while the node can execute them with the same concurrency and spare the round trips. Shard copies
+     * that are retried after a failure are always searched on their own.
+     */
+    private void performPhaseOnNode(List<ShardToSearch> shards) {
+        final SearchShardTarget target = shards.get(0).shard;
+        Transport.Connection connection = null;
+        if (shards.size() > maxConcurrentRequestsPerNode) {
+            try {
+                connection = getConnection(target.getClusterAlias(), target.getNodeId());
+            } catch (Exception e) {
+                // the shard requests will fail in the same way, and move on to the next shard copies
+            }
+        }
+        if (connection == null || connection.getVersion().before(Version.V_8_0_0)) {
+            for (ShardToSearch shard : shards) {
+                performPhaseOnShard(shard.shardIndex, shard.shardIt, shard.shard);
+            }
+            return;
+        }
+
+        final List<SearchShardIterator> shardIts = new ArrayList<>(shards.size());
+        final List<SearchActionListener<Result>> listeners = new ArrayList<>(shards.size());
+        for (ShardToSearch shard : shards) {
+            shardIts.add(shard.shardIt);
+            listeners.add(new SearchActionListener<Result>(shard.shard, shard.shardIndex) {
+                @Override
+                public void innerOnResponse(Result result) {
+                    try {
+                        onShardResult(result, shard.shardIt);
+                    } catch (Exception exc) {
+                        onShardFailure(shard.shardIndex, shard.shard, shard.shardIt, exc);
+                    }
+                }
+
+                @Override
+                public void onFailure(Exception t) {
+                    onShardFailure(shard.shardIndex, shard.shard, shard.shardIt, t);
+                }
+            });
+        }
+        try {
+            executePhaseOnNode(connection, shardIts, listeners);
+        } catch (final Exception e) {
+            fork(() -> {
+                for (ShardToSearch shard : shards) {
+                    onShardFailure(shard.shardIndex, shard.shard, shard.shardIt, e);
+                }
+            });
         }
     }
 
@@ -322,6 +404,26 @@ abstract class AbstractSearchAsyncAction<Result extends SearchPhaseResult> exten
                                                 SearchShardTarget shard,
                                                 SearchActionListener<Result> listener);
 
+    /**
+     * Whether this phase can send the requests of several shards that are allocated on the same node at once, see
+     * {@link #executePhaseOnNode(Transport.Connection, List, List)}.
+     */
+    protected boolean supportsPhaseOnNode() {
+        return false;
+    }
+
+    /**
+     * Sends the requests of several shards that are allocated on the same node at once.
+     * @param connection the connection to the node
+     * @param shardIts the shard iterators, which are all on the same node
+     * @param listeners the listeners to notify with the response of the shard at the same position
+     */
+    protected void executePhaseOnNode(Transport.Connection connection,
+                                      List<SearchShardIterator> shardIts,
+                                      List<SearchActionListener<Result>> listeners) {
+        throw new UnsupportedOperationException("phase [" + getName() + "] must be executed on each shard");
+    }
+
     protected void fork(final Runnable runnable) {
         executor.execute(new AbstractRunnable() {
             @Override
@@ -0,0 +1,73 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.action.search;
+
+import org.apache.lucene.search.TopFieldDocs;
+import org.elasticsearch.search.internal.SearchContext;
+import org.elasticsearch.search.internal.ShardSearchRequest;
+import org.elasticsearch.search.query.QuerySearchResult;
+
+/**
+ * Tracks the best bottom sort values of the query results of a search as they come in, so that the shards that are queried later
+ * on can skip the documents that cannot compete and stop tracking total hits once enough of them were counted. This is used by the
+ * coordinating node for the shard requests it sends, and by the data nodes for the shard requests of a {@link NodeQuerySearchRequest}.
+ */
+final class BottomSortValuesTracker {
+
+    private final int topDocsSize;
+    private final int trackTotalHitsUpTo;
+    private volatile BottomSortValuesCollector bottomSortCollector;
+
+    BottomSortValuesTracker(int topDocsSize, int trackTotalHitsUpTo) {
+        this.topDocsSize = topDocsSize;
+        this.trackTotalHitsUpTo = trackTotalHitsUpTo;
+    }
+
+    /**
+     * Consumes the sorted top docs of the given query result, if it has any.
+     */
+    void consumeResult(QuerySearchResult queryResult) {
+        if (queryResult.isNull() == false
+                // top docs are already consumed if the query was cancelled or in error.
+                && queryResult.hasConsumedTopDocs() == false
+                && queryResult.topDocs() != null
+                && queryResult.topDocs().topDocs.getClass() == TopFieldDocs.class) {
+            TopFieldDocs topDocs = (TopFieldDocs) queryResult.topDocs().topDocs;
+            if (bottomSortCollector == null) {
+                synchronized (this) {
+                    if (bottomSortCollector == null) {
+                        bottomSortCollector = new BottomSortValuesCollector(topDocsSize, topDocs.fields);
+                    }
+                }
+            }
+            bottomSortCollector.consumeTopDocs(topDocs, queryResult.sortValueFormats());
+        }
+    }
+
+    /**
+     * Rewrites the given shard request with what was learned from the results consumed so far.
+     */
+    ShardSearchRequest rewriteRequest(ShardSearchRequest request) {
+        if (bottomSortCollector == null) {
+            return request;
+        }
+
+        // disable tracking total hits if we already reached the required estimation.
+        if (trackTotalHitsUpTo != SearchContext.TRACK_TOTAL_HITS_ACCURATE
+                && bottomSortCollector.getTotalHits() > trackTotalHitsUpTo) {
+            request.source(request.source().shallowCopy().trackTotalHits(false));
+        }
+
+        // set the current best bottom field doc
+        if (bottomSortCollector.getBottomSortValues() != null) {
+            request.setBottomSortValues(bottomSortCollector.getBottomSortValues());
+        }
+        return request;
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.action.search;
+
+import org.elasticsearch.action.IndicesRequest;
+import org.elasticsearch.action.support.IndicesOptions;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.internal.ShardSearchRequest;
+import org.elasticsearch.tasks.Task;
+import org.elasticsearch.tasks.TaskId;
+import org.elasticsearch.transport.TransportRequest;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The query phase requests of all the shards of a search that are allocated on the same node. The search source that the shard
+ * requests have in common is serialized only once, and the node executes at most {@link #getMaxConcurrentShardRequests()} of the shard
+ * requests at once.
+ */
+public final class NodeQuerySearchRequest extends TransportRequest implements IndicesRequest {
+
+    @Nullable
+    private final SearchSourceBuilder source;
+    private final int maxConcurrentShardRequests;
+    private final List<ShardSearchRequest> shardRequests;
+
+    public NodeQuerySearchRequest(@Nullable SearchSourceBuilder source, int maxConcurrentShardRequests,
+                                  List<ShardSearchRequest> shardRequests) {
+        assert shardRequests.isEmpty() == false;
+        assert maxConcurrentShardRequests > 0 : maxConcurrentShardRequests;
+        this.source = source;
+        this.maxConcurrentShardRequests = maxConcurrentShardRequests;
+        this.shardRequests = shardRequests;
+    }
+
+    public NodeQuerySearchRequest(StreamInput in) throws IOException {
+        super(in);
+        source = in.readOptionalWriteable(SearchSourceBuilder::new);
+        maxConcurrentShardRequests = in.readVInt();
+        final int size = in.readVInt();
+        final List<ShardSearchRequest> shardRequests = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            final boolean sharedSource = in.readBoolean();
+            final ShardSearchRequest shardRequest = new ShardSearchRequest(in);
+            if (sharedSource) {
+                shardRequest.source(source);
+            }
+            shardRequests.add(shardRequest);
+        }
+        this.shardRequests = Collections.unmodifiableList(shardRequests);
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        super.writeTo(out);
+        out.writeOptionalWriteable(source);
+        out.writeVInt(maxConcurrentShardRequests);
+        out.writeVInt(shardRequests.size());
+        for (ShardSearchRequest shardRequest : shardRequests) {
+            // shard requests may have their own rewritten copy of the source
+            final boolean sharedSource = source != null && shardRequest.source() == source;
+            out.writeBoolean(sharedSource);
+            if (sharedSource) {
+                final ShardSearchRequest withoutSource = new ShardSearchRequest(shardRequest);
+                withoutSource.source(null);
+                withoutSource.writeTo(out);
+            } else {
+                shardRequest.writeTo(out);
+            }
+        }
+    }
+
+    @Nullable
+    public SearchSourceBuilder source() {
+        return source;
+    }
+
+    public int getMaxConcurrentShardRequests() {
+        return maxConcurrentShardRequests;
+    }
+
+    public List<ShardSearchRequest> getShardRequests() {
+        return shardRequests;
+    }
+
+    @Override
+    public String[] indices() {
+        // the shards of a node all belong to the same cluster, so they were all resolved from the same original indices
+        return shardRequests.get(0).indices();
+    }
+
+    @Override
+    public IndicesOptions indicesOptions() {
+        return shardRequests.get(0).indicesOptions();
+    }
+
+    @Override
+    public Task createTask(long id, String type, String action, TaskId parentTaskId, Map<String, String> headers) {
+        return new SearchShardTask(id, type, action, getDescription(), parentTaskId, headers);
+    }
+
+    @Override
+    public String getDescription() {
+        // the shard ids are enough here, the request itself can be found by looking at the parent task description
+        final StringBuilder description = new StringBuilder("shardIds[");
+        for (int i = 0; i < shardRequests.size(); i++) {
+            if (i > 0) {
+                description.append(", ");
+            }
+            description.append(shardRequests.get(i).shardId());
+        }
+        return description.append("]").toString();
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.action.search;
+
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.search.SearchPhaseResult;
+import org.elasticsearch.search.query.QuerySearchResult;
+import org.elasticsearch.transport.TransportResponse;
+
+import java.io.IOException;
+
+/**
+ * The response to a {@link NodeQuerySearchRequest}: the query result or the failure of each of its shard requests, in the same order.
+ */
+public final class NodeQuerySearchResponse extends TransportResponse {
+
+    // either a SearchPhaseResult or an Exception per shard request
+    private final Object[] results;
+
+    NodeQuerySearchResponse(Object[] results) {
+        assert assertResults(results);
+        this.results = results;
+    }
+
+    NodeQuerySearchResponse(StreamInput in) throws IOException {
+        super(in);
+        results = new Object[in.readVInt()];
+        for (int i = 0; i < results.length; i++) {
+            if (in.readBoolean()) {
+                results[i] = new QuerySearchResult(in);
+            } else {
+                results[i] = in.readException();
+            }
+        }
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        out.writeVInt(results.length);
+        for (Object result : results) {
+            if (result instanceof SearchPhaseResult) {
+                out.writeBoolean(true);
+                ((SearchPhaseResult) result).writeTo(out);
+            } else {
+                out.writeBoolean(false);
+                out.writeException((Exception) result);
+            }
+        }
+    }
+
+    public int size() {
+        return results.length;
+    }
+
+    /**
+     * Returns the failure of the shard request at the given position, or <code>null</code> if it succeeded.
+     */
+    public Exception getFailure(int index) {
+        return results[index] instanceof Exception ? (Exception) results[index] : null;
+    }
+
+    /**
+     * Returns the result of the shard request at the given position, or <code>null</code> if it failed.
+     */
+    public SearchPhaseResult getResult(int index) {
+        return results[index] instanceof SearchPhaseResult ? (SearchPhaseResult) results[index] : null;
+    }
+
+    private static boolean assertResults(Object[] results) {
+        for (Object result : results) {
+            // the results are read back as query results, which excludes the query and fetch results of single shard searches
+            assert result instanceof QuerySearchResult || result instanceof Exception : result;
+        }
+        return true;
+    }
+}
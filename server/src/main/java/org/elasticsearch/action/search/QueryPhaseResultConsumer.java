@@ -22,6 +22,8 @@ import org.elasticsearch.common.lucene.search.TopDocsAndMaxScore;
 import org.elasticsearch.common.util.concurrent.AbstractRunnable;
 import org.elasticsearch.search.SearchPhaseResult;
 import org.elasticsearch.search.SearchShardTarget;
+import org.elasticsearch.search.aggregations.AggregationsReducer;
+import org.elasticsearch.search.aggregations.InternalAggregation.ReduceContext;
 import org.elasticsearch.search.aggregations.InternalAggregation.ReduceContextBuilder;
 import org.elasticsearch.search.aggregations.InternalAggregations;
 import org.elasticsearch.search.builder.SearchSourceBuilder;
@@ -43,11 +45,14 @@ import static org.elasticsearch.action.search.SearchPhaseController.setShardInde
 
 /**
  * A {@link ArraySearchPhaseResults} implementation that incrementally reduces aggregation results
- * as shard results are consumed.
+ * as shard results are consumed. Shard aggregations are merged one at a time into an {@link AggregationsReducer}
+ * for as long as all of them can be reduced incrementally, otherwise batches of shard results are partially
+ * reduced together with the previous partial reduction.
  * This implementation adds the memory that it used to save and reduce the results of shard aggregations
  * in the {@link CircuitBreaker#REQUEST} circuit breaker. Before any partial or final reduce, the memory
  * needed to reduce the aggregations is estimated and a {@link CircuitBreakingException} is thrown if it
- * exceeds the maximum memory allowed in this breaker.
+ * exceeds the maximum memory allowed in this breaker. The {@link AggregationsReducer} is charged for the memory it
+ * gains after each shard result that it merges, see {@link AggregationsReducer#ramBytesUsed()}.
  */
 public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhaseResult> implements Releasable {
     private static final Logger logger = LogManager.getLogger(QueryPhaseResultConsumer.class);
@@ -63,6 +68,7 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
     private final boolean hasTopDocs;
     private final boolean hasAggs;
     private final boolean performFinalReduce;
+    private final int batchReduceSize;
 
     private final PendingMerges pendingMerges;
     private final Consumer<Exception> onPartialMergeFailure;
@@ -93,8 +99,10 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
         SearchSourceBuilder source = request.source();
         this.hasTopDocs = source == null || source.size() != 0;
         this.hasAggs = source != null && source.aggregations() != null;
-        int batchReduceSize = (hasAggs || hasTopDocs) ? Math.min(request.getBatchedReduceSize(), expectedResultSize)  : expectedResultSize;
-        this.pendingMerges = new PendingMerges(batchReduceSize, request.resolveTrackTotalHitsUpTo());
+        this.batchReduceSize = (hasAggs || hasTopDocs)
+            ? Math.min(request.getBatchedReduceSize(), expectedResultSize)
+            : expectedResultSize;
+        this.pendingMerges = new PendingMerges(request.resolveTrackTotalHitsUpTo());
     }
 
     @Override
@@ -122,14 +130,23 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
         pendingMerges.sortBuffer();
         final TopDocsStats topDocsStats = pendingMerges.consumeTopDocsStats();
         final List<TopDocs> topDocsList = pendingMerges.consumeTopDocs();
-        final List<InternalAggregations> aggsList = pendingMerges.consumeAggs();
+        final AggregationsReducer aggsReducer = pendingMerges.consumeAggsReducer();
+        final List<InternalAggregations> aggsList = aggsReducer == null ? pendingMerges.consumeAggs() : Collections.emptyList();
         long breakerSize = pendingMerges.circuitBreakerBytes;
         if (hasAggs) {
             // Add an estimate of the final reduce size
             breakerSize = pendingMerges.addEstimateAndMaybeBreak(pendingMerges.estimateRamBytesUsedForReduce(breakerSize));
         }
-        SearchPhaseController.ReducedQueryPhase reducePhase = controller.reducedQueryPhase(results.asList(), aggsList,
-            topDocsList, topDocsStats, pendingMerges.numReducePhases, false, aggReduceContextBuilder, performFinalReduce);
+        final SearchPhaseController.ReducedQueryPhase reducePhase;
+        if (aggsReducer != null) {
+            reducePhase = controller.reducedQueryPhase(results.asList(),
+                () -> InternalAggregations.topLevelReduce(aggsReducer, performFinalReduce
+                    ? aggReduceContextBuilder.forFinalReduction() : aggReduceContextBuilder.forPartialReduction()),
+                topDocsList, topDocsStats, pendingMerges.numReducePhases, false);
+        } else {
+            reducePhase = controller.reducedQueryPhase(results.asList(), aggsList,
+                topDocsList, topDocsStats, pendingMerges.numReducePhases, false, aggReduceContextBuilder, performFinalReduce);
+        }
         if (hasAggs
                 // reduced aggregations can be null if all shards failed
                 && reducePhase.aggregations != null) {
@@ -175,18 +192,50 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
             newTopDocs = null;
         }
 
-        final InternalAggregations newAggs;
+        InternalAggregations newAggs = null;
+        AggregationsReducer aggsReducer = null;
+        long aggsSize = 0;
+        // the growth of the reducer that has already been charged in the circuit breaker
+        long reducerBytes = 0;
         if (hasAggs) {
-            List<InternalAggregations> aggsList = new ArrayList<>();
-            if (lastMerge != null) {
+            final ReduceContext reduceContext = aggReduceContextBuilder.forPartialReduction();
+            if (lastMerge == null || lastMerge.aggsReducer != null) {
+                aggsReducer = lastMerge == null
+                    ? new AggregationsReducer(reduceContext, Math.max(2, batchReduceSize))
+                    : lastMerge.aggsReducer;
+                boolean success = false;
+                try {
+                    for (QuerySearchResult result : toConsume) {
+                        reducerBytes += pendingMerges.acceptAggs(aggsReducer, result);
+                    }
+                    aggsSize = aggsReducer.ramBytesUsed();
+                    if (aggsReducer.isStreaming() == false) {
+                        // some aggregations can't be merged incrementally, switch to the batched partial reductions
+                        newAggs = InternalAggregations.topLevelReduce(aggsReducer, reduceContext);
+                        aggsSize = DelayableWriteable.getSerializedSize(newAggs);
+                        aggsReducer.close();
+                        aggsReducer = null;
+                    } else if (progressListener != SearchProgressListener.NOOP) {
+                        newAggs = InternalAggregations.topLevelReduce(aggsReducer, reduceContext);
+                    }
+                    success = true;
+                } finally {
+                    if (success == false && lastMerge == null) {
+                        // otherwise the reducer is released with the last merge result
+                        Releasables.close(aggsReducer);
+                    }
+                }
+            } else {
+                List<InternalAggregations> aggsList = new ArrayList<>();
                 aggsList.add(lastMerge.reducedAggs);
+                for (QuerySearchResult result : toConsume) {
+                    aggsList.add(result.consumeAggs().expand());
+                }
+                newAggs = InternalAggregations.topLevelReduce(aggsList, reduceContext);
+                // we leave the results un-serialized because serializing is slow but we compute the serialized
+                // size as an estimate of the memory used by the newly reduced aggregations.
+                aggsSize = DelayableWriteable.getSerializedSize(newAggs);
             }
-            for (QuerySearchResult result : toConsume) {
-                aggsList.add(result.consumeAggs().expand());
-            }
-            newAggs = InternalAggregations.topLevelReduce(aggsList, aggReduceContextBuilder.forPartialReduction());
-        } else {
-            newAggs = null;
         }
         List<SearchShard> processedShards = new ArrayList<>(emptyResults);
         if (lastMerge != null) {
@@ -197,10 +246,7 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
             processedShards.add(new SearchShard(target.getClusterAlias(), target.getShardId()));
         }
         progressListener.notifyPartialReduce(processedShards, topDocsStats.getTotalHits(), newAggs, numReducePhases);
-        // we leave the results un-serialized because serializing is slow but we compute the serialized
-        // size as an estimate of the memory used by the newly reduced aggregations.
-        long serializedSize = hasAggs ? DelayableWriteable.getSerializedSize(newAggs) : 0;
-        return new MergeResult(processedShards, newTopDocs, newAggs, hasAggs ? serializedSize : 0);
+        return new MergeResult(processedShards, newTopDocs, aggsReducer == null ? newAggs : null, aggsReducer, aggsSize, reducerBytes);
     }
 
     public int getNumReducePhases() {
@@ -208,7 +254,6 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
     }
 
     private class PendingMerges implements Releasable {
-        private final int batchReduceSize;
         private final List<QuerySearchResult> buffer = new ArrayList<>();
         private final List<SearchShard> emptyResults = new ArrayList<>();
         // the memory that is accounted in the circuit breaker for this consumer
@@ -226,8 +271,7 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
         private volatile boolean hasPartialReduce;
         private volatile int numReducePhases;
 
-        PendingMerges(int batchReduceSize, int trackTotalHitsUpTo) {
-            this.batchReduceSize = batchReduceSize;
+        PendingMerges(int trackTotalHitsUpTo) {
             this.topDocsStats = new TopDocsStats(trackTotalHitsUpTo);
         }
 
@@ -238,6 +282,9 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
                 assert circuitBreakerBytes == 0;
                 return;
             }
+            if (mergeResult != null) {
+                Releasables.close(mergeResult.aggsReducer);
+            }
             assert circuitBreakerBytes >= 0;
             circuitBreaker.addWithoutBreaking(-circuitBreakerBytes);
             circuitBreakerBytes = 0;
@@ -275,6 +322,30 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
             return circuitBreakerBytes;
         }
 
+        /**
+         * Merges the aggregations of the provided {@link QuerySearchResult} into the reducer and charges the circuit
+         * breaker for the memory that the reducer gained, so that it trips while a large number of buckets is merged
+         * rather than after the fact. Returns the charged bytes.
+         */
+        long acceptAggs(AggregationsReducer aggsReducer, QuerySearchResult result) {
+            final long before = aggsReducer.ramBytesUsed();
+            aggsReducer.accept(result.consumeAggs().expand());
+            return addReducerBytes(aggsReducer.ramBytesUsed() - before);
+        }
+
+        private synchronized long addReducerBytes(long delta) {
+            if (hasFailure()) {
+                // the failure released the memory of this consumer, the running merge is discarded when it completes
+                return 0;
+            }
+            if (delta > 0) {
+                addEstimateAndMaybeBreak(delta);
+            } else {
+                addWithoutBreaking(delta);
+            }
+            return delta;
+        }
+
         /**
          * Returns the size of the serialized aggregation that is contained in the
          * provided {@link QuerySearchResult}.
@@ -358,6 +429,10 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
             }
             queue.stream().forEach(toCancels::add);
             queue.clear();
+            if (task == null && mergeResult != null) {
+                // a running merge still uses the reducer, it is released when the merge completes
+                Releasables.close(mergeResult.aggsReducer);
+            }
             mergeResult = null;
             for (MergeTask toCancel : toCancels) {
                 toCancel.cancel();
@@ -367,6 +442,7 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
         private void onAfterMerge(MergeTask task, MergeResult newResult, long estimatedSize) {
             synchronized (this) {
                 if (hasFailure()) {
+                    Releasables.close(newResult.aggsReducer);
                     return;
                 }
                 runningTask.compareAndSet(task, null);
@@ -374,7 +450,7 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
                 if (hasAggs) {
                     // Update the circuit breaker to remove the size of the source aggregations
                     // and replace the estimation with the serialized size of the newly reduced result.
-                    long newSize = mergeResult.estimatedSize - estimatedSize;
+                    long newSize = mergeResult.estimatedSize - estimatedSize - mergeResult.chargedBytes;
                     addWithoutBreaking(newSize);
                     logger.trace("aggs partial reduction [{}->{}] max [{}]",
                         estimatedSize, mergeResult.estimatedSize, maxAggsCurrentBufferSize);
@@ -413,6 +489,9 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
                         newMerge = partialReduce(toConsume, task.emptyResults, topDocsStats, thisMergeResult, numReducePhases);
                     } catch (Exception t) {
                         onMergeFailure(t);
+                        if (thisMergeResult != null) {
+                            Releasables.close(thisMergeResult.aggsReducer);
+                        }
                         return;
                     }
                     onAfterMerge(task, newMerge, estimatedTotalSize);
@@ -449,6 +528,20 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
             return topDocsList;
         }
 
+        /**
+         * Merges the buffered aggregations into the {@link AggregationsReducer} of the last merge and returns it,
+         * or returns <code>null</code> if there is no such reducer.
+         */
+        public synchronized AggregationsReducer consumeAggsReducer() {
+            if (hasAggs == false || mergeResult == null || mergeResult.aggsReducer == null) {
+                return null;
+            }
+            for (QuerySearchResult result : buffer) {
+                acceptAggs(mergeResult.aggsReducer, result);
+            }
+            return mergeResult.aggsReducer;
+        }
+
         public synchronized List<InternalAggregations> consumeAggs() {
             if (hasAggs == false) {
                 return Collections.emptyList();
@@ -468,14 +561,20 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
         private final List<SearchShard> processedShards;
         private final TopDocs reducedTopDocs;
         private final InternalAggregations reducedAggs;
+        // the reducer that holds the merged aggregations instead of reducedAggs as long as they can be merged incrementally
+        private final AggregationsReducer aggsReducer;
         private final long estimatedSize;
+        // the bytes that were charged in the circuit breaker while merging, as the aggregations reducer grew
+        private final long chargedBytes;
 
-        private MergeResult(List<SearchShard> processedShards, TopDocs reducedTopDocs,
-                            InternalAggregations reducedAggs, long estimatedSize) {
+        private MergeResult(List<SearchShard> processedShards, TopDocs reducedTopDocs, InternalAggregations reducedAggs,
+                            AggregationsReducer aggsReducer, long estimatedSize, long chargedBytes) {
             this.processedShards = processedShards;
             this.reducedTopDocs = reducedTopDocs;
             this.reducedAggs = reducedAggs;
+            this.aggsReducer = aggsReducer;
             this.estimatedSize = estimatedSize;
+            this.chargedBytes = chargedBytes;
         }
     }
 
@@ -58,6 +58,7 @@ import java.util.concurrent.Executor;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.IntFunction;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 public final class SearchPhaseController {
@@ -400,6 +401,22 @@ public final class SearchPhaseController {
                                         TopDocsStats topDocsStats, int numReducePhases, boolean isScrollRequest,
                                         InternalAggregation.ReduceContextBuilder aggReduceContextBuilder,
                                         boolean performFinalReduce) {
+        return reducedQueryPhase(queryResults, () -> reduceAggs(aggReduceContextBuilder, performFinalReduce, bufferedAggs),
+            bufferedTopDocs, topDocsStats, numReducePhases, isScrollRequest);
+    }
+
+    /**
+     * Reduces the given query results and consumes all profile results.
+     * @param queryResults a list of non-null query shard results
+     * @param aggsReduction reduces the aggregations of the query results, which have already been consumed
+     * @param bufferedTopDocs a list of pre-collected top docs.
+     * @param numReducePhases the number of non-final reduce phases applied to the query results.
+     * @see QuerySearchResult#consumeProfileResult()
+     */
+    ReducedQueryPhase reducedQueryPhase(Collection<? extends SearchPhaseResult> queryResults,
+                                        Supplier<InternalAggregations> aggsReduction,
+                                        List<TopDocs> bufferedTopDocs,
+                                        TopDocsStats topDocsStats, int numReducePhases, boolean isScrollRequest) {
         assert numReducePhases >= 0 : "num reduce phases must be >= 0 but was: " + numReducePhases;
         numReducePhases++; // increment for this phase
         if (queryResults.isEmpty()) { // early terminate we have nothing to reduce
@@ -464,7 +481,7 @@ public final class SearchPhaseController {
             reducedSuggest = new Suggest(Suggest.reduce(groupedSuggestions));
             reducedCompletionSuggestions = reducedSuggest.filter(CompletionSuggestion.class);
         }
-        final InternalAggregations aggregations = reduceAggs(aggReduceContextBuilder, performFinalReduce, bufferedAggs);
+        final InternalAggregations aggregations = aggsReduction.get();
         final SearchProfileShardResults shardResults = profileResults.isEmpty() ? null : new SearchProfileShardResults(profileResults);
         final SortedTopDocs sortedTopDocs = sortDocs(isScrollRequest, bufferedTopDocs, from, size, reducedCompletionSuggestions);
         final TotalHits totalHits = topDocsStats.getTotalHits();
@@ -514,10 +531,13 @@ public final class SearchPhaseController {
      * Returns the size of the requested top documents (from + size)
      */
     static int getTopDocsSize(SearchRequest request) {
-        if (request.source() == null) {
+        return getTopDocsSize(request.source());
+    }
+
+    static int getTopDocsSize(SearchSourceBuilder source) {
+        if (source == null) {
             return SearchService.DEFAULT_SIZE;
         }
-        SearchSourceBuilder source = request.source();
         return (source.size() == -1 ? SearchService.DEFAULT_SIZE : source.size()) +
             (source.from() == -1 ? SearchService.DEFAULT_FROM : source.from());
     }
@@ -9,18 +9,17 @@
 package org.elasticsearch.action.search;
 
 import org.apache.logging.log4j.Logger;
-import org.apache.lucene.search.TopFieldDocs;
 import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.cluster.ClusterState;
 import org.elasticsearch.cluster.routing.GroupShardsIterator;
 import org.elasticsearch.search.SearchPhaseResult;
 import org.elasticsearch.search.SearchShardTarget;
 import org.elasticsearch.search.internal.AliasFilter;
-import org.elasticsearch.search.internal.SearchContext;
 import org.elasticsearch.search.internal.ShardSearchRequest;
-import org.elasticsearch.search.query.QuerySearchResult;
 import org.elasticsearch.transport.Transport;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Executor;
 import java.util.function.BiFunction;
@@ -33,9 +32,7 @@ class SearchQueryThenFetchAsyncAction extends AbstractSearchAsyncAction<SearchPh
     private final SearchProgressListener progressListener;
 
     // informations to track the best bottom top doc globally.
-    private final int topDocsSize;
-    private final int trackTotalHitsUpTo;
-    private volatile BottomSortValuesCollector bottomSortCollector;
+    private final BottomSortValuesTracker bottomSortTracker;
 
     SearchQueryThenFetchAsyncAction(final Logger logger, final SearchTransportService searchTransportService,
                                     final BiFunction<String, String, Transport.Connection> nodeIdToConnection,
@@ -50,8 +47,7 @@ class SearchQueryThenFetchAsyncAction extends AbstractSearchAsyncAction<SearchPh
         super("query", logger, searchTransportService, nodeIdToConnection, aliasFilter, concreteIndexBoosts,
                 executor, request, listener, shardsIts, timeProvider, clusterState, task,
                 resultConsumer, request.getMaxConcurrentShardRequests(), clusters);
-        this.topDocsSize = getTopDocsSize(request);
-        this.trackTotalHitsUpTo = request.resolveTrackTotalHitsUpTo();
+        this.bottomSortTracker = new BottomSortValuesTracker(getTopDocsSize(request), request.resolveTrackTotalHitsUpTo());
         this.searchPhaseController = searchPhaseController;
         this.progressListener = task.getProgressListener();
 
@@ -71,6 +67,25 @@ class SearchQueryThenFetchAsyncAction extends AbstractSearchAsyncAction<SearchPh
         getSearchTransport().sendExecuteQuery(getConnection(shard.getClusterAlias(), shard.getNodeId()), request, getTask(), listener);
     }
 
+    @Override
+    protected boolean supportsPhaseOnNode() {
+        // single shard searches also fetch the documents in the query phase
+        return getNumShards() > 1;
+    }
+
+    @Override
+    protected void executePhaseOnNode(final Transport.Connection connection,
+                                      final List<SearchShardIterator> shardIts,
+                                      final List<SearchActionListener<SearchPhaseResult>> listeners) {
+        final List<ShardSearchRequest> requests = new ArrayList<>(shardIts.size());
+        for (int i = 0; i < shardIts.size(); i++) {
+            requests.add(rewriteShardSearchRequest(super.buildShardSearchRequest(shardIts.get(i), listeners.get(i).requestIndex)));
+        }
+        final NodeQuerySearchRequest request =
+            new NodeQuerySearchRequest(getRequest().source(), getRequest().getMaxConcurrentShardRequests(), requests);
+        getSearchTransport().sendExecuteQueryOnNode(connection, request, getTask(), listeners);
+    }
+
     @Override
     protected void onShardGroupFailure(int shardIndex, SearchShardTarget shardTarget, Exception exc) {
         progressListener.notifyQueryFailure(shardIndex, shardTarget, exc);
@@ -78,23 +93,9 @@ class SearchQueryThenFetchAsyncAction extends AbstractSearchAsyncAction<SearchPh
 
     @Override
     protected void onShardResult(SearchPhaseResult result, SearchShardIterator shardIt) {
-        QuerySearchResult queryResult = result.queryResult();
-        if (queryResult.isNull() == false
-                // disable sort optims for scroll requests because they keep track of the last bottom doc locally (per shard)
-                && getRequest().scroll() == null
-                // top docs are already consumed if the query was cancelled or in error.
-                && queryResult.hasConsumedTopDocs() == false
-                && queryResult.topDocs() != null
-                && queryResult.topDocs().topDocs.getClass() == TopFieldDocs.class) {
-            TopFieldDocs topDocs = (TopFieldDocs) queryResult.topDocs().topDocs;
-            if (bottomSortCollector == null) {
-                synchronized (this) {
-                    if (bottomSortCollector == null) {
-                        bottomSortCollector = new BottomSortValuesCollector(topDocsSize, topDocs.fields);
-                    }
-                }
-            }
-            bottomSortCollector.consumeTopDocs(topDocs, queryResult.sortValueFormats());
+        // disable sort optims for scroll requests because they keep track of the last bottom doc locally (per shard)
+        if (getRequest().scroll() == null) {
+            bottomSortTracker.consumeResult(result.queryResult());
         }
         super.onShardResult(result, shardIt);
     }
@@ -105,20 +106,6 @@ class SearchQueryThenFetchAsyncAction extends AbstractSearchAsyncAction<SearchPh
     }
 
     private ShardSearchRequest rewriteShardSearchRequest(ShardSearchRequest request) {
-        if (bottomSortCollector == null) {
-            return request;
-        }
-
-        // disable tracking total hits if we already reached the required estimation.
-        if (trackTotalHitsUpTo != SearchContext.TRACK_TOTAL_HITS_ACCURATE
-                && bottomSortCollector.getTotalHits() > trackTotalHitsUpTo) {
-            request.source(request.source().shallowCopy().trackTotalHits(false));
-        }
-
-        // set the current best bottom field doc
-        if (bottomSortCollector.getBottomSortValues() != null) {
-            request.setBottomSortValues(bottomSortCollector.getBottomSortValues());
-        }
-        return request;
+        return bottomSortTracker.rewriteRequest(request);
     }
 }
@@ -26,6 +26,7 @@ import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
 import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.common.util.concurrent.CountDown;
 import org.elasticsearch.search.SearchPhaseResult;
 import org.elasticsearch.search.SearchService;
 import org.elasticsearch.search.dfs.DfsSearchResult;
@@ -52,9 +53,12 @@ import org.elasticsearch.transport.TransportResponse;
 import org.elasticsearch.transport.TransportService;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiFunction;
 
 /**
@@ -68,6 +72,7 @@ public class SearchTransportService {
     public static final String CLEAR_SCROLL_CONTEXTS_ACTION_NAME = "indices:data/read/search[clear_scroll_contexts]";
     public static final String DFS_ACTION_NAME = "indices:data/read/search[phase/dfs]";
     public static final String QUERY_ACTION_NAME = "indices:data/read/search[phase/query]";
+    public static final String QUERY_NODE_ACTION_NAME = "indices:data/read/search[phase/query/node]";
     public static final String QUERY_ID_ACTION_NAME = "indices:data/read/search[phase/query/id]";
     public static final String QUERY_SCROLL_ACTION_NAME = "indices:data/read/search[phase/query/scroll]";
     public static final String QUERY_FETCH_SCROLL_ACTION_NAME = "indices:data/read/search[phase/query+fetch/scroll]";
@@ -137,6 +142,43 @@ public class SearchTransportService {
                 new ConnectionCountingHandler<>(handler, reader, clientConnections, connection.getNode().getId()));
     }
 
+    /**
+     * Sends the query phase requests of several shards that are allocated on the node of the given connection at once. The listeners
+     * are notified with the result of the shard request at the same position.
+     */
+    public void sendExecuteQueryOnNode(Transport.Connection connection, final NodeQuerySearchRequest request, SearchTask task,
+                                       final List<SearchActionListener<SearchPhaseResult>> listeners) {
+        assert request.getShardRequests().size() == listeners.size();
+        assert request.getShardRequests().stream().noneMatch(r -> r.numberOfShards() == 1) : "single shard searches also fetch";
+        final List<ActionListener<SearchPhaseResult>> handlers = new ArrayList<>(listeners.size());
+        for (SearchActionListener<SearchPhaseResult> listener : listeners) {
+            @SuppressWarnings("unchecked")
+            final ActionListener<SearchPhaseResult> handler = responseWrapper.apply(connection, listener);
+            handlers.add(handler);
+        }
+        transportService.sendChildRequest(connection, QUERY_NODE_ACTION_NAME, request, task,
+            new ConnectionCountingHandler<>(new ActionListener<NodeQuerySearchResponse>() {
+                @Override
+                public void onResponse(NodeQuerySearchResponse response) {
+                    for (int i = 0; i < response.size(); i++) {
+                        final Exception failure = response.getFailure(i);
+                        if (failure == null) {
+                            handlers.get(i).onResponse(response.getResult(i));
+                        } else {
+                            handlers.get(i).onFailure(failure);
+                        }
+                    }
+                }
+
+                @Override
+                public void onFailure(Exception e) {
+                    for (ActionListener<SearchPhaseResult> handler : handlers) {
+                        handler.onFailure(e);
+                    }
+                }
+            }, NodeQuerySearchResponse::new, clientConnections, connection.getNode().getId()));
+    }
+
     public void sendExecuteQuery(Transport.Connection connection, final QuerySearchRequest request, SearchTask task,
                                  final SearchActionListener<QuerySearchResult> listener) {
         transportService.sendChildRequest(connection, QUERY_ID_ACTION_NAME, request, task,
@@ -319,6 +361,11 @@ public class SearchTransportService {
         TransportActionProxy.registerProxyActionWithDynamicResponseType(transportService, QUERY_ACTION_NAME, true,
             (request) -> ((ShardSearchRequest)request).numberOfShards() == 1 ? QueryFetchSearchResult::new : QuerySearchResult::new);
 
+        transportService.registerRequestHandler(QUERY_NODE_ACTION_NAME, ThreadPool.Names.SAME, NodeQuerySearchRequest::new,
+            (request, channel, task) -> new NodeQueryPhase(searchService, request, keepStatesInContext(channel.getVersion()),
+                (SearchShardTask) task, new ChannelActionListener<>(channel, QUERY_NODE_ACTION_NAME, request)).start());
+        TransportActionProxy.registerProxyAction(transportService, QUERY_NODE_ACTION_NAME, true, NodeQuerySearchResponse::new);
+
         transportService.registerRequestHandler(QUERY_ID_ACTION_NAME, ThreadPool.Names.SAME, QuerySearchRequest::new,
             (request, channel, task) -> {
                 searchService.executeQueryPhase(request, (SearchShardTask) task,
@@ -378,6 +425,80 @@ public class SearchTransportService {
         }
     }
 
+    /**
+     * Executes the query phase of the shard requests of a {@link NodeQuerySearchRequest}, at most
+     * {@link NodeQuerySearchRequest#getMaxConcurrentShardRequests()} at a time, and responds once all of them completed. Like the
+     * coordinating node does for the shard requests it sends on their own, the bottom sort values of the results are used to rewrite the
+     * shard requests that are started later on.
+     */
+    private static final class NodeQueryPhase {
+        private final SearchService searchService;
+        private final NodeQuerySearchRequest request;
+        private final boolean keepStatesInContext;
+        private final SearchShardTask task;
+        private final ActionListener<NodeQuerySearchResponse> listener;
+        @Nullable
+        private final BottomSortValuesTracker bottomSortTracker;
+        private final Object[] results;
+        private final CountDown countDown;
+        private final AtomicInteger nextShard = new AtomicInteger();
+        // the number of shard requests that can be started, whoever raises it from zero starts them, see #onShardDone()
+        private final AtomicInteger permits = new AtomicInteger();
+
+        NodeQueryPhase(SearchService searchService, NodeQuerySearchRequest request, boolean keepStatesInContext, SearchShardTask task,
+                       ActionListener<NodeQuerySearchResponse> listener) {
+            this.searchService = searchService;
+            this.request = request;
+            this.keepStatesInContext = keepStatesInContext;
+            this.task = task;
+            this.listener = listener;
+            // disable sort optims for scroll requests because they keep track of the last bottom doc locally (per shard)
+            this.bottomSortTracker = request.getShardRequests().get(0).scroll() != null ? null :
+                new BottomSortValuesTracker(SearchPhaseController.getTopDocsSize(request.source()),
+                    SearchRequest.resolveTrackTotalHitsUpTo(null, request.source()));
+            this.results = new Object[request.getShardRequests().size()];
+            this.countDown = new CountDown(results.length);
+        }
+
+        void start() {
+            final int concurrency = Math.min(request.getMaxConcurrentShardRequests(), results.length);
+            if (permits.getAndAdd(concurrency) == 0) {
+                startShards();
+            }
+        }
+
+        private void onShardDone(int index, Object result) {
+            results[index] = result;
+            if (bottomSortTracker != null && result instanceof SearchPhaseResult) {
+                bottomSortTracker.consumeResult(((SearchPhaseResult) result).queryResult());
+            }
+            if (countDown.countDown()) {
+                listener.onResponse(new NodeQuerySearchResponse(results));
+            } else if (permits.getAndIncrement() == 0) {
+                // shard requests that complete on the thread that starts them must not recurse into starting the next ones
+                startShards();
+            }
+        }
+
+        private void startShards() {
+            do {
+                final int index = nextShard.getAndIncrement();
+                if (index < results.length) {
+                    try {
+                        ShardSearchRequest shardRequest = request.getShardRequests().get(index);
+                        if (bottomSortTracker != null) {
+                            shardRequest = bottomSortTracker.rewriteRequest(shardRequest);
+                        }
+                        searchService.executeQueryPhase(shardRequest, keepStatesInContext, task,
+                            ActionListener.wrap(result -> onShardDone(index, result), e -> onShardDone(index, e)));
+                    } catch (Exception e) {
+                        onShardDone(index, e);
+                    }
+                }
+            } while (permits.decrementAndGet() > 0);
+        }
+    }
+
     final class ConnectionCountingHandler<Response extends TransportResponse> extends ActionListenerResponseHandler<Response> {
         private final Map<String, Long> clientConnections;
         private final String nodeId;
@@ -15,6 +15,10 @@ import org.elasticsearch.cluster.metadata.IndexGraveyard.IndexGraveyardDiff;
 import org.elasticsearch.cluster.metadata.IndexMetadata;
 import org.elasticsearch.cluster.metadata.Metadata;
 import org.elasticsearch.cluster.node.DiscoveryNodes;
+import org.elasticsearch.cluster.routing.IndexRoutingTable;
+import org.elasticsearch.cluster.routing.IndexShardRoutingTable;
+import org.elasticsearch.cluster.routing.RoutingNodes;
+import org.elasticsearch.cluster.routing.ShardRouting;
 import org.elasticsearch.common.collect.ImmutableOpenMap;
 import org.elasticsearch.gateway.GatewayService;
 import org.elasticsearch.index.Index;
@@ -22,6 +26,7 @@ import org.elasticsearch.index.Index;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
@@ -40,6 +45,10 @@ public class ClusterChangedEvent {
 
     private final DiscoveryNodes.Delta nodesDelta;
 
+    private volatile Set<String> indicesWithChangedRouting;
+
+    private volatile Set<String> nodesWithChangedShards;
+
     public ClusterChangedEvent(String source, ClusterState state, ClusterState previousState) {
         Objects.requireNonNull(source, "source must not be null");
         Objects.requireNonNull(state, "state must not be null");
@@ -95,6 +104,92 @@ public class ClusterChangedEvent {
         return true;
     }
 
+    /**
+     * Returns the names of the indices whose routing table changed between the previous and the current cluster state, including the
+     * indices that were added to or removed from the routing table. Note that this is an object reference equality test, not an equals
+     * test. The indices are computed on first use.
+     */
+    public Set<String> indicesWithChangedRouting() {
+        Set<String> indices = indicesWithChangedRouting;
+        if (indices == null) {
+            if (routingTableChanged()) {
+                indices = new HashSet<>();
+                final ImmutableOpenMap<String, IndexRoutingTable> previousIndicesRouting = previousState.routingTable().indicesRouting();
+                for (ObjectObjectCursor<String, IndexRoutingTable> cursor : state.routingTable().indicesRouting()) {
+                    if (previousIndicesRouting.get(cursor.key) != cursor.value) {
+                        indices.add(cursor.key);
+                    }
+                }
+                for (ObjectCursor<String> cursor : previousIndicesRouting.keys()) {
+                    if (state.routingTable().hasIndex(cursor.value) == false) {
+                        indices.add(cursor.value);
+                    }
+                }
+                indices = Collections.unmodifiableSet(indices);
+            } else {
+                indices = Collections.emptySet();
+            }
+            indicesWithChangedRouting = indices;
+        }
+        return indices;
+    }
+
+    /**
+     * Returns the ids of the nodes whose shard copies changed between the previous and the current cluster state, that is the nodes that
+     * hold a shard copy of one of the {@link #indicesWithChangedRouting() indices whose routing changed} in one of the cluster states but
+     * not the same instance of it in the other one. Both the source and the target nodes of relocating shard copies are included. The
+     * nodes are computed on first use.
+     */
+    public Set<String> nodesWithChangedShards() {
+        Set<String> nodes = nodesWithChangedShards;
+        if (nodes == null) {
+            nodes = new HashSet<>();
+            for (String index : indicesWithChangedRouting()) {
+                final Set<ShardRouting> previousShards = Collections.newSetFromMap(new IdentityHashMap<>());
+                final IndexRoutingTable previousIndexRoutingTable = previousState.routingTable().index(index);
+                if (previousIndexRoutingTable != null) {
+                    for (IndexShardRoutingTable indexShardRoutingTable : previousIndexRoutingTable) {
+                        indexShardRoutingTable.forEach(previousShards::add);
+                    }
+                }
+                final IndexRoutingTable indexRoutingTable = state.routingTable().index(index);
+                if (indexRoutingTable != null) {
+                    for (IndexShardRoutingTable indexShardRoutingTable : indexRoutingTable) {
+                        for (ShardRouting shardRouting : indexShardRoutingTable) {
+                            if (previousShards.remove(shardRouting) == false) {
+                                addAssignedNodes(shardRouting, nodes);
+                            }
+                        }
+                    }
+                }
+                for (ShardRouting shardRouting : previousShards) {
+                    addAssignedNodes(shardRouting, nodes);
+                }
+            }
+            nodes = Collections.unmodifiableSet(nodes);
+            nodesWithChangedShards = nodes;
+        }
+        return nodes;
+    }
+
+    private static void addAssignedNodes(ShardRouting shardRouting, Set<String> nodes) {
+        if (shardRouting.assignedToNode()) {
+            nodes.add(shardRouting.currentNodeId());
+            if (shardRouting.relocating()) {
+                nodes.add(shardRouting.relocatingNodeId());
+            }
+        }
+    }
+
+    /**
+     * Returns the routing nodes of the new cluster state, see {@link ClusterState#getRoutingNodes()}. If the routing nodes of the previous
+     * cluster state were already built then they are built from them by only processing the shard copies of the
+     * {@link #nodesWithChangedShards() nodes whose shards changed}, rather than from the whole routing table.
+     */
+    public RoutingNodes routingNodes() {
+        return state.getRoutingNodes(this);
+    }
+
     /**
      * Returns the indices created in this event
      */
@@ -234,6 +234,39 @@ public class ClusterState implements ToXContentFragment, Diffable<ClusterState>
         return routingNodes;
     }
 
+    /**
+     * Returns a built (on demand) routing nodes view of the routing table like {@link #getRoutingNodes()}. If the routing nodes of the
+     * previous cluster state of the given event were already built then they are built from them, only processing the shards whose
+     * routing changed rather than the whole routing table.
+     */
+    RoutingNodes getRoutingNodes(ClusterChangedEvent event) {
+        assert event.state() == this;
+        if (routingNodes != null) {
+            return routingNodes;
+        }
+        final ClusterState previousState = event.previousState();
+        final RoutingNodes previousRoutingNodes = previousState.routingNodes;
+        if (previousRoutingNodes == null) {
+            return getRoutingNodes();
+        }
+        if (previousState.routingTable() == routingTable && previousState.nodes() == nodes) {
+            routingNodes = previousRoutingNodes;
+        } else {
+            routingNodes = new RoutingNodes(this, previousState.routingTable(), previousRoutingNodes, event.indicesWithChangedRouting(),
+                event.nodesWithChangedShards());
+        }
+        return routingNodes;
+    }
+
+    /**
+     * Returns mutable routing nodes for the routing table. These are copied from the read-only routing nodes of this cluster state if
+     * those were already built, which is cheaper than building them from the routing table.
+     */
+    public RoutingNodes mutableRoutingNodes() {
+        final RoutingNodes readOnlyRoutingNodes = routingNodes;
+        return readOnlyRoutingNodes == null ? new RoutingNodes(this, false) : readOnlyRoutingNodes.mutableCopy();
+    }
+
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
@@ -66,6 +66,27 @@ public class RoutingNode implements Iterable<ShardRouting> {
         assert invariant();
     }
 
+    private RoutingNode(RoutingNode original, DiscoveryNode node) {
+        this.nodeId = original.nodeId;
+        this.node = node;
+        this.shards = new LinkedHashMap<>(original.shards);
+        this.relocatingShards = new LinkedHashSet<>(original.relocatingShards);
+        this.initializingShards = new LinkedHashSet<>(original.initializingShards);
+        this.shardsByIndex = new LinkedHashMap<>();
+        for (Map.Entry<Index, LinkedHashSet<ShardRouting>> entry : original.shardsByIndex.entrySet()) {
+            shardsByIndex.put(entry.getKey(), new LinkedHashSet<>(entry.getValue()));
+        }
+        assert invariant();
+    }
+
+    /**
+     * Returns a copy of this routing node for the given discovery node, whose shards can be modified independently of the shards of this
+     * routing node.
+     */
+    RoutingNode copy(DiscoveryNode node) {
+        return new RoutingNode(this, node);
+    }
+
     private static LinkedHashMap<ShardId, ShardRouting> buildShardRoutingMap(ShardRouting... shardRoutings) {
         final LinkedHashMap<ShardId, ShardRouting> shards = new LinkedHashMap<>();
         for (ShardRouting shardRouting : shardRoutings) {
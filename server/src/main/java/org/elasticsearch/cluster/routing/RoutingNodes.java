@@ -17,6 +17,7 @@ import org.elasticsearch.cluster.ClusterState;
 import org.elasticsearch.cluster.metadata.IndexMetadata;
 import org.elasticsearch.cluster.metadata.Metadata;
 import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.cluster.node.DiscoveryNodes;
 import org.elasticsearch.cluster.routing.UnassignedInfo.AllocationStatus;
 import org.elasticsearch.cluster.routing.allocation.ExistingShardsAllocator;
 import org.elasticsearch.common.Nullable;
@@ -37,8 +38,10 @@ import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Objects;
 import java.util.Queue;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.function.Predicate;
 
 /**
@@ -91,50 +94,185 @@ public class RoutingNodes implements Iterable<RoutingNode> {
         // also fill replicaSet information
         for (ObjectCursor<IndexRoutingTable> indexRoutingTable : routingTable.indicesRouting().values()) {
             for (IndexShardRoutingTable indexShard : indexRoutingTable.value) {
-                assert indexShard.primary != null;
+                // LinkedHashMap to preserve order
+                addShards(indexShard, nodeId -> nodesToShards.computeIfAbsent(nodeId, k -> new LinkedHashMap<>()));
+            }
+        }
+        for (Map.Entry<String, LinkedHashMap<ShardId, ShardRouting>> entry : nodesToShards.entrySet()) {
+            String nodeId = entry.getKey();
+            this.nodesToShards.put(nodeId, new RoutingNode(nodeId, clusterState.nodes().get(nodeId), entry.getValue()));
+        }
+    }
+
+    /**
+     * Creates read-only routing nodes for the given cluster state from the read-only routing nodes of a previous cluster state, only
+     * processing the shards of the indices whose routing changed since then rather than the whole routing table. The routing nodes of the
+     * nodes whose shards did not change are shared with the previous routing nodes.
+     *
+     * @param previousRoutingTable the routing table of the previous cluster state
+     * @param previous             the read-only routing nodes of the previous cluster state
+     * @param changedIndices       the names of the indices whose routing table is a different instance in the previous cluster state
+     * @param changedNodes         the ids of the nodes that hold shard copies which are not the same instances in both cluster states
+     */
+    public RoutingNodes(ClusterState clusterState, RoutingTable previousRoutingTable, RoutingNodes previous, Set<String> changedIndices,
+                        Set<String> changedNodes) {
+        assert previous.readOnly : "routing nodes can only be built from read-only routing nodes";
+        this.readOnly = true;
+        final RoutingTable routingTable = clusterState.routingTable();
+        final DiscoveryNodes nodes = clusterState.nodes();
+
+        inactivePrimaryCount = previous.inactivePrimaryCount;
+        inactiveShardCount = previous.inactiveShardCount;
+        relocatingShards = previous.relocatingShards;
+        assignedShards.putAll(previous.assignedShards);
+        for (Map.Entry<String, Recoveries> entry : previous.recoveriesPerNode.entrySet()) {
+            recoveriesPerNode.put(entry.getKey(), entry.getValue().copy());
+        }
+        for (ShardRouting shard : previous.unassignedShards) {
+            if (changedIndices.contains(shard.getIndexName()) == false) {
+                unassignedShards.add(shard);
+            }
+        }
+
+        // remove what the shards of the changed indices contributed to the previous routing nodes
+        for (String index : changedIndices) {
+            final IndexRoutingTable previousIndexRoutingTable = previousRoutingTable.index(index);
+            if (previousIndexRoutingTable == null) {
+                continue;
+            }
+            for (IndexShardRoutingTable indexShard : previousIndexRoutingTable) {
                 for (ShardRouting shard : indexShard) {
-                    // to get all the shards belonging to an index, including the replicas,
-                    // we define a replica set and keep track of it. A replica set is identified
-                    // by the ShardId, as this is common for primary and replicas.
-                    // A replica Set might have one (and not more) replicas with the state of RELOCATING.
-                    if (shard.assignedToNode()) {
-                        Map<ShardId, ShardRouting> entries = nodesToShards.computeIfAbsent(shard.currentNodeId(),
-                            k -> new LinkedHashMap<>()); // LinkedHashMap to preserve order
-                        ShardRouting previousValue = entries.put(shard.shardId(), shard);
-                        if (previousValue != null) {
-                            throw new IllegalArgumentException("Cannot have two different shards with same shard id on same node");
-                        }
-                        assignedShardsAdd(shard);
-                        if (shard.relocating()) {
-                            relocatingShards++;
-                            // LinkedHashMap to preserve order.
-                            // Add the counterpart shard with relocatingNodeId reflecting the source from which
-                            // it's relocating from.
-                            entries = nodesToShards.computeIfAbsent(shard.relocatingNodeId(),
-                                k -> new LinkedHashMap<>());
-                            ShardRouting targetShardRouting = shard.getTargetRelocatingShard();
-                            addInitialRecovery(targetShardRouting, indexShard.primary);
-                            previousValue = entries.put(targetShardRouting.shardId(), targetShardRouting);
-                            if (previousValue != null) {
-                                throw new IllegalArgumentException("Cannot have two different shards with same shard id on same node");
-                            }
-                            assignedShardsAdd(targetShardRouting);
-                        } else if (shard.initializing()) {
-                            if (shard.primary()) {
-                                inactivePrimaryCount++;
-                            }
-                            inactiveShardCount++;
-                            addInitialRecovery(shard, indexShard.primary);
+                    assignedShards.remove(shard.shardId());
+                    if (shard.relocating()) {
+                        relocatingShards--;
+                        removeInitialRecovery(shard.getTargetRelocatingShard(), indexShard.primary);
+                    } else if (shard.initializing()) {
+                        if (shard.primary()) {
+                            inactivePrimaryCount--;
                         }
-                    } else {
-                        unassignedShards.add(shard);
+                        inactiveShardCount--;
+                        removeInitialRecovery(shard, indexShard.primary);
                     }
                 }
             }
         }
-        for (Map.Entry<String, LinkedHashMap<ShardId, ShardRouting>> entry : nodesToShards.entrySet()) {
-            String nodeId = entry.getKey();
-            this.nodesToShards.put(nodeId, new RoutingNode(nodeId, clusterState.nodes().get(nodeId), entry.getValue()));
+
+        // only the shards of the changed nodes are collected again, other nodes hold the very same shard copies as before
+        final Map<String, LinkedHashMap<ShardId, ShardRouting>> changedNodesToShards = new HashMap<>();
+        for (String nodeId : changedNodes) {
+            final LinkedHashMap<ShardId, ShardRouting> shards = new LinkedHashMap<>();
+            final RoutingNode previousRoutingNode = previous.node(nodeId);
+            if (previousRoutingNode != null) {
+                for (ShardRouting shard : previousRoutingNode) {
+                    if (changedIndices.contains(shard.getIndexName()) == false) {
+                        shards.put(shard.shardId(), shard);
+                    }
+                }
+            }
+            changedNodesToShards.put(nodeId, shards);
+        }
+        for (String index : changedIndices) {
+            final IndexRoutingTable indexRoutingTable = routingTable.index(index);
+            if (indexRoutingTable != null) {
+                for (IndexShardRoutingTable indexShard : indexRoutingTable) {
+                    addShards(indexShard, changedNodesToShards::get);
+                }
+            }
+        }
+
+        for (RoutingNode previousRoutingNode : previous) {
+            final String nodeId = previousRoutingNode.nodeId();
+            final DiscoveryNode node = nodes.get(nodeId);
+            if (changedNodes.contains(nodeId) || (previousRoutingNode.isEmpty() && nodes.getDataNodes().containsKey(nodeId) == false)) {
+                continue;
+            }
+            this.nodesToShards.put(nodeId,
+                Objects.equals(previousRoutingNode.node(), node) ? previousRoutingNode : previousRoutingNode.copy(node));
+        }
+        for (Map.Entry<String, LinkedHashMap<ShardId, ShardRouting>> entry : changedNodesToShards.entrySet()) {
+            final String nodeId = entry.getKey();
+            if (entry.getValue().isEmpty() == false || nodes.getDataNodes().containsKey(nodeId)) {
+                this.nodesToShards.put(nodeId, new RoutingNode(nodeId, nodes.get(nodeId), entry.getValue()));
+            }
+        }
+        for (ObjectCursor<DiscoveryNode> cursor : nodes.getDataNodes().values()) {
+            final String nodeId = cursor.value.getId();
+            if (this.nodesToShards.containsKey(nodeId) == false) {
+                this.nodesToShards.put(nodeId, new RoutingNode(nodeId, cursor.value, new LinkedHashMap<>()));
+            }
+        }
+        assert assertSameRouting(this, new RoutingNodes(clusterState));
+    }
+
+    private RoutingNodes(RoutingNodes readOnlyRoutingNodes) {
+        assert readOnlyRoutingNodes.readOnly : "only read-only routing nodes can be copied";
+        this.readOnly = false;
+        for (RoutingNode routingNode : readOnlyRoutingNodes) {
+            nodesToShards.put(routingNode.nodeId(), routingNode.copy(routingNode.node()));
+        }
+        for (ShardRouting shard : readOnlyRoutingNodes.unassignedShards) {
+            unassignedShards.add(shard);
+        }
+        for (Map.Entry<ShardId, List<ShardRouting>> entry : readOnlyRoutingNodes.assignedShards.entrySet()) {
+            assignedShards.put(entry.getKey(), new ArrayList<>(entry.getValue()));
+        }
+        for (Map.Entry<String, Recoveries> entry : readOnlyRoutingNodes.recoveriesPerNode.entrySet()) {
+            recoveriesPerNode.put(entry.getKey(), entry.getValue().copy());
+        }
+        inactivePrimaryCount = readOnlyRoutingNodes.inactivePrimaryCount;
+        inactiveShardCount = readOnlyRoutingNodes.inactiveShardCount;
+        relocatingShards = readOnlyRoutingNodes.relocatingShards;
+    }
+
+    /**
+     * Returns mutable routing nodes holding the same routing as these read-only routing nodes. Copying them is cheaper than building
+     * mutable routing nodes from the routing table again.
+     */
+    public RoutingNodes mutableCopy() {
+        return new RoutingNodes(this);
+    }
+
+    /**
+     * Adds the given shard copies to the routing nodes and to the replica set information. The shard copies assigned to a node are only
+     * added to it if the given function returns the shards of the node rather than {@code null}.
+     */
+    private void addShards(IndexShardRoutingTable indexShard, Function<String, Map<ShardId, ShardRouting>> nodeShards) {
+        assert indexShard.primary != null;
+        for (ShardRouting shard : indexShard) {
+            // to get all the shards belonging to an index, including the replicas,
+            // we define a replica set and keep track of it. A replica set is identified
+            // by the ShardId, as this is common for primary and replicas.
+            // A replica Set might have one (and not more) replicas with the state of RELOCATING.
+            if (shard.assignedToNode()) {
+                addShardToNode(nodeShards.apply(shard.currentNodeId()), shard);
+                assignedShardsAdd(shard);
+                if (shard.relocating()) {
+                    relocatingShards++;
+                    // Add the counterpart shard with relocatingNodeId reflecting the source from which
+                    // it's relocating from.
+                    ShardRouting targetShardRouting = shard.getTargetRelocatingShard();
+                    addInitialRecovery(targetShardRouting, indexShard.primary);
+                    addShardToNode(nodeShards.apply(shard.relocatingNodeId()), targetShardRouting);
+                    assignedShardsAdd(targetShardRouting);
+                } else if (shard.initializing()) {
+                    if (shard.primary()) {
+                        inactivePrimaryCount++;
+                    }
+                    inactiveShardCount++;
+                    addInitialRecovery(shard, indexShard.primary);
+                }
+            } else {
+                unassignedShards.add(shard);
+            }
+        }
+    }
+
+    private static void addShardToNode(@Nullable Map<ShardId, ShardRouting> nodeShards, ShardRouting shard) {
+        if (nodeShards != null) {
+            ShardRouting previousValue = nodeShards.put(shard.shardId(), shard);
+            if (previousValue != null) {
+                throw new IllegalArgumentException("Cannot have two different shards with same shard id on same node");
+            }
         }
     }
 
@@ -150,6 +288,14 @@ public class RoutingNodes implements Iterable<RoutingNode> {
         updateRecoveryCounts(routing, true, initialPrimaryShard);
     }
 
+    private void removeInitialRecovery(ShardRouting routing, ShardRouting initialPrimaryShard) {
+        assert routing.initializing() : "routing must be initializing: " + routing;
+        Recoveries.getOrAdd(recoveriesPerNode, routing.currentNodeId()).addIncoming(-1);
+        if (routing.recoverySource().getType() == RecoverySource.Type.PEER) {
+            Recoveries.getOrAdd(recoveriesPerNode, initialPrimaryShard.currentNodeId()).addOutgoing(-1);
+        }
+    }
+
     private void updateRecoveryCounts(final ShardRouting routing, final boolean increment, @Nullable final ShardRouting primary) {
         final int howMany = increment ? 1 : -1;
         assert routing.initializing() : "routing must be initializing: " + routing;
@@ -1111,6 +1257,44 @@ public class RoutingNodes implements Iterable<RoutingNode> {
         return true;
     }
 
+    /**
+     * Checks that the given routing nodes hold the same routing as the expected ones, regardless of the order of their nodes and shards.
+     * For performance reasons, this should only be called from asserts.
+     */
+    private static boolean assertSameRouting(RoutingNodes routingNodes, RoutingNodes expected) {
+        assert routingNodes.nodesToShards.keySet().equals(expected.nodesToShards.keySet()) :
+            "nodes " + routingNodes.nodesToShards.keySet() + " but expected " + expected.nodesToShards.keySet();
+        for (RoutingNode expectedRoutingNode : expected) {
+            final RoutingNode routingNode = routingNodes.node(expectedRoutingNode.nodeId());
+            assert Objects.equals(routingNode.node(), expectedRoutingNode.node()) : routingNode + " but expected " + expectedRoutingNode;
+            assert routingNode.size() == expectedRoutingNode.size()
+                && new HashSet<>(routingNode.copyShards()).equals(new HashSet<>(expectedRoutingNode.copyShards())) :
+                routingNode.prettyPrint() + " but expected " + expectedRoutingNode.prettyPrint();
+        }
+        final List<ShardRouting> unassigned = new ArrayList<>();
+        routingNodes.unassignedShards.forEach(unassigned::add);
+        final List<ShardRouting> expectedUnassigned = new ArrayList<>();
+        expected.unassignedShards.forEach(expectedUnassigned::add);
+        assert unassigned.size() == expectedUnassigned.size() && new HashSet<>(unassigned).equals(new HashSet<>(expectedUnassigned)) :
+            "unassigned shards " + unassigned + " but expected " + expectedUnassigned;
+        assert routingNodes.unassignedShards.getNumPrimaries() == expected.unassignedShards.getNumPrimaries();
+        assert routingNodes.assignedShards.keySet().equals(expected.assignedShards.keySet());
+        for (Map.Entry<ShardId, List<ShardRouting>> entry : expected.assignedShards.entrySet()) {
+            assert new HashSet<>(routingNodes.assignedShards.get(entry.getKey())).equals(new HashSet<>(entry.getValue())) :
+                "assigned shards " + routingNodes.assignedShards.get(entry.getKey()) + " but expected " + entry.getValue();
+        }
+        assert routingNodes.inactivePrimaryCount == expected.inactivePrimaryCount;
+        assert routingNodes.inactiveShardCount == expected.inactiveShardCount;
+        assert routingNodes.relocatingShards == expected.relocatingShards;
+        final Set<String> recoveringNodes = new HashSet<>(routingNodes.recoveriesPerNode.keySet());
+        recoveringNodes.addAll(expected.recoveriesPerNode.keySet());
+        for (String nodeId : recoveringNodes) {
+            assert routingNodes.getIncomingRecoveries(nodeId) == expected.getIncomingRecoveries(nodeId) : "incoming of " + nodeId;
+            assert routingNodes.getOutgoingRecoveries(nodeId) == expected.getOutgoingRecoveries(nodeId) : "outgoing of " + nodeId;
+        }
+        return true;
+    }
+
     private void ensureMutable() {
         if (readOnly) {
             throw new IllegalStateException("can't modify RoutingNodes - readonly");
@@ -1178,6 +1362,13 @@ public class RoutingNodes implements Iterable<RoutingNode> {
             return incoming;
         }
 
+        Recoveries copy() {
+            final Recoveries copy = new Recoveries();
+            copy.incoming = incoming;
+            copy.outgoing = outgoing;
+            return copy;
+        }
+
         public static Recoveries getOrAdd(Map<String, Recoveries> map, String key) {
             Recoveries recoveries = map.get(key);
             if (recoveries == null) {
@@ -401,8 +401,17 @@ public class RoutingTable implements Iterable<IndexRoutingTable>, Diffable<Routi
             }
         }
 
-        @SuppressWarnings("unchecked")
         public Builder updateNodes(long version, RoutingNodes routingNodes) {
+            return updateNodes(version, routingNodes, null);
+        }
+
+        /**
+         * Sets the routing of all indices to the routing held by the given routing nodes, but keeps the index routing tables of the given
+         * previous routing table that are equal to the updated ones. Index routing tables whose routing did not change thus remain the
+         * same instances, which is how appliers of cluster states tell which indices' routing changed.
+         */
+        @SuppressWarnings("unchecked")
+        public Builder updateNodes(long version, RoutingNodes routingNodes, @Nullable RoutingTable previousRoutingTable) {
             // this is being called without pre initializing the routing table, so we must copy over the version as well
             this.version = version;
 
@@ -424,7 +433,10 @@ public class RoutingTable implements Iterable<IndexRoutingTable>, Diffable<Routi
             }
 
             for (IndexRoutingTable.Builder indexBuilder : indexRoutingTableBuilders.values()) {
-                add(indexBuilder);
+                final IndexRoutingTable indexRoutingTable = indexBuilder.build();
+                final IndexRoutingTable previousIndexRoutingTable =
+                    previousRoutingTable == null ? null : previousRoutingTable.index(indexRoutingTable.getIndex().getName());
+                add(indexRoutingTable.equals(previousIndexRoutingTable) ? previousIndexRoutingTable : indexRoutingTable);
             }
             return this;
         }
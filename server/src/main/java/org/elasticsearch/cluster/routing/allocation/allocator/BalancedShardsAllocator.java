@@ -30,6 +30,7 @@ import org.elasticsearch.cluster.routing.allocation.decider.AllocationDeciders;
 import org.elasticsearch.cluster.routing.allocation.decider.Decision;
 import org.elasticsearch.cluster.routing.allocation.decider.Decision.Type;
 import org.elasticsearch.cluster.routing.allocation.decider.DiskThresholdDecider;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.collect.Tuple;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.settings.ClusterSettings;
@@ -193,7 +194,7 @@ public class BalancedShardsAllocator implements ShardsAllocator {
      * </ul>
      * <code>weight(node, index) = weight<sub>index</sub>(node, index) + weight<sub>node</sub>(node, index)</code>
      */
-    private static class WeightFunction {
+    static class WeightFunction {
 
         private final float indexBalance;
         private final float shardBalance;
@@ -248,7 +249,7 @@ public class BalancedShardsAllocator implements ShardsAllocator {
         /**
          * Returns an array view on the nodes in the balancer. Nodes should not be removed from this list.
          */
-        private ModelNode[] nodesArray() {
+        ModelNode[] nodesArray() {
             return nodes.values().toArray(new ModelNode[nodes.size()]);
         }
 
@@ -266,13 +267,29 @@ public class BalancedShardsAllocator implements ShardsAllocator {
             return avgShardsPerNode;
         }
 
+        /**
+         * Returns whether the deciders allow shards of the given index to be allocated to the given node at all, see
+         * {@link AllocationDeciders#canAllocate(IndexMetadata, RoutingNode, RoutingAllocation)}. If not then no shard of the index can be
+         * allocated to the node. These decisions only depend on the index, the node and the settings, which do not change while the
+         * balancer allocates shards, so they are only taken once per index and node rather than for every shard.
+         */
+        boolean canAllocateIndexToNode(IndexMetadata indexMetadata, ModelNode node) {
+            final String index = indexMetadata.getIndex().getName();
+            Boolean canAllocate = node.indexAllocationDecisions.get(index);
+            if (canAllocate == null) {
+                canAllocate = allocation.deciders().canAllocate(indexMetadata, node.getRoutingNode(), allocation).type() != Type.NO;
+                node.indexAllocationDecisions.put(index, canAllocate);
+            }
+            return canAllocate;
+        }
+
         /**
          * Returns a new {@link NodeSorter} that sorts the nodes based on their
          * current weight with respect to the index passed to the sorter. The
          * returned sorter is not sorted. Use {@link NodeSorter#reset(String)}
          * to sort based on an index.
          */
-        private NodeSorter newNodeSorter() {
+        NodeSorter newNodeSorter() {
             return new NodeSorter(nodesArray(), weight, this);
         }
 
@@ -450,7 +467,6 @@ public class BalancedShardsAllocator implements ShardsAllocator {
          * to {@code 0.0}
          */
         private void balanceByWeights() {
-            final AllocationDeciders deciders = allocation.deciders();
             final ModelNode[] modelNodes = sorter.modelNodes;
             final float[] weights = sorter.weights;
             for (String index : buildWeightOrderedIndices()) {
@@ -461,11 +477,9 @@ public class BalancedShardsAllocator implements ShardsAllocator {
                 int relevantNodes = 0;
                 for (int i = 0; i < modelNodes.length; i++) {
                     ModelNode modelNode = modelNodes[i];
-                    if (modelNode.getIndex(index) != null
-                        || deciders.canAllocate(indexMetadata, modelNode.getRoutingNode(), allocation).type() != Type.NO) {
+                    if (modelNode.getIndex(index) != null || canAllocateIndexToNode(indexMetadata, modelNode)) {
                         // swap nodes at position i and relevantNodes
-                        modelNodes[i] = modelNodes[relevantNodes];
-                        modelNodes[relevantNodes] = modelNode;
+                        sorter.swap(i, relevantNodes);
                         relevantNodes++;
                     }
                 }
@@ -523,13 +537,11 @@ public class BalancedShardsAllocator implements ShardsAllocator {
                                 maxNode.getNodeId(), minNode.getNodeId());
                         } else if (tryRelocateShard(minNode, maxNode, index)) {
                             /*
-                             * TODO we could be a bit smarter here, we don't need to fully sort necessarily
-                             * we could just find the place to insert linearly but the win might be minor
-                             * compared to the added complexity
+                             * only the weights of the two nodes changed, so rather than sorting all nodes again we move each of them
+                             * to its new place, which the other node does not overtake as it keeps its previous weight until then
                              */
-                            weights[lowIdx] = sorter.weight(modelNodes[lowIdx]);
-                            weights[highIdx] = sorter.weight(modelNodes[highIdx]);
-                            sorter.sort(0, relevantNodes);
+                            final int minNodeIdx = sorter.update(lowIdx, 0, relevantNodes);
+                            sorter.update(minNodeIdx >= highIdx ? highIdx - 1 : highIdx, 0, relevantNodes);
                             lowIdx = 0;
                             highIdx = relevantNodes - 1;
                             continue;
@@ -572,8 +584,7 @@ public class BalancedShardsAllocator implements ShardsAllocator {
             final String[] indices = allocation.routingTable().indicesRouting().keys().toArray(String.class);
             final float[] deltas = new float[indices.length];
             for (int i = 0; i < deltas.length; i++) {
-                sorter.reset(indices[i]);
-                deltas[i] = sorter.delta();
+                deltas[i] = weightDelta(indices[i]);
             }
             new IntroSorter() {
 
@@ -608,6 +619,21 @@ public class BalancedShardsAllocator implements ShardsAllocator {
             return indices;
         }
 
+        /**
+         * Returns the difference between the maximal and the minimal weight of the nodes with respect to the given index, which does not
+         * require sorting the nodes by weight.
+         */
+        private float weightDelta(String index) {
+            float minWeight = Float.POSITIVE_INFINITY;
+            float maxWeight = Float.NEGATIVE_INFINITY;
+            for (ModelNode node : nodes.values()) {
+                final float nodeWeight = weight.weight(this, node, index);
+                minWeight = Math.min(minWeight, nodeWeight);
+                maxWeight = Math.max(maxWeight, nodeWeight);
+            }
+            return maxWeight - minWeight;
+        }
+
         /**
          * Move started shards that can not be allocated to a node anymore
          *
@@ -680,8 +706,9 @@ public class BalancedShardsAllocator implements ShardsAllocator {
             RoutingNode targetNode = null;
             final List<NodeAllocationResult> nodeExplanationMap = explain ? new ArrayList<>() : null;
             int weightRanking = 0;
+            final IndexMetadata indexMetadata = metadata.getIndexSafe(shardRouting.index());
             for (ModelNode currentNode : sorter.modelNodes) {
-                if (currentNode != sourceNode) {
+                if (currentNode != sourceNode && (explain || canAllocateIndexToNode(indexMetadata, currentNode))) {
                     RoutingNode target = currentNode.getRoutingNode();
                     // don't use canRebalance as we want hard filtering rules to apply. See #17698
                     Decision allocationDecision = allocation.deciders().canAllocate(shardRouting, target, allocation);
@@ -784,10 +811,18 @@ public class BalancedShardsAllocator implements ShardsAllocator {
             int secondaryLength = 0;
             int primaryLength = primary.length;
             ArrayUtil.timSort(primary, comparator);
+            /*
+             * The shards of an index are next to each other in the arrays, so we keep the nodes sorted by weight for the index of the
+             * current shard. Allocating a shard only changes the weight of a single node, which we then move to its new place.
+             */
+            final NodeSorter nodesByWeight = newNodeSorter();
             do {
                 for (int i = 0; i < primaryLength; i++) {
                     ShardRouting shard = primary[i];
-                    final AllocateUnassignedDecision allocationDecision = decideAllocateUnassigned(shard);
+                    if (shard.getIndexName().equals(nodesByWeight.index) == false) {
+                        nodesByWeight.reset(shard.getIndexName());
+                    }
+                    final AllocateUnassignedDecision allocationDecision = decideAllocateUnassigned(shard, nodesByWeight);
                     final String assignedNodeId = allocationDecision.getTargetNode() != null ?
                                                       allocationDecision.getTargetNode().getId() : null;
                     final ModelNode minNode = assignedNodeId != null ? nodes.get(assignedNodeId) : null;
@@ -802,6 +837,7 @@ public class BalancedShardsAllocator implements ShardsAllocator {
                             allocation.clusterInfo(), allocation.snapshotShardSizeInfo(), allocation.metadata(), allocation.routingTable());
                         shard = routingNodes.initializeShard(shard, minNode.getNodeId(), null, shardSize, allocation.changes());
                         minNode.addShard(shard);
+                        nodesByWeight.update(minNode);
                         if (shard.primary() == false) {
                             // copy over the same replica shards to the secondary array so they will get allocated
                             // in a subsequent iteration, allowing replicas of other shards to be allocated first
@@ -824,6 +860,7 @@ public class BalancedShardsAllocator implements ShardsAllocator {
                                 allocation.clusterInfo(), allocation.snapshotShardSizeInfo(), allocation.metadata(),
                                 allocation.routingTable());
                             minNode.addShard(shard.initialize(minNode.getNodeId(), null, shardSize));
+                            nodesByWeight.update(minNode);
                         } else {
                             if (logger.isTraceEnabled()) {
                                 logger.trace("No Node found to assign shard [{}]", shard);
@@ -855,6 +892,17 @@ public class BalancedShardsAllocator implements ShardsAllocator {
          * is of type {@link Type#NO}, then the assigned node will be null.
          */
         private AllocateUnassignedDecision decideAllocateUnassigned(final ShardRouting shard) {
+            return decideAllocateUnassigned(shard, null);
+        }
+
+        /**
+         * Make a decision for allocating an unassigned shard, like {@link #decideAllocateUnassigned(ShardRouting)}. If the nodes sorted by
+         * their weight for the index of the shard are given then they are visited in that order, which allows to stop at the first node
+         * that is heavier than a node the shard can be allocated to rather than visiting all nodes. Nodes of the same weight are sorted in
+         * the order in which they are visited otherwise, so the decision is the same either way.
+         */
+        AllocateUnassignedDecision decideAllocateUnassigned(final ShardRouting shard, @Nullable NodeSorter nodesByWeight) {
+            assert nodesByWeight == null || shard.getIndexName().equals(nodesByWeight.index);
             if (shard.assignedToNode()) {
                 // we only make decisions for unassigned shards here
                 return AllocateUnassignedDecision.NOT_TAKEN;
@@ -875,16 +923,32 @@ public class BalancedShardsAllocator implements ShardsAllocator {
              * iteration order is different for each run and makes testing hard */
             Map<String, NodeAllocationResult> nodeExplanationMap = explain ? new HashMap<>() : null;
             List<Tuple<String, Float>> nodeWeights = explain ? new ArrayList<>() : null;
-            for (ModelNode node : nodes.values()) {
+            final IndexMetadata indexMetadata = metadata.getIndexSafe(shard.index());
+            final ModelNode[] modelNodes = nodesByWeight == null ? nodesArray() : nodesByWeight.modelNodes;
+            for (int i = 0; i < modelNodes.length; i++) {
+                final ModelNode node = modelNodes[i];
                 if (node.containsShard(shard) && explain == false) {
                     // decision is NO without needing to check anything further, so short circuit
                     continue;
                 }
 
                 // weight of this index currently on the node
-                float currentWeight = weight.weight(this, node, shard.getIndexName());
+                float currentWeight = nodesByWeight == null ? weight.weight(this, node, shard.getIndexName()) : nodesByWeight.weights[i];
                 // moving the shard would not improve the balance, and we are not in explain mode, so short circuit
                 if (currentWeight > minWeight && explain == false) {
+                    if (nodesByWeight != null) {
+                        // neither would moving it to any of the remaining nodes, which are at least as heavy as this one
+                        break;
+                    }
+                    continue;
+                }
+                if (currentWeight == minWeight && explain == false && decision.type() == Type.YES
+                    && isPreferredOnEqualWeight(shard, node, minNode) == false) {
+                    // only a YES decision on a node that the tie breaking below prefers could replace the current node
+                    continue;
+                }
+                if (explain == false && canAllocateIndexToNode(indexMetadata, node) == false) {
+                    // decision is NO for all shards of this index, so short circuit
                     continue;
                 }
 
@@ -899,23 +963,11 @@ public class BalancedShardsAllocator implements ShardsAllocator {
                     if (currentWeight == minWeight) {
                         /*  we have an equal weight tie breaking:
                          *  1. if one decision is YES prefer it
-                         *  2. prefer the node that holds the primary for this index with the next id in the ring ie.
-                         *  for the 3 shards 2 replica case we try to build up:
-                         *    1 2 0
-                         *    2 0 1
-                         *    0 1 2
-                         *  such that if we need to tie-break we try to prefer the node holding a shard with the minimal id greater
-                         *  than the id of the shard we need to assign. This works find when new indices are created since
-                         *  primaries are added first and we only add one shard set a time in this algorithm.
+                         *  2. prefer the node that holds the primary for this index with the next id in the ring, see
+                         *     isPreferredOnEqualWeight
                          */
                         if (currentDecision.type() == decision.type()) {
-                            final int repId = shard.id();
-                            final int nodeHigh = node.highestPrimary(shard.index().getName());
-                            final int minNodeHigh = minNode.highestPrimary(shard.getIndexName());
-                            updateMinNode = ((((nodeHigh > repId && minNodeHigh > repId)
-                                                   || (nodeHigh < repId && minNodeHigh < repId))
-                                                  && (nodeHigh < minNodeHigh))
-                                                 || (nodeHigh > repId && minNodeHigh < repId));
+                            updateMinNode = isPreferredOnEqualWeight(shard, node, minNode);
                         } else {
                             updateMinNode = currentDecision.type() == Type.YES;
                         }
@@ -951,6 +1003,27 @@ public class BalancedShardsAllocator implements ShardsAllocator {
             );
         }
 
+        /**
+         * Returns whether to allocate the given shard to the given node rather than to the given minimal node of the same weight, if both
+         * nodes have the same decision. We prefer the node that holds the primary for this index with the next id in the ring ie. for the
+         * 3 shards 2 replica case we try to build up:
+         *   1 2 0
+         *   2 0 1
+         *   0 1 2
+         * such that if we need to tie-break we try to prefer the node holding a shard with the minimal id greater than the id of the shard
+         * we need to assign. This works find when new indices are created since primaries are added first and we only add one shard set a
+         * time in this algorithm.
+         */
+        private static boolean isPreferredOnEqualWeight(ShardRouting shard, ModelNode node, ModelNode minNode) {
+            final int repId = shard.id();
+            final int nodeHigh = node.highestPrimary(shard.index().getName());
+            final int minNodeHigh = minNode.highestPrimary(shard.getIndexName());
+            return ((((nodeHigh > repId && minNodeHigh > repId)
+                          || (nodeHigh < repId && minNodeHigh < repId))
+                         && (nodeHigh < minNodeHigh))
+                        || (nodeHigh > repId && minNodeHigh < repId));
+        }
+
         private static final Comparator<ShardRouting> BY_DESCENDING_SHARD_ID = Comparator.comparing(ShardRouting::shardId).reversed();
 
         /**
@@ -1006,6 +1079,8 @@ public class BalancedShardsAllocator implements ShardsAllocator {
 
     static class ModelNode implements Iterable<ModelIndex> {
         private final Map<String, ModelIndex> indices = new HashMap<>();
+        /* per index, whether the deciders allow shards of the index on this node at all, see Balancer#canAllocateIndexToNode */
+        private final Map<String, Boolean> indexAllocationDecisions = new HashMap<>();
         private int numShards = 0;
         private final RoutingNode routingNode;
 
@@ -1134,21 +1209,32 @@ public class BalancedShardsAllocator implements ShardsAllocator {
         }
     }
 
+    /**
+     * Sorts nodes by their weight with respect to an index. Nodes of the same weight are sorted in the order in which they were given,
+     * which makes the order of the nodes independent of their order before sorting.
+     */
     static final class NodeSorter extends IntroSorter {
 
         final ModelNode[] modelNodes;
         /* the nodes weights with respect to the current weight function / index */
         final float[] weights;
+        /* the positions of the nodes in the order in which they were given */
+        private final int[] ordinals;
         private final WeightFunction function;
         private String index;
         private final Balancer balancer;
         private float pivotWeight;
+        private int pivotOrdinal;
 
         NodeSorter(ModelNode[] modelNodes, WeightFunction function, Balancer balancer) {
             this.function = function;
             this.balancer = balancer;
             this.modelNodes = modelNodes;
             weights = new float[modelNodes.length];
+            ordinals = new int[modelNodes.length];
+            for (int i = 0; i < ordinals.length; i++) {
+                ordinals[i] = i;
+            }
         }
 
         /**
@@ -1171,6 +1257,41 @@ public class BalancedShardsAllocator implements ShardsAllocator {
             return function.weight(balancer, node, index);
         }
 
+        /**
+         * Recalculates the weight of the node at the given position, whose shards changed, and moves the node to its place among the
+         * nodes in the given range. The other nodes in the range must be sorted. This is cheaper than sorting all nodes again when the
+         * weight of a single node changed.
+         *
+         * @return the new position of the node
+         */
+        public int update(int i, int from, int to) {
+            assert from <= i && i < to;
+            weights[i] = weight(modelNodes[i]);
+            while (i > from && compare(i - 1, i) > 0) {
+                swap(i - 1, i);
+                i--;
+            }
+            while (i < to - 1 && compare(i, i + 1) > 0) {
+                swap(i, i + 1);
+                i++;
+            }
+            return i;
+        }
+
+        /**
+         * Recalculates the weight of the given node, whose shards changed, and moves the node to its place among all nodes, which must
+         * have been sorted before.
+         */
+        public void update(ModelNode node) {
+            for (int i = 0; i < modelNodes.length; i++) {
+                if (modelNodes[i] == node) {
+                    update(i, 0, modelNodes.length);
+                    return;
+                }
+            }
+            assert false : "unknown node " + node;
+        }
+
         @Override
         protected void swap(int i, int j) {
             final ModelNode tmpNode = modelNodes[i];
@@ -1179,25 +1300,35 @@ public class BalancedShardsAllocator implements ShardsAllocator {
             final float tmpWeight = weights[i];
             weights[i] = weights[j];
             weights[j] = tmpWeight;
+            final int tmpOrdinal = ordinals[i];
+            ordinals[i] = ordinals[j];
+            ordinals[j] = tmpOrdinal;
         }
 
         @Override
         protected int compare(int i, int j) {
-            return Float.compare(weights[i], weights[j]);
+            return compare(weights[i], ordinals[i], weights[j], ordinals[j]);
         }
 
         @Override
         protected void setPivot(int i) {
             pivotWeight = weights[i];
+            pivotOrdinal = ordinals[i];
         }
 
         @Override
         protected int comparePivot(int j) {
-            return Float.compare(pivotWeight, weights[j]);
+            return compare(pivotWeight, pivotOrdinal, weights[j], ordinals[j]);
         }
 
-        public float delta() {
-            return weights[weights.length - 1] - weights[0];
+        private static int compare(float weight1, int ordinal1, float weight2, int ordinal2) {
+            // compare weights like the balancer does, which does not distinguish positive and negative zero unlike Float#compare
+            if (weight1 < weight2) {
+                return -1;
+            } else if (weight1 > weight2) {
+                return 1;
+            }
+            return Integer.compare(ordinal1, ordinal2);
         }
     }
 }
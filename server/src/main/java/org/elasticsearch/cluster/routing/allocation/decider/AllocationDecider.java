@@ -56,7 +56,9 @@ public abstract class AllocationDecider {
 
     /**
      * Returns a {@link Decision} whether the given shard routing can be allocated at all at this state of the
-     * {@link RoutingAllocation}. The default is {@link Decision#ALWAYS}.
+     * {@link RoutingAllocation}. The default is {@link Decision#ALWAYS}. A {@link Decision#NO} must imply that no shard of the index
+     * can be allocated to the node, and the decision must not depend on the shards that are allocated to the node since the balancer
+     * only takes it once per index and node while it allocates shards.
      */
     public Decision canAllocate(IndexMetadata indexMetadata, RoutingNode node, RoutingAllocation allocation) {
         return Decision.ALWAYS;
@@ -56,6 +56,16 @@ public class PreallocatedCircuitBreakerService extends CircuitBreakerService imp
         throw new UnsupportedOperationException();
     }
 
+    /**
+     * Makes the accounting of the preallocated breaker safe for allocations
+     * from several threads at the same time, which is needed once the
+     * aggregators of a shard collect its segments concurrently. This must be
+     * called before the breaker is shared with the other threads.
+     */
+    public void enableConcurrentAccounting() {
+        preallocated.concurrent = true;
+    }
+
     @Override
     public void close() {
         preallocated.close();
@@ -86,12 +96,22 @@ public class PreallocatedCircuitBreakerService extends CircuitBreakerService imp
      * {@link PreallocedCircuitBreaker#close()} is only used to de-allocate
      * bytes from the underlying breaker if we're still in the "used fewer bytes"
      * state. There is nothing to de-allocate if we are in the "used all" state.
+     * <p>
+     * The accounting is only synchronized once
+     * {@link PreallocatedCircuitBreakerService#enableConcurrentAccounting()}
+     * was called because the aggregators of a shard allocate from several
+     * threads when its segments are searched concurrently.
      */
     private static class PreallocedCircuitBreaker implements CircuitBreaker, Releasable {
         private final CircuitBreaker next;
         private final long preallocated;
         private long preallocationUsed;
         private boolean closed;
+        /*
+         * Not volatile since it is set before the breaker is handed to the
+         * threads that collect concurrently, and it is never reset.
+         */
+        private boolean concurrent;
 
         PreallocedCircuitBreaker(CircuitBreaker next, long preallocated) {
             this.next = next;
@@ -105,6 +125,16 @@ public class PreallocatedCircuitBreakerService extends CircuitBreakerService imp
 
         @Override
         public void addEstimateBytesAndMaybeBreak(long bytes, String label) throws CircuitBreakingException {
+            if (concurrent) {
+                synchronized (this) {
+                    doAddEstimateBytesAndMaybeBreak(bytes, label);
+                }
+            } else {
+                doAddEstimateBytesAndMaybeBreak(bytes, label);
+            }
+        }
+
+        private void doAddEstimateBytesAndMaybeBreak(long bytes, String label) throws CircuitBreakingException {
             if (closed) {
                 throw new IllegalStateException("already closed");
             }
@@ -126,6 +156,16 @@ public class PreallocatedCircuitBreakerService extends CircuitBreakerService imp
 
         @Override
         public void addWithoutBreaking(long bytes) {
+            if (concurrent) {
+                synchronized (this) {
+                    doAddWithoutBreaking(bytes);
+                }
+            } else {
+                doAddWithoutBreaking(bytes);
+            }
+        }
+
+        private void doAddWithoutBreaking(long bytes) {
             if (closed) {
                 throw new IllegalStateException("already closed");
             }
@@ -152,6 +192,16 @@ public class PreallocatedCircuitBreakerService extends CircuitBreakerService imp
 
         @Override
         public void close() {
+            if (concurrent) {
+                synchronized (this) {
+                    doClose();
+                }
+            } else {
+                doClose();
+            }
+        }
+
+        private void doClose() {
             if (closed) {
                 return;
             }
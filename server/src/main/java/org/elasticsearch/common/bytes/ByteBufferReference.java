@@ -0,0 +1,84 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.common.bytes;
+
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.io.stream.ByteBufferStreamInput;
+import org.elasticsearch.common.io.stream.StreamInput;
+
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+/**
+ * A {@link BytesReference} over the remaining bytes of a {@link ByteBuffer}. Unlike {@link BytesReference#fromByteBuffer} the buffer
+ * does not need to be backed by an array, so this can be used to expose direct memory. Reading through {@link #streamInput()} does
+ * not copy the bytes onto the heap, whereas {@link #toBytesRef()} and {@link #iterator()} do for direct buffers.
+ */
+public final class ByteBufferReference extends AbstractBytesReference {
+
+    private final ByteBuffer buffer;
+
+    /**
+     * Creates a reference to the bytes between the current position and the limit of the given buffer. Subsequent changes to the
+     * position or limit of the buffer do not affect this reference, but changes to its content do.
+     */
+    public ByteBufferReference(ByteBuffer buffer) {
+        this.buffer = buffer.slice();
+    }
+
+    @Override
+    public byte get(int index) {
+        return buffer.get(index);
+    }
+
+    @Override
+    public int getInt(int index) {
+        return buffer.getInt(index);
+    }
+
+    @Override
+    public int length() {
+        return buffer.limit();
+    }
+
+    @Override
+    public BytesReference slice(int from, int length) {
+        if (from == 0 && length() == length) {
+            return this;
+        }
+        Objects.checkFromIndexSize(from, length, length());
+        final ByteBuffer slice = buffer.duplicate();
+        slice.position(from);
+        slice.limit(from + length);
+        return new ByteBufferReference(slice);
+    }
+
+    @Override
+    public BytesRef toBytesRef() {
+        if (buffer.hasArray()) {
+            return new BytesRef(buffer.array(), buffer.arrayOffset(), length());
+        }
+        final byte[] bytes = new byte[length()];
+        buffer.duplicate().get(bytes);
+        return new BytesRef(bytes);
+    }
+
+    @Override
+    public long ramBytesUsed() {
+        return buffer.capacity();
+    }
+
+    @Override
+    public StreamInput streamInput() {
+        final ByteBuffer input = buffer.duplicate();
+        // so that resetting the stream without marking it first goes back to the start
+        input.mark();
+        return new ByteBufferStreamInput(input);
+    }
+}
@@ -18,6 +18,8 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantLock;
@@ -42,14 +44,11 @@ import java.util.function.ToLongBiFunction;
  * if they are reading a segment that a writer is writing to).
  * <p>
  * The LRU functionality is backed by a single doubly-linked list chaining the entries in order of insertion. This
- * LRU list is protected by a lock that serializes all writes to it. There are opportunities for improvements
- * here if write throughput is a concern.
- * <ol>
- * <li>LRU list mutations could be inserted into a blocking queue that a single thread is reading from
- * and applying to the LRU list.</li>
- * <li>Promotions could be deferred for entries that were "recently" promoted.</li>
- * <li>Locks on the list could be taken per node being modified instead of globally.</li>
- * </ol>
+ * LRU list is protected by a lock that serializes all writes to it. With the default {@link EvictionPolicy#LRU} policy
+ * every hit promotes its entry under this lock, so heavily read caches serialize their readers on it. The
+ * {@link EvictionPolicy#BUFFERED_LRU} policy instead records hits in striped, lossy buffers that are replayed against
+ * the LRU list in batches by whichever thread next holds the lock; reads then only contend on the LRU lock once per
+ * batch, at the cost of the LRU order being approximate.
  * <p>
  * Evictions only occur after a mutation to the cache (meaning an entry promotion, a cache insertion, or a manual
  * invalidation) or an explicit call to {@link #refresh()}.
@@ -87,6 +86,9 @@ public class Cache<K, V> {
     private RemovalListener<K, V> removalListener = notification -> {
     };
 
+    // the striped buffers recording hits, null if hits promote their entries immediately
+    private ReadBuffer<K, V>[] readBuffers;
+
     // use CacheBuilder to construct
     Cache() {
     }
@@ -134,6 +136,47 @@ public class Cache<K, V> {
         this.removalListener = removalListener;
     }
 
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    void setEvictionPolicy(EvictionPolicy evictionPolicy) {
+        Objects.requireNonNull(evictionPolicy);
+        switch (evictionPolicy) {
+            case LRU:
+                this.readBuffers = null;
+                break;
+            case BUFFERED_LRU:
+                // a power of two so that a thread can be mapped to its stripe with a mask
+                final int stripes = Integer.highestOneBit(Math.min(Runtime.getRuntime().availableProcessors() * 4, 256) - 1) << 1;
+                final ReadBuffer<K, V>[] buffers = new ReadBuffer[stripes];
+                for (int i = 0; i < buffers.length; i++) {
+                    buffers[i] = new ReadBuffer<>();
+                }
+                this.readBuffers = buffers;
+                break;
+            default:
+                throw new IllegalArgumentException("unknown eviction policy [" + evictionPolicy + "]");
+        }
+    }
+
+    // pkg-private for testing
+    EvictionPolicy getEvictionPolicy() {
+        return readBuffers == null ? EvictionPolicy.LRU : EvictionPolicy.BUFFERED_LRU;
+    }
+
+    /**
+     * The policy used to maintain the LRU list that drives size-based and time-based evictions.
+     */
+    public enum EvictionPolicy {
+        /**
+         * Every hit moves its entry to the head of the LRU list, under the lock protecting the list.
+         */
+        LRU,
+        /**
+         * Hits are recorded in striped buffers that are drained into the LRU list in batches, without blocking readers on the
+         * lock protecting the list. Hits may be dropped if a buffer is full, so the eviction order only approximates LRU.
+         */
+        BUFFERED_LRU
+    }
+
     /**
      * The relative time used to track time-based evictions.
      *
@@ -150,6 +193,70 @@ public class Cache<K, V> {
         NEW, EXISTING, DELETED
     }
 
+    /**
+     * A bounded, lossy buffer of entries that were hit since the LRU list was last updated.
+     * <p>
+     * Readers claim a slot by incrementing the write counter and publish the entry into it without taking any lock. When the
+     * buffer is full the hit is dropped rather than blocking the reader. The buffer is only drained by a thread holding the LRU
+     * lock, which is why the read counter needs no atomic updates.
+     *
+     * @param <K> the type of the keys
+     * @param <V> the type of the values
+     */
+    private static final class ReadBuffer<K, V> {
+        static final int SIZE = 32;
+        static final int MASK = SIZE - 1;
+        // the number of pending entries above which a reader attempts to drain the buffers
+        static final int DRAIN_THRESHOLD = SIZE / 2;
+
+        final AtomicReferenceArray<Entry<K, V>> buffer = new AtomicReferenceArray<>(SIZE);
+        final AtomicLong writeCounter = new AtomicLong();
+        volatile long readCounter;
+
+        /**
+         * record a hit on an entry
+         *
+         * @param entry the entry that was hit
+         * @return the number of entries pending in the buffer, or -1 if the buffer was full and the hit was dropped
+         */
+        int offer(Entry<K, V> entry) {
+            final long head = readCounter;
+            final long tail = writeCounter.get();
+            final int size = (int) (tail - head);
+            if (size >= SIZE) {
+                return -1;
+            }
+            if (writeCounter.compareAndSet(tail, tail + 1)) {
+                buffer.lazySet((int) (tail & MASK), entry);
+                return size + 1;
+            }
+            // lost the race for this slot to another reader, dropping a hit is fine
+            return size;
+        }
+
+        /**
+         * drain the published entries of the buffer; must be called with the LRU lock held
+         *
+         * @param consumer the consumer of the drained entries, in the order in which they were recorded
+         */
+        void drain(Consumer<Entry<K, V>> consumer) {
+            long head = readCounter;
+            final long tail = writeCounter.get();
+            while (head < tail) {
+                final int index = (int) (head & MASK);
+                final Entry<K, V> entry = buffer.get(index);
+                if (entry == null) {
+                    // the slot was claimed but the entry is not yet published, we will pick it up on the next drain
+                    break;
+                }
+                buffer.lazySet(index, null);
+                consumer.accept(entry);
+                head++;
+            }
+            readCounter = head;
+        }
+    }
+
     static class Entry<K, V> {
         final K key;
         final V value;
@@ -357,11 +464,32 @@ public class Cache<K, V> {
         if (entry == null) {
             return null;
         } else {
-            promote(entry, now);
+            if (readBuffers == null) {
+                promote(entry, now);
+            } else {
+                recordHit(entry, now);
+            }
             return entry.value;
         }
     }
 
+    private void recordHit(Entry<K, V> entry, long now) {
+        final ReadBuffer<K, V> readBuffer = readBuffers[(int) Thread.currentThread().getId() & (readBuffers.length - 1)];
+        final int pending = readBuffer.offer(entry);
+        if (pending == -1 || pending >= ReadBuffer.DRAIN_THRESHOLD) {
+            // if another thread holds the lock it will drain the buffers itself on its next promotion
+            final ReleasableLock lock = lruLock.tryAcquire();
+            if (lock != null) {
+                try {
+                    drainReadBuffers();
+                    evict(now);
+                } finally {
+                    lock.close();
+                }
+            }
+        }
+    }
+
     /**
      * If the specified key is not already associated with a value (or is mapped to null), attempts to compute its
      * value using the given mapping function and enters it into this map unless null. The load method for a given key
@@ -542,6 +670,8 @@ public class Cache<K, V> {
                 head = tail = null;
                 count = 0;
                 weight = 0;
+                // drop the pending hits, they all refer to deleted entries now
+                drainReadBuffers();
             }
         } finally {
             for (int i = NUMBER_OF_SEGMENTS - 1; i >= 0; i--) {
@@ -562,6 +692,7 @@ public class Cache<K, V> {
     public void refresh() {
         long now = now();
         try (ReleasableLock ignored = lruLock.acquire()) {
+            drainReadBuffers();
             evict(now);
         }
     }
@@ -745,6 +876,7 @@ public class Cache<K, V> {
     private boolean promote(Entry<K, V> entry, long now) {
         boolean promoted = true;
         try (ReleasableLock ignored = lruLock.acquire()) {
+            drainReadBuffers();
             switch (entry.state) {
                 case DELETED:
                     promoted = false;
@@ -763,6 +895,21 @@ public class Cache<K, V> {
         return promoted;
     }
 
+    private void drainReadBuffers() {
+        assert lruLock.isHeldByCurrentThread();
+
+        if (readBuffers != null) {
+            for (ReadBuffer<K, V> readBuffer : readBuffers) {
+                // only entries that are still linked are moved; new entries are linked by the thread that inserted them
+                readBuffer.drain(entry -> {
+                    if (entry.state == State.EXISTING) {
+                        relinkAtHead(entry);
+                    }
+                });
+            }
+        }
+    }
+
     private void evict(long now) {
         assert lruLock.isHeldByCurrentThread();
 
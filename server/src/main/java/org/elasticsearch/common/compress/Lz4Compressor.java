@@ -0,0 +1,341 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.common.compress;
+
+import org.apache.lucene.store.ByteArrayDataInput;
+import org.apache.lucene.store.ByteArrayDataOutput;
+import org.apache.lucene.util.compress.LZ4;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * {@link Compressor} implementation based on the LZ4 compression algorithm, which trades some compression ratio for a much lower
+ * CPU cost than {@link DeflateCompressor}. The compressed stream starts with a header that identifies it, followed by independent
+ * blocks of at most {@link #BLOCK_SIZE} uncompressed bytes. Each block starts with its uncompressed and compressed lengths as two big
+ * endian ints, followed by the compressed bytes. The stream ends with a block whose uncompressed length is {@code 0}, which has no
+ * other fields.
+ */
+public class Lz4Compressor implements Compressor {
+
+    // An arbitrary header that we use to identify compressed streams, see DeflateCompressor#HEADER
+    private static final byte[] HEADER = new byte[]{'L', 'Z', '4', '\0'};
+    // Blocks fit into a recycled page, which allows for decompressing transport messages straight into pages
+    public static final int BLOCK_SIZE = 16 * 1024;
+    // The number of bytes that precede the compressed bytes of a block
+    public static final int BLOCK_HEADER_LENGTH = 2 * Integer.BYTES;
+
+    @Override
+    public boolean isCompressed(BytesReference bytes) {
+        if (bytes.length() < HEADER.length) {
+            return false;
+        }
+        for (int i = 0; i < HEADER.length; ++i) {
+            if (bytes.get(i) != HEADER[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int headerLength() {
+        return HEADER.length;
+    }
+
+    /**
+     * The maximum number of bytes that the given number of bytes compresses to, as LZ4 expands incompressible data slightly.
+     */
+    public static int maxCompressedLength(int length) {
+        return length + length / 255 + 16;
+    }
+
+    /**
+     * Decompresses a block of the given lengths from {@code src} into {@code dest} and returns the uncompressed length.
+     */
+    public static int decompressBlock(byte[] src, int offset, int compressedLength, int uncompressedLength, byte[] dest)
+        throws IOException {
+        final ByteArrayDataInput in = new ByteArrayDataInput(src, offset, compressedLength);
+        final int decompressed;
+        try {
+            decompressed = LZ4.decompress(in, uncompressedLength, dest, 0);
+        } catch (IndexOutOfBoundsException e) {
+            throw new IOException("corrupted LZ4 block", e);
+        }
+        if (decompressed != uncompressedLength || in.getPosition() != offset + compressedLength) {
+            throw new IOException("corrupted LZ4 block, expected [" + uncompressedLength + "/" + compressedLength
+                + "] uncompressed/compressed bytes but got [" + decompressed + "/" + (in.getPosition() - offset) + "]");
+        }
+        return decompressed;
+    }
+
+    /**
+     * Reads the length of a block header at the given offset, see {@link #BLOCK_HEADER_LENGTH}.
+     */
+    public static int readBlockLength(byte[] bytes, int offset) {
+        return ((bytes[offset] & 0xFF) << 24) | ((bytes[offset + 1] & 0xFF) << 16) | ((bytes[offset + 2] & 0xFF) << 8)
+            | (bytes[offset + 3] & 0xFF);
+    }
+
+    private static void writeBlockLength(byte[] bytes, int offset, int length) {
+        bytes[offset] = (byte) (length >>> 24);
+        bytes[offset + 1] = (byte) (length >>> 16);
+        bytes[offset + 2] = (byte) (length >>> 8);
+        bytes[offset + 3] = (byte) length;
+    }
+
+    /**
+     * Validates the lengths of a block that was read from a block header.
+     */
+    public static void validateBlockLengths(int uncompressedLength, int compressedLength) throws IOException {
+        if (uncompressedLength <= 0 || uncompressedLength > BLOCK_SIZE
+            || compressedLength <= 0 || compressedLength > maxCompressedLength(uncompressedLength)) {
+            throw new IOException("corrupted LZ4 block header, got [" + uncompressedLength + "/" + compressedLength
+                + "] uncompressed/compressed bytes");
+        }
+    }
+
+    // The buffers of a compressing or decompressing stream, which we reuse per thread to not allocate them for every stream
+    private static final class Buffers {
+        final byte[] uncompressed = new byte[BLOCK_SIZE];
+        final byte[] compressed = new byte[BLOCK_HEADER_LENGTH + maxCompressedLength(BLOCK_SIZE)];
+        final LZ4.FastCompressionHashTable hashTable = new LZ4.FastCompressionHashTable();
+        // true if these buffers are used by a stream and are not available for re-use
+        boolean inUse;
+    }
+
+    private static final ThreadLocal<Buffers> buffersRef = ThreadLocal.withInitial(Buffers::new);
+
+    private static Buffers acquireBuffers() {
+        final Buffers current = buffersRef.get();
+        if (current.inUse) {
+            // Nested streams should not happen but we still handle them safely by using fresh buffers
+            return new Buffers();
+        }
+        current.inUse = true;
+        return current;
+    }
+
+    @Override
+    public InputStream threadLocalInputStream(InputStream in) throws IOException {
+        final byte[] headerBytes = new byte[HEADER.length];
+        int len = 0;
+        while (len < headerBytes.length) {
+            final int read = in.read(headerBytes, len, headerBytes.length - len);
+            if (read == -1) {
+                break;
+            }
+            len += read;
+        }
+        if (len != HEADER.length || Arrays.equals(headerBytes, HEADER) == false) {
+            throw new IllegalArgumentException("Input stream is not compressed with LZ4!");
+        }
+        return new Lz4InputStream(in, acquireBuffers());
+    }
+
+    @Override
+    public OutputStream threadLocalOutputStream(OutputStream out) throws IOException {
+        out.write(HEADER);
+        return new Lz4OutputStream(out, acquireBuffers());
+    }
+
+    @Override
+    public BytesReference uncompress(BytesReference bytesReference) throws IOException {
+        try (BytesStreamOutput buffer = new BytesStreamOutput(); InputStream in = threadLocalInputStream(bytesReference.streamInput())) {
+            final byte[] bytes = new byte[BLOCK_SIZE];
+            int read;
+            while ((read = in.read(bytes)) != -1) {
+                buffer.write(bytes, 0, read);
+            }
+            return buffer.copyBytes();
+        }
+    }
+
+    @Override
+    public BytesReference compress(BytesReference bytesReference) throws IOException {
+        try (BytesStreamOutput buffer = new BytesStreamOutput()) {
+            try (OutputStream out = threadLocalOutputStream(buffer)) {
+                bytesReference.writeTo(out);
+            }
+            return buffer.copyBytes();
+        }
+    }
+
+    private static final class Lz4OutputStream extends OutputStream {
+
+        private final OutputStream out;
+        private final Buffers buffers;
+        private final ByteArrayDataOutput compressedOutput = new ByteArrayDataOutput();
+        private int position;
+        private boolean closed;
+
+        Lz4OutputStream(OutputStream out, Buffers buffers) {
+            this.out = out;
+            this.buffers = buffers;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            ensureOpen();
+            if (position == BLOCK_SIZE) {
+                writeBlock();
+            }
+            buffers.uncompressed[position++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            ensureOpen();
+            while (len > 0) {
+                if (position == BLOCK_SIZE) {
+                    writeBlock();
+                }
+                final int toCopy = Math.min(len, BLOCK_SIZE - position);
+                System.arraycopy(b, off, buffers.uncompressed, position, toCopy);
+                position += toCopy;
+                off += toCopy;
+                len -= toCopy;
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            ensureOpen();
+            writeBlock();
+            out.flush();
+        }
+
+        private void writeBlock() throws IOException {
+            if (position == 0) {
+                return;
+            }
+            final byte[] compressed = buffers.compressed;
+            compressedOutput.reset(compressed, BLOCK_HEADER_LENGTH, compressed.length - BLOCK_HEADER_LENGTH);
+            LZ4.compress(buffers.uncompressed, 0, position, compressedOutput, buffers.hashTable);
+            final int compressedLength = compressedOutput.getPosition() - BLOCK_HEADER_LENGTH;
+            writeBlockLength(compressed, 0, position);
+            writeBlockLength(compressed, Integer.BYTES, compressedLength);
+            out.write(compressed, 0, BLOCK_HEADER_LENGTH + compressedLength);
+            position = 0;
+        }
+
+        private void ensureOpen() throws IOException {
+            if (closed) {
+                throw new IOException("stream is already closed");
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed == false) {
+                closed = true;
+                try (out) {
+                    writeBlock();
+                    writeBlockLength(buffers.compressed, 0, 0);
+                    out.write(buffers.compressed, 0, Integer.BYTES);
+                } finally {
+                    buffers.inUse = false;
+                }
+            }
+        }
+    }
+
+    private static final class Lz4InputStream extends InputStream {
+
+        private final InputStream in;
+        private final Buffers buffers;
+        private int position;
+        private int limit;
+        private boolean eos;
+        private boolean closed;
+
+        Lz4InputStream(InputStream in, Buffers buffers) {
+            this.in = in;
+            this.buffers = buffers;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (position == limit && readBlock() == false) {
+                return -1;
+            }
+            return buffers.uncompressed[position++] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (position == limit && readBlock() == false) {
+                return -1;
+            }
+            final int toCopy = Math.min(len, limit - position);
+            System.arraycopy(buffers.uncompressed, position, b, off, toCopy);
+            position += toCopy;
+            return toCopy;
+        }
+
+        @Override
+        public int available() {
+            return limit - position;
+        }
+
+        private boolean readBlock() throws IOException {
+            if (closed) {
+                throw new IOException("stream is already closed");
+            }
+            if (eos) {
+                return false;
+            }
+            final byte[] compressed = buffers.compressed;
+            readFully(compressed, 0, Integer.BYTES);
+            final int uncompressedLength = readBlockLength(compressed, 0);
+            if (uncompressedLength == 0) {
+                eos = true;
+                return false;
+            }
+            readFully(compressed, Integer.BYTES, Integer.BYTES);
+            final int compressedLength = readBlockLength(compressed, Integer.BYTES);
+            validateBlockLengths(uncompressedLength, compressedLength);
+            readFully(compressed, 0, compressedLength);
+            limit = decompressBlock(compressed, 0, compressedLength, uncompressedLength, buffers.uncompressed);
+            position = 0;
+            return true;
+        }
+
+        private void readFully(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                final int read = in.read(b, off, len);
+                if (read == -1) {
+                    throw new EOFException("unexpected end of LZ4 stream");
+                }
+                off += read;
+                len -= read;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed == false) {
+                closed = true;
+                try {
+                    in.close();
+                } finally {
+                    buffers.inUse = false;
+                }
+            }
+        }
+    }
+}
@@ -11,6 +11,7 @@ import java.io.EOFException;
 import java.io.IOException;
 import java.nio.BufferUnderflowException;
 import java.nio.ByteBuffer;
+import java.util.Objects;
 
 public class ByteBufferStreamInput extends StreamInput {
 
@@ -50,7 +51,7 @@ public class ByteBufferStreamInput extends StreamInput {
     @Override
     public long skip(long n) throws IOException {
         if (n > buffer.remaining()) {
-            int ret = buffer.position();
+            int ret = buffer.remaining();
             buffer.position(buffer.limit());
             return ret;
         }
@@ -60,6 +61,7 @@ public class ByteBufferStreamInput extends StreamInput {
 
     @Override
     public void readBytes(byte[] b, int offset, int len) throws IOException {
+        Objects.checkFromIndexSize(offset, len, b.length);
         if (buffer.remaining() < len) {
             throw new EOFException();
         }
@@ -0,0 +1,52 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.common.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A histogram of non-negative values with exponentially growing buckets, see {@link HistogramStats} for the bucket bounds. Recording
+ * a value is as cheap as incrementing a {@link CounterMetric}, which makes it suitable for hot code paths such as latencies.
+ */
+public class HistogramMetric implements Metric {
+
+    private final LongAdder[] counts = new LongAdder[HistogramStats.BUCKETS];
+    private final LongAdder sum = new LongAdder();
+
+    public HistogramMetric() {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = new LongAdder();
+        }
+    }
+
+    public void inc(long value) {
+        counts[HistogramStats.bucket(value)].increment();
+        sum.add(Math.max(0L, value));
+    }
+
+    public long count() {
+        long count = 0;
+        for (LongAdder bucket : counts) {
+            count += bucket.sum();
+        }
+        return count;
+    }
+
+    public long sum() {
+        return sum.sum();
+    }
+
+    public HistogramStats stats() {
+        final long[] snapshot = new long[counts.length];
+        for (int i = 0; i < counts.length; i++) {
+            snapshot[i] = counts[i].sum();
+        }
+        return new HistogramStats(snapshot, sum.sum());
+    }
+}
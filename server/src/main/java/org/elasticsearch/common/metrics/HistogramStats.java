@@ -0,0 +1,210 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.common.metrics;
+
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.common.xcontent.ToXContentFragment;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * A point-in-time snapshot of a {@link HistogramMetric}. Values below {@code 8} are counted exactly, one bucket per value. Each range
+ * {@code [2^e, 2^(e+1))} above that is split into {@code 8} buckets of equal width, so that a bucket is never wider than {@code 1/8}
+ * of its lower bound, up to the last bucket which counts all the values from {@code 2^32} upwards. Percentiles are reported as the
+ * highest value of the bucket that holds them and so overestimate the exact percentile by at most {@code 12.5%}. The unit of the values
+ * is up to the owner of the histogram, and should be part of the name of the field that holds it.
+ */
+public final class HistogramStats implements Writeable, ToXContentFragment {
+
+    /**
+     * The number of bits of a value, after its leading one, that select its bucket within a power of two.
+     */
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    /**
+     * Values from {@code 2^MAX_EXPONENT} upwards all go into the last bucket.
+     */
+    private static final int MAX_EXPONENT = 32;
+
+    public static final int BUCKETS = SUB_BUCKETS + (MAX_EXPONENT - SUB_BUCKET_BITS) * SUB_BUCKETS + 1;
+
+    public static final HistogramStats EMPTY = new HistogramStats(new long[BUCKETS], 0L);
+
+    private final long[] counts;
+    private final long sum;
+
+    public HistogramStats(long[] counts, long sum) {
+        if (counts.length != BUCKETS) {
+            throw new IllegalArgumentException("expected [" + BUCKETS + "] buckets but got [" + counts.length + "]");
+        }
+        this.counts = counts;
+        this.sum = sum;
+    }
+
+    public HistogramStats(StreamInput in) throws IOException {
+        // most buckets are empty, so only the non-empty ones are serialized
+        counts = new long[BUCKETS];
+        final int nonEmpty = in.readVInt();
+        for (int i = 0; i < nonEmpty; i++) {
+            counts[Objects.checkIndex(in.readVInt(), BUCKETS)] = in.readVLong();
+        }
+        sum = in.readVLong();
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        int nonEmpty = 0;
+        for (long count : counts) {
+            if (count > 0L) {
+                nonEmpty++;
+            }
+        }
+        out.writeVInt(nonEmpty);
+        for (int i = 0; i < BUCKETS; i++) {
+            if (counts[i] > 0L) {
+                out.writeVInt(i);
+                out.writeVLong(counts[i]);
+            }
+        }
+        out.writeVLong(sum);
+    }
+
+    static int bucket(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) Math.max(0L, value);
+        }
+        final int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        if (exponent >= MAX_EXPONENT) {
+            return BUCKETS - 1;
+        }
+        final int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return SUB_BUCKETS + (exponent - SUB_BUCKET_BITS) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * The exclusive upper bound of the values counted in the given bucket, or {@link Long#MAX_VALUE} for the last bucket.
+     */
+    public static long upperBound(int bucket) {
+        Objects.checkIndex(bucket, BUCKETS);
+        if (bucket == BUCKETS - 1) {
+            return Long.MAX_VALUE;
+        }
+        return bucket < SUB_BUCKETS ? bucket + 1 : lowerBound(bucket) + width(bucket);
+    }
+
+    /**
+     * The inclusive lower bound of the values counted in the given bucket.
+     */
+    public static long lowerBound(int bucket) {
+        Objects.checkIndex(bucket, BUCKETS);
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        if (bucket == BUCKETS - 1) {
+            return 1L << MAX_EXPONENT;
+        }
+        final int subBucket = (bucket - SUB_BUCKETS) % SUB_BUCKETS;
+        return (SUB_BUCKETS + subBucket) * width(bucket);
+    }
+
+    private static long width(int bucket) {
+        return 1L << ((bucket - SUB_BUCKETS) / SUB_BUCKETS);
+    }
+
+    public HistogramStats add(HistogramStats other) {
+        final long[] merged = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            merged[i] = counts[i] + other.counts[i];
+        }
+        return new HistogramStats(merged, sum + other.sum);
+    }
+
+    public long getCount() {
+        long count = 0;
+        for (long bucket : counts) {
+            count += bucket;
+        }
+        return count;
+    }
+
+    public long getSum() {
+        return sum;
+    }
+
+    /**
+     * The number of values in the given bucket.
+     */
+    public long getCount(int bucket) {
+        return counts[bucket];
+    }
+
+    /**
+     * An estimate of the given percentile, which is the highest value of the bucket that holds it or the lower bound of the last bucket
+     * if it is in there. Returns {@code 0} if the histogram is empty.
+     */
+    public long getPercentile(double percentile) {
+        if (percentile < 0.0 || percentile > 100.0) {
+            throw new IllegalArgumentException("percentile must be in [0, 100] but was [" + percentile + "]");
+        }
+        final long count = getCount();
+        if (count == 0L) {
+            return 0L;
+        }
+        final long rank = Math.max(1L, (long) Math.ceil(percentile / 100.0 * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS - 1; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return upperBound(i) - 1;
+            }
+        }
+        return lowerBound(BUCKETS - 1);
+    }
+
+    @Override
+    public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.field("count", getCount());
+        builder.field("sum", sum);
+        builder.field("p50", getPercentile(50.0));
+        builder.field("p90", getPercentile(90.0));
+        builder.field("p99", getPercentile(99.0));
+        builder.startArray("buckets");
+        for (int i = 0; i < BUCKETS; i++) {
+            if (counts[i] > 0) {
+                builder.startObject();
+                builder.field("gte", lowerBound(i));
+                if (i < BUCKETS - 1) {
+                    builder.field("lt", upperBound(i));
+                }
+                builder.field("count", counts[i]);
+                builder.endObject();
+            }
+        }
+        builder.endArray();
+        return builder;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        HistogramStats that = (HistogramStats) o;
+        return sum == that.sum && Arrays.equals(counts, that.counts);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(counts) + Long.hashCode(sum);
+    }
+}
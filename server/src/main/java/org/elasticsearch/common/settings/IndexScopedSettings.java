@@ -133,6 +133,8 @@ public final class IndexScopedSettings extends AbstractScopedSettings {
             IndexSettings.INDEX_TRANSLOG_RETENTION_AGE_SETTING,
             IndexSettings.INDEX_TRANSLOG_RETENTION_SIZE_SETTING,
             IndexSettings.INDEX_SEARCH_IDLE_AFTER,
+            IndexSettings.INDEX_SEARCH_CONCURRENT_ENABLED_SETTING,
+            IndexSettings.INDEX_SEARCH_CONCURRENT_MIN_DOCS_PER_SLICE_SETTING,
             IndexSettings.INDEX_SEARCH_THROTTLED,
             IndexFieldDataService.INDEX_FIELDDATA_CACHE_KEY,
             FieldMapper.IGNORE_MALFORMED_SETTING,
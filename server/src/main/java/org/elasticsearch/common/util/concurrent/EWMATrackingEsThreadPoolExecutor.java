@@ -41,16 +41,6 @@ public final class EWMATrackingEsThreadPoolExecutor extends EsThreadPoolExecutor
         return super.wrapRunnable(this.runnableWrapper.apply(command));
     }
 
-    @Override
-    protected Runnable unwrap(Runnable runnable) {
-        final Runnable unwrapped = super.unwrap(runnable);
-        if (unwrapped instanceof WrappedRunnable) {
-            return ((WrappedRunnable) unwrapped).unwrap();
-        } else {
-            return unwrapped;
-        }
-    }
-
     /**
      * Returns the exponentially weighted moving average of the task execution time
      */
@@ -72,8 +62,8 @@ public final class EWMATrackingEsThreadPoolExecutor extends EsThreadPoolExecutor
         // total time as a combination of the time in the queue and time spent running the task. We
         // only want runnables that did not throw errors though, because they could be fast-failures
         // that throw off our timings, so only check when t is null.
-        assert super.unwrap(r) instanceof TimedRunnable : "expected only TimedRunnables in queue";
-        final TimedRunnable timedRunnable = (TimedRunnable) super.unwrap(r);
+        final TimedRunnable timedRunnable = getTimedRunnable(r);
+        assert timedRunnable != null : "expected only TimedRunnables in queue";
         final boolean failedOrRejected = timedRunnable.getFailedOrRejected();
         final long taskExecutionNanos = timedRunnable.getTotalExecutionNanos();
         assert taskExecutionNanos >= 0 || (failedOrRejected && taskExecutionNanos == -1) :
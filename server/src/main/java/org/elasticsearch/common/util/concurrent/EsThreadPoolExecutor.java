@@ -9,6 +9,8 @@
 package org.elasticsearch.common.util.concurrent;
 
 import org.elasticsearch.common.SuppressForbidden;
+import org.elasticsearch.common.metrics.HistogramMetric;
+import org.elasticsearch.common.metrics.HistogramStats;
 
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ThreadFactory;
@@ -17,7 +19,7 @@ import java.util.concurrent.TimeUnit;
 import java.util.stream.Stream;
 
 /**
- * An extension to thread pool executor, allowing (in the future) to add specific additional stats to it.
+ * An extension to thread pool executor, which tracks how long tasks wait in the queue and how long they run.
  */
 public class EsThreadPoolExecutor extends ThreadPoolExecutor {
 
@@ -25,6 +27,8 @@ public class EsThreadPoolExecutor extends ThreadPoolExecutor {
     private volatile ShutdownListener listener;
 
     private final Object monitor = new Object();
+    private final HistogramMetric queueTimeInMicros = new HistogramMetric();
+    private final HistogramMetric executionTimeInMicros = new HistogramMetric();
     /**
      * Name used in error reporting.
      */
@@ -90,6 +94,17 @@ public class EsThreadPoolExecutor extends ThreadPoolExecutor {
     @Override
     protected void afterExecute(Runnable r, Throwable t) {
         super.afterExecute(r, t);
+        final TimedRunnable timedRunnable = getTimedRunnable(r);
+        if (timedRunnable != null) {
+            final long queueTimeNanos = timedRunnable.getQueueTimeNanos();
+            if (queueTimeNanos != -1) {
+                queueTimeInMicros.inc(TimeUnit.NANOSECONDS.toMicros(queueTimeNanos));
+            }
+            final long executionNanos = timedRunnable.getTotalExecutionNanos();
+            if (executionNanos != -1) {
+                executionTimeInMicros.inc(TimeUnit.NANOSECONDS.toMicros(executionNanos));
+            }
+        }
         EsExecutors.rethrowErrors(unwrap(r));
         assert assertDefaultContext(r);
     }
@@ -100,6 +115,20 @@ public class EsThreadPoolExecutor extends ThreadPoolExecutor {
         return true;
     }
 
+    /**
+     * Returns the distribution of the time that the tasks executed so far spent in the queue, in microseconds.
+     */
+    public HistogramStats getQueueTimeInMicros() {
+        return queueTimeInMicros.stats();
+    }
+
+    /**
+     * Returns the distribution of the time that the tasks executed so far took to run, in microseconds.
+     */
+    public HistogramStats getExecutionTimeInMicros() {
+        return executionTimeInMicros.stats();
+    }
+
     /**
      * Returns a stream of all pending tasks. This is similar to {@link #getQueue()} but will expose the originally submitted
      * {@link Runnable} instances rather than potentially wrapped ones.
@@ -138,10 +167,28 @@ public class EsThreadPoolExecutor extends ThreadPoolExecutor {
     }
 
     protected Runnable wrapRunnable(Runnable command) {
-        return contextHolder.preserveContext(command);
+        return contextHolder.preserveContext(command instanceof TimedRunnable ? command : new TimedRunnable(command));
     }
 
     protected Runnable unwrap(Runnable runnable) {
-        return contextHolder.unwrap(runnable);
+        final Runnable unwrapped = contextHolder.unwrap(runnable);
+        if (unwrapped instanceof TimedRunnable) {
+            return ((TimedRunnable) unwrapped).unwrap();
+        }
+        return unwrapped;
+    }
+
+    /**
+     * Returns the {@link TimedRunnable} that {@link #wrapRunnable} wrapped around the given task, or {@code null} if the task was
+     * submitted without being wrapped.
+     */
+    static TimedRunnable getTimedRunnable(Runnable runnable) {
+        while (runnable instanceof WrappedRunnable) {
+            if (runnable instanceof TimedRunnable) {
+                return (TimedRunnable) runnable;
+            }
+            runnable = ((WrappedRunnable) runnable).unwrap();
+        }
+        return null;
     }
 }
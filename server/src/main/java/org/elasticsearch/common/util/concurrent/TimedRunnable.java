@@ -12,12 +12,13 @@ import org.elasticsearch.ExceptionsHelper;
 
 /**
  * A class used to wrap a {@code Runnable} that allows capturing the time of the task since creation
- * through execution as well as only execution time.
+ * through execution as well as only execution time. If the wrapped task is an {@link AbstractRunnable}, its
+ * failure, rejection and after callbacks are invoked by this wrapper, exactly once each.
  */
 class TimedRunnable extends AbstractRunnable implements WrappedRunnable {
     private final Runnable original;
     private final long creationTimeNanos;
-    private long startTimeNanos;
+    private long startTimeNanos = -1;
     private long finishTimeNanos = -1;
     private boolean failedOrRejected = false;
 
@@ -27,10 +28,15 @@ class TimedRunnable extends AbstractRunnable implements WrappedRunnable {
     }
 
     @Override
-    public void doRun() {
+    public void doRun() throws Exception {
         try {
             startTimeNanos = System.nanoTime();
-            original.run();
+            if (original instanceof AbstractRunnable) {
+                // the callbacks of the original runnable are invoked through the ones of this runnable
+                ((AbstractRunnable) original).doRun();
+            } else {
+                original.run();
+            }
         } finally {
             finishTimeNanos = System.nanoTime();
         }
@@ -49,7 +55,18 @@ class TimedRunnable extends AbstractRunnable implements WrappedRunnable {
     @Override
     public void onFailure(final Exception e) {
         this.failedOrRejected = true;
-        ExceptionsHelper.reThrowIfNotNull(e);
+        if (original instanceof AbstractRunnable) {
+            ((AbstractRunnable) original).onFailure(e);
+        } else {
+            ExceptionsHelper.reThrowIfNotNull(e);
+        }
+    }
+
+    @Override
+    public void onAfter() {
+        if (original instanceof AbstractRunnable) {
+            ((AbstractRunnable) original).onAfter();
+        }
     }
 
     @Override
@@ -69,6 +86,17 @@ class TimedRunnable extends AbstractRunnable implements WrappedRunnable {
         return Math.max(finishTimeNanos - creationTimeNanos, 1);
     }
 
+    /**
+     * Return the time this task spent in the queue before it started running.
+     * If the task has not yet been run, returns -1.
+     */
+    long getQueueTimeNanos() {
+        if (startTimeNanos == -1) {
+            return -1;
+        }
+        return Math.max(startTimeNanos - creationTimeNanos, 0);
+    }
+
     /**
      * Return the time this task spent being run.
      * If the task is still running or has not yet been run, returns -1.
@@ -0,0 +1,213 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.http;
+
+import org.elasticsearch.common.CheckedFunction;
+import org.elasticsearch.common.bytes.ReleasableBytesReference;
+import org.elasticsearch.common.lease.Releasable;
+import org.elasticsearch.common.lease.Releasables;
+
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * The content of an http request that is handed to its handler in chunks as it is received, instead of being aggregated in full
+ * before the request is dispatched. The handler pulls the chunks one at a time with {@link #next()}, and the channel stops reading
+ * while the handler has not asked for more content than what was already received, which applies backpressure to the client.
+ * <p>
+ * Http modules create the stream when they receive the head of a request and feed it with {@link #onContent} as the content arrives.
+ * Releasing the stream discards the content that was not consumed yet, so that the channel can move on to the next request.
+ */
+public abstract class HttpContentStream implements Releasable {
+
+    /**
+     * Handles the chunks of a {@link HttpContentStream}. The methods of the handler are called once per call to {@link #next()}, by
+     * either the thread that calls {@link #next()} or by a network thread.
+     */
+    public interface ChunkHandler {
+
+        /**
+         * Called with the next chunk of content, which the handler must release once it is done with it.
+         *
+         * @param chunk  the chunk of content, possibly empty if this is the last chunk
+         * @param isLast whether this is the last chunk of the content
+         */
+        void onChunk(ReleasableBytesReference chunk, boolean isLast);
+
+        /**
+         * Called if the content cannot be received in full, for instance because the channel was closed.
+         */
+        void onFailure(Exception e);
+    }
+
+    private final Deque<ReleasableBytesReference> chunks = new ArrayDeque<>();
+    private ChunkHandler handler;
+    private CheckedFunction<ReleasableBytesReference, ReleasableBytesReference, Exception> chunkInterceptor;
+    private boolean requested;
+    private boolean lastReceived;
+    private boolean released;
+    private Exception failure;
+
+    /**
+     * Stops reading from the channel, because the handler does not need more content for now. Called while holding the lock of this
+     * stream, so that a concurrent call to {@link #resumeReads()} cannot be overtaken by it, which means that it must not block.
+     */
+    protected abstract void pauseReads();
+
+    /**
+     * Resumes reading from the channel. Called while holding the lock of this stream, which means that it must not block.
+     */
+    protected abstract void resumeReads();
+
+    /**
+     * Sets the handler of the chunks of this stream. This must be called before the first call to {@link #next()}.
+     */
+    public synchronized void setHandler(ChunkHandler handler) {
+        assert this.handler == null : "handler already set";
+        this.handler = handler;
+    }
+
+    /**
+     * Sets a function that every chunk goes through before it is handed to the handler, for instance to account for its size until it
+     * is released. If the function throws, the chunk is released and the handler is failed with the exception instead.
+     */
+    public synchronized void setChunkInterceptor(
+            CheckedFunction<ReleasableBytesReference, ReleasableBytesReference, Exception> chunkInterceptor) {
+        this.chunkInterceptor = chunkInterceptor;
+    }
+
+    /**
+     * Asks for the next chunk of content, which is handed to the handler as soon as it is available. The handler must not ask for
+     * another chunk before it received the previous one.
+     */
+    public void next() {
+        synchronized (this) {
+            assert handler != null : "handler must be set before asking for content";
+            assert requested == false : "the previous chunk was not received yet";
+            if (released) {
+                return;
+            }
+            requested = true;
+            if (chunks.isEmpty() && lastReceived == false && failure == null) {
+                resumeReads();
+            }
+        }
+        maybeDeliver();
+    }
+
+    /**
+     * Called by the http module with the content of the request as it is received.
+     *
+     * @param chunk  the received content, which is now owned by this stream
+     * @param isLast whether this is the last content of the request
+     */
+    public void onContent(ReleasableBytesReference chunk, boolean isLast) {
+        synchronized (this) {
+            if (released) {
+                // nobody is going to consume the rest of the content, discard it
+                chunk.close();
+                return;
+            }
+            chunks.add(chunk);
+            lastReceived = isLast;
+            // the reads are toggled under the lock, otherwise a pause could overtake the resume of a handler that asked for more
+            if (isLast == false && requested == false) {
+                pauseReads();
+            } else if (isLast) {
+                // the channel reads the next request, if any, while the handler works through the remaining chunks
+                resumeReads();
+            }
+        }
+        maybeDeliver();
+    }
+
+    /**
+     * Called by the http module when the channel is closed, which fails the stream if it did not receive all of its content.
+     */
+    public void onChannelClosed() {
+        onFailure(new ClosedChannelException());
+    }
+
+    /**
+     * Called by the http module if the rest of the content cannot be received, for instance because it is malformed. This fails the
+     * stream once the handler consumed the chunks that were received before, unless it received all of its content already.
+     */
+    public void onFailure(Exception e) {
+        synchronized (this) {
+            if (released || lastReceived || failure != null) {
+                return;
+            }
+            failure = e;
+        }
+        maybeDeliver();
+    }
+
+    private void maybeDeliver() {
+        final ChunkHandler handler;
+        final CheckedFunction<ReleasableBytesReference, ReleasableBytesReference, Exception> interceptor;
+        ReleasableBytesReference chunk;
+        final boolean isLast;
+        final Exception failure;
+        synchronized (this) {
+            if (requested == false || released) {
+                return;
+            }
+            if (chunks.isEmpty() == false) {
+                chunk = chunks.poll();
+                isLast = lastReceived && chunks.isEmpty();
+                failure = null;
+            } else if (this.failure != null) {
+                chunk = null;
+                isLast = false;
+                failure = this.failure;
+            } else {
+                return;
+            }
+            requested = false;
+            handler = this.handler;
+            interceptor = this.chunkInterceptor;
+        }
+        if (failure != null) {
+            handler.onFailure(failure);
+            return;
+        }
+        if (interceptor != null) {
+            try {
+                chunk = interceptor.apply(chunk);
+            } catch (Exception e) {
+                chunk.close();
+                synchronized (this) {
+                    this.failure = e;
+                }
+                handler.onFailure(e);
+                return;
+            }
+        }
+        handler.onChunk(chunk, isLast);
+    }
+
+    /**
+     * Releases the chunks that were received but not consumed, and discards the content that is still to come.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (released) {
+                return;
+            }
+            released = true;
+            Releasables.close(chunks);
+            chunks.clear();
+            if (lastReceived == false) {
+                resumeReads();
+            }
+        }
+    }
+}
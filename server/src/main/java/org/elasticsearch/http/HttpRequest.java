@@ -43,6 +43,15 @@ public interface HttpRequest {
 
     BytesReference content();
 
+    /**
+     * Returns the stream of the content of this request if the content is handed to the handler in chunks as it is received, in which
+     * case {@link #content()} is empty, or {@code null} if the content was received in full before the request was dispatched.
+     */
+    @Nullable
+    default HttpContentStream contentStream() {
+        return null;
+    }
+
     /**
      * Get all of the headers and values associated with the headers. Modifications of this map are not supported.
      */
@@ -51,5 +51,16 @@ public interface HttpServerTransport extends LifecycleComponent, ReportingServic
          */
         void dispatchBadRequest(RestChannel channel, ThreadContext threadContext, Throwable cause);
 
+        /**
+         * Returns whether the handler of requests with the given method and uri consumes their content in chunks as it is received,
+         * see {@link RestRequest#contentStream()}.
+         *
+         * @param method the method of the request
+         * @param uri    the uri of the request, with the query string
+         */
+        default boolean allowsStreamedContent(RestRequest.Method method, String uri) {
+            return false;
+        }
+
     }
 }
@@ -82,6 +82,10 @@ public final class HttpTransportSettings {
     public static final Setting<Boolean> SETTING_HTTP_RESET_COOKIES =
         Setting.boolSetting("http.reset_cookies", false, Property.NodeScope);
 
+    // Whether handlers that support it receive the content of requests in chunks as it arrives rather than in full
+    public static final Setting<Boolean> SETTING_HTTP_STREAM_CONTENT =
+        Setting.boolSetting("http.stream_content", false, Property.NodeScope);
+
     // A default of 0 means that by default there is no read timeout
     public static final Setting<TimeValue> SETTING_HTTP_READ_TIMEOUT =
         Setting.timeSetting("http.read_timeout", new TimeValue(0), new TimeValue(0), Property.NodeScope);
@@ -61,6 +61,17 @@ public final class IndexSettings {
     public static final Setting<TimeValue> INDEX_SEARCH_IDLE_AFTER =
         Setting.timeSetting("index.search.idle.after", TimeValue.timeValueSeconds(30),
             TimeValue.timeValueMinutes(0), Property.IndexScope, Property.Dynamic);
+    /**
+     * Whether the query phase may search the segments of a shard concurrently on the {@code search_worker} thread pool.
+     */
+    public static final Setting<Boolean> INDEX_SEARCH_CONCURRENT_ENABLED_SETTING =
+        Setting.boolSetting("index.search.concurrent.enabled", false, Property.Dynamic, Property.IndexScope);
+    /**
+     * The minimum number of documents in each slice of segments that is searched concurrently. Shards that are too small to be
+     * split into two such slices are searched sequentially.
+     */
+    public static final Setting<Integer> INDEX_SEARCH_CONCURRENT_MIN_DOCS_PER_SLICE_SETTING =
+        Setting.intSetting("index.search.concurrent.min_docs_per_slice", 100_000, 1, Property.Dynamic, Property.IndexScope);
     public static final Setting<Translog.Durability> INDEX_TRANSLOG_DURABILITY_SETTING =
         Setting.enumSetting(Translog.Durability.class, "index.translog.durability", Translog.Durability.REQUEST,
             Property.Dynamic, Property.IndexScope);
@@ -389,6 +400,16 @@ public final class IndexSettings {
      */
     private volatile int maxSlicesPerScroll;
 
+    /**
+     * Whether the query phase may search the segments of a shard concurrently.
+     */
+    private volatile boolean concurrentSearchEnabled;
+
+    /**
+     * The minimum number of documents in each slice of segments that is searched concurrently.
+     */
+    private volatile int concurrentSearchMinDocsPerSlice;
+
     /**
      * The maximum length of regex string allowed in a regexp query.
      */
@@ -497,6 +518,8 @@ public final class IndexSettings {
         this.mergePolicyConfig = new MergePolicyConfig(logger, this);
         this.indexSortConfig = new IndexSortConfig(this);
         searchIdleAfter = scopedSettings.get(INDEX_SEARCH_IDLE_AFTER);
+        concurrentSearchEnabled = scopedSettings.get(INDEX_SEARCH_CONCURRENT_ENABLED_SETTING);
+        concurrentSearchMinDocsPerSlice = scopedSettings.get(INDEX_SEARCH_CONCURRENT_MIN_DOCS_PER_SLICE_SETTING);
         defaultPipeline = scopedSettings.get(DEFAULT_PIPELINE);
         mappingNestedFieldsLimit = scopedSettings.get(INDEX_MAPPING_NESTED_FIELDS_LIMIT_SETTING);
         mappingNestedDocsLimit = scopedSettings.get(INDEX_MAPPING_NESTED_DOCS_LIMIT_SETTING);
@@ -547,6 +570,9 @@ public final class IndexSettings {
         scopedSettings.addSettingsUpdateConsumer(MAX_SLICES_PER_SCROLL, this::setMaxSlicesPerScroll);
         scopedSettings.addSettingsUpdateConsumer(DEFAULT_FIELD_SETTING, this::setDefaultFields);
         scopedSettings.addSettingsUpdateConsumer(INDEX_SEARCH_IDLE_AFTER, this::setSearchIdleAfter);
+        scopedSettings.addSettingsUpdateConsumer(INDEX_SEARCH_CONCURRENT_ENABLED_SETTING, this::setConcurrentSearchEnabled);
+        scopedSettings.addSettingsUpdateConsumer(INDEX_SEARCH_CONCURRENT_MIN_DOCS_PER_SLICE_SETTING,
+            this::setConcurrentSearchMinDocsPerSlice);
         scopedSettings.addSettingsUpdateConsumer(MAX_REGEX_LENGTH_SETTING, this::setMaxRegexLength);
         scopedSettings.addSettingsUpdateConsumer(DEFAULT_PIPELINE, this::setDefaultPipeline);
         scopedSettings.addSettingsUpdateConsumer(FINAL_PIPELINE, this::setRequiredPipeline);
@@ -904,6 +930,28 @@ public final class IndexSettings {
         this.maxSlicesPerScroll = value;
     }
 
+    /**
+     * Whether the query phase may search the segments of a shard concurrently.
+     */
+    public boolean isConcurrentSearchEnabled() {
+        return concurrentSearchEnabled;
+    }
+
+    private void setConcurrentSearchEnabled(boolean concurrentSearchEnabled) {
+        this.concurrentSearchEnabled = concurrentSearchEnabled;
+    }
+
+    /**
+     * The minimum number of documents in each slice of segments that is searched concurrently.
+     */
+    public int getConcurrentSearchMinDocsPerSlice() {
+        return concurrentSearchMinDocsPerSlice;
+    }
+
+    private void setConcurrentSearchMinDocsPerSlice(int concurrentSearchMinDocsPerSlice) {
+        this.concurrentSearchMinDocsPerSlice = concurrentSearchMinDocsPerSlice;
+    }
+
     /**
      * The maximum length of regex string allowed in a regexp query.
      */
@@ -8,6 +8,7 @@
 
 package org.elasticsearch.index.cache.request;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
@@ -17,12 +18,21 @@ import org.elasticsearch.common.xcontent.XContentBuilder;
 
 import java.io.IOException;
 
+/**
+ * The statistics of the request cache of a shard. The off-heap tier is only reported once it has been used. The entries served
+ * from the off-heap tier are not promoted back onto the heap, see {@link org.elasticsearch.indices.IndicesRequestCache}.
+ */
 public class RequestCacheStats implements Writeable, ToXContentFragment {
 
     private long memorySize;
     private long evictions;
     private long hitCount;
     private long missCount;
+    private long offHeapMemorySize;
+    private long offHeapEvictions;
+    private long offHeapHitCount;
+    private long offHeapMissCount;
+    private long spillCount;
 
     public RequestCacheStats() {
     }
@@ -32,13 +42,30 @@ public class RequestCacheStats implements Writeable, ToXContentFragment {
         evictions = in.readVLong();
         hitCount = in.readVLong();
         missCount = in.readVLong();
+        if (in.getVersion().onOrAfter(Version.V_8_0_0)) {
+            offHeapMemorySize = in.readVLong();
+            offHeapEvictions = in.readVLong();
+            offHeapHitCount = in.readVLong();
+            offHeapMissCount = in.readVLong();
+            spillCount = in.readVLong();
+        }
     }
 
     public RequestCacheStats(long memorySize, long evictions, long hitCount, long missCount) {
+        this(memorySize, evictions, hitCount, missCount, 0, 0, 0, 0, 0);
+    }
+
+    public RequestCacheStats(long memorySize, long evictions, long hitCount, long missCount, long offHeapMemorySize,
+                             long offHeapEvictions, long offHeapHitCount, long offHeapMissCount, long spillCount) {
         this.memorySize = memorySize;
         this.evictions = evictions;
         this.hitCount = hitCount;
         this.missCount = missCount;
+        this.offHeapMemorySize = offHeapMemorySize;
+        this.offHeapEvictions = offHeapEvictions;
+        this.offHeapHitCount = offHeapHitCount;
+        this.offHeapMissCount = offHeapMissCount;
+        this.spillCount = spillCount;
     }
 
     public void add(RequestCacheStats stats) {
@@ -46,6 +73,11 @@ public class RequestCacheStats implements Writeable, ToXContentFragment {
         this.evictions += stats.evictions;
         this.hitCount += stats.hitCount;
         this.missCount += stats.missCount;
+        this.offHeapMemorySize += stats.offHeapMemorySize;
+        this.offHeapEvictions += stats.offHeapEvictions;
+        this.offHeapHitCount += stats.offHeapHitCount;
+        this.offHeapMissCount += stats.offHeapMissCount;
+        this.spillCount += stats.spillCount;
     }
 
     public long getMemorySizeInBytes() {
@@ -68,12 +100,63 @@ public class RequestCacheStats implements Writeable, ToXContentFragment {
         return this.missCount;
     }
 
+    public long getOffHeapMemorySizeInBytes() {
+        return this.offHeapMemorySize;
+    }
+
+    public ByteSizeValue getOffHeapMemorySize() {
+        return new ByteSizeValue(offHeapMemorySize);
+    }
+
+    /**
+     * The number of entries evicted from the off-heap tier.
+     */
+    public long getOffHeapEvictions() {
+        return this.offHeapEvictions;
+    }
+
+    /**
+     * The number of hits served by the off-heap tier. These are included in {@link #getHitCount()}.
+     */
+    public long getOffHeapHitCount() {
+        return this.offHeapHitCount;
+    }
+
+    /**
+     * The number of lookups in the off-heap tier that missed, after missing the on-heap tier.
+     */
+    public long getOffHeapMissCount() {
+        return this.offHeapMissCount;
+    }
+
+    /**
+     * The number of entries evicted from the on-heap tier that were spilled to the off-heap tier.
+     */
+    public long getSpillCount() {
+        return this.spillCount;
+    }
+
+    /**
+     * Whether the off-heap tier was used, which is never the case if it is disabled. Every miss of the on-heap tier looks the
+     * off-heap tier up when it is enabled.
+     */
+    private boolean hasOffHeapStats() {
+        return offHeapMemorySize != 0 || offHeapEvictions != 0 || offHeapHitCount != 0 || offHeapMissCount != 0 || spillCount != 0;
+    }
+
     @Override
     public void writeTo(StreamOutput out) throws IOException {
         out.writeVLong(memorySize);
         out.writeVLong(evictions);
         out.writeVLong(hitCount);
         out.writeVLong(missCount);
+        if (out.getVersion().onOrAfter(Version.V_8_0_0)) {
+            out.writeVLong(offHeapMemorySize);
+            out.writeVLong(offHeapEvictions);
+            out.writeVLong(offHeapHitCount);
+            out.writeVLong(offHeapMissCount);
+            out.writeVLong(spillCount);
+        }
     }
 
     @Override
@@ -83,6 +166,15 @@ public class RequestCacheStats implements Writeable, ToXContentFragment {
         builder.field(Fields.EVICTIONS, getEvictions());
         builder.field(Fields.HIT_COUNT, getHitCount());
         builder.field(Fields.MISS_COUNT, getMissCount());
+        if (hasOffHeapStats()) {
+            builder.startObject(Fields.OFF_HEAP);
+            builder.humanReadableField(Fields.MEMORY_SIZE_IN_BYTES, Fields.MEMORY_SIZE, getOffHeapMemorySize());
+            builder.field(Fields.EVICTIONS, getOffHeapEvictions());
+            builder.field(Fields.HIT_COUNT, getOffHeapHitCount());
+            builder.field(Fields.MISS_COUNT, getOffHeapMissCount());
+            builder.field(Fields.SPILL_COUNT, getSpillCount());
+            builder.endObject();
+        }
         builder.endObject();
         return builder;
     }
@@ -94,5 +186,7 @@ public class RequestCacheStats implements Writeable, ToXContentFragment {
         static final String EVICTIONS = "evictions";
         static final String HIT_COUNT = "hit_count";
         static final String MISS_COUNT = "miss_count";
+        static final String OFF_HEAP = "off_heap";
+        static final String SPILL_COUNT = "spill_count";
     }
 }
@@ -21,9 +21,16 @@ public final class ShardRequestCache {
     final CounterMetric totalMetric = new CounterMetric();
     final CounterMetric hitCount = new CounterMetric();
     final CounterMetric missCount = new CounterMetric();
+    final CounterMetric offHeapTotalMetric = new CounterMetric();
+    final CounterMetric offHeapEvictionsMetric = new CounterMetric();
+    final CounterMetric offHeapHitCount = new CounterMetric();
+    final CounterMetric offHeapMissCount = new CounterMetric();
+    final CounterMetric spillCount = new CounterMetric();
 
     public RequestCacheStats stats() {
-        return new RequestCacheStats(totalMetric.count(), evictionsMetric.count(), hitCount.count(), missCount.count());
+        return new RequestCacheStats(totalMetric.count(), evictionsMetric.count(), hitCount.count(), missCount.count(),
+            offHeapTotalMetric.count(), offHeapEvictionsMetric.count(), offHeapHitCount.count(), offHeapMissCount.count(),
+            spillCount.count());
     }
 
     public void onHit() {
@@ -51,4 +58,27 @@ public final class ShardRequestCache {
         }
         totalMetric.dec(dec);
     }
+
+    public void onOffHeapHit() {
+        offHeapHitCount.inc();
+    }
+
+    public void onOffHeapMiss() {
+        offHeapMissCount.inc();
+    }
+
+    /**
+     * Called when an entry evicted from the on-heap tier of the request cache was spilled to its off-heap tier.
+     */
+    public void onSpilled(BytesReference value) {
+        spillCount.inc();
+        offHeapTotalMetric.inc(value.length());
+    }
+
+    public void onOffHeapRemoval(BytesReference value, boolean evicted) {
+        if (evicted) {
+            offHeapEvictionsMetric.inc();
+        }
+        offHeapTotalMetric.dec(value.length());
+    }
 }
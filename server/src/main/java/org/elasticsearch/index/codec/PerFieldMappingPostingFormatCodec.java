@@ -17,7 +17,9 @@ import org.apache.lucene.codecs.lucene87.Lucene87Codec;
 import org.elasticsearch.common.lucene.Lucene;
 import org.elasticsearch.index.mapper.CompletionFieldMapper;
 import org.elasticsearch.index.mapper.MappedFieldType;
+import org.elasticsearch.index.mapper.Mapper;
 import org.elasticsearch.index.mapper.MapperService;
+import org.elasticsearch.index.mapper.PerFieldDocValuesFormatFieldMapper;
 
 /**
  * {@link PerFieldMappingPostingFormatCodec This postings format} is the default
@@ -57,6 +59,10 @@ public class PerFieldMappingPostingFormatCodec extends Lucene87Codec {
 
     @Override
     public DocValuesFormat getDocValuesFormatForField(String field) {
+        final Mapper mapper = mapperService.mappingLookup().getMapper(field);
+        if (mapper instanceof PerFieldDocValuesFormatFieldMapper) {
+            return ((PerFieldDocValuesFormatFieldMapper) mapper).getDocValuesFormatForField(docValuesFormat);
+        }
         return docValuesFormat;
     }
 }
@@ -10,32 +10,47 @@ package org.elasticsearch.index.engine;
 
 import org.apache.lucene.search.ReferenceManager;
 import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.Accountables;
 import org.apache.lucene.util.BytesRef;
-import org.apache.lucene.util.RamUsageEstimator;
 import org.elasticsearch.common.lease.Releasable;
-import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
-import org.elasticsearch.common.util.concurrent.KeyedLock;
 
 import java.io.IOException;
 import java.util.Collection;
-import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntFunction;
 
-/** Maps _uid value to its version information. */
+/**
+ * Maps _uid value to its version information. The uids are spread over a fixed number of stripes by their hash. Each stripe has a
+ * lock, which is the lock of all the uids of the stripe, and its own {@link VersionValueTable}s which are only accessed under that
+ * lock. This keeps the memory used per uid low and means that a refresh only swaps a handful of tables.
+ */
 final class LiveVersionMap implements ReferenceManager.RefreshListener, Accountable {
 
-    private final KeyedLock<BytesRef> keyedLock = new KeyedLock<>();
+    /**
+     * The number of stripes, which must be a power of two. The engine holds the lock of a uid while it writes the operation to Lucene
+     * and to the translog, so operations on distinct uids of the same stripe wait for each other for that long. With {@code n} threads
+     * indexing into a shard concurrently an operation finds its stripe locked by another one with a probability of about
+     * {@code (n - 1) / STRIPES}, which is 3% for the 8 write threads of an 8 core node and 12% for the 32 of a 32 core node. More
+     * stripes would lower this further at the cost of a larger array of tables for each refresh and more, smaller tables per shard.
+     */
+    static final int STRIPES = 256;
+
+    private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
 
     private static final class VersionLookup {
 
         /** Tracks bytes used by current map, i.e. what is freed on refresh. For deletes, which are also added to tombstones,
-         *  we only account for the CHM entry here, and account for BytesRef/VersionValue against the tombstones, since refresh would not
+         *  we only account for the uid here, and account for the VersionValue against the tombstones, since refresh would not
          *  clear this RAM. */
         final AtomicLong ramBytesUsed = new AtomicLong();
 
-        private static final VersionLookup EMPTY = new VersionLookup(Collections.emptyMap());
-        private final Map<BytesRef, VersionValue> map;
+        private static final VersionLookup EMPTY = new VersionLookup();
+        // the tables of the stripes, which are allocated on first use and are only accessed under the lock of their stripe
+        private final VersionValueTable<VersionValue>[] tables = newTables();
 
         // each version map has a notion of safe / unsafe which allows us to apply certain optimization in the auto-generated ID usecase
         // where we know that documents can't have any duplicates so we can skip the version map entirely. This reduces
@@ -53,24 +68,54 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
         // the tombstone
         private final AtomicLong minDeleteTimestamp = new AtomicLong(Long.MAX_VALUE);
 
-        private VersionLookup(Map<BytesRef, VersionValue> map) {
-            this.map = map;
+        VersionValue get(int stripe, BytesRef key) {
+            final VersionValueTable<VersionValue> table = tables[stripe];
+            return table == null ? null : table.get(key);
         }
 
-        VersionValue get(BytesRef key) {
-            return map.get(key);
+        /**
+         * Puts the given value and returns the number of bytes that this lookup uses in addition to before.
+         */
+        long put(int stripe, BytesRef key, VersionValue value, int expectedSize) {
+            VersionValueTable<VersionValue> table = tables[stripe];
+            final long ramBytesUsedBefore;
+            if (table == null) {
+                ramBytesUsedBefore = 0;
+                tables[stripe] = table = new VersionValueTable<>(expectedSize);
+            } else {
+                ramBytesUsedBefore = table.ramBytesUsed();
+            }
+            table.put(key, value);
+            return table.ramBytesUsed() - ramBytesUsedBefore;
         }
 
-        VersionValue put(BytesRef key, VersionValue value) {
-            return map.put(key, value);
+        /**
+         * Removes the value of the given key and returns the number of bytes that this lookup uses in addition to before, which is
+         * negative if a value was removed.
+         */
+        long remove(int stripe, BytesRef key) {
+            final VersionValueTable<VersionValue> table = tables[stripe];
+            if (table == null) {
+                return 0;
+            }
+            final long ramBytesUsedBefore = table.ramBytesUsed();
+            table.remove(key);
+            return table.ramBytesUsed() - ramBytesUsedBefore;
         }
 
-        boolean isEmpty() {
-            return map.isEmpty();
+        /**
+         * Returns the number of uids in the given stripe, which must be locked.
+         */
+        int size(int stripe) {
+            final VersionValueTable<VersionValue> table = tables[stripe];
+            return table == null ? 0 : table.size();
         }
 
-        int size() {
-            return map.size();
+        /**
+         * Whether no value was put into this lookup. Unlike the size of a lookup this can be read without holding any lock.
+         */
+        boolean isEmpty() {
+            return ramBytesUsed.get() == 0;
         }
 
         boolean isUnsafe() {
@@ -81,10 +126,6 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
             unsafe = true;
         }
 
-        public VersionValue remove(BytesRef uid) {
-            return map.remove(uid);
-        }
-
         public void updateMinDeletedTimestamp(DeleteVersionValue delete) {
             long time = delete.time;
             minDeleteTimestamp.updateAndGet(prev -> Math.min(time, prev));
@@ -113,8 +154,7 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
         }
 
         Maps() {
-            this(new VersionLookup(ConcurrentCollections.newConcurrentMapWithAggressiveConcurrency()),
-                VersionLookup.EMPTY, false);
+            this(new VersionLookup(), VersionLookup.EMPTY, false);
         }
 
         boolean isSafeAccessMode() {
@@ -132,8 +172,8 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
          * Builds a new map for the refresh transition this should be called in beforeRefresh()
          */
         Maps buildTransitionMap() {
-            return new Maps(new VersionLookup(ConcurrentCollections.newConcurrentMapWithAggressiveConcurrency(current.size())), current,
-                shouldInheritSafeAccess());
+            // the tables of the new map are allocated on first use, and are sized like the tables they take over from
+            return new Maps(new VersionLookup(), current, shouldInheritSafeAccess());
         }
 
         /**
@@ -143,12 +183,8 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
             return new Maps(current, VersionLookup.EMPTY, previousMapsNeededSafeAccess);
         }
 
-        void put(BytesRef uid, VersionValue version) {
-            long uidRAMBytesUsed = BASE_BYTES_PER_BYTESREF + uid.bytes.length;
-            long ramAccounting = BASE_BYTES_PER_CHM_ENTRY + version.ramBytesUsed() + uidRAMBytesUsed;
-            VersionValue previousValue = current.put(uid, version);
-            ramAccounting += previousValue == null ? 0 : -(BASE_BYTES_PER_CHM_ENTRY + previousValue.ramBytesUsed() + uidRAMBytesUsed);
-            adjustRam(ramAccounting);
+        void put(int stripe, BytesRef uid, VersionValue version) {
+            adjustRam(current.put(stripe, uid, version, old.size(stripe)));
         }
 
         void adjustRam(long value) {
@@ -158,17 +194,13 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
             }
         }
 
-        void remove(BytesRef uid, DeleteVersionValue deleted) {
-            VersionValue previousValue = current.remove(uid);
+        void remove(int stripe, BytesRef uid, DeleteVersionValue deleted) {
+            adjustRam(current.remove(stripe, uid));
             current.updateMinDeletedTimestamp(deleted);
-            if (previousValue != null) {
-                long uidRAMBytesUsed = BASE_BYTES_PER_BYTESREF + uid.bytes.length;
-                adjustRam(-(BASE_BYTES_PER_CHM_ENTRY + previousValue.ramBytesUsed() + uidRAMBytesUsed));
-            }
             if (old != VersionLookup.EMPTY) {
                 // we also need to remove it from the old map here to make sure we don't read this stale value while
                 // we are in the middle of a refresh. Most of the time the old map is an empty map so we can skip it there.
-                old.remove(uid);
+                old.remove(stripe, uid);
             }
         }
 
@@ -177,8 +209,9 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
         }
     }
 
-    // All deletes also go here, and delete "tombstones" are retained after refresh:
-    private final Map<BytesRef, DeleteVersionValue> tombstones = ConcurrentCollections.newConcurrentMapWithAggressiveConcurrency();
+    // All deletes also go here, and delete "tombstones" are retained after refresh. Each table is only accessed under the lock of
+    // its stripe. The array is replaced rather than cleared on close, so that closing does not need the locks of the stripes:
+    private volatile VersionValueTable<DeleteVersionValue>[] tombstones = newTables();
 
     private volatile Maps maps = new Maps();
     // we maintain a second map that only receives the updates that we skip on the actual map (unsafe ops)
@@ -186,44 +219,24 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
     private volatile Maps unsafeKeysMap = new Maps();
 
     /**
-     * Bytes consumed for each BytesRef UID:
-     * In this base value, we account for the {@link BytesRef} object itself as
-     * well as the header of the byte[] array it holds, and some lost bytes due
-     * to object alignment. So consumers of this constant just have to add the
-     * length of the byte[] (assuming it is not shared between multiple
-     * instances).
+     * Tracks bytes used by tombstones (deletes)
      */
-    private static final long BASE_BYTES_PER_BYTESREF =
-        // shallow memory usage of the BytesRef object
-        RamUsageEstimator.shallowSizeOfInstance(BytesRef.class) +
-            // header of the byte[] array
-            RamUsageEstimator.NUM_BYTES_ARRAY_HEADER +
-            // with an alignment size (-XX:ObjectAlignmentInBytes) of 8 (default),
-            // there could be between 0 and 7 lost bytes, so we account for 3
-            // lost bytes on average
-            3;
+    private final AtomicLong ramBytesUsedTombstones = new AtomicLong();
 
-    /**
-     * Bytes used by having CHM point to a key/value.
-     */
-    private static final long BASE_BYTES_PER_CHM_ENTRY;
+    LiveVersionMap() {
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
 
-    static {
-        // use the same impl as the Maps does
-        Map<Integer, Integer> map = ConcurrentCollections.newConcurrentMapWithAggressiveConcurrency();
-        map.put(0, 0);
-        long chmEntryShallowSize = RamUsageEstimator.shallowSizeOf(map.entrySet().iterator().next());
-        // assume a load factor of 50%
-        // for each entry, we need two object refs, one for the entry itself
-        // and one for the free space that is due to the fact hash tables can
-        // not be fully loaded
-        BASE_BYTES_PER_CHM_ENTRY = chmEntryShallowSize + 2 * RamUsageEstimator.NUM_BYTES_OBJECT_REF;
+    @SuppressWarnings("unchecked")
+    private static <V extends VersionValue> VersionValueTable<V>[] newTables() {
+        return (VersionValueTable<V>[]) new VersionValueTable<?>[STRIPES];
     }
 
-    /**
-     * Tracks bytes used by tombstones (deletes)
-     */
-    private final AtomicLong ramBytesUsedTombstones = new AtomicLong();
+    static int stripe(BytesRef uid) {
+        return uid.hashCode() & (STRIPES - 1);
+    }
 
     @Override
     public void beforeRefresh() throws IOException {
@@ -260,18 +273,20 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
 
     private VersionValue getUnderLock(final BytesRef uid, Maps currentMaps) {
         assert assertKeyedLockHeldByCurrentThread(uid);
+        final int stripe = stripe(uid);
         // First try to get the "live" value:
-        VersionValue value = currentMaps.current.get(uid);
+        VersionValue value = currentMaps.current.get(stripe, uid);
         if (value != null) {
             return value;
         }
 
-        value = currentMaps.old.get(uid);
+        value = currentMaps.old.get(stripe, uid);
         if (value != null) {
             return value;
         }
 
-        return tombstones.get(uid);
+        final VersionValueTable<DeleteVersionValue> stripeTombstones = tombstones[stripe];
+        return stripeTombstones == null ? null : stripeTombstones.get(uid);
     }
 
     VersionValue getVersionForAssert(final BytesRef uid) {
@@ -314,37 +329,42 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
 
     void putIndexUnderLock(BytesRef uid, IndexVersionValue version) {
         assert assertKeyedLockHeldByCurrentThread(uid);
-        assert uid.bytes.length == uid.length : "Oversized _uid! UID length: " + uid.length + ", bytes length: " + uid.bytes.length;
-        maps.put(uid, version);
+        maps.put(stripe(uid), uid, version);
         removeTombstoneUnderLock(uid);
     }
 
     private boolean putAssertionMap(BytesRef uid, IndexVersionValue version) {
         assert assertKeyedLockHeldByCurrentThread(uid);
-        assert uid.bytes.length == uid.length : "Oversized _uid! UID length: " + uid.length + ", bytes length: " + uid.bytes.length;
-        unsafeKeysMap.put(uid, version);
+        unsafeKeysMap.put(stripe(uid), uid, version);
         return true;
     }
 
     void putDeleteUnderLock(BytesRef uid, DeleteVersionValue version) {
         assert assertKeyedLockHeldByCurrentThread(uid);
-        assert uid.bytes.length == uid.length : "Oversized _uid! UID length: " + uid.length + ", bytes length: " + uid.bytes.length;
-        putTombstone(uid, version);
-        maps.remove(uid, version);
+        final int stripe = stripe(uid);
+        putTombstone(stripe, uid, version);
+        maps.remove(stripe, uid, version);
     }
 
-    private void putTombstone(BytesRef uid, DeleteVersionValue version) {
-        long uidRAMBytesUsed = BASE_BYTES_PER_BYTESREF + uid.bytes.length;
-        // Also enroll the delete into tombstones, and account for its RAM too:
-        final VersionValue prevTombstone = tombstones.put(uid, version);
-        long accountRam = (BASE_BYTES_PER_CHM_ENTRY + version.ramBytesUsed() + uidRAMBytesUsed);
-        // Deduct tombstones bytes used for the version we just removed or replaced:
-        if (prevTombstone != null) {
-            accountRam -= (BASE_BYTES_PER_CHM_ENTRY + prevTombstone.ramBytesUsed() + uidRAMBytesUsed);
+    private void putTombstone(int stripe, BytesRef uid, DeleteVersionValue version) {
+        final VersionValueTable<DeleteVersionValue>[] tombstones = this.tombstones;
+        VersionValueTable<DeleteVersionValue> stripeTombstones = tombstones[stripe];
+        final long ramBytesUsedBefore;
+        if (stripeTombstones == null) {
+            ramBytesUsedBefore = 0;
+            tombstones[stripe] = stripeTombstones = new VersionValueTable<>(0);
+        } else {
+            ramBytesUsedBefore = stripeTombstones.ramBytesUsed();
         }
-        if (accountRam != 0) {
-            long v = ramBytesUsedTombstones.addAndGet(accountRam);
-            assert v >= 0: "bytes=" + v;
+        // Also enroll the delete into tombstones, and account for its RAM too:
+        stripeTombstones.put(uid, version);
+        adjustTombstonesRam(stripeTombstones.ramBytesUsed() - ramBytesUsedBefore);
+    }
+
+    private void adjustTombstonesRam(long value) {
+        if (value != 0) {
+            long v = ramBytesUsedTombstones.addAndGet(value);
+            assert v >= 0 : "bytes=" + v;
         }
     }
 
@@ -353,12 +373,12 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
      */
     void removeTombstoneUnderLock(BytesRef uid) {
         assert assertKeyedLockHeldByCurrentThread(uid);
-        long uidRAMBytesUsed = BASE_BYTES_PER_BYTESREF + uid.bytes.length;
-        final VersionValue prev = tombstones.remove(uid);
-        if (prev != null) {
-            assert prev.isDelete();
-            long v = ramBytesUsedTombstones.addAndGet(-(BASE_BYTES_PER_CHM_ENTRY + prev.ramBytesUsed() + uidRAMBytesUsed));
-            assert v >= 0 : "bytes=" + v;
+        final VersionValueTable<DeleteVersionValue> stripeTombstones = tombstones[stripe(uid)];
+        if (stripeTombstones != null && stripeTombstones.isEmpty() == false) {
+            final long ramBytesUsedBefore = stripeTombstones.ramBytesUsed();
+            final VersionValue prev = stripeTombstones.remove(uid);
+            assert prev == null || prev.isDelete();
+            adjustTombstonesRam(stripeTombstones.ramBytesUsed() - ramBytesUsedBefore);
         }
     }
 
@@ -376,25 +396,21 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
      * Try to prune tombstones whose timestamp is less than maxTimestampToPrune and seqno at most the maxSeqNoToPrune.
      */
     void pruneTombstones(long maxTimestampToPrune, long maxSeqNoToPrune) {
-        for (Map.Entry<BytesRef, DeleteVersionValue> entry : tombstones.entrySet()) {
-            // we do check before we actually lock the key - this way we don't need to acquire the lock for tombstones that are not
-            // prune-able. If the tombstone changes concurrently we will re-read and step out below since if we can't collect it now w
-            // we won't collect the tombstone below since it must be newer than this one.
-            if (canRemoveTombstone(maxTimestampToPrune, maxSeqNoToPrune, entry.getValue())) {
-                final BytesRef uid = entry.getKey();
-                try (Releasable lock = keyedLock.tryAcquire(uid)) {
-                    // we use tryAcquire here since this is a best effort and we try to be least disruptive
-                    // this method is also called under lock in the engine under certain situations such that this can lead to deadlocks
-                    // if we do use a blocking acquire. see #28714
-                    if (lock != null) { // did we get the lock?
-                        // Must re-get it here, vs using entry.getValue(), in case the uid was indexed/deleted since we pulled the iterator:
-                        final DeleteVersionValue versionValue = tombstones.get(uid);
-                        if (versionValue != null) {
-                            if (canRemoveTombstone(maxTimestampToPrune, maxSeqNoToPrune, versionValue)) {
-                                removeTombstoneUnderLock(uid);
-                            }
-                        }
+        for (int stripe = 0; stripe < STRIPES; stripe++) {
+            final ReentrantLock lock = locks[stripe];
+            // we use tryLock here since this is a best effort and we try to be least disruptive
+            // this method is also called under lock in the engine under certain situations such that this can lead to deadlocks
+            // if we do use a blocking acquire. see #28714
+            if (lock.tryLock()) { // did we get the lock?
+                try {
+                    final VersionValueTable<DeleteVersionValue> stripeTombstones = tombstones[stripe];
+                    if (stripeTombstones != null && stripeTombstones.isEmpty() == false) {
+                        final long ramBytesUsedBefore = stripeTombstones.ramBytesUsed();
+                        stripeTombstones.removeIf(versionValue -> canRemoveTombstone(maxTimestampToPrune, maxSeqNoToPrune, versionValue));
+                        adjustTombstonesRam(stripeTombstones.ramBytesUsed() - ramBytesUsedBefore);
                     }
+                } finally {
+                    lock.unlock();
                 }
             }
         }
@@ -405,7 +421,10 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
      */
     synchronized void clear() {
         maps = new Maps();
-        tombstones.clear();
+        // the locks of the stripes must not be taken here: indexing threads that hold the lock of their uid wait for the monitor of
+        // this map when they switch it to safe access. Threads that still use the tables of the previous array are done with them
+        // once they release their locks:
+        tombstones = newTables();
         // NOTE: we can't zero this here, because a refresh thread could be calling InternalEngine.pruneDeletedTombstones at the same time,
         // and this will lead to an assert trip.  Presumably it's fine if our ramBytesUsedTombstones is non-zero after clear since the
         // index is being closed:
@@ -435,35 +454,58 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
 
     @Override
     public Collection<Accountable> getChildResources() {
-        // TODO: useful to break down RAM usage here?
-        return Collections.emptyList();
+        final Maps maps = this.maps;
+        return List.of(
+            Accountables.namedAccountable("current", maps.current.ramBytesUsed.get()),
+            Accountables.namedAccountable("refreshing", maps.old.ramBytesUsed.get()),
+            Accountables.namedAccountable("tombstones", ramBytesUsedTombstones.get()));
     }
 
     /**
-     * Returns the current internal versions as a point in time snapshot
+     * Returns a copy of the current internal versions, taken one stripe at a time
      */
     Map<BytesRef, VersionValue> getAllCurrent() {
-        return maps.current.map;
+        final VersionLookup current = maps.current;
+        return copyStripes(stripe -> current.tables[stripe]);
     }
 
-    /** Iterates over all deleted versions, including new ones (not yet exposed via reader) and old ones
-     *  (exposed via reader but not yet GC'd). */
+    /** Returns a copy of all deleted versions, including new ones (not yet exposed via reader) and old ones
+     *  (exposed via reader but not yet GC'd), taken one stripe at a time. */
     Map<BytesRef, DeleteVersionValue> getAllTombstones() {
-        return tombstones;
+        final VersionValueTable<DeleteVersionValue>[] tombstones = this.tombstones;
+        return copyStripes(stripe -> tombstones[stripe]);
+    }
+
+    private <V extends VersionValue> Map<BytesRef, V> copyStripes(IntFunction<VersionValueTable<V>> tables) {
+        final Map<BytesRef, V> copy = new HashMap<>();
+        for (int stripe = 0; stripe < STRIPES; stripe++) {
+            locks[stripe].lock();
+            try {
+                final VersionValueTable<V> table = tables.apply(stripe);
+                if (table != null) {
+                    table.forEach((uid, value) -> copy.put(BytesRef.deepCopyOf(uid), value));
+                }
+            } finally {
+                locks[stripe].unlock();
+            }
+        }
+        return copy;
     }
 
     /**
      * Acquires a releaseable lock for the given uId. All *UnderLock methods require
      * this lock to be hold by the caller otherwise the visibility guarantees of this version
-     * map are broken. We assert on this lock to be hold when calling these methods.
-     * @see KeyedLock
+     * map are broken. We assert on this lock to be hold when calling these methods. The lock
+     * is shared with all other uids of the same stripe and is reentrant.
      */
     Releasable acquireLock(BytesRef uid) {
-        return keyedLock.acquire(uid);
+        final ReentrantLock lock = locks[stripe(uid)];
+        lock.lock();
+        return lock::unlock;
     }
 
     boolean assertKeyedLockHeldByCurrentThread(BytesRef uid) {
-        assert keyedLock.isHeldByCurrentThread(uid) : "Thread [" + Thread.currentThread().getName() +
+        assert locks[stripe(uid)].isHeldByCurrentThread() : "Thread [" + Thread.currentThread().getName() +
             "], uid [" + uid.utf8ToString() + "]";
         return true;
     }
@@ -0,0 +1,157 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.engine;
+
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.common.util.BytesRefHash;
+import org.elasticsearch.common.util.ObjectArray;
+
+import java.util.function.BiConsumer;
+import java.util.function.Predicate;
+
+/**
+ * Maps uids to their {@link VersionValue} for {@link LiveVersionMap}. The uids are copied into the paged arrays of an open-addressing
+ * {@link BytesRefHash} rather than being held as a {@link BytesRef} per entry, which saves the objects and pointers that a hash map
+ * needs for each entry. Removing a uid only clears its value, and its slot is reused if the uid is added again. Once more than half
+ * of the uids in the table have been removed the table is rebuilt with the remaining uids only. This class is not thread-safe.
+ */
+final class VersionValueTable<V extends VersionValue> implements Accountable {
+
+    private static final long SHALLOW_SIZE = RamUsageEstimator.shallowSizeOfInstance(VersionValueTable.class);
+    // rebuilding small tables is not worth the effort
+    private static final int MIN_REMOVED_TO_REBUILD = 16;
+
+    private final BigArrays bigArrays = BigArrays.NON_RECYCLING_INSTANCE;
+    private final BytesRef spare = new BytesRef();
+    private BytesRefHash uids;
+    private ObjectArray<V> values;
+    // the number of uids that have a value, which excludes removed uids
+    private int size;
+    private long valuesRamBytesUsed;
+
+    VersionValueTable(int expectedSize) {
+        uids = new BytesRefHash(expectedSize, bigArrays);
+        values = bigArrays.newObjectArray(Math.max(1, expectedSize));
+    }
+
+    V get(BytesRef uid) {
+        final long id = uids.find(uid);
+        return id < 0 ? null : values.get(id);
+    }
+
+    /**
+     * Associates the given uid with the given value and returns the previous value of the uid, if any.
+     */
+    V put(BytesRef uid, V value) {
+        assert value != null;
+        long id = uids.add(uid);
+        if (id < 0) {
+            id = -1 - id;
+        } else {
+            values = bigArrays.grow(values, id + 1);
+        }
+        final V previous = values.set(id, value);
+        if (previous == null) {
+            size++;
+        } else {
+            valuesRamBytesUsed -= previous.ramBytesUsed();
+        }
+        valuesRamBytesUsed += value.ramBytesUsed();
+        return previous;
+    }
+
+    /**
+     * Removes the value of the given uid and returns it, if any.
+     */
+    V remove(BytesRef uid) {
+        final long id = uids.find(uid);
+        if (id < 0) {
+            return null;
+        }
+        final V previous = values.set(id, null);
+        if (previous != null) {
+            removed(previous);
+            maybeRebuild();
+        }
+        return previous;
+    }
+
+    /**
+     * Removes all values that match the given predicate and returns how many were removed.
+     */
+    int removeIf(Predicate<V> predicate) {
+        int removed = 0;
+        for (long id = 0; id < uids.size(); id++) {
+            final V value = values.get(id);
+            if (value != null && predicate.test(value)) {
+                values.set(id, null);
+                removed(value);
+                removed++;
+            }
+        }
+        if (removed > 0) {
+            maybeRebuild();
+        }
+        return removed;
+    }
+
+    private void removed(V value) {
+        size--;
+        valuesRamBytesUsed -= value.ramBytesUsed();
+        assert size >= 0 && valuesRamBytesUsed >= 0 : "size=" + size + ", bytes=" + valuesRamBytesUsed;
+    }
+
+    private void maybeRebuild() {
+        final long removed = uids.size() - size;
+        if (removed >= MIN_REMOVED_TO_REBUILD && removed > size) {
+            final BytesRefHash newUids = new BytesRefHash(size, bigArrays);
+            final ObjectArray<V> newValues = bigArrays.newObjectArray(Math.max(1, size));
+            for (long id = 0; id < uids.size(); id++) {
+                final V value = values.get(id);
+                if (value != null) {
+                    newValues.set(newUids.add(uids.get(id, spare)), value);
+                }
+            }
+            assert newUids.size() == size;
+            uids = newUids;
+            values = newValues;
+        }
+    }
+
+    /**
+     * Calls the given consumer with each uid and its value. The uid is only valid for the duration of the call.
+     */
+    void forEach(BiConsumer<BytesRef, V> consumer) {
+        for (long id = 0; id < uids.size(); id++) {
+            final V value = values.get(id);
+            if (value != null) {
+                consumer.accept(uids.get(id, spare), value);
+            }
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the bytes used by the table, including the uids that have been removed but not yet cleaned up, and by its values.
+     */
+    @Override
+    public long ramBytesUsed() {
+        return SHALLOW_SIZE + uids.ramBytesUsed() + values.ramBytesUsed() + valuesRamBytesUsed;
+    }
+}
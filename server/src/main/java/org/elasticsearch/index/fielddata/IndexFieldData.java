@@ -243,5 +243,13 @@ public interface IndexFieldData<FD extends LeafFieldData> {
 
         IndexFieldData<FD> loadGlobalDirect(DirectoryReader indexReader) throws Exception;
 
+        /**
+         * Load the global field data of the given reader. {@code previous} is the global field data of an earlier reader of the
+         * same shard, if it is still cached, which implementations may reuse for the segments that both readers share.
+         */
+        default IndexFieldData<FD> loadGlobalDirect(DirectoryReader indexReader, @Nullable IndexFieldData<FD> previous) throws Exception {
+            return loadGlobalDirect(indexReader);
+        }
+
     }
 }
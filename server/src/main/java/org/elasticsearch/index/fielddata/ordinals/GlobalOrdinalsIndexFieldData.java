@@ -8,6 +8,7 @@
 package org.elasticsearch.index.fielddata.ordinals;
 
 import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.OrdinalMap;
 import org.apache.lucene.index.SortedSetDocValues;
@@ -50,12 +51,16 @@ public final class GlobalOrdinalsIndexFieldData implements IndexOrdinalsFieldDat
 
     private final OrdinalMap ordinalMap;
     private final LeafOrdinalsFieldData[] segmentAfd;
+    private final IndexReader.CacheKey[] segmentKeys;
+    private final long[] segmentValueCounts;
     private final Function<SortedSetDocValues, ScriptDocValues<?>> scriptFunction;
 
     protected GlobalOrdinalsIndexFieldData(String fieldName,
                                            ValuesSourceType valuesSourceType,
                                            LeafOrdinalsFieldData[] segmentAfd,
                                            OrdinalMap ordinalMap,
+                                           IndexReader.CacheKey[] segmentKeys,
+                                           long[] segmentValueCounts,
                                            long memorySizeInBytes,
                                            Function<SortedSetDocValues, ScriptDocValues<?>> scriptFunction) {
         this.fieldName = fieldName;
@@ -63,9 +68,26 @@ public final class GlobalOrdinalsIndexFieldData implements IndexOrdinalsFieldDat
         this.memorySizeInBytes = memorySizeInBytes;
         this.ordinalMap = ordinalMap;
         this.segmentAfd = segmentAfd;
+        this.segmentKeys = segmentKeys;
+        this.segmentValueCounts = segmentValueCounts;
         this.scriptFunction = scriptFunction;
     }
 
+    /**
+     * The core cache keys of the segments that these global ordinals were built from, {@code null} for segments that
+     * don't support caching.
+     */
+    IndexReader.CacheKey[] getSegmentKeys() {
+        return segmentKeys;
+    }
+
+    /**
+     * The number of terms of each of the segments that these global ordinals were built from.
+     */
+    long[] getSegmentValueCounts() {
+        return segmentValueCounts;
+    }
+
     public IndexOrdinalsFieldData newConsumer(DirectoryReader source) {
         return new Consumer(source);
     }
@@ -0,0 +1,26 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.mapper;
+
+import org.apache.lucene.codecs.DocValuesFormat;
+
+/**
+ * Implemented by field mappers that write their doc values with their own {@link DocValuesFormat}, for instance to index them in
+ * a structure that can be searched without scanning all of them.
+ *
+ * @see org.elasticsearch.index.codec.PerFieldMappingPostingFormatCodec#getDocValuesFormatForField(String)
+ */
+public interface PerFieldDocValuesFormatFieldMapper {
+
+    /**
+     * Returns the doc values format of this field. The format must be registered with Lucene's SPI so that segments can be read
+     * back, and it should delegate the storage of the values to the given default format.
+     */
+    DocValuesFormat getDocValuesFormatForField(DocValuesFormat defaultFormat);
+}
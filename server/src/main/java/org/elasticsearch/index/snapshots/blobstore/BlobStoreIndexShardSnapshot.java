@@ -11,8 +11,12 @@ package org.elasticsearch.index.snapshots.blobstore;
 import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.Version;
 import org.elasticsearch.ElasticsearchParseException;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.ParseField;
 import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
 import org.elasticsearch.common.lucene.Lucene;
 import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.xcontent.ToXContentFragment;
@@ -25,6 +29,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
 import java.util.stream.IntStream;
 
 /**
@@ -35,13 +40,14 @@ public class BlobStoreIndexShardSnapshot implements ToXContentFragment {
     /**
      * Information about snapshotted file
      */
-    public static class FileInfo {
+    public static class FileInfo implements Writeable {
 
         private final String name;
         private final ByteSizeValue partSize;
         private final long partBytes;
         private final int numberOfParts;
         private final StoreFileMetadata metadata;
+        private final List<Chunk> chunks;
 
         /**
          * Constructs a new instance of file info
@@ -51,15 +57,37 @@ public class BlobStoreIndexShardSnapshot implements ToXContentFragment {
          * @param partSize     size of the single chunk
          */
         public FileInfo(String name, StoreFileMetadata metadata, ByteSizeValue partSize) {
+            this(name, metadata, partSize, Collections.emptyList());
+        }
+
+        /**
+         * Constructs a new instance of file info
+         *
+         * @param name      file name as stored in the blob store
+         * @param metadata  the files meta data
+         * @param partSize  size of the single chunk, must be {@code null} if the file is stored as content-defined chunks
+         * @param chunks    the content-defined chunks that the file is stored as, in order, or an empty list if the file is stored as
+         *                  fixed size parts
+         */
+        public FileInfo(String name, StoreFileMetadata metadata, @Nullable ByteSizeValue partSize, List<Chunk> chunks) {
             this.name = name;
             this.metadata = metadata;
+            this.chunks = List.copyOf(chunks);
 
             long partBytes = Long.MAX_VALUE;
             if (partSize != null && partSize.getBytes() > 0) {
                 partBytes = partSize.getBytes();
             }
 
-            if (metadata.length() == 0) {
+            if (this.chunks.isEmpty() == false) {
+                if (partSize != null) {
+                    throw new IllegalArgumentException("file [" + metadata + "] cannot be stored as both parts and chunks");
+                }
+                if (this.chunks.stream().mapToLong(Chunk::length).sum() != metadata.length()) {
+                    throw new IllegalArgumentException("chunks " + this.chunks + " do not add up to the length of file [" + metadata + "]");
+                }
+                numberOfParts = this.chunks.size();
+            } else if (metadata.length() == 0) {
                 numberOfParts = 1;
             } else {
                 long longNumberOfParts = 1L + (metadata.length() - 1L) / partBytes; // ceil(len/partBytes), but beware of long overflow
@@ -74,6 +102,18 @@ public class BlobStoreIndexShardSnapshot implements ToXContentFragment {
             assert IntStream.range(0, numberOfParts).mapToLong(this::partBytes).sum() == metadata.length();
         }
 
+        public FileInfo(StreamInput in) throws IOException {
+            this(in.readString(), new StoreFileMetadata(in), in.readOptionalWriteable(ByteSizeValue::new), in.readList(Chunk::new));
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeString(name);
+            metadata.writeTo(out);
+            out.writeOptionalWriteable(partSize);
+            out.writeList(chunks);
+        }
+
         /**
          * Returns the base file name
          *
@@ -90,7 +130,9 @@ public class BlobStoreIndexShardSnapshot implements ToXContentFragment {
          * @return part name
          */
         public String partName(int part) {
-            if (numberOfParts > 1) {
+            if (chunks.isEmpty() == false) {
+                return chunks.get(part).name();
+            } else if (numberOfParts > 1) {
                 return name + ".part" + part;
             } else {
                 return name;
@@ -144,6 +186,9 @@ public class BlobStoreIndexShardSnapshot implements ToXContentFragment {
          */
         public long partBytes(int part) {
             assert 0 <= part && part < numberOfParts : part + " vs " + numberOfParts;
+            if (chunks.isEmpty() == false) {
+                return chunks.get(part).length();
+            }
             if (numberOfParts == 1) {
                 return length();
             }
@@ -166,6 +211,14 @@ public class BlobStoreIndexShardSnapshot implements ToXContentFragment {
             return numberOfParts;
         }
 
+        /**
+         * Returns the content-defined chunks that the file is stored as, which are shared with all other files that hold the same
+         * content, or an empty list if the file is stored as parts of its own
+         */
+        public List<Chunk> chunks() {
+            return chunks;
+        }
+
         /**
          * Returns file md5 checksum provided by {@link org.elasticsearch.index.store.Store}
          *
@@ -208,6 +261,9 @@ public class BlobStoreIndexShardSnapshot implements ToXContentFragment {
             if (name.equals(fileInfo.name) == false) {
                 return false;
             }
+            if (chunks.equals(fileInfo.chunks) == false) {
+                return false;
+            }
             if (partSize != null) {
                 if (partSize.equals(fileInfo.partSize) == false) {
                     return false;
@@ -227,6 +283,7 @@ public class BlobStoreIndexShardSnapshot implements ToXContentFragment {
         static final String PART_SIZE = "part_size";
         static final String WRITTEN_BY = "written_by";
         static final String META_HASH = "meta_hash";
+        static final String CHUNKS = "chunks";
 
         /**
          * Serializes file info into JSON
@@ -252,6 +309,14 @@ public class BlobStoreIndexShardSnapshot implements ToXContentFragment {
                 BytesRef br = file.metadata.hash();
                 builder.field(META_HASH, br.bytes, br.offset, br.length);
             }
+
+            if (file.chunks.isEmpty() == false) {
+                builder.startArray(CHUNKS);
+                for (Chunk chunk : file.chunks) {
+                    chunk.toXContent(builder);
+                }
+                builder.endArray();
+            }
             builder.endObject();
         }
 
@@ -271,6 +336,7 @@ public class BlobStoreIndexShardSnapshot implements ToXContentFragment {
             Version writtenBy = null;
             String writtenByStr = null;
             BytesRef metaHash = new BytesRef();
+            List<Chunk> chunks = Collections.emptyList();
             if (token == XContentParser.Token.START_OBJECT) {
                 while ((token = parser.nextToken()) != XContentParser.Token.END_OBJECT) {
                     if (token == XContentParser.Token.FIELD_NAME) {
@@ -297,6 +363,11 @@ public class BlobStoreIndexShardSnapshot implements ToXContentFragment {
                             } else {
                                 throw new ElasticsearchParseException("unknown parameter [{}]", currentFieldName);
                             }
+                        } else if (token == XContentParser.Token.START_ARRAY && CHUNKS.equals(currentFieldName)) {
+                            chunks = new ArrayList<>();
+                            while (parser.nextToken() != XContentParser.Token.END_ARRAY) {
+                                chunks.add(Chunk.fromXContent(parser));
+                            }
                         } else {
                             throw new ElasticsearchParseException("unexpected token  [{}]", token);
                         }
@@ -318,7 +389,7 @@ public class BlobStoreIndexShardSnapshot implements ToXContentFragment {
             } else if (checksum == null) {
                 throw new ElasticsearchParseException("missing checksum for name [" + name + "]");
             }
-            return new FileInfo(name, new StoreFileMetadata(physicalName, length, checksum, writtenBy, metaHash), partSize);
+            return new FileInfo(name, new StoreFileMetadata(physicalName, length, checksum, writtenBy, metaHash), partSize, chunks);
         }
 
         @Override
@@ -327,8 +398,108 @@ public class BlobStoreIndexShardSnapshot implements ToXContentFragment {
                        ", numberOfParts: " + numberOfParts +
                        ", partSize: " + partSize +
                        ", partBytes: " + partBytes +
+                       ", chunks: " + chunks.size() +
                        ", metadata: " + metadata + "]";
         }
+
+        /**
+         * A chunk of the content of a file, stored in a blob that is named after the hash of its content.
+         */
+        public static final class Chunk implements Writeable {
+
+            private final String name;
+            private final long length;
+
+            /**
+             * @param name   name of the blob that holds the chunk
+             * @param length length of the chunk in bytes
+             */
+            public Chunk(String name, long length) {
+                if (length < 0) {
+                    throw new IllegalArgumentException("chunk [" + name + "] cannot have a negative length [" + length + "]");
+                }
+                this.name = Objects.requireNonNull(name);
+                this.length = length;
+            }
+
+            public Chunk(StreamInput in) throws IOException {
+                this(in.readString(), in.readVLong());
+            }
+
+            @Override
+            public void writeTo(StreamOutput out) throws IOException {
+                out.writeString(name);
+                out.writeVLong(length);
+            }
+
+            /**
+             * Returns the name of the blob that holds the chunk
+             */
+            public String name() {
+                return name;
+            }
+
+            /**
+             * Returns the length of the chunk in bytes
+             */
+            public long length() {
+                return length;
+            }
+
+            void toXContent(XContentBuilder builder) throws IOException {
+                builder.startObject();
+                builder.field(NAME, name);
+                builder.field(LENGTH, length);
+                builder.endObject();
+            }
+
+            static Chunk fromXContent(XContentParser parser) throws IOException {
+                XContentParserUtils.ensureExpectedToken(XContentParser.Token.START_OBJECT, parser.currentToken(), parser);
+                String name = null;
+                long length = -1;
+                XContentParser.Token token;
+                while ((token = parser.nextToken()) != XContentParser.Token.END_OBJECT) {
+                    XContentParserUtils.ensureExpectedToken(XContentParser.Token.FIELD_NAME, token, parser);
+                    final String currentFieldName = parser.currentName();
+                    parser.nextToken();
+                    if (NAME.equals(currentFieldName)) {
+                        name = parser.text();
+                    } else if (LENGTH.equals(currentFieldName)) {
+                        length = parser.longValue();
+                    } else {
+                        throw new ElasticsearchParseException("unknown chunk parameter [{}]", currentFieldName);
+                    }
+                }
+                if (name == null || Strings.validFileName(name) == false) {
+                    throw new ElasticsearchParseException("missing or invalid chunk name [" + name + "]");
+                } else if (length < 0) {
+                    throw new ElasticsearchParseException("missing or invalid chunk length");
+                }
+                return new Chunk(name, length);
+            }
+
+            @Override
+            public boolean equals(Object o) {
+                if (this == o) {
+                    return true;
+                }
+                if (o == null || getClass() != o.getClass()) {
+                    return false;
+                }
+                final Chunk chunk = (Chunk) o;
+                return length == chunk.length && name.equals(chunk.name);
+            }
+
+            @Override
+            public int hashCode() {
+                return Objects.hash(name, length);
+            }
+
+            @Override
+            public String toString() {
+                return "[name: " + name + ", length: " + length + "]";
+            }
+        }
     }
 
     /**
@@ -24,6 +24,7 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import static java.util.Collections.unmodifiableMap;
 
@@ -40,6 +41,7 @@ public class BlobStoreIndexShardSnapshots implements Iterable<SnapshotFiles>, To
     private final List<SnapshotFiles> shardSnapshots;
     private final Map<String, FileInfo> files;
     private final Map<String, List<FileInfo>> physicalFiles;
+    private final Map<String, Integer> chunkReferences;
 
     public BlobStoreIndexShardSnapshots(List<SnapshotFiles> shardSnapshots) {
         this.shardSnapshots = List.copyOf(shardSnapshots);
@@ -67,6 +69,7 @@ public class BlobStoreIndexShardSnapshots implements Iterable<SnapshotFiles>, To
         }
         this.physicalFiles = unmodifiableMap(mapBuilder);
         this.files = unmodifiableMap(newFiles);
+        this.chunkReferences = chunkReferences(this.files);
     }
 
     private BlobStoreIndexShardSnapshots(Map<String, FileInfo> files, List<SnapshotFiles> shardSnapshots) {
@@ -83,6 +86,21 @@ public class BlobStoreIndexShardSnapshots implements Iterable<SnapshotFiles>, To
             mapBuilder.put(entry.getKey(), List.copyOf(entry.getValue()));
         }
         this.physicalFiles = unmodifiableMap(mapBuilder);
+        this.chunkReferences = chunkReferences(files);
+    }
+
+    /**
+     * Counts the files that reference each content-defined chunk, which is the number of distinct blobs that share the chunk rather than
+     * the number of snapshots since the snapshots that share a file share its chunks through it.
+     */
+    private static Map<String, Integer> chunkReferences(Map<String, FileInfo> files) {
+        final Map<String, Integer> chunkReferences = new HashMap<>();
+        for (FileInfo fileInfo : files.values()) {
+            for (FileInfo.Chunk chunk : fileInfo.chunks()) {
+                chunkReferences.merge(chunk.name(), 1, Integer::sum);
+            }
+        }
+        return unmodifiableMap(chunkReferences);
     }
 
     /**
@@ -136,6 +154,24 @@ public class BlobStoreIndexShardSnapshots implements Iterable<SnapshotFiles>, To
         return files.get(name);
     }
 
+    /**
+     * Returns the number of files in any of the snapshots that are stored with the given content-defined chunk, which is only deleted
+     * from the repository once no file references it anymore.
+     *
+     * @param chunkName name of the blob that holds the chunk
+     * @return number of files that reference the chunk, or {@code 0} if the chunk is not referenced
+     */
+    public int chunkReferenceCount(String chunkName) {
+        return chunkReferences.getOrDefault(chunkName, 0);
+    }
+
+    /**
+     * Returns the names of the blobs of all content-defined chunks that files in any of the snapshots are stored with.
+     */
+    public Set<String> chunkNames() {
+        return chunkReferences.keySet();
+    }
+
     @Override
     public Iterator<SnapshotFiles> iterator() {
         return shardSnapshots.iterator();
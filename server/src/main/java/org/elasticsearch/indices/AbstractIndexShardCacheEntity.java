@@ -43,4 +43,25 @@ abstract class AbstractIndexShardCacheEntity implements IndicesRequestCache.Cach
         stats().onRemoval(notification.getKey(), notification.getValue(),
                 notification.getRemovalReason() == RemovalNotification.RemovalReason.EVICTED);
     }
+
+    @Override
+    public final void onOffHeapHit() {
+        stats().onOffHeapHit();
+    }
+
+    @Override
+    public final void onOffHeapMiss() {
+        stats().onOffHeapMiss();
+    }
+
+    @Override
+    public final void onSpilled(IndicesRequestCache.Key key, BytesReference value) {
+        stats().onSpilled(value);
+    }
+
+    @Override
+    public final void onOffHeapRemoval(RemovalNotification<IndicesRequestCache.Key, BytesReference> notification) {
+        stats().onOffHeapRemoval(notification.getValue(),
+                notification.getRemovalReason() == RemovalNotification.RemovalReason.EVICTED);
+    }
 }
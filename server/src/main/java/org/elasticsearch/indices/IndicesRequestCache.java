@@ -18,6 +18,7 @@ import org.apache.lucene.util.Accountable;
 import org.apache.lucene.util.RamUsageEstimator;
 import org.elasticsearch.common.CheckedSupplier;
 import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.bytes.ReleasableBytesReference;
 import org.elasticsearch.common.cache.Cache;
 import org.elasticsearch.common.cache.CacheBuilder;
 import org.elasticsearch.common.cache.CacheLoader;
@@ -31,6 +32,7 @@ import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 import org.elasticsearch.index.mapper.MappingLookup;
+import org.elasticsearch.monitor.jvm.JvmInfo;
 
 import java.io.Closeable;
 import java.io.IOException;
@@ -39,6 +41,8 @@ import java.util.Collections;
 import java.util.Iterator;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentMap;
 
 /**
@@ -51,6 +55,16 @@ import java.util.concurrent.ConcurrentMap;
  * Currently, the cache is only enabled for count requests, and can only be opted in on an index
  * level setting that can be dynamically changed and defaults to false.
  * <p>
+ * Entries are held on heap. If {@link #INDICES_CACHE_QUERY_OFF_HEAP_SIZE} is set, the entries that are evicted from the
+ * heap because of its size limit are spilled into an {@link OffHeapBytesCache} of that size, from which they are served
+ * without being copied back onto the heap. Evictions are notified while the on-heap cache holds its locks, so the evicted
+ * entries are queued and copied to the off-heap tier by the threads that use the cache once they released these locks.
+ * An entry that was loaded on heap again in the meantime is not copied, and loading an entry on heap removes its off-heap copy,
+ * but a load that races with the copy of the same entry can still leave it in both tiers until one of them drops it. Both
+ * copies hold the same value, so this only wastes memory. Entries that are served from the off-heap tier stay there: they are
+ * not promoted back onto the heap, which would copy them and evict other entries, so a popular entry that was spilled only
+ * leaves the off-heap tier when it is evicted from there.
+ * <p>
  * There are still several TODOs left in this class, some easily addressable, some more complex, but the support
  * is functional.
  */
@@ -68,12 +82,27 @@ public final class IndicesRequestCache implements RemovalListener<IndicesRequest
         Setting.memorySizeSetting("indices.requests.cache.size", "1%", Property.NodeScope);
     public static final Setting<TimeValue> INDICES_CACHE_QUERY_EXPIRE =
         Setting.positiveTimeSetting("indices.requests.cache.expire", new TimeValue(0), Property.NodeScope);
+    /**
+     * The size of the direct memory holding the entries evicted from the heap, zero disables spilling them. This memory is
+     * accounted against the maximum direct memory of the JVM.
+     */
+    public static final Setting<ByteSizeValue> INDICES_CACHE_QUERY_OFF_HEAP_SIZE =
+        Setting.byteSizeSetting("indices.requests.cache.off_heap.size", ByteSizeValue.ZERO, Property.NodeScope);
+
+    /**
+     * The maximum number of entries evicted from the heap that wait to be spilled to the off-heap tier.
+     */
+    static final int MAX_PENDING_SPILLS = 1024;
 
     private final ConcurrentMap<CleanupKey, Boolean> registeredClosedListeners = ConcurrentCollections.newConcurrentMap();
     private final Set<CleanupKey> keysToClean = ConcurrentCollections.newConcurrentSet();
     private final ByteSizeValue size;
     private final TimeValue expire;
     private final Cache<Key, BytesReference> cache;
+    // null if entries evicted from the heap are not spilled
+    private final OffHeapBytesCache<Key> offHeapCache;
+    // the entries evicted from the heap that wait to be spilled, the entries that don't fit are not spilled
+    private final BlockingQueue<RemovalNotification<Key, BytesReference>> pendingSpills;
 
     IndicesRequestCache(Settings settings) {
         this.size = INDICES_CACHE_QUERY_SIZE.get(settings);
@@ -85,11 +114,28 @@ public final class IndicesRequestCache implements RemovalListener<IndicesRequest
             cacheBuilder.setExpireAfterAccess(expire);
         }
         cache = cacheBuilder.build();
+        final long offHeapSizeInBytes = INDICES_CACHE_QUERY_OFF_HEAP_SIZE.get(settings).getBytes();
+        if (offHeapSizeInBytes > 0) {
+            final ByteSizeValue directMemoryMax = JvmInfo.jvmInfo().getMem().getDirectMemoryMax();
+            if (directMemoryMax.getBytes() > 0 && offHeapSizeInBytes > directMemoryMax.getBytes()) {
+                throw new IllegalArgumentException("[" + INDICES_CACHE_QUERY_OFF_HEAP_SIZE.getKey() + "] must not exceed the maximum "
+                    + "direct memory size of [" + directMemoryMax + "] but was [" + new ByteSizeValue(offHeapSizeInBytes) + "]");
+            }
+            offHeapCache = new OffHeapBytesCache<>(offHeapSizeInBytes, n -> n.getKey().entity.onOffHeapRemoval(n));
+            pendingSpills = new ArrayBlockingQueue<>(MAX_PENDING_SPILLS);
+        } else {
+            offHeapCache = null;
+            pendingSpills = null;
+        }
     }
 
     @Override
     public void close() {
         cache.invalidateAll();
+        if (offHeapCache != null) {
+            pendingSpills.clear();
+            offHeapCache.close();
+        }
     }
 
     void clear(CacheEntity entity) {
@@ -99,17 +145,73 @@ public final class IndicesRequestCache implements RemovalListener<IndicesRequest
 
     @Override
     public void onRemoval(RemovalNotification<Key, BytesReference> notification) {
-        notification.getKey().entity.onRemoval(notification);
+        final Key key = notification.getKey();
+        key.entity.onRemoval(notification);
+        if (offHeapCache != null && notification.getRemovalReason() == RemovalNotification.RemovalReason.EVICTED) {
+            // called under the locks of the on-heap cache, so the entry is copied to the off-heap tier later, see #spillEvicted
+            pendingSpills.offer(notification);
+        }
+    }
+
+    /**
+     * Copies the entries that were evicted from the heap to the off-heap tier. This must be called after each operation that may evict
+     * entries from the on-heap cache, outside of its locks.
+     */
+    private void spillEvicted() {
+        if (offHeapCache == null) {
+            return;
+        }
+        RemovalNotification<Key, BytesReference> notification;
+        while ((notification = pendingSpills.poll()) != null) {
+            final Key key = notification.getKey();
+            // the entry may have been loaded on heap again since it was evicted
+            if (key.entity.isOpen() && cache.get(key) == null && offHeapCache.put(key, notification.getValue())) {
+                key.entity.onSpilled(key, notification.getValue());
+            }
+        }
+    }
+
+    /**
+     * Returns the cached value for the given key, computing it if needed. The returned reference may point to the off-heap tier
+     * of the cache, so it must be released once it is no longer used.
+     */
+    ReleasableBytesReference getOrCompute(CacheEntity cacheEntity, CheckedSupplier<BytesReference, IOException> loader,
+                                          MappingLookup.CacheKey mappingCacheKey, DirectoryReader reader,
+                                          BytesReference cacheKey) throws Exception {
+        try {
+            return doGetOrCompute(cacheEntity, loader, mappingCacheKey, reader, cacheKey);
+        } finally {
+            spillEvicted();
+        }
     }
 
-    BytesReference getOrCompute(CacheEntity cacheEntity, CheckedSupplier<BytesReference, IOException> loader,
-                                MappingLookup.CacheKey mappingCacheKey, DirectoryReader reader, BytesReference cacheKey) throws Exception {
+    private ReleasableBytesReference doGetOrCompute(CacheEntity cacheEntity, CheckedSupplier<BytesReference, IOException> loader,
+                                                    MappingLookup.CacheKey mappingCacheKey, DirectoryReader reader,
+                                                    BytesReference cacheKey) throws Exception {
         assert reader.getReaderCacheHelper() != null;
         final Key key =  new Key(cacheEntity, mappingCacheKey, reader.getReaderCacheHelper().getKey(), cacheKey);
+        if (offHeapCache != null) {
+            final BytesReference value = cache.get(key);
+            if (value != null) {
+                key.entity.onHit();
+                return ReleasableBytesReference.wrap(value);
+            }
+            final ReleasableBytesReference offHeapValue = offHeapCache.get(key);
+            if (offHeapValue != null) {
+                key.entity.onHit();
+                key.entity.onOffHeapHit();
+                return offHeapValue;
+            }
+            key.entity.onOffHeapMiss();
+        }
         Loader cacheLoader = new Loader(cacheEntity, loader);
         BytesReference value = cache.computeIfAbsent(key, cacheLoader);
         if (cacheLoader.isLoaded()) {
             key.entity.onMiss();
+            if (offHeapCache != null) {
+                // an eviction of the same entry may have been spilled while it was loaded
+                offHeapCache.invalidate(key);
+            }
             // see if its the first time we see this reader, and make sure to register a cleanup key
             CleanupKey cleanupKey = new CleanupKey(cacheEntity, reader.getReaderCacheHelper().getKey());
             if (registeredClosedListeners.containsKey(cleanupKey) == false) {
@@ -130,7 +232,7 @@ public final class IndicesRequestCache implements RemovalListener<IndicesRequest
         } else {
             key.entity.onHit();
         }
-        return value;
+        return ReleasableBytesReference.wrap(value);
     }
 
     /**
@@ -141,7 +243,12 @@ public final class IndicesRequestCache implements RemovalListener<IndicesRequest
      */
     void invalidate(CacheEntity cacheEntity, MappingLookup.CacheKey mappingCacheKey, DirectoryReader reader, BytesReference cacheKey) {
         assert reader.getReaderCacheHelper() != null;
-        cache.invalidate(new Key(cacheEntity, mappingCacheKey, reader.getReaderCacheHelper().getKey(), cacheKey));
+        final Key key = new Key(cacheEntity, mappingCacheKey, reader.getReaderCacheHelper().getKey(), cacheKey);
+        cache.invalidate(key);
+        if (offHeapCache != null) {
+            spillEvicted();
+            offHeapCache.invalidate(key);
+        }
     }
 
     private static class Loader implements CacheLoader<Key, BytesReference> {
@@ -204,6 +311,26 @@ public final class IndicesRequestCache implements RemovalListener<IndicesRequest
          * Called when this entity instance is removed
          */
         void onRemoval(RemovalNotification<Key, BytesReference> notification);
+
+        /**
+         * Called each time this entity has a cache hit in the off-heap tier. Such hits are also reported through {@link #onHit()}.
+         */
+        void onOffHeapHit();
+
+        /**
+         * Called each time this entity misses both the on-heap and the off-heap tiers.
+         */
+        void onOffHeapMiss();
+
+        /**
+         * Called after the value evicted from the on-heap tier was spilled to the off-heap tier.
+         */
+        void onSpilled(Key key, BytesReference value);
+
+        /**
+         * Called when this entity instance is removed from the off-heap tier
+         */
+        void onOffHeapRemoval(RemovalNotification<Key, BytesReference> notification);
     }
 
     static class Key implements Accountable {
@@ -319,9 +446,15 @@ public final class IndicesRequestCache implements RemovalListener<IndicesRequest
                     }
                 }
             }
+            if (offHeapCache != null) {
+                spillEvicted();
+                offHeapCache.invalidateAll(key -> currentFullClean.contains(key.entity.getCacheIdentity())
+                    || currentKeysToClean.contains(new CleanupKey(key.entity, key.readerCacheKey)));
+            }
         }
 
         cache.refresh();
+        spillEvicted();
     }
 
 
@@ -332,6 +465,13 @@ public final class IndicesRequestCache implements RemovalListener<IndicesRequest
         return cache.count();
     }
 
+    /**
+     * Returns the current number of entries in the off-heap tier of the cache
+     */
+    int offHeapCount() {
+        return offHeapCache == null ? 0 : offHeapCache.count();
+    }
+
     int numRegisteredCloseListeners() { // for testing
         return registeredClosedListeners.size();
     }
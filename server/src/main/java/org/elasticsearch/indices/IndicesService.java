@@ -38,6 +38,7 @@ import org.elasticsearch.common.CheckedSupplier;
 import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.breaker.CircuitBreaker;
 import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.bytes.ReleasableBytesReference;
 import org.elasticsearch.common.component.AbstractLifecycleComponent;
 import org.elasticsearch.common.io.FileSystemUtils;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
@@ -1400,7 +1401,7 @@ public class IndicesService extends AbstractLifecycleComponent
 
         boolean[] loadedFromCache = new boolean[] { true };
         BytesReference cacheKey = request.cacheKey();
-        BytesReference bytesReference = cacheShardLevelResult(
+        try (ReleasableBytesReference bytesReference = cacheShardLevelResult(
             context.indexShard(),
             context.getSearchExecutionContext().mappingCacheKey(),
             directoryReader,
@@ -1410,15 +1411,18 @@ public class IndicesService extends AbstractLifecycleComponent
                 context.queryResult().writeToNoId(out);
                 loadedFromCache[0] = false;
             }
-        );
+        )) {
+            if (loadedFromCache[0]) {
+                // restore the cached query result into the context
+                final QuerySearchResult result = context.queryResult();
+                StreamInput in = new NamedWriteableAwareStreamInput(bytesReference.streamInput(), namedWriteableRegistry);
+                result.readFromWithId(context.id(), in);
+                result.setSearchShardTarget(context.shardTarget());
+                return;
+            }
+        }
 
-        if (loadedFromCache[0]) {
-            // restore the cached query result into the context
-            final QuerySearchResult result = context.queryResult();
-            StreamInput in = new NamedWriteableAwareStreamInput(bytesReference.streamInput(), namedWriteableRegistry);
-            result.readFromWithId(context.id(), in);
-            result.setSearchShardTarget(context.shardTarget());
-        } else if (context.queryResult().searchTimedOut()) {
+        if (context.queryResult().searchTimedOut()) {
             // we have to invalidate the cache entry if we cached a query result form a request that timed out.
             // we can't really throw exceptions in the loading part to signal a timed out search to the outside world since if there are
             // multiple requests that wait for the cache entry to be calculated they'd fail all with the same exception.
@@ -1449,9 +1453,9 @@ public class IndicesService extends AbstractLifecycleComponent
      * @param reader a reader for this shard. Used to invalidate the cache when there are changes.
      * @param cacheKey key for the thing being cached within this shard
      * @param loader loads the data into the cache if needed
-     * @return the contents of the cache or the result of calling the loader
+     * @return the contents of the cache or the result of calling the loader, which must be released once it is no longer used
      */
-    private BytesReference cacheShardLevelResult(
+    private ReleasableBytesReference cacheShardLevelResult(
         IndexShard shard,
         MappingLookup.CacheKey mappingCacheKey,
         DirectoryReader reader,
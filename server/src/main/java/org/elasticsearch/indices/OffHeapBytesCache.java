@@ -0,0 +1,240 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.indices;
+
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.BytesRefIterator;
+import org.elasticsearch.common.bytes.ByteBufferReference;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.bytes.ReleasableBytesReference;
+import org.elasticsearch.common.cache.RemovalListener;
+import org.elasticsearch.common.cache.RemovalNotification;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+/**
+ * A size-bounded cache of byte sequences stored in direct memory, used as the second tier of the {@link IndicesRequestCache} for the
+ * entries that are evicted from its on-heap tier.
+ * <p>
+ * The memory is organized as a ring of fixed-size direct slabs that are allocated lazily up to the configured size. Entries are appended
+ * to the most recent slab, so each entry is contiguous and can be served as a {@link ByteBufferReference} without copying it onto the
+ * heap. When there is no room left the oldest slab is recycled and all of the entries it holds are evicted together, which makes the
+ * eviction order first-in-first-out at slab granularity. A slab is only recycled once none of the references handed out by
+ * {@link #get} point into it anymore; until then new entries are rejected instead.
+ * <p>
+ * All operations take a single lock, which is fine because this tier is only consulted on misses of the on-heap tier. Copying the
+ * bytes out of the cache happens outside of the lock.
+ *
+ * @param <K> The type of the keys
+ */
+final class OffHeapBytesCache<K> implements Closeable {
+
+    static final long MIN_SLAB_SIZE_IN_BYTES = ByteSizeUnit.MB.toBytes(1);
+    static final long MAX_SLAB_SIZE_IN_BYTES = ByteSizeUnit.MB.toBytes(64);
+
+    private final long maxSizeInBytes;
+    private final int slabSizeInBytes;
+    private final RemovalListener<K, BytesReference> removalListener;
+
+    private final Map<K, Location<K>> locations = new HashMap<>();
+    // oldest slab first, the last slab is the one being appended to
+    private final ArrayDeque<Slab<K>> slabs = new ArrayDeque<>();
+    private long sizeInBytes;
+
+    OffHeapBytesCache(long maxSizeInBytes, RemovalListener<K, BytesReference> removalListener) {
+        if (maxSizeInBytes <= 0) {
+            throw new IllegalArgumentException("maxSizeInBytes must be positive but was [" + maxSizeInBytes + "]");
+        }
+        this.maxSizeInBytes = maxSizeInBytes;
+        // recycling a slab evicts at most about 1/32 of the cache, but entries bigger than a slab can't be stored
+        this.slabSizeInBytes = Math.toIntExact(
+            Math.min(maxSizeInBytes, Math.min(MAX_SLAB_SIZE_IN_BYTES, Math.max(MIN_SLAB_SIZE_IN_BYTES, maxSizeInBytes / 32))));
+        this.removalListener = removalListener;
+    }
+
+    /**
+     * Copies the given value into the cache, replacing any value that is associated with the key.
+     *
+     * @return true if the value was stored, false if it is bigger than a slab or if no slab could be recycled to make room for it
+     */
+    synchronized boolean put(K key, BytesReference value) {
+        final int length = value.length();
+        if (length > slabSizeInBytes) {
+            return false;
+        }
+        final Location<K> existing = locations.remove(key);
+        if (existing != null) {
+            notifyRemoval(key, existing, RemovalNotification.RemovalReason.REPLACED);
+        }
+        Slab<K> slab = slabs.peekLast();
+        if (slab == null || slabSizeInBytes - slab.writeOffset < length) {
+            slab = nextSlab();
+            if (slab == null) {
+                return false;
+            }
+        }
+        final int offset = slab.writeOffset;
+        final ByteBuffer target = slab.buffer.duplicate();
+        target.position(offset);
+        try {
+            final BytesRefIterator iterator = value.iterator();
+            BytesRef bytesRef;
+            while ((bytesRef = iterator.next()) != null) {
+                target.put(bytesRef.bytes, bytesRef.offset, bytesRef.length);
+            }
+        } catch (IOException e) {
+            // this is really an error since we don't do IO in our bytesreferences
+            throw new AssertionError("won't happen", e);
+        }
+        assert target.position() == offset + length;
+        slab.writeOffset += length;
+        slab.keys.add(key);
+        locations.put(key, new Location<>(slab, offset, length));
+        return true;
+    }
+
+    /**
+     * Returns the value associated with the key, or null if there is none. The returned reference points directly into the direct
+     * memory of the cache and must be released once it is no longer used.
+     */
+    synchronized ReleasableBytesReference get(K key) {
+        final Location<K> location = locations.get(key);
+        if (location == null) {
+            return null;
+        }
+        final Slab<K> slab = location.slab;
+        slab.readers.incrementAndGet();
+        return new ReleasableBytesReference(location.bytes(), slab.readers::decrementAndGet);
+    }
+
+    /**
+     * Removes the value associated with the key, if any.
+     */
+    synchronized void invalidate(K key) {
+        final Location<K> location = locations.remove(key);
+        if (location != null) {
+            notifyRemoval(key, location, RemovalNotification.RemovalReason.INVALIDATED);
+        }
+    }
+
+    /**
+     * Removes the values of all the keys matching the given predicate.
+     */
+    synchronized void invalidateAll(Predicate<K> predicate) {
+        for (Iterator<Map.Entry<K, Location<K>>> iterator = locations.entrySet().iterator(); iterator.hasNext(); ) {
+            final Map.Entry<K, Location<K>> entry = iterator.next();
+            if (predicate.test(entry.getKey())) {
+                iterator.remove();
+                notifyRemoval(entry.getKey(), entry.getValue(), RemovalNotification.RemovalReason.INVALIDATED);
+            }
+        }
+    }
+
+    /**
+     * The number of entries in the cache.
+     */
+    synchronized int count() {
+        return locations.size();
+    }
+
+    /**
+     * The amount of direct memory allocated by the cache so far, which never exceeds the maximum size.
+     */
+    synchronized long sizeInBytes() {
+        return sizeInBytes;
+    }
+
+    int slabSizeInBytes() {
+        return slabSizeInBytes;
+    }
+
+    @Override
+    public synchronized void close() {
+        invalidateAll(key -> true);
+        // the slabs are freed once they are garbage collected, which may be after the last reference handed out is released
+        slabs.clear();
+        sizeInBytes = 0;
+    }
+
+    private Slab<K> nextSlab() {
+        assert Thread.holdsLock(this);
+        if (sizeInBytes + slabSizeInBytes <= maxSizeInBytes) {
+            final Slab<K> slab = new Slab<>(ByteBuffer.allocateDirect(slabSizeInBytes));
+            sizeInBytes += slabSizeInBytes;
+            slabs.addLast(slab);
+            return slab;
+        }
+        final Slab<K> oldest = slabs.peekFirst();
+        if (oldest == null || oldest.readers.get() > 0) {
+            // no new readers can show up while we hold the lock, but existing ones may still be reading the oldest slab
+            return null;
+        }
+        slabs.removeFirst();
+        for (K key : oldest.keys) {
+            final Location<K> location = locations.get(key);
+            // the key may have been invalidated or replaced by a value in a more recent slab
+            if (location != null && location.slab == oldest) {
+                locations.remove(key);
+                notifyRemoval(key, location, RemovalNotification.RemovalReason.EVICTED);
+            }
+        }
+        oldest.keys.clear();
+        oldest.writeOffset = 0;
+        slabs.addLast(oldest);
+        return oldest;
+    }
+
+    private void notifyRemoval(K key, Location<K> location, RemovalNotification.RemovalReason reason) {
+        assert Thread.holdsLock(this);
+        removalListener.onRemoval(new RemovalNotification<>(key, location.bytes(), reason));
+    }
+
+    private static final class Slab<K> {
+        final ByteBuffer buffer;
+        // the keys of the entries that were appended to this slab, some of which may have been removed since
+        final List<K> keys = new ArrayList<>();
+        // the number of references handed out by get that were not released yet
+        final AtomicInteger readers = new AtomicInteger();
+        int writeOffset;
+
+        Slab(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+    }
+
+    private static final class Location<K> {
+        final Slab<K> slab;
+        final int offset;
+        final int length;
+
+        Location(Slab<K> slab, int offset, int length) {
+            this.slab = slab;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        BytesReference bytes() {
+            final ByteBuffer bytes = slab.buffer.duplicate();
+            bytes.position(offset);
+            bytes.limit(offset + length);
+            return new ByteBufferReference(bytes);
+        }
+    }
+}
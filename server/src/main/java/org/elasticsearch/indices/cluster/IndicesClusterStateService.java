@@ -215,21 +215,24 @@ public class IndicesClusterStateService extends AbstractLifecycleComponent imple
             return;
         }
 
-        updateFailedShardsCache(state);
+        // null e.g. if we are not a data node
+        final RoutingNode localRoutingNode = event.routingNodes().node(state.nodes().getLocalNodeId());
+
+        updateFailedShardsCache(state, localRoutingNode);
 
         deleteIndices(event); // also deletes shards of deleted indices
 
-        removeIndices(event); // also removes shards of removed indices
+        removeIndices(event, localRoutingNode); // also removes shards of removed indices
 
-        failMissingShards(state);
+        failMissingShards(state, localRoutingNode);
 
-        removeShards(state);   // removes any local shards that doesn't match what the master expects
+        removeShards(localRoutingNode);   // removes any local shards that doesn't match what the master expects
 
-        updateIndices(event); // can also fail shards, but these are then guaranteed to be in failedShardsCache
+        updateIndices(event, localRoutingNode); // can also fail shards, but these are then guaranteed to be in failedShardsCache
 
-        createIndices(state);
+        createIndices(state, localRoutingNode);
 
-        createOrUpdateShards(state);
+        createOrUpdateShards(state, localRoutingNode);
     }
 
     /**
@@ -237,10 +240,10 @@ public class IndicesClusterStateService extends AbstractLifecycleComponent imple
      * Sends shard failures for shards that are marked as actively allocated to this node but don't actually exist on the node.
      * Resends shard failures for shards that are still marked as allocated to this node but previously failed.
      *
-     * @param state new cluster state
+     * @param state            new cluster state
+     * @param localRoutingNode the routing node of this node in the new cluster state, if any
      */
-    private void updateFailedShardsCache(final ClusterState state) {
-        RoutingNode localRoutingNode = state.getRoutingNodes().node(state.nodes().getLocalNodeId());
+    private void updateFailedShardsCache(final ClusterState state, @Nullable final RoutingNode localRoutingNode) {
         if (localRoutingNode == null) {
             failedShardsCache.clear();
             return;
@@ -357,15 +360,14 @@ public class IndicesClusterStateService extends AbstractLifecycleComponent imple
      * as we wait for enough shard copies to exist in the cluster before deleting shard data (triggered by
      * {@link org.elasticsearch.indices.store.IndicesStore}).
      *
-     * @param event the cluster changed event
+     * @param event            the cluster changed event
+     * @param localRoutingNode the routing node of this node in the new cluster state, if any
      */
-    private void removeIndices(final ClusterChangedEvent event) {
+    private void removeIndices(final ClusterChangedEvent event, @Nullable final RoutingNode localRoutingNode) {
         final ClusterState state = event.state();
-        final String localNodeId = state.nodes().getLocalNodeId();
-        assert localNodeId != null;
+        assert state.nodes().getLocalNodeId() != null;
 
         final Set<Index> indicesWithShards = new HashSet<>();
-        RoutingNode localRoutingNode = state.getRoutingNodes().node(localNodeId);
         if (localRoutingNode != null) { // null e.g. if we are not a data node
             for (ShardRouting shardRouting : localRoutingNode) {
                 indicesWithShards.add(shardRouting.index());
@@ -401,10 +403,10 @@ public class IndicesClusterStateService extends AbstractLifecycleComponent imple
     /**
      * Notifies master about shards that don't exist but are supposed to be active on this node.
      *
-     * @param state new cluster state
+     * @param state            new cluster state
+     * @param localRoutingNode the routing node of this node in the new cluster state, if any
      */
-    private void failMissingShards(final ClusterState state) {
-        RoutingNode localRoutingNode = state.getRoutingNodes().node(state.nodes().getLocalNodeId());
+    private void failMissingShards(final ClusterState state, @Nullable final RoutingNode localRoutingNode) {
         if (localRoutingNode == null) {
             return;
         }
@@ -424,14 +426,10 @@ public class IndicesClusterStateService extends AbstractLifecycleComponent imple
      * Removes shards that are currently loaded by indicesService but have disappeared from the routing table of the current node.
      * This method does not delete the shard data.
      *
-     * @param state new cluster state
+     * @param localRoutingNode the routing node of this node in the new cluster state, if any
      */
-    private void removeShards(final ClusterState state) {
-        final String localNodeId = state.nodes().getLocalNodeId();
-        assert localNodeId != null;
-
+    private void removeShards(@Nullable final RoutingNode localRoutingNode) {
         // remove shards based on routing nodes (no deletion of data)
-        RoutingNode localRoutingNode = state.getRoutingNodes().node(localNodeId);
         for (AllocatedIndex<? extends Shard> indexService : indicesService) {
             for (Shard shard : indexService) {
                 ShardRouting currentRoutingEntry = shard.routingEntry();
@@ -463,9 +461,8 @@ public class IndicesClusterStateService extends AbstractLifecycleComponent imple
         }
     }
 
-    private void createIndices(final ClusterState state) {
+    private void createIndices(final ClusterState state, @Nullable final RoutingNode localRoutingNode) {
         // we only create indices for shards that are allocated
-        RoutingNode localRoutingNode = state.getRoutingNodes().node(state.nodes().getLocalNodeId());
         if (localRoutingNode == null) {
             return;
         }
@@ -509,7 +506,7 @@ public class IndicesClusterStateService extends AbstractLifecycleComponent imple
         }
     }
 
-    private void updateIndices(ClusterChangedEvent event) {
+    private void updateIndices(ClusterChangedEvent event, @Nullable RoutingNode localRoutingNode) {
         if (event.metadataChanged() == false) {
             return;
         }
@@ -541,7 +538,6 @@ public class IndicesClusterStateService extends AbstractLifecycleComponent imple
                     indicesService.removeIndex(indexService.index(), FAILURE, "removing index (" + reason + ")");
 
                     // fail shards that would be created or updated by createOrUpdateShards
-                    RoutingNode localRoutingNode = state.getRoutingNodes().node(state.nodes().getLocalNodeId());
                     if (localRoutingNode != null) {
                         for (final ShardRouting shardRouting : localRoutingNode) {
                             if (shardRouting.index().equals(index) && failedShardsCache.containsKey(shardRouting.shardId()) == false) {
@@ -554,8 +550,7 @@ public class IndicesClusterStateService extends AbstractLifecycleComponent imple
         }
     }
 
-    private void createOrUpdateShards(final ClusterState state) {
-        RoutingNode localRoutingNode = state.getRoutingNodes().node(state.nodes().getLocalNodeId());
+    private void createOrUpdateShards(final ClusterState state, @Nullable final RoutingNode localRoutingNode) {
         if (localRoutingNode == null) {
             return;
         }
@@ -25,6 +25,7 @@ import org.elasticsearch.index.store.StoreFileMetadata;
 import org.elasticsearch.transport.Transports;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
@@ -70,6 +71,39 @@ public class MultiFileWriter extends AbstractRefCounted implements Releasable {
         }
     }
 
+    /**
+     * Writes the whole content of the given file, which is read from the given stream with a buffer of the given size. The temporary
+     * file is deleted if the file cannot be written in full, so that its content can be sent again from the start.
+     */
+    public void writeFile(StoreFileMetadata fileMetadata, int readBufferSizeInBytes, InputStream stream) throws IOException {
+        assert Transports.assertNotTransportThread("multi_file_writer");
+        final String name = fileMetadata.name();
+        final String temporaryFileName = getTempNameForFile(name);
+        incRef();
+        boolean success = false;
+        try (IndexOutput indexOutput = openAndPutIndexOutput(name, fileMetadata, store)) {
+            final byte[] buffer = new byte[Math.toIntExact(Math.max(1L, Math.min(readBufferSizeInBytes, fileMetadata.length())))];
+            int length;
+            while ((length = stream.read(buffer)) > 0) {
+                ensureOpen.run();
+                indexOutput.writeBytes(buffer, 0, length);
+                indexState.addRecoveredBytesToFile(name, length);
+            }
+            Store.verify(indexOutput);
+            indexOutput.close();
+            store.directory().sync(Collections.singleton(temporaryFileName));
+            success = true;
+        } finally {
+            openIndexOutputs.remove(name);
+            if (success == false) {
+                tempFileNames.remove(temporaryFileName);
+                store.deleteQuiet(temporaryFileName);
+                indexState.resetRecoveredBytesOfFile(name);
+            }
+            decRef();
+        }
+    }
+
     /** Get a temporary name for the provided file name. */
     String getTempNameForFile(String origFile) {
         return tempFilePrefix + origFile;
@@ -30,6 +30,7 @@ import org.elasticsearch.action.support.replication.ReplicationResponse;
 import org.elasticsearch.cluster.routing.IndexShardRoutingTable;
 import org.elasticsearch.cluster.routing.ShardRouting;
 import org.elasticsearch.common.CheckedRunnable;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.StopWatch;
 import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
@@ -41,6 +42,7 @@ import org.elasticsearch.common.lucene.store.InputStreamIndexInput;
 import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.util.CancellableThreads;
+import org.elasticsearch.common.util.concurrent.CountDown;
 import org.elasticsearch.common.util.concurrent.EsExecutors;
 import org.elasticsearch.common.util.concurrent.FutureUtils;
 import org.elasticsearch.common.util.concurrent.ListenableFuture;
@@ -56,10 +58,14 @@ import org.elasticsearch.index.shard.IndexShard;
 import org.elasticsearch.index.shard.IndexShardClosedException;
 import org.elasticsearch.index.shard.IndexShardRelocatedException;
 import org.elasticsearch.index.shard.IndexShardState;
+import org.elasticsearch.index.snapshots.blobstore.BlobStoreIndexShardSnapshot;
 import org.elasticsearch.index.store.Store;
 import org.elasticsearch.index.store.StoreFileMetadata;
 import org.elasticsearch.index.translog.Translog;
+import org.elasticsearch.indices.recovery.ShardSnapshotsLookup.SnapshotFilesToRecover;
+import org.elasticsearch.node.NodeClosedException;
 import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.transport.ConnectTransportException;
 import org.elasticsearch.transport.RemoteTransportException;
 import org.elasticsearch.transport.Transports;
 
@@ -70,9 +76,14 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.CopyOnWriteArrayList;
@@ -106,6 +117,9 @@ public class RecoverySourceHandler {
     private final RecoveryTargetHandler recoveryTarget;
     private final int maxConcurrentFileChunks;
     private final int maxConcurrentOperations;
+    @Nullable
+    private final ShardSnapshotsLookup shardSnapshotsLookup;
+    private final int maxConcurrentSnapshotFileDownloads;
     private final ThreadPool threadPool;
     private final CancellableThreads cancellableThreads = new CancellableThreads();
     private final List<Closeable> resources = new CopyOnWriteArrayList<>();
@@ -114,6 +128,18 @@ public class RecoverySourceHandler {
     public RecoverySourceHandler(IndexShard shard, RecoveryTargetHandler recoveryTarget, ThreadPool threadPool,
                                  StartRecoveryRequest request, int fileChunkSizeInBytes, int maxConcurrentFileChunks,
                                  int maxConcurrentOperations) {
+        this(shard, recoveryTarget, threadPool, request, fileChunkSizeInBytes, maxConcurrentFileChunks, maxConcurrentOperations, null, 1);
+    }
+
+    /**
+     * @param shardSnapshotsLookup               finds the files that the target can restore from a snapshot of the shard, or
+     *                                           {@code null} if all files are to be sent from this node
+     * @param maxConcurrentSnapshotFileDownloads the maximum number of files that the target restores from a snapshot concurrently
+     */
+    public RecoverySourceHandler(IndexShard shard, RecoveryTargetHandler recoveryTarget, ThreadPool threadPool,
+                                 StartRecoveryRequest request, int fileChunkSizeInBytes, int maxConcurrentFileChunks,
+                                 int maxConcurrentOperations, @Nullable ShardSnapshotsLookup shardSnapshotsLookup,
+                                 int maxConcurrentSnapshotFileDownloads) {
         this.shard = shard;
         this.recoveryTarget = recoveryTarget;
         this.threadPool = threadPool;
@@ -123,6 +149,8 @@ public class RecoverySourceHandler {
         this.chunkSizeInBytes = fileChunkSizeInBytes;
         this.maxConcurrentFileChunks = maxConcurrentFileChunks;
         this.maxConcurrentOperations = maxConcurrentOperations;
+        this.shardSnapshotsLookup = shardSnapshotsLookup;
+        this.maxConcurrentSnapshotFileDownloads = maxConcurrentSnapshotFileDownloads;
     }
 
     public StartRecoveryRequest getRequest() {
@@ -448,7 +476,10 @@ public class RecoverySourceHandler {
      * <p>
      * Phase1 examines the segment files on the target node and copies over the
      * segments that are missing. Only segments that have the same size and
-     * checksum can be reused
+     * checksum can be reused. The missing files that did not change since the
+     * last snapshot of the shard are restored by the target node from the
+     * repository if possible, see {@link ShardSnapshotsLookup}, and only the
+     * other ones are sent from this node.
      */
     void phase1(IndexCommit snapshot, long startingSeqNo, IntSupplier translogOps, ActionListener<SendFileResult> listener) {
         cancellableThreads.checkForCancel();
@@ -514,6 +545,7 @@ public class RecoverySourceHandler {
                     phase1FileNames.size(), new ByteSizeValue(totalSizeInBytes),
                     phase1ExistingFileNames.size(), new ByteSizeValue(existingTotalSizeInBytes));
                 final StepListener<Void> sendFileInfoStep = new StepListener<>();
+                final StepListener<List<StoreFileMetadata>> restoreFilesFromSnapshotStep = new StepListener<>();
                 final StepListener<Void> sendFilesStep = new StepListener<>();
                 final StepListener<RetentionLease> createRetentionLeaseStep = new StepListener<>();
                 final StepListener<Void> cleanFilesStep = new StepListener<>();
@@ -522,7 +554,10 @@ public class RecoverySourceHandler {
                         phase1ExistingFileSizes, translogOps.getAsInt(), sendFileInfoStep);
 
                 sendFileInfoStep.whenComplete(r ->
-                    sendFiles(store, phase1Files.toArray(new StoreFileMetadata[0]), translogOps, sendFilesStep), listener::onFailure);
+                    restoreFilesFromSnapshot(recoverySourceMetadata, phase1Files, restoreFilesFromSnapshotStep), listener::onFailure);
+
+                restoreFilesFromSnapshotStep.whenComplete(filesToSend ->
+                    sendFiles(store, filesToSend.toArray(new StoreFileMetadata[0]), translogOps, sendFilesStep), listener::onFailure);
 
                 sendFilesStep.whenComplete(r -> createRetentionLease(startingSeqNo, createRetentionLeaseStep), listener::onFailure);
 
@@ -566,6 +601,135 @@ public class RecoverySourceHandler {
         }
     }
 
+    /**
+     * Asks the target to restore the given files from a snapshot of the shard, if a snapshot holds some of them, and completes the
+     * listener with the files that this node must send itself. These are the files that no snapshot holds and the ones that the target
+     * failed to restore, since restoring from a snapshot is an optimization that must not fail the recovery. The listener only fails if
+     * the recovery was cancelled or the target went away while restoring.
+     */
+    void restoreFilesFromSnapshot(Store.MetadataSnapshot sourceMetadata, List<StoreFileMetadata> files,
+                                  ActionListener<List<StoreFileMetadata>> listener) {
+        if (shardSnapshotsLookup == null || files.isEmpty()) {
+            listener.onResponse(files);
+            return;
+        }
+        cancellableThreads.checkForCancel();
+        shardSnapshotsLookup.findSnapshotFiles(request.shardId(), sourceMetadata, files, ActionListener.wrap(snapshotFiles -> {
+            if (snapshotFiles == null) {
+                logger.trace("recovery [phase1]: no snapshot holds any of the files to recover");
+                listener.onResponse(files);
+                return;
+            }
+            final Set<String> snapshotFileNames = new HashSet<>();
+            for (BlobStoreIndexShardSnapshot.FileInfo fileInfo : snapshotFiles.files()) {
+                snapshotFileNames.add(fileInfo.physicalName());
+            }
+            final Map<String, StoreFileMetadata> filesByName = new HashMap<>();
+            final List<StoreFileMetadata> filesToSend = Collections.synchronizedList(new ArrayList<>());
+            for (StoreFileMetadata md : files) {
+                filesByName.put(md.name(), md);
+                if (snapshotFileNames.contains(md.name()) == false) {
+                    filesToSend.add(md);
+                }
+            }
+            logger.trace("recovery [phase1]: restoring [{}] files with total_size [{}] from repository [{}]", snapshotFiles.files().size(),
+                new ByteSizeValue(snapshotFiles.sizeInBytes()), snapshotFiles.repository());
+            new SnapshotFilesRestorer(snapshotFiles, filesByName, filesToSend, listener).start();
+        }, e -> {
+            logger.debug("recovery [phase1]: failed to look up the snapshots of the shard, sending all files", e);
+            listener.onResponse(files);
+        }));
+    }
+
+    /**
+     * Has the target restore the files of a snapshot, at most {@code maxConcurrentSnapshotFileDownloads} at a time. A file that the target
+     * fails to restore is sent instead, unless the failure means that the recovery itself cannot proceed, in which case the listener fails.
+     */
+    private class SnapshotFilesRestorer {
+        private final SnapshotFilesToRecover snapshotFiles;
+        private final Iterator<BlobStoreIndexShardSnapshot.FileInfo> pendingFiles;
+        private final CountDown countDown;
+        private final Map<String, StoreFileMetadata> filesByName;
+        private final List<StoreFileMetadata> filesToSend;
+        private final ActionListener<List<StoreFileMetadata>> listener;
+
+        SnapshotFilesRestorer(SnapshotFilesToRecover snapshotFiles, Map<String, StoreFileMetadata> filesByName,
+                              List<StoreFileMetadata> filesToSend, ActionListener<List<StoreFileMetadata>> listener) {
+            this.snapshotFiles = snapshotFiles;
+            this.pendingFiles = snapshotFiles.files().iterator();
+            this.countDown = new CountDown(snapshotFiles.files().size());
+            this.filesByName = filesByName;
+            this.filesToSend = filesToSend;
+            this.listener = listener;
+        }
+
+        void start() {
+            for (int i = 0; i < maxConcurrentSnapshotFileDownloads; i++) {
+                restoreFiles();
+            }
+        }
+
+        /**
+         * Restores one file after the other for as long as the restores complete on the calling thread, and hands over to the thread that
+         * completes a restore otherwise, so that the stack does not grow with the number of files that fail or succeed synchronously.
+         */
+        private void restoreFiles() {
+            while (true) {
+                final BlobStoreIndexShardSnapshot.FileInfo fileInfo;
+                synchronized (pendingFiles) {
+                    if (countDown.isCountedDown() || pendingFiles.hasNext() == false) {
+                        return;
+                    }
+                    fileInfo = pendingFiles.next();
+                }
+                // set by whichever of this thread and the thread completing the restore comes second, which then restores the next file
+                final AtomicBoolean restoreDone = new AtomicBoolean();
+                recoveryTarget.restoreFileFromSnapshot(snapshotFiles.repository(), snapshotFiles.indexId(), fileInfo,
+                    ActionListener.wrap(r -> onFileDone(restoreDone), e -> onFileFailed(fileInfo, e, restoreDone)));
+                if (restoreDone.compareAndSet(false, true)) {
+                    return;
+                }
+            }
+        }
+
+        private void onFileFailed(BlobStoreIndexShardSnapshot.FileInfo fileInfo, Exception e, AtomicBoolean restoreDone) {
+            if (isRecoveryFailure(e)) {
+                if (countDown.fastForward()) {
+                    listener.onFailure(e);
+                }
+                return;
+            }
+            logger.debug(() -> new ParameterizedMessage(
+                "recovery [phase1]: failed to restore [{}] from repository [{}], sending it instead",
+                fileInfo.physicalName(), snapshotFiles.repository()), e);
+            filesToSend.add(filesByName.get(fileInfo.physicalName()));
+            onFileDone(restoreDone);
+        }
+
+        private void onFileDone(AtomicBoolean restoreDone) {
+            if (countDown.countDown()) {
+                listener.onResponse(filesToSend);
+            } else if (restoreDone.compareAndSet(false, true) == false) {
+                restoreFiles();
+            }
+        }
+
+        /**
+         * Whether a failure to restore a file means that the recovery was cancelled or that the target cannot receive files any more, so
+         * that sending the file instead is pointless.
+         */
+        private boolean isRecoveryFailure(Exception e) {
+            if (cancellableThreads.isCancelled()) {
+                return true;
+            }
+            final Throwable cause = ExceptionsHelper.unwrapCause(e);
+            return cause instanceof CancellableThreads.ExecutionCancelledException
+                || cause instanceof IndexShardClosedException
+                || cause instanceof ConnectTransportException
+                || cause instanceof NodeClosedException;
+        }
+    }
+
     void createRetentionLease(final long startingSeqNo, ActionListener<RetentionLease> listener) {
         runUnderPrimaryPermit(() -> {
                 // Clone the peer recovery retention lease belonging to the source shard. We are retaining history between the the local
@@ -35,11 +35,14 @@ import org.elasticsearch.index.shard.IndexShard;
 import org.elasticsearch.index.shard.IndexShardNotRecoveringException;
 import org.elasticsearch.index.shard.IndexShardState;
 import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.index.snapshots.blobstore.BlobStoreIndexShardSnapshot;
 import org.elasticsearch.index.store.Store;
 import org.elasticsearch.index.store.StoreFileMetadata;
 import org.elasticsearch.index.translog.Translog;
+import org.elasticsearch.repositories.IndexId;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Path;
 import java.util.List;
 import java.util.concurrent.CountDownLatch;
@@ -66,6 +69,8 @@ public class RecoveryTarget extends AbstractRefCounted implements RecoveryTarget
     private final RecoveryRequestTracker requestTracker = new RecoveryRequestTracker();
     private final Store store;
     private final PeerRecoveryTargetService.RecoveryListener listener;
+    @Nullable
+    private final SnapshotFilesProvider snapshotFilesProvider;
 
     private final AtomicBoolean finished = new AtomicBoolean();
 
@@ -87,7 +92,22 @@ public class RecoveryTarget extends AbstractRefCounted implements RecoveryTarget
      * @param listener                          called when recovery is completed/failed
      */
     public RecoveryTarget(IndexShard indexShard, DiscoveryNode sourceNode, PeerRecoveryTargetService.RecoveryListener listener) {
+        this(indexShard, sourceNode, null, listener);
+    }
+
+    /**
+     * Creates a new recovery target object that represents a recovery to the provided shard.
+     *
+     * @param indexShard                        local shard where we want to recover to
+     * @param sourceNode                        source node of the recovery where we recover from
+     * @param snapshotFilesProvider             gives access to the files of the shard snapshots, or {@code null} if the files cannot
+     *                                          be restored from snapshots
+     * @param listener                          called when recovery is completed/failed
+     */
+    public RecoveryTarget(IndexShard indexShard, DiscoveryNode sourceNode, @Nullable SnapshotFilesProvider snapshotFilesProvider,
+                          PeerRecoveryTargetService.RecoveryListener listener) {
         super("recovery_status");
+        this.snapshotFilesProvider = snapshotFilesProvider;
         this.cancellableThreads = new CancellableThreads();
         this.recoveryId = idGenerator.incrementAndGet();
         this.listener = listener;
@@ -110,7 +130,7 @@ public class RecoveryTarget extends AbstractRefCounted implements RecoveryTarget
      * @return a copy of this recovery target
      */
     public RecoveryTarget retryCopy() {
-        return new RecoveryTarget(indexShard, sourceNode, listener);
+        return new RecoveryTarget(indexShard, sourceNode, snapshotFilesProvider, listener);
     }
 
     @Nullable
@@ -495,6 +515,21 @@ public class RecoveryTarget extends AbstractRefCounted implements RecoveryTarget
         }
     }
 
+    @Override
+    public void restoreFileFromSnapshot(String repository, IndexId indexId, BlobStoreIndexShardSnapshot.FileInfo fileInfo,
+                                        ActionListener<Void> listener) {
+        ActionListener.completeWith(listener, () -> {
+            if (snapshotFilesProvider == null) {
+                throw new IllegalStateException("restoring files from snapshots is not supported by this recovery");
+            }
+            final int readBufferSizeInBytes = snapshotFilesProvider.getReadBufferSizeInBytes(repository);
+            try (InputStream stream = snapshotFilesProvider.getInputStreamForSnapshotFile(repository, indexId, shardId, fileInfo)) {
+                multiFileWriter.writeFile(fileInfo.metadata(), readBufferSizeInBytes, stream);
+            }
+            return null;
+        });
+    }
+
     /** Get a temporary name for the provided file name. */
     public String getTempNameForFile(String origFile) {
         return multiFileWriter.getTempNameForFile(origFile);
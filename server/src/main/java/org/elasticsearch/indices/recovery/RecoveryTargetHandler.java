@@ -11,9 +11,11 @@ import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.common.bytes.ReleasableBytesReference;
 import org.elasticsearch.index.seqno.ReplicationTracker;
 import org.elasticsearch.index.seqno.RetentionLeases;
+import org.elasticsearch.index.snapshots.blobstore.BlobStoreIndexShardSnapshot;
 import org.elasticsearch.index.store.Store;
 import org.elasticsearch.index.store.StoreFileMetadata;
 import org.elasticsearch.index.translog.Translog;
+import org.elasticsearch.repositories.IndexId;
 
 import java.util.List;
 
@@ -96,5 +98,17 @@ public interface RecoveryTargetHandler {
     void writeFileChunk(StoreFileMetadata fileMetadata, long position, ReleasableBytesReference content,
                         boolean lastChunk, int totalTranslogOps, ActionListener<Void> listener);
 
+    /**
+     * Restores a file from a snapshot of the shard instead of receiving its content from the source, see {@link ShardSnapshotsLookup}.
+     * The listener is failed if the file cannot be restored, in which case the source can still send it with
+     * {@link #writeFileChunk} from the start.
+     *
+     * @param repository the name of the repository that holds the snapshot
+     * @param indexId    the id of the index in the repository
+     * @param fileInfo   the file to restore
+     */
+    void restoreFileFromSnapshot(String repository, IndexId indexId, BlobStoreIndexShardSnapshot.FileInfo fileInfo,
+                                 ActionListener<Void> listener);
+
     default void cancel() {}
 }
@@ -0,0 +1,202 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.indices.recovery;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.message.ParameterizedMessage;
+import org.apache.lucene.index.IndexFileNames;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.support.GroupedActionListener;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.index.snapshots.blobstore.BlobStoreIndexShardSnapshot.FileInfo;
+import org.elasticsearch.index.snapshots.blobstore.BlobStoreIndexShardSnapshots;
+import org.elasticsearch.index.snapshots.blobstore.SnapshotFiles;
+import org.elasticsearch.index.store.Store;
+import org.elasticsearch.index.store.StoreFileMetadata;
+import org.elasticsearch.repositories.IndexId;
+import org.elasticsearch.repositories.RepositoriesService;
+import org.elasticsearch.repositories.Repository;
+import org.elasticsearch.repositories.RepositoryData;
+import org.elasticsearch.repositories.ShardGenerations;
+import org.elasticsearch.repositories.blobstore.BlobStoreRepository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Looks up the snapshots of a shard in the repositories that are registered with
+ * {@link BlobStoreRepository#USE_FOR_PEER_RECOVERY_SETTING}, to find the files that the target node of a peer recovery can restore
+ * from a repository rather than receiving them from the source node.
+ */
+public class ShardSnapshotsLookup {
+
+    private static final Logger logger = LogManager.getLogger(ShardSnapshotsLookup.class);
+
+    private final RepositoriesService repositoriesService;
+
+    public ShardSnapshotsLookup(RepositoriesService repositoriesService) {
+        this.repositoriesService = repositoriesService;
+    }
+
+    /**
+     * Finds the snapshot of the given shard that holds the largest share of the given files, and completes the listener with the files
+     * that can be restored from it, or with {@code null} if no snapshot holds any of them. Repositories that cannot be read are skipped,
+     * since the files can always be sent by the source node.
+     *
+     * @param shardId        the shard to recover
+     * @param sourceMetadata the metadata of the commit that the source node recovers from
+     * @param files          the files of that commit that the target node misses
+     */
+    public void findSnapshotFiles(ShardId shardId, Store.MetadataSnapshot sourceMetadata, List<StoreFileMetadata> files,
+                                  ActionListener<SnapshotFilesToRecover> listener) {
+        final List<BlobStoreRepository> repositories = new ArrayList<>();
+        for (Repository repository : repositoriesService.getRepositories().values()) {
+            if (repository instanceof BlobStoreRepository
+                && BlobStoreRepository.USE_FOR_PEER_RECOVERY_SETTING.get(repository.getMetadata().settings())) {
+                repositories.add((BlobStoreRepository) repository);
+            }
+        }
+        if (repositories.isEmpty() || files.isEmpty()) {
+            listener.onResponse(null);
+            return;
+        }
+
+        final GroupedActionListener<SnapshotFilesToRecover> groupedListener = new GroupedActionListener<>(
+            listener.map(ShardSnapshotsLookup::largest), repositories.size());
+        for (BlobStoreRepository repository : repositories) {
+            final String repositoryName = repository.getMetadata().name();
+            repository.getRepositoryData(ActionListener.wrap(repositoryData -> {
+                SnapshotFilesToRecover snapshotFiles = null;
+                try {
+                    snapshotFiles = findSnapshotFiles(repository, repositoryData, shardId, sourceMetadata, files);
+                } catch (Exception e) {
+                    logger.debug(() -> new ParameterizedMessage("{} failed to load the snapshots of the shard from repository [{}]",
+                        shardId, repositoryName), e);
+                }
+                groupedListener.onResponse(snapshotFiles);
+            }, e -> {
+                logger.debug(() -> new ParameterizedMessage("{} failed to load repository data of repository [{}]",
+                    shardId, repositoryName), e);
+                groupedListener.onResponse(null);
+            }));
+        }
+    }
+
+    @Nullable
+    private static SnapshotFilesToRecover findSnapshotFiles(BlobStoreRepository repository, RepositoryData repositoryData,
+                                                            ShardId shardId, Store.MetadataSnapshot sourceMetadata,
+                                                            List<StoreFileMetadata> files) throws Exception {
+        final IndexId indexId = repositoryData.getIndices().get(shardId.getIndexName());
+        if (indexId == null) {
+            return null;
+        }
+        final String generation = repositoryData.shardGenerations().getShardGen(indexId, shardId.id());
+        if (ShardGenerations.NEW_SHARD_GEN.equals(generation) || ShardGenerations.DELETED_SHARD_GEN.equals(generation)) {
+            return null;
+        }
+        final BlobStoreIndexShardSnapshots shardSnapshots = repository.getBlobStoreIndexShardSnapshots(indexId, shardId.id(), generation);
+        final List<FileInfo> snapshotFiles = findSnapshotFiles(shardSnapshots, sourceMetadata, files);
+        if (snapshotFiles.isEmpty()) {
+            return null;
+        }
+        return new SnapshotFilesToRecover(repository.getMetadata().name(), indexId, snapshotFiles);
+    }
+
+    /**
+     * Returns the files among the given ones that the snapshot holding the most of their bytes can restore. Files only match if they
+     * have the same name, length and checksum, and if their segment is the same too (which the hash of the {@code .si} file tells) since
+     * checksums alone could collide across unrelated files. Files whose content is held in the metadata of the snapshot are left out
+     * because they are tiny and cheaper to send directly.
+     */
+    static List<FileInfo> findSnapshotFiles(BlobStoreIndexShardSnapshots shardSnapshots, Store.MetadataSnapshot sourceMetadata,
+                                            List<StoreFileMetadata> files) {
+        List<FileInfo> best = Collections.emptyList();
+        long bestSizeInBytes = 0L;
+        for (SnapshotFiles snapshot : shardSnapshots) {
+            final Map<String, FileInfo> snapshotFiles = new HashMap<>();
+            for (FileInfo fileInfo : snapshot.indexFiles()) {
+                snapshotFiles.put(fileInfo.physicalName(), fileInfo);
+            }
+            final List<FileInfo> matching = new ArrayList<>();
+            long sizeInBytes = 0L;
+            for (StoreFileMetadata md : files) {
+                final FileInfo fileInfo = snapshotFiles.get(md.name());
+                if (fileInfo != null && fileInfo.metadata().hashEqualsContents() == false && fileInfo.isSame(md)
+                    && isSameSegment(md, sourceMetadata, snapshotFiles)) {
+                    matching.add(fileInfo);
+                    sizeInBytes += md.length();
+                }
+            }
+            if (sizeInBytes > bestSizeInBytes) {
+                best = matching;
+                bestSizeInBytes = sizeInBytes;
+            }
+        }
+        return best;
+    }
+
+    private static boolean isSameSegment(StoreFileMetadata md, Store.MetadataSnapshot sourceMetadata, Map<String, FileInfo> snapshotFiles) {
+        if (md.hash().length > 0) {
+            // the hash of the file is its whole content, or identifies the segment already
+            return true;
+        }
+        final String segmentInfoFileName = IndexFileNames.segmentFileName(IndexFileNames.parseSegmentName(md.name()), "", "si");
+        final StoreFileMetadata segmentInfo = sourceMetadata.get(segmentInfoFileName);
+        final FileInfo snapshotSegmentInfo = snapshotFiles.get(segmentInfoFileName);
+        return segmentInfo != null && snapshotSegmentInfo != null && snapshotSegmentInfo.isSame(segmentInfo);
+    }
+
+    @Nullable
+    private static SnapshotFilesToRecover largest(Collection<SnapshotFilesToRecover> candidates) {
+        SnapshotFilesToRecover largest = null;
+        for (SnapshotFilesToRecover candidate : candidates) {
+            if (largest == null || candidate.sizeInBytes() > largest.sizeInBytes()) {
+                largest = candidate;
+            }
+        }
+        return largest;
+    }
+
+    /**
+     * The files of a shard snapshot that the target node of a peer recovery can restore from a repository.
+     */
+    public static final class SnapshotFilesToRecover {
+        private final String repository;
+        private final IndexId indexId;
+        private final List<FileInfo> files;
+
+        SnapshotFilesToRecover(String repository, IndexId indexId, List<FileInfo> files) {
+            this.repository = repository;
+            this.indexId = indexId;
+            this.files = files;
+        }
+
+        public String repository() {
+            return repository;
+        }
+
+        public IndexId indexId() {
+            return indexId;
+        }
+
+        public List<FileInfo> files() {
+            return files;
+        }
+
+        public long sizeInBytes() {
+            return files.stream().mapToLong(FileInfo::length).sum();
+        }
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.indices.recovery;
+
+import org.elasticsearch.common.blobstore.BlobContainer;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.index.snapshots.blobstore.BlobStoreIndexShardSnapshot;
+import org.elasticsearch.index.snapshots.blobstore.SlicedInputStream;
+import org.elasticsearch.repositories.IndexId;
+import org.elasticsearch.repositories.RepositoriesService;
+import org.elasticsearch.repositories.Repository;
+import org.elasticsearch.repositories.blobstore.BlobStoreRepository;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Gives the target node of a peer recovery access to the content of the files of a shard snapshot, so that it can restore them from
+ * the repository rather than receiving them from the source node.
+ */
+public class SnapshotFilesProvider {
+
+    private final RepositoriesService repositoriesService;
+
+    public SnapshotFilesProvider(RepositoriesService repositoriesService) {
+        this.repositoriesService = repositoriesService;
+    }
+
+    /**
+     * Opens a stream over the content of the given file of a shard snapshot, which reads its parts one after the other and is throttled
+     * like the restores from the repository.
+     */
+    public InputStream getInputStreamForSnapshotFile(String repositoryName, IndexId indexId, ShardId shardId,
+                                                     BlobStoreIndexShardSnapshot.FileInfo fileInfo) {
+        final BlobStoreRepository repository = getRepository(repositoryName);
+        final BlobContainer shardContainer = repository.shardContainer(indexId, shardId.id());
+        return repository.maybeRateLimitRestores(new SlicedInputStream(fileInfo.numberOfParts()) {
+            @Override
+            protected InputStream openSlice(int slice) throws IOException {
+                return shardContainer.readBlob(fileInfo.partName(slice));
+            }
+        });
+    }
+
+    /**
+     * Returns the size of the buffer to use when reading the files of a shard snapshot from the given repository.
+     */
+    public int getReadBufferSizeInBytes(String repositoryName) {
+        return getRepository(repositoryName).getReadBufferSizeInBytes();
+    }
+
+    private BlobStoreRepository getRepository(String repositoryName) {
+        final Repository repository = repositoriesService.repository(repositoryName);
+        if (repository instanceof BlobStoreRepository == false) {
+            throw new IllegalArgumentException("repository [" + repositoryName + "] does not support restoring files for peer recoveries");
+        }
+        return (BlobStoreRepository) repository;
+    }
+}
@@ -126,7 +126,7 @@ public class IndicesStore implements ClusterStateListener, Closeable {
         folderNotFoundCache.removeIf(shardId -> routingTable.hasIndex(shardId.getIndex()) == false);
         // remove entries from cache which are allocated to this node
         final String localNodeId = event.state().nodes().getLocalNodeId();
-        RoutingNode localRoutingNode = event.state().getRoutingNodes().node(localNodeId);
+        RoutingNode localRoutingNode = event.routingNodes().node(localNodeId);
         if (localRoutingNode != null) {
             for (ShardRouting routing : localRoutingNode) {
                 folderNotFoundCache.remove(routing.shardId());
@@ -16,6 +16,7 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiConsumer;
 import java.util.function.LongSupplier;
 import java.util.stream.Collectors;
@@ -155,6 +156,83 @@ public class CompoundProcessor implements Processor {
         });
     }
 
+    @Override
+    public void executeBatch(List<IngestDocument> ingestDocuments, List<BiConsumer<IngestDocument, Exception>> handlers) {
+        innerExecuteBatch(0, ingestDocuments, handlers);
+    }
+
+    /**
+     * Executes the processors on a batch of documents, each processor being given all the documents that made it through the previous
+     * processors at once. A document that fails is handled on its own, running the on failure processors if there are any.
+     */
+    void innerExecuteBatch(int currentProcessor, List<IngestDocument> ingestDocuments,
+                           List<BiConsumer<IngestDocument, Exception>> handlers) {
+        assert ingestDocuments.size() == handlers.size();
+        if (ingestDocuments.size() == 1) {
+            // nothing to amortize
+            innerExecute(currentProcessor, ingestDocuments.get(0), handlers.get(0));
+            return;
+        }
+        if (currentProcessor == processorsWithMetrics.size()) {
+            for (int i = 0; i < ingestDocuments.size(); i++) {
+                handlers.get(i).accept(ingestDocuments.get(i), null);
+            }
+            return;
+        }
+
+        Tuple<Processor, IngestMetric> processorWithMetric = processorsWithMetrics.get(currentProcessor);
+        final Processor processor = processorWithMetric.v1();
+        final IngestMetric metric = processorWithMetric.v2();
+        final int size = ingestDocuments.size();
+        // the documents to pass on to the next processor, written by the handlers before they count down
+        final IngestDocument[] results = new IngestDocument[size];
+        final AtomicInteger pending = new AtomicInteger(size);
+        final List<BiConsumer<IngestDocument, Exception>> processorHandlers = new ArrayList<>(size);
+        final long startTimeInNanos = relativeTimeProvider.getAsLong();
+        for (int i = 0; i < size; i++) {
+            final int slot = i;
+            final IngestDocument ingestDocument = ingestDocuments.get(i);
+            final BiConsumer<IngestDocument, Exception> handler = handlers.get(i);
+            metric.preIngest();
+            processorHandlers.add((result, e) -> {
+                metric.postIngest(0L);
+                if (e != null) {
+                    metric.ingestFailed();
+                    if (ignoreFailure) {
+                        results[slot] = ingestDocument;
+                    } else {
+                        IngestProcessorException compoundProcessorException =
+                            newCompoundProcessorException(e, processor, ingestDocument);
+                        if (onFailureProcessors.isEmpty()) {
+                            handler.accept(null, compoundProcessorException);
+                        } else {
+                            executeOnFailureAsync(0, ingestDocument, compoundProcessorException, handler);
+                        }
+                    }
+                } else if (result != null) {
+                    results[slot] = result;
+                } else {
+                    handler.accept(null, null);
+                }
+                if (pending.decrementAndGet() == 0) {
+                    metric.addBatchIngestTime(relativeTimeProvider.getAsLong() - startTimeInNanos);
+                    final List<IngestDocument> nextDocuments = new ArrayList<>(size);
+                    final List<BiConsumer<IngestDocument, Exception>> nextHandlers = new ArrayList<>(size);
+                    for (int j = 0; j < size; j++) {
+                        if (results[j] != null) {
+                            nextDocuments.add(results[j]);
+                            nextHandlers.add(handlers.get(j));
+                        }
+                    }
+                    if (nextDocuments.isEmpty() == false) {
+                        innerExecuteBatch(currentProcessor + 1, nextDocuments, nextHandlers);
+                    }
+                }
+            });
+        }
+        processor.executeBatch(ingestDocuments, processorHandlers);
+    }
+
     void executeOnFailureAsync(int currentOnFailureProcessor, IngestDocument ingestDocument, ElasticsearchException exception,
                                BiConsumer<IngestDocument, Exception> handler) {
         if (currentOnFailureProcessor == 0) {
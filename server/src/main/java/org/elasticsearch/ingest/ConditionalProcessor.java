@@ -26,6 +26,7 @@ import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiConsumer;
 import java.util.function.Function;
 import java.util.function.LongSupplier;
@@ -106,6 +107,51 @@ public class ConditionalProcessor extends AbstractProcessor implements WrappingP
         }
     }
 
+    @Override
+    public void executeBatch(List<IngestDocument> ingestDocuments, List<BiConsumer<IngestDocument, Exception>> handlers) {
+        final List<IngestDocument> matchingDocuments = new ArrayList<>(ingestDocuments.size());
+        final List<BiConsumer<IngestDocument, Exception>> matchingHandlers = new ArrayList<>(ingestDocuments.size());
+        for (int i = 0; i < ingestDocuments.size(); i++) {
+            final IngestDocument ingestDocument = ingestDocuments.get(i);
+            final boolean matches;
+            try {
+                matches = evaluate(ingestDocument);
+            } catch (Exception e) {
+                handlers.get(i).accept(null, e);
+                continue;
+            }
+            if (matches) {
+                matchingDocuments.add(ingestDocument);
+                matchingHandlers.add(handlers.get(i));
+            } else {
+                handlers.get(i).accept(ingestDocument, null);
+            }
+        }
+        if (matchingDocuments.isEmpty()) {
+            return;
+        }
+
+        final long startTimeInNanos = relativeTimeProvider.getAsLong();
+        final AtomicInteger pending = new AtomicInteger(matchingDocuments.size());
+        final List<BiConsumer<IngestDocument, Exception>> processorHandlers = new ArrayList<>(matchingHandlers.size());
+        for (BiConsumer<IngestDocument, Exception> handler : matchingHandlers) {
+            metric.preIngest();
+            processorHandlers.add((result, e) -> {
+                metric.postIngest(0L);
+                if (pending.decrementAndGet() == 0) {
+                    metric.addBatchIngestTime(relativeTimeProvider.getAsLong() - startTimeInNanos);
+                }
+                if (e != null) {
+                    metric.ingestFailed();
+                    handler.accept(null, e);
+                } else {
+                    handler.accept(result, null);
+                }
+            });
+        }
+        processor.executeBatch(matchingDocuments, processorHandlers);
+    }
+
     @Override
     public IngestDocument execute(IngestDocument ingestDocument) throws Exception {
         throw new UnsupportedOperationException("this method should not get executed");
@@ -117,7 +163,7 @@ public class ConditionalProcessor extends AbstractProcessor implements WrappingP
             IngestConditionalScript.Factory factory = scriptService.compile(condition, IngestConditionalScript.CONTEXT);
             script = factory.newInstance(condition.getParams());
         }
-        return script.execute(new UnmodifiableIngestData(new DynamicMap(ingestDocument.getSourceAndMetadata(), FUNCTIONS)));
+        return script.execute(new UnmodifiableIngestData(new DynamicMap(ingestDocument.getUnmodifiableSourceAndMetadata(), FUNCTIONS)));
     }
 
     public Processor getInnerProcessor() {
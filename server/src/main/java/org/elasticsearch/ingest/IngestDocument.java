@@ -27,8 +27,10 @@ import java.util.Date;
 import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.ListIterator;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
@@ -46,8 +48,12 @@ public final class IngestDocument {
 
     static final String TIMESTAMP = "timestamp";
 
-    private final Map<String, Object> sourceAndMetadata;
-    private final Map<String, Object> ingestMetadata;
+    private Map<String, Object> sourceAndMetadata;
+    private Map<String, Object> ingestMetadata;
+
+    // The mutable values (maps, lists, ...) of this document that it may modify in place, or null if it may modify all of them. Copies
+    // of a document share its values, and both documents copy a shared value the first time they modify it.
+    private Set<Object> ownedValues;
 
     // Contains all pipelines that have been executed for this document
     private final Set<String> executedPipelines = new LinkedHashSet<>();
@@ -73,10 +79,13 @@ public final class IngestDocument {
     }
 
     /**
-     * Copy constructor that creates a new {@link IngestDocument} which has exactly the same properties as the one provided as argument
+     * Copy constructor that creates a new {@link IngestDocument} which has exactly the same properties as the one provided as argument.
+     * The copy is copy-on-write: both documents share the source and metadata, and copy the parts of them that they modify.
      */
     public IngestDocument(IngestDocument other) {
-        this(deepCopyMap(other.sourceAndMetadata), deepCopyMap(other.ingestMetadata));
+        this(other.sourceAndMetadata, other.ingestMetadata);
+        this.ownedValues = Collections.newSetFromMap(new IdentityHashMap<>());
+        other.ownedValues = Collections.newSetFromMap(new IdentityHashMap<>());
     }
 
     /**
@@ -103,7 +112,22 @@ public final class IngestDocument {
         for (String pathElement : fieldPath.pathElements) {
             context = resolve(pathElement, path, context);
         }
-        return cast(path, context, clazz);
+        T value = cast(path, context, clazz);
+        if (ownedValues != null && isMutable(value)) {
+            // the caller may modify the value, it must not be shared with copies of this document
+            return clazz.cast(getOwnedFieldValue(path));
+        }
+        return value;
+    }
+
+    private Object getOwnedFieldValue(String path) {
+        ownRoots();
+        FieldPath fieldPath = new FieldPath(path);
+        Object context = fieldPath.initialContext;
+        for (int i = 0; i < fieldPath.pathElements.length; i++) {
+            context = resolveOwned(fieldPath.pathElements[i], path, context, i == fieldPath.pathElements.length - 1);
+        }
+        return context;
     }
 
     /**
@@ -282,10 +306,11 @@ public final class IngestDocument {
      * @throws IllegalArgumentException if the path is null, empty, invalid or if the field doesn't exist.
      */
     public void removeField(String path) {
+        ownRoots();
         FieldPath fieldPath = new FieldPath(path);
         Object context = fieldPath.initialContext;
         for (int i = 0; i < fieldPath.pathElements.length - 1; i++) {
-            context = resolve(fieldPath.pathElements[i], path, context);
+            context = resolveOwned(fieldPath.pathElements[i], path, context, false);
         }
 
         String leafKey = fieldPath.pathElements[fieldPath.pathElements.length - 1];
@@ -355,6 +380,24 @@ public final class IngestDocument {
                 "] as part of path [" + fullPath + "]");
     }
 
+    /**
+     * Like {@link #resolve(String, String, Object)}, but first replaces the resolved value by a copy if it is shared with copies of this
+     * document, including all the values nested in it if {@code deep} is true.
+     */
+    @SuppressWarnings("unchecked")
+    private Object resolveOwned(String pathElement, String fullPath, Object context, boolean deep) {
+        Object value = resolve(pathElement, fullPath, context);
+        Object ownedValue = deep ? ownAll(value) : own(value);
+        if (ownedValue != value) {
+            if (context instanceof Map) {
+                ((Map<String, Object>) context).put(pathElement, ownedValue);
+            } else {
+                ((List<Object>) context).set(Integer.parseInt(pathElement), ownedValue);
+            }
+        }
+        return ownedValue;
+    }
+
     /**
      * Appends the provided value to the provided path in the document.
      * Any non existing path element will be created.
@@ -509,6 +552,7 @@ public final class IngestDocument {
     }
 
     private void setFieldValue(String path, Object value, boolean append, boolean allowDuplicates) {
+        ownRoots();
         FieldPath fieldPath = new FieldPath(path);
         Object context = fieldPath.initialContext;
         for (int i = 0; i < fieldPath.pathElements.length - 1; i++) {
@@ -520,7 +564,7 @@ public final class IngestDocument {
                 @SuppressWarnings("unchecked")
                 Map<String, Object> map = (Map<String, Object>) context;
                 if (map.containsKey(pathElement)) {
-                    context = map.get(pathElement);
+                    context = ownValue(map, pathElement);
                 } else {
                     HashMap<Object, Object> newMap = new HashMap<>();
                     map.put(pathElement, newMap);
@@ -540,7 +584,7 @@ public final class IngestDocument {
                     throw new IllegalArgumentException("[" + index + "] is out of bounds for array with length [" +
                             list.size() + "] as part of path [" + path + "]");
                 }
-                context = list.get(index);
+                context = ownValue(list, index);
             } else {
                 throw new IllegalArgumentException("cannot resolve [" + pathElement + "] from object of type [" +
                         context.getClass().getName() + "] as part of path [" + path + "]");
@@ -556,7 +600,7 @@ public final class IngestDocument {
             Map<String, Object> map = (Map<String, Object>) context;
             if (append) {
                 if (map.containsKey(leafKey)) {
-                    Object object = map.get(leafKey);
+                    Object object = ownValue(map, leafKey);
                     Object list = appendValues(object, value, allowDuplicates);
                     if (list != object) {
                         map.put(leafKey, list);
@@ -584,7 +628,7 @@ public final class IngestDocument {
                         "] as part of path [" + path + "]");
             }
             if (append) {
-                Object object = list.get(index);
+                Object object = ownValue(list, index);
                 Object newList = appendValues(object, value, allowDuplicates);
                 if (newList != object) {
                     list.set(index, newList);
@@ -674,6 +718,7 @@ public final class IngestDocument {
      * Metadata fields that used to be accessible as ordinary top level fields will be removed as part of this call.
      */
     public Map<Metadata, Object> extractMetadata() {
+        ownRoots();
         Map<Metadata, Object> metadataMap = new EnumMap<>(Metadata.class);
         for (Metadata metadata : Metadata.values()) {
             metadataMap.put(metadata, sourceAndMetadata.remove(metadata.getFieldName()));
@@ -695,20 +740,126 @@ public final class IngestDocument {
     /**
      * Returns the available ingest metadata fields, by default only timestamp, but it is possible to set additional ones.
      * Use only for reading values, modify them instead using {@link #setFieldValue(String, Object)} and {@link #removeField(String)}
+     * If the document shares values with copies of it, these values are copied first. Use {@link #getUnmodifiableIngestMetadata()}
+     * to read them without copying them.
      */
     public Map<String, Object> getIngestMetadata() {
+        ownAllValues();
         return this.ingestMetadata;
     }
 
+    /**
+     * Returns a read-only view of the ingest metadata fields. The values in the view must not be modified either.
+     */
+    public Map<String, Object> getUnmodifiableIngestMetadata() {
+        return Collections.unmodifiableMap(ingestMetadata);
+    }
+
     /**
      * Returns the document including its metadata fields, unless {@link #extractMetadata()} has been called, in which case the
      * metadata fields will not be present anymore.
      * Modify the document instead using {@link #setFieldValue(String, Object)} and {@link #removeField(String)}
+     * If the document shares values with copies of it, these values are copied first. Use
+     * {@link #getUnmodifiableSourceAndMetadata()} to read them without copying them.
      */
     public Map<String, Object> getSourceAndMetadata() {
+        ownAllValues();
         return this.sourceAndMetadata;
     }
 
+    /**
+     * Returns a read-only view of the document including its metadata fields. The values in the view must not be modified either.
+     */
+    public Map<String, Object> getUnmodifiableSourceAndMetadata() {
+        return Collections.unmodifiableMap(sourceAndMetadata);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void ownRoots() {
+        sourceAndMetadata = (Map<String, Object>) own(sourceAndMetadata);
+        ingestMetadata = (Map<String, Object>) own(ingestMetadata);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void ownAllValues() {
+        if (ownedValues != null) {
+            sourceAndMetadata = (Map<String, Object>) ownAll(sourceAndMetadata);
+            ingestMetadata = (Map<String, Object>) ownAll(ingestMetadata);
+            // none of the values are shared anymore
+            ownedValues = null;
+        }
+    }
+
+    private Object ownValue(Map<String, Object> map, String key) {
+        Object value = map.get(key);
+        Object ownedValue = own(value);
+        if (ownedValue != value) {
+            map.put(key, ownedValue);
+        }
+        return ownedValue;
+    }
+
+    private Object ownValue(List<Object> list, int index) {
+        Object value = list.get(index);
+        Object ownedValue = own(value);
+        if (ownedValue != value) {
+            list.set(index, ownedValue);
+        }
+        return ownedValue;
+    }
+
+    /**
+     * Returns the given value if this document may modify it in place, or a copy of it that this document owns otherwise. The values
+     * nested in a copied map or list are still shared.
+     */
+    private Object own(Object value) {
+        if (ownedValues == null || isMutable(value) == false || ownedValues.contains(value)) {
+            return value;
+        }
+        final Object copy;
+        if (value instanceof Map) {
+            copy = new HashMap<>((Map<?, ?>) value);
+        } else if (value instanceof List) {
+            copy = new ArrayList<>((List<?>) value);
+        } else {
+            // the values of sets can't be modified through paths, so sets are copied with their values
+            copy = deepCopy(value);
+        }
+        ownedValues.add(copy);
+        return copy;
+    }
+
+    /**
+     * Like {@link #own(Object)}, but also owns all the values that are nested in the given one.
+     */
+    @SuppressWarnings("unchecked")
+    private Object ownAll(Object value) {
+        Object ownedValue = own(value);
+        if (ownedValue instanceof Map) {
+            for (Map.Entry<Object, Object> entry : ((Map<Object, Object>) ownedValue).entrySet()) {
+                Object nestedValue = entry.getValue();
+                Object ownedNestedValue = ownAll(nestedValue);
+                if (ownedNestedValue != nestedValue) {
+                    entry.setValue(ownedNestedValue);
+                }
+            }
+        } else if (ownedValue instanceof List) {
+            ListIterator<Object> iterator = ((List<Object>) ownedValue).listIterator();
+            while (iterator.hasNext()) {
+                Object nestedValue = iterator.next();
+                Object ownedNestedValue = ownAll(nestedValue);
+                if (ownedNestedValue != nestedValue) {
+                    iterator.set(ownedNestedValue);
+                }
+            }
+        }
+        return ownedValue;
+    }
+
+    private static boolean isMutable(Object value) {
+        return value instanceof Map || value instanceof List || value instanceof Set || value instanceof byte[] || value instanceof Date;
+    }
+
     @SuppressWarnings("unchecked")
     public static <K, V> Map<K, V> deepCopyMap(Map<K, V> source) {
         return (Map<K, V>) deepCopy(source);
@@ -760,9 +911,12 @@ public final class IngestDocument {
      */
     public void executePipeline(Pipeline pipeline, BiConsumer<IngestDocument, Exception> handler) {
         if (executedPipelines.add(pipeline.getId())) {
+            ownRoots();
             Object previousPipeline = ingestMetadata.put("pipeline", pipeline.getId());
             pipeline.execute(this, (result, e) -> {
                 executedPipelines.remove(pipeline.getId());
+                // the document may have been copied in the meantime
+                ownRoots();
                 if (previousPipeline != null) {
                     ingestMetadata.put("pipeline", previousPipeline);
                 } else {
@@ -775,6 +929,42 @@ public final class IngestDocument {
         }
     }
 
+    /**
+     * Executes the given pipeline on a batch of documents at once, see {@link Processor#executeBatch(List, List)}. This is the
+     * equivalent of calling {@link #executePipeline(Pipeline, BiConsumer)} on each of the documents.
+     */
+    public static void executePipeline(Pipeline pipeline, List<IngestDocument> ingestDocuments,
+                                       List<BiConsumer<IngestDocument, Exception>> handlers) {
+        assert ingestDocuments.size() == handlers.size();
+        final List<IngestDocument> documentsToExecute = new ArrayList<>(ingestDocuments.size());
+        final List<BiConsumer<IngestDocument, Exception>> pipelineHandlers = new ArrayList<>(handlers.size());
+        for (int i = 0; i < ingestDocuments.size(); i++) {
+            final IngestDocument ingestDocument = ingestDocuments.get(i);
+            final BiConsumer<IngestDocument, Exception> handler = handlers.get(i);
+            if (ingestDocument.executedPipelines.add(pipeline.getId())) {
+                ingestDocument.ownRoots();
+                final Object previousPipeline = ingestDocument.ingestMetadata.put("pipeline", pipeline.getId());
+                documentsToExecute.add(ingestDocument);
+                pipelineHandlers.add((result, e) -> {
+                    ingestDocument.executedPipelines.remove(pipeline.getId());
+                    // the document may have been copied in the meantime
+                    ingestDocument.ownRoots();
+                    if (previousPipeline != null) {
+                        ingestDocument.ingestMetadata.put("pipeline", previousPipeline);
+                    } else {
+                        ingestDocument.ingestMetadata.remove("pipeline");
+                    }
+                    handler.accept(result, e);
+                });
+            } else {
+                handler.accept(null, new IllegalStateException(PIPELINE_CYCLE_ERROR_MESSAGE + pipeline.getId()));
+            }
+        }
+        if (documentsToExecute.isEmpty() == false) {
+            pipeline.executeBatch(documentsToExecute, pipelineHandlers);
+        }
+    }
+
     /**
      * @return a pipeline stack; all pipelines that are in execution by this document in reverse order
      */
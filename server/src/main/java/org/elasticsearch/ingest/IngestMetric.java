@@ -57,6 +57,15 @@ class IngestMetric {
         ingestCount.inc();
     }
 
+    /**
+     * Call this after performing the ingest action on a batch of items that were processed together, once {@link #postIngest(long)}
+     * was called with no time for each of them, so that the time of the batch is only counted once.
+     * @param ingestTimeInNanos The time it took to perform the action on the whole batch.
+     */
+    void addBatchIngestTime(long ingestTimeInNanos) {
+        this.ingestTimeInNanos.inc(ingestTimeInNanos);
+    }
+
     /**
      * Call this if the ingest action failed.
      */
@@ -54,6 +54,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -441,6 +442,8 @@ public class IngestService implements ClusterStateApplier, ReportingService<Inge
             protected void doRun() {
                 final Thread originalThread = Thread.currentThread();
                 final AtomicInteger counter = new AtomicInteger(numberOfActionRequests);
+                // the documents that go through the same pipeline first are executed together, so that processors can batch them
+                final Map<String, List<BulkItem>> itemsByPipeline = new LinkedHashMap<>();
                 int i = 0;
                 for (DocWriteRequest<?> actionRequest : actionRequests) {
                     IndexRequest indexRequest = TransportBulkAction.getIndexWriteRequest(actionRequest);
@@ -476,15 +479,99 @@ public class IngestService implements ClusterStateApplier, ReportingService<Inge
                         continue;
                     }
 
-                    executePipelines(i, pipelines.iterator(), hasFinalPipeline, indexRequest, onDropped, onFailure, counter,
-                                     onCompletion, originalThread);
-
+                    itemsByPipeline.computeIfAbsent(pipelines.get(0), k -> new ArrayList<>())
+                        .add(new BulkItem(i, indexRequest, pipelines.iterator(), hasFinalPipeline));
                     i++;
                 }
+
+                for (Map.Entry<String, List<BulkItem>> entry : itemsByPipeline.entrySet()) {
+                    executePipelineBatch(entry.getKey(), entry.getValue(), onDropped, onFailure, counter, onCompletion, originalThread);
+                }
             }
         });
     }
 
+    /**
+     * An index request of a bulk request along with the pipelines that remain to be executed on it.
+     */
+    private static class BulkItem {
+        final int slot;
+        final IndexRequest indexRequest;
+        final Iterator<String> pipelines;
+        final boolean hasFinalPipeline;
+
+        BulkItem(int slot, IndexRequest indexRequest, Iterator<String> pipelines, boolean hasFinalPipeline) {
+            this.slot = slot;
+            this.indexRequest = indexRequest;
+            this.pipelines = pipelines;
+            this.hasFinalPipeline = hasFinalPipeline;
+        }
+    }
+
+    /**
+     * Executes the given pipeline, which is the first pipeline of all the given items, on all of them at once. The remaining
+     * pipelines are then executed on each item on its own since they may differ from one item to the other, for instance if the
+     * first pipeline changed the target index of some of them.
+     */
+    private void executePipelineBatch(
+        final String pipelineId,
+        final List<BulkItem> items,
+        final IntConsumer onDropped,
+        final BiConsumer<Integer, Exception> onFailure,
+        final AtomicInteger counter,
+        final BiConsumer<Thread, Exception> onCompletion,
+        final Thread originalThread
+    ) {
+        final PipelineHolder holder = pipelines.get(pipelineId);
+        if (items.size() == 1 || holder == null || holder.pipeline.getProcessors().isEmpty()) {
+            for (BulkItem item : items) {
+                executePipelines(item.slot, item.pipelines, item.hasFinalPipeline, item.indexRequest, onDropped, onFailure, counter,
+                    onCompletion, originalThread);
+            }
+            return;
+        }
+
+        final Pipeline pipeline = holder.pipeline;
+        final List<IngestDocument> ingestDocuments = new ArrayList<>(items.size());
+        final List<BiConsumer<IngestDocument, Exception>> handlers = new ArrayList<>(items.size());
+        final AtomicInteger pending = new AtomicInteger();
+        final long startTimeInNanos = System.nanoTime();
+        for (BulkItem item : items) {
+            final String next = item.pipelines.next();
+            assert pipelineId.equals(next) : pipelineId + " vs " + next;
+            final String originalIndex = item.indexRequest.indices()[0];
+            final IngestDocument ingestDocument;
+            try {
+                ingestDocument = newIngestDocument(item.indexRequest);
+            } catch (Exception e) {
+                logger.debug(() -> new ParameterizedMessage("failed to execute pipeline [{}] for document [{}/{}]",
+                    pipelineId, item.indexRequest.index(), item.indexRequest.id()), e);
+                onFailure.accept(item.slot, e);
+                if (counter.decrementAndGet() == 0) {
+                    onCompletion.accept(originalThread, null);
+                }
+                assert counter.get() >= 0;
+                continue;
+            }
+            totalMetrics.preIngest();
+            pending.incrementAndGet();
+            ingestDocuments.add(ingestDocument);
+            handlers.add((result, e) -> {
+                // the time of the batch is only counted once
+                totalMetrics.postIngest(0L);
+                if (pending.decrementAndGet() == 0) {
+                    totalMetrics.addBatchIngestTime(System.nanoTime() - startTimeInNanos);
+                }
+                onDocumentExecuted(item.slot, item.indexRequest, ingestDocument, result, e, onDropped,
+                    ex -> onPipelineExecuted(pipelineId, item.slot, item.pipelines, item.hasFinalPipeline, item.indexRequest,
+                        originalIndex, ex, onDropped, onFailure, counter, onCompletion, originalThread));
+            });
+        }
+        if (ingestDocuments.isEmpty() == false) {
+            IngestDocument.executePipeline(pipeline, ingestDocuments, handlers);
+        }
+    }
+
     private void executePipelines(
         final int slot,
         final Iterator<String> it,
@@ -505,48 +592,8 @@ public class IngestService implements ClusterStateApplier, ReportingService<Inge
                 }
                 Pipeline pipeline = holder.pipeline;
                 String originalIndex = indexRequest.indices()[0];
-                innerExecute(slot, indexRequest, pipeline, onDropped, e -> {
-                    if (e != null) {
-                        logger.debug(() -> new ParameterizedMessage("failed to execute pipeline [{}] for document [{}/{}]",
-                            pipelineId, indexRequest.index(), indexRequest.id()), e);
-                        onFailure.accept(slot, e);
-                    }
-
-                    Iterator<String> newIt = it;
-                    boolean newHasFinalPipeline = hasFinalPipeline;
-                    String newIndex = indexRequest.indices()[0];
-
-                    if (Objects.equals(originalIndex, newIndex) == false) {
-                        if (hasFinalPipeline && it.hasNext() == false) {
-                            totalMetrics.ingestFailed();
-                            onFailure.accept(slot, new IllegalStateException("final pipeline [" + pipelineId +
-                                "] can't change the target index"));
-                        } else {
-
-                            //Drain old it so it's not looped over
-                            it.forEachRemaining($ -> {
-                            });
-                            indexRequest.isPipelineResolved(false);
-                            resolvePipelines(null, indexRequest, state.metadata());
-                            if (IngestService.NOOP_PIPELINE_NAME.equals(indexRequest.getFinalPipeline()) == false) {
-                                newIt = Collections.singleton(indexRequest.getFinalPipeline()).iterator();
-                                newHasFinalPipeline = true;
-                            } else {
-                                newIt = Collections.emptyIterator();
-                            }
-                        }
-                    }
-
-                    if (newIt.hasNext()) {
-                        executePipelines(slot, newIt, newHasFinalPipeline, indexRequest, onDropped, onFailure, counter, onCompletion,
-                            originalThread);
-                    } else {
-                        if (counter.decrementAndGet() == 0) {
-                            onCompletion.accept(originalThread, null);
-                        }
-                        assert counter.get() >= 0;
-                    }
-                });
+                innerExecute(slot, indexRequest, pipeline, onDropped, e -> onPipelineExecuted(pipelineId, slot, it, hasFinalPipeline,
+                    indexRequest, originalIndex, e, onDropped, onFailure, counter, onCompletion, originalThread));
             } catch (Exception e) {
                 logger.debug(() -> new ParameterizedMessage("failed to execute pipeline [{}] for document [{}/{}]",
                     pipelineId, indexRequest.index(), indexRequest.id()), e);
@@ -560,6 +607,62 @@ public class IngestService implements ClusterStateApplier, ReportingService<Inge
         }
     }
 
+    private void onPipelineExecuted(
+        final String pipelineId,
+        final int slot,
+        final Iterator<String> it,
+        final boolean hasFinalPipeline,
+        final IndexRequest indexRequest,
+        final String originalIndex,
+        final Exception e,
+        final IntConsumer onDropped,
+        final BiConsumer<Integer, Exception> onFailure,
+        final AtomicInteger counter,
+        final BiConsumer<Thread, Exception> onCompletion,
+        final Thread originalThread
+    ) {
+        if (e != null) {
+            logger.debug(() -> new ParameterizedMessage("failed to execute pipeline [{}] for document [{}/{}]",
+                pipelineId, indexRequest.index(), indexRequest.id()), e);
+            onFailure.accept(slot, e);
+        }
+
+        Iterator<String> newIt = it;
+        boolean newHasFinalPipeline = hasFinalPipeline;
+        String newIndex = indexRequest.indices()[0];
+
+        if (Objects.equals(originalIndex, newIndex) == false) {
+            if (hasFinalPipeline && it.hasNext() == false) {
+                totalMetrics.ingestFailed();
+                onFailure.accept(slot, new IllegalStateException("final pipeline [" + pipelineId +
+                    "] can't change the target index"));
+            } else {
+
+                //Drain old it so it's not looped over
+                it.forEachRemaining($ -> {
+                });
+                indexRequest.isPipelineResolved(false);
+                resolvePipelines(null, indexRequest, state.metadata());
+                if (IngestService.NOOP_PIPELINE_NAME.equals(indexRequest.getFinalPipeline()) == false) {
+                    newIt = Collections.singleton(indexRequest.getFinalPipeline()).iterator();
+                    newHasFinalPipeline = true;
+                } else {
+                    newIt = Collections.emptyIterator();
+                }
+            }
+        }
+
+        if (newIt.hasNext()) {
+            executePipelines(slot, newIt, newHasFinalPipeline, indexRequest, onDropped, onFailure, counter, onCompletion,
+                originalThread);
+        } else {
+            if (counter.decrementAndGet() == 0) {
+                onCompletion.accept(originalThread, null);
+            }
+            assert counter.get() >= 0;
+        }
+    }
+
     public IngestStats stats() {
         IngestStats.Builder statsBuilder = new IngestStats.Builder();
         statsBuilder.addTotalMetrics(totalMetrics);
@@ -622,45 +725,54 @@ public class IngestService implements ClusterStateApplier, ReportingService<Inge
         // the pipeline specific stat holder may not exist and that is fine:
         // (e.g. the pipeline may have been removed while we're ingesting a document
         totalMetrics.preIngest();
+        IngestDocument ingestDocument = newIngestDocument(indexRequest);
+        ingestDocument.executePipeline(pipeline, (result, e) -> {
+            long ingestTimeInNanos = System.nanoTime() - startTimeInNanos;
+            totalMetrics.postIngest(ingestTimeInNanos);
+            onDocumentExecuted(slot, indexRequest, ingestDocument, result, e, itemDroppedHandler, handler);
+        });
+    }
+
+    private static IngestDocument newIngestDocument(IndexRequest indexRequest) {
         String index = indexRequest.index();
         String id = indexRequest.id();
         String routing = indexRequest.routing();
         Long version = indexRequest.version();
         VersionType versionType = indexRequest.versionType();
         Map<String, Object> sourceAsMap = indexRequest.sourceAsMap();
-        IngestDocument ingestDocument = new IngestDocument(index, id, routing, version, versionType, sourceAsMap);
-        ingestDocument.executePipeline(pipeline, (result, e) -> {
-            long ingestTimeInNanos = System.nanoTime() - startTimeInNanos;
-            totalMetrics.postIngest(ingestTimeInNanos);
-            if (e != null) {
-                totalMetrics.ingestFailed();
-                handler.accept(e);
-            } else if (result == null) {
-                itemDroppedHandler.accept(slot);
-                handler.accept(null);
-            } else {
-                Map<IngestDocument.Metadata, Object> metadataMap = ingestDocument.extractMetadata();
-
-                String newIndex = (String) metadataMap.get(IngestDocument.Metadata.INDEX);
-                //it's fine to set all metadata fields all the time, as ingest document holds their starting values
-                //before ingestion, which might also get modified during ingestion.
-                indexRequest.index(newIndex);
-                indexRequest.id((String) metadataMap.get(IngestDocument.Metadata.ID));
-                indexRequest.routing((String) metadataMap.get(IngestDocument.Metadata.ROUTING));
-                indexRequest.version(((Number) metadataMap.get(IngestDocument.Metadata.VERSION)).longValue());
-                if (metadataMap.get(IngestDocument.Metadata.VERSION_TYPE) != null) {
-                    indexRequest.versionType(VersionType.fromString((String) metadataMap.get(IngestDocument.Metadata.VERSION_TYPE)));
-                }
-                if (metadataMap.get(IngestDocument.Metadata.IF_SEQ_NO) != null) {
-                    indexRequest.setIfSeqNo(((Number) metadataMap.get(IngestDocument.Metadata.IF_SEQ_NO)).longValue());
-                }
-                if (metadataMap.get(IngestDocument.Metadata.IF_PRIMARY_TERM) != null) {
-                    indexRequest.setIfPrimaryTerm(((Number) metadataMap.get(IngestDocument.Metadata.IF_PRIMARY_TERM)).longValue());
-                }
-                indexRequest.source(ingestDocument.getSourceAndMetadata(), indexRequest.getContentType());
-                handler.accept(null);
+        return new IngestDocument(index, id, routing, version, versionType, sourceAsMap);
+    }
+
+    private void onDocumentExecuted(int slot, IndexRequest indexRequest, IngestDocument ingestDocument, IngestDocument result,
+                                    Exception e, IntConsumer itemDroppedHandler, Consumer<Exception> handler) {
+        if (e != null) {
+            totalMetrics.ingestFailed();
+            handler.accept(e);
+        } else if (result == null) {
+            itemDroppedHandler.accept(slot);
+            handler.accept(null);
+        } else {
+            Map<IngestDocument.Metadata, Object> metadataMap = ingestDocument.extractMetadata();
+
+            String newIndex = (String) metadataMap.get(IngestDocument.Metadata.INDEX);
+            //it's fine to set all metadata fields all the time, as ingest document holds their starting values
+            //before ingestion, which might also get modified during ingestion.
+            indexRequest.index(newIndex);
+            indexRequest.id((String) metadataMap.get(IngestDocument.Metadata.ID));
+            indexRequest.routing((String) metadataMap.get(IngestDocument.Metadata.ROUTING));
+            indexRequest.version(((Number) metadataMap.get(IngestDocument.Metadata.VERSION)).longValue());
+            if (metadataMap.get(IngestDocument.Metadata.VERSION_TYPE) != null) {
+                indexRequest.versionType(VersionType.fromString((String) metadataMap.get(IngestDocument.Metadata.VERSION_TYPE)));
             }
-        });
+            if (metadataMap.get(IngestDocument.Metadata.IF_SEQ_NO) != null) {
+                indexRequest.setIfSeqNo(((Number) metadataMap.get(IngestDocument.Metadata.IF_SEQ_NO)).longValue());
+            }
+            if (metadataMap.get(IngestDocument.Metadata.IF_PRIMARY_TERM) != null) {
+                indexRequest.setIfPrimaryTerm(((Number) metadataMap.get(IngestDocument.Metadata.IF_PRIMARY_TERM)).longValue());
+            }
+            indexRequest.source(ingestDocument.getSourceAndMetadata(), indexRequest.getContentType());
+            handler.accept(null);
+        }
     }
 
     @Override
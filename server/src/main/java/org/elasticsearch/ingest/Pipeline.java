@@ -11,10 +11,12 @@ package org.elasticsearch.ingest;
 import org.elasticsearch.ElasticsearchParseException;
 import org.elasticsearch.common.Nullable;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiConsumer;
 import java.util.function.LongSupplier;
 
@@ -95,6 +97,30 @@ public final class Pipeline {
         });
     }
 
+    /**
+     * Modifies a batch of documents using the processors of this pipeline, see {@link Processor#executeBatch(List, List)}. The time
+     * spent on the batch is only counted once in the metrics of the pipeline.
+     */
+    public void executeBatch(List<IngestDocument> ingestDocuments, List<BiConsumer<IngestDocument, Exception>> handlers) {
+        final long startTimeInNanos = relativeTimeProvider.getAsLong();
+        final AtomicInteger pending = new AtomicInteger(ingestDocuments.size());
+        final List<BiConsumer<IngestDocument, Exception>> pipelineHandlers = new ArrayList<>(handlers.size());
+        for (BiConsumer<IngestDocument, Exception> handler : handlers) {
+            metrics.preIngest();
+            pipelineHandlers.add((result, e) -> {
+                metrics.postIngest(0L);
+                if (e != null) {
+                    metrics.ingestFailed();
+                }
+                if (pending.decrementAndGet() == 0) {
+                    metrics.addBatchIngestTime(relativeTimeProvider.getAsLong() - startTimeInNanos);
+                }
+                handler.accept(result, e);
+            });
+        }
+        compoundProcessor.executeBatch(ingestDocuments, pipelineHandlers);
+    }
+
     /**
      * The unique id of this pipeline
      */
@@ -15,6 +15,7 @@ import org.elasticsearch.index.analysis.AnalysisRegistry;
 import org.elasticsearch.script.ScriptService;
 import org.elasticsearch.threadpool.Scheduler;
 
+import java.util.List;
 import java.util.Map;
 import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
@@ -46,6 +47,21 @@ public interface Processor {
         handler.accept(result, null);
     }
 
+    /**
+     * Introspect and potentially modify a batch of documents, typically the documents of a bulk request that go through the same
+     * pipeline. The handler of each document is called exactly once, like with {@link #execute(IngestDocument, BiConsumer)}, in any
+     * order.
+     *
+     * Expert method: only override this method if a processor implementation can amortize the cost of processing several documents,
+     * for instance by looking them all up at once. By default the documents are processed one at a time.
+     */
+    default void executeBatch(List<IngestDocument> ingestDocuments, List<BiConsumer<IngestDocument, Exception>> handlers) {
+        assert ingestDocuments.size() == handlers.size();
+        for (int i = 0; i < ingestDocuments.size(); i++) {
+            execute(ingestDocuments.get(i), handlers.get(i));
+        }
+    }
+
     /**
      * Introspect and potentially modify the incoming data.
      *
@@ -42,6 +42,7 @@ import org.elasticsearch.cluster.metadata.RepositoryMetadata;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.cluster.routing.allocation.AllocationService;
 import org.elasticsearch.cluster.service.ClusterService;
+import org.elasticsearch.common.CheckedConsumer;
 import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.Numbers;
 import org.elasticsearch.common.Strings;
@@ -222,6 +223,32 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
     public static final Setting<Integer> MAX_SNAPSHOTS_SETTING =
             Setting.intSetting("max_number_of_snapshots", 500, 1, Setting.Property.NodeScope);
 
+    /**
+     * Setting that allows peer recoveries to restore the files of a shard that did not change since its last snapshot in this repository
+     * from the repository rather than copying them from the primary.
+     */
+    public static final Setting<Boolean> USE_FOR_PEER_RECOVERY_SETTING =
+        Setting.boolSetting("use_for_peer_recovery", false, Setting.Property.NodeScope);
+
+    /**
+     * Setting that makes snapshots store the files of shards as chunks whose boundaries depend on their content and that are named after
+     * the hash of their content, so that a file that shares most of its content with files of the shard that are in the repository
+     * already, like the files that merges rewrite, only uploads the chunks that changed. Versions that do not know about chunks can't
+     * read the shard-level metadata of such files, so snapshots only use chunks once all the nodes of the cluster and all the snapshots
+     * in the repository are on or after {@link SnapshotsService#CONTENT_DEFINED_CHUNKS_VERSION}.
+     */
+    public static final Setting<Boolean> CONTENT_DEFINED_CHUNKING_SETTING =
+        Setting.boolSetting("content_defined_chunking", false, Setting.Property.NodeScope);
+
+    /**
+     * Average size of the chunks that files are split into when {@link #CONTENT_DEFINED_CHUNKING_SETTING} is enabled, rounded down to a
+     * power of two. Chunks are between a quarter of and four times this size, and no larger than the {@link #chunkSize()} of the
+     * repository.
+     */
+    public static final Setting<ByteSizeValue> CONTENT_DEFINED_CHUNK_SIZE_SETTING = Setting.byteSizeSetting("content_defined_chunk_size",
+        new ByteSizeValue(1, ByteSizeUnit.MB), new ByteSizeValue(1, ByteSizeUnit.KB), new ByteSizeValue(256, ByteSizeUnit.MB),
+        Setting.Property.NodeScope);
+
     protected final boolean supportURLRepo;
 
     private final boolean compress;
@@ -306,6 +333,10 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
      */
     private final int maxSnapshotCount;
 
+    private final boolean contentDefinedChunking;
+
+    private final ByteSizeValue contentDefinedChunkSize;
+
     /**
      * Constructs new BlobStoreRepository
      * @param metadata   The metadata for this repository including name and settings
@@ -333,6 +364,8 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
         this.namedXContentRegistry = namedXContentRegistry;
         this.basePath = basePath;
         this.maxSnapshotCount = MAX_SNAPSHOTS_SETTING.get(metadata.settings());
+        this.contentDefinedChunking = CONTENT_DEFINED_CHUNKING_SETTING.get(metadata.settings());
+        this.contentDefinedChunkSize = CONTENT_DEFINED_CHUNK_SIZE_SETTING.get(metadata.settings());
     }
 
     @Override
@@ -619,6 +652,13 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
         return metadata;
     }
 
+    /**
+     * Returns the size of the buffer to use when reading from this repository, see {@link #BUFFER_SIZE_SETTING}.
+     */
+    public int getReadBufferSizeInBytes() {
+        return bufferSize;
+    }
+
     @Override
     public RepositoryStats stats() {
         final BlobStore store = blobStore.get();
@@ -2222,30 +2262,58 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
             snapshotStatus.moveToStarted(startTime, indexIncrementalFileCount,
                 indexTotalNumberOfFiles, indexIncrementalSize, indexTotalFileSize);
 
+            // Files stored as content-defined chunks only know their chunks once they are uploaded, at which point they replace the
+            // file infos without chunks in the list of files of this snapshot
+            final Map<String, BlobStoreIndexShardSnapshot.FileInfo> chunkedFiles = ConcurrentCollections.newConcurrentMap();
+            final CheckedConsumer<BlobStoreIndexShardSnapshot.FileInfo, IOException> fileSnapshotter;
+            final boolean useChunks = contentDefinedChunking && SnapshotsService.useContentDefinedChunks(repositoryMetaVersion);
+            if (useChunks) {
+                final ByteSizeValue chunkSize = chunkSize();
+                final ContentDefinedChunker chunker = new ContentDefinedChunker(contentDefinedChunkSize.getBytes(),
+                    chunkSize == null ? Long.MAX_VALUE : chunkSize.getBytes(), bufferSize);
+                // Chunks that files of other snapshots of the shard or other files of this snapshot are stored as are not uploaded again
+                final Set<String> knownChunks = ConcurrentCollections.newConcurrentSet();
+                knownChunks.addAll(snapshots.chunkNames());
+                fileSnapshotter = fileInfo -> chunkedFiles.put(fileInfo.name(),
+                    snapshotFileAsChunks(fileInfo, indexId, shardId, snapshotId, snapshotStatus, store, chunker, knownChunks));
+            } else {
+                fileSnapshotter = fileInfo -> snapshotFile(fileInfo, indexId, shardId, snapshotId, snapshotStatus, store);
+            }
+
             final String indexGeneration;
             final boolean writeShardGens = SnapshotsService.useShardGenerations(repositoryMetaVersion);
             // build a new BlobStoreIndexShardSnapshot, that includes this one and all the saved ones
-            List<SnapshotFiles> newSnapshotsList = new ArrayList<>();
-            newSnapshotsList.add(new SnapshotFiles(snapshotId.getName(), indexCommitPointFiles, shardStateIdentifier));
-            for (SnapshotFiles point : snapshots) {
-                newSnapshotsList.add(point);
-            }
-            final BlobStoreIndexShardSnapshots updatedBlobStoreIndexShardSnapshots = new BlobStoreIndexShardSnapshots(newSnapshotsList);
+            final Supplier<BlobStoreIndexShardSnapshots> updatedBlobStoreIndexShardSnapshots = () -> {
+                List<SnapshotFiles> newSnapshotsList = new ArrayList<>();
+                newSnapshotsList.add(new SnapshotFiles(snapshotId.getName(), indexCommitPointFiles, shardStateIdentifier));
+                for (SnapshotFiles point : snapshots) {
+                    newSnapshotsList.add(point);
+                }
+                return new BlobStoreIndexShardSnapshots(newSnapshotsList);
+            };
             final Runnable afterWriteSnapBlob;
             if (writeShardGens) {
                 // When using shard generations we can safely write the index-${uuid} blob before writing out any of the actual data
                 // for this shard since the uuid named blob will simply not be referenced in case of error and thus we will never
                 // reference a generation that has not had all its files fully upload.
                 indexGeneration = UUIDs.randomBase64UUID();
-                try {
-                    INDEX_SHARD_SNAPSHOTS_FORMAT.write(updatedBlobStoreIndexShardSnapshots, shardContainer, indexGeneration, compress,
-                            bigArrays);
-                } catch (IOException e) {
-                    throw new IndexShardSnapshotFailedException(shardId,
-                            "Failed to write shard level snapshot metadata for [" + snapshotId + "] to ["
-                                    + INDEX_SHARD_SNAPSHOTS_FORMAT.blobName(indexGeneration) + "]", e);
+                final Runnable writeShardIndexBlob = () -> {
+                    try {
+                        INDEX_SHARD_SNAPSHOTS_FORMAT.write(updatedBlobStoreIndexShardSnapshots.get(), shardContainer, indexGeneration,
+                                compress, bigArrays);
+                    } catch (IOException e) {
+                        throw new IndexShardSnapshotFailedException(shardId,
+                                "Failed to write shard level snapshot metadata for [" + snapshotId + "] to ["
+                                        + INDEX_SHARD_SNAPSHOTS_FORMAT.blobName(indexGeneration) + "]", e);
+                    }
+                };
+                if (useChunks) {
+                    // The chunks of the files are only known once they are uploaded
+                    afterWriteSnapBlob = writeShardIndexBlob;
+                } else {
+                    writeShardIndexBlob.run();
+                    afterWriteSnapBlob = () -> {};
                 }
-                afterWriteSnapBlob = () -> {};
             } else {
                 // When not using shard generations we can only write the index-${N} blob after all other work for this shard has
                 // completed.
@@ -2261,7 +2329,7 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
                         + "] when deleting index-N blobs " + blobsToDelete;
                 afterWriteSnapBlob = () -> {
                     try {
-                        writeShardIndexBlobAtomic(shardContainer, newGen, updatedBlobStoreIndexShardSnapshots);
+                        writeShardIndexBlobAtomic(shardContainer, newGen, updatedBlobStoreIndexShardSnapshots.get());
                     } catch (IOException e) {
                         throw new IndexShardSnapshotFailedException(shardId,
                                 "Failed to finalize snapshot creation [" + snapshotId + "] with shard index ["
@@ -2278,6 +2346,9 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
 
             final StepListener<Collection<Void>> allFilesUploadedListener = new StepListener<>();
             allFilesUploadedListener.whenComplete(v -> {
+                if (chunkedFiles.isEmpty() == false) {
+                    indexCommitPointFiles.replaceAll(fileInfo -> chunkedFiles.getOrDefault(fileInfo.name(), fileInfo));
+                }
                 final IndexShardSnapshotStatus.Copy lastSnapshotStatus =
                     snapshotStatus.moveToFinalize(snapshotIndexCommit.getGeneration());
 
@@ -2308,15 +2379,16 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
             final int workers = Math.min(threadPool.info(ThreadPool.Names.SNAPSHOT).getMax(), indexIncrementalFileCount);
             final ActionListener<Void> filesListener = fileQueueListener(filesToSnapshot, workers, allFilesUploadedListener);
             for (int i = 0; i < workers; ++i) {
-                executeOneFileSnapshot(store, snapshotId, indexId, snapshotStatus, filesToSnapshot, executor, filesListener);
+                executeOneFileSnapshot(store, snapshotStatus, filesToSnapshot, executor, fileSnapshotter, filesListener);
             }
         } catch (Exception e) {
             listener.onFailure(e);
         }
     }
 
-    private void executeOneFileSnapshot(Store store, SnapshotId snapshotId, IndexId indexId, IndexShardSnapshotStatus snapshotStatus,
+    private void executeOneFileSnapshot(Store store, IndexShardSnapshotStatus snapshotStatus,
                                         BlockingQueue<BlobStoreIndexShardSnapshot.FileInfo> filesToSnapshot, Executor executor,
+                                        CheckedConsumer<BlobStoreIndexShardSnapshot.FileInfo, IOException> fileSnapshotter,
                                         ActionListener<Void> listener) throws InterruptedException {
         final ShardId shardId = store.shardId();
         final BlobStoreIndexShardSnapshot.FileInfo snapshotFileInfo = filesToSnapshot.poll(0L, TimeUnit.MILLISECONDS);
@@ -2325,8 +2397,8 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
         } else {
             executor.execute(ActionRunnable.wrap(listener, l -> {
                 try (Releasable ignored = incrementStoreRef(store, snapshotStatus, shardId)) {
-                    snapshotFile(snapshotFileInfo, indexId, shardId, snapshotId, snapshotStatus, store);
-                    executeOneFileSnapshot(store, snapshotId, indexId, snapshotStatus, filesToSnapshot, executor, l);
+                    fileSnapshotter.accept(snapshotFileInfo);
+                    executeOneFileSnapshot(store, snapshotStatus, filesToSnapshot, executor, fileSnapshotter, l);
                 }
             }));
         }
@@ -2591,7 +2663,7 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
                 bytes -> writeAtomic(shardContainer, blobName, bytes, true));
     }
 
-    // Unused blobs are all previous index-, data- and meta-blobs and that are not referenced by the new index- as well as all
+    // Unused blobs are all previous index-, data-, chunk- and meta-blobs and that are not referenced by the new index- as well as all
     // temporary blobs
     private static List<String> unusedBlobs(Set<String> blobs, Set<String> survivingSnapshotUUIDs,
                                             BlobStoreIndexShardSnapshots updatedSnapshots) {
@@ -2601,6 +2673,7 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
                     && survivingSnapshotUUIDs.contains(
                         blob.substring(SNAPSHOT_PREFIX.length(), blob.length() - ".dat".length())) == false)
                 || (blob.startsWith(UPLOADED_DATA_BLOB_PREFIX) && updatedSnapshots.findNameFile(canonicalName(blob)) == null)
+                || (blob.startsWith(ContentDefinedChunker.CHUNK_BLOB_PREFIX) && updatedSnapshots.chunkReferenceCount(blob) == 0)
                 || FsBlobContainer.isTempBlobName(blob)).collect(Collectors.toList());
     }
 
@@ -2618,6 +2691,19 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
         }
     }
 
+    /**
+     * Loads the snapshots of the given shard that are referenced by the shard generation that the {@link RepositoryData} tracks for it.
+     *
+     * @param generation shard generation or {@code null} in case there was no shard generation tracked in the {@link RepositoryData} for
+     *                   this shard, in which case the latest generation found in the shard container is used
+     */
+    public BlobStoreIndexShardSnapshots getBlobStoreIndexShardSnapshots(IndexId indexId, int shardId, @Nullable String generation)
+            throws IOException {
+        final BlobContainer shardContainer = shardContainer(indexId, shardId);
+        final Set<String> blobs = generation == null ? shardContainer.listBlobs().keySet() : Collections.emptySet();
+        return buildBlobStoreIndexShardSnapshots(blobs, shardContainer, generation).v1();
+    }
+
     /**
      * Loads all available snapshots in the repository using the given {@code generation} or falling back to trying to determine it from
      * the given list of blobs in the shard container.
@@ -2655,7 +2741,8 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
                     INDEX_SHARD_SNAPSHOTS_FORMAT.read(shardContainer, Long.toString(latest), namedXContentRegistry, bigArrays);
             return new Tuple<>(shardSnapshots, latest);
         } else if (blobs.stream().anyMatch(b -> b.startsWith(SNAPSHOT_PREFIX) || b.startsWith(INDEX_FILE_PREFIX)
-                                                                              || b.startsWith(UPLOADED_DATA_BLOB_PREFIX))) {
+                                                                              || b.startsWith(UPLOADED_DATA_BLOB_PREFIX)
+                                                                              || b.startsWith(ContentDefinedChunker.CHUNK_BLOB_PREFIX))) {
             logger.warn("Could not find a readable index-N file in a non-empty shard snapshot directory [" + shardContainer.path() + "]");
         }
         return new Tuple<>(BlobStoreIndexShardSnapshots.EMPTY, latest);
@@ -2673,29 +2760,8 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
             for (int i = 0; i < fileInfo.numberOfParts(); i++) {
                 final long partBytes = fileInfo.partBytes(i);
 
-                // Make reads abortable by mutating the snapshotStatus object
-                final InputStream inputStream = new FilterInputStream(maybeRateLimitSnapshots(
-                    new InputStreamIndexInput(indexInput, partBytes))) {
-                    @Override
-                    public int read() throws IOException {
-                        checkAborted();
-                        return super.read();
-                    }
-
-                    @Override
-                    public int read(byte[] b, int off, int len) throws IOException {
-                        checkAborted();
-                        return super.read(b, off, len);
-                    }
-
-                    private void checkAborted() {
-                        if (snapshotStatus.isAborted()) {
-                            logger.debug("[{}] [{}] Aborted on the file [{}], exiting", shardId,
-                                snapshotId, fileInfo.physicalName());
-                            throw new AbortedSnapshotException();
-                        }
-                    }
-                };
+                final InputStream inputStream = abortableInputStream(maybeRateLimitSnapshots(
+                    new InputStreamIndexInput(indexInput, partBytes)), fileInfo, shardId, snapshotId, snapshotStatus);
                 final String partName = fileInfo.partName(i);
                 logger.trace(() ->
                         new ParameterizedMessage("[{}] Writing [{}] to [{}]", metadata.name(), partName, shardContainer.path()));
@@ -2710,6 +2776,81 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
         }
     }
 
+    /**
+     * Snapshot individual file as content-defined chunks, uploading only the chunks that are not known to be in the repository
+     * @param fileInfo    file to be snapshotted
+     * @param knownChunks names of the chunks that are in the repository or that other files of the snapshot upload, to which the chunks
+     *                    of this file are added
+     * @return the file info of the snapshotted file, with the chunks that it is stored as
+     */
+    private BlobStoreIndexShardSnapshot.FileInfo snapshotFileAsChunks(BlobStoreIndexShardSnapshot.FileInfo fileInfo, IndexId indexId,
+                                                                      ShardId shardId, SnapshotId snapshotId,
+                                                                      IndexShardSnapshotStatus snapshotStatus, Store store,
+                                                                      ContentDefinedChunker chunker,
+                                                                      Set<String> knownChunks) throws IOException {
+        final BlobContainer shardContainer = shardContainer(indexId, shardId);
+        final String file = fileInfo.physicalName();
+        try {
+            // The first pass finds the chunks of the file and verifies its checksum, the second one uploads the chunks that are new
+            final List<BlobStoreIndexShardSnapshot.FileInfo.Chunk> chunks;
+            try (IndexInput indexInput = store.openVerifyingInput(file, IOContext.READONCE, fileInfo.metadata())) {
+                chunks = chunker.chunk(abortableInputStream(
+                    new InputStreamIndexInput(indexInput, fileInfo.length()), fileInfo, shardId, snapshotId, snapshotStatus));
+                Store.verify(indexInput);
+            }
+            long uploadedBytes = 0L;
+            try (IndexInput indexInput = store.directory().openInput(file, IOContext.READONCE)) {
+                long offset = 0L;
+                for (BlobStoreIndexShardSnapshot.FileInfo.Chunk chunk : chunks) {
+                    if (knownChunks.add(chunk.name())) {
+                        indexInput.seek(offset);
+                        final InputStream inputStream = abortableInputStream(maybeRateLimitSnapshots(
+                            new InputStreamIndexInput(indexInput, chunk.length())), fileInfo, shardId, snapshotId, snapshotStatus);
+                        logger.trace(() -> new ParameterizedMessage("[{}] Writing chunk [{}] of [{}] to [{}]", metadata.name(),
+                            chunk.name(), file, shardContainer.path()));
+                        shardContainer.writeBlob(chunk.name(), inputStream, chunk.length(), false);
+                        uploadedBytes += chunk.length();
+                    }
+                    offset += chunk.length();
+                }
+            }
+            logger.trace("[{}] [{}] uploaded [{}] of the [{}] bytes of [{}] in [{}] chunks", shardId, snapshotId, uploadedBytes,
+                fileInfo.length(), file, chunks.size());
+            snapshotStatus.addProcessedFile(fileInfo.length());
+            return new BlobStoreIndexShardSnapshot.FileInfo(fileInfo.name(), fileInfo.metadata(), null, chunks);
+        } catch (Exception t) {
+            failStoreIfCorrupted(store, t);
+            snapshotStatus.addProcessedFile(0);
+            throw t;
+        }
+    }
+
+    // Make reads abortable by mutating the snapshotStatus object
+    private static InputStream abortableInputStream(InputStream delegate, BlobStoreIndexShardSnapshot.FileInfo fileInfo, ShardId shardId,
+                                                    SnapshotId snapshotId, IndexShardSnapshotStatus snapshotStatus) {
+        return new FilterInputStream(delegate) {
+            @Override
+            public int read() throws IOException {
+                checkAborted();
+                return super.read();
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                checkAborted();
+                return super.read(b, off, len);
+            }
+
+            private void checkAborted() {
+                if (snapshotStatus.isAborted()) {
+                    logger.debug("[{}] [{}] Aborted on the file [{}], exiting", shardId,
+                        snapshotId, fileInfo.physicalName());
+                    throw new AbortedSnapshotException();
+                }
+            }
+        };
+    }
+
     private static void failStoreIfCorrupted(Store store, Exception e) {
         if (Lucene.isCorruptionException(e)) {
             try {
@@ -0,0 +1,110 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.repositories.blobstore;
+
+import org.elasticsearch.common.hash.MessageDigests;
+import org.elasticsearch.index.snapshots.blobstore.BlobStoreIndexShardSnapshot.FileInfo;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits the content of files into chunks whose boundaries depend on the content itself rather than on offsets, so that inserting or
+ * removing bytes in a file only changes the chunks around the edit and the other chunks keep their boundaries and names. Boundaries are
+ * placed where a gear rolling hash of the last 64 bytes has its top bits cleared, which happens once every average chunk size on random
+ * content, and chunks are named after the SHA-256 of their content so that identical chunks of different files share the same blob.
+ * <p>
+ * The boundaries must not change across versions, otherwise snapshots taken by different versions would not share any chunks. This is
+ * why the gear table is derived from a fixed seed with a generator that is defined here rather than by the JDK.
+ */
+final class ContentDefinedChunker {
+
+    /**
+     * Prefix of the names of the blobs that hold content-defined chunks.
+     */
+    static final String CHUNK_BLOB_PREFIX = "c__";
+
+    private static final long[] GEAR = new long[256];
+
+    static {
+        // SplitMix64
+        long state = 0x5DEECE66DL;
+        for (int i = 0; i < GEAR.length; i++) {
+            long z = (state += 0x9E3779B97F4A7C15L);
+            z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+            z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+            GEAR[i] = z ^ (z >>> 31);
+        }
+    }
+
+    private final long minChunkSize;
+    private final long maxChunkSize;
+    private final long mask;
+    private final int bufferSize;
+
+    /**
+     * @param averageChunkSize the average size of the chunks, rounded down to a power of two
+     * @param maxBlobSize      the maximum size of the blobs that the repository can hold
+     * @param bufferSize       the size of the buffer to read the content with
+     */
+    ContentDefinedChunker(long averageChunkSize, long maxBlobSize, int bufferSize) {
+        if (averageChunkSize < 4 || maxBlobSize < 1) {
+            throw new IllegalArgumentException("invalid average chunk size [" + averageChunkSize + "] or blob size [" + maxBlobSize + "]");
+        }
+        final int bits = 63 - Long.numberOfLeadingZeros(averageChunkSize);
+        this.mask = -1L << (Long.SIZE - bits);
+        this.minChunkSize = Math.min((1L << bits) / 4, maxBlobSize);
+        this.maxChunkSize = Math.min((1L << bits) * 4, maxBlobSize);
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * Reads the given content to its end and returns its chunks in order. Empty content yields a single empty chunk.
+     */
+    List<FileInfo.Chunk> chunk(InputStream input) throws IOException {
+        final List<FileInfo.Chunk> chunks = new ArrayList<>();
+        final MessageDigest digest = MessageDigests.sha256();
+        final byte[] buffer = new byte[bufferSize];
+        long chunkLength = 0L;
+        long hash = 0L;
+        int read;
+        while ((read = input.read(buffer)) != -1) {
+            int chunkStart = 0;
+            for (int i = 0; i < read; i++) {
+                chunkLength++;
+                final boolean boundary;
+                if (chunkLength > minChunkSize) {
+                    hash = (hash << 1) + GEAR[buffer[i] & 0xFF];
+                    boundary = (hash & mask) == 0L || chunkLength >= maxChunkSize;
+                } else {
+                    boundary = chunkLength >= maxChunkSize;
+                }
+                if (boundary) {
+                    digest.update(buffer, chunkStart, i + 1 - chunkStart);
+                    chunks.add(new FileInfo.Chunk(chunkName(digest.digest()), chunkLength));
+                    chunkStart = i + 1;
+                    chunkLength = 0L;
+                    hash = 0L;
+                }
+            }
+            digest.update(buffer, chunkStart, read - chunkStart);
+        }
+        if (chunkLength > 0L || chunks.isEmpty()) {
+            chunks.add(new FileInfo.Chunk(chunkName(digest.digest()), chunkLength));
+        }
+        return chunks;
+    }
+
+    private static String chunkName(byte[] sha256) {
+        return CHUNK_BLOB_PREFIX + MessageDigests.toHexString(sha256);
+    }
+}
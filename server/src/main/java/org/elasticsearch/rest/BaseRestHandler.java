@@ -226,5 +226,10 @@ public abstract class BaseRestHandler implements RestHandler {
         public boolean allowsUnsafeBuffers() {
             return delegate.allowsUnsafeBuffers();
         }
+
+        @Override
+        public boolean allowsStreamedContent() {
+            return delegate.allowsStreamedContent();
+        }
     }
 }
@@ -18,6 +18,7 @@ import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.breaker.CircuitBreaker;
 import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.bytes.ReleasableBytesReference;
 import org.elasticsearch.common.compatibility.RestApiCompatibleVersion;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.logging.DeprecationLogger;
@@ -26,6 +27,7 @@ import org.elasticsearch.common.util.concurrent.ThreadContext;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.common.xcontent.XContentType;
 import org.elasticsearch.core.internal.io.Streams;
+import org.elasticsearch.http.HttpContentStream;
 import org.elasticsearch.http.HttpServerTransport;
 import org.elasticsearch.indices.breaker.CircuitBreakerService;
 import org.elasticsearch.usage.UsageService;
@@ -218,7 +220,7 @@ public class RestController implements HttpServerTransport.Dispatcher {
                                  RestApiCompatibleVersion restApiCompatibleVersion)
         throws Exception {
         final int contentLength = request.contentLength();
-        if (contentLength > 0) {
+        if (request.hasContent()) {
             final XContentType xContentType = request.getXContentType();
             if (xContentType == null) {
                 sendContentTypeErrorMessage(request.getAllHeaderValues("Content-Type"), channel);
@@ -245,6 +247,13 @@ public class RestController implements HttpServerTransport.Dispatcher {
             if (handler.allowsUnsafeBuffers() == false) {
                 request.ensureSafeBuffers();
             }
+            final HttpContentStream contentStream = request.getHttpRequest().contentStream();
+            if (contentStream != null) {
+                assert handler.allowsStreamedContent() : "handler [" + handler + "] does not allow streamed content";
+                // streamed content is accounted for chunk by chunk, as long as the handler holds on to the chunks
+                final boolean canTripCircuitBreaker = handler.canTripCircuitBreaker();
+                contentStream.setChunkInterceptor(chunk -> reserveInFlightBytes(chunk, canTripCircuitBreaker));
+            }
             if (handler.allowSystemIndexAccessByDefault() == false && request.header(ELASTIC_PRODUCT_ORIGIN_HTTP_HEADER) == null) {
                 // The ELASTIC_PRODUCT_ORIGIN_HTTP_HEADER indicates that the request is coming from an Elastic product with a plan
                 // to move away from direct access to system indices, and thus deprecation warnings should not be emitted.
@@ -258,6 +267,38 @@ public class RestController implements HttpServerTransport.Dispatcher {
         }
     }
 
+    private ReleasableBytesReference reserveInFlightBytes(ReleasableBytesReference chunk, boolean canTripCircuitBreaker) {
+        final CircuitBreaker inFlightRequestsBreaker = inFlightRequestsBreaker(circuitBreakerService);
+        final int length = chunk.length();
+        if (canTripCircuitBreaker) {
+            inFlightRequestsBreaker.addEstimateBytesAndMaybeBreak(length, "<http_request>");
+        } else {
+            inFlightRequestsBreaker.addWithoutBreaking(length);
+        }
+        return new ReleasableBytesReference(chunk, () -> {
+            try {
+                chunk.close();
+            } finally {
+                inFlightRequestsBreaker.addWithoutBreaking(-length);
+            }
+        });
+    }
+
+    @Override
+    public boolean allowsStreamedContent(RestRequest.Method method, String uri) {
+        final Iterator<MethodHandlers> allHandlers = getAllHandlers(null, RestRequest.path(uri));
+        while (allHandlers.hasNext()) {
+            final MethodHandlers handlers = allHandlers.next();
+            final RestHandler handler = handlers == null ? null : handlers.getHandler(method, RestApiCompatibleVersion.currentVersion());
+            if (handler != null) {
+                // the request is dispatched to this handler, or to the one of the compatible version that the request asks for
+                final RestHandler compatibleHandler = handlers.getHandler(method, RestApiCompatibleVersion.minimumSupported());
+                return handler.allowsStreamedContent() && (compatibleHandler == null || compatibleHandler.allowsStreamedContent());
+            }
+        }
+        return false;
+    }
+
     private boolean handleNoHandlerFound(String rawPath, RestRequest.Method method, String uri, RestChannel channel) {
         // Get the map of matching handlers for a request, for the full set of HTTP methods.
         final Set<RestRequest.Method> validMethodSet = getValidHandlerMethodSet(rawPath);
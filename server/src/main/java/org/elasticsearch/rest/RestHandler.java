@@ -58,6 +58,17 @@ public interface RestHandler {
         return false;
     }
 
+    /**
+     * Indicates if the RestHandler consumes the content of requests in chunks as it is received. If a handler returns true, the content
+     * of its requests may not be aggregated before the request is handled, in which case {@link RestRequest#content()} is empty and the
+     * handler must consume {@link RestRequest#contentStream()} instead.
+     *
+     * @return true iff the handler supports requests that have a content stream
+     */
+    default boolean allowsStreamedContent() {
+        return false;
+    }
+
     /**
      * The list of {@link Route}s that this RestHandler is responsible for handling.
      */
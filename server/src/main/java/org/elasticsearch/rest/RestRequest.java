@@ -28,6 +28,7 @@ import org.elasticsearch.common.xcontent.XContent;
 import org.elasticsearch.common.xcontent.XContentParser;
 import org.elasticsearch.common.xcontent.XContentType;
 import org.elasticsearch.http.HttpChannel;
+import org.elasticsearch.http.HttpContentStream;
 import org.elasticsearch.http.HttpRequest;
 
 import java.io.IOException;
@@ -164,7 +165,7 @@ public class RestRequest implements ToXContent.Params {
         return params;
     }
 
-    private static String path(final String uri) {
+    static String path(final String uri) {
         final int index = uri.indexOf('?');
         if (index >= 0) {
             return uri.substring(0, index);
@@ -225,7 +226,7 @@ public class RestRequest implements ToXContent.Params {
     }
 
     public boolean hasContent() {
-        return contentLength() > 0;
+        return contentLength() > 0 || httpRequest.contentStream() != null;
     }
 
     public int contentLength() {
@@ -237,6 +238,17 @@ public class RestRequest implements ToXContent.Params {
         return httpRequest.content();
     }
 
+    /**
+     * Returns the stream of the content of this request if it is handed to the handler in chunks as it is received, in which case
+     * {@link #content()} is empty, or {@code null} if the content was received in full. Only handlers that
+     * {@link RestHandler#allowsStreamedContent() allow streamed content} receive requests with a content stream.
+     */
+    @Nullable
+    public HttpContentStream contentStream() {
+        this.contentConsumed = true;
+        return httpRequest.contentStream();
+    }
+
     /**
      * @return content of the request body or throw an exception if the body or content type is missing
      */
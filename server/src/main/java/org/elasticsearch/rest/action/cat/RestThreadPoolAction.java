@@ -20,6 +20,7 @@ import org.elasticsearch.client.node.NodeClient;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.cluster.node.DiscoveryNodes;
 import org.elasticsearch.common.Table;
+import org.elasticsearch.common.metrics.HistogramStats;
 import org.elasticsearch.common.regex.Regex;
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.monitor.process.ProcessInfo;
@@ -38,6 +39,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
 
 import static org.elasticsearch.rest.RestRequest.Method.GET;
 
@@ -130,6 +132,12 @@ public class RestThreadPoolAction extends AbstractCatAction {
         table.addCell("max", "alias:mx;default:false;text-align:right;desc:maximum number of threads in a scaling thread pool");
         table.addCell("size", "alias:sz;default:false;text-align:right;desc:number of threads in a fixed thread pool");
         table.addCell("keep_alive", "alias:ka;default:false;text-align:right;desc:thread keep alive time");
+        table.addCell("queue_time.p50", "alias:qt50;default:false;text-align:right;desc:median time tasks spent in the queue");
+        table.addCell("queue_time.p99",
+            "alias:qt99;default:false;text-align:right;desc:99th percentile of the time tasks spent in the queue");
+        table.addCell("execution_time.p50", "alias:et50;default:false;text-align:right;desc:median time tasks took to run");
+        table.addCell("execution_time.p99",
+            "alias:et99;default:false;text-align:right;desc:99th percentile of the time tasks took to run");
         table.endHeaders();
         return table;
     }
@@ -236,6 +244,10 @@ public class RestThreadPoolAction extends AbstractCatAction {
                 table.addCell(max);
                 table.addCell(size);
                 table.addCell(keepAlive);
+                table.addCell(percentile(poolStats == null ? null : poolStats.getQueueTimeInMicros(), 50.0));
+                table.addCell(percentile(poolStats == null ? null : poolStats.getQueueTimeInMicros(), 99.0));
+                table.addCell(percentile(poolStats == null ? null : poolStats.getExecutionTimeInMicros(), 50.0));
+                table.addCell(percentile(poolStats == null ? null : poolStats.getExecutionTimeInMicros(), 99.0));
 
                 table.endRow();
             }
@@ -243,4 +255,11 @@ public class RestThreadPoolAction extends AbstractCatAction {
 
         return table;
     }
+
+    private static TimeValue percentile(HistogramStats timeInMicros, double percentile) {
+        if (timeInMicros == null) {
+            return null;
+        }
+        return new TimeValue(timeInMicros.getPercentile(percentile), TimeUnit.MICROSECONDS);
+    }
 }
@@ -8,20 +8,39 @@
 
 package org.elasticsearch.rest.action.document;
 
+import org.elasticsearch.ElasticsearchParseException;
+import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.bulk.BulkItemResponse;
 import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkRequestParser;
+import org.elasticsearch.action.bulk.BulkResponse;
 import org.elasticsearch.action.bulk.BulkShardRequest;
 import org.elasticsearch.action.support.ActiveShardCount;
 import org.elasticsearch.client.Requests;
 import org.elasticsearch.client.node.NodeClient;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.bytes.CompositeBytesReference;
+import org.elasticsearch.common.bytes.ReleasableBytesReference;
+import org.elasticsearch.common.lease.Releasables;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.http.HttpContentStream;
 import org.elasticsearch.rest.BaseRestHandler;
 import org.elasticsearch.rest.RestRequest;
 import org.elasticsearch.rest.action.RestStatusToXContentListener;
 import org.elasticsearch.search.fetch.subphase.FetchSourceContext;
 
 import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 import static org.elasticsearch.rest.RestRequest.Method.POST;
 import static org.elasticsearch.rest.RestRequest.Method.PUT;
@@ -34,13 +53,28 @@ import static org.elasticsearch.rest.RestRequest.Method.PUT;
  * { "create" : { "_index" : "test", "_id" : "1" }
  * { "type1" : { "field1" : "value1" } }
  * </pre>
+ * When the content of the request is streamed, the items are parsed as the content is received and they are executed in bulk
+ * requests of about {@link #STREAMED_BULK_SIZE} each, while the rest of the content is still being received. Each of these bulk
+ * requests applies the refresh policy of the request, and a malformed item fails the request without undoing the items of the bulk
+ * requests that were executed before it.
  */
 public class RestBulkAction extends BaseRestHandler {
 
+    /**
+     * The size of the bulk requests that the items of a streamed request are executed in.
+     */
+    static final ByteSizeValue STREAMED_BULK_SIZE = new ByteSizeValue(5, ByteSizeUnit.MB);
+
     private final boolean allowExplicitIndex;
+    private final long streamedBulkSizeInBytes;
 
     public RestBulkAction(Settings settings) {
+        this(settings, STREAMED_BULK_SIZE);
+    }
+
+    RestBulkAction(Settings settings, ByteSizeValue streamedBulkSize) {
         this.allowExplicitIndex = MULTI_ALLOW_EXPLICIT_INDEX.get(settings);
+        this.streamedBulkSizeInBytes = streamedBulkSize.getBytes();
     }
 
     @Override
@@ -59,18 +93,39 @@ public class RestBulkAction extends BaseRestHandler {
 
     @Override
     public RestChannelConsumer prepareRequest(final RestRequest request, final NodeClient client) throws IOException {
-        BulkRequest bulkRequest = Requests.bulkRequest();
         String defaultIndex = request.param("index");
         String defaultRouting = request.param("routing");
         FetchSourceContext defaultFetchSourceContext = FetchSourceContext.parseFromRestRequest(request);
         String defaultPipeline = request.param("pipeline");
         String waitForActiveShards = request.param("wait_for_active_shards");
-        if (waitForActiveShards != null) {
-            bulkRequest.waitForActiveShards(ActiveShardCount.parseString(waitForActiveShards));
-        }
+        ActiveShardCount activeShardCount = waitForActiveShards != null ? ActiveShardCount.parseString(waitForActiveShards) : null;
         Boolean defaultRequireAlias = request.paramAsBoolean(DocWriteRequest.REQUIRE_ALIAS, null);
-        bulkRequest.timeout(request.paramAsTime("timeout", BulkShardRequest.DEFAULT_TIMEOUT));
-        bulkRequest.setRefreshPolicy(request.param("refresh"));
+        TimeValue timeout = request.paramAsTime("timeout", BulkShardRequest.DEFAULT_TIMEOUT);
+        String refresh = request.param("refresh");
+        Supplier<BulkRequest> bulkRequestSupplier = () -> {
+            BulkRequest bulkRequest = Requests.bulkRequest();
+            if (activeShardCount != null) {
+                bulkRequest.waitForActiveShards(activeShardCount);
+            }
+            bulkRequest.timeout(timeout);
+            bulkRequest.setRefreshPolicy(refresh);
+            return bulkRequest;
+        };
+
+        final HttpContentStream contentStream = request.contentStream();
+        if (contentStream != null) {
+            return channel -> {
+                StreamedBulk streamedBulk = new StreamedBulk(client, contentStream, bulkRequestSupplier, streamedBulkSizeInBytes,
+                    new RestStatusToXContentListener<>(channel));
+                streamedBulk.start(new BulkRequestParser(true).incrementalParser(defaultIndex, defaultRouting,
+                    defaultFetchSourceContext, defaultPipeline, defaultRequireAlias, allowExplicitIndex, request.getXContentType(),
+                    (indexRequest, type) -> streamedBulk.pending.add(indexRequest),
+                    updateRequest -> streamedBulk.pending.add(updateRequest),
+                    deleteRequest -> streamedBulk.pending.add(deleteRequest)));
+            };
+        }
+
+        BulkRequest bulkRequest = bulkRequestSupplier.get();
         bulkRequest.add(request.requiredContent(), defaultIndex, defaultRouting,
             defaultFetchSourceContext, defaultPipeline, defaultRequireAlias, allowExplicitIndex, request.getXContentType());
 
@@ -86,4 +141,269 @@ public class RestBulkAction extends BaseRestHandler {
     public boolean allowsUnsafeBuffers() {
         return true;
     }
+
+    @Override
+    public boolean allowsStreamedContent() {
+        return true;
+    }
+
+    /**
+     * Executes the items of a streamed bulk request as its content is received. The items are parsed chunk by chunk and sent in bulk
+     * requests of about the configured size, one at a time, while the next chunks are being received and parsed. The chunks are kept
+     * until the bulk request that references them completed, which accounts for their size in the in-flight requests circuit breaker.
+     * The responses of the bulk requests are merged into a single response once all of them completed. A parse error or a failed bulk
+     * request stops the reception of the content, and fails the whole request once the bulk request in flight, if any, completed.
+     */
+    static final class StreamedBulk implements HttpContentStream.ChunkHandler {
+
+        private final NodeClient client;
+        private final HttpContentStream contentStream;
+        private final Supplier<BulkRequest> bulkRequestSupplier;
+        private final long bulkSizeInBytes;
+        private final ActionListener<BulkResponse> listener;
+        // guards against running the steps of the request recursively or concurrently, see #run()
+        private final AtomicInteger pendingRuns = new AtomicInteger();
+        private final List<BulkResponse> responses = new ArrayList<>();
+        private long startTimeNanos;
+        private BulkRequestParser.IncrementalParser parser;
+
+        // the items and chunks of the bulk request that is being filled
+        BulkRequest pending;
+        private List<ReleasableBytesReference> pendingChunks = new ArrayList<>();
+        // the content of an incomplete item as slices of the chunks that hold it, which is parsed along with the next chunk
+        private final Deque<BytesReference> remainder = new ArrayDeque<>();
+        private long receivedBytes;
+
+        // a full bulk request that waits for the one in flight to complete
+        private BulkRequest queued;
+        private List<ReleasableBytesReference> queuedChunks;
+        private boolean inFlight;
+        private boolean awaitingChunk;
+        private boolean lastReceived;
+        private boolean completed;
+        private Exception failure;
+
+        StreamedBulk(NodeClient client, HttpContentStream contentStream, Supplier<BulkRequest> bulkRequestSupplier, long bulkSizeInBytes,
+                     ActionListener<BulkResponse> listener) {
+            this.client = client;
+            this.contentStream = contentStream;
+            this.bulkRequestSupplier = bulkRequestSupplier;
+            this.bulkSizeInBytes = bulkSizeInBytes;
+            this.listener = listener;
+            this.pending = bulkRequestSupplier.get();
+        }
+
+        void start(BulkRequestParser.IncrementalParser parser) {
+            this.parser = parser;
+            this.startTimeNanos = System.nanoTime();
+            contentStream.setHandler(this);
+            run();
+        }
+
+        @Override
+        public void onChunk(ReleasableBytesReference chunk, boolean isLast) {
+            synchronized (this) {
+                // the stream may still hand over a chunk that it took before it was closed because of a failure
+                assert awaitingChunk || failure != null;
+                awaitingChunk = false;
+                if (failure != null) {
+                    chunk.close();
+                    return;
+                }
+                pendingChunks.add(chunk);
+                receivedBytes += chunk.length();
+                try {
+                    if (chunk.length() > 0) {
+                        remainder.add(chunk);
+                    }
+                    // an item that spans many chunks is only parsed once the chunk that completes it is received
+                    if (isLast || parser.mayCompleteItem(chunk)) {
+                        final BytesReference data = CompositeBytesReference.of(remainder.toArray(new BytesReference[0]));
+                        dropFromRemainder(parser.parse(data, isLast));
+                    }
+                    if (isLast) {
+                        if (receivedBytes == 0) {
+                            throw new ElasticsearchParseException("request body is required");
+                        }
+                        lastReceived = true;
+                        // the last bulk request is sent even if empty when it is the only one, so that it fails validation as usual
+                        if (pending.numberOfActions() > 0 || responses.isEmpty() && inFlight == false) {
+                            queuePending();
+                        } else {
+                            Releasables.close(pendingChunks);
+                            pendingChunks = new ArrayList<>();
+                        }
+                    } else if (pending.estimatedSizeInBytes() >= bulkSizeInBytes) {
+                        queuePending();
+                    }
+                } catch (Exception e) {
+                    onFailureLocked(e);
+                }
+            }
+            run();
+        }
+
+        @Override
+        public void onFailure(Exception e) {
+            synchronized (this) {
+                awaitingChunk = false;
+                onFailureLocked(e);
+            }
+            run();
+        }
+
+        private void onBulkResponse(BulkResponse response, List<ReleasableBytesReference> chunks) {
+            Releasables.close(chunks);
+            synchronized (this) {
+                assert inFlight;
+                inFlight = false;
+                responses.add(response);
+            }
+            run();
+        }
+
+        private void onBulkFailure(Exception e, List<ReleasableBytesReference> chunks) {
+            Releasables.close(chunks);
+            synchronized (this) {
+                assert inFlight;
+                inFlight = false;
+                onFailureLocked(e);
+            }
+            run();
+        }
+
+        /**
+         * Drops the given number of bytes, which the parser consumed, from the start of the remainder.
+         */
+        private void dropFromRemainder(int bytes) {
+            assert Thread.holdsLock(this);
+            while (bytes > 0) {
+                final BytesReference first = remainder.removeFirst();
+                if (first.length() > bytes) {
+                    remainder.addFirst(first.slice(bytes, first.length() - bytes));
+                }
+                bytes -= first.length();
+            }
+        }
+
+        private void queuePending() {
+            assert Thread.holdsLock(this);
+            assert queued == null : "a bulk request is already waiting";
+            if (remainder.isEmpty() == false) {
+                // copy the incomplete item so that the chunks can be released along with the bulk request
+                final BytesReference copy = new BytesArray(BytesReference.toBytes(
+                    CompositeBytesReference.of(remainder.toArray(new BytesReference[0]))));
+                remainder.clear();
+                remainder.add(copy);
+            }
+            queued = pending;
+            queuedChunks = pendingChunks;
+            pending = bulkRequestSupplier.get();
+            pendingChunks = new ArrayList<>();
+        }
+
+        private void onFailureLocked(Exception e) {
+            assert Thread.holdsLock(this);
+            if (failure == null) {
+                failure = e;
+            } else {
+                failure.addSuppressed(e);
+            }
+            remainder.clear();
+            Releasables.close(pendingChunks);
+            pendingChunks.clear();
+            if (queued != null) {
+                Releasables.close(queuedChunks);
+                queued = null;
+                queuedChunks = null;
+            }
+            // discard the rest of the content, the stream does not hand over any more chunks once closed
+            awaitingChunk = false;
+            contentStream.close();
+        }
+
+        /**
+         * Takes the next steps of the request: sending the queued bulk request, asking for more content or completing the request. The
+         * callbacks of the bulk requests and of the content stream may be called by the thread that sends the request or asks for
+         * content, and by several threads at once, so only one thread runs the steps at a time, and it runs them again if it was
+         * asked to while it was running them.
+         */
+        private void run() {
+            if (pendingRuns.getAndIncrement() != 0) {
+                return;
+            }
+            do {
+                runSteps();
+            } while (pendingRuns.decrementAndGet() != 0);
+        }
+
+        private void runSteps() {
+            while (true) {
+                final BulkRequest toSend;
+                final List<ReleasableBytesReference> toSendChunks;
+                final boolean readMore;
+                final Exception toFail;
+                synchronized (this) {
+                    if (completed) {
+                        return;
+                    }
+                    toSend = inFlight ? null : queued;
+                    toSendChunks = inFlight ? null : queuedChunks;
+                    if (toSend != null) {
+                        queued = null;
+                        queuedChunks = null;
+                        inFlight = true;
+                    }
+                    // keep receiving content while a bulk request is in flight, but not if another one is full already
+                    readMore = failure == null && lastReceived == false && awaitingChunk == false && queued == null;
+                    if (readMore) {
+                        awaitingChunk = true;
+                    }
+                    if (toSend == null && readMore == false) {
+                        if (inFlight || awaitingChunk || (failure == null && lastReceived == false)) {
+                            return;
+                        }
+                        completed = true;
+                    }
+                    toFail = failure;
+                }
+                if (toSend != null) {
+                    client.bulk(toSend, ActionListener.wrap(r -> onBulkResponse(r, toSendChunks), e -> onBulkFailure(e, toSendChunks)));
+                }
+                if (readMore) {
+                    contentStream.next();
+                }
+                if (toSend == null && readMore == false) {
+                    if (toFail != null) {
+                        listener.onFailure(toFail);
+                    } else {
+                        listener.onResponse(mergeResponses());
+                    }
+                    return;
+                }
+            }
+        }
+
+        private synchronized BulkResponse mergeResponses() {
+            assert responses.isEmpty() == false;
+            if (responses.size() == 1) {
+                return responses.get(0);
+            }
+            final List<BulkItemResponse> items = new ArrayList<>();
+            long ingestTookInMillis = BulkResponse.NO_INGEST_TOOK;
+            for (BulkResponse response : responses) {
+                final int offset = items.size();
+                for (BulkItemResponse item : response.getItems()) {
+                    items.add(item.isFailed()
+                        ? new BulkItemResponse(offset + item.getItemId(), item.getOpType(), item.getFailure())
+                        : new BulkItemResponse(offset + item.getItemId(), item.getOpType(), item.getResponse()));
+                }
+                if (response.getIngestTookInMillis() != BulkResponse.NO_INGEST_TOOK) {
+                    ingestTookInMillis = Math.max(ingestTookInMillis, 0L) + response.getIngestTookInMillis();
+                }
+            }
+            final long tookInMillis = TimeValue.nsecToMSec(System.nanoTime() - startTimeNanos);
+            return new BulkResponse(items.toArray(new BulkItemResponse[0]), tookInMillis, ingestTookInMillis);
+        }
+    }
 }
@@ -11,7 +11,10 @@ import org.apache.lucene.search.Collector;
 import org.apache.lucene.search.Query;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.lucene.search.Queries;
+import org.elasticsearch.search.aggregations.InternalAggregation.ReduceContext;
 import org.elasticsearch.search.aggregations.bucket.global.GlobalAggregator;
+import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator.PipelineTree;
+import org.elasticsearch.search.aggregations.support.AggregationContext;
 import org.elasticsearch.search.internal.SearchContext;
 import org.elasticsearch.search.profile.query.CollectorResult;
 import org.elasticsearch.search.profile.query.InternalProfileCollector;
@@ -103,12 +106,36 @@ public class AggregationPhase {
             }
         }
 
+        InternalAggregations aggregations = buildTopLevel(context, aggregators);
+        List<Aggregator[]> sliceAggregators = context.aggregations().sliceAggregators();
+        if (sliceAggregators.isEmpty() == false) {
+            // the segments were collected concurrently, merge the results of the slices into a single shard result
+            // aggregations that use scripts are never collected concurrently so the reduction doesn't need a script service
+            AggregationContext aggregationContext = context.aggregations().factories().context();
+            ReduceContext reduceContext = ReduceContext.forPartialReduction(aggregationContext.bigArrays(), null,
+                () -> PipelineTree.EMPTY);
+            try (AggregationsReducer reducer = new AggregationsReducer(reduceContext, sliceAggregators.size() + 1)) {
+                reducer.accept(aggregations);
+                for (Aggregator[] slice : sliceAggregators) {
+                    reducer.accept(buildTopLevel(context, slice));
+                }
+                aggregations = reducer.get(reduceContext);
+            }
+        }
+        context.queryResult().aggregations(aggregations);
+
+        // disable aggregations so that they don't run on next pages in case of scrolling
+        context.aggregations(null);
+        context.queryCollectors().remove(AggregationPhase.class);
+    }
+
+    private static InternalAggregations buildTopLevel(SearchContext context, Aggregator[] aggregators) {
         List<InternalAggregation> aggregations = new ArrayList<>(aggregators.length);
         if (context.aggregations().factories().context() != null) {
             // Rollup can end up here with a null context but not null factories.....
             context.aggregations().factories().context().multiBucketConsumer().reset();
         }
-        for (Aggregator aggregator : context.aggregations().aggregators()) {
+        for (Aggregator aggregator : aggregators) {
             try {
                 aggregator.postCollection();
                 aggregations.add(aggregator.buildTopLevel());
@@ -116,10 +143,6 @@ public class AggregationPhase {
                 throw new AggregationExecutionException("Failed to build aggregation [" + aggregator.name() + "]", e);
             }
         }
-        context.queryResult().aggregations(InternalAggregations.from(aggregations));
-
-        // disable aggregations so that they don't run on next pages in case of scrolling
-        context.aggregations(null);
-        context.queryCollectors().remove(AggregationPhase.class);
+        return InternalAggregations.from(aggregations);
     }
 }
@@ -0,0 +1,211 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.aggregations;
+
+import org.apache.lucene.util.RamUsageEstimator;
+import org.elasticsearch.common.io.stream.DelayableWriteable;
+import org.elasticsearch.common.lease.Releasable;
+import org.elasticsearch.common.lease.Releasables;
+import org.elasticsearch.search.aggregations.InternalAggregation.ReduceContext;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reduces {@link InternalAggregations} one at a time. Aggregations that provide an {@link AggregatorReducer} are merged into it as
+ * they are accepted, so neither the accepted aggregations nor partial reductions of them need to be kept. The other aggregations
+ * are buffered and partially reduced with {@link InternalAggregation#reduce} each time the buffer is full, like
+ * {@link InternalAggregations#reduce(List, ReduceContext)} does for batches of shard results. This class is not thread-safe.
+ */
+public final class AggregationsReducer implements Releasable {
+
+    private static final long BASE_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(AggregationsReducer.class)
+        + RamUsageEstimator.shallowSizeOfInstance(HashMap.class);
+    // a slot, its entry in the map and its buffer
+    private static final long SLOT_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(Slot.class)
+        + RamUsageEstimator.NUM_BYTES_OBJECT_HEADER + 3 * RamUsageEstimator.NUM_BYTES_OBJECT_REF + Integer.BYTES
+        + RamUsageEstimator.shallowSizeOfInstance(ArrayList.class);
+
+    private final ReduceContext partialReduceContext;
+    private final int bufferSize;
+    // a hash map like InternalAggregations#reduce so that the reduced aggregations come out in the same order
+    private final Map<String, Slot> slots = new HashMap<>();
+
+    /**
+     * @param partialReduceContext the context of the partial reductions that this reducer performs while accepting aggregations
+     * @param bufferSize the number of aggregations of the same name that can be buffered before they are partially reduced if they
+     *                   don't provide an {@link AggregatorReducer}
+     */
+    public AggregationsReducer(ReduceContext partialReduceContext, int bufferSize) {
+        if (partialReduceContext.isFinalReduce()) {
+            throw new IllegalArgumentException("aggregations must be accepted with a partial reduce context");
+        }
+        if (bufferSize < 2) {
+            throw new IllegalArgumentException("buffer size must be >= 2 but was [" + bufferSize + "]");
+        }
+        this.partialReduceContext = partialReduceContext;
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * Merges the given aggregations into this reducer.
+     */
+    public void accept(InternalAggregations aggregations) {
+        for (Aggregation aggregation : aggregations) {
+            slots.computeIfAbsent(aggregation.getName(), name -> new Slot()).accept((InternalAggregation) aggregation);
+        }
+    }
+
+    /**
+     * Returns <code>true</code> if all the aggregations that have been accepted so far have been merged incrementally, and
+     * <code>false</code> if some of them had to be buffered.
+     */
+    public boolean isStreaming() {
+        for (Slot slot : slots.values()) {
+            if (slot.buffer != null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns an estimate of the memory held by this reducer outside of the big arrays of its {@link AggregatorReducer}s. The
+     * aggregations that are buffered because they can't be merged incrementally are counted by their serialized size, like
+     * the coordinating node does for shard results.
+     */
+    public long ramBytesUsed() {
+        long size = BASE_RAM_BYTES_USED;
+        for (Slot slot : slots.values()) {
+            size += slot.ramBytesUsed();
+        }
+        return size;
+    }
+
+    /**
+     * Builds the reduction of all the aggregations that have been accepted so far, without reducing pipeline aggregations.
+     * This can be called more than once with a partial reduce context, but only once with the final reduce context.
+     *
+     * @see InternalAggregations#topLevelReduce(AggregationsReducer, ReduceContext)
+     */
+    public InternalAggregations get(ReduceContext reduceContext) {
+        List<InternalAggregation> reduced = new ArrayList<>(slots.size());
+        for (Slot slot : slots.values()) {
+            reduced.add(slot.get(reduceContext));
+        }
+        return InternalAggregations.from(reduced);
+    }
+
+    @Override
+    public void close() {
+        Releasables.close(slots.values());
+    }
+
+    private static InternalAggregation reduce(List<InternalAggregation> aggregations, ReduceContext reduceContext) {
+        // Sort aggregations so that unmapped aggs come last in the list
+        aggregations.sort(InternalAggregations.INTERNAL_AGG_COMPARATOR);
+        InternalAggregation first = aggregations.get(0);
+        if (first.mustReduceOnSingleInternalAgg() || aggregations.size() > 1) {
+            return first.reduce(aggregations, reduceContext);
+        }
+        return first;
+    }
+
+    /**
+     * The reduction of all the aggregations of the same name.
+     */
+    private class Slot implements Releasable {
+        // the unmapped aggregations that came before the first mapped aggregation, which picks the reducer
+        private List<InternalAggregation> unmapped = new ArrayList<>();
+        private AggregatorReducer reducer;
+        private List<InternalAggregation> buffer;
+        // the serialized size of the aggregations in unmapped and buffer
+        private long bufferedBytes;
+
+        void accept(InternalAggregation aggregation) {
+            if (unmapped == null) {
+                add(aggregation);
+            } else if (aggregation.isMapped() == false) {
+                unmapped.add(aggregation);
+                bufferedBytes += DelayableWriteable.getSerializedSize(aggregation);
+            } else {
+                bufferedBytes = 0;
+                reducer = aggregation.getStreamingReducer(partialReduceContext);
+                if (reducer == null) {
+                    buffer = new ArrayList<>();
+                }
+                add(aggregation);
+                for (InternalAggregation unmappedAggregation : unmapped) {
+                    add(unmappedAggregation);
+                }
+                unmapped = null;
+            }
+        }
+
+        private void add(InternalAggregation aggregation) {
+            if (reducer != null) {
+                if (reducer.accept(aggregation)) {
+                    return;
+                }
+                // e.g. the same field is mapped to different types in different indices, let the list-based reduce deal with it
+                InternalAggregation reduced = reducer.get(partialReduceContext);
+                reducer.close();
+                reducer = null;
+                buffer = new ArrayList<>();
+                buffer.add(reduced);
+                bufferedBytes = DelayableWriteable.getSerializedSize(reduced);
+            }
+            final long size = DelayableWriteable.getSerializedSize(aggregation);
+            buffer.add(aggregation);
+            bufferedBytes += size;
+            if (buffer.size() >= bufferSize) {
+                // keep the last aggregation out of the partial reduce so that the buffer never holds a single partial reduction,
+                // which would be mistaken for a single shard result by the final reduce
+                InternalAggregation last = buffer.remove(buffer.size() - 1);
+                InternalAggregation reduced = reduce(buffer, partialReduceContext);
+                buffer = new ArrayList<>();
+                buffer.add(reduced);
+                buffer.add(last);
+                bufferedBytes = DelayableWriteable.getSerializedSize(reduced) + size;
+            }
+        }
+
+        InternalAggregation get(ReduceContext reduceContext) {
+            if (reducer != null) {
+                return reducer.get(reduceContext);
+            } else if (buffer == null) {
+                return reduce(new ArrayList<>(unmapped), reduceContext);
+            } else if (reduceContext.isFinalReduce()) {
+                return reduce(new ArrayList<>(buffer), reduceContext);
+            } else {
+                // reductions may modify their inputs so they must not be reduced a second time
+                InternalAggregation reduced = reduce(buffer, reduceContext);
+                buffer = new ArrayList<>();
+                buffer.add(reduced);
+                bufferedBytes = DelayableWriteable.getSerializedSize(reduced);
+                return reduced;
+            }
+        }
+
+        long ramBytesUsed() {
+            long size = SLOT_RAM_BYTES_USED + bufferedBytes;
+            if (reducer != null) {
+                size += reducer.ramBytesUsed();
+            }
+            return size;
+        }
+
+        @Override
+        public void close() {
+            Releasables.close(reducer);
+        }
+    }
+}
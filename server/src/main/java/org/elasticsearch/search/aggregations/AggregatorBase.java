@@ -42,6 +42,7 @@ public abstract class AggregatorBase extends Aggregator {
     protected BucketCollector collectableSubAggregators;
 
     private Map<String, Aggregator> subAggregatorbyName;
+    private BlockLeafBucketCollector blockCollector;
     private long requestBytesUsed;
 
     /**
@@ -161,9 +162,25 @@ public abstract class AggregatorBase extends Aggregator {
 
     @Override
     public final LeafBucketCollector getLeafCollector(LeafReaderContext ctx) throws IOException {
+        flushBlock();
         preGetSubLeafCollectors(ctx);
         final LeafBucketCollector sub = collectableSubAggregators.getLeafCollector(ctx);
-        return getLeafCollector(ctx, sub);
+        final LeafBucketCollector leafCollector = getLeafCollector(ctx, sub);
+        if (parent == null && leafCollector.collectsBlocks() && scoreMode().needsScores() == false) {
+            blockCollector = new BlockLeafBucketCollector(leafCollector);
+            return blockCollector;
+        }
+        return leafCollector;
+    }
+
+    /**
+     * Collect the documents that are buffered for the block collection of the previous segment.
+     */
+    private void flushBlock() throws IOException {
+        if (blockCollector != null) {
+            blockCollector.flush();
+            blockCollector = null;
+        }
     }
 
     /**
@@ -230,6 +247,7 @@ public abstract class AggregatorBase extends Aggregator {
      */
     @Override
     public void postCollection() throws IOException {
+        flushBlock();
         // post-collect this agg before subs to make it possible to buffer and then replay in postCollection()
         doPostCollection();
         collectableSubAggregators.postCollection();
@@ -204,6 +204,21 @@ public class AggregatorFactories {
         return factories.length;
     }
 
+    /**
+     * Returns {@code true} if all the factories and their sub-factories
+     * support the concurrent collection of the segments of a shard.
+     *
+     * @see AggregatorFactory#supportsConcurrentCollection()
+     */
+    public boolean supportsConcurrentCollection() {
+        for (AggregatorFactory factory : factories) {
+            if (factory.supportsConcurrentCollection() == false || factory.factories.supportsConcurrentCollection() == false) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * This returns a copy of {@link AggregatorFactories} modified so that
      * calls to {@link #createSubAggregators} will ignore the provided parent
@@ -67,6 +67,17 @@ public abstract class AggregatorFactory {
         return parent;
     }
 
+    /**
+     * Returns {@code true} if several aggregators built by this factory can
+     * collect disjoint sets of segments of the same shard on different
+     * threads, and if partially reducing their results gives the same
+     * aggregation as collecting all segments with a single aggregator. Sub
+     * aggregations are checked separately.
+     */
+    public boolean supportsConcurrentCollection() {
+        return false;
+    }
+
     /**
      * Returns the aggregation subtype for nodes usage stats.
      * <p>
@@ -0,0 +1,51 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.aggregations;
+
+import org.elasticsearch.common.lease.Releasable;
+import org.elasticsearch.search.aggregations.InternalAggregation.ReduceContext;
+
+/**
+ * Merges aggregations of the same name one at a time into a mutable state, rather than reducing a list of them at once with
+ * {@link InternalAggregation#reduce}. This allows to reduce shard results as they arrive without keeping them or their
+ * partial reductions around.
+ * <p>
+ * Reducers allocate their big arrays from {@link org.elasticsearch.common.util.BigArrays#withCircuitBreaking()} so that the
+ * request circuit breaker trips as they grow, and report the memory they hold outside of big arrays with {@link #ramBytesUsed()}.
+ *
+ * @see InternalAggregation#getStreamingReducer(ReduceContext)
+ */
+public interface AggregatorReducer extends Releasable {
+
+    /**
+     * Merges the given aggregation, which is either a shard result or a partial reduction, into this reducer.
+     *
+     * @return <code>false</code> if the aggregation cannot be merged incrementally, in which case the state of this reducer is not
+     *         modified and the caller must fall back to {@link InternalAggregation#reduce} for this and the following aggregations
+     */
+    boolean accept(InternalAggregation aggregation);
+
+    /**
+     * Builds the reduction of all the aggregations that have been accepted so far. This is a partial reduction or the final
+     * reduction depending on the given context. This method doesn't modify the state of the reducer and can be called more than
+     * once, for instance to expose partial results.
+     */
+    InternalAggregation get(ReduceContext reduceContext);
+
+    /**
+     * Returns an estimate of the memory held by this reducer outside of its big arrays, which account for themselves in the
+     * circuit breaker. Reducers whose state is a handful of fields can rely on the default of <code>0</code>.
+     */
+    default long ramBytesUsed() {
+        return 0L;
+    }
+
+    @Override
+    default void close() {}
+}
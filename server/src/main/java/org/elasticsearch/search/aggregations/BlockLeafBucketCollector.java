@@ -0,0 +1,60 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.aggregations;
+
+import org.apache.lucene.search.Scorable;
+
+import java.io.IOException;
+
+/**
+ * A {@link LeafBucketCollector} that buffers the documents that it collects
+ * and passes them to {@link LeafBucketCollector#collect(int[], int, long)}
+ * of its delegate in blocks of up to {@link LeafBucketCollector#BLOCK_SIZE}
+ * documents. The buffered documents must be {@link #flush() flushed} once
+ * collection of the segment is done.
+ */
+final class BlockLeafBucketCollector extends LeafBucketCollector {
+
+    private final LeafBucketCollector in;
+    private final int[] docs = new int[BLOCK_SIZE];
+    private int count;
+    private long owningBucketOrd;
+
+    BlockLeafBucketCollector(LeafBucketCollector in) {
+        this.in = in;
+    }
+
+    @Override
+    public void setScorer(Scorable scorer) throws IOException {
+        in.setScorer(scorer);
+    }
+
+    @Override
+    public void collect(int doc, long owningBucketOrd) throws IOException {
+        if (count > 0 && owningBucketOrd != this.owningBucketOrd) {
+            flush();
+        }
+        this.owningBucketOrd = owningBucketOrd;
+        docs[count++] = doc;
+        if (count == docs.length) {
+            flush();
+        }
+    }
+
+    /**
+     * Collect the buffered documents.
+     */
+    void flush() throws IOException {
+        if (count > 0) {
+            int blockCount = count;
+            count = 0;
+            in.collect(docs, blockCount, owningBucketOrd);
+        }
+    }
+}
@@ -217,6 +217,15 @@ public abstract class InternalAggregation implements Aggregation, NamedWriteable
      */
     public abstract InternalAggregation reduce(List<InternalAggregation> aggregations, ReduceContext reduceContext);
 
+    /**
+     * Returns an {@link AggregatorReducer} that merges this aggregation and the other aggregations of the same name one at a time,
+     * with the same result as {@link #reduce(List, ReduceContext)}, or <code>null</code> if aggregations of this type can only be
+     * reduced as a list. The reducer may allocate its state with the {@link BigArrays} of the given context.
+     */
+    public AggregatorReducer getStreamingReducer(ReduceContext partialReduceContext) {
+        return null;
+    }
+
     /**
      * Signal the framework if the {@linkplain InternalAggregation#reduce(List, ReduceContext)} phase needs to be called
      * when there is only one {@linkplain InternalAggregation}.
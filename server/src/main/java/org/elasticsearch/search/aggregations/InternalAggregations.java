@@ -32,7 +32,7 @@ public final class InternalAggregations extends Aggregations implements Writeabl
 
     public static final InternalAggregations EMPTY = new InternalAggregations(Collections.emptyList());
 
-    private static final Comparator<InternalAggregation> INTERNAL_AGG_COMPARATOR = (agg1, agg2) -> {
+    static final Comparator<InternalAggregation> INTERNAL_AGG_COMPARATOR = (agg1, agg2) -> {
         if (agg1.isMapped() == agg2.isMapped()) {
             return 0;
         } else if (agg1.isMapped() && agg2.isMapped() == false) {
@@ -104,7 +104,18 @@ public final class InternalAggregations extends Aggregations implements Writeabl
         if (reduced == null) {
             return null;
         }
+        return reducePipelines(reduced, context);
+    }
+
+    /**
+     * Builds the reduction of the aggregations that were accepted by the given reducer and, if this is the final reduce, reduces
+     * the pipeline aggregations like {@link #topLevelReduce(List, ReduceContext)}.
+     */
+    public static InternalAggregations topLevelReduce(AggregationsReducer reducer, ReduceContext context) {
+        return reducePipelines(reducer.get(context), context);
+    }
 
+    private static InternalAggregations reducePipelines(InternalAggregations reduced, ReduceContext context) {
         if (context.isFinalReduce()) {
             List<InternalAggregation> reducedInternalAggs = reduced.getInternalAggregations();
             reducedInternalAggs = reducedInternalAggs.stream()
@@ -21,6 +21,12 @@ import java.util.stream.StreamSupport;
  */
 public abstract class LeafBucketCollector implements LeafCollector {
 
+    /**
+     * The maximum number of documents in the blocks that are passed to
+     * {@link #collect(int[], int, long)}.
+     */
+    public static final int BLOCK_SIZE = 128;
+
     public static final LeafBucketCollector NO_OP_COLLECTOR = new LeafBucketCollector() {
         @Override
         public void setScorer(Scorable arg0) throws IOException {
@@ -91,6 +97,36 @@ public abstract class LeafBucketCollector implements LeafCollector {
      */
     public abstract void collect(int doc, long owningBucketOrd) throws IOException;
 
+    /**
+     * Collect the first {@code count} documents of {@code docs}, which are
+     * sorted in increasing order, in the bucket owned by
+     * {@code owningBucketOrd}.
+     * <p>
+     * Top level aggregations that don't need scores buffer the documents
+     * that they collect and pass them to this method in blocks of up to
+     * {@link #BLOCK_SIZE} documents if {@link #collectsBlocks()} returns
+     * {@code true}. That lets metric aggregations load their state for
+     * the bucket once per block and accumulate in local variables
+     * rather than reading and writing their big arrays for every document.
+     * The default implementation collects the documents one at a time.
+     */
+    public void collect(int[] docs, int count, long owningBucketOrd) throws IOException {
+        for (int i = 0; i < count; i++) {
+            collect(docs[i], owningBucketOrd);
+        }
+    }
+
+    /**
+     * Should the documents be passed to {@link #collect(int[], int, long)}
+     * in blocks when possible? Collectors that return {@code true} must not
+     * throw {@link org.apache.lucene.search.CollectionTerminatedException}
+     * because the exception would be thrown after the documents of the
+     * block were collected.
+     */
+    public boolean collectsBlocks() {
+        return false;
+    }
+
     @Override
     public final void collect(int doc) throws IOException {
         collect(doc, 0);
@@ -7,6 +7,11 @@
  */
 package org.elasticsearch.search.aggregations;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
 /**
  * The aggregation context that is part of the search context.
  */
@@ -14,6 +19,7 @@ public class SearchContextAggregations {
 
     private final AggregatorFactories factories;
     private Aggregator[] aggregators;
+    private final List<Aggregator[]> sliceAggregators = new ArrayList<>();
 
     /**
      * Creates a new aggregation context with the parsed aggregator factories
@@ -38,4 +44,33 @@ public class SearchContextAggregations {
     public void aggregators(Aggregator[] aggregators) {
         this.aggregators = aggregators;
     }
+
+    /**
+     * Creates another set of top level aggregators to collect a slice of the
+     * segments of the shard concurrently with the {@link #aggregators()}. The
+     * results of all sets are merged when the aggregations are built. This
+     * must be called from the thread that executes the query phase. The
+     * first call makes the memory accounting of the aggregations safe for
+     * concurrent collection.
+     *
+     * @see AggregatorFactories#supportsConcurrentCollection()
+     */
+    public BucketCollector newSliceCollector() throws IOException {
+        assert factories.supportsConcurrentCollection();
+        if (sliceAggregators.isEmpty() && factories.context() != null) {
+            factories.context().enableConcurrentCollection();
+        }
+        Aggregator[] aggregators = factories.createTopLevelAggregators();
+        sliceAggregators.add(aggregators);
+        BucketCollector collector = MultiBucketCollector.wrap(Arrays.asList(aggregators));
+        collector.preCollection();
+        return collector;
+    }
+
+    /**
+     * The sets of top level aggregators created by {@link #newSliceCollector()}.
+     */
+    public List<Aggregator[]> sliceAggregators() {
+        return sliceAggregators;
+    }
 }
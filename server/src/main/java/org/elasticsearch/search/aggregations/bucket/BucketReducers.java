@@ -0,0 +1,118 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.aggregations.bucket;
+
+import org.elasticsearch.common.lease.Releasable;
+import org.elasticsearch.common.lease.Releasables;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.common.util.LongArray;
+import org.elasticsearch.common.util.ObjectArray;
+import org.elasticsearch.search.aggregations.AggregationsReducer;
+import org.elasticsearch.search.aggregations.AggregatorReducer;
+import org.elasticsearch.search.aggregations.InternalAggregation.ReduceContext;
+import org.elasticsearch.search.aggregations.InternalAggregations;
+
+/**
+ * Holds the doc count and the reduction of the sub-aggregations of each bucket of an {@link AggregatorReducer} for a multi-bucket
+ * aggregation. Buckets are identified by an ordinal that the caller assigns to their key, for instance with a
+ * {@link org.elasticsearch.common.util.LongHash}. The doc counts are held in big arrays that trip the request circuit breaker
+ * as they grow, and the memory held by the reducers of the sub-aggregations is reported by {@link #ramBytesUsed()}.
+ */
+public final class BucketReducers implements Releasable {
+
+    /**
+     * The number of sub-aggregations of the same name that are buffered in each bucket before they are partially reduced,
+     * if they don't provide their own {@link AggregatorReducer}.
+     */
+    static final int SUB_AGGREGATIONS_BUFFER_SIZE = 16;
+
+    private final ReduceContext partialReduceContext;
+    private final BigArrays bigArrays;
+    private LongArray docCounts;
+    private ObjectArray<AggregationsReducer> subAggregations;
+    // the sum of the memory used by the reducers of the sub-aggregations, kept up to date as they change
+    private long subAggregationsRamBytesUsed;
+
+    public BucketReducers(ReduceContext partialReduceContext) {
+        this.partialReduceContext = partialReduceContext;
+        this.bigArrays = partialReduceContext.bigArrays().withCircuitBreaking();
+        boolean success = false;
+        try {
+            docCounts = bigArrays.newLongArray(1, true);
+            subAggregations = bigArrays.newObjectArray(1);
+            success = true;
+        } finally {
+            if (success == false) {
+                close();
+            }
+        }
+    }
+
+    /**
+     * Adds the doc count and the sub-aggregations of a bucket to the bucket with the given ordinal.
+     */
+    public void accept(long ord, long docCount, InternalAggregations aggregations) {
+        docCounts = bigArrays.grow(docCounts, ord + 1);
+        subAggregations = bigArrays.grow(subAggregations, ord + 1);
+        docCounts.increment(ord, docCount);
+        if (aggregations.asList().isEmpty() == false) {
+            AggregationsReducer reducer = subAggregations.get(ord);
+            final long before;
+            if (reducer == null) {
+                reducer = new AggregationsReducer(partialReduceContext, SUB_AGGREGATIONS_BUFFER_SIZE);
+                subAggregations.set(ord, reducer);
+                before = 0;
+            } else {
+                before = reducer.ramBytesUsed();
+            }
+            reducer.accept(aggregations);
+            subAggregationsRamBytesUsed += reducer.ramBytesUsed() - before;
+        }
+    }
+
+    /**
+     * Returns the sum of the doc counts that were added to the bucket with the given ordinal.
+     */
+    public long getDocCount(long ord) {
+        return docCounts.get(ord);
+    }
+
+    /**
+     * Builds the reduction of the sub-aggregations that were added to the bucket with the given ordinal.
+     */
+    public InternalAggregations getAggregations(long ord, ReduceContext reduceContext) {
+        AggregationsReducer reducer = subAggregations.get(ord);
+        if (reducer == null) {
+            return InternalAggregations.EMPTY;
+        }
+        // partial reductions replace the buffered sub-aggregations with their reduction
+        final long before = reducer.ramBytesUsed();
+        InternalAggregations aggregations = reducer.get(reduceContext);
+        subAggregationsRamBytesUsed += reducer.ramBytesUsed() - before;
+        return aggregations;
+    }
+
+    /**
+     * Returns an estimate of the memory held by the reducers of the sub-aggregations of the buckets, the big arrays of these
+     * reducers and the doc counts excluded.
+     */
+    public long ramBytesUsed() {
+        return subAggregationsRamBytesUsed;
+    }
+
+    @Override
+    public void close() {
+        if (subAggregations != null) {
+            for (long ord = 0; ord < subAggregations.size(); ord++) {
+                Releasables.close(subAggregations.get(ord));
+            }
+        }
+        Releasables.close(docCounts, subAggregations);
+    }
+}
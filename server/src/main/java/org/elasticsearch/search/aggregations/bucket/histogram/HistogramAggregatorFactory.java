@@ -104,4 +104,9 @@ public final class HistogramAggregatorFactory extends ValuesSourceAggregatorFact
         return new NumericHistogramAggregator(name, factories, interval, offset, order, keyed, minDocCount, extendedBounds,
             hardBounds, config, context, parent, CardinalityUpperBound.NONE, metadata);
     }
+
+    @Override
+    public boolean supportsConcurrentCollection() {
+        return readsDocValuesOnly();
+    }
 }
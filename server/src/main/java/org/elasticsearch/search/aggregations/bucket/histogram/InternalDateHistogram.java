@@ -12,15 +12,19 @@ import org.apache.lucene.util.PriorityQueue;
 import org.elasticsearch.common.Rounding;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.lease.Releasables;
+import org.elasticsearch.common.util.LongHash;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.search.DocValueFormat;
 import org.elasticsearch.search.aggregations.Aggregations;
+import org.elasticsearch.search.aggregations.AggregatorReducer;
 import org.elasticsearch.search.aggregations.BucketOrder;
 import org.elasticsearch.search.aggregations.InternalAggregation;
 import org.elasticsearch.search.aggregations.InternalAggregations;
 import org.elasticsearch.search.aggregations.InternalMultiBucketAggregation;
 import org.elasticsearch.search.aggregations.InternalOrder;
 import org.elasticsearch.search.aggregations.KeyComparable;
+import org.elasticsearch.search.aggregations.bucket.BucketReducers;
 import org.elasticsearch.search.aggregations.bucket.IteratorAndCurrent;
 import org.elasticsearch.search.aggregations.bucket.MultiBucketsAggregation;
 
@@ -411,7 +415,14 @@ public final class InternalDateHistogram extends InternalMultiBucketAggregation<
 
     @Override
     public InternalAggregation reduce(List<InternalAggregation> aggregations, ReduceContext reduceContext) {
-        List<Bucket> reducedBuckets = reduceBuckets(aggregations, reduceContext);
+        return finishReduce(reduceBuckets(aggregations, reduceContext), reduceContext);
+    }
+
+    /**
+     * Builds the reduced histogram from the given buckets, which are sorted by key and, on the final reduce, only include
+     * the buckets that have at least {@code minDocCount} documents.
+     */
+    private InternalDateHistogram finishReduce(List<Bucket> reducedBuckets, ReduceContext reduceContext) {
         if (reduceContext.isFinalReduce()) {
             if (minDocCount == 0) {
                 addEmptyBuckets(reducedBuckets, reduceContext);
@@ -433,6 +444,70 @@ public final class InternalDateHistogram extends InternalMultiBucketAggregation<
                 format, keyed, getMetadata());
     }
 
+    @Override
+    public AggregatorReducer getStreamingReducer(ReduceContext partialReduceContext) {
+        return new StreamingReducer(partialReduceContext);
+    }
+
+    /**
+     * Merges the buckets of histograms into a hash of their keys, and only builds the buckets once the reduction is requested.
+     */
+    private class StreamingReducer implements AggregatorReducer {
+        private final LongHash keys;
+        private final BucketReducers buckets;
+
+        StreamingReducer(ReduceContext partialReduceContext) {
+            keys = new LongHash(1, partialReduceContext.bigArrays().withCircuitBreaking());
+            boolean success = false;
+            try {
+                buckets = new BucketReducers(partialReduceContext);
+                success = true;
+            } finally {
+                if (success == false) {
+                    keys.close();
+                }
+            }
+        }
+
+        @Override
+        public boolean accept(InternalAggregation aggregation) {
+            if (aggregation instanceof InternalDateHistogram == false) {
+                return false;
+            }
+            for (Bucket bucket : ((InternalDateHistogram) aggregation).buckets) {
+                long ord = keys.add(bucket.key);
+                if (ord < 0) {
+                    ord = -1 - ord;
+                }
+                buckets.accept(ord, bucket.docCount, bucket.aggregations);
+            }
+            return true;
+        }
+
+        @Override
+        public InternalAggregation get(ReduceContext reduceContext) {
+            List<Bucket> reducedBuckets = new ArrayList<>();
+            for (long ord = 0; ord < keys.size(); ord++) {
+                long docCount = buckets.getDocCount(ord);
+                if (docCount >= minDocCount || reduceContext.isFinalReduce() == false) {
+                    reducedBuckets.add(new Bucket(keys.get(ord), docCount, keyed, format, buckets.getAggregations(ord, reduceContext)));
+                }
+            }
+            reducedBuckets.sort((a, b) -> Long.compare(a.key, b.key));
+            return finishReduce(reducedBuckets, reduceContext);
+        }
+
+        @Override
+        public long ramBytesUsed() {
+            return buckets.ramBytesUsed();
+        }
+
+        @Override
+        public void close() {
+            Releasables.close(keys, buckets);
+        }
+    }
+
     @Override
     public XContentBuilder doXContentBody(XContentBuilder builder, Params params) throws IOException {
         if (keyed) {
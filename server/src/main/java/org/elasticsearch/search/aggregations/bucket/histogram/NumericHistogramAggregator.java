@@ -112,6 +112,53 @@ public class NumericHistogramAggregator extends AbstractHistogramAggregator {
                     }
                 }
             }
+
+            @Override
+            public void collect(int[] docs, int count, long owningBucketOrd) throws IOException {
+                // neighbouring documents often fall in the same bucket so remember the last one to skip looking it up again
+                long lastKeyBits = 0;
+                long lastBucketOrd = -1;
+                for (int i = 0; i < count; i++) {
+                    final int doc = docs[i];
+                    if (values.advanceExact(doc) == false) {
+                        continue;
+                    }
+                    final int valuesCount = values.docValueCount();
+
+                    double previousKey = Double.NEGATIVE_INFINITY;
+                    for (int v = 0; v < valuesCount; ++v) {
+                        double value = values.nextValue();
+                        double key = Math.floor((value - offset) / interval);
+                        assert key >= previousKey;
+                        if (key == previousKey) {
+                            continue;
+                        }
+                        previousKey = key;
+                        if (hardBounds != null && hardBounds.contain(key * interval) == false) {
+                            continue;
+                        }
+                        long keyBits = Double.doubleToLongBits(key);
+                        if (lastBucketOrd >= 0 && keyBits == lastKeyBits) {
+                            collectExistingBucket(sub, doc, lastBucketOrd);
+                            continue;
+                        }
+                        long bucketOrd = bucketOrds.add(owningBucketOrd, keyBits);
+                        if (bucketOrd < 0) { // already seen
+                            bucketOrd = -1 - bucketOrd;
+                            collectExistingBucket(sub, doc, bucketOrd);
+                        } else {
+                            collectBucket(sub, doc, bucketOrd);
+                        }
+                        lastKeyBits = keyBits;
+                        lastBucketOrd = bucketOrd;
+                    }
+                }
+            }
+
+            @Override
+            public boolean collectsBlocks() {
+                return true;
+            }
         };
     }
 }
@@ -9,8 +9,11 @@ package org.elasticsearch.search.aggregations.bucket.terms;
 
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.lease.Releasables;
+import org.elasticsearch.common.util.LongHash;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.search.DocValueFormat;
+import org.elasticsearch.search.aggregations.AggregatorReducer;
 import org.elasticsearch.search.aggregations.BucketOrder;
 import org.elasticsearch.search.aggregations.InternalAggregation;
 import org.elasticsearch.search.aggregations.InternalAggregations;
@@ -131,6 +134,45 @@ public class DoubleTerms extends InternalMappedTerms<DoubleTerms, DoubleTerms.Bu
         return new Bucket[size];
     }
 
+    @Override
+    public AggregatorReducer getStreamingReducer(ReduceContext partialReduceContext) {
+        return new StreamingTermsReducer<DoubleTerms, Bucket>(this, partialReduceContext) {
+            private final LongHash keys = new LongHash(1, bigArrays);
+
+            @Override
+            protected boolean canAccept(InternalTerms<?, ?> terms) {
+                // long terms need to be promoted to doubles by #reduce
+                return terms instanceof DoubleTerms;
+            }
+
+            @Override
+            protected long addTerm(Bucket bucket) {
+                return keys.add(Double.doubleToLongBits(bucket.term));
+            }
+
+            @Override
+            protected long numTerms() {
+                return keys.size();
+            }
+
+            @Override
+            protected int compareTerms(long ord1, long ord2) {
+                return Double.compare(Double.longBitsToDouble(keys.get(ord1)), Double.longBitsToDouble(keys.get(ord2)));
+            }
+
+            @Override
+            protected Bucket createBucket(long ord, long docCount, InternalAggregations aggregations, long docCountError) {
+                double term = Double.longBitsToDouble(keys.get(ord));
+                return new Bucket(term, docCount, aggregations, showTermDocCountError, docCountError, format);
+            }
+
+            @Override
+            public void close() {
+                Releasables.close(super::close, keys);
+            }
+        };
+    }
+
     @Override
     public InternalAggregation reduce(List<InternalAggregation> aggregations, ReduceContext reduceContext) {
         boolean promoteToDouble = false;
@@ -9,8 +9,11 @@ package org.elasticsearch.search.aggregations.bucket.terms;
 
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.lease.Releasables;
+import org.elasticsearch.common.util.LongHash;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.search.DocValueFormat;
+import org.elasticsearch.search.aggregations.AggregatorReducer;
 import org.elasticsearch.search.aggregations.BucketOrder;
 import org.elasticsearch.search.aggregations.InternalAggregation;
 import org.elasticsearch.search.aggregations.InternalAggregations;
@@ -143,6 +146,44 @@ public class LongTerms extends InternalMappedTerms<LongTerms, LongTerms.Bucket>
         return new Bucket[size];
     }
 
+    @Override
+    public AggregatorReducer getStreamingReducer(ReduceContext partialReduceContext) {
+        return new StreamingTermsReducer<LongTerms, Bucket>(this, partialReduceContext) {
+            private final LongHash keys = new LongHash(1, bigArrays);
+
+            @Override
+            protected boolean canAccept(InternalTerms<?, ?> terms) {
+                // mixed formats and doubles need the conversions of #reduce
+                return terms instanceof LongTerms && format.equals(((LongTerms) terms).format);
+            }
+
+            @Override
+            protected long addTerm(Bucket bucket) {
+                return keys.add(bucket.term);
+            }
+
+            @Override
+            protected long numTerms() {
+                return keys.size();
+            }
+
+            @Override
+            protected int compareTerms(long ord1, long ord2) {
+                return Long.compare(keys.get(ord1), keys.get(ord2));
+            }
+
+            @Override
+            protected Bucket createBucket(long ord, long docCount, InternalAggregations aggregations, long docCountError) {
+                return new Bucket(keys.get(ord), docCount, aggregations, showTermDocCountError, docCountError, format);
+            }
+
+            @Override
+            public void close() {
+                Releasables.close(super::close, keys);
+            }
+        };
+    }
+
     @Override
     public InternalAggregation reduce(List<InternalAggregation> aggregations, ReduceContext reduceContext) {
         boolean unsignedLongFormat = false;
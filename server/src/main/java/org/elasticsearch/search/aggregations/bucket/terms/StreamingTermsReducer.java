@@ -0,0 +1,244 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.aggregations.bucket.terms;
+
+import org.apache.lucene.util.IntroSorter;
+import org.elasticsearch.common.lease.Releasables;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.common.util.LongArray;
+import org.elasticsearch.search.aggregations.AggregatorReducer;
+import org.elasticsearch.search.aggregations.BucketOrder;
+import org.elasticsearch.search.aggregations.InternalAggregation;
+import org.elasticsearch.search.aggregations.InternalAggregation.ReduceContext;
+import org.elasticsearch.search.aggregations.InternalAggregations;
+import org.elasticsearch.search.aggregations.InternalMultiBucketAggregation;
+import org.elasticsearch.search.aggregations.InternalOrder;
+import org.elasticsearch.search.aggregations.bucket.BucketReducers;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.elasticsearch.search.aggregations.InternalOrder.isKeyAsc;
+import static org.elasticsearch.search.aggregations.InternalOrder.isKeyOrder;
+
+/**
+ * Merges terms aggregations one at a time with the same result as {@link AbstractInternalTerms#reduce}. Subclasses assign an
+ * ordinal to each term, and the doc count and the doc count error of the terms are summed up in big arrays indexed by that
+ * ordinal. Buckets are only built once the reduction is requested. Subclasses allocate the structures that map terms to ordinals
+ * from {@link #bigArrays}, which trips the request circuit breaker as they grow.
+ */
+abstract class StreamingTermsReducer<A extends InternalMappedTerms<A, B>, B extends InternalTerms.Bucket<B>>
+    implements AggregatorReducer {
+
+    protected final A leader;
+    protected final BigArrays bigArrays;
+    private final BucketReducers buckets;
+    // the doc count error of each term, before adding the sum of the doc count errors of all the aggregations
+    private LongArray docCountErrors;
+    private int numAggregations;
+    private long otherDocCount;
+    private long sumDocCountError;
+    // the reduce order of the aggregations that have buckets, null until one of them is accepted
+    private BucketOrder reduceOrder;
+    private boolean mixedReduceOrders;
+
+    StreamingTermsReducer(A leader, ReduceContext partialReduceContext) {
+        this.leader = leader;
+        this.bigArrays = partialReduceContext.bigArrays().withCircuitBreaking();
+        this.buckets = new BucketReducers(partialReduceContext);
+        boolean success = false;
+        try {
+            this.docCountErrors = bigArrays.newLongArray(1, true);
+            success = true;
+        } finally {
+            if (success == false) {
+                buckets.close();
+            }
+        }
+    }
+
+    /**
+     * Returns <code>true</code> if the buckets of the given mapped terms aggregation can be merged with the buckets of the leader.
+     */
+    protected abstract boolean canAccept(InternalTerms<?, ?> terms);
+
+    /**
+     * Adds the term of the given bucket and returns its ordinal, or <code>-1 - ordinal</code> if the term was already added.
+     */
+    protected abstract long addTerm(B bucket);
+
+    /**
+     * Returns the number of terms that have been added.
+     */
+    protected abstract long numTerms();
+
+    /**
+     * Compares the terms with the given ordinals in ascending order.
+     */
+    protected abstract int compareTerms(long ord1, long ord2);
+
+    /**
+     * Builds the bucket of the term with the given ordinal.
+     */
+    protected abstract B createBucket(long ord, long docCount, InternalAggregations aggregations, long docCountError);
+
+    @Override
+    public final boolean accept(InternalAggregation aggregation) {
+        if (aggregation instanceof InternalTerms == false) {
+            return false;
+        }
+        InternalTerms<?, ?> terms = (InternalTerms<?, ?>) aggregation;
+        if (terms.isMapped() && canAccept(terms) == false) {
+            return false;
+        }
+        numAggregations++;
+        otherDocCount += terms.getSumOfOtherDocCounts();
+        final long thisAggDocCountError = AbstractInternalTerms.getDocCountError(terms);
+        if (sumDocCountError != -1) {
+            if (thisAggDocCountError == -1) {
+                sumDocCountError = -1;
+            } else {
+                sumDocCountError += thisAggDocCountError;
+            }
+        }
+        if (terms.getBuckets().isEmpty()) {
+            return true;
+        }
+        if (reduceOrder == null) {
+            reduceOrder = terms.getReduceOrder();
+        } else if (reduceOrder.equals(terms.getReduceOrder()) == false) {
+            mixedReduceOrders = true;
+        }
+        @SuppressWarnings("unchecked")
+        List<B> termsBuckets = (List<B>) terms.getBuckets();
+        for (B bucket : termsBuckets) {
+            long ord = addTerm(bucket);
+            if (ord < 0) {
+                ord = -1 - ord;
+            } else {
+                docCountErrors = bigArrays.grow(docCountErrors, ord + 1);
+            }
+            buckets.accept(ord, bucket.getDocCount(), (InternalAggregations) bucket.getAggregations());
+            // same as reduceBucket once the doc count error of the aggregation has been subtracted from the one of the bucket
+            long docCountError = docCountErrors.get(ord);
+            if (docCountError != -1) {
+                if (bucket.getShowDocCountError() == false || bucket.getDocCountError() - thisAggDocCountError == -1) {
+                    docCountErrors.set(ord, -1);
+                } else {
+                    docCountErrors.set(ord, docCountError + bucket.getDocCountError() - thisAggDocCountError);
+                }
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public final InternalAggregation get(ReduceContext reduceContext) {
+        BucketOrder thisReduceOrder = reduceOrder == null || mixedReduceOrders ? leader.getOrder() : reduceOrder;
+        final int[] ords = new int[Math.toIntExact(numTerms())];
+        for (int i = 0; i < ords.length; i++) {
+            ords[i] = i;
+        }
+        if (isKeyOrder(thisReduceOrder)) {
+            // extract the primary sort in case this is a compound order.
+            thisReduceOrder = InternalOrder.key(isKeyAsc(thisReduceOrder));
+            sortByTerm(ords, isKeyAsc(thisReduceOrder));
+        }
+        long otherDocCount = this.otherDocCount;
+        final B[] list;
+        if (reduceContext.isFinalReduce()) {
+            final int size = Math.min(leader.getRequiredSize(), ords.length);
+            final BucketPriorityQueue<B> ordered = new BucketPriorityQueue<>(size, leader.getOrder().comparator());
+            for (int ord : ords) {
+                long docCount = buckets.getDocCount(ord);
+                // unlike AbstractInternalTerms#reduce we don't reduce the sub-aggregations of the buckets that are filtered out
+                if (docCount >= leader.getMinDocCount()) {
+                    B removed = ordered.insertWithOverflow(createBucket(ord, docCount, reduceContext));
+                    if (removed != null) {
+                        otherDocCount += removed.getDocCount();
+                        reduceContext.consumeBucketsAndMaybeBreak(-InternalMultiBucketAggregation.countInnerBucket(removed));
+                    } else {
+                        reduceContext.consumeBucketsAndMaybeBreak(1);
+                    }
+                }
+            }
+            list = leader.createBucketsArray(ordered.size());
+            for (int i = ordered.size() - 1; i >= 0; i--) {
+                list[i] = ordered.pop();
+            }
+        } else {
+            // we can prune the list on partial reduce if the aggregation is ordered by key
+            // and not filtered (minDocCount == 0)
+            int size = isKeyOrder(leader.getOrder()) && leader.getMinDocCount() == 0
+                ? Math.min(leader.getRequiredSize(), ords.length)
+                : ords.length;
+            list = leader.createBucketsArray(size);
+            for (int i = 0; i < size; i++) {
+                reduceContext.consumeBucketsAndMaybeBreak(1);
+                list[i] = createBucket(ords[i], buckets.getDocCount(ords[i]), reduceContext);
+            }
+        }
+        long docCountError;
+        if (sumDocCountError == -1) {
+            docCountError = -1;
+        } else {
+            docCountError = numAggregations == 1 ? 0 : sumDocCountError;
+        }
+        return leader.create(leader.getName(), Arrays.asList(list), reduceContext.isFinalReduce() ? leader.getOrder() : thisReduceOrder,
+            docCountError, otherDocCount);
+    }
+
+    private B createBucket(long ord, long docCount, ReduceContext reduceContext) {
+        long docCountError = sumDocCountError == -1 ? -1 : docCountErrors.get(ord) + sumDocCountError;
+        return createBucket(ord, docCount, buckets.getAggregations(ord, reduceContext), docCountError);
+    }
+
+    private void sortByTerm(int[] ords, boolean asc) {
+        new IntroSorter() {
+            int pivot;
+
+            @Override
+            protected void swap(int i, int j) {
+                int tmp = ords[i];
+                ords[i] = ords[j];
+                ords[j] = tmp;
+            }
+
+            @Override
+            protected int compare(int i, int j) {
+                return compareOrds(ords[i], ords[j]);
+            }
+
+            @Override
+            protected void setPivot(int i) {
+                pivot = ords[i];
+            }
+
+            @Override
+            protected int comparePivot(int j) {
+                return compareOrds(pivot, ords[j]);
+            }
+
+            private int compareOrds(long ord1, long ord2) {
+                int cmp = compareTerms(ord1, ord2);
+                return asc ? cmp : -cmp;
+            }
+        }.sort(0, ords.length);
+    }
+
+    @Override
+    public long ramBytesUsed() {
+        return buckets.ramBytesUsed();
+    }
+
+    @Override
+    public void close() {
+        Releasables.close(buckets, docCountErrors);
+    }
+}
@@ -10,8 +10,11 @@ package org.elasticsearch.search.aggregations.bucket.terms;
 import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.lease.Releasables;
+import org.elasticsearch.common.util.BytesRefHash;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.search.DocValueFormat;
+import org.elasticsearch.search.aggregations.AggregatorReducer;
 import org.elasticsearch.search.aggregations.BucketOrder;
 import org.elasticsearch.search.aggregations.InternalAggregations;
 
@@ -138,4 +141,44 @@ public class StringTerms extends InternalMappedTerms<StringTerms, StringTerms.Bu
     protected Bucket[] createBucketsArray(int size) {
         return new Bucket[size];
     }
+
+    @Override
+    public AggregatorReducer getStreamingReducer(ReduceContext partialReduceContext) {
+        return new StreamingTermsReducer<StringTerms, Bucket>(this, partialReduceContext) {
+            private final BytesRefHash keys = new BytesRefHash(1, bigArrays);
+            private final BytesRef spare1 = new BytesRef();
+            private final BytesRef spare2 = new BytesRef();
+
+            @Override
+            protected boolean canAccept(InternalTerms<?, ?> terms) {
+                return terms instanceof StringTerms;
+            }
+
+            @Override
+            protected long addTerm(Bucket bucket) {
+                return keys.add(bucket.termBytes);
+            }
+
+            @Override
+            protected long numTerms() {
+                return keys.size();
+            }
+
+            @Override
+            protected int compareTerms(long ord1, long ord2) {
+                return keys.get(ord1, spare1).compareTo(keys.get(ord2, spare2));
+            }
+
+            @Override
+            protected Bucket createBucket(long ord, long docCount, InternalAggregations aggregations, long docCountError) {
+                BytesRef term = BytesRef.deepCopyOf(keys.get(ord, spare1));
+                return new Bucket(term, docCount, aggregations, showTermDocCountError, docCountError, format);
+            }
+
+            @Override
+            public void close() {
+                Releasables.close(super::close, keys);
+            }
+        };
+    }
 }
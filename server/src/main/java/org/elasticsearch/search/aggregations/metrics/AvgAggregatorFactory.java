@@ -54,4 +54,9 @@ class AvgAggregatorFactory extends ValuesSourceAggregatorFactory {
     ) throws IOException {
         return aggregatorSupplier.build(name, config, context, parent, metadata);
     }
+
+    @Override
+    public boolean supportsConcurrentCollection() {
+        return readsDocValuesOnly();
+    }
 }
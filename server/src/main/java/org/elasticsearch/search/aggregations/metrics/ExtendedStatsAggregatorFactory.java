@@ -61,4 +61,9 @@ class ExtendedStatsAggregatorFactory extends ValuesSourceAggregatorFactory {
     ) throws IOException {
         return aggregatorSupplier.build(name, config, context, parent, sigma, metadata);
     }
+
+    @Override
+    public boolean supportsConcurrentCollection() {
+        return readsDocValuesOnly();
+    }
 }
@@ -11,6 +11,7 @@ import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.search.DocValueFormat;
+import org.elasticsearch.search.aggregations.AggregatorReducer;
 import org.elasticsearch.search.aggregations.InternalAggregation;
 
 import java.io.IOException;
@@ -87,6 +88,30 @@ public class InternalAvg extends InternalNumericMetricsAggregation.SingleValue i
         return new InternalAvg(getName(), kahanSummation.value(), count, format, getMetadata());
     }
 
+    @Override
+    public AggregatorReducer getStreamingReducer(ReduceContext partialReduceContext) {
+        return new AggregatorReducer() {
+            final CompensatedSum kahanSummation = new CompensatedSum(0, 0);
+            long count = 0;
+
+            @Override
+            public boolean accept(InternalAggregation aggregation) {
+                if (aggregation instanceof InternalAvg == false) {
+                    return false;
+                }
+                InternalAvg avg = (InternalAvg) aggregation;
+                count += avg.count;
+                kahanSummation.add(avg.sum);
+                return true;
+            }
+
+            @Override
+            public InternalAggregation get(ReduceContext reduceContext) {
+                return new InternalAvg(getName(), kahanSummation.value(), count, format, getMetadata());
+            }
+        };
+    }
+
     @Override
     public XContentBuilder doXContentBody(XContentBuilder builder, Params params) throws IOException {
         builder.field(CommonFields.VALUE.getPreferredName(), count != 0 ? getValue() : null);
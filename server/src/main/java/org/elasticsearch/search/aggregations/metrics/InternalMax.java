@@ -11,6 +11,7 @@ import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.search.DocValueFormat;
+import org.elasticsearch.search.aggregations.AggregatorReducer;
 import org.elasticsearch.search.aggregations.InternalAggregation;
 
 import java.io.IOException;
@@ -66,6 +67,27 @@ public class InternalMax extends InternalNumericMetricsAggregation.SingleValue i
         return new InternalMax(name, max, format, getMetadata());
     }
 
+    @Override
+    public AggregatorReducer getStreamingReducer(ReduceContext partialReduceContext) {
+        return new AggregatorReducer() {
+            double max = Double.NEGATIVE_INFINITY;
+
+            @Override
+            public boolean accept(InternalAggregation aggregation) {
+                if (aggregation instanceof InternalMax == false) {
+                    return false;
+                }
+                max = Math.max(max, ((InternalMax) aggregation).max);
+                return true;
+            }
+
+            @Override
+            public InternalAggregation get(ReduceContext reduceContext) {
+                return new InternalMax(name, max, format, getMetadata());
+            }
+        };
+    }
+
     @Override
     public XContentBuilder doXContentBody(XContentBuilder builder, Params params) throws IOException {
         boolean hasValue = Double.isInfinite(max) == false;
@@ -11,6 +11,7 @@ import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.search.DocValueFormat;
+import org.elasticsearch.search.aggregations.AggregatorReducer;
 import org.elasticsearch.search.aggregations.InternalAggregation;
 
 import java.io.IOException;
@@ -66,6 +67,27 @@ public class InternalMin extends InternalNumericMetricsAggregation.SingleValue i
         return new InternalMin(getName(), min, this.format, getMetadata());
     }
 
+    @Override
+    public AggregatorReducer getStreamingReducer(ReduceContext partialReduceContext) {
+        return new AggregatorReducer() {
+            double min = Double.POSITIVE_INFINITY;
+
+            @Override
+            public boolean accept(InternalAggregation aggregation) {
+                if (aggregation instanceof InternalMin == false) {
+                    return false;
+                }
+                min = Math.min(min, ((InternalMin) aggregation).min);
+                return true;
+            }
+
+            @Override
+            public InternalAggregation get(ReduceContext reduceContext) {
+                return new InternalMin(getName(), min, format, getMetadata());
+            }
+        };
+    }
+
     @Override
     public XContentBuilder doXContentBody(XContentBuilder builder, Params params) throws IOException {
         boolean hasValue = Double.isInfinite(min) == false;
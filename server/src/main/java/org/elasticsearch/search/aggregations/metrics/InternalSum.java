@@ -11,6 +11,7 @@ import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.search.DocValueFormat;
+import org.elasticsearch.search.aggregations.AggregatorReducer;
 import org.elasticsearch.search.aggregations.InternalAggregation;
 
 import java.io.IOException;
@@ -69,6 +70,27 @@ public class InternalSum extends InternalNumericMetricsAggregation.SingleValue i
         return new InternalSum(name, kahanSummation.value(), format, getMetadata());
     }
 
+    @Override
+    public AggregatorReducer getStreamingReducer(ReduceContext partialReduceContext) {
+        return new AggregatorReducer() {
+            final CompensatedSum kahanSummation = new CompensatedSum(0, 0);
+
+            @Override
+            public boolean accept(InternalAggregation aggregation) {
+                if (aggregation instanceof InternalSum == false) {
+                    return false;
+                }
+                kahanSummation.add(((InternalSum) aggregation).sum);
+                return true;
+            }
+
+            @Override
+            public InternalAggregation get(ReduceContext reduceContext) {
+                return new InternalSum(name, kahanSummation.value(), format, getMetadata());
+            }
+        };
+    }
+
     @Override
     public XContentBuilder doXContentBody(XContentBuilder builder, Params params) throws IOException {
         builder.field(CommonFields.VALUE.getPreferredName(), sum);
@@ -10,6 +10,7 @@ package org.elasticsearch.search.aggregations.metrics;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.search.aggregations.AggregatorReducer;
 import org.elasticsearch.search.aggregations.InternalAggregation;
 
 import java.io.IOException;
@@ -65,6 +66,27 @@ public class InternalValueCount extends InternalNumericMetricsAggregation.Single
         return new InternalValueCount(name, valueCount, getMetadata());
     }
 
+    @Override
+    public AggregatorReducer getStreamingReducer(ReduceContext partialReduceContext) {
+        return new AggregatorReducer() {
+            long valueCount = 0;
+
+            @Override
+            public boolean accept(InternalAggregation aggregation) {
+                if (aggregation instanceof InternalValueCount == false) {
+                    return false;
+                }
+                valueCount += ((InternalValueCount) aggregation).value;
+                return true;
+            }
+
+            @Override
+            public InternalAggregation get(ReduceContext reduceContext) {
+                return new InternalValueCount(name, valueCount, getMetadata());
+            }
+        };
+    }
+
     @Override
     public XContentBuilder doXContentBody(XContentBuilder builder, Params params) throws IOException {
         builder.field(CommonFields.VALUE.getPreferredName(), value);
@@ -56,4 +56,9 @@ class MaxAggregatorFactory extends ValuesSourceAggregatorFactory {
         return aggregatorSupplier
             .build(name, config, context, parent, metadata);
     }
+
+    @Override
+    public boolean supportsConcurrentCollection() {
+        return readsDocValuesOnly();
+    }
 }
@@ -59,4 +59,9 @@ class StatsAggregatorFactory extends ValuesSourceAggregatorFactory {
     ) throws IOException {
         return aggregatorSupplier.build(name, config, context, parent, metadata);
     }
+
+    @Override
+    public boolean supportsConcurrentCollection() {
+        return readsDocValuesOnly();
+    }
 }
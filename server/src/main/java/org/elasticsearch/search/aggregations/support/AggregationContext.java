@@ -219,6 +219,13 @@ public abstract class AggregationContext implements Releasable {
      */
     public abstract CircuitBreaker breaker();
 
+    /**
+     * Called before aggregators of this context collect from several threads
+     * at the same time, so that the memory they allocate is accounted for
+     * safely. Accounting is not synchronized before that.
+     */
+    public void enableConcurrentCollection() {}
+
     /**
      * Return the index-time analyzer for the current index
      * @param unindexedFieldAnalyzer    a function that builds an analyzer for unindexed fields
@@ -430,6 +437,13 @@ public abstract class AggregationContext implements Releasable {
             return bigArrays.breakerService().getBreaker(CircuitBreaker.REQUEST);
         }
 
+        @Override
+        public void enableConcurrentCollection() {
+            if (preallocatedBreakerService != null) {
+                preallocatedBreakerService.enableConcurrentAccounting();
+            }
+        }
+
         @Override
         public Analyzer getIndexAnalyzer(Function<String, NamedAnalyzer> unindexedFieldAnalyzer) {
             return context.getIndexAnalyzer(unindexedFieldAnalyzer);
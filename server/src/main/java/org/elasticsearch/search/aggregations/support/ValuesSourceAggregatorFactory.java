@@ -53,6 +53,20 @@ public abstract class ValuesSourceAggregatorFactory extends AggregatorFactory {
     protected abstract Aggregator doCreateInternal(Aggregator parent, CardinalityUpperBound cardinality, Map<String, Object> metadata)
         throws IOException;
 
+    /**
+     * Returns {@code true} if the values are read from the doc values of a
+     * field, which are safe to read from several threads as long as each of
+     * them reads different segments. Scripts aren't because they share a
+     * single {@link org.elasticsearch.search.lookup.SearchLookup} across all
+     * segments, and neither are runtime fields.
+     */
+    protected final boolean readsDocValuesOnly() {
+        if (config.hasValues() == false) {
+            return true;
+        }
+        return config.script() == null && config.fieldType() != null && config.fieldType().hasDocValues();
+    }
+
     @Override
     public String getStatsSubtype() {
         return config.valueSourceType().typeName();
@@ -38,6 +38,7 @@ import org.apache.lucene.util.BitSetIterator;
 import org.apache.lucene.util.Bits;
 import org.apache.lucene.util.CombinedBitSet;
 import org.apache.lucene.util.SparseFixedBitSet;
+import org.elasticsearch.ExceptionsHelper;
 import org.elasticsearch.common.lease.Releasable;
 import org.elasticsearch.common.lucene.search.TopDocsAndMaxScore;
 import org.elasticsearch.search.DocValueFormat;
@@ -56,6 +57,11 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Context-aware extension of {@link IndexSearcher}.
@@ -183,6 +189,112 @@ public class ContextIndexSearcher extends IndexSearcher implements Releasable {
         result.topDocs(new TopDocsAndMaxScore(mergedTopDocs, Float.NaN), formats);
     }
 
+    /**
+     * Splits the leaves of the reader into at most {@code maxSlices} slices of contiguous leaves that hold roughly the same
+     * number of documents. Returns {@code null} if the reader doesn't have enough leaves or documents to build at least two
+     * slices of {@code minDocsPerSlice} documents each.
+     */
+    public LeafSlice[] computeSlices(int maxSlices, int minDocsPerSlice) {
+        final List<LeafReaderContext> leaves = getIndexReader().leaves();
+        long totalDocs = 0;
+        for (LeafReaderContext ctx : leaves) {
+            totalDocs += ctx.reader().maxDoc();
+        }
+        final int numSlices = (int) Math.min(Math.min(maxSlices, leaves.size()), totalDocs / minDocsPerSlice);
+        if (numSlices < 2) {
+            return null;
+        }
+        // slices follow the order of the leaves so that ties between slices are broken like a sequential search would
+        final List<LeafSlice> slices = new ArrayList<>(numSlices);
+        final List<LeafReaderContext> slice = new ArrayList<>();
+        long docs = 0;
+        for (int i = 0; i < leaves.size(); i++) {
+            final LeafReaderContext ctx = leaves.get(i);
+            slice.add(ctx);
+            docs += ctx.reader().maxDoc();
+            final int remainingSlices = numSlices - slices.size() - 1;
+            final int remainingLeaves = leaves.size() - i - 1;
+            if (remainingSlices > 0
+                    && (docs >= (slices.size() + 1) * totalDocs / numSlices || remainingLeaves == remainingSlices)) {
+                slices.add(new LeafSlice(slice.toArray(new LeafReaderContext[0])));
+                slice.clear();
+            }
+        }
+        if (slice.isEmpty() == false) {
+            slices.add(new LeafSlice(slice.toArray(new LeafReaderContext[0])));
+        }
+        return slices.size() < 2 ? null : slices.toArray(new LeafSlice[0]);
+    }
+
+    /**
+     * Searches each slice with the collector at the same index. The first slice is searched by the calling thread and the
+     * others are submitted to the given executor. Once the calling thread is done with its own slice it searches the slices
+     * that no thread of the executor picked up yet, so a busy executor never delays the search more than a sequential
+     * search would. Each collector is only used by one thread. This method returns once all slices are searched and
+     * rethrows the first failure, in which case the slices that weren't started yet are skipped.
+     */
+    public void search(LeafSlice[] slices, Weight weight, List<? extends Collector> collectors, Executor executor) throws IOException {
+        assert slices.length == collectors.size();
+        final AtomicBoolean failed = new AtomicBoolean();
+        final List<FutureTask<Void>> tasks = new ArrayList<>(slices.length - 1);
+        for (int i = 1; i < slices.length; i++) {
+            final List<LeafReaderContext> leaves = Arrays.asList(slices[i].leaves);
+            final Collector collector = collectors.get(i);
+            final FutureTask<Void> task = new FutureTask<>(() -> {
+                if (failed.get() == false) {
+                    try {
+                        search(leaves, weight, collector);
+                    } catch (Exception | Error e) {
+                        failed.set(true);
+                        throw e;
+                    }
+                }
+                return null;
+            });
+            tasks.add(task);
+            try {
+                // not the task itself: the executor must not expect it to be done after running it, the calling thread may have
+                // started it first
+                executor.execute(task::run);
+            } catch (RejectedExecutionException e) {
+                // the calling thread searches the slice below
+            }
+        }
+        Throwable failure = null;
+        try {
+            search(Arrays.asList(slices[0].leaves), weight, collectors.get(0));
+        } catch (Exception | Error e) {
+            failed.set(true);
+            failure = e;
+        }
+        boolean interrupted = false;
+        for (FutureTask<Void> task : tasks) {
+            // no-op if a thread of the executor already started the task
+            task.run();
+            while (true) {
+                try {
+                    task.get();
+                    break;
+                } catch (ExecutionException e) {
+                    failure = ExceptionsHelper.useOrSuppress(failure, e.getCause());
+                    break;
+                } catch (InterruptedException e) {
+                    // the collectors must not be released before all threads are done with them
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        if (failure instanceof IOException) {
+            throw (IOException) failure;
+        } else if (failure instanceof Error) {
+            throw (Error) failure;
+        }
+        ExceptionsHelper.reThrowIfNotNull(failure);
+    }
+
     @Override
     protected void search(List<LeafReaderContext> leaves, Weight weight, Collector collector) throws IOException {
         for (LeafReaderContext ctx : leaves) { // search each subreader
@@ -23,17 +23,23 @@ import org.apache.lucene.search.CollectorManager;
 import org.apache.lucene.search.ConstantScoreQuery;
 import org.apache.lucene.search.DocValuesFieldExistsQuery;
 import org.apache.lucene.search.FieldDoc;
+import org.apache.lucene.search.IndexSearcher.LeafSlice;
 import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.MultiCollector;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.ScoreDoc;
 import org.apache.lucene.search.ScoreMode;
 import org.apache.lucene.search.Sort;
 import org.apache.lucene.search.SortField;
 import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TopDocsCollector;
 import org.apache.lucene.search.TopFieldCollector;
 import org.apache.lucene.search.TopFieldDocs;
+import org.apache.lucene.search.TopScoreDocCollector;
+import org.apache.lucene.search.TotalHitCountCollector;
 import org.apache.lucene.search.TotalHits;
 import org.apache.lucene.search.Weight;
+import org.elasticsearch.action.search.MaxScoreCollector;
 import org.elasticsearch.action.search.SearchShardTask;
 import org.elasticsearch.common.Booleans;
 import org.elasticsearch.common.CheckedConsumer;
@@ -41,10 +47,12 @@ import org.elasticsearch.common.lucene.Lucene;
 import org.elasticsearch.common.lucene.search.TopDocsAndMaxScore;
 import org.elasticsearch.common.util.concurrent.EWMATrackingEsThreadPoolExecutor;
 import org.elasticsearch.common.util.concurrent.EsThreadPoolExecutor;
+import org.elasticsearch.index.IndexSettings;
 import org.elasticsearch.index.IndexSortConfig;
 import org.elasticsearch.index.mapper.DateFieldMapper.DateFieldType;
 import org.elasticsearch.index.mapper.MappedFieldType;
 import org.elasticsearch.index.query.SearchExecutionContext;
+import org.elasticsearch.index.shard.IndexShard;
 import org.elasticsearch.search.DocValueFormat;
 import org.elasticsearch.search.SearchContextSourcePrinter;
 import org.elasticsearch.search.SearchService;
@@ -55,6 +63,7 @@ import org.elasticsearch.search.internal.SearchContext;
 import org.elasticsearch.search.profile.ProfileShardResult;
 import org.elasticsearch.search.profile.SearchProfileShardResults;
 import org.elasticsearch.search.profile.query.InternalProfileCollector;
+import org.elasticsearch.search.rescore.RescoreContext;
 import org.elasticsearch.search.rescore.RescorePhase;
 import org.elasticsearch.search.sort.SortAndFormats;
 import org.elasticsearch.search.suggest.SuggestPhase;
@@ -68,13 +77,16 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
 
 import static org.elasticsearch.search.query.QueryCollectorContext.createEarlyTerminationCollectorContext;
 import static org.elasticsearch.search.query.QueryCollectorContext.createFilteredCollectorContext;
 import static org.elasticsearch.search.query.QueryCollectorContext.createMinScoreCollectorContext;
 import static org.elasticsearch.search.query.QueryCollectorContext.createMultiCollectorContext;
 import static org.elasticsearch.search.query.TopDocsCollectorContext.createTopDocsCollectorContext;
+import static org.elasticsearch.search.query.TopDocsCollectorContext.hasInfMaxScore;
 import static org.elasticsearch.search.query.TopDocsCollectorContext.shortcutTotalHitCount;
 
 
@@ -229,9 +241,12 @@ public class QueryPhase {
                 hasFilterCollector = true;
             }
 
+            // search the segments of the shard concurrently if the index allows it and the node isn't busy
+            final LeafSlice[] slices = concurrentSlices(searchContext);
+
             CheckedConsumer<List<LeafReaderContext>, IOException> leafSorter = l -> {};
             // try to rewrite numeric or date sort to the optimized distanceFeatureQuery
-            if ((searchContext.sort() != null) && SYS_PROP_REWRITE_SORT) {
+            if (slices == null && (searchContext.sort() != null) && SYS_PROP_REWRITE_SORT) {
                 Query rewrittenQuery = tryRewriteLongSort(searchContext, searcher.getIndexReader(), query, hasFilterCollector);
                 if (rewrittenQuery != null) {
                     query = rewrittenQuery;
@@ -279,8 +294,10 @@ public class QueryPhase {
 
             try {
                 boolean shouldRescore;
-                // if we are optimizing sort and there are no other collectors
-                if (sortAndFormatsForRewrittenNumericSort != null && collectors.size() == 0 && searchContext.getProfilers() == null) {
+                if (slices != null) {
+                    shouldRescore = searchConcurrently(searchContext, searcher, query, slices, timeoutSet);
+                } else if (sortAndFormatsForRewrittenNumericSort != null && collectors.size() == 0 && searchContext.getProfilers() == null) {
+                    // we are optimizing sort and there are no other collectors
                     shouldRescore = searchWithCollectorManager(searchContext, searcher, query, leafSorter, timeoutSet);
                 } else {
                     shouldRescore = searchWithCollector(searchContext, searcher, query, collectors, hasFilterCollector, timeoutSet);
@@ -400,6 +417,210 @@ public class QueryPhase {
         return false; // no rescoring when sorting by field
     }
 
+    /**
+     * Returns the slices of segments to search concurrently on the {@link ThreadPool.Names#SEARCH_WORKER} thread pool, or
+     * {@code null} if the shard must be searched sequentially. Concurrency is limited to requests whose collectors can be
+     * replicated per slice and merged afterwards, and it backs off as soon as requests queue up on the search thread pool
+     * since the threads of the node are then better spent on other shard requests than on the segments of a single one.
+     */
+    static LeafSlice[] concurrentSlices(SearchContext searchContext) {
+        final IndexShard indexShard = searchContext.indexShard();
+        final IndexSettings indexSettings = indexShard.indexSettings();
+        if (indexSettings.isConcurrentSearchEnabled() == false
+                || searchContext.scrollContext() != null
+                || searchContext.getProfilers() != null
+                || searchContext.collapse() != null
+                || searchContext.terminateAfter() != SearchContext.DEFAULT_TERMINATE_AFTER
+                || searchContext.parsedPostFilter() != null
+                || searchContext.minimumScore() != null) {
+            return null;
+        }
+        if (searchContext.aggregations() == null) {
+            if (searchContext.queryCollectors().isEmpty() == false) {
+                return null;
+            }
+            if (searchContext.size() == 0 && searchContext.trackTotalHitsUpTo() != SearchContext.TRACK_TOTAL_HITS_ACCURATE) {
+                // counting stops early or not at all, a sequential search is cheap enough
+                return null;
+            }
+        } else {
+            if (searchContext.queryCollectors().keySet().equals(Collections.singleton(AggregationPhase.class)) == false
+                    || searchContext.aggregations().factories().supportsConcurrentCollection() == false) {
+                return null;
+            }
+        }
+        final ThreadPool threadPool = indexShard.getThreadPool();
+        final ExecutorService searchExecutor = threadPool.executor(ThreadPool.Names.SEARCH);
+        if (searchExecutor instanceof ThreadPoolExecutor && ((ThreadPoolExecutor) searchExecutor).getQueue().isEmpty() == false) {
+            return null;
+        }
+        final int maxSlices = threadPool.info(ThreadPool.Names.SEARCH_WORKER).getMax();
+        return searchContext.searcher().computeSlices(maxSlices, indexSettings.getConcurrentSearchMinDocsPerSlice());
+    }
+
+    /**
+     * Searches each slice with its own top docs collector, hit count collector and aggregators, then merges their results
+     * like {@link TopDocsCollectorContext} and {@link AggregationPhase} would report them for a sequential search.
+     */
+    private static boolean searchConcurrently(SearchContext searchContext, ContextIndexSearcher searcher, Query query,
+                                              LeafSlice[] slices, boolean timeoutSet) throws IOException {
+        final IndexReader reader = searcher.getIndexReader();
+        final QuerySearchResult queryResult = searchContext.queryResult();
+        final SortAndFormats sortAndFormats = searchContext.sort();
+        final Sort sort = sortAndFormats == null ? null : sortAndFormats.sort;
+
+        int totalHitsThreshold;
+        TotalHits totalHits;
+        if ((sort == null || SortField.FIELD_SCORE.equals(sort.getSort()[0])) && searchContext.size() > 0 && hasInfMaxScore(query)) {
+            // disable max score optimization since we have a mandatory clause that doesn't track the maximum score
+            totalHitsThreshold = Integer.MAX_VALUE;
+            totalHits = null;
+        } else if (searchContext.trackTotalHitsUpTo() == SearchContext.TRACK_TOTAL_HITS_DISABLED) {
+            totalHitsThreshold = 1;
+            totalHits = new TotalHits(0, TotalHits.Relation.GREATER_THAN_OR_EQUAL_TO);
+        } else {
+            int hitCount = shortcutTotalHitCount(reader, query);
+            if (hitCount == -1) {
+                totalHitsThreshold = searchContext.trackTotalHitsUpTo();
+                totalHits = null; // will be computed via the collectors
+            } else {
+                totalHitsThreshold = 1;
+                totalHits = new TotalHits(hitCount, TotalHits.Relation.EQUAL_TO);
+            }
+        }
+
+        final boolean rescore = searchContext.rescore().isEmpty() == false;
+        final int numHits;
+        final CollectorManager<? extends TopDocsCollector<?>, ?> topDocsManager;
+        if (searchContext.size() == 0) {
+            numHits = 0;
+            topDocsManager = null;
+        } else {
+            int numDocs = Math.min(searchContext.from() + searchContext.size(), Math.max(1, reader.numDocs()));
+            if (rescore) {
+                assert sort == null;
+                for (RescoreContext rescoreContext : searchContext.rescore()) {
+                    numDocs = Math.max(numDocs, rescoreContext.getWindowSize());
+                }
+            }
+            numHits = numDocs;
+            // the collectors of all slices share the hit count threshold and the minimum competitive score
+            FieldDoc after = searchContext.searchAfter();
+            topDocsManager = sort == null
+                ? TopScoreDocCollector.createSharedManager(numHits, after, totalHitsThreshold)
+                : TopFieldCollector.createSharedManager(sort, numHits, after, totalHitsThreshold);
+        }
+        if (topDocsManager == null && totalHits != null && searchContext.aggregations() == null) {
+            // nothing to collect
+            queryResult.topDocs(new TopDocsAndMaxScore(emptyTopDocs(sort, totalHits), Float.NaN), null);
+            return false;
+        }
+        final boolean trackMaxScore = sort != null && searchContext.trackScores();
+
+        final List<TopDocsCollector<?>> topDocsCollectors = new ArrayList<>(slices.length);
+        final List<TotalHitCountCollector> hitCountCollectors = new ArrayList<>(slices.length);
+        final List<MaxScoreCollector> maxScoreCollectors = new ArrayList<>(slices.length);
+        final List<Collector> collectors = new ArrayList<>(slices.length);
+        for (int i = 0; i < slices.length; i++) {
+            final List<Collector> sliceCollectors = new ArrayList<>();
+            if (topDocsManager != null) {
+                TopDocsCollector<?> topDocsCollector = topDocsManager.newCollector();
+                topDocsCollectors.add(topDocsCollector);
+                sliceCollectors.add(topDocsCollector);
+            } else if (totalHits == null) {
+                TotalHitCountCollector hitCountCollector = new TotalHitCountCollector();
+                hitCountCollectors.add(hitCountCollector);
+                sliceCollectors.add(hitCountCollector);
+            }
+            if (trackMaxScore) {
+                MaxScoreCollector maxScoreCollector = new MaxScoreCollector();
+                maxScoreCollectors.add(maxScoreCollector);
+                sliceCollectors.add(maxScoreCollector);
+            }
+            if (searchContext.aggregations() != null) {
+                // the first slice collects into the aggregators that were created by the aggregation phase
+                sliceCollectors.add(i == 0
+                    ? searchContext.queryCollectors().get(AggregationPhase.class)
+                    : searchContext.aggregations().newSliceCollector());
+            }
+            collectors.add(MultiCollector.wrap(sliceCollectors));
+        }
+
+        final Executor executor = searchContext.indexShard().getThreadPool().executor(ThreadPool.Names.SEARCH_WORKER);
+        try {
+            Weight weight = searcher.createWeight(searcher.rewrite(query), collectors.get(0).scoreMode(), 1f);
+            searcher.search(slices, weight, collectors, executor);
+        } catch (TimeExceededException e) {
+            assert timeoutSet : "TimeExceededException thrown even though timeout wasn't set";
+            if (searchContext.request().allowPartialSearchResults() == false) {
+                // Can't rethrow TimeExceededException because not serializable
+                throw new QueryPhaseExecutionException(searchContext.shardTarget(), "Time exceeded");
+            }
+            queryResult.searchTimedOut(true);
+        }
+
+        if (topDocsManager == null) {
+            if (totalHits == null) {
+                long hitCount = 0;
+                for (TotalHitCountCollector hitCountCollector : hitCountCollectors) {
+                    hitCount += hitCountCollector.getTotalHits();
+                }
+                totalHits = new TotalHits(hitCount, TotalHits.Relation.EQUAL_TO);
+            }
+            queryResult.topDocs(new TopDocsAndMaxScore(emptyTopDocs(sort, totalHits), Float.NaN), null);
+            return false;
+        }
+
+        // slices hold contiguous leaves in index order so merging by slice index breaks ties by doc id
+        final TopDocs merged;
+        if (sort == null) {
+            TopDocs[] sliceTopDocs = new TopDocs[topDocsCollectors.size()];
+            for (int i = 0; i < sliceTopDocs.length; i++) {
+                sliceTopDocs[i] = topDocsCollectors.get(i).topDocs();
+            }
+            merged = TopDocs.merge(numHits, sliceTopDocs);
+        } else {
+            TopFieldDocs[] sliceTopDocs = new TopFieldDocs[topDocsCollectors.size()];
+            for (int i = 0; i < sliceTopDocs.length; i++) {
+                sliceTopDocs[i] = (TopFieldDocs) topDocsCollectors.get(i).topDocs();
+            }
+            merged = TopDocs.merge(sort, numHits, sliceTopDocs);
+        }
+        // the slice index isn't the shard index, the coordinating node sets it when it reduces the shard results
+        for (ScoreDoc scoreDoc : merged.scoreDocs) {
+            scoreDoc.shardIndex = -1;
+        }
+        if (totalHits == null) {
+            totalHits = merged.totalHits;
+        }
+        float maxScore = Float.NaN;
+        if (sort == null) {
+            if (merged.scoreDocs.length > 0) {
+                maxScore = merged.scoreDocs[0].score;
+            }
+        } else {
+            for (MaxScoreCollector maxScoreCollector : maxScoreCollectors) {
+                float sliceMaxScore = maxScoreCollector.getMaxScore();
+                if (Float.isNaN(maxScore) || sliceMaxScore > maxScore) {
+                    maxScore = sliceMaxScore;
+                }
+            }
+        }
+        final TopDocs topDocs = sort == null
+            ? new TopDocs(totalHits, merged.scoreDocs)
+            : new TopFieldDocs(totalHits, merged.scoreDocs, ((TopFieldDocs) merged).fields);
+        queryResult.topDocs(new TopDocsAndMaxScore(topDocs, maxScore), sortAndFormats == null ? null : sortAndFormats.formats);
+        return rescore;
+    }
+
+    private static TopDocs emptyTopDocs(Sort sort, TotalHits totalHits) {
+        if (sort == null) {
+            return new TopDocs(totalHits, Lucene.EMPTY_SCORE_DOCS);
+        } else {
+            return new TopFieldDocs(totalHits, Lucene.EMPTY_SCORE_DOCS, sort.getSort());
+        }
+    }
+
     private static Query tryRewriteLongSort(SearchContext searchContext, IndexReader reader,
                                             Query query, boolean hasFilterCollector) throws IOException {
         if ((searchContext.from() + searchContext.size()) <= 0) return null;
@@ -133,6 +133,8 @@ public class SnapshotsService extends AbstractLifecycleComponent implements Clus
 
     public static final Version FEATURE_STATES_VERSION = Version.V_7_12_0;
 
+    public static final Version CONTENT_DEFINED_CHUNKS_VERSION = Version.V_8_0_0;
+
     private static final Logger logger = LogManager.getLogger(SnapshotsService.class);
 
     public static final String UPDATE_SNAPSHOT_STATUS_ACTION_NAME = "internal:cluster/snapshot/update_snapshot_status";
@@ -1886,6 +1888,16 @@ public class SnapshotsService extends AbstractLifecycleComponent implements Clus
         return repositoryMetaVersion.onOrAfter(INDEX_GEN_IN_REPO_DATA_VERSION);
     }
 
+    /**
+     * Checks whether the metadata version supports storing the files of shards as content-defined chunks.
+     *
+     * @param repositoryMetaVersion version to check
+     * @return true if version supports files stored as content-defined chunks
+     */
+    public static boolean useContentDefinedChunks(Version repositoryMetaVersion) {
+        return repositoryMetaVersion.onOrAfter(CONTENT_DEFINED_CHUNKS_VERSION);
+    }
+
     /**
      * Checks whether the metadata version supports writing a repository uuid to the repository.
      *
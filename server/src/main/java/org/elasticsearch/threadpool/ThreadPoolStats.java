@@ -8,9 +8,12 @@
 
 package org.elasticsearch.threadpool;
 
+import org.elasticsearch.Version;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.common.metrics.HistogramStats;
 import org.elasticsearch.common.xcontent.ToXContent;
 import org.elasticsearch.common.xcontent.ToXContentFragment;
 import org.elasticsearch.common.xcontent.XContentBuilder;
@@ -31,8 +34,17 @@ public class ThreadPoolStats implements Writeable, ToXContentFragment, Iterable<
         private final long rejected;
         private final int largest;
         private final long completed;
+        @Nullable
+        private final HistogramStats queueTimeInMicros;
+        @Nullable
+        private final HistogramStats executionTimeInMicros;
 
         public Stats(String name, int threads, int queue, int active, long rejected, int largest, long completed) {
+            this(name, threads, queue, active, rejected, largest, completed, null, null);
+        }
+
+        public Stats(String name, int threads, int queue, int active, long rejected, int largest, long completed,
+                     @Nullable HistogramStats queueTimeInMicros, @Nullable HistogramStats executionTimeInMicros) {
             this.name = name;
             this.threads = threads;
             this.queue = queue;
@@ -40,6 +52,8 @@ public class ThreadPoolStats implements Writeable, ToXContentFragment, Iterable<
             this.rejected = rejected;
             this.largest = largest;
             this.completed = completed;
+            this.queueTimeInMicros = queueTimeInMicros;
+            this.executionTimeInMicros = executionTimeInMicros;
         }
 
         public Stats(StreamInput in) throws IOException {
@@ -50,6 +64,13 @@ public class ThreadPoolStats implements Writeable, ToXContentFragment, Iterable<
             rejected = in.readLong();
             largest = in.readInt();
             completed = in.readLong();
+            if (in.getVersion().onOrAfter(Version.V_8_0_0)) {
+                queueTimeInMicros = in.readOptionalWriteable(HistogramStats::new);
+                executionTimeInMicros = in.readOptionalWriteable(HistogramStats::new);
+            } else {
+                queueTimeInMicros = null;
+                executionTimeInMicros = null;
+            }
         }
 
         @Override
@@ -61,6 +82,10 @@ public class ThreadPoolStats implements Writeable, ToXContentFragment, Iterable<
             out.writeLong(rejected);
             out.writeInt(largest);
             out.writeLong(completed);
+            if (out.getVersion().onOrAfter(Version.V_8_0_0)) {
+                out.writeOptionalWriteable(queueTimeInMicros);
+                out.writeOptionalWriteable(executionTimeInMicros);
+            }
         }
 
         public String getName() {
@@ -91,6 +116,22 @@ public class ThreadPoolStats implements Writeable, ToXContentFragment, Iterable<
             return this.completed;
         }
 
+        /**
+         * The distribution of the time that tasks spent in the queue, or {@code null} if the thread pool doesn't track it.
+         */
+        @Nullable
+        public HistogramStats getQueueTimeInMicros() {
+            return queueTimeInMicros;
+        }
+
+        /**
+         * The distribution of the time that tasks took to run, or {@code null} if the thread pool doesn't track it.
+         */
+        @Nullable
+        public HistogramStats getExecutionTimeInMicros() {
+            return executionTimeInMicros;
+        }
+
         @Override
         public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
             builder.startObject(name);
@@ -112,6 +153,16 @@ public class ThreadPoolStats implements Writeable, ToXContentFragment, Iterable<
             if (completed != -1) {
                 builder.field(Fields.COMPLETED, completed);
             }
+            if (queueTimeInMicros != null) {
+                builder.startObject(Fields.QUEUE_TIME_IN_MICROS);
+                queueTimeInMicros.toXContent(builder, params);
+                builder.endObject();
+            }
+            if (executionTimeInMicros != null) {
+                builder.startObject(Fields.EXECUTION_TIME_IN_MICROS);
+                executionTimeInMicros.toXContent(builder, params);
+                builder.endObject();
+            }
             builder.endObject();
             return builder;
         }
@@ -163,6 +214,8 @@ public class ThreadPoolStats implements Writeable, ToXContentFragment, Iterable<
         static final String REJECTED = "rejected";
         static final String LARGEST = "largest";
         static final String COMPLETED = "completed";
+        static final String QUEUE_TIME_IN_MICROS = "queue_time_in_micros";
+        static final String EXECUTION_TIME_IN_MICROS = "execution_time_in_micros";
     }
 
     @Override
@@ -0,0 +1,85 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.transport;
+
+import org.elasticsearch.Version;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.compress.Compressor;
+import org.elasticsearch.common.compress.CompressorFactory;
+import org.elasticsearch.common.compress.Lz4Compressor;
+
+import java.util.Locale;
+
+/**
+ * Holds the compression schemes of transport messages, see {@link TransportSettings#TRANSPORT_COMPRESSION_SCHEME}.
+ */
+public class Compression {
+
+    /**
+     * The compression schemes that transport messages can be compressed with. Compressed messages are flagged as such in their
+     * {@link TcpHeader} and their content starts with the header of the {@link Compressor} of the scheme, which allows for detecting
+     * the scheme when decompressing them. Only the transport layer detects {@link #LZ4}, the other users of compressed bytes only know
+     * about the compressors of {@link CompressorFactory}.
+     */
+    public enum Scheme {
+        DEFLATE(CompressorFactory.COMPRESSOR, Version.V_EMPTY),
+        LZ4(new Lz4Compressor(), Version.V_8_0_0);
+
+        private final Compressor compressor;
+        private final Version minVersion;
+
+        Scheme(Compressor compressor, Version minVersion) {
+            this.compressor = compressor;
+            this.minVersion = minVersion;
+        }
+
+        public Compressor compressor() {
+            return compressor;
+        }
+
+        /**
+         * Returns the scheme to compress messages for a node with the given transport version with, which is this scheme unless the
+         * node does not support it in which case we fall back to {@link #DEFLATE}. Since the transport version of a connection is
+         * agreed upon in the handshake, so is the compression scheme.
+         */
+        public Scheme forVersion(Version version) {
+            return version.onOrAfter(minVersion) ? this : DEFLATE;
+        }
+
+        /**
+         * Returns the scheme that the given bytes were compressed with or {@code null} if there are not enough bytes to tell.
+         *
+         * @throws IllegalStateException if the bytes are not compressed with any of the schemes
+         */
+        @Nullable
+        static Scheme detect(BytesReference bytes) {
+            for (Scheme scheme : values()) {
+                if (bytes.length() < scheme.compressor.headerLength()) {
+                    return null;
+                } else if (scheme.compressor.isCompressed(bytes)) {
+                    return scheme;
+                }
+            }
+            int maxToRead = Math.min(bytes.length(), 10);
+            StringBuilder sb = new StringBuilder("stream marked as compressed, but no compressor found, first [")
+                .append(maxToRead).append("] content bytes out of [").append(bytes.length()).append("] readable bytes are [");
+            for (int i = 0; i < maxToRead; i++) {
+                sb.append(bytes.get(i)).append(",");
+            }
+            sb.append("]");
+            throw new IllegalStateException(sb.toString());
+        }
+
+        @Override
+        public String toString() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+}
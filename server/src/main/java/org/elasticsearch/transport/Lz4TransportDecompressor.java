@@ -0,0 +1,151 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.transport;
+
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.BytesRefIterator;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.bytes.ReleasableBytesReference;
+import org.elasticsearch.common.compress.Lz4Compressor;
+import org.elasticsearch.common.recycler.Recycler;
+import org.elasticsearch.common.util.PageCacheRecycler;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+
+/**
+ * Decompresses the blocks of a stream that was compressed with {@link Lz4Compressor}. Each block is decompressed straight into a
+ * recycled page, and the compressed bytes of a block are only copied if the block is split across network reads.
+ */
+public class Lz4TransportDecompressor implements TransportDecompressor {
+
+    static {
+        assert Lz4Compressor.BLOCK_SIZE <= PageCacheRecycler.BYTE_PAGE_SIZE : "blocks must fit into a page";
+    }
+
+    private final PageCacheRecycler recycler;
+    private final ArrayDeque<ReleasableBytesReference> pages;
+    private final byte[] blockHeader = new byte[Lz4Compressor.BLOCK_HEADER_LENGTH];
+    private int blockHeaderBytes;
+    private int uncompressedLength = -1;
+    private int compressedLength = -1;
+    // holds the compressed bytes of a block that is split across several calls to #decompress, allocated on first use
+    private byte[] compressed;
+    private int compressedBytes;
+    private boolean hasReadHeader = false;
+    private boolean eos = false;
+
+    public Lz4TransportDecompressor(PageCacheRecycler recycler) {
+        this.recycler = recycler;
+        this.pages = new ArrayDeque<>(4);
+    }
+
+    @Override
+    public int decompress(BytesReference bytesReference) throws IOException {
+        int bytesConsumed = 0;
+        if (hasReadHeader == false) {
+            if (Compression.Scheme.LZ4.compressor().isCompressed(bytesReference) == false) {
+                throw new IllegalStateException("stream marked as compressed, but is missing lz4 header");
+            }
+            hasReadHeader = true;
+            int headerLength = Compression.Scheme.LZ4.compressor().headerLength();
+            bytesReference = bytesReference.slice(headerLength, bytesReference.length() - headerLength);
+            bytesConsumed += headerLength;
+        }
+
+        BytesRefIterator refIterator = bytesReference.iterator();
+        BytesRef ref;
+        while (eos == false && (ref = refIterator.next()) != null) {
+            final int end = ref.offset + ref.length;
+            int offset = ref.offset;
+            while (eos == false && offset < end) {
+                if (compressedLength == -1) {
+                    offset = readBlockHeader(ref.bytes, offset, end);
+                } else if (compressedBytes == 0 && end - offset >= compressedLength) {
+                    decompressBlock(ref.bytes, offset);
+                    offset += compressedLength;
+                    compressedLength = -1;
+                } else {
+                    if (compressed == null) {
+                        compressed = new byte[Lz4Compressor.maxCompressedLength(Lz4Compressor.BLOCK_SIZE)];
+                    }
+                    final int toCopy = Math.min(end - offset, compressedLength - compressedBytes);
+                    System.arraycopy(ref.bytes, offset, compressed, compressedBytes, toCopy);
+                    offset += toCopy;
+                    compressedBytes += toCopy;
+                    if (compressedBytes == compressedLength) {
+                        decompressBlock(compressed, 0);
+                        compressedBytes = 0;
+                        compressedLength = -1;
+                    }
+                }
+            }
+            bytesConsumed += offset - ref.offset;
+        }
+
+        return bytesConsumed;
+    }
+
+    private int readBlockHeader(byte[] bytes, int offset, int end) throws IOException {
+        // the end of the stream is marked by a block header that only consists of an uncompressed length of 0
+        final int headerLength = blockHeaderBytes < Integer.BYTES ? Integer.BYTES : Lz4Compressor.BLOCK_HEADER_LENGTH;
+        final int toCopy = Math.min(end - offset, headerLength - blockHeaderBytes);
+        System.arraycopy(bytes, offset, blockHeader, blockHeaderBytes, toCopy);
+        blockHeaderBytes += toCopy;
+        if (blockHeaderBytes == Integer.BYTES && uncompressedLength == -1) {
+            uncompressedLength = Lz4Compressor.readBlockLength(blockHeader, 0);
+            if (uncompressedLength == 0) {
+                eos = true;
+            }
+        } else if (blockHeaderBytes == Lz4Compressor.BLOCK_HEADER_LENGTH) {
+            compressedLength = Lz4Compressor.readBlockLength(blockHeader, Integer.BYTES);
+            Lz4Compressor.validateBlockLengths(uncompressedLength, compressedLength);
+            blockHeaderBytes = 0;
+        }
+        return offset + toCopy;
+    }
+
+    private void decompressBlock(byte[] bytes, int offset) throws IOException {
+        final Recycler.V<byte[]> page = recycler.bytePage(false);
+        boolean success = false;
+        try {
+            Lz4Compressor.decompressBlock(bytes, offset, compressedLength, uncompressedLength, page.v());
+            pages.add(new ReleasableBytesReference(new BytesArray(page.v(), 0, uncompressedLength), page));
+            success = true;
+        } finally {
+            if (success == false) {
+                page.close();
+            }
+        }
+        uncompressedLength = -1;
+    }
+
+    @Override
+    public boolean isEOS() {
+        return eos;
+    }
+
+    @Override
+    public ReleasableBytesReference pollDecompressedPage() {
+        return pages.pollFirst();
+    }
+
+    @Override
+    public Compression.Scheme getScheme() {
+        return Compression.Scheme.LZ4;
+    }
+
+    @Override
+    public void close() {
+        for (ReleasableBytesReference page : pages) {
+            page.close();
+        }
+    }
+}
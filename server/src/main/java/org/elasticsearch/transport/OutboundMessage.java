@@ -8,6 +8,7 @@
 package org.elasticsearch.transport;
 
 import org.elasticsearch.Version;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
@@ -22,9 +23,14 @@ import java.io.IOException;
 abstract class OutboundMessage extends NetworkMessage {
 
     protected final Writeable message;
+    @Nullable
+    protected final Compression.Scheme compressionScheme;
 
-    OutboundMessage(ThreadContext threadContext, Version version, byte status, long requestId, Writeable message) {
+    OutboundMessage(ThreadContext threadContext, Version version, byte status, long requestId,
+                    @Nullable Compression.Scheme compressionScheme, Writeable message) {
         super(threadContext, version, status, requestId);
+        assert (compressionScheme != null) == TransportStatus.isCompress(status);
+        this.compressionScheme = compressionScheme;
         this.message = message;
     }
 
@@ -43,7 +49,7 @@ abstract class OutboundMessage extends NetworkMessage {
         }
 
         try (CompressibleBytesOutputStream stream =
-                 new CompressibleBytesOutputStream(bytesStream, TransportStatus.isCompress(status))) {
+                 new CompressibleBytesOutputStream(bytesStream, compressionScheme)) {
             stream.setVersion(version);
             if (variableHeaderLength == -1) {
                 writeVariableHeader(stream);
@@ -92,8 +98,9 @@ abstract class OutboundMessage extends NetworkMessage {
         private final String action;
 
         Request(ThreadContext threadContext, Writeable message, Version version, String action, long requestId,
-                boolean isHandshake, boolean compress) {
-            super(threadContext, version, setStatus(compress, isHandshake, message), requestId, message);
+                boolean isHandshake, @Nullable Compression.Scheme compressionScheme) {
+            super(threadContext, version, setStatus(compressionScheme != null, isHandshake, message), requestId,
+                adjustCompressionScheme(compressionScheme, version, message), message);
             this.action = action;
         }
 
@@ -120,6 +127,15 @@ abstract class OutboundMessage extends NetworkMessage {
             return status;
         }
 
+        // Requests are only compressed with schemes that the remote node supports
+        @Nullable
+        private static Compression.Scheme adjustCompressionScheme(@Nullable Compression.Scheme compressionScheme, Version version,
+                                                                  Writeable message) {
+            if (compressionScheme == null || OutboundMessage.canCompress(message) == false) {
+                return null;
+            }
+            return compressionScheme.forVersion(version);
+        }
 
         @Override
         public String toString() {
@@ -129,8 +145,10 @@ abstract class OutboundMessage extends NetworkMessage {
 
     static class Response extends OutboundMessage {
 
-        Response(ThreadContext threadContext, Writeable message, Version version, long requestId, boolean isHandshake, boolean compress) {
-            super(threadContext, version, setStatus(compress, isHandshake, message), requestId, message);
+        Response(ThreadContext threadContext, Writeable message, Version version, long requestId, boolean isHandshake,
+                 @Nullable Compression.Scheme compressionScheme) {
+            super(threadContext, version, setStatus(compressionScheme != null, isHandshake, message), requestId, compressionScheme,
+                message);
         }
 
         private static byte setStatus(boolean compress, boolean isHandshake, Writeable message) {
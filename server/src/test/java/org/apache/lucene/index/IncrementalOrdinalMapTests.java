@@ -0,0 +1,132 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.apache.lucene.index;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.SortedSetDocValuesField;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.LongValues;
+import org.apache.lucene.util.packed.PackedInts;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.nullValue;
+
+public class IncrementalOrdinalMapTests extends ESTestCase {
+
+    public void testAddedSegments() throws IOException {
+        try (Directory dir = newDirectory()) {
+            IndexWriterConfig iwc = newIndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE);
+            try (IndexWriter writer = new IndexWriter(dir, iwc)) {
+                addSegments(writer, between(1, 4));
+                DirectoryReader reader = DirectoryReader.open(writer);
+                OrdinalMap ordinalMap = OrdinalMap.build(null, subs(reader), PackedInts.DEFAULT);
+                int refreshes = between(1, 5);
+                for (int i = 0; i < refreshes; i++) {
+                    addSegments(writer, between(0, 3));
+                    DirectoryReader newReader = DirectoryReader.openIfChanged(reader, writer);
+                    if (newReader == null) {
+                        continue;
+                    }
+                    OrdinalMap incremental = IncrementalOrdinalMap.build(ordinalMap, segmentKeys(reader), valueCounts(reader),
+                        subs(newReader), segmentKeys(newReader));
+                    assertThat(incremental, instanceOf(IncrementalOrdinalMap.class));
+                    assertSameOrdinals(newReader, OrdinalMap.build(null, subs(newReader), PackedInts.DEFAULT), incremental);
+                    reader.close();
+                    reader = newReader;
+                    // build on the incremental map on the next refresh
+                    ordinalMap = incremental;
+                }
+                reader.close();
+            }
+        }
+    }
+
+    public void testMergedSegments() throws IOException {
+        try (Directory dir = newDirectory()) {
+            // only merge when forced to
+            LogDocMergePolicy mergePolicy = new LogDocMergePolicy();
+            mergePolicy.setMergeFactor(100);
+            IndexWriterConfig iwc = newIndexWriterConfig().setMergePolicy(mergePolicy);
+            try (IndexWriter writer = new IndexWriter(dir, iwc)) {
+                addSegments(writer, between(2, 4));
+                try (DirectoryReader reader = DirectoryReader.open(writer)) {
+                    OrdinalMap ordinalMap = OrdinalMap.build(null, subs(reader), PackedInts.DEFAULT);
+                    writer.forceMerge(1);
+                    try (DirectoryReader newReader = DirectoryReader.openIfChanged(reader, writer)) {
+                        assertThat(IncrementalOrdinalMap.build(ordinalMap, segmentKeys(reader), valueCounts(reader),
+                            subs(newReader), segmentKeys(newReader)), nullValue());
+                    }
+                }
+            }
+        }
+    }
+
+    private void addSegments(IndexWriter writer, int segments) throws IOException {
+        for (int s = 0; s < segments; s++) {
+            int docs = between(1, 50);
+            for (int d = 0; d < docs; d++) {
+                Document doc = new Document();
+                int values = between(0, 3);
+                for (int v = 0; v < values; v++) {
+                    doc.add(new SortedSetDocValuesField("field", new BytesRef(randomAlphaOfLengthBetween(1, 3))));
+                }
+                writer.addDocument(doc);
+            }
+            writer.flush();
+        }
+    }
+
+    private static SortedSetDocValues[] subs(DirectoryReader reader) throws IOException {
+        SortedSetDocValues[] subs = new SortedSetDocValues[reader.leaves().size()];
+        for (LeafReaderContext context : reader.leaves()) {
+            subs[context.ord] = DocValues.getSortedSet(context.reader(), "field");
+        }
+        return subs;
+    }
+
+    private static IndexReader.CacheKey[] segmentKeys(DirectoryReader reader) {
+        IndexReader.CacheKey[] keys = new IndexReader.CacheKey[reader.leaves().size()];
+        for (LeafReaderContext context : reader.leaves()) {
+            keys[context.ord] = context.reader().getCoreCacheHelper().getKey();
+        }
+        return keys;
+    }
+
+    private static long[] valueCounts(DirectoryReader reader) throws IOException {
+        SortedSetDocValues[] subs = subs(reader);
+        long[] valueCounts = new long[subs.length];
+        for (int i = 0; i < subs.length; i++) {
+            valueCounts[i] = subs[i].getValueCount();
+        }
+        return valueCounts;
+    }
+
+    private static void assertSameOrdinals(DirectoryReader reader, OrdinalMap expected, OrdinalMap actual) throws IOException {
+        assertThat(actual.getValueCount(), equalTo(expected.getValueCount()));
+        SortedSetDocValues[] subs = subs(reader);
+        for (int i = 0; i < subs.length; i++) {
+            LongValues expectedOrds = expected.getGlobalOrds(i);
+            LongValues actualOrds = actual.getGlobalOrds(i);
+            for (long ord = 0; ord < subs[i].getValueCount(); ord++) {
+                assertThat(actualOrds.get(ord), equalTo(expectedOrds.get(ord)));
+            }
+        }
+        for (long globalOrd = 0; globalOrd < expected.getValueCount(); globalOrd++) {
+            BytesRef expectedTerm = BytesRef.deepCopyOf(
+                subs[expected.getFirstSegmentNumber(globalOrd)].lookupOrd(expected.getFirstSegmentOrd(globalOrd)));
+            BytesRef actualTerm = subs[actual.getFirstSegmentNumber(globalOrd)].lookupOrd(actual.getFirstSegmentOrd(globalOrd));
+            assertThat(actualTerm, equalTo(expectedTerm));
+        }
+    }
+}
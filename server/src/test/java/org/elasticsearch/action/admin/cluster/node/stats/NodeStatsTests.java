@@ -13,6 +13,7 @@ import org.elasticsearch.cluster.coordination.PublishClusterStateStats;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.metrics.HistogramStats;
 import org.elasticsearch.discovery.DiscoveryStats;
 import org.elasticsearch.http.HttpStats;
 import org.elasticsearch.indices.breaker.AllCircuitBreakerStats;
@@ -170,6 +171,8 @@ public class NodeStatsTests extends ESTestCase {
                         assertEquals(stats.getCompleted(), deserializedStats.getCompleted());
                         assertEquals(stats.getQueue(), deserializedStats.getQueue());
                         assertEquals(stats.getRejected(), deserializedStats.getRejected());
+                        assertEquals(stats.getQueueTimeInMicros(), deserializedStats.getQueueTimeInMicros());
+                        assertEquals(stats.getExecutionTimeInMicros(), deserializedStats.getExecutionTimeInMicros());
                     }
                 }
                 FsInfo fs = nodeStats.getFs();
@@ -403,7 +406,8 @@ public class NodeStatsTests extends ESTestCase {
             for (int i = 0; i < numThreadPoolStats; i++) {
                 threadPoolStatsList.add(new ThreadPoolStats.Stats(randomAlphaOfLengthBetween(3, 10), randomIntBetween(1, 1000),
                         randomIntBetween(1, 1000), randomIntBetween(1, 1000), randomNonNegativeLong(),
-                        randomIntBetween(1, 1000), randomIntBetween(1, 1000)));
+                        randomIntBetween(1, 1000), randomIntBetween(1, 1000),
+                        randomBoolean() ? null : randomHistogramStats(), randomBoolean() ? null : randomHistogramStats()));
             }
             threadPoolStats = new ThreadPoolStats(threadPoolStatsList);
         }
@@ -523,4 +527,12 @@ public class NodeStatsTests extends ESTestCase {
     private IngestStats.Stats getPipelineStats(List<IngestStats.PipelineStat> pipelineStats, String id) {
         return pipelineStats.stream().filter(p1 -> p1.getPipelineId().equals(id)).findFirst().map(p2 -> p2.getStats()).orElse(null);
     }
+
+    private static HistogramStats randomHistogramStats() {
+        long[] counts = new long[HistogramStats.BUCKETS];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = rarely() ? randomIntBetween(1, 1000) : 0;
+        }
+        return new HistogramStats(counts, randomNonNegativeLong());
+    }
 }
@@ -8,6 +8,8 @@
 
 package org.elasticsearch.action.bulk;
 
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.delete.DeleteRequest;
 import org.elasticsearch.action.index.IndexRequest;
 import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.xcontent.XContentType;
@@ -163,4 +165,124 @@ public class BulkRequestParserTests extends ESTestCase {
         assertSame(first.getPipeline(), second.getPipeline());
         assertSame(first.routing(), second.routing());
     }
+
+    public void testRepeatedActionLines() throws IOException {
+        BytesArray request = new BytesArray(
+                "{ \"index\":{ \"_index\": \"bar\", \"pipeline\": \"foo\" } }\n{ \"field\": 1 }\n"
+                + "{ \"index\":{ \"_index\": \"bar\", \"op_type\": \"create\" } }\n{ \"field\": 2 }\n"
+                + "{ \"index\":{ \"_index\": \"bar\", \"pipeline\": \"foo\" } }\n{ \"field\": 3 }\n"
+                + "{ \"delete\":{ \"_index\": \"bar\", \"_id\": \"1\" } }\n"
+                + "{ \"index\":{ \"_index\": \"bar\", \"op_type\": \"create\" } }\n{ \"field\": 4 }\n"
+                + "{ \"index\":{ \"_index\": \"bar\", \"pipeline\": \"foo\" } }\n{ \"field\": 5 }\n");
+        BulkRequestParser parser = new BulkRequestParser(randomBoolean());
+        final List<IndexRequest> indexRequests = new ArrayList<>();
+        final List<DeleteRequest> deleteRequests = new ArrayList<>();
+        parser.parse(request, null, null, null, null, null, true, XContentType.JSON,
+                (indexRequest, type) -> indexRequests.add(indexRequest),
+                req -> fail(), deleteRequests::add);
+        assertThat(indexRequests, Matchers.hasSize(5));
+        assertThat(deleteRequests, Matchers.hasSize(1));
+        for (int i = 0; i < indexRequests.size(); i++) {
+            IndexRequest indexRequest = indexRequests.get(i);
+            assertEquals("bar", indexRequest.index());
+            assertNull(indexRequest.id());
+            assertEquals("{ \"field\": " + (i + 1) + " }", indexRequest.source().utf8ToString());
+        }
+        for (int i : new int[] { 0, 2, 4 }) {
+            assertEquals("foo", indexRequests.get(i).getPipeline());
+            assertEquals(DocWriteRequest.OpType.INDEX, indexRequests.get(i).opType());
+        }
+        for (int i : new int[] { 1, 3 }) {
+            assertNull(indexRequests.get(i).getPipeline());
+            assertEquals(DocWriteRequest.OpType.CREATE, indexRequests.get(i).opType());
+        }
+        // requests of the same line are independent of each other
+        indexRequests.get(0).id("baz").setPipeline("qux");
+        assertNull(indexRequests.get(2).id());
+        assertEquals("foo", indexRequests.get(2).getPipeline());
+        assertEquals("1", deleteRequests.get(0).id());
+    }
+
+    public void testIncrementalParsing() throws IOException {
+        final StringBuilder content = new StringBuilder();
+        final int numItems = randomIntBetween(1, 50);
+        for (int i = 0; i < numItems; i++) {
+            switch (randomIntBetween(0, 2)) {
+                case 0:
+                    content.append("{ \"index\":{ \"_index\": \"bar\" } }\n{ \"field\": ").append(i).append(" }\n");
+                    break;
+                case 1:
+                    content.append("{ \"delete\":{ \"_index\": \"bar\", \"_id\": \"").append(i).append("\" } }\n");
+                    break;
+                default:
+                    content.append("{ \"update\":{ \"_index\": \"bar\", \"_id\": \"").append(i).append("\" } }\n")
+                        .append("{ \"doc\": { \"field\": ").append(i).append(" } }\n");
+                    break;
+            }
+        }
+        final BytesArray data = new BytesArray(content.toString());
+        final List<String> expected = new ArrayList<>();
+        new BulkRequestParser(randomBoolean()).parse(data, null, null, null, null, null, true, XContentType.JSON,
+            (indexRequest, type) -> expected.add(indexRequest.toString()), req -> expected.add(req.toString()),
+            req -> expected.add(req.toString()));
+        assertThat(expected, Matchers.hasSize(numItems));
+
+        final List<String> parsed = new ArrayList<>();
+        final BulkRequestParser.IncrementalParser parser = new BulkRequestParser(randomBoolean()).incrementalParser(null, null, null,
+            null, null, true, XContentType.JSON, (indexRequest, type) -> parsed.add(indexRequest.toString()),
+            req -> parsed.add(req.toString()), req -> parsed.add(req.toString()));
+        int unconsumed = 0;
+        int received = 0;
+        while (received < data.length()) {
+            final int length = randomIntBetween(1, Math.min(data.length() - received, 64));
+            received += length;
+            final boolean lastData = received == data.length();
+            final int consumed = parser.parse(data.slice(unconsumed, received - unconsumed), lastData);
+            assertThat(consumed, Matchers.lessThanOrEqualTo(received - unconsumed));
+            unconsumed += consumed;
+            if (lastData) {
+                assertEquals(data.length(), unconsumed);
+            }
+        }
+        assertEquals(expected, parsed);
+    }
+
+    public void testIncrementalParsingOfItemInManyParts() throws IOException {
+        final String actionLine = "{ \"index\":{ \"_index\": \"bar\", \"_id\": \"1\" } }\n";
+        final String source = "{ \"field\": \"" + randomAlphaOfLength(between(1000, 10000)) + "\" }";
+        final BytesArray data = new BytesArray(actionLine + source + (randomBoolean() ? "\r\n" : "\n"));
+        final List<IndexRequest> indexRequests = new ArrayList<>();
+        final BulkRequestParser.IncrementalParser parser = new BulkRequestParser(randomBoolean()).incrementalParser(null, null, null,
+            null, null, true, XContentType.JSON, (indexRequest, type) -> indexRequests.add(indexRequest), req -> fail(), req -> fail());
+        int unconsumed = 0;
+        int received = 0;
+        while (received < data.length()) {
+            final int length = randomIntBetween(1, 16);
+            received = Math.min(received + length, data.length());
+            final int consumed = parser.parse(data.slice(unconsumed, received - unconsumed), received == data.length());
+            if (unconsumed == 0 && received >= actionLine.length() && received < data.length()) {
+                // the action/metadata line is consumed as soon as it is complete, and not parsed again with the rest of the item
+                assertEquals(actionLine.length(), consumed);
+            } else if (received < data.length()) {
+                assertEquals(0, consumed);
+            }
+            unconsumed += consumed;
+        }
+        assertEquals(data.length(), unconsumed);
+        assertThat(indexRequests, Matchers.hasSize(1));
+        assertEquals("1", indexRequests.get(0).id());
+        assertEquals(source, indexRequests.get(0).source().utf8ToString());
+    }
+
+    public void testIncrementalParsingBarfsOnLackOfTrailingNewline() throws IOException {
+        BulkRequestParser.IncrementalParser parser = new BulkRequestParser(randomBoolean()).incrementalParser("foo", null, null,
+            null, null, false, XContentType.JSON, (req, type) -> {}, req -> fail(), req -> fail());
+        BytesArray request = new BytesArray("{ \"index\":{ \"_id\": \"bar\" } }\n{}");
+        // the action/metadata line is consumed and kept until the source is complete
+        final int consumed = parser.parse(request, false);
+        assertEquals(request.length() - 2, consumed);
+        IllegalArgumentException e = expectThrows(IllegalArgumentException.class,
+            () -> parser.parse(request.slice(consumed, request.length() - consumed), true));
+        assertEquals("The bulk request must be terminated by a newline [\\n]", e.getMessage());
+    }
 }
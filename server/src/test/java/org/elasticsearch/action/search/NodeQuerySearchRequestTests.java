@@ -0,0 +1,68 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.action.search;
+
+import org.elasticsearch.action.OriginalIndices;
+import org.elasticsearch.common.Strings;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.search.AbstractSearchTestCase;
+import org.elasticsearch.search.internal.AliasFilter;
+import org.elasticsearch.search.internal.SearchContext;
+import org.elasticsearch.search.internal.ShardSearchRequest;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.equalTo;
+
+public class NodeQuerySearchRequestTests extends AbstractSearchTestCase {
+
+    public void testSerialization() throws IOException {
+        SearchRequest searchRequest = createSearchRequest();
+        searchRequest.source(createSearchSourceBuilder());
+        int numShards = randomIntBetween(1, 10);
+        List<ShardSearchRequest> shardRequests = new ArrayList<>(numShards);
+        boolean[] sharedSource = new boolean[numShards];
+        for (int i = 0; i < numShards; i++) {
+            ShardSearchRequest shardRequest = new ShardSearchRequest(new OriginalIndices(searchRequest), searchRequest,
+                new ShardId("index", "_na_", i), i, numShards, new AliasFilter(null, Strings.EMPTY_ARRAY), 1.0f,
+                randomNonNegativeLong(), null, null, null);
+            sharedSource[i] = randomBoolean();
+            if (sharedSource[i] == false) {
+                // the shard requests that the coordinating node rewrites get their own copy of the source
+                shardRequest.source(searchRequest.source().shallowCopy().trackTotalHits(false));
+            }
+            shardRequests.add(shardRequest);
+        }
+        NodeQuerySearchRequest request = new NodeQuerySearchRequest(searchRequest.source(), randomIntBetween(1, 5), shardRequests);
+
+        NodeQuerySearchRequest copy = copyWriteable(request, namedWriteableRegistry, NodeQuerySearchRequest::new);
+        assertEquals(request.source(), copy.source());
+        assertThat(copy.getMaxConcurrentShardRequests(), equalTo(request.getMaxConcurrentShardRequests()));
+        assertThat(copy.getShardRequests().size(), equalTo(numShards));
+        for (int i = 0; i < numShards; i++) {
+            ShardSearchRequest orig = request.getShardRequests().get(i);
+            ShardSearchRequest copied = copy.getShardRequests().get(i);
+            assertEquals(orig.shardId(), copied.shardId());
+            assertEquals(orig.nowInMillis(), copied.nowInMillis());
+            assertEquals(orig.source(), copied.source());
+            assertEquals(orig.cacheKey(), copied.cacheKey());
+            if (sharedSource[i]) {
+                assertSame(copy.source(), copied.source());
+            } else {
+                assertNotSame(copy.source(), copied.source());
+                assertThat(copied.source().trackTotalHitsUpTo(), equalTo(SearchContext.TRACK_TOTAL_HITS_DISABLED));
+            }
+        }
+        assertArrayEquals(request.indices(), copy.indices());
+        assertEquals(request.indicesOptions(), copy.indicesOptions());
+        assertEquals(request.getDescription(), copy.getDescription());
+    }
+}
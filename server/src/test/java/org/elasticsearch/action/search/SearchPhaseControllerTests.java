@@ -25,6 +25,7 @@ import org.elasticsearch.common.UUIDs;
 import org.elasticsearch.common.breaker.CircuitBreaker;
 import org.elasticsearch.common.breaker.CircuitBreakingException;
 import org.elasticsearch.common.breaker.NoopCircuitBreaker;
+import org.elasticsearch.common.io.stream.DelayableWriteable;
 import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
 import org.elasticsearch.common.lucene.Lucene;
 import org.elasticsearch.common.lucene.search.TopDocsAndMaxScore;
@@ -42,10 +43,13 @@ import org.elasticsearch.search.SearchModule;
 import org.elasticsearch.search.SearchPhaseResult;
 import org.elasticsearch.search.SearchShardTarget;
 import org.elasticsearch.search.aggregations.AggregationBuilders;
+import org.elasticsearch.search.aggregations.BucketOrder;
 import org.elasticsearch.search.aggregations.InternalAggregation;
 import org.elasticsearch.search.aggregations.InternalAggregation.ReduceContext;
 import org.elasticsearch.search.aggregations.InternalAggregations;
+import org.elasticsearch.search.aggregations.bucket.terms.LongTerms;
 import org.elasticsearch.search.aggregations.metrics.InternalMax;
+import org.elasticsearch.search.aggregations.metrics.InternalStats;
 import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator.PipelineTree;
 import org.elasticsearch.search.builder.SearchSourceBuilder;
 import org.elasticsearch.search.fetch.FetchSearchResult;
@@ -988,6 +992,49 @@ public class SearchPhaseControllerTests extends ESTestCase {
         assertThat(circuitBreaker.allocated, equalTo(0L));
     }
 
+    public void testCoordCircuitBreakerStreamingReduce() throws Exception {
+        // the shard results are small but the buffered sub-aggregations of their buckets add up in the streaming reducer
+        int numShards = randomIntBetween(40, 80);
+        int numBuckets = randomIntBetween(500, 1000);
+        SearchRequest request = new SearchRequest();
+        request.source(new SearchSourceBuilder().aggregation(AggregationBuilders.terms("terms")).size(0));
+        request.setBatchedReduceSize(randomIntBetween(2, 4));
+        AssertingCircuitBreaker circuitBreaker = new AssertingCircuitBreaker(CircuitBreaker.REQUEST);
+        circuitBreaker.limit = 10 * DelayableWriteable.getSerializedSize(createTermsWithStats(numBuckets));
+        QueryPhaseResultConsumer consumer = searchPhaseController.newSearchPhaseResults(fixedExecutor,
+            circuitBreaker, SearchProgressListener.NOOP, request, numShards, exc -> {});
+        for (int i = 0; i < numShards; i++) {
+            QuerySearchResult result = new QuerySearchResult(new ShardSearchContextId(UUIDs.randomBase64UUID(), i),
+                new SearchShardTarget("node", new ShardId("a", "b", i), null, OriginalIndices.NONE), null);
+            result.topDocs(new TopDocsAndMaxScore(
+                    new TopDocs(new TotalHits(0, TotalHits.Relation.EQUAL_TO), Lucene.EMPTY_SCORE_DOCS), Float.NaN),
+                new DocValueFormat[0]);
+            result.aggregations(createTermsWithStats(numBuckets));
+            result.setShardIndex(i);
+            result.size(0);
+            // wait for the pending merge like a search does before it sends the next shard request, so that the consumer
+            // only buffers a batch of shard results at a time
+            CountDownLatch latch = new CountDownLatch(1);
+            consumer.consumeResult(result, latch::countDown);
+            latch.await();
+        }
+        CircuitBreakingException exc = expectThrows(CircuitBreakingException.class, consumer::reduce);
+        assertThat(exc.getMessage(), containsString("<reduce_aggs>"));
+        consumer.close();
+        assertThat(circuitBreaker.allocated, equalTo(0L));
+    }
+
+    private static InternalAggregations createTermsWithStats(int numBuckets) {
+        List<LongTerms.Bucket> buckets = new ArrayList<>();
+        for (int i = 0; i < numBuckets; i++) {
+            InternalAggregations subAggs = InternalAggregations.from(
+                singletonList(new InternalStats("stats", 1, i, i, i, DocValueFormat.RAW, emptyMap())));
+            buckets.add(new LongTerms.Bucket(i, 1, subAggs, false, 0, DocValueFormat.RAW));
+        }
+        return InternalAggregations.from(singletonList(new LongTerms("terms", BucketOrder.key(true), BucketOrder.key(true),
+            numBuckets, 1, emptyMap(), DocValueFormat.RAW, numBuckets, false, 0, buckets, 0)));
+    }
+
     public void testFailConsumeAggs() throws Exception {
         int expectedNumResults = randomIntBetween(20, 200);
         int bufferSize = randomIntBetween(2, expectedNumResults - 1);
@@ -1021,6 +1068,7 @@ public class SearchPhaseControllerTests extends ESTestCase {
         private final AtomicBoolean shouldBreak = new AtomicBoolean(false);
 
         private volatile long allocated;
+        private volatile long limit = Long.MAX_VALUE;
 
         AssertingCircuitBreaker(String name) {
             super(name);
@@ -1029,7 +1077,7 @@ public class SearchPhaseControllerTests extends ESTestCase {
         @Override
         public void addEstimateBytesAndMaybeBreak(long bytes, String label) throws CircuitBreakingException {
             assert bytes >= 0;
-            if (shouldBreak.get()) {
+            if (shouldBreak.get() || allocated + bytes > limit) {
                 throw new CircuitBreakingException(label, getDurability());
             }
             allocated += bytes;
@@ -9,7 +9,9 @@
 package org.elasticsearch.action.search;
 
 import org.apache.lucene.search.FieldDoc;
+import org.apache.lucene.search.ScoreDoc;
 import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.TopDocs;
 import org.apache.lucene.search.TopFieldDocs;
 import org.apache.lucene.search.TotalHits;
 import org.apache.lucene.search.grouping.CollapseTopFieldDocs;
@@ -78,8 +80,10 @@ public class SearchQueryThenFetchAsyncActionTests extends ESTestCase {
             new TransportSearchAction.SearchTimeProvider(0, System.nanoTime(), System::nanoTime);
 
         Map<String, Transport.Connection> lookup = new ConcurrentHashMap<>();
-        DiscoveryNode primaryNode = new DiscoveryNode("node1", buildNewFakeTransportAddress(), Version.CURRENT);
-        DiscoveryNode replicaNode = new DiscoveryNode("node2", buildNewFakeTransportAddress(), Version.CURRENT);
+        // nodes before 8.0 are sent one request per shard, which is what this test checks
+        Version version = VersionUtils.randomPreviousCompatibleVersion(random(), Version.V_8_0_0);
+        DiscoveryNode primaryNode = new DiscoveryNode("node1", buildNewFakeTransportAddress(), version);
+        DiscoveryNode replicaNode = new DiscoveryNode("node2", buildNewFakeTransportAddress(), version);
         lookup.put("node1", new SearchAsyncActionTests.MockConnection(primaryNode));
         lookup.put("node2", new SearchAsyncActionTests.MockConnection(replicaNode));
 
@@ -198,6 +202,88 @@ public class SearchQueryThenFetchAsyncActionTests extends ESTestCase {
         assertThat(((FieldDoc) phase.sortedTopDocs.scoreDocs[0]).fields[0], equalTo(0));
     }
 
+    public void testShardRequestsCoalescedPerNode() throws Exception {
+        final TransportSearchAction.SearchTimeProvider timeProvider =
+            new TransportSearchAction.SearchTimeProvider(0, System.nanoTime(), System::nanoTime);
+
+        Map<String, Transport.Connection> lookup = new ConcurrentHashMap<>();
+        DiscoveryNode node = new DiscoveryNode("node1", buildNewFakeTransportAddress(), Version.CURRENT);
+        lookup.put("node1", new SearchAsyncActionTests.MockConnection(node));
+
+        int numShards = randomIntBetween(5, 20);
+        int numConcurrent = randomIntBetween(1, 4);
+        AtomicInteger numNodeRequests = new AtomicInteger();
+        AtomicInteger successfulOps = new AtomicInteger();
+        final SearchRequest searchRequest = new SearchRequest();
+        searchRequest.setMaxConcurrentShardRequests(numConcurrent);
+        searchRequest.source(new SearchSourceBuilder().size(1));
+        searchRequest.allowPartialSearchResults(false);
+        SearchTransportService searchTransportService = new SearchTransportService(null, null, null) {
+            @Override
+            public void sendExecuteQuery(Transport.Connection connection, ShardSearchRequest request,
+                                         SearchTask task, SearchActionListener<SearchPhaseResult> listener) {
+                throw new AssertionError("the shard requests should be sent in a single node request");
+            }
+
+            @Override
+            public void sendExecuteQueryOnNode(Transport.Connection connection, NodeQuerySearchRequest request, SearchTask task,
+                                               List<SearchActionListener<SearchPhaseResult>> listeners) {
+                numNodeRequests.incrementAndGet();
+                assertSame(searchRequest.source(), request.source());
+                assertThat(request.getMaxConcurrentShardRequests(), equalTo(numConcurrent));
+                assertThat(request.getShardRequests().size(), equalTo(numShards));
+                assertThat(listeners.size(), equalTo(numShards));
+                for (int i = 0; i < numShards; i++) {
+                    ShardSearchRequest shardRequest = request.getShardRequests().get(i);
+                    assertSame(request.source(), shardRequest.source());
+                    QuerySearchResult queryResult = new QuerySearchResult(new ShardSearchContextId("N/A", 123),
+                        new SearchShardTarget("node1", shardRequest.shardId(), null, OriginalIndices.NONE), null);
+                    queryResult.topDocs(new TopDocsAndMaxScore(new TopDocs(new TotalHits(1, TotalHits.Relation.EQUAL_TO),
+                        new ScoreDoc[] { new ScoreDoc(randomInt(1000), 1.0f) }), 1.0f), new DocValueFormat[0]);
+                    queryResult.from(0);
+                    queryResult.size(1);
+                    successfulOps.incrementAndGet();
+                    SearchActionListener<SearchPhaseResult> listener = listeners.get(i);
+                    new Thread(() -> listener.onResponse(queryResult)).start();
+                }
+            }
+        };
+        CountDownLatch latch = new CountDownLatch(1);
+        GroupShardsIterator<SearchShardIterator> shardsIter = SearchAsyncActionTests.getShardsIter("idx",
+            new OriginalIndices(new String[]{"idx"}, SearchRequest.DEFAULT_INDICES_OPTIONS),
+            numShards, false, node, null);
+        Executor executor = EsExecutors.newDirectExecutorService();
+        SearchPhaseController controller = new SearchPhaseController(
+            writableRegistry(), r -> InternalAggregationTestCase.emptyReduceContextBuilder());
+        SearchTask task = new SearchTask(0, "n/a", "n/a", () -> "test", null, Collections.emptyMap());
+        QueryPhaseResultConsumer resultConsumer = new QueryPhaseResultConsumer(searchRequest, executor,
+            new NoopCircuitBreaker(CircuitBreaker.REQUEST), controller, task.getProgressListener(), writableRegistry(),
+            shardsIter.size(), exc -> {});
+        SearchQueryThenFetchAsyncAction action = new SearchQueryThenFetchAsyncAction(logger,
+            searchTransportService, (clusterAlias, nodeId) -> lookup.get(nodeId),
+            Collections.singletonMap("_na_", new AliasFilter(null, Strings.EMPTY_ARRAY)),
+            Collections.emptyMap(), controller, executor,
+            resultConsumer, searchRequest, null, shardsIter, timeProvider, null,
+            task, SearchResponse.Clusters.EMPTY) {
+            @Override
+            protected SearchPhase getNextPhase(SearchPhaseResults<SearchPhaseResult> results, SearchPhaseContext context) {
+                return new SearchPhase("test") {
+                    @Override
+                    public void run() {
+                        latch.countDown();
+                    }
+                };
+            }
+        };
+        action.start();
+        latch.await();
+        assertThat(numNodeRequests.get(), equalTo(1));
+        assertThat(successfulOps.get(), equalTo(numShards));
+        SearchPhaseController.ReducedQueryPhase phase = action.results.reduce();
+        assertThat(phase.totalHits.value, equalTo((long) numShards));
+        assertThat(phase.sortedTopDocs.scoreDocs.length, equalTo(1));
+    }
+
     public void testMinimumVersionSameAsNewVersion() throws Exception {
         Version newVersion = Version.CURRENT;
         Version oldVersion = VersionUtils.randomPreviousCompatibleVersion(random(), newVersion);
@@ -36,7 +36,9 @@ import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
 
+import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasItem;
 
 /**
  * Tests for the {@link ClusterChangedEvent} class.
@@ -200,18 +202,24 @@ public class ClusterChangedEventTests extends ESTestCase {
         ClusterChangedEvent event = new ClusterChangedEvent("_na_", originalState, newState);
         assertFalse("routing tables should be the same object", event.routingTableChanged());
         assertFalse("index routing table should be the same object", event.indexRoutingTableChanged(initialIndices.get(0).getName()));
+        assertThat(event.indicesWithChangedRouting(), empty());
+        assertThat(event.nodesWithChangedShards(), empty());
 
         // routing tables and index routing tables aren't same object
         newState = createState(numNodesInCluster, randomBoolean(), initialIndices);
         event = new ClusterChangedEvent("_na_", originalState, newState);
         assertTrue("routing tables should not be the same object", event.routingTableChanged());
         assertTrue("index routing table should not be the same object", event.indexRoutingTableChanged(initialIndices.get(0).getName()));
+        assertThat(event.indicesWithChangedRouting(), equalTo(initialIndices.stream().map(Index::getName).collect(Collectors.toSet())));
+        // all shards are unassigned
+        assertThat(event.nodesWithChangedShards(), empty());
 
         // index routing tables are different because they don't exist
         newState = createState(numNodesInCluster, randomBoolean(), initialIndices.subList(1, initialIndices.size()));
         event = new ClusterChangedEvent("_na_", originalState, newState);
         assertTrue("routing tables should not be the same object", event.routingTableChanged());
         assertTrue("index routing table should not be the same object", event.indexRoutingTableChanged(initialIndices.get(0).getName()));
+        assertThat(event.indicesWithChangedRouting(), hasItem(initialIndices.get(0).getName()));
     }
 
     /**
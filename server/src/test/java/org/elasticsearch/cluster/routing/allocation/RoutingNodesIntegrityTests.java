@@ -11,20 +11,33 @@ package org.elasticsearch.cluster.routing.allocation;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.elasticsearch.Version;
+import org.elasticsearch.cluster.ClusterChangedEvent;
+import org.elasticsearch.cluster.ClusterName;
 import org.elasticsearch.cluster.ClusterState;
 import org.elasticsearch.cluster.ESAllocationTestCase;
 import org.elasticsearch.cluster.metadata.IndexMetadata;
 import org.elasticsearch.cluster.metadata.Metadata;
 import org.elasticsearch.cluster.node.DiscoveryNodes;
+import org.elasticsearch.cluster.routing.IndexRoutingTable;
 import org.elasticsearch.cluster.routing.IndexShardRoutingTable;
+import org.elasticsearch.cluster.routing.RoutingNode;
 import org.elasticsearch.cluster.routing.RoutingNodes;
 import org.elasticsearch.cluster.routing.RoutingTable;
+import org.elasticsearch.cluster.routing.ShardRouting;
 import org.elasticsearch.cluster.routing.allocation.decider.ClusterRebalanceAllocationDecider;
 import org.elasticsearch.cluster.routing.allocation.decider.ThrottlingAllocationDecider;
 import org.elasticsearch.common.settings.Settings;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 import static org.elasticsearch.cluster.routing.ShardRoutingState.INITIALIZING;
 import static org.elasticsearch.cluster.routing.ShardRoutingState.STARTED;
+import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.not;
 
@@ -340,6 +353,141 @@ public class RoutingNodesIntegrityTests extends ESAllocationTestCase {
 
     }
 
+    public void testRoutingNodesBuiltFromPreviousClusterState() {
+        AllocationService strategy = createAllocationService(Settings.builder()
+            .put(ClusterRebalanceAllocationDecider.CLUSTER_ROUTING_ALLOCATION_ALLOW_REBALANCE_SETTING.getKey(), "always").build());
+
+        int indexIdGenerator = 0;
+        Metadata.Builder metadataBuilder = Metadata.builder();
+        RoutingTable.Builder routingTableBuilder = RoutingTable.builder();
+        for (int i = between(1, 5); i > 0; i--) {
+            IndexMetadata indexMetadata = randomIndexMetadata("test" + indexIdGenerator++);
+            metadataBuilder.put(indexMetadata, false);
+            routingTableBuilder.addAsNew(indexMetadata);
+        }
+        int nodeIdGenerator = 0;
+        DiscoveryNodes.Builder nodesBuilder = DiscoveryNodes.builder();
+        for (int i = between(1, 4); i > 0; i--) {
+            nodesBuilder.add(newNode("node" + nodeIdGenerator++));
+        }
+        ClusterState clusterState = ClusterState.builder(ClusterName.CLUSTER_NAME_SETTING.getDefault(Settings.EMPTY))
+            .metadata(metadataBuilder).routingTable(routingTableBuilder.build()).nodes(nodesBuilder).build();
+        if (randomBoolean()) {
+            clusterState.getRoutingNodes();
+        }
+
+        for (int iteration = between(10, 30); iteration > 0; iteration--) {
+            final ClusterState previousState = clusterState;
+            // starting shards and removing nodes allocate twice, and an index may change and then change back in between
+            boolean singleAllocation = false;
+            switch (between(0, 4)) {
+                case 0:
+                    clusterState = startInitializingShardsAndReroute(strategy, clusterState);
+                    break;
+                case 1:
+                    logger.info("--> adding a node");
+                    singleAllocation = true;
+                    clusterState = strategy.reroute(ClusterState.builder(clusterState)
+                        .nodes(DiscoveryNodes.builder(clusterState.nodes()).add(newNode("node" + nodeIdGenerator++))).build(), "reroute");
+                    break;
+                case 2:
+                    if (clusterState.nodes().getSize() > 1) {
+                        final String nodeId = randomFrom(clusterState.nodes().getNodes().keys().toArray(String.class));
+                        logger.info("--> removing node [{}]", nodeId);
+                        clusterState = strategy.disassociateDeadNodes(ClusterState.builder(clusterState)
+                            .nodes(DiscoveryNodes.builder(clusterState.nodes()).remove(nodeId)).build(), true, "reroute");
+                    }
+                    break;
+                case 3:
+                    logger.info("--> adding an index");
+                    singleAllocation = true;
+                    final IndexMetadata indexMetadata = randomIndexMetadata("test" + indexIdGenerator++);
+                    clusterState = strategy.reroute(ClusterState.builder(clusterState)
+                        .metadata(Metadata.builder(clusterState.metadata()).put(indexMetadata, false))
+                        .routingTable(RoutingTable.builder(clusterState.routingTable()).addAsNew(indexMetadata).build())
+                        .build(), "reroute");
+                    break;
+                case 4:
+                    if (clusterState.metadata().indices().size() > 1) {
+                        final String index = randomFrom(clusterState.metadata().indices().keys().toArray(String.class));
+                        logger.info("--> deleting index [{}]", index);
+                        singleAllocation = true;
+                        clusterState = strategy.reroute(ClusterState.builder(clusterState)
+                            .metadata(Metadata.builder(clusterState.metadata()).remove(index))
+                            .routingTable(RoutingTable.builder(clusterState.routingTable()).remove(index).build()).build(), "reroute");
+                    }
+                    break;
+            }
+            if (singleAllocation) {
+                for (IndexRoutingTable indexRoutingTable : clusterState.routingTable()) {
+                    final IndexRoutingTable previousIndexRoutingTable = previousState.routingTable().index(indexRoutingTable.getIndex());
+                    if (indexRoutingTable.equals(previousIndexRoutingTable)) {
+                        assertSame("unchanged index routing tables must be kept", previousIndexRoutingTable, indexRoutingTable);
+                    }
+                }
+            }
+            if (rarely()) {
+                // the routing nodes of the next cluster state are then built from the whole routing table
+                continue;
+            }
+
+            // allocating shards may have built the routing nodes of the new cluster state already
+            clusterState = ClusterState.builder(clusterState).build();
+            final boolean previousRoutingNodesBuilt = randomBoolean();
+            if (previousRoutingNodesBuilt) {
+                previousState.getRoutingNodes();
+            }
+            final ClusterChangedEvent event = new ClusterChangedEvent("test", clusterState, previousState);
+            final RoutingNodes routingNodes = event.routingNodes();
+            assertSame(routingNodes, clusterState.getRoutingNodes());
+            assertThat(assertShardStats(routingNodes), equalTo(true));
+            assertSameRouting(routingNodes, new RoutingNodes(clusterState));
+            if (previousRoutingNodesBuilt && previousState.nodes() == clusterState.nodes()) {
+                for (RoutingNode routingNode : routingNodes) {
+                    if (event.nodesWithChangedShards().contains(routingNode.nodeId()) == false) {
+                        assertSame(previousState.getRoutingNodes().node(routingNode.nodeId()), routingNode);
+                    }
+                }
+            }
+
+            final RoutingNodes mutableRoutingNodes = clusterState.mutableRoutingNodes();
+            assertThat(assertShardStats(mutableRoutingNodes), equalTo(true));
+            assertSameRouting(mutableRoutingNodes, routingNodes);
+        }
+    }
+
+    private IndexMetadata randomIndexMetadata(String index) {
+        return IndexMetadata.builder(index).settings(settings(Version.CURRENT))
+            .numberOfShards(between(1, 3)).numberOfReplicas(between(0, 2)).build();
+    }
+
+    private static void assertSameRouting(RoutingNodes routingNodes, RoutingNodes expected) {
+        assertThat(shardsPerNode(routingNodes), equalTo(shardsPerNode(expected)));
+        final List<ShardRouting> unassigned = new ArrayList<>();
+        routingNodes.unassigned().forEach(unassigned::add);
+        final List<ShardRouting> expectedUnassigned = new ArrayList<>();
+        expected.unassigned().forEach(expectedUnassigned::add);
+        assertThat(unassigned, containsInAnyOrder(expectedUnassigned.toArray()));
+        assertThat(routingNodes.hasInactiveShards(), equalTo(expected.hasInactiveShards()));
+        assertThat(routingNodes.hasInactivePrimaries(), equalTo(expected.hasInactivePrimaries()));
+        assertThat(routingNodes.getRelocatingShardCount(), equalTo(expected.getRelocatingShardCount()));
+        for (RoutingNode routingNode : expected) {
+            assertThat(routingNodes.node(routingNode.nodeId()).node(), equalTo(routingNode.node()));
+            assertThat(routingNodes.getIncomingRecoveries(routingNode.nodeId()),
+                equalTo(expected.getIncomingRecoveries(routingNode.nodeId())));
+            assertThat(routingNodes.getOutgoingRecoveries(routingNode.nodeId()),
+                equalTo(expected.getOutgoingRecoveries(routingNode.nodeId())));
+        }
+    }
+
+    private static Map<String, Set<ShardRouting>> shardsPerNode(RoutingNodes routingNodes) {
+        final Map<String, Set<ShardRouting>> shardsPerNode = new HashMap<>();
+        for (RoutingNode routingNode : routingNodes) {
+            shardsPerNode.put(routingNode.nodeId(), new HashSet<>(routingNode.copyShards()));
+        }
+        return shardsPerNode;
+    }
+
     private boolean assertShardStats(RoutingNodes routingNodes) {
         return RoutingNodes.assertShardStats(routingNodes);
     }
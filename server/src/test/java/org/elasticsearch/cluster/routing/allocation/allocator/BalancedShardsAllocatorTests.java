@@ -0,0 +1,287 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.cluster.routing.allocation.allocator;
+
+import org.apache.logging.log4j.LogManager;
+import org.elasticsearch.Version;
+import org.elasticsearch.cluster.ClusterInfo;
+import org.elasticsearch.cluster.ClusterName;
+import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.ESAllocationTestCase;
+import org.elasticsearch.cluster.metadata.IndexMetadata;
+import org.elasticsearch.cluster.metadata.Metadata;
+import org.elasticsearch.cluster.node.DiscoveryNodes;
+import org.elasticsearch.cluster.routing.RoutingNode;
+import org.elasticsearch.cluster.routing.RoutingNodes;
+import org.elasticsearch.cluster.routing.RoutingTable;
+import org.elasticsearch.cluster.routing.ShardRouting;
+import org.elasticsearch.cluster.routing.ShardRoutingState;
+import org.elasticsearch.cluster.routing.TestShardRouting;
+import org.elasticsearch.cluster.routing.allocation.AllocateUnassignedDecision;
+import org.elasticsearch.cluster.routing.allocation.RoutingAllocation;
+import org.elasticsearch.cluster.routing.allocation.allocator.BalancedShardsAllocator.Balancer;
+import org.elasticsearch.cluster.routing.allocation.allocator.BalancedShardsAllocator.ModelIndex;
+import org.elasticsearch.cluster.routing.allocation.allocator.BalancedShardsAllocator.ModelNode;
+import org.elasticsearch.cluster.routing.allocation.allocator.BalancedShardsAllocator.NodeSorter;
+import org.elasticsearch.cluster.routing.allocation.allocator.BalancedShardsAllocator.WeightFunction;
+import org.elasticsearch.cluster.routing.allocation.decider.AllocationDecider;
+import org.elasticsearch.cluster.routing.allocation.decider.AllocationDeciders;
+import org.elasticsearch.cluster.routing.allocation.decider.Decision;
+import org.elasticsearch.cluster.routing.allocation.decider.SameShardAllocationDecider;
+import org.elasticsearch.common.settings.ClusterSettings;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.snapshots.SnapshotShardSizeInfo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+/**
+ * Tests for the {@link Balancer} internals that avoid asking the deciders about every node for every shard: the incremental sorting of
+ * the nodes by weight, stopping at the first node that is heavier than an eligible one, and the per index and node decisions.
+ */
+public class BalancedShardsAllocatorTests extends ESAllocationTestCase {
+
+    public void testNodeSorterUpdateMatchesFullSort() {
+        final ClusterState state = randomClusterState();
+        final Balancer balancer = newBalancer(state, new AllocationDeciders(List.of()));
+        final List<String> indices = indexNames(state);
+        final NodeSorter sorter = balancer.newNodeSorter();
+        String index = randomFrom(indices);
+        sorter.reset(index);
+        final int iterations = randomIntBetween(1, 200);
+        for (int i = 0; i < iterations; i++) {
+            if (randomInt(10) == 0) {
+                index = randomFrom(indices);
+                sorter.reset(index);
+            }
+            final ModelNode node = randomFrom(sorter.modelNodes);
+            changeShards(state, node, indices);
+            sorter.update(node);
+
+            // the same order as sorting all nodes from scratch, including the order of nodes of the same weight
+            final NodeSorter fresh = balancer.newNodeSorter();
+            fresh.reset(index);
+            assertArrayEquals(fresh.modelNodes, sorter.modelNodes);
+            assertArrayEquals(fresh.weights, sorter.weights, 0.0f);
+        }
+    }
+
+    public void testNodeSorterUpdateInRangeMatchesFullSort() {
+        final ClusterState state = randomClusterState();
+        final Balancer balancer = newBalancer(state, new AllocationDeciders(List.of()));
+        final List<String> indices = indexNames(state);
+        final ModelNode[] nodesInOrder = balancer.nodesArray();
+        final NodeSorter sorter = balancer.newNodeSorter();
+        final int iterations = randomIntBetween(1, 200);
+        for (int i = 0; i < iterations; i++) {
+            sorter.reset(randomFrom(indices));
+            final int to = randomIntBetween(1, sorter.modelNodes.length);
+            final int changed = randomIntBetween(0, to - 1);
+            final ModelNode[] before = sorter.modelNodes.clone();
+            changeShards(state, sorter.modelNodes[changed], indices);
+            final int position = sorter.update(changed, 0, to);
+            assertSame(before[changed], sorter.modelNodes[position]);
+
+            // the nodes in the range are sorted like the sorter sorts them from scratch, the others did not move
+            final List<ModelNode> expected = new ArrayList<>(Arrays.asList(before).subList(0, to));
+            final List<ModelNode> ordinals = Arrays.asList(nodesInOrder);
+            expected.sort(Comparator.comparingDouble(sorter::weight).thenComparingInt(ordinals::indexOf));
+            assertThat(Arrays.asList(sorter.modelNodes).subList(0, to), equalTo(expected));
+            for (int j = to; j < before.length; j++) {
+                assertSame(before[j], sorter.modelNodes[j]);
+            }
+            for (int j = 0; j < to; j++) {
+                assertThat(sorter.weights[j], equalTo(sorter.weight(sorter.modelNodes[j])));
+            }
+        }
+    }
+
+    public void testDecideAllocateUnassignedMatchesFullScan() {
+        final ClusterState state = randomClusterState();
+        final Map<String, Decision> decisions = new HashMap<>();
+        final Set<String> excluded = randomExclusions(state);
+        final AllocationDeciders deciders = new AllocationDeciders(List.of(new AllocationDecider() {
+            @Override
+            public Decision canAllocate(ShardRouting shardRouting, RoutingNode node, RoutingAllocation allocation) {
+                // the same answer for both ways of deciding
+                return decisions.computeIfAbsent(shardRouting.shardId() + "/" + shardRouting.primary() + "/" + node.nodeId(),
+                    k -> randomFrom(Decision.YES, Decision.YES, Decision.THROTTLE, Decision.NO));
+            }
+
+            @Override
+            public Decision canAllocate(IndexMetadata indexMetadata, RoutingNode node, RoutingAllocation allocation) {
+                return excluded.contains(indexMetadata.getIndex().getName() + "/" + node.nodeId()) ? Decision.NO : Decision.YES;
+            }
+        }));
+        final Balancer balancer = newBalancer(state, deciders);
+        final Map<String, ModelNode> nodes = new HashMap<>();
+        for (ModelNode node : balancer.nodesArray()) {
+            nodes.put(node.getNodeId(), node);
+        }
+
+        final List<ShardRouting> shards = new ArrayList<>();
+        state.getRoutingNodes().unassigned().forEach(shards::add);
+        shards.sort(Comparator.comparing(ShardRouting::getIndexName));
+        final NodeSorter nodesByWeight = balancer.newNodeSorter();
+        String index = null;
+        for (ShardRouting shard : shards) {
+            if (shard.getIndexName().equals(index) == false) {
+                index = shard.getIndexName();
+                nodesByWeight.reset(index);
+            }
+            final AllocateUnassignedDecision fullScan = balancer.decideAllocateUnassigned(shard, null);
+            final AllocateUnassignedDecision earlyBreak = balancer.decideAllocateUnassigned(shard, nodesByWeight);
+            assertThat(earlyBreak.getAllocationDecision(), equalTo(fullScan.getAllocationDecision()));
+            assertThat(earlyBreak.getAllocationStatus(), equalTo(fullScan.getAllocationStatus()));
+            assertThat(earlyBreak.getTargetNode(), equalTo(fullScan.getTargetNode()));
+            if (earlyBreak.getTargetNode() != null) {
+                final ModelNode minNode = nodes.get(earlyBreak.getTargetNode().getId());
+                assertFalse(excluded.contains(shard.getIndexName() + "/" + minNode.getNodeId()));
+                minNode.addShard(shard.initialize(minNode.getNodeId(), null, ShardRouting.UNAVAILABLE_EXPECTED_SHARD_SIZE));
+                nodesByWeight.update(minNode);
+            }
+        }
+    }
+
+    public void testIndexAllocationDecisionsAreTakenOncePerRound() {
+        final ClusterState state = randomClusterState();
+        final List<String> indices = indexNames(state);
+        final Map<String, Integer> calls = new HashMap<>();
+        final Set<String> excluded = new HashSet<>(randomExclusions(state));
+        final AllocationDeciders deciders = new AllocationDeciders(List.of(new AllocationDecider() {
+            @Override
+            public Decision canAllocate(ShardRouting shardRouting, RoutingNode node, RoutingAllocation allocation) {
+                return excluded.contains(shardRouting.getIndexName() + "/" + node.nodeId()) ? Decision.NO : Decision.YES;
+            }
+
+            @Override
+            public Decision canAllocate(IndexMetadata indexMetadata, RoutingNode node, RoutingAllocation allocation) {
+                final String key = indexMetadata.getIndex().getName() + "/" + node.nodeId();
+                calls.merge(key, 1, Integer::sum);
+                return excluded.contains(key) ? Decision.NO : Decision.YES;
+            }
+        }, new SameShardAllocationDecider(Settings.EMPTY, new ClusterSettings(Settings.EMPTY, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS))));
+
+        final int rounds = randomIntBetween(1, 5);
+        for (int round = 0; round < rounds; round++) {
+            // the deciders may answer differently in every round, but not while the balancer moves shards around
+            if (round > 0) {
+                excluded.clear();
+                excluded.addAll(randomExclusions(state));
+            }
+            calls.clear();
+            final Balancer balancer = newBalancer(state, deciders);
+            final ModelNode[] nodes = balancer.nodesArray();
+            final int iterations = randomIntBetween(1, 100);
+            for (int i = 0; i < iterations; i++) {
+                final String index = randomFrom(indices);
+                final ModelNode node = randomFrom(nodes);
+                assertThat(balancer.canAllocateIndexToNode(state.metadata().index(index), node),
+                    equalTo(excluded.contains(index + "/" + node.getNodeId()) == false));
+                if (randomBoolean()) {
+                    changeShards(state, randomFrom(nodes), indices);
+                }
+            }
+            for (Integer count : calls.values()) {
+                assertThat(count, equalTo(1));
+            }
+        }
+
+        // allocating all shards asks about every index and node at most once, and never allocates a shard where its index is excluded
+        calls.clear();
+        final RoutingAllocation allocation = newRoutingAllocation(state, deciders);
+        new BalancedShardsAllocator(Settings.EMPTY).allocate(allocation);
+        for (Integer count : calls.values()) {
+            assertThat(count, lessThanOrEqualTo(1));
+        }
+        for (RoutingNode node : allocation.routingNodes()) {
+            for (ShardRouting shard : node) {
+                assertFalse(shard + " allocated to excluded node", excluded.contains(shard.getIndexName() + "/" + node.nodeId()));
+            }
+        }
+    }
+
+    private static ClusterState randomClusterState() {
+        final Metadata.Builder metadata = Metadata.builder();
+        final RoutingTable.Builder routingTable = RoutingTable.builder();
+        final int numIndices = randomIntBetween(1, 5);
+        for (int i = 0; i < numIndices; i++) {
+            final IndexMetadata indexMetadata = IndexMetadata.builder("index-" + i)
+                .settings(settings(Version.CURRENT))
+                .numberOfShards(randomIntBetween(1, 10))
+                .numberOfReplicas(randomIntBetween(0, 2))
+                .build();
+            metadata.put(indexMetadata, false);
+            routingTable.addAsNew(indexMetadata);
+        }
+        final DiscoveryNodes.Builder nodes = DiscoveryNodes.builder();
+        final int numNodes = randomIntBetween(1, 20);
+        for (int i = 0; i < numNodes; i++) {
+            nodes.add(newNode("node-" + i));
+        }
+        return ClusterState.builder(ClusterName.CLUSTER_NAME_SETTING.getDefault(Settings.EMPTY))
+            .metadata(metadata)
+            .routingTable(routingTable.build())
+            .nodes(nodes)
+            .build();
+    }
+
+    private static List<String> indexNames(ClusterState state) {
+        return Arrays.asList(state.metadata().getConcreteAllIndices());
+    }
+
+    private static Set<String> randomExclusions(ClusterState state) {
+        final Set<String> excluded = new HashSet<>();
+        for (String index : state.metadata().getConcreteAllIndices()) {
+            for (RoutingNode node : state.getRoutingNodes()) {
+                if (randomInt(3) == 0) {
+                    excluded.add(index + "/" + node.nodeId());
+                }
+            }
+        }
+        return excluded;
+    }
+
+    private static RoutingAllocation newRoutingAllocation(ClusterState state, AllocationDeciders deciders) {
+        return new RoutingAllocation(
+            deciders, new RoutingNodes(state, false), state, ClusterInfo.EMPTY, SnapshotShardSizeInfo.EMPTY, System.nanoTime());
+    }
+
+    private static Balancer newBalancer(ClusterState state, AllocationDeciders deciders) {
+        return new Balancer(LogManager.getLogger(BalancedShardsAllocatorTests.class), newRoutingAllocation(state, deciders),
+            new WeightFunction(randomFloat(), randomFloat() + 0.01f), 1.0f);
+    }
+
+    /**
+     * Adds a shard to or removes a shard from the given node, which keeps the weights small so that many nodes have the same weight.
+     */
+    private static void changeShards(ClusterState state, ModelNode node, List<String> indices) {
+        final List<ShardRouting> shards = new ArrayList<>();
+        for (ModelIndex index : node) {
+            index.forEach(shards::add);
+        }
+        if (shards.isEmpty() == false && randomBoolean()) {
+            node.removeShard(randomFrom(shards));
+        } else {
+            final IndexMetadata indexMetadata = state.metadata().index(randomFrom(indices));
+            node.addShard(TestShardRouting.newShardRouting(indexMetadata.getIndex().getName(),
+                randomIntBetween(0, indexMetadata.getNumberOfShards() - 1), node.getNodeId(), randomBoolean(),
+                ShardRoutingState.STARTED));
+        }
+    }
+}
@@ -69,6 +69,33 @@ public class PreallocatedCircuitBreakerServiceTests extends ESTestCase {
         }
     }
 
+    public void testConcurrentAccounting() throws InterruptedException {
+        try (HierarchyCircuitBreakerService real = real()) {
+            try (PreallocatedCircuitBreakerService preallocated = preallocateRequest(real, 1024)) {
+                preallocated.enableConcurrentAccounting();
+                CircuitBreaker b = preallocated.getBreaker(CircuitBreaker.REQUEST);
+                Thread[] threads = new Thread[between(2, 4)];
+                int iterations = between(100, 1000);
+                for (int t = 0; t < threads.length; t++) {
+                    threads[t] = new Thread(() -> {
+                        for (int i = 0; i < iterations; i++) {
+                            b.addEstimateBytesAndMaybeBreak(100, "test");
+                        }
+                    });
+                    threads[t].start();
+                }
+                for (Thread thread : threads) {
+                    thread.join();
+                }
+                // all but the preallocated bytes went to the real breaker
+                long used = 100L * iterations * threads.length;
+                assertThat(real.getBreaker(CircuitBreaker.REQUEST).getUsed(), equalTo(used));
+                b.addWithoutBreaking(-used);
+            }
+            assertThat(real.getBreaker(CircuitBreaker.REQUEST).getUsed(), equalTo(0L));
+        }
+    }
+
     public void testPreallocateMoreThanRemains() {
         try (HierarchyCircuitBreakerService real = real()) {
             long limit = real.getBreaker(CircuitBreaker.REQUEST).getLimit();
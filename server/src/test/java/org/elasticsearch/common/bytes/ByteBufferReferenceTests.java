@@ -0,0 +1,61 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+package org.elasticsearch.common.bytes;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+public class ByteBufferReferenceTests extends AbstractBytesReferenceTestCase {
+
+    @Override
+    protected BytesReference newBytesReference(int length) throws IOException {
+        return newBytesReference(length, randomInt(length), randomBoolean());
+    }
+
+    @Override
+    protected BytesReference newBytesReferenceWithOffsetOfZero(int length) throws IOException {
+        // only buffers backed by an array expose their offset
+        return newBytesReference(length, 0, false);
+    }
+
+    private BytesReference newBytesReference(int length, int offset, boolean direct) throws IOException {
+        final ByteBuffer buffer = direct ? ByteBuffer.allocateDirect(length + offset) : ByteBuffer.allocate(length + offset);
+        for (int i = 0; i < length + offset; i++) {
+            buffer.put((byte) random().nextInt(1 << 8));
+        }
+        buffer.position(offset);
+        final BytesReference ref = new ByteBufferReference(buffer);
+        assertEquals(length, ref.length());
+        return ref;
+    }
+
+    @Override
+    public void testToBytesRefSharedPage() throws IOException {
+        // the content of direct buffers is copied onto the heap
+    }
+
+    @Override
+    public void testArrayOffset() throws IOException {
+        int length = randomInt(PAGE_SIZE * randomIntBetween(2, 5));
+        BytesReference ref = newBytesReferenceWithOffsetOfZero(length);
+        assertEquals(0, ref.toBytesRef().offset);
+    }
+
+    public void testIndependentOfBufferPosition() throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(randomIntBetween(1, PAGE_SIZE));
+        for (int i = 0; i < buffer.capacity(); i++) {
+            buffer.put((byte) random().nextInt(1 << 8));
+        }
+        buffer.flip();
+        final BytesReference ref = new ByteBufferReference(buffer);
+        final BytesReference copy = new BytesArray(ref.toBytesRef(), true);
+        buffer.position(randomIntBetween(0, buffer.capacity()));
+        assertEquals(copy, ref);
+        assertEquals(copy, new BytesArray(BytesReference.toBytes(ref)));
+    }
+}
@@ -36,4 +36,12 @@ public class CacheBuilderTests extends ESTestCase {
         Cache<Object, Object> cache = CacheBuilder.builder().setExpireAfterWrite(timeValue).build();
         assertEquals(timeValue.getNanos(), cache.getExpireAfterWriteNanos());
     }
+
+    public void testSettingEvictionPolicy() {
+        expectThrows(NullPointerException.class, () -> CacheBuilder.builder().setEvictionPolicy(null));
+        assertEquals(Cache.EvictionPolicy.LRU, CacheBuilder.builder().build().getEvictionPolicy());
+        final Cache.EvictionPolicy evictionPolicy = randomFrom(Cache.EvictionPolicy.values());
+        Cache<Object, Object> cache = CacheBuilder.builder().setEvictionPolicy(evictionPolicy).build();
+        assertEquals(evictionPolicy, cache.getEvictionPolicy());
+    }
 }
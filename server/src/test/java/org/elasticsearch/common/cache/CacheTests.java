@@ -399,6 +399,65 @@ public class CacheTests extends ESTestCase {
         }
     }
 
+    // same as testPromotion, but with hits recorded in the read buffers and only applied to the LRU list when they are drained
+    public void testBufferedPromotion() {
+        AtomicLong now = new AtomicLong();
+        Cache<Integer, String> cache = new Cache<Integer, String>() {
+            @Override
+            protected long now() {
+                return now.get();
+            }
+        };
+        cache.setExpireAfterAccessNanos(1);
+        cache.setEvictionPolicy(Cache.EvictionPolicy.BUFFERED_LRU);
+        now.set(0);
+        for (int i = 0; i < numberOfEntries; i++) {
+            cache.put(i, Integer.toString(i));
+        }
+        now.set(1);
+        Set<Integer> promotedKeys = new HashSet<>();
+        for (int i = 0; i < numberOfEntries; i++) {
+            if (rarely()) {
+                assertNotNull(cache.get(i));
+                promotedKeys.add(i);
+            }
+        }
+        now.set(2);
+        cache.refresh();
+        assertEquals(promotedKeys.size(), cache.count());
+        for (int i = 0; i < numberOfEntries; i++) {
+            if (promotedKeys.contains(i)) {
+                assertNotNull(cache.get(i));
+            } else {
+                assertNull(cache.get(i));
+            }
+        }
+    }
+
+    // hit a small set of hot keys while inserting cold keys, the hot keys must survive the size-based evictions
+    public void testBufferedHitsProtectHotEntries() {
+        final int maximumWeight = 100;
+        Cache<Integer, String> cache = CacheBuilder.<Integer, String>builder()
+            .setMaximumWeight(maximumWeight)
+            .setEvictionPolicy(Cache.EvictionPolicy.BUFFERED_LRU)
+            .build();
+        final int hotKeys = 10;
+        for (int i = 0; i < hotKeys; i++) {
+            cache.put(i, Integer.toString(i));
+        }
+        for (int i = hotKeys; i < numberOfEntries; i++) {
+            for (int j = 0; j < hotKeys; j++) {
+                assertNotNull(cache.get(j));
+            }
+            cache.put(i, Integer.toString(i));
+        }
+        cache.refresh();
+        assertEquals(maximumWeight, cache.count());
+        for (int i = 0; i < hotKeys; i++) {
+            assertNotNull(cache.get(i));
+        }
+        assertEquals((long) (numberOfEntries - hotKeys) * hotKeys + hotKeys, cache.stats().getHits());
+    }
 
     // randomly invalidate some cached entries, then check that a lookup for each of those and only those keys is null
     public void testInvalidate() {
@@ -903,6 +962,52 @@ public class CacheTests extends ESTestCase {
         assertEquals(500, cache.count());
     }
 
+    // same as testTorture, but mixing hits recorded in the read buffers with the concurrent modifications
+    public void testBufferedTorture() throws BrokenBarrierException, InterruptedException {
+        int numberOfThreads = randomIntBetween(2, 32);
+        final Cache<Integer, String> cache =
+                CacheBuilder.<Integer, String>builder()
+                        .setMaximumWeight(1000)
+                        .weigher((k, v) -> 2)
+                        .setEvictionPolicy(Cache.EvictionPolicy.BUFFERED_LRU)
+                        .build();
+
+        CyclicBarrier barrier = new CyclicBarrier(1 + numberOfThreads);
+        for (int i = 0; i < numberOfThreads; i++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    barrier.await();
+                    Random random = new Random(random().nextLong());
+                    for (int j = 0; j < numberOfEntries; j++) {
+                        Integer key = random.nextInt(numberOfEntries);
+                        if (random.nextBoolean()) {
+                            cache.put(key, Integer.toString(j));
+                        } else {
+                            cache.get(key);
+                        }
+                    }
+                    barrier.await();
+                } catch (BrokenBarrierException | InterruptedException e) {
+                    throw new AssertionError(e);
+                }
+            });
+            thread.start();
+        }
+
+        // wait for all threads to be ready
+        barrier.await();
+        // wait for all threads to finish
+        barrier.await();
+
+        cache.refresh();
+        assertEquals(500, cache.count());
+        int linked = 0;
+        for (Integer ignored : cache.keys()) {
+            linked++;
+        }
+        assertEquals(500, linked);
+    }
+
     public void testRemoveUsingValuesIterator() {
         final List<RemovalNotification<Integer, String>> removalNotifications = new ArrayList<>();
         Cache<Integer, String> cache =
@@ -0,0 +1,46 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.common.compress;
+
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.hamcrest.Matchers.startsWith;
+
+public class Lz4CompressTests extends AbstractCompressorTestCase {
+
+    private final Compressor compressor = new Lz4Compressor();
+
+    @Override
+    protected Compressor compressor() {
+        return compressor;
+    }
+
+    public void testCompressAndUncompressBytes() throws IOException {
+        final BytesReference bytes = new BytesArray(randomRealisticUnicodeOfCodepointLengthBetween(0, 100_000)
+            .getBytes(StandardCharsets.UTF_8));
+        final BytesReference compressed = compressor.compress(bytes);
+        assertTrue(compressor.isCompressed(compressed));
+        assertEquals(bytes, compressor.uncompress(compressed));
+        // only the transport layer detects LZ4, stored and cluster state bytes are still expected to be deflate compressed
+        expectThrows(NotXContentException.class, () -> CompressorFactory.compressor(compressed));
+    }
+
+    public void testCorruptedBlockHeader() throws IOException {
+        final BytesReference compressed = compressor.compress(new BytesArray(randomAlphaOfLength(between(1, 1000))));
+        final byte[] corrupted = BytesReference.toBytes(compressed);
+        // the uncompressed length of the first block must not exceed the block size
+        corrupted[compressor.headerLength()] = (byte) 0x7F;
+        final IOException e = expectThrows(IOException.class, () -> compressor.uncompress(new BytesArray(corrupted)));
+        assertThat(e.getMessage(), startsWith("corrupted LZ4 block header"));
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.common.metrics;
+
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class HistogramStatsTests extends ESTestCase {
+
+    public void testBucketBounds() {
+        assertThat(HistogramStats.lowerBound(0), equalTo(0L));
+        for (int i = 1; i < HistogramStats.BUCKETS; i++) {
+            assertThat(HistogramStats.lowerBound(i), equalTo(HistogramStats.upperBound(i - 1)));
+        }
+        assertThat(HistogramStats.upperBound(HistogramStats.BUCKETS - 1), equalTo(Long.MAX_VALUE));
+        for (long value = 0; value < 8; value++) {
+            assertThat(HistogramStats.bucket(value), equalTo((int) value));
+        }
+        assertThat(HistogramStats.bucket(-1L), equalTo(0));
+        assertThat(HistogramStats.bucket(1L << 32), equalTo(HistogramStats.BUCKETS - 1));
+        assertThat(HistogramStats.bucket(Long.MAX_VALUE), equalTo(HistogramStats.BUCKETS - 1));
+    }
+
+    public void testValuesFallInTheirBucket() {
+        for (int i = 0; i < 1000; i++) {
+            final long value = randomBoolean() ? randomLongBetween(0L, 1L << 33) : randomNonNegativeLong();
+            final int bucket = HistogramStats.bucket(value);
+            assertThat(value, greaterThanOrEqualTo(HistogramStats.lowerBound(bucket)));
+            assertThat(value, lessThan(HistogramStats.upperBound(bucket)));
+        }
+    }
+
+    public void testPercentileRelativeError() {
+        final HistogramMetric metric = new HistogramMetric();
+        final long[] values = new long[randomIntBetween(1, 1000)];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = randomLongBetween(0L, (1L << 32) - 1);
+            metric.inc(values[i]);
+        }
+        Arrays.sort(values);
+        final HistogramStats stats = metric.stats();
+        assertThat(stats.getCount(), equalTo((long) values.length));
+        for (double percentile : new double[] { 0.0, 50.0, 90.0, 99.0, 100.0 }) {
+            final long exact = values[Math.max(0, (int) Math.ceil(percentile / 100.0 * values.length) - 1)];
+            final long estimate = stats.getPercentile(percentile);
+            assertThat(estimate, greaterThanOrEqualTo(exact));
+            assertThat((double) estimate, lessThanOrEqualTo(exact * 1.125));
+        }
+    }
+
+    public void testSerialization() throws IOException {
+        final long[] counts = new long[HistogramStats.BUCKETS];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = rarely() ? randomNonNegativeLong() : 0L;
+        }
+        final HistogramStats stats = new HistogramStats(counts, randomNonNegativeLong());
+        try (BytesStreamOutput out = new BytesStreamOutput()) {
+            stats.writeTo(out);
+            assertThat(new HistogramStats(out.bytes().streamInput()), equalTo(stats));
+        }
+    }
+}
@@ -19,12 +19,16 @@ import java.util.concurrent.CyclicBarrier;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.hamcrest.Matchers.anyOf;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.either;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 import static org.hamcrest.Matchers.hasToString;
+import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.lessThan;
 
 /**
@@ -383,6 +387,121 @@ public class EsExecutorsTests extends ESTestCase {
         }
     }
 
+    public void testQueueAndExecutionTime() throws Exception {
+        final int tasks = between(2, 10);
+        final CountDownLatch blocked = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch executed = new CountDownLatch(tasks - 1);
+        EsThreadPoolExecutor executor =
+                EsExecutors.newFixed(getName(), 1, tasks, EsExecutors.daemonThreadFactory("dummy"), threadContext, randomBoolean());
+        try {
+            executor.execute(() -> {
+                blocked.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    fail();
+                }
+            });
+            blocked.await();
+            for (int i = 1; i < tasks; i++) {
+                executor.execute(executed::countDown);
+            }
+            // the queued tasks wait for at least as long as the first task runs
+            Thread.sleep(10);
+            release.countDown();
+            executed.await();
+            assertBusy(() -> assertThat(executor.getExecutionTimeInMicros().getCount(), equalTo((long) tasks)));
+            assertThat(executor.getQueueTimeInMicros().getCount(), equalTo((long) tasks));
+            assertThat(executor.getExecutionTimeInMicros().getSum(), greaterThanOrEqualTo(TimeUnit.MILLISECONDS.toMicros(10)));
+            assertThat(executor.getQueueTimeInMicros().getSum(),
+                greaterThanOrEqualTo((tasks - 1) * TimeUnit.MILLISECONDS.toMicros(10)));
+        } finally {
+            release.countDown();
+            terminate(executor);
+        }
+    }
+
+    public void testRejectedAbstractRunnableRunsOnAfter() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(1);
+        EsThreadPoolExecutor executor =
+                EsExecutors.newFixed(getName(), 1, 1, EsExecutors.daemonThreadFactory("dummy"), threadContext, randomBoolean());
+        try {
+            // one task runs and one is queued, so the next one is rejected
+            for (int i = 0; i < 2; i++) {
+                executor.execute(() -> {
+                    try {
+                        latch.await();
+                    } catch (InterruptedException e) {
+                        throw new RuntimeException(e);
+                    }
+                });
+            }
+            final AtomicReference<Exception> rejection = new AtomicReference<>();
+            final AtomicInteger onAfter = new AtomicInteger();
+            executor.execute(new AbstractRunnable() {
+                @Override
+                public void onFailure(Exception e) {
+                    throw new AssertionError("unexpected failure", e);
+                }
+
+                @Override
+                public void onRejection(Exception e) {
+                    rejection.set(e);
+                }
+
+                @Override
+                public void onAfter() {
+                    onAfter.incrementAndGet();
+                }
+
+                @Override
+                protected void doRun() {
+                    fail("should have been rejected");
+                }
+            });
+            assertThat(rejection.get(), instanceOf(EsRejectedExecutionException.class));
+            assertThat(onAfter.get(), equalTo(1));
+        } finally {
+            latch.countDown();
+            terminate(executor);
+        }
+    }
+
+    public void testFailedAbstractRunnableRunsOnFailureAndOnAfterOnce() throws Exception {
+        EsThreadPoolExecutor executor =
+                EsExecutors.newFixed(getName(), 1, 1, EsExecutors.daemonThreadFactory("dummy"), threadContext, randomBoolean());
+        try {
+            final Exception exception = new Exception("boom");
+            final AtomicInteger onFailure = new AtomicInteger();
+            final AtomicInteger onAfter = new AtomicInteger();
+            final CountDownLatch done = new CountDownLatch(1);
+            executor.execute(new AbstractRunnable() {
+                @Override
+                public void onFailure(Exception e) {
+                    assertSame(exception, e);
+                    onFailure.incrementAndGet();
+                }
+
+                @Override
+                public void onAfter() {
+                    onAfter.incrementAndGet();
+                    done.countDown();
+                }
+
+                @Override
+                protected void doRun() throws Exception {
+                    throw exception;
+                }
+            });
+            done.await();
+            assertThat(onFailure.get(), equalTo(1));
+            assertThat(onAfter.get(), equalTo(1));
+        } finally {
+            terminate(executor);
+        }
+    }
+
     public void testNodeProcessorsBound() {
         final Setting<Integer> processorsSetting = EsExecutors.NODE_PROCESSORS_SETTING;
         final int available = Runtime.getRuntime().availableProcessors();
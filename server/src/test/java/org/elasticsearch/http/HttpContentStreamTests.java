@@ -0,0 +1,136 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.http;
+
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.ReleasableBytesReference;
+import org.elasticsearch.test.ESTestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.oneOf;
+
+public class HttpContentStreamTests extends ESTestCase {
+
+    public void testDeliversChunksOnDemand() {
+        final TestStream stream = new TestStream();
+        final List<String> received = new ArrayList<>();
+        final List<Boolean> last = new ArrayList<>();
+        stream.setHandler(new RecordingHandler(received, last, () -> {}));
+
+        stream.onContent(chunk("a"), false);
+        // nobody asked for content, the channel stops reading
+        assertFalse(stream.readsEnabled);
+        assertThat(received.size(), equalTo(0));
+
+        stream.next();
+        assertThat(received, equalTo(List.of("a")));
+        // the buffered chunk was consumed, so asking for the next one resumes reads
+        stream.next();
+        assertTrue(stream.readsEnabled);
+        stream.onContent(chunk("b"), false);
+        assertTrue(stream.readsEnabled);
+        stream.onContent(chunk("c"), true);
+        assertTrue(stream.readsEnabled);
+        assertThat(received, equalTo(List.of("a", "b")));
+        stream.next();
+        assertThat(received, equalTo(List.of("a", "b", "c")));
+        assertThat(last, equalTo(List.of(false, false, true)));
+        stream.close();
+    }
+
+    public void testPauseCannotOvertakeResume() throws Exception {
+        final AtomicReference<Thread> consumer = new AtomicReference<>();
+        final List<String> received = new ArrayList<>();
+        final AtomicReference<HttpContentStream> streamRef = new AtomicReference<>();
+        final TestStream stream = new TestStream() {
+            @Override
+            protected void pauseReads() {
+                // the handler asks for the buffered chunk, and for the one after it, while the network thread pauses reads
+                final Thread thread = new Thread(() -> streamRef.get().next());
+                consumer.set(thread);
+                thread.start();
+                try {
+                    assertBusy(() -> assertThat(thread.getState(), oneOf(Thread.State.BLOCKED, Thread.State.TERMINATED)));
+                } catch (Exception e) {
+                    throw new AssertionError(e);
+                }
+                super.pauseReads();
+            }
+        };
+        streamRef.set(stream);
+        stream.setHandler(new RecordingHandler(received, new ArrayList<>(), () -> {
+            if (received.size() == 2) {
+                stream.next();
+            }
+        }));
+
+        stream.next();
+        stream.onContent(chunk("a"), false);
+        stream.onContent(chunk("b"), false);
+        consumer.get().join();
+
+        assertThat(received, equalTo(List.of("a", "b")));
+        // a chunk is requested and none is buffered, so the channel must be reading
+        assertThat(stream.readsEnabled, is(true));
+        stream.onContent(chunk("c"), true);
+        assertThat(received, equalTo(List.of("a", "b", "c")));
+        stream.close();
+    }
+
+    private static ReleasableBytesReference chunk(String content) {
+        return ReleasableBytesReference.wrap(new BytesArray(content));
+    }
+
+    private static class TestStream extends HttpContentStream {
+
+        volatile boolean readsEnabled = true;
+
+        @Override
+        protected void pauseReads() {
+            readsEnabled = false;
+        }
+
+        @Override
+        protected void resumeReads() {
+            readsEnabled = true;
+        }
+    }
+
+    private static class RecordingHandler implements HttpContentStream.ChunkHandler {
+
+        private final List<String> received;
+        private final List<Boolean> last;
+        private final Runnable afterChunk;
+
+        RecordingHandler(List<String> received, List<Boolean> last, Runnable afterChunk) {
+            this.received = received;
+            this.last = last;
+            this.afterChunk = afterChunk;
+        }
+
+        @Override
+        public void onChunk(ReleasableBytesReference chunk, boolean isLast) {
+            try (chunk) {
+                received.add(chunk.utf8ToString());
+            }
+            last.add(isLast);
+            afterChunk.run();
+        }
+
+        @Override
+        public void onFailure(Exception e) {
+            throw new AssertionError(e);
+        }
+    }
+}
@@ -3870,6 +3870,23 @@ public class InternalEngineTests extends EngineTestCase {
         };
     }
 
+    /**
+     * Returns ids whose uids are on different stripes of the version map. Operations on the uids of a stripe wait for each other, so
+     * tests that stall operations while they hold the lock of their uid must not let other operations use the same stripe.
+     */
+    private static List<String> idsOnDistinctStripes(int count) {
+        assert count <= LiveVersionMap.STRIPES : count;
+        final List<String> ids = new ArrayList<>(count);
+        final Set<Integer> stripes = new HashSet<>();
+        for (int i = 0; ids.size() < count; i++) {
+            final String id = Integer.toString(i);
+            if (stripes.add(LiveVersionMap.stripe(Uid.encodeId(id)))) {
+                ids.add(id);
+            }
+        }
+        return ids;
+    }
+
     public void testSequenceNumberAdvancesToMaxSeqOnEngineOpenOnPrimary() throws BrokenBarrierException, InterruptedException, IOException {
         engine.close();
         final int docs = randomIntBetween(1, 32);
@@ -3885,8 +3902,9 @@ public class InternalEngineTests extends EngineTestCase {
                         newMergePolicy(), null, LocalCheckpointTracker::new, null,
                         getStallingSeqNoGenerator(latchReference, barrier, stall, expectedLocalCheckpoint));
             final InternalEngine finalInitialEngine = initialEngine;
+            final List<String> ids = idsOnDistinctStripes(docs);
             for (int i = 0; i < docs; i++) {
-                final String id = Integer.toString(i);
+                final String id = ids.get(i);
                 final ParsedDocument doc = testParsedDocument(id, null, testDocumentWithTextField(), SOURCE, null);
 
                 stall.set(randomBoolean());
@@ -4189,17 +4207,18 @@ public class InternalEngineTests extends EngineTestCase {
             final InternalEngine finalActualEngine = actualEngine;
             final Translog translog = finalActualEngine.getTranslog();
             final long generation = finalActualEngine.getTranslog().currentFileGeneration();
+            final List<String> ids = idsOnDistinctStripes(3 * numberOfTriplets);
             for (int i = 0; i < numberOfTriplets; i++) {
                 /*
                  * Index three documents with the first and last landing in the same generation and the middle document being stalled until
                  * a later generation.
                  */
                 stall.set(false);
-                index(finalActualEngine, 3 * i);
+                index(finalActualEngine, ids.get(3 * i));
 
                 final CountDownLatch latch = new CountDownLatch(1);
                 latchReference.set(latch);
-                final int skipId = 3 * i + 1;
+                final String skipId = ids.get(3 * i + 1);
                 stall.set(true);
                 final Thread thread = new Thread(() -> {
                     try {
@@ -4213,7 +4232,7 @@ public class InternalEngineTests extends EngineTestCase {
                 barrier.await();
 
                 stall.set(false);
-                index(finalActualEngine, 3 * i + 2);
+                index(finalActualEngine, ids.get(3 * i + 2));
                 finalActualEngine.flush();
 
                 /*
@@ -4239,7 +4258,10 @@ public class InternalEngineTests extends EngineTestCase {
     }
 
     private void index(final InternalEngine engine, final int id) throws IOException {
-        final String docId = Integer.toString(id);
+        index(engine, Integer.toString(id));
+    }
+
+    private void index(final InternalEngine engine, final String docId) throws IOException {
         final ParsedDocument doc =
                 testParsedDocument(docId, null, testDocumentWithTextField(), SOURCE, null);
         engine.index(indexForDoc(doc));
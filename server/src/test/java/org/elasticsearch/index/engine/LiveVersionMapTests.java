@@ -8,6 +8,7 @@
 
 package org.elasticsearch.index.engine;
 
+import org.apache.lucene.util.Accountable;
 import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.BytesRefBuilder;
 import org.apache.lucene.util.Constants;
@@ -94,6 +95,21 @@ public class LiveVersionMapTests extends ESTestCase {
         assertThat(map.getRefreshingBytes(), equalTo(0L));
     }
 
+    public void testChildResources() throws IOException {
+        LiveVersionMap map = new LiveVersionMap();
+        try (Releasable r = map.acquireLock(uid("1"))) {
+            map.putIndexUnderLock(uid("1"), randomIndexVersionValue());
+        }
+        map.beforeRefresh();
+        try (Releasable r = map.acquireLock(uid("2"))) {
+            map.putDeleteUnderLock(uid("2"), new DeleteVersionValue(1, 1, 1, 1));
+        }
+        assertThat(map.getChildResources().stream().mapToLong(Accountable::ramBytesUsed).sum(),
+            equalTo(map.ramBytesUsed() + map.getRefreshingBytes()));
+        map.afterRefresh(true);
+        assertThat(map.getChildResources().stream().mapToLong(Accountable::ramBytesUsed).sum(), equalTo(map.ramBytesUsed()));
+    }
+
     private BytesRef uid(String string) {
         BytesRefBuilder builder = new BytesRefBuilder();
         builder.copyChars(string);
@@ -401,6 +417,25 @@ public class LiveVersionMapTests extends ESTestCase {
         assertEquals(0, map.getAllTombstones().size());
     }
 
+    public void testClearWhileLocked() throws InterruptedException, IOException {
+        LiveVersionMap map = new LiveVersionMap();
+        BytesRef uid = uid("1");
+
+        try (Releasable ignore = map.acquireLock(uid)) {
+            map.putDeleteUnderLock(uid, new DeleteVersionValue(0, 0, 0, 0));
+            // the engine may close the map while an indexing thread that holds the lock of a uid waits for the monitor of the map
+            Thread thread = new Thread(() -> {
+                synchronized (map) {
+                    map.clear();
+                }
+            });
+            thread.start();
+            thread.join();
+            assertNull(map.getUnderLock(uid));
+        }
+        assertEquals(0, map.getAllTombstones().size());
+    }
+
     public void testRandomlyIndexDeleteAndRefresh() throws Exception {
         final LiveVersionMap versionMap = new LiveVersionMap();
         final BytesRef uid = uid("1");
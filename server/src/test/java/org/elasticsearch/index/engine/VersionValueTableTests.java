@@ -0,0 +1,97 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.engine;
+
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.RamUsageTester;
+import org.apache.lucene.util.TestUtil;
+import org.elasticsearch.test.ESTestCase;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThan;
+
+public class VersionValueTableTests extends ESTestCase {
+
+    public void testDuel() {
+        final VersionValueTable<VersionValue> table = new VersionValueTable<>(randomIntBetween(0, 100));
+        final Map<BytesRef, VersionValue> expected = new HashMap<>();
+        final List<BytesRef> uids = new ArrayList<>();
+        final int numUids = randomIntBetween(1, 1000);
+        for (int i = 0; i < numUids; i++) {
+            uids.add(new BytesRef(TestUtil.randomSimpleString(random(), 0, 20)));
+        }
+        final int iters = randomIntBetween(1, 10000);
+        for (int i = 0; i < iters; i++) {
+            final BytesRef uid = randomFrom(uids);
+            switch (randomInt(3)) {
+                case 0:
+                case 1:
+                    final VersionValue value = randomBoolean()
+                        ? new IndexVersionValue(null, randomNonNegativeLong(), randomNonNegativeLong(), randomNonNegativeLong())
+                        : new DeleteVersionValue(randomNonNegativeLong(), randomNonNegativeLong(), randomNonNegativeLong(), i);
+                    assertThat(table.put(uid, value), equalTo(expected.put(uid, value)));
+                    break;
+                case 2:
+                    assertThat(table.remove(uid), equalTo(expected.remove(uid)));
+                    break;
+                case 3:
+                    final long maxSeqNo = randomNonNegativeLong();
+                    final int removed = table.removeIf(v -> v.seqNo <= maxSeqNo);
+                    final int sizeBefore = expected.size();
+                    expected.values().removeIf(v -> v.seqNo <= maxSeqNo);
+                    assertThat(removed, equalTo(sizeBefore - expected.size()));
+                    break;
+                default:
+                    throw new AssertionError();
+            }
+            assertThat(table.size(), equalTo(expected.size()));
+            assertThat(table.get(uid), equalTo(expected.get(uid)));
+        }
+        final Map<BytesRef, VersionValue> actual = new HashMap<>();
+        table.forEach((uid, value) -> actual.put(BytesRef.deepCopyOf(uid), value));
+        assertThat(actual, equalTo(expected));
+        for (BytesRef uid : uids) {
+            assertThat(table.get(uid), equalTo(expected.get(uid)));
+        }
+    }
+
+    public void testRebuildsOnceMostUidsAreRemoved() {
+        final VersionValueTable<VersionValue> table = new VersionValueTable<>(0);
+        final int numUids = randomIntBetween(1000, 5000);
+        for (int i = 0; i < numUids; i++) {
+            table.put(new BytesRef(Integer.toString(i)), new IndexVersionValue(null, i, i, 1));
+        }
+        final long ramBytesUsedWhenFull = table.ramBytesUsed();
+        for (int i = 0; i < numUids - 10; i++) {
+            assertNotNull(table.remove(new BytesRef(Integer.toString(i))));
+        }
+        assertThat(table.size(), equalTo(10));
+        assertThat(table.ramBytesUsed(), lessThan(ramBytesUsedWhenFull / 10));
+        for (int i = numUids - 10; i < numUids; i++) {
+            assertThat(table.get(new BytesRef(Integer.toString(i))), equalTo(new IndexVersionValue(null, i, i, 1)));
+        }
+    }
+
+    public void testRamBytesUsed() {
+        final VersionValueTable<VersionValue> table = new VersionValueTable<>(0);
+        final int numUids = randomIntBetween(10000, 50000);
+        for (int i = 0; i < numUids; i++) {
+            table.put(new BytesRef(TestUtil.randomSimpleString(random(), 10, 20)),
+                new IndexVersionValue(null, randomNonNegativeLong(), randomNonNegativeLong(), randomNonNegativeLong()));
+        }
+        final long actualRamBytesUsed = RamUsageTester.sizeOf(table);
+        // less than 10% off
+        assertEquals(actualRamBytesUsed, table.ramBytesUsed(), actualRamBytesUsed / 10);
+    }
+}
@@ -16,6 +16,7 @@ import org.apache.lucene.document.Field.Store;
 import org.apache.lucene.document.SortedSetDocValuesField;
 import org.apache.lucene.document.StringField;
 import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IncrementalOrdinalMap;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.SortedSetDocValues;
 import org.apache.lucene.index.Term;
@@ -40,8 +41,11 @@ import org.elasticsearch.common.lucene.index.ElasticsearchDirectoryReader;
 import org.elasticsearch.common.lucene.search.Queries;
 import org.elasticsearch.index.fielddata.IndexFieldData.XFieldComparatorSource.Nested;
 import org.elasticsearch.index.fielddata.fieldcomparator.BytesRefFieldComparatorSource;
+import org.elasticsearch.index.fielddata.ordinals.GlobalOrdinalsBuilder;
 import org.elasticsearch.index.fielddata.ordinals.GlobalOrdinalsIndexFieldData;
+import org.elasticsearch.index.fielddata.plain.AbstractLeafOrdinalsFieldData;
 import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.indices.breaker.NoneCircuitBreakerService;
 import org.elasticsearch.search.MultiValueMode;
 
 import java.io.IOException;
@@ -603,4 +607,50 @@ public abstract class AbstractStringFieldDataTestCase extends AbstractFieldDataI
         indexService.clearCaches(false, true);
         assertThat(indicesFieldDataCache.getCache().weight(), equalTo(0L));
     }
+
+    public void testGlobalOrdinalsAreBuiltIncrementally() throws Exception {
+        fillExtendedMvSet();
+        refreshReader();
+        IndexOrdinalsFieldData ifd = getForField("string", "value", hasDocValues());
+        IndexOrdinalsFieldData globalOrdinals = ifd.loadGlobal(topLevelReader);
+        assertThat(globalOrdinals.getOrdinalMap(), not(instanceOf(IncrementalOrdinalMap.class)));
+
+        // a refresh that only adds segments builds on the global ordinals of the previous reader while they are cached
+        Document d = new Document();
+        addField(d, "_id", "10");
+        addField(d, "value", "01");
+        addField(d, "value", "055");
+        writer.addDocument(d);
+        DirectoryReader previousReader = topLevelReader;
+        topLevelReader = ElasticsearchDirectoryReader.wrap(DirectoryReader.open(writer), new ShardId("foo", "_na_", 1));
+        try {
+            IndexOrdinalsFieldData incremental = ifd.loadGlobal(topLevelReader);
+            assertThat(incremental.getOrdinalMap(), instanceOf(IncrementalOrdinalMap.class));
+
+            GlobalOrdinalsIndexFieldData rebuilt = (GlobalOrdinalsIndexFieldData) GlobalOrdinalsBuilder.build(topLevelReader, ifd,
+                new NoneCircuitBreakerService(), logger, AbstractLeafOrdinalsFieldData.DEFAULT_SCRIPT_FUNCTION);
+            IndexOrdinalsFieldData expected = rebuilt.newConsumer(topLevelReader);
+            long valueCount = expected.getOrdinalMap().getValueCount();
+            assertThat(incremental.getOrdinalMap().getValueCount(), equalTo(valueCount));
+            for (LeafReaderContext leaf : topLevelReader.leaves()) {
+                SortedSetDocValues expectedValues = expected.load(leaf).getOrdinalsValues();
+                SortedSetDocValues actualValues = incremental.load(leaf).getOrdinalsValues();
+                for (int doc = 0; doc < leaf.reader().maxDoc(); doc++) {
+                    boolean hasValue = expectedValues.advanceExact(doc);
+                    assertThat(actualValues.advanceExact(doc), equalTo(hasValue));
+                    if (hasValue) {
+                        for (long ord = expectedValues.nextOrd(); ord != SortedSetDocValues.NO_MORE_ORDS; ord = expectedValues.nextOrd()) {
+                            assertThat(actualValues.nextOrd(), equalTo(ord));
+                        }
+                        assertThat(actualValues.nextOrd(), equalTo(SortedSetDocValues.NO_MORE_ORDS));
+                    }
+                }
+                for (long ord = 0; ord < valueCount; ord++) {
+                    assertThat(actualValues.lookupOrd(ord), equalTo(expectedValues.lookupOrd(ord)));
+                }
+            }
+        } finally {
+            previousReader.close();
+        }
+    }
 }
@@ -22,6 +22,8 @@ import org.elasticsearch.index.store.StoreFileMetadata;
 import org.elasticsearch.test.ESTestCase;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.equalTo;
@@ -64,6 +66,63 @@ public class FileInfoTests extends ESTestCase {
         }
     }
 
+    public void testSerialization() throws IOException {
+        final BytesRef hash = new BytesRef(randomByteArrayOfLength(between(0, 64)));
+        StoreFileMetadata meta = new StoreFileMetadata("foobar", randomLongBetween(1, Long.MAX_VALUE / 2),
+            randomAlphaOfLengthBetween(1, 10), Version.LATEST, hash);
+        ByteSizeValue size = randomBoolean() ? null : new ByteSizeValue(randomLongBetween(1, Long.MAX_VALUE));
+        BlobStoreIndexShardSnapshot.FileInfo info = new BlobStoreIndexShardSnapshot.FileInfo("_foobar", meta, size);
+
+        BlobStoreIndexShardSnapshot.FileInfo copy = copyWriteable(info, writableRegistry(), BlobStoreIndexShardSnapshot.FileInfo::new);
+        assertThat(copy.name(), equalTo(info.name()));
+        assertThat(copy.physicalName(), equalTo(info.physicalName()));
+        assertThat(copy.length(), equalTo(info.length()));
+        assertThat(copy.partSize(), equalTo(info.partSize()));
+        assertThat(copy.numberOfParts(), equalTo(info.numberOfParts()));
+        assertThat(copy.metadata().hash(), equalTo(hash));
+        assertThat(copy.isSame(info), is(true));
+    }
+
+    public void testChunksToFromXContentAndSerialization() throws IOException {
+        final List<FileInfo.Chunk> chunks = new ArrayList<>();
+        final int numChunks = between(1, 10);
+        long length = 0L;
+        for (int i = 0; i < numChunks; i++) {
+            final FileInfo.Chunk chunk = new FileInfo.Chunk("c__" + randomAlphaOfLength(20), randomLongBetween(0, 1 << 20));
+            chunks.add(chunk);
+            length += chunk.length();
+        }
+        final StoreFileMetadata meta = new StoreFileMetadata("foobar", length, randomAlphaOfLengthBetween(1, 10), Version.LATEST);
+        final FileInfo info = new FileInfo("__foobar", meta, null, chunks);
+        assertThat(info.numberOfParts(), equalTo(numChunks));
+        for (int i = 0; i < numChunks; i++) {
+            assertThat(info.partName(i), equalTo(chunks.get(i).name()));
+            assertThat(info.partBytes(i), equalTo(chunks.get(i).length()));
+        }
+
+        XContentBuilder builder = XContentFactory.contentBuilder(XContentType.JSON);
+        FileInfo.toXContent(info, builder);
+        final FileInfo parsedInfo;
+        try (XContentParser parser = createParser(JsonXContent.jsonXContent, BytesReference.bytes(shuffleXContent(builder)))) {
+            parser.nextToken();
+            parsedInfo = FileInfo.fromXContent(parser);
+        }
+        assertThat(parsedInfo.chunks(), equalTo(chunks));
+        assertThat(parsedInfo.isSame(info), is(true));
+
+        final FileInfo copy = copyWriteable(info, writableRegistry(), FileInfo::new);
+        assertThat(copy.chunks(), equalTo(chunks));
+        assertThat(copy.isSame(info), is(true));
+
+        final List<FileInfo.Chunk> otherChunks = new ArrayList<>(chunks);
+        otherChunks.set(0, new FileInfo.Chunk("c__" + randomAlphaOfLength(21), chunks.get(0).length()));
+        assertThat(new FileInfo("__foobar", meta, null, otherChunks).isSame(info), is(false));
+
+        expectThrows(IllegalArgumentException.class, () -> new FileInfo("__foobar", meta, new ByteSizeValue(1024), chunks));
+        final StoreFileMetadata longerMeta = new StoreFileMetadata("foobar", length + 1, meta.checksum(), Version.LATEST);
+        expectThrows(IllegalArgumentException.class, () -> new FileInfo("__foobar", longerMeta, null, chunks));
+    }
+
     public void testInvalidFieldsInFromXContent() throws IOException {
         final int iters = scaledRandomIntBetween(1, 10);
         for (int iter = 0; iter < iters; iter++) {
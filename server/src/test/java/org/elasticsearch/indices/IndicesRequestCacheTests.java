@@ -23,7 +23,10 @@ import org.apache.lucene.store.Directory;
 import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.common.CheckedSupplier;
 import org.elasticsearch.common.bytes.AbstractBytesReference;
+import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.bytes.ReleasableBytesReference;
+import org.elasticsearch.common.cache.RemovalNotification;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.lucene.index.ElasticsearchDirectoryReader;
 import org.elasticsearch.common.settings.Settings;
@@ -351,6 +354,133 @@ public class IndicesRequestCacheTests extends ESTestCase {
         IOUtils.close(reader, secondReader, thirdReader, writer, dir, cache);
     }
 
+    public void testSpillToOffHeap() throws Exception {
+        MappingLookup.CacheKey mappingKey = MappingLookup.EMPTY.cacheKey();
+        AtomicBoolean indexShard = new AtomicBoolean(true);
+        ShardRequestCache requestCacheStats = new ShardRequestCache();
+        Directory dir = newDirectory();
+        IndexWriter writer = new IndexWriter(dir, newIndexWriterConfig());
+
+        writer.addDocument(newDoc(0, "foo"));
+        DirectoryReader reader = ElasticsearchDirectoryReader.wrap(DirectoryReader.open(writer),
+            new ShardId("foo", "bar", 1));
+        BytesReference termBytes = XContentHelper.toXContent(new TermQueryBuilder("id", "0"), XContentType.JSON, false);
+        BytesReference otherTermBytes = XContentHelper.toXContent(new TermQueryBuilder("id", "1"), XContentType.JSON, false);
+
+        final ByteSizeValue size;
+        try (IndicesRequestCache sizingCache = new IndicesRequestCache(Settings.EMPTY)) {
+            // use another identity, otherwise the close listener that the sizing cache registers on the reader hides ours
+            TestEntity sizingEntity = new TestEntity(requestCacheStats, new AtomicBoolean(true));
+            sizingCache.getOrCompute(sizingEntity, new Loader(reader, 0), mappingKey, reader, termBytes).close();
+            size = requestCacheStats.stats().getMemorySize();
+        }
+        requestCacheStats = new ShardRequestCache();
+        TestEntity entity = new TestEntity(requestCacheStats, indexShard);
+        // the heap tier only has room for a single entry
+        IndicesRequestCache cache = new IndicesRequestCache(Settings.builder()
+            .put(IndicesRequestCache.INDICES_CACHE_QUERY_SIZE.getKey(), size.getBytes() + 1 + "b")
+            .put(IndicesRequestCache.INDICES_CACHE_QUERY_OFF_HEAP_SIZE.getKey(), "1mb")
+            .build());
+
+        Loader loader = new Loader(reader, 0);
+        try (ReleasableBytesReference value = cache.getOrCompute(entity, loader, mappingKey, reader, termBytes)) {
+            assertEquals("foo", value.streamInput().readString());
+        }
+        assertFalse(loader.loadedFromCache);
+        loader = new Loader(reader, 0);
+        try (ReleasableBytesReference value = cache.getOrCompute(entity, loader, mappingKey, reader, otherTermBytes)) {
+            assertEquals("foo", value.streamInput().readString());
+        }
+        assertFalse(loader.loadedFromCache);
+        // the first entry was evicted from the heap into the off-heap tier
+        assertEquals(1, cache.count());
+        assertEquals(1, cache.offHeapCount());
+        assertEquals(1, requestCacheStats.stats().getEvictions());
+        assertEquals(1, requestCacheStats.stats().getSpillCount());
+        assertEquals(2, requestCacheStats.stats().getOffHeapMissCount());
+        assertTrue(requestCacheStats.stats().getOffHeapMemorySizeInBytes() > 0);
+
+        // it is served from the off-heap tier without being computed again
+        loader = new Loader(reader, 0);
+        try (ReleasableBytesReference value = cache.getOrCompute(entity, loader, mappingKey, reader, termBytes)) {
+            assertEquals("foo", value.streamInput().readString());
+        }
+        assertTrue(loader.loadedFromCache);
+        assertEquals(1, requestCacheStats.stats().getHitCount());
+        assertEquals(1, requestCacheStats.stats().getOffHeapHitCount());
+        assertEquals(2, requestCacheStats.stats().getMissCount());
+
+        // closing the reader cleans both tiers
+        reader.close();
+        cache.cleanCache();
+        assertEquals(0, cache.count());
+        assertEquals(0, cache.offHeapCount());
+        assertEquals(0, requestCacheStats.stats().getMemorySizeInBytes());
+        assertEquals(0, requestCacheStats.stats().getOffHeapMemorySizeInBytes());
+        IOUtils.close(writer, dir, cache);
+    }
+
+    public void testSpillOutsideOfRemovalListener() throws Exception {
+        MappingLookup.CacheKey mappingKey = MappingLookup.EMPTY.cacheKey();
+        ShardRequestCache requestCacheStats = new ShardRequestCache();
+        TestEntity entity = new TestEntity(requestCacheStats, new AtomicBoolean(true));
+        Directory dir = newDirectory();
+        IndexWriter writer = new IndexWriter(dir, newIndexWriterConfig());
+        writer.addDocument(newDoc(0, "foo"));
+        DirectoryReader reader = ElasticsearchDirectoryReader.wrap(DirectoryReader.open(writer),
+            new ShardId("foo", "bar", 1));
+        IndicesRequestCache cache = new IndicesRequestCache(Settings.builder()
+            .put(IndicesRequestCache.INDICES_CACHE_QUERY_OFF_HEAP_SIZE.getKey(), "1mb")
+            .build());
+
+        // the on-heap cache notifies evictions under its locks, the entries are only copied off-heap once it released them
+        final int evictions = randomIntBetween(1, IndicesRequestCache.MAX_PENDING_SPILLS * 2);
+        for (int i = 0; i < evictions; i++) {
+            IndicesRequestCache.Key key = new IndicesRequestCache.Key(entity, mappingKey, reader.getReaderCacheHelper().getKey(),
+                new BytesArray("key-" + i));
+            cache.onRemoval(new RemovalNotification<>(key, new BytesArray("value-" + i), RemovalNotification.RemovalReason.EVICTED));
+        }
+        assertEquals(0, cache.offHeapCount());
+        assertEquals(0, requestCacheStats.stats().getSpillCount());
+
+        // the entries that did not fit in the queue are dropped rather than spilled
+        cache.cleanCache();
+        final int spilled = Math.min(evictions, IndicesRequestCache.MAX_PENDING_SPILLS);
+        assertEquals(spilled, cache.offHeapCount());
+        assertEquals(spilled, requestCacheStats.stats().getSpillCount());
+        IOUtils.close(reader, writer, dir, cache);
+    }
+
+    public void testNoSpillOfEntryLoadedOnHeapAgain() throws Exception {
+        MappingLookup.CacheKey mappingKey = MappingLookup.EMPTY.cacheKey();
+        ShardRequestCache requestCacheStats = new ShardRequestCache();
+        TestEntity entity = new TestEntity(requestCacheStats, new AtomicBoolean(true));
+        Directory dir = newDirectory();
+        IndexWriter writer = new IndexWriter(dir, newIndexWriterConfig());
+        writer.addDocument(newDoc(0, "foo"));
+        DirectoryReader reader = ElasticsearchDirectoryReader.wrap(DirectoryReader.open(writer),
+            new ShardId("foo", "bar", 1));
+        BytesReference termBytes = XContentHelper.toXContent(new TermQueryBuilder("id", "0"), XContentType.JSON, false);
+        IndicesRequestCache cache = new IndicesRequestCache(Settings.builder()
+            .put(IndicesRequestCache.INDICES_CACHE_QUERY_OFF_HEAP_SIZE.getKey(), "1mb")
+            .build());
+
+        // the entry was evicted, but loaded on heap again before its eviction was spilled
+        IndicesRequestCache.Key key = new IndicesRequestCache.Key(entity, mappingKey, reader.getReaderCacheHelper().getKey(),
+            termBytes);
+        cache.onRemoval(new RemovalNotification<>(key, new BytesArray("value"), RemovalNotification.RemovalReason.EVICTED));
+        Loader loader = new Loader(reader, 0);
+        try (ReleasableBytesReference value = cache.getOrCompute(entity, loader, mappingKey, reader, termBytes)) {
+            assertEquals("foo", value.streamInput().readString());
+        }
+        assertFalse(loader.loadedFromCache);
+        cache.cleanCache();
+        assertEquals(1, cache.count());
+        assertEquals(0, cache.offHeapCount());
+        assertEquals(0, requestCacheStats.stats().getSpillCount());
+        IOUtils.close(reader, writer, dir, cache);
+    }
+
     public void testClearAllEntityIdentity() throws Exception {
         IndicesRequestCache cache = new IndicesRequestCache(Settings.EMPTY);
         AtomicBoolean indexShard =  new AtomicBoolean(true);
@@ -276,6 +276,18 @@ public class IndicesServiceCloseTests extends ESTestCase {
 
             @Override
             public void onRemoval(RemovalNotification<Key, BytesReference> notification) {}
+
+            @Override
+            public void onOffHeapHit() {}
+
+            @Override
+            public void onOffHeapMiss() {}
+
+            @Override
+            public void onSpilled(Key key, BytesReference value) {}
+
+            @Override
+            public void onOffHeapRemoval(RemovalNotification<Key, BytesReference> notification) {}
         };
         MappingLookup.CacheKey mappingCacheKey = indexService.mapperService().mappingLookup().cacheKey();
         cache.getOrCompute(cacheEntity, () -> new BytesArray("bar"), mappingCacheKey, searcher.getDirectoryReader(), new BytesArray("foo"));
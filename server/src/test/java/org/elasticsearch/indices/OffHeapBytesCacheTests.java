@@ -0,0 +1,129 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.indices;
+
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.bytes.ReleasableBytesReference;
+import org.elasticsearch.common.cache.RemovalNotification;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.test.ESTestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.equalTo;
+
+public class OffHeapBytesCacheTests extends ESTestCase {
+
+    private final List<RemovalNotification<Integer, BytesReference>> removals = new ArrayList<>();
+
+    public void testSlabSize() {
+        assertThat(new OffHeapBytesCache<Integer>(1024, removals::add).slabSizeInBytes(), equalTo(1024));
+        assertThat(new OffHeapBytesCache<Integer>(ByteSizeUnit.MB.toBytes(10), removals::add).slabSizeInBytes(),
+            equalTo((int) OffHeapBytesCache.MIN_SLAB_SIZE_IN_BYTES));
+        assertThat(new OffHeapBytesCache<Integer>(ByteSizeUnit.MB.toBytes(256), removals::add).slabSizeInBytes(),
+            equalTo((int) ByteSizeUnit.MB.toBytes(8)));
+        assertThat(new OffHeapBytesCache<Integer>(ByteSizeUnit.TB.toBytes(1), removals::add).slabSizeInBytes(),
+            equalTo((int) OffHeapBytesCache.MAX_SLAB_SIZE_IN_BYTES));
+        expectThrows(IllegalArgumentException.class, () -> new OffHeapBytesCache<Integer>(0, removals::add));
+    }
+
+    public void testPutAndGet() {
+        final int numberOfEntries = randomIntBetween(1, 100);
+        try (OffHeapBytesCache<Integer> cache = new OffHeapBytesCache<>(ByteSizeUnit.MB.toBytes(1), removals::add)) {
+            final List<BytesReference> values = new ArrayList<>();
+            for (int i = 0; i < numberOfEntries; i++) {
+                final BytesReference value = new BytesArray(randomByteArrayOfLength(randomIntBetween(0, 1024)));
+                values.add(value);
+                assertTrue(cache.put(i, value));
+            }
+            assertThat(cache.count(), equalTo(numberOfEntries));
+            for (int i = 0; i < numberOfEntries; i++) {
+                try (ReleasableBytesReference value = cache.get(i)) {
+                    assertEquals(values.get(i), value);
+                }
+            }
+            assertNull(cache.get(numberOfEntries));
+            assertThat(removals, equalTo(List.of()));
+        }
+        assertThat(removals.size(), equalTo(numberOfEntries));
+    }
+
+    public void testReplaceAndInvalidate() {
+        try (OffHeapBytesCache<Integer> cache = new OffHeapBytesCache<>(ByteSizeUnit.KB.toBytes(64), removals::add)) {
+            assertTrue(cache.put(1, new BytesArray("foo")));
+            assertTrue(cache.put(1, new BytesArray("bar")));
+            assertThat(removals.size(), equalTo(1));
+            assertThat(removals.get(0).getRemovalReason(), equalTo(RemovalNotification.RemovalReason.REPLACED));
+            assertThat(removals.get(0).getValue(), equalTo(new BytesArray("foo")));
+            try (ReleasableBytesReference value = cache.get(1)) {
+                assertThat(value.utf8ToString(), equalTo("bar"));
+            }
+
+            assertTrue(cache.put(2, new BytesArray("baz")));
+            cache.invalidate(1);
+            assertNull(cache.get(1));
+            assertThat(removals.size(), equalTo(2));
+            assertThat(removals.get(1).getRemovalReason(), equalTo(RemovalNotification.RemovalReason.INVALIDATED));
+
+            cache.invalidateAll(key -> key == 2);
+            assertNull(cache.get(2));
+            assertThat(cache.count(), equalTo(0));
+            assertThat(removals.size(), equalTo(3));
+        }
+    }
+
+    public void testRecyclesOldestSlab() {
+        final int entrySize = 1024;
+        // room for 4 slabs
+        final long maxSize = 4 * OffHeapBytesCache.MIN_SLAB_SIZE_IN_BYTES;
+        try (OffHeapBytesCache<Integer> cache = new OffHeapBytesCache<>(maxSize, removals::add)) {
+            final int entriesPerSlab = cache.slabSizeInBytes() / entrySize;
+            final int numberOfEntries = 4 * entriesPerSlab;
+            for (int i = 0; i < numberOfEntries; i++) {
+                assertTrue(cache.put(i, new BytesArray(new byte[entrySize])));
+            }
+            assertThat(cache.count(), equalTo(numberOfEntries));
+            assertThat(cache.sizeInBytes(), equalTo(maxSize));
+            assertThat(removals, equalTo(List.of()));
+
+            // the next entry recycles the first slab
+            assertTrue(cache.put(numberOfEntries, new BytesArray(new byte[entrySize])));
+            assertThat(cache.sizeInBytes(), equalTo(maxSize));
+            assertThat(removals.size(), equalTo(entriesPerSlab));
+            for (int i = 0; i < entriesPerSlab; i++) {
+                assertThat(removals.get(i).getKey(), equalTo(i));
+                assertThat(removals.get(i).getRemovalReason(), equalTo(RemovalNotification.RemovalReason.EVICTED));
+                assertNull(cache.get(i));
+            }
+            assertThat(cache.count(), equalTo(numberOfEntries - entriesPerSlab + 1));
+
+            // entries bigger than a slab are rejected
+            assertFalse(cache.put(-1, new BytesArray(new byte[cache.slabSizeInBytes() + 1])));
+        }
+    }
+
+    public void testDoesNotRecycleSlabInUse() {
+        try (OffHeapBytesCache<Integer> cache = new OffHeapBytesCache<>(1024, removals::add)) {
+            final BytesReference value = new BytesArray(randomByteArrayOfLength(1024));
+            assertTrue(cache.put(1, value));
+            final ReleasableBytesReference reference = cache.get(1);
+            assertFalse(cache.put(2, new BytesArray("foo")));
+            assertEquals(value, reference);
+            assertThat(removals, equalTo(List.of()));
+
+            reference.close();
+            assertTrue(cache.put(2, new BytesArray("foo")));
+            assertNull(cache.get(1));
+            assertThat(removals.size(), equalTo(1));
+            assertThat(removals.get(0).getRemovalReason(), equalTo(RemovalNotification.RemovalReason.EVICTED));
+        }
+    }
+}
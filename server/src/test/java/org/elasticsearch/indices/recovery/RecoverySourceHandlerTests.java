@@ -21,6 +21,7 @@ import org.apache.lucene.index.Term;
 import org.apache.lucene.store.BaseDirectoryWrapper;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexInput;
 import org.apache.lucene.util.SetOnce;
 import org.elasticsearch.ExceptionsHelper;
 import org.elasticsearch.Version;
@@ -39,6 +40,7 @@ import org.elasticsearch.common.bytes.ReleasableBytesReference;
 import org.elasticsearch.common.io.FileSystemUtils;
 import org.elasticsearch.common.lease.Releasable;
 import org.elasticsearch.common.lucene.store.IndexOutputOutputStream;
+import org.elasticsearch.common.lucene.store.InputStreamIndexInput;
 import org.elasticsearch.common.lucene.uid.Versions;
 import org.elasticsearch.common.settings.ClusterSettings;
 import org.elasticsearch.common.settings.Settings;
@@ -62,12 +64,16 @@ import org.elasticsearch.index.seqno.RetentionLeases;
 import org.elasticsearch.index.seqno.SeqNoStats;
 import org.elasticsearch.index.seqno.SequenceNumbers;
 import org.elasticsearch.index.shard.IndexShard;
+import org.elasticsearch.index.shard.IndexShardClosedException;
 import org.elasticsearch.index.shard.IndexShardRelocatedException;
 import org.elasticsearch.index.shard.IndexShardState;
 import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.index.snapshots.blobstore.BlobStoreIndexShardSnapshot;
 import org.elasticsearch.index.store.Store;
 import org.elasticsearch.index.store.StoreFileMetadata;
 import org.elasticsearch.index.translog.Translog;
+import org.elasticsearch.repositories.IndexId;
+import org.elasticsearch.repositories.RepositoryMissingException;
 import org.elasticsearch.test.CorruptionUtils;
 import org.elasticsearch.test.DummyShardLock;
 import org.elasticsearch.test.ESTestCase;
@@ -76,6 +82,8 @@ import org.elasticsearch.test.VersionUtils;
 import org.elasticsearch.threadpool.FixedExecutorBuilder;
 import org.elasticsearch.threadpool.TestThreadPool;
 import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.transport.ConnectTransportException;
+import org.elasticsearch.transport.RemoteTransportException;
 import org.junit.After;
 import org.junit.Before;
 
@@ -110,6 +118,7 @@ import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyBoolean;
 import static org.mockito.Matchers.anyObject;
@@ -194,6 +203,188 @@ public class RecoverySourceHandlerTests extends ESTestCase {
         IOUtils.close(reader, store, multiFileWriter, targetStore);
     }
 
+    public void testRestoreFilesFromSnapshot() throws Throwable {
+        final RecoverySettings recoverySettings = new RecoverySettings(Settings.EMPTY, service);
+        final StartRecoveryRequest request = getStartRecoveryRequest();
+        Store store = newStore(createTempDir());
+        Directory dir = store.directory();
+        RandomIndexWriter writer = new RandomIndexWriter(random(), dir, newIndexWriterConfig());
+        int numDocs = randomIntBetween(10, 100);
+        for (int i = 0; i < numDocs; i++) {
+            Document document = new Document();
+            document.add(new StringField("id", Integer.toString(i), Field.Store.YES));
+            document.add(newField("field", randomUnicodeOfCodepointLengthBetween(1, 10), TextField.TYPE_STORED));
+            writer.addDocument(document);
+            if (rarely()) {
+                writer.commit();
+            }
+        }
+        writer.commit();
+        writer.close();
+
+        Store.MetadataSnapshot metadata = store.getMetadata(null);
+        List<StoreFileMetadata> metas = new ArrayList<>();
+        List<BlobStoreIndexShardSnapshot.FileInfo> snapshotFiles = new ArrayList<>();
+        for (StoreFileMetadata md : metadata) {
+            metas.add(md);
+            if (randomBoolean()) {
+                snapshotFiles.add(new BlobStoreIndexShardSnapshot.FileInfo("__" + md.name(), md, null));
+            }
+        }
+        final int maxConcurrentSnapshotFileDownloads = between(1, 5);
+        final IndexId indexId = new IndexId(shardId.getIndexName(), UUIDs.randomBase64UUID());
+        final ShardSnapshotsLookup shardSnapshotsLookup = mock(ShardSnapshotsLookup.class);
+        doAnswer(invocation -> {
+            @SuppressWarnings("unchecked")
+            ActionListener<ShardSnapshotsLookup.SnapshotFilesToRecover> listener =
+                (ActionListener<ShardSnapshotsLookup.SnapshotFilesToRecover>) invocation.getArguments()[3];
+            listener.onResponse(snapshotFiles.isEmpty() ? null : new ShardSnapshotsLookup.SnapshotFilesToRecover("repo", indexId,
+                snapshotFiles));
+            return null;
+        }).when(shardSnapshotsLookup).findSnapshotFiles(any(), any(), any(), any());
+
+        Store targetStore = newStore(createTempDir());
+        MultiFileWriter multiFileWriter = new MultiFileWriter(targetStore, mock(RecoveryState.Index.class), "", logger, () -> {});
+        final Set<String> restoredFiles = ConcurrentCollections.newConcurrentSet();
+        final Set<String> failedFiles = ConcurrentCollections.newConcurrentSet();
+        final AtomicInteger concurrentRestores = new AtomicInteger();
+        RecoveryTargetHandler target = new TestRecoveryTargetHandler() {
+            @Override
+            public void writeFileChunk(StoreFileMetadata md, long position, ReleasableBytesReference content, boolean lastChunk,
+                                       int totalTranslogOps, ActionListener<Void> listener) {
+                ActionListener.completeWith(listener, () -> {
+                    multiFileWriter.writeFileChunk(md, position, content, lastChunk);
+                    return null;
+                });
+            }
+
+            @Override
+            public void restoreFileFromSnapshot(String repository, IndexId snapshotIndexId, BlobStoreIndexShardSnapshot.FileInfo fileInfo,
+                                                ActionListener<Void> listener) {
+                assertThat(repository, equalTo("repo"));
+                assertThat(snapshotIndexId, equalTo(indexId));
+                assertThat(concurrentRestores.incrementAndGet(), lessThanOrEqualTo(maxConcurrentSnapshotFileDownloads));
+                final StoreFileMetadata md = fileInfo.metadata();
+                // a file that cannot be read in full from the repository fails the checksum verification
+                final boolean fail = rarely();
+                try (IndexInput indexInput = store.directory().openInput(md.name(), IOContext.READONCE)) {
+                    multiFileWriter.writeFile(md, between(1, 8192),
+                        new InputStreamIndexInput(indexInput, fail ? md.length() / 2 : md.length()));
+                    assertFalse(fail);
+                    restoredFiles.add(md.name());
+                    concurrentRestores.decrementAndGet();
+                    listener.onResponse(null);
+                } catch (Exception e) {
+                    assertTrue(fail);
+                    failedFiles.add(md.name());
+                    concurrentRestores.decrementAndGet();
+                    listener.onFailure(e);
+                }
+            }
+        };
+        RecoverySourceHandler handler = new RecoverySourceHandler(null, new AsyncRecoveryTarget(target, recoveryExecutor),
+            threadPool, request, Math.toIntExact(recoverySettings.getChunkSize().getBytes()), between(1, 5), between(1, 5),
+            shardSnapshotsLookup, maxConcurrentSnapshotFileDownloads);
+        PlainActionFuture<List<StoreFileMetadata>> restoreFilesFuture = new PlainActionFuture<>();
+        handler.restoreFilesFromSnapshot(metadata, metas, restoreFilesFuture);
+        final List<StoreFileMetadata> filesToSend = restoreFilesFuture.actionGet();
+        assertThat(restoredFiles.size() + failedFiles.size(), equalTo(snapshotFiles.size()));
+        assertThat(filesToSend.size(), equalTo(metas.size() - restoredFiles.size()));
+        for (StoreFileMetadata md : filesToSend) {
+            assertFalse(restoredFiles.contains(md.name()));
+        }
+
+        PlainActionFuture<Void> sendFilesFuture = new PlainActionFuture<>();
+        handler.sendFiles(store, filesToSend.toArray(new StoreFileMetadata[0]), () -> 0, sendFilesFuture);
+        sendFilesFuture.actionGet();
+        Store.MetadataSnapshot targetStoreMetadata = targetStore.getMetadata(null);
+        Store.RecoveryDiff recoveryDiff = targetStoreMetadata.recoveryDiff(metadata);
+        assertEquals(metas.size(), recoveryDiff.identical.size());
+        assertEquals(0, recoveryDiff.different.size());
+        assertEquals(0, recoveryDiff.missing.size());
+        IndexReader reader = DirectoryReader.open(targetStore.directory());
+        assertEquals(numDocs, reader.maxDoc());
+        IOUtils.close(reader, store, multiFileWriter, targetStore);
+    }
+
+    public void testRestoreFilesFromSnapshotFailingSynchronously() throws Exception {
+        final List<StoreFileMetadata> files = new ArrayList<>();
+        final List<BlobStoreIndexShardSnapshot.FileInfo> snapshotFiles = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            final StoreFileMetadata md = new StoreFileMetadata("_" + i + ".cfs", between(1, 1024), "checksum",
+                org.apache.lucene.util.Version.LATEST);
+            files.add(md);
+            snapshotFiles.add(new BlobStoreIndexShardSnapshot.FileInfo("__" + i, md, null));
+        }
+        final AtomicInteger restores = new AtomicInteger();
+        RecoveryTargetHandler target = new TestRecoveryTargetHandler() {
+            @Override
+            public void restoreFileFromSnapshot(String repository, IndexId indexId, BlobStoreIndexShardSnapshot.FileInfo fileInfo,
+                                                ActionListener<Void> listener) {
+                restores.incrementAndGet();
+                listener.onFailure(new RepositoryMissingException(repository));
+            }
+        };
+        // the target fails on the calling thread, which must not recurse once per file
+        RecoverySourceHandler handler = newRestoringHandler(target, snapshotFiles, between(1, 5));
+        PlainActionFuture<List<StoreFileMetadata>> future = new PlainActionFuture<>();
+        handler.restoreFilesFromSnapshot(Store.MetadataSnapshot.EMPTY, files, future);
+        assertThat(future.actionGet(), hasSize(files.size()));
+        assertThat(restores.get(), equalTo(files.size()));
+    }
+
+    public void testRestoreFilesFromSnapshotFailsOnRecoveryFailure() throws Exception {
+        final List<StoreFileMetadata> files = new ArrayList<>();
+        final List<BlobStoreIndexShardSnapshot.FileInfo> snapshotFiles = new ArrayList<>();
+        final int numFiles = between(2, 20);
+        for (int i = 0; i < numFiles; i++) {
+            final StoreFileMetadata md = new StoreFileMetadata("_" + i + ".cfs", between(1, 1024), "checksum",
+                org.apache.lucene.util.Version.LATEST);
+            files.add(md);
+            snapshotFiles.add(new BlobStoreIndexShardSnapshot.FileInfo("__" + i, md, null));
+        }
+        final int failingFile = between(0, snapshotFiles.size() - 1);
+        final Exception recoveryFailure = randomFrom(
+            new CancellableThreads.ExecutionCancelledException("recovery was cancelled"),
+            new IndexShardClosedException(shardId),
+            new ConnectTransportException(null, "target node left"));
+        final AtomicInteger restores = new AtomicInteger();
+        RecoveryTargetHandler target = new TestRecoveryTargetHandler() {
+            @Override
+            public void restoreFileFromSnapshot(String repository, IndexId indexId, BlobStoreIndexShardSnapshot.FileInfo fileInfo,
+                                                ActionListener<Void> listener) {
+                if (restores.getAndIncrement() == failingFile) {
+                    listener.onFailure(new RemoteTransportException("failed to restore", recoveryFailure));
+                } else {
+                    listener.onResponse(null);
+                }
+            }
+        };
+        RecoverySourceHandler handler = newRestoringHandler(target, snapshotFiles, 1);
+        PlainActionFuture<List<StoreFileMetadata>> future = new PlainActionFuture<>();
+        handler.restoreFilesFromSnapshot(Store.MetadataSnapshot.EMPTY, files, future);
+        final Exception e = expectThrows(Exception.class, future::actionGet);
+        assertSame(recoveryFailure, ExceptionsHelper.unwrapCause(e));
+        // no file is restored once the recovery failed
+        assertThat(restores.get(), equalTo(failingFile + 1));
+    }
+
+    private RecoverySourceHandler newRestoringHandler(RecoveryTargetHandler target,
+                                                      List<BlobStoreIndexShardSnapshot.FileInfo> snapshotFiles,
+                                                      int maxConcurrentSnapshotFileDownloads) throws IOException {
+        final IndexId indexId = new IndexId(shardId.getIndexName(), UUIDs.randomBase64UUID());
+        final ShardSnapshotsLookup shardSnapshotsLookup = mock(ShardSnapshotsLookup.class);
+        doAnswer(invocation -> {
+            @SuppressWarnings("unchecked")
+            ActionListener<ShardSnapshotsLookup.SnapshotFilesToRecover> listener =
+                (ActionListener<ShardSnapshotsLookup.SnapshotFilesToRecover>) invocation.getArguments()[3];
+            listener.onResponse(new ShardSnapshotsLookup.SnapshotFilesToRecover("repo", indexId, snapshotFiles));
+            return null;
+        }).when(shardSnapshotsLookup).findSnapshotFiles(any(), any(), any(), any());
+        return new RecoverySourceHandler(null, target, threadPool, getStartRecoveryRequest(), between(1, 8192), between(1, 5),
+            between(1, 5), shardSnapshotsLookup, maxConcurrentSnapshotFileDownloads);
+    }
+
     public StartRecoveryRequest getStartRecoveryRequest() throws IOException {
         Store.MetadataSnapshot metadataSnapshot = randomBoolean() ? Store.MetadataSnapshot.EMPTY :
             new Store.MetadataSnapshot(Collections.emptyMap(),
@@ -882,6 +1073,11 @@ public class RecoverySourceHandlerTests extends ESTestCase {
         public void writeFileChunk(StoreFileMetadata fileMetadata, long position, ReleasableBytesReference content, boolean lastChunk,
                                    int totalTranslogOps, ActionListener<Void> listener) {
         }
+
+        @Override
+        public void restoreFileFromSnapshot(String repository, IndexId indexId, BlobStoreIndexShardSnapshot.FileInfo fileInfo,
+                                            ActionListener<Void> listener) {
+        }
     }
 
     private Translog.Snapshot newTranslogSnapshot(List<Translog.Operation> operations, List<Translog.Operation> operationsToSkip) {
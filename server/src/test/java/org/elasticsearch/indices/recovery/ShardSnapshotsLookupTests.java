@@ -0,0 +1,102 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.indices.recovery;
+
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.Version;
+import org.elasticsearch.index.snapshots.blobstore.BlobStoreIndexShardSnapshot.FileInfo;
+import org.elasticsearch.index.snapshots.blobstore.BlobStoreIndexShardSnapshots;
+import org.elasticsearch.index.snapshots.blobstore.SnapshotFiles;
+import org.elasticsearch.index.store.Store;
+import org.elasticsearch.index.store.StoreFileMetadata;
+import org.elasticsearch.test.ESTestCase;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+
+public class ShardSnapshotsLookupTests extends ESTestCase {
+
+    public void testFindSnapshotFiles() {
+        final StoreFileMetadata segmentInfo0 = segmentInfo("_0.si", "seg0");
+        final StoreFileMetadata compoundFile0 = dataFile("_0.cfs", 1000L, "abc");
+        final StoreFileMetadata segmentInfo1 = segmentInfo("_1.si", "seg1");
+        final StoreFileMetadata compoundFile1 = dataFile("_1.cfs", 500L, "def");
+        final StoreFileMetadata segmentsFile = segmentInfo("segments_3", "commit3");
+        final Store.MetadataSnapshot sourceMetadata = metadata(segmentInfo0, compoundFile0, segmentInfo1, compoundFile1, segmentsFile);
+        final List<StoreFileMetadata> files = List.of(segmentInfo0, compoundFile0, segmentInfo1, compoundFile1, segmentsFile);
+
+        // the second segment was written again since this snapshot, with the same length and checksum by chance
+        final SnapshotFiles olderSnapshot = new SnapshotFiles("older", List.of(
+            fileInfo(segmentInfo0), fileInfo(compoundFile0),
+            fileInfo(segmentInfo("_1.si", "other")), fileInfo(dataFile("_1.cfs", 500L, "def")),
+            fileInfo(segmentInfo("segments_2", "commit2"))), null);
+        // this snapshot holds the second segment only, which is smaller
+        final SnapshotFiles newerSnapshot = new SnapshotFiles("newer", List.of(
+            fileInfo(segmentInfo1), fileInfo(compoundFile1), fileInfo(segmentsFile)), null);
+        final BlobStoreIndexShardSnapshots shardSnapshots = new BlobStoreIndexShardSnapshots(randomBoolean()
+            ? List.of(olderSnapshot, newerSnapshot) : List.of(newerSnapshot, olderSnapshot));
+
+        final List<FileInfo> snapshotFiles = ShardSnapshotsLookup.findSnapshotFiles(shardSnapshots, sourceMetadata, files);
+        assertThat(snapshotFiles.stream().map(FileInfo::physicalName).collect(Collectors.toList()), containsInAnyOrder("_0.si", "_0.cfs"));
+
+        // only the files that the target misses are restored
+        final List<FileInfo> missingFiles =
+            ShardSnapshotsLookup.findSnapshotFiles(shardSnapshots, sourceMetadata, List.of(compoundFile1, segmentsFile));
+        assertThat(missingFiles.stream().map(FileInfo::physicalName).collect(Collectors.toList()),
+            containsInAnyOrder("_1.cfs", "segments_3"));
+
+        // a file whose content differs from the snapshot is not restored
+        final StoreFileMetadata changedCompoundFile0 = dataFile("_0.cfs", 1000L, "xyz");
+        assertThat(ShardSnapshotsLookup.findSnapshotFiles(new BlobStoreIndexShardSnapshots(List.of(olderSnapshot)),
+            metadata(segmentInfo0, changedCompoundFile0), List.of(changedCompoundFile0)), empty());
+
+        assertThat(ShardSnapshotsLookup.findSnapshotFiles(BlobStoreIndexShardSnapshots.EMPTY, sourceMetadata, files), empty());
+    }
+
+    public void testFindSnapshotFilesSkipsFilesHeldInSnapshotMetadata() {
+        final BytesRef contents = new BytesRef(randomByteArrayOfLength(between(1, 16)));
+        final StoreFileMetadata virtualFile = new StoreFileMetadata("_0.si", contents.length, "abc", Version.LATEST, contents) {
+            @Override
+            public boolean hashEqualsContents() {
+                return true;
+            }
+        };
+        final BlobStoreIndexShardSnapshots shardSnapshots = new BlobStoreIndexShardSnapshots(List.of(
+            new SnapshotFiles("snapshot", List.of(new FileInfo("v__" + randomAlphaOfLength(10), virtualFile, null)), null)));
+        assertThat(ShardSnapshotsLookup.findSnapshotFiles(shardSnapshots, metadata(virtualFile), List.of(virtualFile)), empty());
+    }
+
+    private static StoreFileMetadata segmentInfo(String name, String id) {
+        // the hash of segment infos and commits identifies their segments, but is shorter than the files to not be taken as their content
+        final BytesRef hash = new BytesRef(id);
+        return new StoreFileMetadata(name, hash.length + 100L, "checksum-" + id, Version.LATEST, hash);
+    }
+
+    private static StoreFileMetadata dataFile(String name, long length, String checksum) {
+        return new StoreFileMetadata(name, length, checksum, Version.LATEST);
+    }
+
+    private static FileInfo fileInfo(StoreFileMetadata md) {
+        return new FileInfo("__" + randomAlphaOfLength(10), md, null);
+    }
+
+    private static Store.MetadataSnapshot metadata(StoreFileMetadata... files) {
+        final Map<String, StoreFileMetadata> metadata = new HashMap<>();
+        for (StoreFileMetadata md : files) {
+            metadata.put(md.name(), md);
+        }
+        return new Store.MetadataSnapshot(metadata, Collections.emptyMap(), 0L);
+    }
+}
@@ -12,6 +12,7 @@ import org.elasticsearch.ElasticsearchException;
 import org.elasticsearch.test.ESTestCase;
 import org.junit.Before;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
@@ -20,6 +21,7 @@ import java.util.Map;
 import java.util.concurrent.TimeUnit;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.function.LongSupplier;
 
 import static org.hamcrest.CoreMatchers.equalTo;
@@ -353,6 +355,66 @@ public class CompoundProcessorTests extends ESTestCase {
         assertThat(ingestProcessorException.getHeader("pipeline_origin"), equalTo(List.of("2", "1")));
     }
 
+    public void testExecuteBatch() throws Exception {
+        List<Integer> batchSizes = new ArrayList<>();
+        TestProcessor failing = new TestProcessor(null, "failing", null, ingestDocument -> {
+            if (ingestDocument.hasField("fail")) {
+                throw new RuntimeException("error");
+            }
+        });
+        TestProcessor dropping = new TestProcessor(null, "dropping", null,
+            (Function<IngestDocument, IngestDocument>) ingestDocument -> ingestDocument.hasField("drop") ? null : ingestDocument);
+        TestProcessor batching = new TestProcessor(null, "batching", null,
+            (Consumer<IngestDocument>) ingestDocument -> ingestDocument.setFieldValue("done", true)) {
+            @Override
+            public void executeBatch(List<IngestDocument> ingestDocuments, List<BiConsumer<IngestDocument, Exception>> handlers) {
+                batchSizes.add(ingestDocuments.size());
+                super.executeBatch(ingestDocuments, handlers);
+            }
+        };
+        TestProcessor onFailure = new TestProcessor(ingestDocument -> ingestDocument.setFieldValue("on_failure", true));
+        LongSupplier relativeTimeProvider = mock(LongSupplier.class);
+        when(relativeTimeProvider.getAsLong()).thenReturn(0L);
+        CompoundProcessor compoundProcessor = new CompoundProcessor(false, List.of(failing, dropping, batching),
+            List.of(onFailure), relativeTimeProvider);
+
+        List<IngestDocument> ingestDocuments = new ArrayList<>();
+        for (String field : new String[] { "fail", "drop", "keep", "keep" }) {
+            Map<String, Object> source = new HashMap<>();
+            source.put(field, true);
+            ingestDocuments.add(new IngestDocument(source, new HashMap<>()));
+        }
+        IngestDocument[] results = new IngestDocument[ingestDocuments.size()];
+        Exception[] failures = new Exception[ingestDocuments.size()];
+        int[] calls = new int[ingestDocuments.size()];
+        List<BiConsumer<IngestDocument, Exception>> handlers = new ArrayList<>();
+        for (int i = 0; i < ingestDocuments.size(); i++) {
+            final int slot = i;
+            handlers.add((result, e) -> {
+                calls[slot]++;
+                results[slot] = result;
+                failures[slot] = e;
+            });
+        }
+        compoundProcessor.executeBatch(ingestDocuments, handlers);
+
+        assertThat(calls, equalTo(new int[] { 1, 1, 1, 1 }));
+        assertThat(failures, equalTo(new Exception[4]));
+        // the failed document goes through the on failure processors on its own
+        assertThat(results[0].getFieldValue("on_failure", Boolean.class), is(true));
+        assertThat(results[0].hasField("done"), is(false));
+        // the dropped document is not passed on
+        assertThat(results[1], nullValue());
+        assertThat(results[2].getFieldValue("done", Boolean.class), is(true));
+        assertThat(results[3].getFieldValue("done", Boolean.class), is(true));
+        assertThat(failing.getInvokedCounter(), equalTo(4));
+        assertThat(dropping.getInvokedCounter(), equalTo(3));
+        assertThat(batchSizes, equalTo(List.of(2)));
+        assertStats(0, compoundProcessor, 0L, 4, 1, 0);
+        assertStats(1, compoundProcessor, 0L, 3, 0, 0);
+        assertStats(2, compoundProcessor, 0L, 2, 0, 0);
+    }
+
     private void assertStats(CompoundProcessor compoundProcessor, long count,  long failed, long time) {
         assertStats(0, compoundProcessor, 0L, count, failed, time);
     }
@@ -21,6 +21,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 
 import static org.elasticsearch.ingest.IngestDocumentMatcher.assertIngestDocument;
 import static org.hamcrest.Matchers.both;
@@ -1013,6 +1014,103 @@ public class IngestDocumentTests extends ESTestCase {
         assertIngestDocument(ingestDocument, copy);
     }
 
+    public void testCopyOnWrite() {
+        Map<String, Object> nested = new HashMap<>();
+        nested.put("field", "value");
+        Map<String, Object> source = new HashMap<>();
+        source.put("nested", nested);
+        source.put("list", new ArrayList<>(Arrays.asList("a", "b")));
+        source.put("untouched", new HashMap<>(Collections.singletonMap("field", "value")));
+        IngestDocument original = new IngestDocument(source, new HashMap<>());
+        IngestDocument copy = new IngestDocument(original);
+
+        copy.setFieldValue("nested.field", "new_value");
+        copy.appendFieldValue("list", "c");
+        copy.setFieldValue("_ingest.key", "value");
+        original.removeField("list.0");
+        assertThat(nested, equalTo(Collections.singletonMap("field", "value")));
+        assertThat(original.getFieldValue("nested.field", String.class), equalTo("value"));
+        assertThat(original.getFieldValue("list", List.class), equalTo(Collections.singletonList("b")));
+        assertFalse(original.hasField("_ingest.key"));
+        assertThat(copy.getFieldValue("nested.field", String.class), equalTo("new_value"));
+        assertThat(copy.getFieldValue("list", List.class), equalTo(Arrays.asList("a", "b", "c")));
+        assertThat(copy.getFieldValue("_ingest.key", String.class), equalTo("value"));
+
+        // values that are only read are still shared
+        assertThat(original.getUnmodifiableSourceAndMetadata().get("untouched"),
+            sameInstance(copy.getUnmodifiableSourceAndMetadata().get("untouched")));
+
+        // but values that are returned may be modified by the caller
+        @SuppressWarnings("unchecked")
+        Map<String, Object> untouched = copy.getFieldValue("untouched", Map.class);
+        untouched.put("field", "new_value");
+        assertThat(copy.getFieldValue("untouched.field", String.class), equalTo("new_value"));
+        assertThat(original.getFieldValue("untouched.field", String.class), equalTo("value"));
+
+        @SuppressWarnings("unchecked")
+        List<Object> list = (List<Object>) original.getSourceAndMetadata().get("list");
+        list.add("d");
+        assertThat(original.getFieldValue("list", List.class), equalTo(Arrays.asList("b", "d")));
+        assertThat(copy.getFieldValue("list", List.class), equalTo(Arrays.asList("a", "b", "c")));
+    }
+
+    public void testCopiesAreIndependent() {
+        IngestDocument original = RandomDocumentPicks.randomIngestDocument(random());
+        IngestDocument copy = new IngestDocument(original);
+        IngestDocument modified = randomFrom(original, copy);
+        IngestDocument other = modified == original ? copy : original;
+        Map<String, Object> expectedSourceAndMetadata = IngestDocument.deepCopyMap(other.getUnmodifiableSourceAndMetadata());
+        Map<String, Object> expectedIngestMetadata = IngestDocument.deepCopyMap(other.getUnmodifiableIngestMetadata());
+        int numModifications = randomIntBetween(1, 10);
+        for (int i = 0; i < numModifications; i++) {
+            String field = randomExistingFieldName(modified);
+            if (field == null) {
+                modified.setFieldValue(randomAlphaOfLength(5), randomAlphaOfLength(5));
+                continue;
+            }
+            switch (randomIntBetween(0, 3)) {
+                case 0:
+                    modified.setFieldValue(field, RandomDocumentPicks.randomFieldValue(random()));
+                    break;
+                case 1:
+                    modified.appendFieldValue(field, RandomDocumentPicks.randomFieldValue(random()));
+                    break;
+                case 2:
+                    modified.removeField(field);
+                    break;
+                default:
+                    Object value = modified.getFieldValue(field, Object.class);
+                    if (value instanceof Map) {
+                        ((Map<?, ?>) value).clear();
+                    } else if (value instanceof List) {
+                        ((List<?>) value).clear();
+                    } else if (value instanceof byte[]) {
+                        Arrays.fill((byte[]) value, (byte) 0);
+                    }
+                    break;
+            }
+            modified.setFieldValue("_ingest." + randomAlphaOfLength(5), randomAlphaOfLength(5));
+        }
+        assertIngestDocument(other, new IngestDocument(expectedSourceAndMetadata, expectedIngestMetadata));
+    }
+
+    /**
+     * Like {@link RandomDocumentPicks#randomExistingFieldName}, but doesn't copy the values that the document shares with its copies.
+     */
+    private static String randomExistingFieldName(IngestDocument ingestDocument) {
+        Map<?, ?> map = ingestDocument.getUnmodifiableSourceAndMetadata();
+        String field = null;
+        while (map.isEmpty() == false) {
+            Map.Entry<?, ?> entry = randomFrom(new TreeMap<>(map).entrySet());
+            field = field == null ? entry.getKey().toString() : field + "." + entry.getKey();
+            if (entry.getValue() instanceof Map == false) {
+                break;
+            }
+            map = (Map<?, ?>) entry.getValue();
+        }
+        return field;
+    }
+
     public void testCopyConstructorWithZonedDateTime() {
         ZoneId timezone = ZoneId.of("Europe/London");
 
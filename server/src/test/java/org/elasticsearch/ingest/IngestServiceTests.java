@@ -59,13 +59,16 @@ import org.mockito.ArgumentMatcher;
 import org.mockito.invocation.InvocationOnMock;
 
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
@@ -77,6 +80,7 @@ import java.util.stream.Collectors;
 
 import static java.util.Collections.emptyMap;
 import static java.util.Collections.emptySet;
+import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 import static org.hamcrest.Matchers.instanceOf;
@@ -935,6 +939,12 @@ public class IngestServiceTests extends ESTestCase {
             handler.accept(null, error);
             return null;
         }).when(processor).execute(any(), any());
+        doAnswer(args -> {
+            @SuppressWarnings("unchecked")
+            List<BiConsumer<IngestDocument, Exception>> handlers = (List) args.getArguments()[1];
+            handlers.forEach(handler -> handler.accept(null, error));
+            return null;
+        }).when(processor).executeBatch(any(), any());
         IngestService ingestService = createWithProcessors(Collections.singletonMap(
             "mock", (factories, tag, description, config) -> processor));
         PutPipelineRequest putRequest = new PutPipelineRequest("_id",
@@ -986,6 +996,12 @@ public class IngestServiceTests extends ESTestCase {
             handler.accept(RandomDocumentPicks.randomIngestDocument(random()), null);
             return null;
         }).when(processor).execute(any(), any());
+        doAnswer(args -> {
+            @SuppressWarnings("unchecked")
+            List<BiConsumer<IngestDocument, Exception>> handlers = (List) args.getArguments()[1];
+            handlers.forEach(handler -> handler.accept(RandomDocumentPicks.randomIngestDocument(random()), null));
+            return null;
+        }).when(processor).executeBatch(any(), any());
         Map<String, Processor.Factory> map = new HashMap<>(2);
         map.put("mock", (factories, tag, description, config) -> processor);
 
@@ -1013,6 +1029,63 @@ public class IngestServiceTests extends ESTestCase {
         }
     }
 
+    public void testBulkRequestExecutionBatchesDocumentsPerPipeline() throws Exception {
+        List<Integer> batchSizes = new ArrayList<>();
+        Map<String, Processor.Factory> map = new HashMap<>(2);
+        map.put("batch", (factories, tag, description, config) -> new TestProcessor(tag, "batch", description, ingestDocument -> {
+            if (ingestDocument.hasField("fail")) {
+                throw new IllegalArgumentException("failed");
+            }
+            ingestDocument.setFieldValue("processed", true);
+        }) {
+            @Override
+            public void executeBatch(List<IngestDocument> ingestDocuments, List<BiConsumer<IngestDocument, Exception>> handlers) {
+                batchSizes.add(ingestDocuments.size());
+                super.executeBatch(ingestDocuments, handlers);
+            }
+        });
+        IngestService ingestService = createWithProcessors(map);
+        ClusterState clusterState = ClusterState.builder(new ClusterName("_name")).build();
+        ClusterState previousClusterState = clusterState;
+        clusterState = IngestService.innerPut(new PutPipelineRequest("_id1",
+            new BytesArray("{\"processors\": [{\"batch\" : {}}]}"), XContentType.JSON), clusterState);
+        clusterState = IngestService.innerPut(new PutPipelineRequest("_id2",
+            new BytesArray("{\"processors\": [{\"batch\" : {}}]}"), XContentType.JSON), clusterState);
+        ingestService.applyClusterState(new ClusterChangedEvent("", clusterState, previousClusterState));
+
+        BulkRequest bulkRequest = new BulkRequest();
+        int numRequest = scaledRandomIntBetween(8, 64);
+        int[] numRequestsPerPipeline = new int[2];
+        Set<Integer> failedSlots = new HashSet<>();
+        for (int i = 0; i < numRequest; i++) {
+            int pipeline = i < 2 ? i : randomIntBetween(0, 1);
+            numRequestsPerPipeline[pipeline]++;
+            IndexRequest indexRequest = new IndexRequest("_index").id("_id").setPipeline("_id" + (pipeline + 1)).setFinalPipeline("_none");
+            if (i >= 2 && randomBoolean()) {
+                indexRequest.source(Requests.INDEX_CONTENT_TYPE, "field1", "value1", "fail", true);
+                failedSlots.add(i);
+            } else {
+                indexRequest.source(Requests.INDEX_CONTENT_TYPE, "field1", "value1");
+            }
+            bulkRequest.add(indexRequest);
+        }
+
+        Map<Integer, Exception> failures = new HashMap<>();
+        @SuppressWarnings("unchecked")
+        final BiConsumer<Thread, Exception> completionHandler = mock(BiConsumer.class);
+        ingestService.executeBulkRequest(numRequest, bulkRequest.requests(), failures::put, completionHandler, indexReq -> {},
+            Names.WRITE);
+
+        // each pipeline is executed once on all the documents of the bulk request that use it
+        assertThat(batchSizes, containsInAnyOrder(numRequestsPerPipeline[0], numRequestsPerPipeline[1]));
+        assertThat(failures.keySet(), equalTo(failedSlots));
+        for (int i = 0; i < numRequest; i++) {
+            IndexRequest indexRequest = (IndexRequest) bulkRequest.requests().get(i);
+            assertThat(indexRequest.sourceAsMap().containsKey("processed"), is(failedSlots.contains(i) == false));
+        }
+        verify(completionHandler, times(1)).accept(Thread.currentThread(), null);
+    }
+
     public void testStats() throws Exception {
         final Processor processor = mock(Processor.class);
         final Processor processorFailure = mock(Processor.class);
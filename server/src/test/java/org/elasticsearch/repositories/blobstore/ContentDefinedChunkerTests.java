@@ -0,0 +1,97 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.repositories.blobstore;
+
+import org.elasticsearch.index.snapshots.blobstore.BlobStoreIndexShardSnapshot.FileInfo;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.startsWith;
+
+public class ContentDefinedChunkerTests extends ESTestCase {
+
+    public void testChunkBoundaries() throws IOException {
+        final int averageChunkSize = 1 << between(6, 12);
+        final long maxBlobSize = randomBoolean() ? Long.MAX_VALUE : randomLongBetween(averageChunkSize, averageChunkSize * 8L);
+        final ContentDefinedChunker chunker = new ContentDefinedChunker(averageChunkSize, maxBlobSize, between(1, 1024));
+        final byte[] content = randomByteArrayOfLength(between(0, averageChunkSize * 64));
+
+        final List<FileInfo.Chunk> chunks = chunk(chunker, content);
+        assertThat(chunks.stream().mapToLong(FileInfo.Chunk::length).sum(), equalTo((long) content.length));
+        final long maxChunkSize = Math.min(averageChunkSize * 4L, maxBlobSize);
+        final long minChunkSize = Math.min(averageChunkSize / 4L, maxBlobSize);
+        for (int i = 0; i < chunks.size(); i++) {
+            final FileInfo.Chunk chunk = chunks.get(i);
+            assertThat(chunk.name(), startsWith(ContentDefinedChunker.CHUNK_BLOB_PREFIX));
+            assertThat(chunk.length(), lessThanOrEqualTo(maxChunkSize));
+            if (i < chunks.size() - 1) {
+                assertThat(chunk.length(), greaterThan(minChunkSize));
+            }
+        }
+        // the same content always yields the same chunks, regardless of how it is read
+        assertThat(chunk(new ContentDefinedChunker(averageChunkSize, maxBlobSize, between(1, 1024)), content), equalTo(chunks));
+    }
+
+    public void testEmptyContent() throws IOException {
+        final List<FileInfo.Chunk> chunks = chunk(new ContentDefinedChunker(1024, Long.MAX_VALUE, 128), new byte[0]);
+        assertThat(chunks, hasSize(1));
+        assertThat(chunks.get(0).length(), equalTo(0L));
+    }
+
+    public void testIdenticalChunksShareNames() throws IOException {
+        final ContentDefinedChunker chunker = new ContentDefinedChunker(256, Long.MAX_VALUE, 128);
+        final byte[] block = randomByteArrayOfLength(256 * 16);
+        final byte[] content = new byte[block.length * 2];
+        System.arraycopy(block, 0, content, 0, block.length);
+        System.arraycopy(block, 0, content, block.length, block.length);
+        final List<FileInfo.Chunk> chunks = chunk(chunker, content);
+        final Set<String> distinctNames = chunks.stream().map(FileInfo.Chunk::name).collect(Collectors.toSet());
+        assertThat("repeated content must share chunks", distinctNames.size(), lessThanOrEqualTo(chunks.size() / 2 + 4));
+    }
+
+    public void testInsertionOnlyChangesNearbyChunks() throws IOException {
+        final int averageChunkSize = 1 << between(8, 10);
+        final ContentDefinedChunker chunker = new ContentDefinedChunker(averageChunkSize, Long.MAX_VALUE, between(64, 1024));
+        final byte[] original = randomByteArrayOfLength(averageChunkSize * 256);
+        final int insertionPoint = between(0, original.length);
+        final byte[] insertion = randomByteArrayOfLength(between(1, averageChunkSize));
+        final byte[] modified = new byte[original.length + insertion.length];
+        System.arraycopy(original, 0, modified, 0, insertionPoint);
+        System.arraycopy(insertion, 0, modified, insertionPoint, insertion.length);
+        System.arraycopy(original, insertionPoint, modified, insertionPoint + insertion.length, original.length - insertionPoint);
+
+        final Set<String> originalChunks = chunk(chunker, original).stream().map(FileInfo.Chunk::name).collect(Collectors.toSet());
+        final List<FileInfo.Chunk> modifiedChunks = chunk(chunker, modified);
+        final Set<String> newChunks = new HashSet<>();
+        long newBytes = 0L;
+        for (FileInfo.Chunk chunk : modifiedChunks) {
+            if (originalChunks.contains(chunk.name()) == false && newChunks.add(chunk.name())) {
+                newBytes += chunk.length();
+            }
+        }
+        // only the chunks around the insertion change until the boundaries are in sync again, whereas fixed size parts would all change
+        // after the insertion point
+        assertThat(newChunks.size(), lessThanOrEqualTo(16));
+        assertThat(newBytes, lessThanOrEqualTo(modified.length / 8L));
+    }
+
+    private static List<FileInfo.Chunk> chunk(ContentDefinedChunker chunker, byte[] content) throws IOException {
+        return chunker.chunk(new ByteArrayInputStream(content));
+    }
+}
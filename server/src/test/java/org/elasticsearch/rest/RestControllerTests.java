@@ -11,8 +11,10 @@ package org.elasticsearch.rest;
 import org.elasticsearch.Version;
 import org.elasticsearch.client.node.NodeClient;
 import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.breaker.CircuitBreakingException;
 import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.bytes.ReleasableBytesReference;
 import org.elasticsearch.common.compatibility.RestApiCompatibleVersion;
 import org.elasticsearch.common.component.AbstractLifecycleComponent;
 import org.elasticsearch.common.settings.ClusterSettings;
@@ -26,6 +28,7 @@ import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.common.xcontent.XContentType;
 import org.elasticsearch.common.xcontent.yaml.YamlXContent;
 import org.elasticsearch.core.internal.io.IOUtils;
+import org.elasticsearch.http.HttpContentStream;
 import org.elasticsearch.http.HttpInfo;
 import org.elasticsearch.http.HttpRequest;
 import org.elasticsearch.http.HttpResponse;
@@ -41,6 +44,7 @@ import org.junit.Before;
 import org.mockito.Mockito;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
@@ -56,6 +60,8 @@ import java.util.stream.Collectors;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
@@ -307,6 +313,72 @@ public class RestControllerTests extends ESTestCase {
         assertEquals(0, inFlightRequestsBreaker.getUsed());
     }
 
+    public void testAllowsStreamedContent() {
+        final RestHandler streamingHandler = new RestHandler() {
+            @Override
+            public void handleRequest(RestRequest request, RestChannel channel, NodeClient client) {
+                channel.sendResponse(new BytesRestResponse(RestStatus.OK, BytesRestResponse.TEXT_CONTENT_TYPE, BytesArray.EMPTY));
+            }
+
+            @Override
+            public boolean allowsStreamedContent() {
+                return true;
+            }
+        };
+        restController.registerHandler(RestRequest.Method.POST, "/streamed/{id}", streamingHandler);
+        assertTrue(restController.allowsStreamedContent(RestRequest.Method.POST, "/streamed/1"));
+        assertTrue(restController.allowsStreamedContent(RestRequest.Method.POST, "/streamed/1?refresh=true"));
+        assertFalse(restController.allowsStreamedContent(RestRequest.Method.PUT, "/streamed/1"));
+        assertFalse(restController.allowsStreamedContent(RestRequest.Method.GET, "/"));
+        assertFalse(restController.allowsStreamedContent(RestRequest.Method.POST, "/unknown"));
+    }
+
+    public void testDispatchStreamedContentAccountsForChunks() {
+        final List<Object> received = new ArrayList<>();
+        restController.registerHandler(RestRequest.Method.POST, "/streamed", new RestHandler() {
+            @Override
+            public void handleRequest(RestRequest request, RestChannel channel, NodeClient client) {
+                final HttpContentStream contentStream = request.contentStream();
+                contentStream.setHandler(new HttpContentStream.ChunkHandler() {
+                    @Override
+                    public void onChunk(ReleasableBytesReference chunk, boolean isLast) {
+                        assertEquals(chunk.length(), inFlightRequestsBreaker.getUsed());
+                        received.add(chunk.utf8ToString());
+                        chunk.close();
+                        assertEquals(0, inFlightRequestsBreaker.getUsed());
+                        contentStream.next();
+                    }
+
+                    @Override
+                    public void onFailure(Exception e) {
+                        received.add(e);
+                        channel.sendResponse(new BytesRestResponse(RestStatus.OK, BytesRestResponse.TEXT_CONTENT_TYPE, BytesArray.EMPTY));
+                    }
+                });
+                contentStream.next();
+            }
+
+            @Override
+            public boolean allowsStreamedContent() {
+                return true;
+            }
+        });
+        final TestContentStream contentStream = new TestContentStream();
+        final RestRequest request = new FakeRestRequest.Builder(NamedXContentRegistry.EMPTY).withPath("/streamed")
+            .withMethod(RestRequest.Method.POST).withContentStream(contentStream, XContentType.JSON).build();
+        final AssertingChannel channel = new AssertingChannel(request, true, RestStatus.OK);
+        restController.dispatchRequest(request, channel, client.threadPool().getThreadContext());
+
+        final String fits = randomAlphaOfLength((int) (BREAKER_LIMIT.getBytes() / inFlightRequestsBreaker.getOverhead()));
+        contentStream.onContent(ReleasableBytesReference.wrap(new BytesArray(fits)), false);
+        assertThat(received, equalTo(List.of(fits)));
+        contentStream.onContent(ReleasableBytesReference.wrap(new BytesArray(randomAlphaOfLength(BREAKER_LIMIT.bytesAsInt() + 1))), false);
+        assertThat(received, hasSize(2));
+        assertThat(received.get(1), instanceOf(CircuitBreakingException.class));
+        assertEquals(1, inFlightRequestsBreaker.getTrippedCount());
+        assertEquals(0, inFlightRequestsBreaker.getUsed());
+    }
+
     public void testDispatchRequiresContentTypeForRequestsWithContent() {
         String content = randomAlphaOfLength((int) Math.round(BREAKER_LIMIT.getBytes() / inFlightRequestsBreaker.getOverhead()));
         RestRequest request = testRestRequest("/", content, null);
@@ -813,5 +885,15 @@ public class RestControllerTests extends ESTestCase {
         builder.withContent(new BytesArray(content), xContentType);
         return builder.build();
     }
-}
 
+    private static class TestContentStream extends HttpContentStream {
+
+        @Override
+        protected void pauseReads() {
+        }
+
+        @Override
+        protected void resumeReads() {
+        }
+    }
+}
@@ -11,21 +11,35 @@ package org.elasticsearch.rest.action.document;
 import org.apache.lucene.util.SetOnce;
 import org.elasticsearch.Version;
 import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.bulk.BulkItemResponse;
 import org.elasticsearch.action.bulk.BulkRequest;
 import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.index.IndexRequest;
 import org.elasticsearch.action.update.UpdateRequest;
 import org.elasticsearch.client.node.NodeClient;
 import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.bytes.ReleasableBytesReference;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.xcontent.XContentHelper;
 import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.http.HttpContentStream;
 import org.elasticsearch.rest.RestChannel;
 import org.elasticsearch.rest.RestRequest;
+import org.elasticsearch.rest.RestStatus;
 import org.elasticsearch.test.ESTestCase;
 import org.elasticsearch.test.client.NoOpNodeClient;
+import org.elasticsearch.test.rest.FakeRestChannel;
 import org.elasticsearch.test.rest.FakeRestRequest;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import static org.hamcrest.Matchers.either;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.hasSize;
 import static org.mockito.Mockito.mock;
@@ -66,4 +80,146 @@ public class RestBulkActionTests extends ESTestCase {
             assertThat(bulkCalled.get(), equalTo(true));
         }
     }
+
+    public void testStreamedBulk() throws Exception {
+        final StringBuilder content = new StringBuilder();
+        final int numItems = randomIntBetween(1, 100);
+        for (int i = 0; i < numItems; i++) {
+            if (randomBoolean()) {
+                content.append("{\"index\":{\"_id\":\"").append(i).append("\"}}\n{\"field\":\"").append(i).append("\"}\n");
+            } else {
+                content.append("{\"delete\":{\"_id\":\"").append(i).append("\"}}\n");
+            }
+        }
+        final TestContentStream contentStream = new TestContentStream(new BytesArray(content.toString()));
+        final List<BulkRequest> bulkRequests = new ArrayList<>();
+        try (NodeClient verifyingClient = new NoOpNodeClient(this.getTestName()) {
+            @Override
+            public void bulk(BulkRequest request, ActionListener<BulkResponse> listener) {
+                bulkRequests.add(request);
+                final BulkItemResponse[] items = new BulkItemResponse[request.numberOfActions()];
+                for (int i = 0; i < items.length; i++) {
+                    final DocWriteRequest<?> item = request.requests().get(i);
+                    assertThat(item.index(), equalTo("my_index"));
+                    items[i] = new BulkItemResponse(i, item.opType(),
+                        new BulkItemResponse.Failure(item.index(), item.id(), new IllegalArgumentException(item.id())));
+                }
+                listener.onResponse(new BulkResponse(items, randomNonNegativeLong()));
+            }
+        }) {
+            final RestRequest request = new FakeRestRequest.Builder(xContentRegistry()).withPath("my_index/_bulk")
+                .withParams(new HashMap<>(Map.of("index", "my_index"))).withContentStream(contentStream, XContentType.JSON)
+                .withMethod(RestRequest.Method.POST).build();
+            final FakeRestChannel channel = new FakeRestChannel(request, true, 1);
+            new RestBulkAction(settings(Version.CURRENT).build(), new ByteSizeValue(randomIntBetween(1, 512)))
+                .handleRequest(request, channel, verifyingClient);
+
+            assertThat(channel.responses().get(), equalTo(1));
+            final Map<String, Object> response = XContentHelper.convertToMap(channel.capturedResponse().content(), false,
+                XContentType.JSON).v2();
+            final List<?> items = (List<?>) response.get("items");
+            assertThat(items, hasSize(numItems));
+            for (int i = 0; i < numItems; i++) {
+                final Map<?, ?> item = (Map<?, ?>) ((Map<?, ?>) items.get(i)).values().iterator().next();
+                assertThat(item.get("_id"), equalTo(Integer.toString(i)));
+            }
+            assertThat(bulkRequests.stream().mapToInt(BulkRequest::numberOfActions).sum(), equalTo(numItems));
+            assertTrue(contentStream.allChunksReleased());
+        }
+    }
+
+    public void testStreamedBulkWithItemInManyChunks() throws Exception {
+        final String source = "{\"field\":\"" + randomAlphaOfLength(between(10_000, 100_000)) + "\"}";
+        final String content = "{\"index\":{\"_id\":\"1\"}}\n" + source + "\n";
+        final TestContentStream contentStream = new TestContentStream(new BytesArray(content), between(1, 16));
+        final List<String> sources = new ArrayList<>();
+        try (NodeClient verifyingClient = new NoOpNodeClient(this.getTestName()) {
+            @Override
+            public void bulk(BulkRequest request, ActionListener<BulkResponse> listener) {
+                final BulkItemResponse[] items = new BulkItemResponse[request.numberOfActions()];
+                for (int i = 0; i < items.length; i++) {
+                    // the chunks that hold the source are released once the bulk request completed
+                    final IndexRequest item = (IndexRequest) request.requests().get(i);
+                    assertThat(item.id(), equalTo("1"));
+                    sources.add(item.source().utf8ToString());
+                    items[i] = new BulkItemResponse(i, item.opType(),
+                        new BulkItemResponse.Failure(item.index(), item.id(), new IllegalArgumentException(item.id())));
+                }
+                listener.onResponse(new BulkResponse(items, randomNonNegativeLong()));
+            }
+        }) {
+            final RestRequest request = new FakeRestRequest.Builder(xContentRegistry()).withPath("my_index/_bulk")
+                .withParams(new HashMap<>(Map.of("index", "my_index"))).withContentStream(contentStream, XContentType.JSON)
+                .withMethod(RestRequest.Method.POST).build();
+            final FakeRestChannel channel = new FakeRestChannel(request, true, 1);
+            new RestBulkAction(settings(Version.CURRENT).build(), new ByteSizeValue(randomIntBetween(1, 512)))
+                .handleRequest(request, channel, verifyingClient);
+
+            assertThat(channel.responses().get(), equalTo(1));
+            assertThat(sources, equalTo(List.of(source)));
+            assertTrue(contentStream.allChunksReleased());
+        }
+    }
+
+    public void testStreamedBulkWithMalformedItem() throws Exception {
+        final String content = "{\"index\":{\"_id\":\"1\"}}\n{\"field\":\"1\"}\n{\"index\":{\"_id\":\"2\"}}\n{\"field\":\"2\"}\n"
+            + "[\"index\"]\n{\"field\":\"3\"}\n{\"index\":{\"_id\":\"4\"}}\n{\"field\":\"4\"}\n";
+        final TestContentStream contentStream = new TestContentStream(new BytesArray(content));
+        try (NodeClient verifyingClient = new NoOpNodeClient(this.getTestName()) {
+            @Override
+            public void bulk(BulkRequest request, ActionListener<BulkResponse> listener) {
+                // the items that follow the malformed one are never sent
+                for (DocWriteRequest<?> item : request.requests()) {
+                    assertThat(item.id(), either(equalTo("1")).or(equalTo("2")));
+                }
+                listener.onResponse(new BulkResponse(new BulkItemResponse[0], 0L));
+            }
+        }) {
+            final RestRequest request = new FakeRestRequest.Builder(xContentRegistry()).withPath("my_index/_bulk")
+                .withParams(new HashMap<>(Map.of("index", "my_index"))).withContentStream(contentStream, XContentType.JSON)
+                .withMethod(RestRequest.Method.POST).build();
+            final FakeRestChannel channel = new FakeRestChannel(request, true, 1);
+            new RestBulkAction(settings(Version.CURRENT).build(), new ByteSizeValue(1)).handleRequest(request, channel, verifyingClient);
+
+            assertThat(channel.responses().get(), equalTo(0));
+            assertThat(channel.errors().get(), equalTo(1));
+            assertThat(channel.capturedResponse().status(), equalTo(RestStatus.BAD_REQUEST));
+            assertTrue(contentStream.allChunksReleased());
+        }
+    }
+
+    /**
+     * A content stream that holds the content of a request in random chunks from the start.
+     */
+    private static class TestContentStream extends HttpContentStream {
+
+        private final AtomicInteger unreleasedChunks = new AtomicInteger();
+
+        TestContentStream(BytesReference content) {
+            this(content, 128);
+        }
+
+        TestContentStream(BytesReference content, int maxChunkSize) {
+            int from = 0;
+            do {
+                final int length = randomIntBetween(0, Math.min(content.length() - from, maxChunkSize));
+                unreleasedChunks.incrementAndGet();
+                onContent(new ReleasableBytesReference(content.slice(from, length), unreleasedChunks::decrementAndGet),
+                    from + length == content.length());
+                from += length;
+            } while (from < content.length());
+        }
+
+        @Override
+        protected void pauseReads() {
+        }
+
+        @Override
+        protected void resumeReads() {
+        }
+
+        boolean allChunksReleased() {
+            return unreleasedChunks.get() == 0;
+        }
+    }
 }
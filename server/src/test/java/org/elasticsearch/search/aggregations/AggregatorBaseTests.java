@@ -11,6 +11,7 @@ package org.elasticsearch.search.aggregations;
 import org.apache.lucene.document.LongPoint;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.Term;
+import org.apache.lucene.search.LeafCollector;
 import org.apache.lucene.search.MatchAllDocsQuery;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.TermQuery;
@@ -25,12 +26,14 @@ import org.elasticsearch.search.aggregations.support.ValuesSourceConfig;
 
 import java.io.IOException;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
 
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -155,4 +158,54 @@ public class AggregatorBaseTests extends MapperServiceTestCase {
             );
         });
     }
+
+    public void testBlockCollection() throws IOException {
+        List<Integer> collected = new ArrayList<>();
+        List<Integer> blockSizes = new ArrayList<>();
+        Aggregator aggregator = new BogusAggregator(context(null), null) {
+            @Override
+            protected LeafBucketCollector getLeafCollector(LeafReaderContext ctx, LeafBucketCollector sub) {
+                return new LeafBucketCollector() {
+                    @Override
+                    public void collect(int doc, long owningBucketOrd) {
+                        throw new AssertionError("documents should be collected in blocks");
+                    }
+
+                    @Override
+                    public void collect(int[] docs, int count, long owningBucketOrd) {
+                        assertThat(owningBucketOrd, equalTo(0L));
+                        blockSizes.add(count);
+                        for (int i = 0; i < count; i++) {
+                            collected.add(docs[i]);
+                        }
+                    }
+
+                    @Override
+                    public boolean collectsBlocks() {
+                        return true;
+                    }
+                };
+            }
+        };
+        aggregator.preCollection();
+        List<Integer> expected = new ArrayList<>();
+        int segments = between(1, 5);
+        for (int segment = 0; segment < segments; segment++) {
+            LeafCollector leafCollector = aggregator.getLeafCollector(null);
+            // the documents of the previous segment are collected before moving on to the next one
+            assertThat(collected, equalTo(expected));
+            int docs = between(0, 3 * LeafBucketCollector.BLOCK_SIZE);
+            for (int doc = 0; doc < docs; doc++) {
+                leafCollector.collect(doc);
+                expected.add(doc);
+            }
+            // only full blocks are collected until the segment is done
+            assertThat(collected.size(), equalTo(expected.size() - docs % LeafBucketCollector.BLOCK_SIZE));
+        }
+        aggregator.postCollection();
+        assertThat(collected, equalTo(expected));
+        for (int blockSize : blockSizes) {
+            assertThat(blockSize, lessThanOrEqualTo(LeafBucketCollector.BLOCK_SIZE));
+        }
+    }
 }
@@ -11,6 +11,7 @@ package org.elasticsearch.search.aggregations.bucket.histogram;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.SortedNumericDocValuesField;
 import org.apache.lucene.document.SortedSetDocValuesField;
+import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.IndexableField;
 import org.apache.lucene.index.RandomIndexWriter;
@@ -24,9 +25,12 @@ import org.elasticsearch.index.mapper.DateFieldMapper;
 import org.elasticsearch.index.mapper.MappedFieldType;
 import org.elasticsearch.index.mapper.NumberFieldMapper;
 import org.elasticsearch.search.aggregations.AggregationBuilder;
+import org.elasticsearch.search.aggregations.AggregatorFactories;
 import org.elasticsearch.search.aggregations.AggregatorTestCase;
+import org.elasticsearch.search.aggregations.bucket.terms.TermsAggregationBuilder;
 import org.elasticsearch.search.aggregations.metrics.InternalMin;
 import org.elasticsearch.search.aggregations.metrics.MinAggregationBuilder;
+import org.elasticsearch.search.aggregations.support.AggregationContext;
 import org.elasticsearch.search.aggregations.support.AggregationInspectionHelper;
 
 import java.io.IOException;
@@ -470,4 +474,23 @@ public class NumericHistogramAggregatorTests extends AggregatorTestCase {
         };
         testCase(request, new MatchAllDocsQuery(), buildIndex, verify, longField("outer"), longField("inner"), longField("n"));
     }
+
+    public void testSupportsConcurrentCollection() throws IOException {
+        try (Directory directory = newDirectory()) {
+            new RandomIndexWriter(random(), directory).close();
+            try (IndexReader reader = DirectoryReader.open(directory)) {
+                AggregationContext context = createAggregationContext(newIndexSearcher(reader), new MatchAllDocsQuery(),
+                    longField("field"), keywordField("keyword"));
+                assertTrue(supportsConcurrentCollection(context, new HistogramAggregationBuilder("histo").field("field").interval(5)
+                    .subAggregation(new MinAggregationBuilder("min").field("field"))));
+                assertTrue(supportsConcurrentCollection(context, new HistogramAggregationBuilder("histo").field("unmapped").interval(5)));
+                assertFalse(supportsConcurrentCollection(context, new HistogramAggregationBuilder("histo").field("field").interval(5)
+                    .subAggregation(new TermsAggregationBuilder("terms").field("keyword"))));
+            }
+        }
+    }
+
+    private static boolean supportsConcurrentCollection(AggregationContext context, AggregationBuilder builder) throws IOException {
+        return AggregatorFactories.builder().addAggregator(builder).build(context, null).supportsConcurrentCollection();
+    }
 }
@@ -27,6 +27,7 @@ import org.apache.lucene.index.Term;
 import org.apache.lucene.index.TermsEnum;
 import org.apache.lucene.search.BoostQuery;
 import org.apache.lucene.search.BulkScorer;
+import org.apache.lucene.search.Collector;
 import org.apache.lucene.search.ConstantScoreQuery;
 import org.apache.lucene.search.DocIdSetIterator;
 import org.apache.lucene.search.Explanation;
@@ -39,6 +40,7 @@ import org.apache.lucene.search.ScoreMode;
 import org.apache.lucene.search.Scorer;
 import org.apache.lucene.search.TermQuery;
 import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TotalHitCountCollector;
 import org.apache.lucene.search.Weight;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.util.Accountable;
@@ -59,19 +61,31 @@ import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.search.aggregations.LeafBucketCollector;
 import org.elasticsearch.test.ESTestCase;
 import org.elasticsearch.test.IndexSettingsModule;
+import org.elasticsearch.threadpool.TestThreadPool;
+import org.elasticsearch.threadpool.ThreadPool;
 
 import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import static org.elasticsearch.search.internal.ContextIndexSearcher.intersectScorerAndBitSet;
 import static org.elasticsearch.search.internal.ExitableDirectoryReader.ExitableLeafReader;
 import static org.elasticsearch.search.internal.ExitableDirectoryReader.ExitablePointValues;
 import static org.elasticsearch.search.internal.ExitableDirectoryReader.ExitableTerms;
+import static org.hamcrest.Matchers.both;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 
 public class ContextIndexSearcherTests extends ESTestCase {
     public void testIntersectScorerAndRoleBits() throws Exception {
@@ -175,6 +189,107 @@ public class ContextIndexSearcherTests extends ESTestCase {
         doTestContextIndexSearcher(false, true);
     }
 
+    public void testComputeSlices() throws IOException {
+        try (Directory dir = newDirectory();
+             IndexWriter w = new IndexWriter(dir, newIndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE))) {
+            final int numSegments = randomIntBetween(1, 10);
+            for (int i = 0; i < numSegments; i++) {
+                final int numDocs = randomIntBetween(1, 50);
+                for (int j = 0; j < numDocs; j++) {
+                    w.addDocument(new Document());
+                }
+                w.commit();
+            }
+            try (DirectoryReader reader = DirectoryReader.open(w)) {
+                ContextIndexSearcher searcher = new ContextIndexSearcher(reader, IndexSearcher.getDefaultSimilarity(),
+                    IndexSearcher.getDefaultQueryCache(), IndexSearcher.getDefaultQueryCachingPolicy(), randomBoolean());
+                final int maxSlices = randomIntBetween(1, 8);
+                final int minDocsPerSlice = randomIntBetween(1, 100);
+                final int numSlices = Math.min(Math.min(maxSlices, reader.leaves().size()), reader.maxDoc() / minDocsPerSlice);
+                final IndexSearcher.LeafSlice[] slices = searcher.computeSlices(maxSlices, minDocsPerSlice);
+                if (numSlices < 2) {
+                    assertNull(slices);
+                } else {
+                    assertNotNull(slices);
+                    assertThat(slices.length, both(greaterThanOrEqualTo(2)).and(lessThanOrEqualTo(numSlices)));
+                    List<LeafReaderContext> leaves = new ArrayList<>();
+                    for (IndexSearcher.LeafSlice slice : slices) {
+                        assertThat(slice.leaves.length, greaterThan(0));
+                        leaves.addAll(Arrays.asList(slice.leaves));
+                    }
+                    assertThat(leaves, equalTo(searcher.getIndexReader().leaves()));
+                }
+            }
+        }
+    }
+
+    public void testSearchSlices() throws IOException {
+        try (Directory dir = newDirectory();
+             IndexWriter w = new IndexWriter(dir, newIndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE))) {
+            final int numSegments = randomIntBetween(2, 10);
+            for (int i = 0; i < numSegments; i++) {
+                final int numDocs = randomIntBetween(1, 50);
+                for (int j = 0; j < numDocs; j++) {
+                    Document doc = new Document();
+                    doc.add(new StringField("foo", randomFrom("bar", "baz"), Field.Store.NO));
+                    w.addDocument(doc);
+                }
+                w.commit();
+            }
+            final ThreadPool threadPool = new TestThreadPool(getTestName());
+            try (DirectoryReader reader = DirectoryReader.open(w)) {
+                ContextIndexSearcher searcher = new ContextIndexSearcher(reader, IndexSearcher.getDefaultSimilarity(),
+                    IndexSearcher.getDefaultQueryCache(), IndexSearcher.getDefaultQueryCachingPolicy(), randomBoolean());
+                final IndexSearcher.LeafSlice[] slices = searcher.computeSlices(randomIntBetween(2, numSegments), 1);
+                assertNotNull(slices);
+                final Query query = new TermQuery(new Term("foo", "bar"));
+                final Weight weight = searcher.createWeight(searcher.rewrite(query), ScoreMode.COMPLETE_NO_SCORES, 1f);
+                final Executor executor;
+                switch (randomInt(2)) {
+                    case 0:
+                        executor = threadPool.executor(ThreadPool.Names.SEARCH_WORKER);
+                        break;
+                    case 1:
+                        executor = Runnable::run;
+                        break;
+                    case 2:
+                        executor = r -> {
+                            throw new RejectedExecutionException();
+                        };
+                        break;
+                    default:
+                        throw new AssertionError();
+                }
+
+                final List<TotalHitCountCollector> collectors = new ArrayList<>();
+                for (int i = 0; i < slices.length; i++) {
+                    collectors.add(new TotalHitCountCollector());
+                }
+                searcher.search(slices, weight, collectors, executor);
+                int totalHits = 0;
+                for (TotalHitCountCollector collector : collectors) {
+                    totalHits += collector.getTotalHits();
+                }
+                assertThat(totalHits, equalTo(searcher.count(query)));
+
+                final int failingSlice = randomIntBetween(0, slices.length - 1);
+                final List<Collector> failingCollectors = new ArrayList<>();
+                for (int i = 0; i < slices.length; i++) {
+                    failingCollectors.add(i == failingSlice ? new TotalHitCountCollector() {
+                        @Override
+                        protected void doSetNextReader(LeafReaderContext context) throws IOException {
+                            throw new IOException("failing slice");
+                        }
+                    } : new TotalHitCountCollector());
+                }
+                IOException e = expectThrows(IOException.class, () -> searcher.search(slices, weight, failingCollectors, executor));
+                assertThat(e.getMessage(), equalTo("failing slice"));
+            } finally {
+                ThreadPool.terminate(threadPool, 10, TimeUnit.SECONDS);
+            }
+        }
+    }
+
     public void doTestContextIndexSearcher(boolean sparse, boolean deletions) throws IOException {
         Directory dir = newDirectory();
         IndexWriter w = new IndexWriter(dir, newIndexWriterConfig(null));
@@ -67,6 +67,9 @@ import org.apache.lucene.util.bkd.BKDConfig;
 import org.apache.lucene.util.bkd.BKDReader;
 import org.apache.lucene.util.bkd.BKDWriter;
 import org.elasticsearch.action.search.SearchShardTask;
+import org.elasticsearch.common.lucene.search.TopDocsAndMaxScore;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.IndexSettings;
 import org.elasticsearch.index.mapper.DateFieldMapper;
 import org.elasticsearch.index.mapper.MappedFieldType;
 import org.elasticsearch.index.mapper.NumberFieldMapper;
@@ -82,16 +85,20 @@ import org.elasticsearch.search.internal.SearchContext;
 import org.elasticsearch.search.sort.SortAndFormats;
 import org.elasticsearch.tasks.TaskCancelledException;
 import org.elasticsearch.test.TestSearchContext;
+import org.elasticsearch.threadpool.ThreadPool;
 
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.elasticsearch.search.query.QueryPhase.pointsHaveDuplicateData;
 import static org.elasticsearch.search.query.TopDocsCollectorContext.hasInfMaxScore;
 import static org.hamcrest.Matchers.anyOf;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.lessThanOrEqualTo;
@@ -115,6 +122,12 @@ public class QueryPhaseTests extends IndexShardTestCase {
         closeShards(indexShard);
     }
 
+    @Override
+    public Settings threadPoolSettings() {
+        // the number of allocated processors may not allow searching segments concurrently
+        return Settings.builder().put("thread_pool." + ThreadPool.Names.SEARCH_WORKER + ".size", randomIntBetween(2, 4)).build();
+    }
+
     private void countTestCase(Query query, IndexReader reader, boolean shouldCollectSearch, boolean shouldCollectCount) throws Exception {
         ContextIndexSearcher searcher = shouldCollectSearch ? newContextSearcher(reader) :
             newEarlyTerminationContextSearcher(reader, 0);
@@ -916,6 +929,104 @@ public class QueryPhaseTests extends IndexShardTestCase {
         dir.close();
     }
 
+    public void testConcurrentSearch() throws Exception {
+        Directory dir = newDirectory();
+        IndexWriter w = new IndexWriter(dir, newIndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE));
+        final int numSegments = randomIntBetween(2, 8);
+        for (int i = 0; i < numSegments; i++) {
+            final int numDocs = randomIntBetween(1, 100);
+            for (int j = 0; j < numDocs; j++) {
+                Document doc = new Document();
+                doc.add(new TextField("foo", String.join(" ", randomList(1, 5, () -> randomFrom("a", "b", "c"))), Store.NO));
+                doc.add(new NumericDocValuesField("rank", randomIntBetween(0, 20)));
+                if (j > 0 && rarely()) {
+                    doc.add(new StringField("delete", "yes", Store.NO));
+                }
+                w.addDocument(doc);
+            }
+            w.commit();
+        }
+        w.deleteDocuments(new Term("delete", "yes"));
+        IndexReader reader = DirectoryReader.open(w);
+        w.close();
+        IndexShard concurrentShard = newShard(true, Settings.builder()
+            .put(IndexSettings.INDEX_SEARCH_CONCURRENT_ENABLED_SETTING.getKey(), true)
+            .put(IndexSettings.INDEX_SEARCH_CONCURRENT_MIN_DOCS_PER_SLICE_SETTING.getKey(), 1)
+            .build());
+        try {
+            final AtomicInteger concurrentSearches = new AtomicInteger();
+            final ContextIndexSearcher concurrentSearcher = new ContextIndexSearcher(reader, IndexSearcher.getDefaultSimilarity(),
+                IndexSearcher.getDefaultQueryCache(), IndexSearcher.getDefaultQueryCachingPolicy(), true) {
+                @Override
+                public void search(LeafSlice[] slices, Weight weight, List<? extends Collector> collectors,
+                                   Executor executor) throws IOException {
+                    concurrentSearches.incrementAndGet();
+                    super.search(slices, weight, collectors, executor);
+                }
+            };
+            final int iters = randomIntBetween(10, 20);
+            for (int iter = 0; iter < iters; iter++) {
+                final Query query = randomFrom(
+                    new TermQuery(new Term("foo", "a")),
+                    new MatchAllDocsQuery(),
+                    new BooleanQuery.Builder().add(new TermQuery(new Term("foo", "a")), Occur.SHOULD)
+                        .add(new TermQuery(new Term("foo", "b")), Occur.SHOULD).build(),
+                    new BooleanQuery.Builder().add(new TermQuery(new Term("foo", "b")), Occur.MUST)
+                        .add(new TermQuery(new Term("foo", "c")), Occur.SHOULD).build());
+                final SortAndFormats sort = randomBoolean() ? null : new SortAndFormats(
+                    new Sort(new SortField("rank", SortField.Type.INT, randomBoolean())), new DocValueFormat[] { DocValueFormat.RAW });
+                final boolean trackScores = randomBoolean();
+                // make sure that at least one iteration searches the segments concurrently
+                final int size = iter == 0 ? 10 : randomIntBetween(0, 20);
+                final int from = randomIntBetween(0, 5);
+                final int trackTotalHitsUpTo = iter == 0 ? SearchContext.TRACK_TOTAL_HITS_ACCURATE : randomFrom(
+                    SearchContext.TRACK_TOTAL_HITS_ACCURATE, SearchContext.TRACK_TOTAL_HITS_DISABLED, randomIntBetween(1, 50));
+
+                final List<TestSearchContext> contexts = new ArrayList<>();
+                for (TestSearchContext context : List.of(
+                        new TestSearchContext(null, indexShard, newContextSearcher(reader)),
+                        new TestSearchContext(null, concurrentShard, concurrentSearcher))) {
+                    context.parsedQuery(new ParsedQuery(query));
+                    context.sort(sort);
+                    context.trackScores(trackScores);
+                    context.setSize(size);
+                    context.from(from);
+                    context.trackTotalHitsUpTo(trackTotalHitsUpTo);
+                    context.setTask(new SearchShardTask(123L, "", "", "", null, Collections.emptyMap()));
+                    QueryPhase.executeInternal(context);
+                    contexts.add(context);
+                }
+
+                final TopDocsAndMaxScore expected = contexts.get(0).queryResult().topDocs();
+                final TopDocsAndMaxScore actual = contexts.get(1).queryResult().topDocs();
+                if (trackTotalHitsUpTo == SearchContext.TRACK_TOTAL_HITS_ACCURATE
+                        || trackTotalHitsUpTo == SearchContext.TRACK_TOTAL_HITS_DISABLED) {
+                    assertThat(actual.topDocs.totalHits, equalTo(expected.topDocs.totalHits));
+                } else {
+                    assertThat(Math.min(actual.topDocs.totalHits.value, trackTotalHitsUpTo),
+                        equalTo(Math.min(expected.topDocs.totalHits.value, trackTotalHitsUpTo)));
+                }
+                assertEquals(expected.maxScore, actual.maxScore, 0f);
+                assertThat(actual.topDocs.scoreDocs.length, equalTo(expected.topDocs.scoreDocs.length));
+                for (int i = 0; i < expected.topDocs.scoreDocs.length; i++) {
+                    ScoreDoc expectedDoc = expected.topDocs.scoreDocs[i];
+                    ScoreDoc actualDoc = actual.topDocs.scoreDocs[i];
+                    assertThat(actualDoc.doc, equalTo(expectedDoc.doc));
+                    assertEquals(expectedDoc.score, actualDoc.score, 0f);
+                    assertThat(actualDoc.shardIndex, equalTo(-1));
+                    if (sort != null) {
+                        assertArrayEquals(((FieldDoc) expectedDoc).fields, ((FieldDoc) actualDoc).fields);
+                    }
+                }
+            }
+            assertThat(concurrentSearches.get(), greaterThan(0));
+        } finally {
+            closeShards(concurrentShard);
+            reader.close();
+            dir.close();
+        }
+    }
+
     public void testCancellationDuringPreprocess() throws IOException {
         try (Directory dir = newDirectory();
              RandomIndexWriter w = new RandomIndexWriter(random(), dir, newIndexWriterConfig())) {
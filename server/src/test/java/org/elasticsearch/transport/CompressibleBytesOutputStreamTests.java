@@ -23,7 +23,7 @@ public class CompressibleBytesOutputStreamTests extends ESTestCase {
 
     public void testStreamWithoutCompression() throws IOException {
         BytesStream bStream = new ZeroOutOnCloseStream();
-        CompressibleBytesOutputStream stream = new CompressibleBytesOutputStream(bStream, false);
+        CompressibleBytesOutputStream stream = new CompressibleBytesOutputStream(bStream, null);
 
         byte[] expectedBytes = randomBytes(randomInt(30));
         stream.write(expectedBytes);
@@ -51,7 +51,8 @@ public class CompressibleBytesOutputStreamTests extends ESTestCase {
 
     public void testStreamWithCompression() throws IOException {
         BytesStream bStream = new ZeroOutOnCloseStream();
-        CompressibleBytesOutputStream stream = new CompressibleBytesOutputStream(bStream, true);
+        Compression.Scheme scheme = randomFrom(Compression.Scheme.values());
+        CompressibleBytesOutputStream stream = new CompressibleBytesOutputStream(bStream, scheme);
 
         byte[] expectedBytes = randomBytes(randomInt(30));
         stream.write(expectedBytes);
@@ -59,9 +60,10 @@ public class CompressibleBytesOutputStreamTests extends ESTestCase {
         BytesReference bytesRef = stream.materializeBytes();
         stream.close();
 
-        assertTrue(CompressorFactory.COMPRESSOR.isCompressed(bytesRef));
+        assertTrue(scheme.compressor().isCompressed(bytesRef));
+        assertSame(scheme, Compression.Scheme.detect(bytesRef));
 
-        StreamInput streamInput = new InputStreamStreamInput(CompressorFactory.COMPRESSOR.threadLocalInputStream(bytesRef.streamInput()));
+        StreamInput streamInput = new InputStreamStreamInput(scheme.compressor().threadLocalInputStream(bytesRef.streamInput()));
         byte[] actualBytes = new byte[expectedBytes.length];
         streamInput.readBytes(actualBytes, 0, expectedBytes.length);
 
@@ -78,17 +80,22 @@ public class CompressibleBytesOutputStreamTests extends ESTestCase {
 
     public void testCompressionWithCallingMaterializeFails() throws IOException {
         BytesStream bStream = new ZeroOutOnCloseStream();
-        CompressibleBytesOutputStream stream = new CompressibleBytesOutputStream(bStream, true);
+        Compression.Scheme scheme = randomFrom(Compression.Scheme.values());
+        CompressibleBytesOutputStream stream = new CompressibleBytesOutputStream(bStream, scheme);
 
         byte[] expectedBytes = randomBytes(between(1, 30));
         stream.write(expectedBytes);
 
 
         StreamInput streamInput =
-                new InputStreamStreamInput(CompressorFactory.COMPRESSOR.threadLocalInputStream(bStream.bytes().streamInput()));
+                new InputStreamStreamInput(scheme.compressor().threadLocalInputStream(bStream.bytes().streamInput()));
         byte[] actualBytes = new byte[expectedBytes.length];
         EOFException e = expectThrows(EOFException.class, () -> streamInput.readBytes(actualBytes, 0, expectedBytes.length));
-        assertEquals("Unexpected end of ZLIB input stream", e.getMessage());
+        if (scheme == Compression.Scheme.DEFLATE) {
+            assertEquals("Unexpected end of ZLIB input stream", e.getMessage());
+        } else {
+            assertEquals("unexpected end of LZ4 stream", e.getMessage());
+        }
 
         stream.close();
     }
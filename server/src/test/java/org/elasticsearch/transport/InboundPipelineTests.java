@@ -54,15 +54,15 @@ public class InboundPipelineTests extends ESTestCase {
                 final Version version = header.getVersion();
                 final boolean isRequest = header.isRequest();
                 final long requestId = header.getRequestId();
-                final boolean isCompressed = header.isCompressed();
+                final Compression.Scheme compressionScheme = header.getCompressionScheme();
                 if (m.isShortCircuit()) {
-                    actualData = new MessageData(version, requestId, isRequest, isCompressed, header.getActionName(), null);
+                    actualData = new MessageData(version, requestId, isRequest, compressionScheme, header.getActionName(), null);
                 } else if (isRequest) {
                     final TestRequest request = new TestRequest(m.openOrGetStreamInput());
-                    actualData = new MessageData(version, requestId, isRequest, isCompressed, header.getActionName(), request.value);
+                    actualData = new MessageData(version, requestId, isRequest, compressionScheme, header.getActionName(), request.value);
                 } else {
                     final TestResponse response = new TestResponse(m.openOrGetStreamInput());
-                    actualData = new MessageData(version, requestId, isRequest, isCompressed, null, response.value);
+                    actualData = new MessageData(version, requestId, isRequest, compressionScheme, null, response.value);
                 }
                 actual.add(new Tuple<>(actualData, m.getException()));
             } catch (IOException e) {
@@ -95,7 +95,10 @@ public class InboundPipelineTests extends ESTestCase {
                     final Version version = randomFrom(Version.CURRENT, Version.CURRENT.minimumCompatibilityVersion());
                     final String value = randomAlphaOfLength(randomIntBetween(10, 200));
                     final boolean isRequest = randomBoolean();
-                    final boolean isCompressed = randomBoolean();
+                    final Compression.Scheme compressionScheme = randomBoolean() ? randomFrom(Compression.Scheme.values()) : null;
+                    // requests are compressed with a scheme that the remote node supports
+                    final Compression.Scheme requestCompressionScheme = compressionScheme == null ? null
+                        : compressionScheme.forVersion(version);
                     final long requestId = totalMessages++;
 
                     final MessageData messageData;
@@ -104,19 +107,19 @@ public class InboundPipelineTests extends ESTestCase {
                     OutboundMessage message;
                     if (isRequest) {
                         if (rarely()) {
-                            messageData = new MessageData(version, requestId, true, isCompressed, breakThisAction, null);
+                            messageData = new MessageData(version, requestId, true, requestCompressionScheme, breakThisAction, null);
                             message = new OutboundMessage.Request(threadContext, new TestRequest(value),
-                                version, breakThisAction, requestId, false, isCompressed);
+                                version, breakThisAction, requestId, false, compressionScheme);
                             expectedExceptionClass = new CircuitBreakingException("", CircuitBreaker.Durability.PERMANENT);
                         } else {
-                            messageData = new MessageData(version, requestId, true, isCompressed, actionName, value);
+                            messageData = new MessageData(version, requestId, true, requestCompressionScheme, actionName, value);
                             message = new OutboundMessage.Request(threadContext, new TestRequest(value),
-                                version, actionName, requestId, false, isCompressed);
+                                version, actionName, requestId, false, compressionScheme);
                         }
                     } else {
-                        messageData = new MessageData(version, requestId, false, isCompressed, null, value);
+                        messageData = new MessageData(version, requestId, false, compressionScheme, null, value);
                         message = new OutboundMessage.Response(threadContext, new TestResponse(value),
-                            version, requestId, false, isCompressed);
+                            version, requestId, false, compressionScheme);
                     }
 
                     expected.add(new Tuple<>(messageData, expectedExceptionClass));
@@ -146,7 +149,7 @@ public class InboundPipelineTests extends ESTestCase {
                     final MessageData actualMessageData = actualTuple.v1();
                     assertEquals(expectedMessageData.requestId, actualMessageData.requestId);
                     assertEquals(expectedMessageData.isRequest, actualMessageData.isRequest);
-                    assertEquals(expectedMessageData.isCompressed, actualMessageData.isCompressed);
+                    assertEquals(expectedMessageData.compressionScheme, actualMessageData.compressionScheme);
                     assertEquals(expectedMessageData.actionName, actualMessageData.actionName);
                     assertEquals(expectedMessageData.value, actualMessageData.value);
                     if (expectedTuple.v2() != null) {
@@ -184,10 +187,10 @@ public class InboundPipelineTests extends ESTestCase {
             OutboundMessage message;
             if (isRequest) {
                 message = new OutboundMessage.Request(threadContext, new TestRequest(value),
-                    invalidVersion, actionName, requestId, false, false);
+                    invalidVersion, actionName, requestId, false, null);
             } else {
                 message = new OutboundMessage.Response(threadContext, new TestResponse(value),
-                    invalidVersion, requestId, false, false);
+                    invalidVersion, requestId, false, null);
             }
 
             final BytesReference reference = message.serialize(streamOutput);
@@ -221,10 +224,10 @@ public class InboundPipelineTests extends ESTestCase {
             OutboundMessage message;
             if (isRequest) {
                 message = new OutboundMessage.Request(threadContext, new TestRequest(value),
-                    version, actionName, requestId, false, false);
+                    version, actionName, requestId, false, null);
             } else {
                 message = new OutboundMessage.Response(threadContext, new TestResponse(value),
-                    version, requestId, false, false);
+                    version, requestId, false, null);
             }
 
             final BytesReference reference = message.serialize(streamOutput);
@@ -257,15 +260,16 @@ public class InboundPipelineTests extends ESTestCase {
         private final Version version;
         private final long requestId;
         private final boolean isRequest;
-        private final boolean isCompressed;
+        private final Compression.Scheme compressionScheme;
         private final String value;
         private final String actionName;
 
-        private MessageData(Version version, long requestId, boolean isRequest, boolean isCompressed, String actionName, String value) {
+        private MessageData(Version version, long requestId, boolean isRequest, Compression.Scheme compressionScheme, String actionName,
+                            String value) {
             this.version = version;
             this.requestId = requestId;
             this.isRequest = isRequest;
-            this.isCompressed = isCompressed;
+            this.compressionScheme = compressionScheme;
             this.actionName = actionName;
             this.value = value;
         }
@@ -278,7 +282,7 @@ public class InboundPipelineTests extends ESTestCase {
             MessageData that = (MessageData) o;
             return requestId == that.requestId &&
                 isRequest == that.isRequest &&
-                isCompressed == that.isCompressed &&
+                compressionScheme == that.compressionScheme &&
                 Objects.equals(version, that.version) &&
                 Objects.equals(value, that.value) &&
                 Objects.equals(actionName, that.actionName);
@@ -286,7 +290,7 @@ public class InboundPipelineTests extends ESTestCase {
 
         @Override
         public int hashCode() {
-            return Objects.hash(version, requestId, isRequest, isCompressed, value, actionName);
+            return Objects.hash(version, requestId, isRequest, compressionScheme, value, actionName);
         }
     }
 }
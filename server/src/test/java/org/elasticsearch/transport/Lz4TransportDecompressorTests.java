@@ -0,0 +1,182 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.transport;
+
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.bytes.CompositeBytesReference;
+import org.elasticsearch.common.bytes.ReleasableBytesReference;
+import org.elasticsearch.common.io.Streams;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.OutputStreamStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.lease.Releasables;
+import org.elasticsearch.common.util.PageCacheRecycler;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.startsWith;
+
+public class Lz4TransportDecompressorTests extends ESTestCase {
+
+    public void testSimpleCompression() throws IOException {
+        try (BytesStreamOutput output = new BytesStreamOutput()) {
+            byte randomByte = randomByte();
+            try (OutputStream lz4Stream = Compression.Scheme.LZ4.compressor().threadLocalOutputStream(Streams.flushOnCloseStream(output))) {
+                lz4Stream.write(randomByte);
+            }
+
+            BytesReference bytes = output.bytes();
+
+            TransportDecompressor decompressor = new Lz4TransportDecompressor(PageCacheRecycler.NON_RECYCLING_INSTANCE);
+            int bytesConsumed = decompressor.decompress(bytes);
+            assertEquals(bytes.length(), bytesConsumed);
+            assertTrue(decompressor.isEOS());
+            ReleasableBytesReference releasableBytesReference = decompressor.pollDecompressedPage();
+            assertEquals(randomByte, releasableBytesReference.get(0));
+            releasableBytesReference.close();
+
+        }
+    }
+
+    public void testMultiPageCompression() throws IOException {
+        try (BytesStreamOutput output = new BytesStreamOutput()) {
+            try (StreamOutput lz4Stream = new OutputStreamStreamOutput(Compression.Scheme.LZ4.compressor().threadLocalOutputStream(
+                    Streams.flushOnCloseStream(output)))) {
+                for (int i = 0; i < 10000; ++i) {
+                    lz4Stream.writeInt(i);
+                }
+            }
+
+            BytesReference bytes = output.bytes();
+
+            TransportDecompressor decompressor = new Lz4TransportDecompressor(PageCacheRecycler.NON_RECYCLING_INSTANCE);
+            int bytesConsumed = decompressor.decompress(bytes);
+            assertEquals(bytes.length(), bytesConsumed);
+            assertTrue(decompressor.isEOS());
+            ReleasableBytesReference reference1 = decompressor.pollDecompressedPage();
+            ReleasableBytesReference reference2 = decompressor.pollDecompressedPage();
+            ReleasableBytesReference reference3 = decompressor.pollDecompressedPage();
+            assertNull(decompressor.pollDecompressedPage());
+            BytesReference composite = CompositeBytesReference.of(reference1, reference2, reference3);
+            assertEquals(4 * 10000, composite.length());
+            StreamInput streamInput = composite.streamInput();
+            for (int i = 0; i < 10000; ++i) {
+                assertEquals(i, streamInput.readInt());
+            }
+            Releasables.close(reference1, reference2, reference3);
+        }
+    }
+
+    public void testIncrementalMultiPageCompression() throws IOException {
+        try (BytesStreamOutput output = new BytesStreamOutput()) {
+            try (StreamOutput lz4Stream = new OutputStreamStreamOutput(
+                    Compression.Scheme.LZ4.compressor().threadLocalOutputStream(Streams.flushOnCloseStream(output)))) {
+                for (int i = 0; i < 10000; ++i) {
+                    lz4Stream.writeInt(i);
+                }
+            }
+
+            BytesReference bytes = output.bytes();
+
+            TransportDecompressor decompressor = new Lz4TransportDecompressor(PageCacheRecycler.NON_RECYCLING_INSTANCE);
+
+            int split1 = (int) (bytes.length() * 0.3);
+            int split2 = (int) (bytes.length() * 0.65);
+            BytesReference inbound1 = bytes.slice(0, split1);
+            BytesReference inbound2 = bytes.slice(split1, split2 - split1);
+            BytesReference inbound3 = bytes.slice(split2, bytes.length() - split2);
+
+            int bytesConsumed1 = decompressor.decompress(inbound1);
+            assertEquals(inbound1.length(), bytesConsumed1);
+            assertFalse(decompressor.isEOS());
+            int bytesConsumed2 = decompressor.decompress(inbound2);
+            assertEquals(inbound2.length(), bytesConsumed2);
+            assertFalse(decompressor.isEOS());
+            int bytesConsumed3 = decompressor.decompress(inbound3);
+            assertEquals(inbound3.length(), bytesConsumed3);
+            assertTrue(decompressor.isEOS());
+            ReleasableBytesReference reference1 = decompressor.pollDecompressedPage();
+            ReleasableBytesReference reference2 = decompressor.pollDecompressedPage();
+            ReleasableBytesReference reference3 = decompressor.pollDecompressedPage();
+            assertNull(decompressor.pollDecompressedPage());
+            BytesReference composite = CompositeBytesReference.of(reference1, reference2, reference3);
+            assertEquals(4 * 10000, composite.length());
+            StreamInput streamInput = composite.streamInput();
+            for (int i = 0; i < 10000; ++i) {
+                assertEquals(i, streamInput.readInt());
+            }
+            Releasables.close(reference1, reference2, reference3);
+
+        }
+    }
+
+    public void testRandomSplits() throws IOException {
+        try (BytesStreamOutput output = new BytesStreamOutput()) {
+            final int numInts = randomIntBetween(0, 20000);
+            try (StreamOutput lz4Stream = new OutputStreamStreamOutput(
+                    Compression.Scheme.LZ4.compressor().threadLocalOutputStream(Streams.flushOnCloseStream(output)))) {
+                for (int i = 0; i < numInts; ++i) {
+                    lz4Stream.writeInt(randomBoolean() ? i : randomInt());
+                }
+            }
+
+            BytesReference bytes = output.bytes();
+            TransportDecompressor decompressor = TransportDecompressor.getDecompressor(PageCacheRecycler.NON_RECYCLING_INSTANCE, bytes);
+            assertThat(decompressor, instanceOf(Lz4TransportDecompressor.class));
+            assertEquals(Compression.Scheme.LZ4, decompressor.getScheme());
+
+            // feed the compressed bytes in small chunks so that block headers and blocks are split
+            final List<ReleasableBytesReference> pages = new ArrayList<>();
+            int offset = 0;
+            while (offset < bytes.length()) {
+                assertFalse(decompressor.isEOS());
+                // the header is only detected once enough bytes are available, see TransportDecompressor#getDecompressor
+                final int minLength = offset == 0 ? Compression.Scheme.LZ4.compressor().headerLength() : 1;
+                final int length = Math.min(bytes.length() - offset, randomIntBetween(minLength, randomBoolean() ? 16 : 20000));
+                assertEquals(length, decompressor.decompress(bytes.slice(offset, length)));
+                offset += length;
+                ReleasableBytesReference page;
+                while ((page = decompressor.pollDecompressedPage()) != null) {
+                    pages.add(page);
+                }
+            }
+            assertTrue(decompressor.isEOS());
+
+            BytesReference composite = CompositeBytesReference.of(pages.toArray(new BytesReference[0]));
+            assertEquals(4 * numInts, composite.length());
+            assertEquals(Compression.Scheme.LZ4.compressor().uncompress(bytes), composite);
+            Releasables.close(pages);
+            decompressor.close();
+        }
+    }
+
+    public void testCorruptedBlock() throws IOException {
+        try (BytesStreamOutput output = new BytesStreamOutput()) {
+            try (OutputStream lz4Stream = Compression.Scheme.LZ4.compressor().threadLocalOutputStream(Streams.flushOnCloseStream(output))) {
+                lz4Stream.write(randomByteArrayOfLength(between(1, 1000)));
+            }
+
+            final byte[] bytes = BytesReference.toBytes(output.bytes());
+            // the compressed length of the first block must not exceed the bound of its uncompressed length
+            bytes[Compression.Scheme.LZ4.compressor().headerLength() + Integer.BYTES] = (byte) 0x7F;
+
+            TransportDecompressor decompressor = new Lz4TransportDecompressor(PageCacheRecycler.NON_RECYCLING_INSTANCE);
+            IOException e = expectThrows(IOException.class, () -> decompressor.decompress(new BytesArray(bytes)));
+            assertThat(e.getMessage(), startsWith("corrupted LZ4 block header"));
+            decompressor.close();
+        }
+    }
+}
@@ -31,8 +31,11 @@ import org.elasticsearch.script.ScriptService;
 import org.elasticsearch.search.DocValueFormat;
 import org.elasticsearch.search.SearchModule;
 import org.elasticsearch.search.aggregations.Aggregation;
+import org.elasticsearch.search.aggregations.AggregationsReducer;
+import org.elasticsearch.search.aggregations.AggregatorReducer;
 import org.elasticsearch.search.aggregations.InternalAggregation;
 import org.elasticsearch.search.aggregations.InternalAggregation.ReduceContext;
+import org.elasticsearch.search.aggregations.InternalAggregations;
 import org.elasticsearch.search.aggregations.MultiBucketConsumerService;
 import org.elasticsearch.search.aggregations.MultiBucketConsumerService.MultiBucketConsumer;
 import org.elasticsearch.search.aggregations.ParsedAggregation;
@@ -391,6 +394,44 @@ public abstract class InternalAggregationTestCase<T extends InternalAggregation>
         assertReduced(reduced, inputs);
     }
 
+    /**
+     * Merges random results one at a time with the {@link AggregatorReducer} of the aggregation, if it provides one.
+     */
+    public void testStreamingReduceRandom() throws IOException {
+        String name = randomAlphaOfLength(5);
+        int size = between(1, 200);
+        List<T> inputs = randomResultsToReduce(name, size);
+        assertThat(inputs, hasSize(size));
+        ScriptService mockScriptService = mockScriptService();
+        MockBigArrays bigArrays = new MockBigArrays(new MockPageCacheRecycler(Settings.EMPTY), new NoneCircuitBreakerService());
+        InternalAggregation.ReduceContext partialContext = InternalAggregation.ReduceContext.forPartialReduction(
+                bigArrays, mockScriptService, () -> PipelineAggregator.PipelineTree.EMPTY);
+        try (AggregatorReducer streamingReducer = inputs.get(0).getStreamingReducer(partialContext)) {
+            assumeTrue("aggregation doesn't provide a streaming reducer", streamingReducer != null);
+        }
+        List<T> shuffled = new ArrayList<>(inputs);
+        Collections.shuffle(shuffled, random());
+        MultiBucketConsumer bucketConsumer = new MultiBucketConsumer(DEFAULT_MAX_BUCKETS,
+            new NoneCircuitBreakerService().getBreaker(CircuitBreaker.REQUEST));
+        InternalAggregation.ReduceContext finalContext = InternalAggregation.ReduceContext.forFinalReduction(
+                bigArrays, mockScriptService, bucketConsumer, PipelineTree.EMPTY);
+        final T reduced;
+        try (AggregationsReducer reducer = new AggregationsReducer(partialContext, between(2, size + 1))) {
+            for (T input : shuffled) {
+                reducer.accept(InternalAggregations.from(Collections.singletonList(input)));
+                if (rarely()) {
+                    // partial results don't consume the state of the reducer
+                    assertThat(reducer.get(partialContext).asList(), hasSize(1));
+                }
+            }
+            @SuppressWarnings("unchecked")
+            T result = (T) reducer.get(finalContext).asList().get(0);
+            reduced = result;
+        }
+        doAssertReducedMultiBucketConsumer(reduced, bucketConsumer);
+        assertReduced(reduced, inputs);
+    }
+
     protected void doAssertReducedMultiBucketConsumer(Aggregation agg, MultiBucketConsumerService.MultiBucketConsumer bucketConsumer) {
         InternalAggregationTestCase.assertMultiBucketConsumer(agg, bucketConsumer);
     }
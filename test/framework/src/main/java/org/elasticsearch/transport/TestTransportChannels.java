@@ -18,6 +18,6 @@ public class TestTransportChannels {
                                                                  String action, long requestId, Version version) {
         return new TcpTransportChannel(
             new OutboundHandler(nodeName, version, new StatsTracker(), threadPool, BigArrays.NON_RECYCLING_INSTANCE),
-            channel, action, requestId, version, false, false, () -> {});
+            channel, action, requestId, version, null, false, () -> {});
     }
 }
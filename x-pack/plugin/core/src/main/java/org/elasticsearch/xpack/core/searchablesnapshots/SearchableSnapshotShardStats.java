@@ -11,6 +11,7 @@ import org.elasticsearch.cluster.routing.ShardRouting;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.xcontent.ToXContentObject;
 import org.elasticsearch.common.xcontent.XContentBuilder;
@@ -142,6 +143,9 @@ public class SearchableSnapshotShardStats implements Writeable, ToXContentObject
         private final TimedCounter directBytesRead;
         private final TimedCounter optimizedBytesRead;
         private final Counter blobStoreBytesRequested;
+        private final Counter readAheadHits;
+        private final Counter readAheadWaste;
+        private final SharedCacheStats sharedCache;
         private final long currentIndexCacheFills;
 
         public CacheIndexInputStats(String fileExt, long numFiles, long totalSize, long openCount, long closeCount,
@@ -150,7 +154,8 @@ public class SearchableSnapshotShardStats implements Writeable, ToXContentObject
                                     Counter contiguousReads, Counter nonContiguousReads,
                                     Counter cachedBytesRead, Counter indexCacheBytesRead,
                                     TimedCounter cachedBytesWritten, TimedCounter directBytesRead, TimedCounter optimizedBytesRead,
-                                    Counter blobStoreBytesRequested, long currentIndexCacheFills) {
+                                    Counter blobStoreBytesRequested, Counter readAheadHits, Counter readAheadWaste,
+                                    SharedCacheStats sharedCache, long currentIndexCacheFills) {
             this.fileExt = fileExt;
             this.numFiles = numFiles;
             this.totalSize = totalSize;
@@ -168,6 +173,9 @@ public class SearchableSnapshotShardStats implements Writeable, ToXContentObject
             this.directBytesRead = directBytesRead;
             this.optimizedBytesRead = optimizedBytesRead;
             this.blobStoreBytesRequested = blobStoreBytesRequested;
+            this.readAheadHits = readAheadHits;
+            this.readAheadWaste = readAheadWaste;
+            this.sharedCache = sharedCache;
             this.currentIndexCacheFills = currentIndexCacheFills;
         }
 
@@ -195,6 +203,15 @@ public class SearchableSnapshotShardStats implements Writeable, ToXContentObject
             this.directBytesRead = new TimedCounter(in);
             this.optimizedBytesRead = new TimedCounter(in);
             this.blobStoreBytesRequested = new Counter(in);
+            if (in.getVersion().onOrAfter(Version.V_8_0_0)) {
+                this.readAheadHits = new Counter(in);
+                this.readAheadWaste = new Counter(in);
+                this.sharedCache = new SharedCacheStats(in);
+            } else {
+                this.readAheadHits = new Counter(0, 0, 0, 0);
+                this.readAheadWaste = new Counter(0, 0, 0, 0);
+                this.sharedCache = SharedCacheStats.EMPTY;
+            }
             this.currentIndexCacheFills = in.readVLong();
         }
 
@@ -222,6 +239,9 @@ public class SearchableSnapshotShardStats implements Writeable, ToXContentObject
                 cis1.directBytesRead.add(cis2.directBytesRead),
                 cis1.optimizedBytesRead.add(cis2.optimizedBytesRead),
                 cis1.blobStoreBytesRequested.add(cis2.blobStoreBytesRequested),
+                cis1.readAheadHits.add(cis2.readAheadHits),
+                cis1.readAheadWaste.add(cis2.readAheadWaste),
+                cis1.sharedCache.add(cis2.sharedCache),
                 cis1.currentIndexCacheFills + cis2.currentIndexCacheFills
             );
         }
@@ -252,6 +272,11 @@ public class SearchableSnapshotShardStats implements Writeable, ToXContentObject
             directBytesRead.writeTo(out);
             optimizedBytesRead.writeTo(out);
             blobStoreBytesRequested.writeTo(out);
+            if (out.getVersion().onOrAfter(Version.V_8_0_0)) {
+                readAheadHits.writeTo(out);
+                readAheadWaste.writeTo(out);
+                sharedCache.writeTo(out);
+            }
             out.writeVLong(currentIndexCacheFills);
         }
 
@@ -323,6 +348,18 @@ public class SearchableSnapshotShardStats implements Writeable, ToXContentObject
             return blobStoreBytesRequested;
         }
 
+        public Counter getReadAheadHits() {
+            return readAheadHits;
+        }
+
+        public Counter getReadAheadWaste() {
+            return readAheadWaste;
+        }
+
+        public SharedCacheStats getSharedCache() {
+            return sharedCache;
+        }
+
         public long getCurrentIndexCacheFills() {
             return currentIndexCacheFills;
         }
@@ -356,6 +393,13 @@ public class SearchableSnapshotShardStats implements Writeable, ToXContentObject
                     builder.endObject();
                 }
                 builder.field("blob_store_bytes_requested", getBlobStoreBytesRequested(), params);
+                {
+                    builder.startObject("read_ahead");
+                    builder.field("hits", getReadAheadHits(), params);
+                    builder.field("waste", getReadAheadWaste(), params);
+                    builder.endObject();
+                }
+                builder.field("shared_cache", getSharedCache(), params);
                 builder.field("current_index_cache_fills", getCurrentIndexCacheFills());
             }
             return builder.endObject();
@@ -387,6 +431,9 @@ public class SearchableSnapshotShardStats implements Writeable, ToXContentObject
                 && Objects.equals(directBytesRead, stats.directBytesRead)
                 && Objects.equals(optimizedBytesRead, stats.optimizedBytesRead)
                 && Objects.equals(blobStoreBytesRequested, stats.blobStoreBytesRequested)
+                && Objects.equals(readAheadHits, stats.readAheadHits)
+                && Objects.equals(readAheadWaste, stats.readAheadWaste)
+                && Objects.equals(sharedCache, stats.sharedCache)
                 && currentIndexCacheFills == stats.currentIndexCacheFills;
         }
 
@@ -398,7 +445,7 @@ public class SearchableSnapshotShardStats implements Writeable, ToXContentObject
                 contiguousReads, nonContiguousReads,
                 cachedBytesRead, indexCacheBytesRead,
                 cachedBytesWritten, directBytesRead, optimizedBytesRead,
-                blobStoreBytesRequested, currentIndexCacheFills);
+                blobStoreBytesRequested, readAheadHits, readAheadWaste, sharedCache, currentIndexCacheFills);
         }
     }
 
@@ -544,4 +591,120 @@ public class SearchableSnapshotShardStats implements Writeable, ToXContentObject
         }
     }
 
+    /**
+     * Statistics about the regions of the shared cache that are used by partially mounted searchable snapshots: how many regions and
+     * bytes they occupy, how many of these regions are pinned, and how many regions were evicted from the probationary or the protected
+     * segment of the cache to make room for other regions or forcibly evicted because their file or shard was removed.
+     */
+    public static class SharedCacheStats implements Writeable, ToXContentObject {
+
+        public static final SharedCacheStats EMPTY = new SharedCacheStats(0L, 0L, 0L,
+            new Counter(0, 0, 0, 0), new Counter(0, 0, 0, 0), new Counter(0, 0, 0, 0));
+
+        private final long regions;
+        private final long pinnedRegions;
+        private final long bytes;
+        private final Counter probationEvictions;
+        private final Counter protectedEvictions;
+        private final Counter forcedEvictions;
+
+        public SharedCacheStats(long regions, long pinnedRegions, long bytes,
+                                Counter probationEvictions, Counter protectedEvictions, Counter forcedEvictions) {
+            this.regions = regions;
+            this.pinnedRegions = pinnedRegions;
+            this.bytes = bytes;
+            this.probationEvictions = probationEvictions;
+            this.protectedEvictions = protectedEvictions;
+            this.forcedEvictions = forcedEvictions;
+        }
+
+        SharedCacheStats(StreamInput in) throws IOException {
+            this.regions = in.readVLong();
+            this.pinnedRegions = in.readVLong();
+            this.bytes = in.readVLong();
+            this.probationEvictions = new Counter(in);
+            this.protectedEvictions = new Counter(in);
+            this.forcedEvictions = new Counter(in);
+        }
+
+        public SharedCacheStats add(SharedCacheStats other) {
+            return new SharedCacheStats(regions + other.regions, pinnedRegions + other.pinnedRegions, bytes + other.bytes,
+                probationEvictions.add(other.probationEvictions), protectedEvictions.add(other.protectedEvictions),
+                forcedEvictions.add(other.forcedEvictions));
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeVLong(regions);
+            out.writeVLong(pinnedRegions);
+            out.writeVLong(bytes);
+            probationEvictions.writeTo(out);
+            protectedEvictions.writeTo(out);
+            forcedEvictions.writeTo(out);
+        }
+
+        @Override
+        public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+            builder.startObject();
+            {
+                builder.field("regions", getRegions());
+                builder.field("pinned_regions", getPinnedRegions());
+                builder.humanReadableField("size_in_bytes", "size", new ByteSizeValue(getBytes()));
+                {
+                    builder.startObject("evictions");
+                    builder.field("probation", getProbationEvictions(), params);
+                    builder.field("protected", getProtectedEvictions(), params);
+                    builder.field("forced", getForcedEvictions(), params);
+                    builder.endObject();
+                }
+            }
+            return builder.endObject();
+        }
+
+        public long getRegions() {
+            return regions;
+        }
+
+        public long getPinnedRegions() {
+            return pinnedRegions;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        public Counter getProbationEvictions() {
+            return probationEvictions;
+        }
+
+        public Counter getProtectedEvictions() {
+            return protectedEvictions;
+        }
+
+        public Counter getForcedEvictions() {
+            return forcedEvictions;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (other == null || getClass() != other.getClass()) {
+                return false;
+            }
+            SharedCacheStats that = (SharedCacheStats) other;
+            return regions == that.regions
+                && pinnedRegions == that.pinnedRegions
+                && bytes == that.bytes
+                && Objects.equals(probationEvictions, that.probationEvictions)
+                && Objects.equals(protectedEvictions, that.protectedEvictions)
+                && Objects.equals(forcedEvictions, that.forcedEvictions);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(regions, pinnedRegions, bytes, probationEvictions, protectedEvictions, forcedEvictions);
+        }
+    }
 }
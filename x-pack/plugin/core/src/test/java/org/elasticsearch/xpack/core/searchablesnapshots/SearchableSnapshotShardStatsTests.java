@@ -15,6 +15,7 @@ import org.elasticsearch.snapshots.SnapshotId;
 import org.elasticsearch.test.AbstractWireSerializingTestCase;
 import org.elasticsearch.xpack.core.searchablesnapshots.SearchableSnapshotShardStats.CacheIndexInputStats;
 import org.elasticsearch.xpack.core.searchablesnapshots.SearchableSnapshotShardStats.Counter;
+import org.elasticsearch.xpack.core.searchablesnapshots.SearchableSnapshotShardStats.SharedCacheStats;
 import org.elasticsearch.xpack.core.searchablesnapshots.SearchableSnapshotShardStats.TimedCounter;
 
 import java.util.ArrayList;
@@ -49,7 +50,12 @@ public class SearchableSnapshotShardStatsTests extends AbstractWireSerializingTe
             randomCounter(), randomCounter(),
             randomCounter(), randomCounter(), randomTimedCounter(),
             randomTimedCounter(), randomTimedCounter(),
-            randomCounter(), randomNonNegativeLong());
+            randomCounter(), randomCounter(), randomCounter(), randomSharedCacheStats(), randomNonNegativeLong());
+    }
+
+    private SharedCacheStats randomSharedCacheStats() {
+        return new SharedCacheStats(randomNonNegativeLong(), randomNonNegativeLong(), randomNonNegativeLong(),
+            randomCounter(), randomCounter(), randomCounter());
     }
 
     private Counter randomCounter() {
@@ -23,6 +23,7 @@ import org.elasticsearch.xpack.core.enrich.EnrichPolicy;
 import org.elasticsearch.xpack.enrich.action.EnrichCoordinatorProxyAction;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.function.BiConsumer;
@@ -50,12 +51,13 @@ public abstract class AbstractEnrichProcessor extends AbstractProcessor {
         boolean ignoreMissing,
         boolean overrideEnabled,
         String matchField,
-        int maxMatches
+        int maxMatches,
+        EnrichCache enrichCache
     ) {
         this(
             tag,
             description,
-            createSearchRunner(client),
+            createSearchRunner(client, enrichCache),
             policyName,
             field,
             targetField,
@@ -95,55 +97,18 @@ public abstract class AbstractEnrichProcessor extends AbstractProcessor {
     public void execute(IngestDocument ingestDocument, BiConsumer<IngestDocument, Exception> handler) {
         try {
             // If a document does not have the enrich key, return the unchanged document
-            String field = ingestDocument.renderTemplate(this.field);
-            final Object value = ingestDocument.getFieldValue(field, Object.class, ignoreMissing);
-            if (value == null) {
+            SearchRequest req = createSearchRequest(ingestDocument);
+            if (req == null) {
                 handler.accept(ingestDocument, null);
                 return;
             }
 
-            QueryBuilder queryBuilder = getQueryBuilder(value);
-            ConstantScoreQueryBuilder constantScore = new ConstantScoreQueryBuilder(queryBuilder);
-            SearchSourceBuilder searchBuilder = new SearchSourceBuilder();
-            searchBuilder.from(0);
-            searchBuilder.size(maxMatches);
-            searchBuilder.trackScores(false);
-            searchBuilder.fetchSource(true);
-            searchBuilder.query(constantScore);
-            SearchRequest req = new SearchRequest();
-            req.indices(EnrichPolicy.getBaseName(getPolicyName()));
-            req.preference(Preference.LOCAL.type());
-            req.source(searchBuilder);
-
             searchRunner.accept(req, (searchResponse, e) -> {
                 if (e != null) {
                     handler.accept(null, e);
                     return;
                 }
-
-                // If the index is empty, return the unchanged document
-                // If the enrich key does not exist in the index, throw an error
-                // If no documents match the key, return the unchanged document
-                SearchHit[] searchHits = searchResponse.getHits().getHits();
-                if (searchHits.length < 1) {
-                    handler.accept(ingestDocument, null);
-                    return;
-                }
-
-                String targetField = ingestDocument.renderTemplate(this.targetField);
-                if (overrideEnabled || ingestDocument.hasField(targetField) == false) {
-                    if (maxMatches == 1) {
-                        Map<String, Object> firstDocument = searchHits[0].getSourceAsMap();
-                        ingestDocument.setFieldValue(targetField, firstDocument);
-                    } else {
-                        List<Map<String, Object>> enrichDocuments = new ArrayList<>(searchHits.length);
-                        for (SearchHit searchHit : searchHits) {
-                            Map<String, Object> enrichDocument = searchHit.getSourceAsMap();
-                            enrichDocuments.add(enrichDocument);
-                        }
-                        ingestDocument.setFieldValue(targetField, enrichDocuments);
-                    }
-                }
+                enrich(ingestDocument, searchResponse);
                 handler.accept(ingestDocument, null);
             });
         } catch (Exception e) {
@@ -151,6 +116,99 @@ public abstract class AbstractEnrichProcessor extends AbstractProcessor {
         }
     }
 
+    /**
+     * Enriches a batch of documents, looking up every distinct enrich key of the batch only once. The lookups of the batch are issued
+     * together so that the coordinator can combine the ones that miss the cache into as few multi searches as possible.
+     */
+    @Override
+    public void executeBatch(List<IngestDocument> ingestDocuments, List<BiConsumer<IngestDocument, Exception>> handlers) {
+        final Map<SearchRequest, List<Integer>> slotsByRequest = new LinkedHashMap<>();
+        for (int i = 0; i < ingestDocuments.size(); i++) {
+            final IngestDocument ingestDocument = ingestDocuments.get(i);
+            final SearchRequest req;
+            try {
+                req = createSearchRequest(ingestDocument);
+            } catch (Exception e) {
+                handlers.get(i).accept(null, e);
+                continue;
+            }
+            if (req == null) {
+                handlers.get(i).accept(ingestDocument, null);
+            } else {
+                slotsByRequest.computeIfAbsent(req, k -> new ArrayList<>()).add(i);
+            }
+        }
+        slotsByRequest.forEach((req, slots) -> searchRunner.accept(req, (searchResponse, e) -> {
+            for (int slot : slots) {
+                final IngestDocument ingestDocument = ingestDocuments.get(slot);
+                final BiConsumer<IngestDocument, Exception> handler = handlers.get(slot);
+                if (e != null) {
+                    handler.accept(null, e);
+                    continue;
+                }
+                try {
+                    enrich(ingestDocument, searchResponse);
+                } catch (Exception enrichException) {
+                    handler.accept(null, enrichException);
+                    continue;
+                }
+                handler.accept(ingestDocument, null);
+            }
+        }));
+    }
+
+    /**
+     * Creates the search that looks up the enrich documents of the given document, or returns <code>null</code> if the document does
+     * not have the enrich key.
+     */
+    private SearchRequest createSearchRequest(IngestDocument ingestDocument) {
+        String field = ingestDocument.renderTemplate(this.field);
+        final Object value = ingestDocument.getFieldValue(field, Object.class, ignoreMissing);
+        if (value == null) {
+            return null;
+        }
+
+        QueryBuilder queryBuilder = getQueryBuilder(value);
+        ConstantScoreQueryBuilder constantScore = new ConstantScoreQueryBuilder(queryBuilder);
+        SearchSourceBuilder searchBuilder = new SearchSourceBuilder();
+        searchBuilder.from(0);
+        searchBuilder.size(maxMatches);
+        searchBuilder.trackScores(false);
+        searchBuilder.fetchSource(true);
+        searchBuilder.query(constantScore);
+        SearchRequest req = new SearchRequest();
+        req.indices(EnrichPolicy.getBaseName(getPolicyName()));
+        req.preference(Preference.LOCAL.type());
+        req.source(searchBuilder);
+        return req;
+    }
+
+    private void enrich(IngestDocument ingestDocument, SearchResponse searchResponse) {
+        // If the index is empty, return the unchanged document
+        // If the enrich key does not exist in the index, throw an error
+        // If no documents match the key, return the unchanged document
+        SearchHit[] searchHits = searchResponse.getHits().getHits();
+        if (searchHits.length < 1) {
+            return;
+        }
+
+        String targetField = ingestDocument.renderTemplate(this.targetField);
+        if (overrideEnabled || ingestDocument.hasField(targetField) == false) {
+            // the response may be cached and shared with other documents, which must not see the changes to this one
+            if (maxMatches == 1) {
+                Map<String, Object> firstDocument = IngestDocument.deepCopyMap(searchHits[0].getSourceAsMap());
+                ingestDocument.setFieldValue(targetField, firstDocument);
+            } else {
+                List<Map<String, Object>> enrichDocuments = new ArrayList<>(searchHits.length);
+                for (SearchHit searchHit : searchHits) {
+                    Map<String, Object> enrichDocument = IngestDocument.deepCopyMap(searchHit.getSourceAsMap());
+                    enrichDocuments.add(enrichDocument);
+                }
+                ingestDocument.setFieldValue(targetField, enrichDocuments);
+            }
+        }
+    }
+
     @Override
     public IngestDocument execute(IngestDocument ingestDocument) throws Exception {
         throw new UnsupportedOperationException("this method should not get executed");
@@ -191,14 +249,28 @@ public abstract class AbstractEnrichProcessor extends AbstractProcessor {
         return maxMatches;
     }
 
-    private static BiConsumer<SearchRequest, BiConsumer<SearchResponse, Exception>> createSearchRunner(Client client) {
+    private static BiConsumer<SearchRequest, BiConsumer<SearchResponse, Exception>> createSearchRunner(
+        Client client,
+        EnrichCache enrichCache
+    ) {
         Client originClient = new OriginSettingClient(client, ENRICH_ORIGIN);
         return (req, handler) -> {
-            originClient.execute(
-                EnrichCoordinatorProxyAction.INSTANCE,
-                req,
-                ActionListener.wrap(resp -> { handler.accept(resp, null); }, e -> { handler.accept(null, e); })
-            );
+            // the key is resolved before searching so that the response is cached under the enrich index that is searched
+            EnrichCache.CacheKey cacheKey = enrichCache.resolveKey(req);
+            if (cacheKey != null) {
+                SearchResponse cached = enrichCache.get(cacheKey);
+                if (cached != null) {
+                    handler.accept(cached, null);
+                    return;
+                }
+            }
+            // concurrent lookups of the same key may all miss and search, the last one to complete wins the cache entry
+            originClient.execute(EnrichCoordinatorProxyAction.INSTANCE, req, ActionListener.wrap(resp -> {
+                if (cacheKey != null) {
+                    enrichCache.put(cacheKey, resp);
+                }
+                handler.accept(resp, null);
+            }, e -> { handler.accept(null, e); }));
         };
     }
 }
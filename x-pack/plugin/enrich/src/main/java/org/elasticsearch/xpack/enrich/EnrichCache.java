@@ -0,0 +1,155 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0; you may not use this file except in compliance with the Elastic License
+ * 2.0.
+ */
+package org.elasticsearch.xpack.enrich;
+
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.cluster.metadata.IndexAbstraction;
+import org.elasticsearch.cluster.metadata.Metadata;
+import org.elasticsearch.common.cache.Cache;
+import org.elasticsearch.common.cache.CacheBuilder;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.xpack.core.enrich.action.EnrichStatsAction;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A node-level cache of the results of the searches that enrich processors perform to look up enrich documents.
+ * <p>
+ * The results are keyed by the search and the concrete enrich index that the alias of the policy points to when the search is
+ * sent, see {@link #resolveKey}. Executing a policy creates a new enrich index and moves the alias to it, so lookups never see results
+ * from a previous execution of the policy: they are cached under a new key, and the entries of enrich indices that are no longer the
+ * target of an alias are invalidated when the cluster state is applied. The size of the cache is bounded by the number of entries,
+ * and entries expire a fixed time after they were added.
+ */
+public final class EnrichCache {
+
+    private final Cache<CacheKey, SearchResponse> cache;
+    private volatile Metadata metadata;
+
+    EnrichCache(long maxSize, TimeValue ttl) {
+        CacheBuilder<CacheKey, SearchResponse> builder = CacheBuilder.<CacheKey, SearchResponse>builder().setMaximumWeight(maxSize);
+        if (ttl.nanos() > 0) {
+            builder.setExpireAfterWrite(ttl);
+        }
+        this.cache = maxSize > 0 ? builder.build() : null;
+    }
+
+    /**
+     * Returns the key of the given search, which is bound to the enrich index that the alias of the policy currently points to, or
+     * <code>null</code> if the search can't be cached. The key must be resolved before the search is sent and then be used for both
+     * {@link #get} and {@link #put}, so that the response is cached under the enrich index that was actually searched even if the
+     * alias moves while the search is running.
+     */
+    CacheKey resolveKey(SearchRequest searchRequest) {
+        if (cache == null) {
+            return null;
+        }
+        String enrichIndex = getEnrichIndex(metadata, searchRequest.indices()[0]);
+        if (enrichIndex == null) {
+            return null;
+        }
+        return new CacheKey(enrichIndex, searchRequest);
+    }
+
+    /**
+     * Returns the cached response of the search with the given key, or <code>null</code> if it isn't cached.
+     */
+    SearchResponse get(CacheKey cacheKey) {
+        return cache.get(cacheKey);
+    }
+
+    /**
+     * Caches the response of the search with the given key.
+     */
+    void put(CacheKey cacheKey, SearchResponse response) {
+        if (cacheKey.enrichIndex.equals(getEnrichIndex(metadata, cacheKey.enrichAlias)) == false) {
+            // the policy was executed or removed while searching, nothing looks up this enrich index anymore
+            return;
+        }
+        // the sources of the hits are parsed lazily, parse them before the response is shared between threads
+        for (SearchHit hit : response.getHits().getHits()) {
+            hit.getSourceAsMap();
+        }
+        cache.put(cacheKey, response);
+    }
+
+    /**
+     * Updates the enrich indices that the aliases of the policies point to, and invalidates the entries of the other enrich indices.
+     */
+    void setMetadata(Metadata metadata) {
+        this.metadata = metadata;
+        if (cache == null) {
+            return;
+        }
+        List<CacheKey> staleKeys = new ArrayList<>();
+        for (CacheKey key : cache.keys()) {
+            if (key.enrichIndex.equals(getEnrichIndex(metadata, key.enrichAlias)) == false) {
+                staleKeys.add(key);
+            }
+        }
+        for (CacheKey staleKey : staleKeys) {
+            cache.invalidate(staleKey);
+        }
+    }
+
+    public EnrichStatsAction.Response.CacheStats getStats(String localNodeId) {
+        if (cache == null) {
+            return new EnrichStatsAction.Response.CacheStats(localNodeId, 0, 0, 0, 0);
+        }
+        Cache.CacheStats stats = cache.stats();
+        return new EnrichStatsAction.Response.CacheStats(
+            localNodeId,
+            cache.count(),
+            stats.getHits(),
+            stats.getMisses(),
+            stats.getEvictions()
+        );
+    }
+
+    private static String getEnrichIndex(Metadata metadata, String alias) {
+        if (metadata == null) {
+            return null;
+        }
+        IndexAbstraction indexAbstraction = metadata.getIndicesLookup().get(alias);
+        if (indexAbstraction == null) {
+            // let the search fail
+            return null;
+        }
+        return indexAbstraction.getIndices().get(0).getIndex().getName();
+    }
+
+    static final class CacheKey {
+
+        final String enrichAlias;
+        final String enrichIndex;
+        final SearchSourceBuilder searchSourceBuilder;
+
+        private CacheKey(String enrichIndex, SearchRequest searchRequest) {
+            this.enrichAlias = searchRequest.indices()[0];
+            this.enrichIndex = enrichIndex;
+            this.searchSourceBuilder = searchRequest.source();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            CacheKey cacheKey = (CacheKey) o;
+            return enrichIndex.equals(cacheKey.enrichIndex) && searchSourceBuilder.equals(cacheKey.searchSourceBuilder);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(enrichIndex, searchSourceBuilder);
+        }
+    }
+}
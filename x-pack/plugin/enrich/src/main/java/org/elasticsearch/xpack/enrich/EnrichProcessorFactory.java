@@ -28,12 +28,14 @@ final class EnrichProcessorFactory implements Processor.Factory, Consumer<Cluste
     static final String TYPE = "enrich";
     private final Client client;
     private final ScriptService scriptService;
+    private final EnrichCache enrichCache;
 
     volatile Metadata metadata;
 
-    EnrichProcessorFactory(Client client, ScriptService scriptService) {
+    EnrichProcessorFactory(Client client, ScriptService scriptService, EnrichCache enrichCache) {
         this.client = client;
         this.scriptService = scriptService;
+        this.enrichCache = enrichCache;
     }
 
     @Override
@@ -80,7 +82,8 @@ final class EnrichProcessorFactory implements Processor.Factory, Consumer<Cluste
                     overrideEnabled,
                     ignoreMissing,
                     matchField,
-                    maxMatches
+                    maxMatches,
+                    enrichCache
                 );
             case EnrichPolicy.GEO_MATCH_TYPE:
                 String relationStr = ConfigurationUtils.readStringProperty(TYPE, tag, config, "shape_relation", "intersects");
@@ -99,7 +102,8 @@ final class EnrichProcessorFactory implements Processor.Factory, Consumer<Cluste
                     matchField,
                     maxMatches,
                     shapeRelation,
-                    orientation
+                    orientation,
+                    enrichCache
                 );
             default:
                 throw new IllegalArgumentException("unsupported policy type [" + policyType + "]");
@@ -109,6 +113,7 @@ final class EnrichProcessorFactory implements Processor.Factory, Consumer<Cluste
     @Override
     public void accept(ClusterState state) {
         metadata = state.getMetadata();
+        enrichCache.setMetadata(metadata);
     }
 
 }
@@ -36,9 +36,22 @@ public final class GeoMatchProcessor extends AbstractEnrichProcessor {
         String matchField,
         int maxMatches,
         ShapeRelation shapeRelation,
-        ShapeBuilder.Orientation orientation
+        ShapeBuilder.Orientation orientation,
+        EnrichCache enrichCache
     ) {
-        super(tag, description, client, policyName, field, targetField, ignoreMissing, overrideEnabled, matchField, maxMatches);
+        super(
+            tag,
+            description,
+            client,
+            policyName,
+            field,
+            targetField,
+            ignoreMissing,
+            overrideEnabled,
+            matchField,
+            maxMatches,
+            enrichCache
+        );
         this.shapeRelation = shapeRelation;
         parser = new GeometryParser(orientation.getAsBoolean(), true, true);
     }
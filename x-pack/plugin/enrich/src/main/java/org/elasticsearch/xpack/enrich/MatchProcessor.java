@@ -29,9 +29,22 @@ public final class MatchProcessor extends AbstractEnrichProcessor {
         boolean overrideEnabled,
         boolean ignoreMissing,
         String matchField,
-        int maxMatches
+        int maxMatches,
+        EnrichCache enrichCache
     ) {
-        super(tag, description, client, policyName, field, targetField, ignoreMissing, overrideEnabled, matchField, maxMatches);
+        super(
+            tag,
+            description,
+            client,
+            policyName,
+            field,
+            targetField,
+            ignoreMissing,
+            overrideEnabled,
+            matchField,
+            maxMatches,
+            enrichCache
+        );
     }
 
     /** used in tests **/
@@ -0,0 +1,158 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0; you may not use this file except in compliance with the Elastic License
+ * 2.0.
+ */
+package org.elasticsearch.xpack.enrich;
+
+import org.elasticsearch.Version;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.search.ShardSearchFailure;
+import org.elasticsearch.cluster.metadata.AliasMetadata;
+import org.elasticsearch.cluster.metadata.IndexMetadata;
+import org.elasticsearch.cluster.metadata.Metadata;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.index.query.MatchQueryBuilder;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.internal.InternalSearchResponse;
+import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.xpack.core.enrich.EnrichPolicy;
+import org.elasticsearch.xpack.core.enrich.action.EnrichStatsAction.Response.CacheStats;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class EnrichCacheTests extends ESTestCase {
+
+    public void testCaching() {
+        EnrichCache enrichCache = new EnrichCache(3, TimeValue.MINUS_ONE);
+        enrichCache.setMetadata(metadata(".enrich-policy1-1", ".enrich-policy2-1"));
+
+        SearchRequest searchRequest1 = searchRequest("policy1", "match_field", "1");
+        SearchRequest searchRequest2 = searchRequest("policy1", "match_field", "2");
+        SearchRequest searchRequest3 = searchRequest("policy2", "match_field", "1");
+        SearchRequest searchRequest4 = searchRequest("policy2", "match_field", "2");
+        SearchResponse searchResponse = searchResponse();
+
+        enrichCache.put(enrichCache.resolveKey(searchRequest1), searchResponse);
+        enrichCache.put(enrichCache.resolveKey(searchRequest2), searchResponse);
+        enrichCache.put(enrichCache.resolveKey(searchRequest3), searchResponse);
+        CacheStats cacheStats = enrichCache.getStats("_id");
+        assertThat(cacheStats.getCount(), equalTo(3L));
+        assertThat(cacheStats.getHits(), equalTo(0L));
+        assertThat(cacheStats.getMisses(), equalTo(0L));
+        assertThat(cacheStats.getEvictions(), equalTo(0L));
+
+        // the same search, created independently, is a hit
+        assertThat(enrichCache.get(enrichCache.resolveKey(searchRequest("policy1", "match_field", "1"))), sameInstance(searchResponse));
+        assertThat(enrichCache.get(enrichCache.resolveKey(searchRequest2)), sameInstance(searchResponse));
+        assertThat(enrichCache.get(enrichCache.resolveKey(searchRequest3)), sameInstance(searchResponse));
+        assertThat(enrichCache.get(enrichCache.resolveKey(searchRequest4)), nullValue());
+        cacheStats = enrichCache.getStats("_id");
+        assertThat(cacheStats.getCount(), equalTo(3L));
+        assertThat(cacheStats.getHits(), equalTo(3L));
+        assertThat(cacheStats.getMisses(), equalTo(1L));
+        assertThat(cacheStats.getEvictions(), equalTo(0L));
+
+        enrichCache.put(enrichCache.resolveKey(searchRequest4), searchResponse);
+        cacheStats = enrichCache.getStats("_id");
+        assertThat(cacheStats.getCount(), equalTo(3L));
+        assertThat(cacheStats.getEvictions(), equalTo(1L));
+
+        // executing policy1 moves its alias to a new enrich index, which invalidates its entries
+        enrichCache.setMetadata(metadata(".enrich-policy1-2", ".enrich-policy2-1"));
+        assertThat(enrichCache.getStats("_id").getCount(), equalTo(2L));
+        assertThat(enrichCache.get(enrichCache.resolveKey(searchRequest1)), nullValue());
+        assertThat(enrichCache.get(enrichCache.resolveKey(searchRequest2)), nullValue());
+        assertThat(enrichCache.get(enrichCache.resolveKey(searchRequest3)), sameInstance(searchResponse));
+        assertThat(enrichCache.get(enrichCache.resolveKey(searchRequest4)), sameInstance(searchResponse));
+
+        // and deleting policy2 invalidates its entries
+        enrichCache.setMetadata(metadata(".enrich-policy1-2"));
+        assertThat(enrichCache.getStats("_id").getCount(), equalTo(0L));
+        assertThat(enrichCache.resolveKey(searchRequest3), nullValue());
+    }
+
+    public void testDisabled() {
+        EnrichCache enrichCache = new EnrichCache(0, TimeValue.MINUS_ONE);
+        enrichCache.setMetadata(metadata(".enrich-policy1-1"));
+        assertThat(enrichCache.resolveKey(searchRequest("policy1", "match_field", "1")), nullValue());
+        CacheStats cacheStats = enrichCache.getStats("_id");
+        assertThat(cacheStats.getNodeId(), equalTo("_id"));
+        assertThat(cacheStats.getCount(), equalTo(0L));
+        assertThat(cacheStats.getHits(), equalTo(0L));
+        assertThat(cacheStats.getMisses(), equalTo(0L));
+    }
+
+    public void testMissingEnrichIndex() {
+        EnrichCache enrichCache = new EnrichCache(10, TimeValue.MINUS_ONE);
+        // no metadata yet
+        SearchRequest searchRequest = searchRequest("policy1", "match_field", "1");
+        assertThat(enrichCache.resolveKey(searchRequest), nullValue());
+        // no enrich index for the policy
+        enrichCache.setMetadata(metadata(".enrich-policy2-1"));
+        assertThat(enrichCache.resolveKey(searchRequest), nullValue());
+        assertThat(enrichCache.getStats("_id").getCount(), equalTo(0L));
+    }
+
+    public void testAliasMovesWhileSearching() {
+        EnrichCache enrichCache = new EnrichCache(10, TimeValue.MINUS_ONE);
+        enrichCache.setMetadata(metadata(".enrich-policy1-1"));
+        SearchRequest searchRequest = searchRequest("policy1", "match_field", "1");
+        EnrichCache.CacheKey cacheKey = enrichCache.resolveKey(searchRequest);
+        assertThat(enrichCache.get(cacheKey), nullValue());
+
+        // executing the policy moves the alias while the search of the previous enrich index is running
+        enrichCache.setMetadata(metadata(".enrich-policy1-2"));
+        enrichCache.put(cacheKey, searchResponse());
+        assertThat(enrichCache.getStats("_id").getCount(), equalTo(0L));
+        assertThat(enrichCache.get(enrichCache.resolveKey(searchRequest)), nullValue());
+
+        // a search of the new enrich index is cached
+        EnrichCache.CacheKey newCacheKey = enrichCache.resolveKey(searchRequest);
+        SearchResponse searchResponse = searchResponse();
+        enrichCache.put(newCacheKey, searchResponse);
+        assertThat(enrichCache.get(enrichCache.resolveKey(searchRequest)), sameInstance(searchResponse));
+    }
+
+    private static SearchRequest searchRequest(String policyName, String matchField, String value) {
+        return new SearchRequest(EnrichPolicy.getBaseName(policyName)).source(
+            new SearchSourceBuilder().query(new MatchQueryBuilder(matchField, value))
+        );
+    }
+
+    private static SearchResponse searchResponse() {
+        return new SearchResponse(
+            InternalSearchResponse.empty(),
+            null,
+            1,
+            1,
+            0,
+            0,
+            ShardSearchFailure.EMPTY_ARRAY,
+            SearchResponse.Clusters.EMPTY
+        );
+    }
+
+    /**
+     * Creates metadata where the alias of the policy of each given enrich index points to it.
+     */
+    private static Metadata metadata(String... enrichIndices) {
+        Metadata.Builder metadata = Metadata.builder();
+        for (String enrichIndex : enrichIndices) {
+            String alias = enrichIndex.substring(0, enrichIndex.lastIndexOf('-'));
+            metadata.put(
+                IndexMetadata.builder(enrichIndex)
+                    .settings(Settings.builder().put(IndexMetadata.SETTING_VERSION_CREATED, Version.CURRENT))
+                    .numberOfShards(1)
+                    .numberOfReplicas(0)
+                    .putAlias(AliasMetadata.builder(alias).build())
+            );
+        }
+        return metadata.build();
+    }
+}
@@ -33,6 +33,7 @@ import org.elasticsearch.test.ESTestCase;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -391,6 +392,70 @@ public class MatchProcessorTests extends ESTestCase {
         assertThat(entry.get("tld"), equalTo("co"));
     }
 
+    public void testSharedResponse() throws Exception {
+        // e.g. a response that is cached for all the documents that have the same value
+        SearchResponse searchResponse = mockResponse(Map.of("elastic.co", Map.of("globalRank", 451, "tldRank", 23, "tld", "co")));
+        int maxMatches = randomIntBetween(1, 8);
+        MatchProcessor processor = new MatchProcessor(
+            "_tag",
+            null,
+            (request, handler) -> handler.accept(searchResponse, null),
+            "_name",
+            str("domain"),
+            str("entry"),
+            true,
+            false,
+            "domain",
+            maxMatches
+        );
+        IngestDocument[] ingestDocuments = new IngestDocument[2];
+        for (int i = 0; i < ingestDocuments.length; i++) {
+            ingestDocuments[i] = new IngestDocument("_index", "_id", "_routing", 1L, VersionType.INTERNAL, Map.of("domain", "elastic.co"));
+            processor.execute(ingestDocuments[i], (result, e) -> assertNull(e));
+        }
+        String tldField = maxMatches == 1 ? "entry.tld" : "entry.0.tld";
+        ingestDocuments[0].setFieldValue(tldField, "com");
+        assertThat(ingestDocuments[0].getFieldValue(tldField, String.class), equalTo("com"));
+        assertThat(ingestDocuments[1].getFieldValue(tldField, String.class), equalTo("co"));
+        assertThat(searchResponse.getHits().getAt(0).getSourceAsMap().get("tld"), equalTo("co"));
+    }
+
+    public void testBatchLooksUpEveryKeyOnce() throws Exception {
+        SearchResponse searchResponse = mockResponse(Map.of("elastic.co", Map.of("globalRank", 451, "tldRank", 23, "tld", "co")));
+        List<SearchRequest> requests = new ArrayList<>();
+        MatchProcessor processor = new MatchProcessor("_tag", null, (request, handler) -> {
+            requests.add(request);
+            handler.accept(searchResponse, null);
+        }, "_name", str("domain"), str("entry"), true, true, "domain", 1);
+
+        List<IngestDocument> ingestDocuments = new ArrayList<>();
+        for (String domain : new String[] { "elastic.co", "elastic.com", "elastic.co", null }) {
+            Map<String, Object> source = new HashMap<>();
+            if (domain != null) {
+                source.put("domain", domain);
+            }
+            ingestDocuments.add(new IngestDocument("_index", "_id", "_routing", 1L, VersionType.INTERNAL, source));
+        }
+        List<IngestDocument> results = new ArrayList<>();
+        List<BiConsumer<IngestDocument, Exception>> handlers = new ArrayList<>();
+        for (int i = 0; i < ingestDocuments.size(); i++) {
+            handlers.add((result, e) -> {
+                assertNull(e);
+                results.add(result);
+            });
+        }
+        processor.executeBatch(ingestDocuments, handlers);
+
+        assertThat(requests.size(), equalTo(2));
+        assertThat(results.size(), equalTo(4));
+        assertThat(ingestDocuments.get(0).getFieldValue("entry.tld", String.class), equalTo("co"));
+        assertThat(ingestDocuments.get(2).getFieldValue("entry.tld", String.class), equalTo("co"));
+        // documents that share a lookup still get their own copy of the enrich document
+        ingestDocuments.get(0).setFieldValue("entry.tld", "com");
+        assertThat(ingestDocuments.get(2).getFieldValue("entry.tld", String.class), equalTo("co"));
+        assertThat(ingestDocuments.get(3).hasField("entry"), equalTo(false));
+    }
+
     private static final class MockSearchFunction implements BiConsumer<SearchRequest, BiConsumer<SearchResponse, Exception>> {
         private final SearchResponse mockResponse;
         private final SetOnce<SearchRequest> capturedRequest;
@@ -50,6 +50,14 @@ public class IndexInputStats {
     private final TimedCounter cachedBytesWritten = new TimedCounter();
 
     private final Counter blobStoreBytesRequested = new Counter();
+    private final Counter readAheadHits = new Counter();
+    private final Counter readAheadWaste = new Counter();
+    private final AtomicLong sharedCacheRegions = new AtomicLong();
+    private final AtomicLong sharedCachePinnedRegions = new AtomicLong();
+    private final AtomicLong sharedCacheBytes = new AtomicLong();
+    private final Counter sharedCacheProbationEvictions = new Counter();
+    private final Counter sharedCacheProtectedEvictions = new Counter();
+    private final Counter sharedCacheForcedEvictions = new Counter();
     private final AtomicLong currentIndexCacheFills = new AtomicLong();
 
     public IndexInputStats(int numFiles, long totalSize, LongSupplier currentTimeNanos) {
@@ -128,6 +136,43 @@ public class IndexInputStats {
         blobStoreBytesRequested.add(bytesRequested);
     }
 
+    public void addReadAheadHit(long bytesPrefetched) {
+        readAheadHits.add(bytesPrefetched);
+    }
+
+    public void addReadAheadWaste(long bytesPrefetched) {
+        readAheadWaste.add(bytesPrefetched);
+    }
+
+    public void addSharedCacheRegion(long regionLength, boolean pinned) {
+        sharedCacheRegions.incrementAndGet();
+        sharedCacheBytes.addAndGet(regionLength);
+        if (pinned) {
+            sharedCachePinnedRegions.incrementAndGet();
+        }
+    }
+
+    public void removeSharedCacheRegion(long regionLength, boolean pinned) {
+        final long regions = sharedCacheRegions.decrementAndGet();
+        assert regions >= 0L : regions;
+        sharedCacheBytes.addAndGet(-regionLength);
+        if (pinned) {
+            sharedCachePinnedRegions.decrementAndGet();
+        }
+    }
+
+    public void addSharedCacheProbationEviction(long regionLength) {
+        sharedCacheProbationEvictions.add(regionLength);
+    }
+
+    public void addSharedCacheProtectedEviction(long regionLength) {
+        sharedCacheProtectedEvictions.add(regionLength);
+    }
+
+    public void addSharedCacheForcedEviction(long regionLength) {
+        sharedCacheForcedEvictions.add(regionLength);
+    }
+
     public Releasable addIndexCacheFill() {
         final long openValue = currentIndexCacheFills.incrementAndGet();
         assert openValue > 0 : openValue;
@@ -201,6 +246,38 @@ public class IndexInputStats {
         return blobStoreBytesRequested;
     }
 
+    public Counter getReadAheadHits() {
+        return readAheadHits;
+    }
+
+    public Counter getReadAheadWaste() {
+        return readAheadWaste;
+    }
+
+    public long getSharedCacheRegions() {
+        return sharedCacheRegions.get();
+    }
+
+    public long getSharedCachePinnedRegions() {
+        return sharedCachePinnedRegions.get();
+    }
+
+    public long getSharedCacheBytes() {
+        return sharedCacheBytes.get();
+    }
+
+    public Counter getSharedCacheProbationEvictions() {
+        return sharedCacheProbationEvictions;
+    }
+
+    public Counter getSharedCacheProtectedEvictions() {
+        return sharedCacheProtectedEvictions;
+    }
+
+    public Counter getSharedCacheForcedEvictions() {
+        return sharedCacheForcedEvictions;
+    }
+
     @SuppressForbidden(reason = "Handles Long.MIN_VALUE before using Math.abs()")
     public boolean isLargeSeek(long delta) {
         return delta != Long.MIN_VALUE && Math.abs(delta) > seekingThreshold;
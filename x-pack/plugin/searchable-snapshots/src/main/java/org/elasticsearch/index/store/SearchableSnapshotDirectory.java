@@ -221,8 +221,14 @@ public class SearchableSnapshotDirectory extends BaseDirectory {
             synchronized (this) {
                 alreadyLoaded = this.loaded;
                 if (alreadyLoaded == false) {
+                    final BlobStoreIndexShardSnapshot snapshot = snapshotSupplier.get();
+                    // reading ranges of files assumes that their parts all have the same size, which does not hold for chunks
+                    if (snapshot.indexFiles().stream().anyMatch(fileInfo -> fileInfo.chunks().isEmpty() == false)) {
+                        throw new IllegalArgumentException("snapshot [" + snapshotId + "] cannot be mounted because it was taken in a "
+                            + "repository with content-defined chunking enabled");
+                    }
                     this.blobContainer = blobContainerSupplier.get();
-                    this.snapshot = snapshotSupplier.get();
+                    this.snapshot = snapshot;
                     this.loaded = true;
                     cleanExistingRegularShardFiles();
                     waitForPendingEvictions();
@@ -406,7 +412,8 @@ public class SearchableSnapshotDirectory extends BaseDirectory {
                     context,
                     inputStats,
                     frozenCacheService.getRangeSize(),
-                    frozenCacheService.getRecoveryRangeSize()
+                    frozenCacheService.getRecoveryRangeSize(),
+                    frozenCacheService.getReadAheadRanges()
                 );
             } else {
                 return new CachedBlobContainerIndexInput(
@@ -415,7 +422,8 @@ public class SearchableSnapshotDirectory extends BaseDirectory {
                     context,
                     inputStats,
                     cacheService.getRangeSize(),
-                    cacheService.getRecoveryRangeSize()
+                    cacheService.getRecoveryRangeSize(),
+                    cacheService.getReadAheadRanges()
                 );
             }
         } else {
@@ -696,8 +704,8 @@ public class SearchableSnapshotDirectory extends BaseDirectory {
         blobStoreCacheService.putAsync(repository, name, blobStoreCachePath, offset, content, listener);
     }
 
-    public FrozenCacheFile getFrozenCacheFile(String fileName, long length) {
-        return frozenCacheService.getFrozenCacheFile(createCacheKey(fileName), length);
+    public FrozenCacheFile getFrozenCacheFile(String fileName, long length, IndexInputStats stats) {
+        return frozenCacheService.getFrozenCacheFile(createCacheKey(fileName), length, stats);
     }
 
     private static Repository repositoryByUuid(Map<String, Repository> repositories, String repositoryUuid, String originalName) {
@@ -64,6 +64,10 @@ public class CachedBlobContainerIndexInput extends BaseSearchableSnapshotIndexIn
     private final CacheFileReference cacheFileReference;
     private final int defaultRangeSize;
     private final int recoveryRangeSize;
+    // shared with the clones and slices, which track their own access patterns
+    private final ReadAhead.PrefetchedRanges prefetchedRanges;
+    // not final so that clones get their own
+    private ReadAhead readAhead;
 
     // last read position is kept around in order to detect (non)contiguous reads for stats
     private long lastReadPosition;
@@ -76,7 +80,8 @@ public class CachedBlobContainerIndexInput extends BaseSearchableSnapshotIndexIn
         IOContext context,
         IndexInputStats stats,
         int rangeSize,
-        int recoveryRangeSize
+        int recoveryRangeSize,
+        int readAheadRanges
     ) {
         this(
             "CachedBlobContainerIndexInput(" + fileInfo.physicalName() + ")",
@@ -88,7 +93,8 @@ public class CachedBlobContainerIndexInput extends BaseSearchableSnapshotIndexIn
             fileInfo.length(),
             new CacheFileReference(directory, fileInfo.physicalName(), fileInfo.length()),
             rangeSize,
-            recoveryRangeSize
+            recoveryRangeSize,
+            new ReadAhead.PrefetchedRanges(stats, readAheadRanges)
         );
         assert getBufferSize() <= BlobStoreCacheService.DEFAULT_CACHED_BLOB_SIZE; // must be able to cache at least one buffer's worth
         stats.incrementOpenCount();
@@ -104,7 +110,8 @@ public class CachedBlobContainerIndexInput extends BaseSearchableSnapshotIndexIn
         long length,
         CacheFileReference cacheFileReference,
         int rangeSize,
-        int recoveryRangeSize
+        int recoveryRangeSize,
+        ReadAhead.PrefetchedRanges prefetchedRanges
     ) {
         super(resourceDesc, directory.blobContainer(), fileInfo, context, stats, offset, length);
         this.directory = directory;
@@ -113,11 +120,14 @@ public class CachedBlobContainerIndexInput extends BaseSearchableSnapshotIndexIn
         this.lastSeekPosition = this.offset;
         this.defaultRangeSize = rangeSize;
         this.recoveryRangeSize = recoveryRangeSize;
+        this.prefetchedRanges = prefetchedRanges;
+        this.readAhead = new ReadAhead(prefetchedRanges, this::prefetchRange);
     }
 
     @Override
     public void innerClose() {
         if (isClone == false) {
+            prefetchedRanges.close();
             cacheFileReference.releaseOnClose();
         }
     }
@@ -349,6 +359,32 @@ public class CachedBlobContainerIndexInput extends BaseSearchableSnapshotIndexIn
         stats.incrementBytesRead(lastReadPosition, position, length);
         lastReadPosition = position + length;
         lastSeekPosition = lastReadPosition;
+        // read-ahead would compete with the reads of the recovery for the repository, see recoveryRangeSize
+        if (directory.isRecoveryFinalized()) {
+            readAhead.onRead(position, getDefaultRangeSize(), fileInfo.length());
+        }
+    }
+
+    /**
+     * Fetches the given range of the file in the background if it is neither available nor pending.
+     */
+    private boolean prefetchRange(ByteRange range) {
+        try {
+            final CacheFile cacheFile = cacheFileReference.get();
+            final int length = toIntBytes(range.length());
+            if (cacheFile.readIfAvailableOrPending(range, channel -> length) != null) {
+                return false;
+            }
+            cacheFile.populateAndRead(range, range, channel -> length, this::writeCacheFile, directory.cacheFetchAsyncExecutor());
+            logger.trace("prefetching range [{}-{}] of file [{}]", range.start(), range.end(), fileInfo.physicalName());
+            return true;
+        } catch (Exception e) {
+            logger.debug(
+                new ParameterizedMessage("failed to prefetch range [{}-{}] of file [{}]", range.start(), range.end(), fileInfo),
+                e
+            );
+            return false;
+        }
     }
 
     private int readDirectlyIfAlreadyClosed(long position, ByteBuffer b, Exception e) throws IOException {
@@ -614,7 +650,9 @@ public class CachedBlobContainerIndexInput extends BaseSearchableSnapshotIndexIn
 
     @Override
     public CachedBlobContainerIndexInput clone() {
-        return (CachedBlobContainerIndexInput) super.clone();
+        final CachedBlobContainerIndexInput clone = (CachedBlobContainerIndexInput) super.clone();
+        clone.readAhead = new ReadAhead(prefetchedRanges, clone::prefetchRange);
+        return clone;
     }
 
     @Override
@@ -643,7 +681,8 @@ public class CachedBlobContainerIndexInput extends BaseSearchableSnapshotIndexIn
             length,
             cacheFileReference,
             defaultRangeSize,
-            recoveryRangeSize
+            recoveryRangeSize,
+            prefetchedRanges
         );
         slice.isClone = true;
         return slice;
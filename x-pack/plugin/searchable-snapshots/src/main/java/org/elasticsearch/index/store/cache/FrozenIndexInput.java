@@ -56,6 +56,10 @@ public class FrozenIndexInput extends BaseSearchableSnapshotIndexInput {
     private final FrozenCacheFile frozenCacheFile;
     private final int defaultRangeSize;
     private final int recoveryRangeSize;
+    // shared with the clones and slices, which track their own access patterns
+    private final ReadAhead.PrefetchedRanges prefetchedRanges;
+    // not final so that clones get their own
+    private ReadAhead readAhead;
 
     // last read position is kept around in order to detect (non)contiguous reads for stats
     private long lastReadPosition;
@@ -68,7 +72,8 @@ public class FrozenIndexInput extends BaseSearchableSnapshotIndexInput {
         IOContext context,
         IndexInputStats stats,
         int rangeSize,
-        int recoveryRangeSize
+        int recoveryRangeSize,
+        int readAheadRanges
     ) {
         this(
             "FrozenIndexInput(" + fileInfo.physicalName() + ")",
@@ -78,9 +83,10 @@ public class FrozenIndexInput extends BaseSearchableSnapshotIndexInput {
             stats,
             0L,
             fileInfo.length(),
-            directory.getFrozenCacheFile(fileInfo.physicalName(), fileInfo.length()),
+            directory.getFrozenCacheFile(fileInfo.physicalName(), fileInfo.length(), stats),
             rangeSize,
-            recoveryRangeSize
+            recoveryRangeSize,
+            new ReadAhead.PrefetchedRanges(stats, readAheadRanges)
         );
         assert getBufferSize() <= BlobStoreCacheService.DEFAULT_CACHED_BLOB_SIZE; // must be able to cache at least one buffer's worth
         stats.incrementOpenCount();
@@ -96,7 +102,8 @@ public class FrozenIndexInput extends BaseSearchableSnapshotIndexInput {
         long length,
         FrozenCacheFile frozenCacheFile,
         int rangeSize,
-        int recoveryRangeSize
+        int recoveryRangeSize,
+        ReadAhead.PrefetchedRanges prefetchedRanges
     ) {
         super(resourceDesc, directory.blobContainer(), fileInfo, context, stats, offset, length);
         this.directory = directory;
@@ -105,11 +112,15 @@ public class FrozenIndexInput extends BaseSearchableSnapshotIndexInput {
         this.lastSeekPosition = this.offset;
         this.defaultRangeSize = rangeSize;
         this.recoveryRangeSize = recoveryRangeSize;
+        this.prefetchedRanges = prefetchedRanges;
+        this.readAhead = new ReadAhead(prefetchedRanges, this::prefetchRange);
     }
 
     @Override
     public void innerClose() {
-        // nothing needed to be done here
+        if (isClone == false) {
+            prefetchedRanges.close();
+        }
     }
 
     private void ensureContext(Predicate<IOContext> predicate) throws IOException {
@@ -424,6 +435,43 @@ public class FrozenIndexInput extends BaseSearchableSnapshotIndexInput {
         stats.incrementBytesRead(lastReadPosition, position, length);
         lastReadPosition = position + length;
         lastSeekPosition = lastReadPosition;
+        // read-ahead would compete with the reads of the recovery for the repository, see recoveryRangeSize
+        if (directory.isRecoveryFinalized()) {
+            readAhead.onRead(position, getDefaultRangeSize(), fileInfo.length());
+        }
+    }
+
+    /**
+     * Fetches the given range of the file in the background if it is neither available nor pending.
+     */
+    private boolean prefetchRange(ByteRange range) {
+        try {
+            if (frozenCacheFile.readIfAvailableOrPending(range, (channel, pos, relativePos, len) -> Math.toIntExact(len)) != null) {
+                return false;
+            }
+            frozenCacheFile.populateAndRead(
+                range,
+                range,
+                (channel, pos, relativePos, len) -> Math.toIntExact(len),
+                (channel, channelPos, relativePos, len, progressUpdater) -> writeCacheFile(
+                    channel,
+                    channelPos,
+                    relativePos,
+                    len,
+                    range.start(),
+                    progressUpdater
+                ),
+                directory.cacheFetchAsyncExecutor()
+            );
+            logger.trace("prefetching range [{}-{}] of file [{}]", range.start(), range.end(), fileInfo.physicalName());
+            return true;
+        } catch (Exception e) {
+            logger.debug(
+                new ParameterizedMessage("failed to prefetch range [{}-{}] of file [{}]", range.start(), range.end(), fileInfo),
+                e
+            );
+            return false;
+        }
     }
 
     private int readDirectlyIfAlreadyClosed(long position, ByteBuffer b, Exception e) throws IOException {
@@ -655,7 +703,9 @@ public class FrozenIndexInput extends BaseSearchableSnapshotIndexInput {
 
     @Override
     public FrozenIndexInput clone() {
-        return (FrozenIndexInput) super.clone();
+        final FrozenIndexInput clone = (FrozenIndexInput) super.clone();
+        clone.readAhead = new ReadAhead(prefetchedRanges, clone::prefetchRange);
+        return clone;
     }
 
     @Override
@@ -684,7 +734,8 @@ public class FrozenIndexInput extends BaseSearchableSnapshotIndexInput {
             length,
             frozenCacheFile,
             defaultRangeSize,
-            recoveryRangeSize
+            recoveryRangeSize,
+            prefetchedRanges
         );
         slice.isClone = true;
         return slice;
@@ -0,0 +1,169 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0; you may not use this file except in compliance with the Elastic License
+ * 2.0.
+ */
+
+package org.elasticsearch.index.store.cache;
+
+import org.elasticsearch.index.store.IndexInputStats;
+import org.elasticsearch.xpack.searchablesnapshots.cache.ByteRange;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+
+/**
+ * Detects sequential or strided access patterns in the reads of an index input and prefetches the ranges that the pattern will read
+ * next, so that they are fetched from the blob store in parallel with the reads rather than one at a time when they are first accessed.
+ * <p>
+ * Reads are tracked at the granularity of the ranges that are fetched from the blob store: an access pattern is a sequence of reads
+ * that move forward by the same number of ranges each time, one range for sequential reads and more for strided reads. Once a pattern
+ * is detected the number of ranges that are prefetched ahead of the reads doubles every time the reads move on to the next range,
+ * up to a maximum. Any other move resets the pattern.
+ * <p>
+ * The prefetched ranges are kept around in {@link PrefetchedRanges} to record whether they are read later on: a prefetched range is a
+ * hit if a read falls into it, and is wasted if it is dropped without being read, either because too many ranges were prefetched since
+ * or because the index input was closed. An index input shares its {@link PrefetchedRanges} with its clones and slices, which Lucene
+ * never closes, so that their prefetched ranges are accounted for when the index input is closed.
+ * <p>
+ * Instances are not thread-safe, like the index inputs that use them.
+ */
+final class ReadAhead {
+
+    /**
+     * The number of consecutive moves by the same number of ranges after which the reads are considered to follow a pattern.
+     */
+    static final int MIN_PATTERN_LENGTH = 2;
+
+    @FunctionalInterface
+    interface RangePrefetcher {
+        /**
+         * Starts to fetch the given range in the background.
+         *
+         * @return {@code true} if the range is being fetched, or {@code false} if it was already available or pending
+         */
+        boolean prefetch(ByteRange range);
+    }
+
+    private final PrefetchedRanges prefetched;
+    private final int maxRanges;
+    private final RangePrefetcher prefetcher;
+
+    private long rangeSize = -1L;
+    private long lastRange = -1L;
+    private long stride;
+    private int patternLength;
+    private int window;
+
+    ReadAhead(PrefetchedRanges prefetched, RangePrefetcher prefetcher) {
+        this.prefetched = prefetched;
+        this.maxRanges = prefetched.maxRanges;
+        this.prefetcher = prefetcher;
+    }
+
+    /**
+     * Records a read at the given position, prefetching the next ranges of the access pattern if there is one.
+     *
+     * @param position   the position of the read, relative to the start of the file
+     * @param rangeSize  the size of the ranges that are fetched from the blob store
+     * @param fileLength the length of the file
+     */
+    void onRead(long position, long rangeSize, long fileLength) {
+        if (maxRanges <= 0) {
+            return;
+        }
+        if (rangeSize != this.rangeSize) {
+            this.rangeSize = rangeSize;
+            lastRange = -1L;
+            reset();
+        }
+        final long range = position / rangeSize;
+        if (range == lastRange) {
+            return;
+        }
+        prefetched.recordHit(position);
+
+        final long delta = range - lastRange;
+        if (lastRange < 0L || delta < 0L) {
+            reset();
+        } else if (delta == stride) {
+            patternLength++;
+        } else {
+            stride = delta;
+            patternLength = 1;
+            window = 0;
+        }
+        lastRange = range;
+
+        if (patternLength >= MIN_PATTERN_LENGTH) {
+            window = Math.min(maxRanges, window == 0 ? 1 : window * 2);
+            for (int i = 1; i <= window; i++) {
+                final long start = (range + stride * i) * rangeSize;
+                if (start >= fileLength) {
+                    break;
+                }
+                final ByteRange rangeToPrefetch = ByteRange.of(start, Math.min(start + rangeSize, fileLength));
+                if (prefetched.contains(rangeToPrefetch) == false && prefetcher.prefetch(rangeToPrefetch)) {
+                    prefetched.add(rangeToPrefetch);
+                }
+            }
+        }
+    }
+
+    private void reset() {
+        stride = 0L;
+        patternLength = 0;
+        window = 0;
+    }
+
+    /**
+     * The ranges that were prefetched for an index input, its clones and its slices and that were not read yet. At most twice the
+     * maximum number of ranges to read ahead are kept, the oldest ones are dropped and recorded as wasted first.
+     */
+    static final class PrefetchedRanges {
+
+        private final IndexInputStats stats;
+        private final int maxRanges;
+        // oldest first
+        private final ArrayDeque<ByteRange> ranges = new ArrayDeque<>();
+
+        PrefetchedRanges(IndexInputStats stats, int maxRanges) {
+            this.stats = stats;
+            this.maxRanges = maxRanges;
+        }
+
+        synchronized boolean contains(ByteRange range) {
+            return ranges.contains(range);
+        }
+
+        synchronized void add(ByteRange range) {
+            ranges.addLast(range);
+            while (ranges.size() > maxRanges * 2) {
+                stats.addReadAheadWaste(ranges.removeFirst().length());
+            }
+        }
+
+        synchronized void recordHit(long position) {
+            final Iterator<ByteRange> iterator = ranges.iterator();
+            while (iterator.hasNext()) {
+                final ByteRange range = iterator.next();
+                if (range.start() <= position && position < range.end()) {
+                    stats.addReadAheadHit(range.length());
+                    iterator.remove();
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Records the prefetched ranges that were never read as wasted.
+         */
+        synchronized void close() {
+            ByteRange range;
+            while ((range = ranges.pollFirst()) != null) {
+                stats.addReadAheadWaste(range.length());
+            }
+        }
+    }
+}
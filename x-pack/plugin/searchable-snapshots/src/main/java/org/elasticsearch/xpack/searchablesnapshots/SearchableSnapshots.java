@@ -247,6 +247,7 @@ public class SearchableSnapshots extends Plugin implements IndexStorePlugin, Eng
             CacheService.SNAPSHOT_CACHE_SIZE_SETTING,
             CacheService.SNAPSHOT_CACHE_RANGE_SIZE_SETTING,
             CacheService.SNAPSHOT_CACHE_RECOVERY_RANGE_SIZE_SETTING,
+            CacheService.SNAPSHOT_CACHE_READ_AHEAD_RANGES_SETTING,
             CacheService.SNAPSHOT_CACHE_SYNC_INTERVAL_SETTING,
             CacheService.SNAPSHOT_CACHE_MAX_FILES_TO_SYNC_AT_ONCE_SETTING,
             CacheService.SNAPSHOT_CACHE_SYNC_SHUTDOWN_TIMEOUT,
@@ -255,6 +256,10 @@ public class SearchableSnapshots extends Plugin implements IndexStorePlugin, Eng
             SnapshotsService.SNAPSHOT_CACHE_REGION_SIZE_SETTING,
             SnapshotsService.SHARED_CACHE_RANGE_SIZE_SETTING,
             FrozenCacheService.FROZEN_CACHE_RECOVERY_RANGE_SIZE_SETTING,
+            FrozenCacheService.FROZEN_CACHE_READ_AHEAD_RANGES_SETTING,
+            FrozenCacheService.SNAPSHOT_CACHE_PROTECTED_RATIO_SETTING,
+            FrozenCacheService.SNAPSHOT_CACHE_PINNED_FILE_EXTENSIONS_SETTING,
+            FrozenCacheService.SNAPSHOT_CACHE_MAX_PINNED_RATIO_SETTING,
             FrozenCacheService.SNAPSHOT_CACHE_MAX_FREQ_SETTING,
             FrozenCacheService.SNAPSHOT_CACHE_DECAY_INTERVAL_SETTING,
             FrozenCacheService.SNAPSHOT_CACHE_MIN_TIME_DELTA_SETTING
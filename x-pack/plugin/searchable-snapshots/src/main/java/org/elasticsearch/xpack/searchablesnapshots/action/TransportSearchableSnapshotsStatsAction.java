@@ -22,6 +22,7 @@ import org.elasticsearch.transport.TransportService;
 import org.elasticsearch.xpack.core.searchablesnapshots.SearchableSnapshotShardStats;
 import org.elasticsearch.xpack.core.searchablesnapshots.SearchableSnapshotShardStats.CacheIndexInputStats;
 import org.elasticsearch.xpack.core.searchablesnapshots.SearchableSnapshotShardStats.Counter;
+import org.elasticsearch.xpack.core.searchablesnapshots.SearchableSnapshotShardStats.SharedCacheStats;
 import org.elasticsearch.xpack.core.searchablesnapshots.SearchableSnapshotShardStats.TimedCounter;
 import org.elasticsearch.index.store.IndexInputStats;
 
@@ -115,6 +116,16 @@ public class TransportSearchableSnapshotsStatsAction extends AbstractTransportSe
             toTimedCounter(inputStats.getDirectBytesRead()),
             toTimedCounter(inputStats.getOptimizedBytesRead()),
             toCounter(inputStats.getBlobStoreBytesRequested()),
+            toCounter(inputStats.getReadAheadHits()),
+            toCounter(inputStats.getReadAheadWaste()),
+            new SharedCacheStats(
+                inputStats.getSharedCacheRegions(),
+                inputStats.getSharedCachePinnedRegions(),
+                inputStats.getSharedCacheBytes(),
+                toCounter(inputStats.getSharedCacheProbationEvictions()),
+                toCounter(inputStats.getSharedCacheProtectedEvictions()),
+                toCounter(inputStats.getSharedCacheForcedEvictions())
+            ),
             inputStats.getCurrentIndexCacheFills()
         );
     }
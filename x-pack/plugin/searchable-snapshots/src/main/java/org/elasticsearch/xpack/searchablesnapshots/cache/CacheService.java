@@ -106,6 +106,18 @@ public class CacheService extends AbstractLifecycleComponent {
         Setting.Property.NodeScope
     );
 
+    /**
+     * Searches that read files sequentially, or that skip over the same number of ranges between reads, wait for each range to be read
+     * from the repository in turn. Once such an access pattern is detected, up to this many of the ranges that it reads next are fetched
+     * in the background ahead of the reads. Setting this to 0 disables read-ahead.
+     */
+    public static final Setting<Integer> SNAPSHOT_CACHE_READ_AHEAD_RANGES_SETTING = Setting.intSetting(
+        SETTINGS_PREFIX + "read_ahead_ranges",
+        4,                                                      // default
+        0,                                                      // min
+        Setting.Property.NodeScope
+    );
+
     public static final TimeValue MIN_SNAPSHOT_CACHE_SYNC_INTERVAL = TimeValue.timeValueSeconds(1L);
     public static final Setting<TimeValue> SNAPSHOT_CACHE_SYNC_INTERVAL_SETTING = Setting.timeSetting(
         SETTINGS_PREFIX + "sync.interval",
@@ -145,6 +157,7 @@ public class CacheService extends AbstractLifecycleComponent {
     private final ByteSizeValue cacheSize;
     private final ByteSizeValue rangeSize;
     private final ByteSizeValue recoveryRangeSize;
+    private final int readAheadRanges;
     private final Map<ShardEviction, Future<?>> pendingShardsEvictions;
     private final ReadWriteLock shardsEvictionsLock;
     private final Object shardsEvictionsMutex;
@@ -162,6 +175,7 @@ public class CacheService extends AbstractLifecycleComponent {
         this.cacheSize = SNAPSHOT_CACHE_SIZE_SETTING.get(settings);
         this.rangeSize = SNAPSHOT_CACHE_RANGE_SIZE_SETTING.get(settings);
         this.recoveryRangeSize = SNAPSHOT_CACHE_RECOVERY_RANGE_SIZE_SETTING.get(settings);
+        this.readAheadRanges = SNAPSHOT_CACHE_READ_AHEAD_RANGES_SETTING.get(settings);
         this.cache = CacheBuilder.<CacheKey, CacheFile>builder()
             .setMaximumWeight(cacheSize.getBytes())
             .weigher((key, entry) -> entry.getLength())
@@ -271,6 +285,13 @@ public class CacheService extends AbstractLifecycleComponent {
         return toIntBytes(recoveryRangeSize.getBytes());
     }
 
+    /**
+     * @return the maximum number of ranges to read ahead of sequential or strided reads
+     */
+    public int getReadAheadRanges() {
+        return readAheadRanges;
+    }
+
     /**
      * Retrieves the {@link CacheFile} instance associated with the specified {@link CacheKey} in the cache. If the key is not already
      * associated with a {@link CacheFile}, this method creates a new instance using the given file length and cache directory.
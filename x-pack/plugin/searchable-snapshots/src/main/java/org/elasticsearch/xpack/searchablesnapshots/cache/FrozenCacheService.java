@@ -9,6 +9,7 @@ package org.elasticsearch.xpack.searchablesnapshots.cache;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.apache.lucene.index.IndexFileNames;
 import org.apache.lucene.store.AlreadyClosedException;
 import org.elasticsearch.Assertions;
 import org.elasticsearch.action.ActionListener;
@@ -28,6 +29,7 @@ import org.elasticsearch.common.util.concurrent.KeyedLock;
 import org.elasticsearch.core.internal.io.IOUtils;
 import org.elasticsearch.env.Environment;
 import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.index.store.IndexInputStats;
 import org.elasticsearch.index.store.cache.CacheKey;
 import org.elasticsearch.index.store.cache.SparseFileTracker;
 import org.elasticsearch.threadpool.ThreadPool;
@@ -35,14 +37,17 @@ import org.elasticsearch.threadpool.ThreadPool;
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.function.LongSupplier;
 import java.util.function.Predicate;
 
@@ -65,6 +70,18 @@ public class FrozenCacheService implements Releasable {
         Setting.Property.NodeScope
     );
 
+    /**
+     * The maximum number of ranges to read ahead of sequential or strided reads, see
+     * {@link CacheService#SNAPSHOT_CACHE_READ_AHEAD_RANGES_SETTING}. This defaults to fewer ranges than for fully cached files because
+     * each prefetched range takes space in the shared cache, possibly evicting regions that are still in use.
+     */
+    public static final Setting<Integer> FROZEN_CACHE_READ_AHEAD_RANGES_SETTING = Setting.intSetting(
+        SHARED_CACHE_SETTINGS_PREFIX + "read_ahead_ranges",
+        2,                                                      // default
+        0,                                                      // min
+        Setting.Property.NodeScope
+    );
+
     public static final TimeValue MIN_SNAPSHOT_CACHE_DECAY_INTERVAL = TimeValue.timeValueSeconds(1L);
     public static final Setting<TimeValue> SNAPSHOT_CACHE_DECAY_INTERVAL_SETTING = Setting.timeSetting(
         SHARED_CACHE_SETTINGS_PREFIX + "decay.interval",
@@ -88,6 +105,44 @@ public class FrozenCacheService implements Releasable {
         Setting.Property.NodeScope
     );
 
+    /**
+     * The maximum share of the regions of the cache that are in the protected segment, made of the regions that were accessed again
+     * after they were first cached. The other regions are in the probationary segment, from which regions are evicted first: this
+     * guarantees that a scan through data that is read only once, like a large aggregation or a recovery, only evicts other regions
+     * that were read once, and that regions of a new working set can still make it into the protected segment when it is full.
+     */
+    public static final Setting<Double> SNAPSHOT_CACHE_PROTECTED_RATIO_SETTING = Setting.doubleSetting(
+        SHARED_CACHE_SETTINGS_PREFIX + "protected_ratio",
+        0.8,                                                    // default
+        0.0,                                                    // min
+        1.0,                                                    // max
+        Setting.Property.NodeScope
+    );
+
+    /**
+     * The extensions of the files whose regions are pinned in the cache: they are never evicted to make room for other regions, only
+     * when their file or shard is removed from the cache. These are small Lucene files that are read every time a shard is opened or
+     * searched, so that evicting them makes queries wait for the blob store even when the rest of the data they need is cached.
+     */
+    public static final Setting<List<String>> SNAPSHOT_CACHE_PINNED_FILE_EXTENSIONS_SETTING = Setting.listSetting(
+        SHARED_CACHE_SETTINGS_PREFIX + "pinned_file_extensions",
+        List.of("si", "cfe", "tip", "tmd"),
+        Function.identity(),
+        Setting.Property.NodeScope
+    );
+
+    /**
+     * The maximum share of the regions of the cache that can be pinned, the regions of the files that are listed in
+     * {@link #SNAPSHOT_CACHE_PINNED_FILE_EXTENSIONS_SETTING} are cached like other regions above this limit.
+     */
+    public static final Setting<Double> SNAPSHOT_CACHE_MAX_PINNED_RATIO_SETTING = Setting.doubleSetting(
+        SHARED_CACHE_SETTINGS_PREFIX + "max_pinned_ratio",
+        0.1,                                                    // default
+        0.0,                                                    // min
+        1.0,                                                    // max
+        Setting.Property.NodeScope
+    );
+
     private static final Logger logger = LogManager.getLogger(FrozenCacheService.class);
 
     private final ConcurrentHashMap<RegionKey, Entry<CacheFileRegion>> keyMapping;
@@ -100,12 +155,21 @@ public class FrozenCacheService implements Releasable {
     private final long regionSize;
     private final ByteSizeValue rangeSize;
     private final ByteSizeValue recoveryRangeSize;
+    private final int readAheadRanges;
 
     private final ConcurrentLinkedQueue<Integer> freeRegions = new ConcurrentLinkedQueue<>();
     private final Entry<CacheFileRegion>[] freqs;
     private final int maxFreq;
     private final long minTimeDelta;
 
+    // regions with a frequency above zero are in the protected segment, the others are in the probationary segment
+    private final int maxProtectedRegions;
+    private int protectedRegions; // protected by this
+
+    private final Set<String> pinnedFileExtensions;
+    private final int maxPinnedRegions;
+    private int pinnedRegions; // protected by this
+
     private final AtomicReference<CacheFileRegion>[] regionOwners; // to assert exclusive access of regions
 
     private final CacheDecayTask decayTask;
@@ -134,6 +198,9 @@ public class FrozenCacheService implements Releasable {
         this.maxFreq = SNAPSHOT_CACHE_MAX_FREQ_SETTING.get(settings);
         this.minTimeDelta = SNAPSHOT_CACHE_MIN_TIME_DELTA_SETTING.get(settings).millis();
         freqs = new Entry[maxFreq];
+        this.maxProtectedRegions = (int) (numRegions * SNAPSHOT_CACHE_PROTECTED_RATIO_SETTING.get(settings));
+        this.pinnedFileExtensions = new HashSet<>(SNAPSHOT_CACHE_PINNED_FILE_EXTENSIONS_SETTING.get(settings));
+        this.maxPinnedRegions = (int) (numRegions * SNAPSHOT_CACHE_MAX_PINNED_RATIO_SETTING.get(settings));
         try {
             sharedBytes = new SharedBytes(numRegions, regionSize, environment);
         } catch (IOException e) {
@@ -143,6 +210,7 @@ public class FrozenCacheService implements Releasable {
         decayTask.rescheduleIfNecessary();
         this.rangeSize = SHARED_CACHE_RANGE_SIZE_SETTING.get(settings);
         this.recoveryRangeSize = FROZEN_CACHE_RECOVERY_RANGE_SIZE_SETTING.get(settings);
+        this.readAheadRanges = FROZEN_CACHE_READ_AHEAD_RANGES_SETTING.get(settings);
     }
 
     public int getRangeSize() {
@@ -153,6 +221,10 @@ public class FrozenCacheService implements Releasable {
         return toIntBytes(recoveryRangeSize.getBytes());
     }
 
+    public int getReadAheadRanges() {
+        return readAheadRanges;
+    }
+
     private int getRegion(long position) {
         return Math.toIntExact(position / regionSize);
     }
@@ -209,14 +281,14 @@ public class FrozenCacheService implements Releasable {
         return effectiveRegionSize;
     }
 
-    public CacheFileRegion get(CacheKey cacheKey, long fileLength, int region) {
+    public CacheFileRegion get(CacheKey cacheKey, long fileLength, int region, IndexInputStats stats) {
         final long regionSize = getRegionSize(fileLength, region);
         try (Releasable ignore = keyedLock.acquire(cacheKey)) {
             final RegionKey regionKey = new RegionKey(cacheKey, region);
             final long now = currentTimeSupplier.getAsLong();
             final Entry<CacheFileRegion> entry = keyMapping.computeIfAbsent(
                 regionKey,
-                key -> new Entry<>(new CacheFileRegion(regionKey, regionSize), now)
+                key -> new Entry<>(new CacheFileRegion(regionKey, regionSize, stats), now)
             );
             if (entry.chunk.sharedBytesPos == -1) {
                 // new item
@@ -226,11 +298,7 @@ public class FrozenCacheService implements Releasable {
                 final Integer freeSlot = freeRegions.poll();
                 if (freeSlot != null) {
                     // no need to evict an item, just add
-                    entry.chunk.sharedBytesPos = freeSlot;
-                    assert regionOwners[freeSlot].compareAndSet(null, entry.chunk);
-                    synchronized (this) {
-                        pushEntryToBack(entry);
-                    }
+                    assignSlot(entry, freeSlot);
                 } else {
                     // need to evict something
                     synchronized (this) {
@@ -238,11 +306,7 @@ public class FrozenCacheService implements Releasable {
                     }
                     final Integer freeSlotRetry = freeRegions.poll();
                     if (freeSlotRetry != null) {
-                        entry.chunk.sharedBytesPos = freeSlotRetry;
-                        assert regionOwners[freeSlotRetry].compareAndSet(null, entry.chunk);
-                        synchronized (this) {
-                            pushEntryToBack(entry);
-                        }
+                        assignSlot(entry, freeSlotRetry);
                     } else {
                         boolean removed = keyMapping.remove(regionKey, entry);
                         assert removed;
@@ -252,11 +316,15 @@ public class FrozenCacheService implements Releasable {
             } else {
                 // check if we need to promote item
                 synchronized (this) {
-                    if (now - entry.lastAccessed >= minTimeDelta && entry.freq + 1 < maxFreq) {
+                    if (entry.chunk.pinned == false && now - entry.lastAccessed >= minTimeDelta && entry.freq + 1 < maxFreq) {
                         unlink(entry);
+                        if (entry.freq == 0) {
+                            protectedRegions++;
+                        }
                         entry.freq++;
                         entry.lastAccessed = now;
                         pushEntryToBack(entry);
+                        demoteProtectedEntries();
                     }
                 }
             }
@@ -264,8 +332,31 @@ public class FrozenCacheService implements Releasable {
         }
     }
 
+    private void assignSlot(Entry<CacheFileRegion> entry, int freeSlot) {
+        final CacheFileRegion chunk = entry.chunk;
+        chunk.sharedBytesPos = freeSlot;
+        assert regionOwners[freeSlot].compareAndSet(null, chunk);
+        synchronized (this) {
+            if (pinnedRegions < maxPinnedRegions && pinnedFileExtensions.contains(getFileExtension(chunk.regionKey.file))) {
+                // pinned regions are not linked in the frequency lists so that they are never picked for eviction
+                chunk.pinned = true;
+                pinnedRegions++;
+            }
+            chunk.stats.addSharedCacheRegion(chunk.tracker.getLength(), chunk.pinned);
+            if (chunk.pinned == false) {
+                pushEntryToBack(entry);
+            }
+        }
+    }
+
+    private static String getFileExtension(CacheKey cacheKey) {
+        final String ext = IndexFileNames.getExtension(cacheKey.getFileName());
+        return ext == null ? "" : ext;
+    }
+
     public void onClose(CacheFileRegion chunk) {
         assert regionOwners[chunk.sharedBytesPos].compareAndSet(chunk, null);
+        chunk.stats.removeSharedCacheRegion(chunk.tracker.getLength(), chunk.pinned);
         freeRegions.add(chunk.sharedBytesPos);
     }
 
@@ -274,6 +365,16 @@ public class FrozenCacheService implements Releasable {
         return freeRegions.size();
     }
 
+    // used by tests
+    synchronized int protectedRegionCount() {
+        return protectedRegions;
+    }
+
+    // used by tests
+    synchronized int pinnedRegionCount() {
+        return pinnedRegions;
+    }
+
     private synchronized boolean invariant(final Entry<CacheFileRegion> e, boolean present) {
         boolean found = false;
         for (int i = 0; i < maxFreq; i++) {
@@ -303,6 +404,10 @@ public class FrozenCacheService implements Releasable {
         return true;
     }
 
+    /**
+     * Evicts the least recently used region of the probationary segment that is not in use, or of the protected segment if all the
+     * regions of the probationary segment are in use.
+     */
     private void maybeEvict() {
         assert Thread.holdsLock(this);
         for (int i = 0; i < maxFreq; i++) {
@@ -310,6 +415,12 @@ public class FrozenCacheService implements Releasable {
                 boolean evicted = entry.chunk.tryEvict();
                 if (evicted) {
                     unlink(entry);
+                    if (entry.freq > 0) {
+                        protectedRegions--;
+                        entry.chunk.stats.addSharedCacheProtectedEviction(entry.chunk.tracker.getLength());
+                    } else {
+                        entry.chunk.stats.addSharedCacheProbationEviction(entry.chunk.tracker.getLength());
+                    }
                     keyMapping.remove(entry.chunk.regionKey, entry);
                     return;
                 }
@@ -317,6 +428,24 @@ public class FrozenCacheService implements Releasable {
         }
     }
 
+    /**
+     * Moves the least frequently and least recently used regions of the protected segment back to the probationary segment while the
+     * protected segment holds more than its share of the regions. Demoted regions go to the back of the probationary segment, so they
+     * are evicted after the regions that were only read once.
+     */
+    private void demoteProtectedEntries() {
+        assert Thread.holdsLock(this);
+        for (int i = 1; i < maxFreq && protectedRegions > maxProtectedRegions; i++) {
+            Entry<CacheFileRegion> entry;
+            while (protectedRegions > maxProtectedRegions && (entry = freqs[i]) != null) {
+                unlink(entry);
+                entry.freq = 0;
+                protectedRegions--;
+                pushEntryToBack(entry);
+            }
+        }
+    }
+
     private void pushEntryToBack(final Entry<CacheFileRegion> entry) {
         assert Thread.holdsLock(this);
         assert invariant(entry, false);
@@ -378,6 +507,9 @@ public class FrozenCacheService implements Releasable {
                         if (entry.freq > 0) {
                             unlink(entry);
                             entry.freq--;
+                            if (entry.freq == 0) {
+                                protectedRegions--;
+                            }
                             pushEntryToBack(entry);
                         }
                     }
@@ -410,7 +542,15 @@ public class FrozenCacheService implements Releasable {
                 for (Entry<CacheFileRegion> entry : matchingEntries) {
                     boolean evicted = entry.chunk.forceEvict();
                     if (evicted) {
-                        unlink(entry);
+                        if (entry.chunk.pinned) {
+                            pinnedRegions--;
+                        } else {
+                            unlink(entry);
+                            if (entry.freq > 0) {
+                                protectedRegions--;
+                            }
+                        }
+                        entry.chunk.stats.addSharedCacheForcedEviction(entry.chunk.tracker.getLength());
                         keyMapping.remove(entry.chunk.regionKey, entry);
                     }
                 }
@@ -499,11 +639,14 @@ public class FrozenCacheService implements Releasable {
     class CacheFileRegion extends AbstractRefCounted {
         final RegionKey regionKey;
         final SparseFileTracker tracker;
+        final IndexInputStats stats;
         volatile int sharedBytesPos = -1;
+        volatile boolean pinned;
 
-        CacheFileRegion(RegionKey regionKey, long regionSize) {
+        CacheFileRegion(RegionKey regionKey, long regionSize, IndexInputStats stats) {
             super("CacheFileRegion");
             this.regionKey = regionKey;
+            this.stats = Objects.requireNonNull(stats);
             assert regionSize > 0L;
             tracker = new SparseFileTracker("file", regionSize);
         }
@@ -697,10 +840,12 @@ public class FrozenCacheService implements Releasable {
 
         private final CacheKey cacheKey;
         private final long length;
+        private final IndexInputStats stats;
 
-        public FrozenCacheFile(CacheKey cacheKey, long length) {
+        public FrozenCacheFile(CacheKey cacheKey, long length, IndexInputStats stats) {
             this.cacheKey = cacheKey;
             this.length = length;
+            this.stats = stats;
         }
 
         public StepListener<Integer> populateAndRead(
@@ -717,7 +862,7 @@ public class FrozenCacheService implements Releasable {
                 final int region = i;
                 final ByteRange subRangeToWrite = mapSubRangeToRegion(rangeToWrite, region);
                 final ByteRange subRangeToRead = mapSubRangeToRegion(rangeToRead, region);
-                final CacheFileRegion fileRegion = get(cacheKey, length, region);
+                final CacheFileRegion fileRegion = get(cacheKey, length, region, stats);
                 final StepListener<Integer> lis = fileRegion.populateAndRead(
                     subRangeToWrite,
                     subRangeToRead,
@@ -757,7 +902,7 @@ public class FrozenCacheService implements Releasable {
             for (int i = getRegion(rangeToRead.start()); i <= getEndingRegion(rangeToRead.end()); i++) {
                 final int region = i;
                 final ByteRange subRangeToRead = mapSubRangeToRegion(rangeToRead, region);
-                final CacheFileRegion fileRegion = get(cacheKey, length, region);
+                final CacheFileRegion fileRegion = get(cacheKey, length, region, stats);
                 final StepListener<Integer> lis = fileRegion.readIfAvailableOrPending(
                     subRangeToRead,
                     (channel, channelPos, relativePos, length) -> {
@@ -785,8 +930,8 @@ public class FrozenCacheService implements Releasable {
         }
     }
 
-    public FrozenCacheFile getFrozenCacheFile(CacheKey cacheKey, long length) {
-        return new FrozenCacheFile(cacheKey, length);
+    public FrozenCacheFile getFrozenCacheFile(CacheKey cacheKey, long length, IndexInputStats stats) {
+        return new FrozenCacheFile(cacheKey, length, stats);
     }
 
     @FunctionalInterface
@@ -0,0 +1,171 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0; you may not use this file except in compliance with the Elastic License
+ * 2.0.
+ */
+
+package org.elasticsearch.index.store.cache;
+
+import org.elasticsearch.index.store.IndexInputStats;
+import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.xpack.searchablesnapshots.cache.ByteRange;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.elasticsearch.index.store.cache.TestUtils.assertCounter;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+
+public class ReadAheadTests extends ESTestCase {
+
+    private static final long RANGE_SIZE = 100L;
+
+    public void testSequentialReads() {
+        final IndexInputStats stats = new IndexInputStats(1, 10_000L, () -> 0L);
+        final List<ByteRange> prefetched = new ArrayList<>();
+        final ReadAhead.PrefetchedRanges prefetchedRanges = new ReadAhead.PrefetchedRanges(stats, 4);
+        final ReadAhead readAhead = new ReadAhead(prefetchedRanges, range -> prefetched.add(range));
+
+        // reads within the first ranges don't prefetch anything until the pattern is established
+        for (long position = 0L; position < 2 * RANGE_SIZE; position += 10L) {
+            readAhead.onRead(position, RANGE_SIZE, 10_000L);
+        }
+        assertThat(prefetched, empty());
+
+        // then the window doubles every time the reads move on to the next range
+        readAhead.onRead(2 * RANGE_SIZE, RANGE_SIZE, 10_000L);
+        assertThat(prefetched, contains(range(3)));
+        prefetched.clear();
+        readAhead.onRead(3 * RANGE_SIZE + 10L, RANGE_SIZE, 10_000L);
+        assertThat(prefetched, contains(range(4), range(5)));
+        prefetched.clear();
+        readAhead.onRead(4 * RANGE_SIZE, RANGE_SIZE, 10_000L);
+        assertThat(prefetched, contains(range(6), range(7), range(8)));
+        prefetched.clear();
+        readAhead.onRead(5 * RANGE_SIZE, RANGE_SIZE, 10_000L);
+        assertThat(prefetched, contains(range(9)));
+        assertCounter(stats.getReadAheadHits(), 3 * RANGE_SIZE, 3L, RANGE_SIZE, RANGE_SIZE);
+
+        // seeking backwards resets the pattern, the ranges that are never read are wasted
+        readAhead.onRead(0L, RANGE_SIZE, 10_000L);
+        readAhead.onRead(RANGE_SIZE, RANGE_SIZE, 10_000L);
+        prefetchedRanges.close();
+        assertCounter(stats.getReadAheadHits(), 3 * RANGE_SIZE, 3L, RANGE_SIZE, RANGE_SIZE);
+        assertCounter(stats.getReadAheadWaste(), 4 * RANGE_SIZE, 4L, RANGE_SIZE, RANGE_SIZE);
+    }
+
+    public void testStridedReads() {
+        final IndexInputStats stats = new IndexInputStats(1, 10_000L, () -> 0L);
+        final List<ByteRange> prefetched = new ArrayList<>();
+        final ReadAhead.PrefetchedRanges prefetchedRanges = new ReadAhead.PrefetchedRanges(stats, 2);
+        final ReadAhead readAhead = new ReadAhead(prefetchedRanges, range -> prefetched.add(range));
+
+        readAhead.onRead(0L, RANGE_SIZE, 10_000L);
+        readAhead.onRead(3 * RANGE_SIZE, RANGE_SIZE, 10_000L);
+        readAhead.onRead(6 * RANGE_SIZE, RANGE_SIZE, 10_000L);
+        assertThat(prefetched, contains(range(9)));
+        readAhead.onRead(9 * RANGE_SIZE, RANGE_SIZE, 10_000L);
+        assertThat(prefetched, contains(range(9), range(12), range(15)));
+        readAhead.onRead(12 * RANGE_SIZE, RANGE_SIZE, 10_000L);
+        assertThat(prefetched, contains(range(9), range(12), range(15), range(18)));
+        assertCounter(stats.getReadAheadHits(), 2 * RANGE_SIZE, 2L, RANGE_SIZE, RANGE_SIZE);
+    }
+
+    public void testRandomReadsDoNotPrefetch() {
+        final IndexInputStats stats = new IndexInputStats(1, 10_000L, () -> 0L);
+        final ReadAhead.PrefetchedRanges prefetchedRanges = new ReadAhead.PrefetchedRanges(stats, randomIntBetween(1, 8));
+        final ReadAhead readAhead = new ReadAhead(prefetchedRanges, range -> {
+            throw new AssertionError("should not prefetch " + range);
+        });
+        // every move to another range is different from the previous one
+        long range = 50L;
+        for (long delta : new long[] { 1L, 5L, -2L, 3L, -7L, 2L, 9L, -1L, 4L }) {
+            range += delta;
+            readAhead.onRead(range * RANGE_SIZE + randomLongBetween(0L, RANGE_SIZE - 1L), RANGE_SIZE, 10_000L);
+        }
+        prefetchedRanges.close();
+        assertCounter(stats.getReadAheadWaste(), 0L, 0L, 0L, 0L);
+    }
+
+    public void testDoesNotPrefetchPastEndOfFile() {
+        final IndexInputStats stats = new IndexInputStats(1, 450L, () -> 0L);
+        final List<ByteRange> prefetched = new ArrayList<>();
+        final ReadAhead.PrefetchedRanges prefetchedRanges = new ReadAhead.PrefetchedRanges(stats, 8);
+        final ReadAhead readAhead = new ReadAhead(prefetchedRanges, range -> prefetched.add(range));
+        for (long position = 0L; position < 450L; position += RANGE_SIZE) {
+            readAhead.onRead(position, RANGE_SIZE, 450L);
+        }
+        assertThat(prefetched, contains(range(3), ByteRange.of(400L, 450L)));
+        prefetchedRanges.close();
+        assertCounter(stats.getReadAheadHits(), 150L, 2L, 50L, RANGE_SIZE);
+        assertCounter(stats.getReadAheadWaste(), 0L, 0L, 0L, 0L);
+    }
+
+    public void testSkipsRangesThatAreAlreadyAvailable() {
+        final IndexInputStats stats = new IndexInputStats(1, 10_000L, () -> 0L);
+        final Set<ByteRange> available = new HashSet<>();
+        final ReadAhead.PrefetchedRanges prefetchedRanges = new ReadAhead.PrefetchedRanges(stats, 4);
+        final ReadAhead readAhead = new ReadAhead(prefetchedRanges, available::add);
+        available.add(range(4));
+        for (int range = 0; range < 6; range++) {
+            readAhead.onRead(range * RANGE_SIZE, RANGE_SIZE, 10_000L);
+        }
+        // the fourth range was available before, so reading it is not a hit
+        assertCounter(stats.getReadAheadHits(), 2 * RANGE_SIZE, 2L, RANGE_SIZE, RANGE_SIZE);
+    }
+
+    public void testDisabled() {
+        final IndexInputStats stats = new IndexInputStats(1, 10_000L, () -> 0L);
+        final ReadAhead.PrefetchedRanges prefetchedRanges = new ReadAhead.PrefetchedRanges(stats, 0);
+        final ReadAhead readAhead = new ReadAhead(prefetchedRanges, range -> {
+            throw new AssertionError("should not prefetch " + range);
+        });
+        for (long position = 0L; position < 10_000L; position += RANGE_SIZE) {
+            readAhead.onRead(position, RANGE_SIZE, 10_000L);
+        }
+        prefetchedRanges.close();
+        assertThat(stats.getReadAheadHits().count(), equalTo(0L));
+    }
+
+    public void testClonesSharePrefetchedRanges() {
+        final IndexInputStats stats = new IndexInputStats(1, 10_000L, () -> 0L);
+        final ReadAhead.PrefetchedRanges prefetchedRanges = new ReadAhead.PrefetchedRanges(stats, 1);
+        final Set<ByteRange> prefetched = new HashSet<>();
+        final ReadAhead readAhead = new ReadAhead(prefetchedRanges, prefetched::add);
+        final ReadAhead clone = new ReadAhead(prefetchedRanges, prefetched::add);
+
+        readRanges(readAhead, 0, 1, 2, 3);
+        assertThat(prefetched, equalTo(Set.of(range(3), range(4))));
+        assertCounter(stats.getReadAheadHits(), RANGE_SIZE, 1L, RANGE_SIZE, RANGE_SIZE);
+
+        // a clone that reads a range prefetched by another input records a hit
+        readRanges(clone, 4);
+        assertCounter(stats.getReadAheadHits(), 2 * RANGE_SIZE, 2L, RANGE_SIZE, RANGE_SIZE);
+
+        // clones are never closed, so their prefetched ranges are recorded as wasted when too many ranges were prefetched since
+        readRanges(clone, 10, 11, 12);
+        readRanges(readAhead, 20, 21, 22);
+        assertCounter(stats.getReadAheadWaste(), 0L, 0L, 0L, 0L);
+        readRanges(clone, 30, 31, 32);
+        assertCounter(stats.getReadAheadWaste(), RANGE_SIZE, 1L, RANGE_SIZE, RANGE_SIZE);
+
+        // or when the input they were cloned from is closed
+        prefetchedRanges.close();
+        assertCounter(stats.getReadAheadWaste(), 3 * RANGE_SIZE, 3L, RANGE_SIZE, RANGE_SIZE);
+    }
+
+    private static void readRanges(ReadAhead readAhead, long... ranges) {
+        for (long range : ranges) {
+            readAhead.onRead(range * RANGE_SIZE, RANGE_SIZE, 10_000L);
+        }
+    }
+
+    private static ByteRange range(long index) {
+        return ByteRange.of(index * RANGE_SIZE, (index + 1) * RANGE_SIZE);
+    }
+}
@@ -114,6 +114,16 @@ public class SearchableSnapshotsStatsResponseTests extends ESTestCase {
             randomTimedCounter(),
             randomTimedCounter(),
             randomCounter(),
+            randomCounter(),
+            randomCounter(),
+            new SearchableSnapshotShardStats.SharedCacheStats(
+                randomNonNegativeLong(),
+                randomNonNegativeLong(),
+                randomNonNegativeLong(),
+                randomCounter(),
+                randomCounter(),
+                randomCounter()
+            ),
             randomNonNegativeLong()
         );
     }
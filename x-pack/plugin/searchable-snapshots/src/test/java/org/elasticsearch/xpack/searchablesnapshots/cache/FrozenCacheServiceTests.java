@@ -12,6 +12,7 @@ import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.env.Environment;
 import org.elasticsearch.env.TestEnvironment;
 import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.index.store.IndexInputStats;
 import org.elasticsearch.index.store.cache.CacheKey;
 import org.elasticsearch.snapshots.SnapshotsService;
 import org.elasticsearch.test.ESTestCase;
@@ -21,6 +22,8 @@ import org.elasticsearch.xpack.searchablesnapshots.cache.FrozenCacheService.Cach
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 
 import static org.elasticsearch.node.Node.NODE_NAME_SETTING;
 
@@ -39,15 +42,16 @@ public class FrozenCacheServiceTests extends ESTestCase {
             Files.createDirectories(path);
         }
         try (FrozenCacheService cacheService = new FrozenCacheService(environment, taskQueue.getThreadPool())) {
+            final IndexInputStats stats = newIndexInputStats();
             final CacheKey cacheKey = generateCacheKey();
             assertEquals(5, cacheService.freeRegionCount());
-            final CacheFileRegion region0 = cacheService.get(cacheKey, 250, 0);
+            final CacheFileRegion region0 = cacheService.get(cacheKey, 250, 0, stats);
             assertEquals(100L, region0.tracker.getLength());
             assertEquals(4, cacheService.freeRegionCount());
-            final CacheFileRegion region1 = cacheService.get(cacheKey, 250, 1);
+            final CacheFileRegion region1 = cacheService.get(cacheKey, 250, 1, stats);
             assertEquals(100L, region1.tracker.getLength());
             assertEquals(3, cacheService.freeRegionCount());
-            final CacheFileRegion region2 = cacheService.get(cacheKey, 250, 2);
+            final CacheFileRegion region2 = cacheService.get(cacheKey, 250, 2, stats);
             assertEquals(50L, region2.tracker.getLength());
             assertEquals(2, cacheService.freeRegionCount());
 
@@ -85,19 +89,20 @@ public class FrozenCacheServiceTests extends ESTestCase {
             Files.createDirectories(path);
         }
         try (FrozenCacheService cacheService = new FrozenCacheService(environment, taskQueue.getThreadPool())) {
+            final IndexInputStats stats = newIndexInputStats();
             final CacheKey cacheKey = generateCacheKey();
             assertEquals(2, cacheService.freeRegionCount());
-            final CacheFileRegion region0 = cacheService.get(cacheKey, 250, 0);
+            final CacheFileRegion region0 = cacheService.get(cacheKey, 250, 0, stats);
             assertEquals(100L, region0.tracker.getLength());
             assertEquals(1, cacheService.freeRegionCount());
-            final CacheFileRegion region1 = cacheService.get(cacheKey, 250, 1);
+            final CacheFileRegion region1 = cacheService.get(cacheKey, 250, 1, stats);
             assertEquals(100L, region1.tracker.getLength());
             assertEquals(0, cacheService.freeRegionCount());
             assertFalse(region0.isEvicted());
             assertFalse(region1.isEvicted());
 
             // acquire region 2, which should evict region 0 (oldest)
-            final CacheFileRegion region2 = cacheService.get(cacheKey, 250, 2);
+            final CacheFileRegion region2 = cacheService.get(cacheKey, 250, 2, stats);
             assertEquals(50L, region2.tracker.getLength());
             assertEquals(0, cacheService.freeRegionCount());
             assertTrue(region0.isEvicted());
@@ -122,12 +127,13 @@ public class FrozenCacheServiceTests extends ESTestCase {
             Files.createDirectories(path);
         }
         try (FrozenCacheService cacheService = new FrozenCacheService(environment, taskQueue.getThreadPool())) {
+            final IndexInputStats stats = newIndexInputStats();
             final CacheKey cacheKey1 = generateCacheKey();
             final CacheKey cacheKey2 = generateCacheKey();
             assertEquals(5, cacheService.freeRegionCount());
-            final CacheFileRegion region0 = cacheService.get(cacheKey1, 250, 0);
+            final CacheFileRegion region0 = cacheService.get(cacheKey1, 250, 0, stats);
             assertEquals(4, cacheService.freeRegionCount());
-            final CacheFileRegion region1 = cacheService.get(cacheKey2, 250, 1);
+            final CacheFileRegion region1 = cacheService.get(cacheKey2, 250, 1, stats);
             assertEquals(3, cacheService.freeRegionCount());
             assertFalse(region0.isEvicted());
             assertFalse(region1.isEvicted());
@@ -151,12 +157,13 @@ public class FrozenCacheServiceTests extends ESTestCase {
             Files.createDirectories(path);
         }
         try (FrozenCacheService cacheService = new FrozenCacheService(environment, taskQueue.getThreadPool())) {
+            final IndexInputStats stats = newIndexInputStats();
             final CacheKey cacheKey1 = generateCacheKey();
             final CacheKey cacheKey2 = generateCacheKey();
             assertEquals(5, cacheService.freeRegionCount());
-            final CacheFileRegion region0 = cacheService.get(cacheKey1, 250, 0);
+            final CacheFileRegion region0 = cacheService.get(cacheKey1, 250, 0, stats);
             assertEquals(4, cacheService.freeRegionCount());
-            final CacheFileRegion region1 = cacheService.get(cacheKey2, 250, 1);
+            final CacheFileRegion region1 = cacheService.get(cacheKey2, 250, 1, stats);
             assertEquals(3, cacheService.freeRegionCount());
 
             assertEquals(0, cacheService.getFreq(region0));
@@ -165,16 +172,16 @@ public class FrozenCacheServiceTests extends ESTestCase {
             taskQueue.advanceTime();
             taskQueue.runAllRunnableTasks();
 
-            final CacheFileRegion region0Again = cacheService.get(cacheKey1, 250, 0);
+            final CacheFileRegion region0Again = cacheService.get(cacheKey1, 250, 0, stats);
             assertSame(region0Again, region0);
             assertEquals(1, cacheService.getFreq(region0));
             assertEquals(0, cacheService.getFreq(region1));
 
             taskQueue.advanceTime();
             taskQueue.runAllRunnableTasks();
-            cacheService.get(cacheKey1, 250, 0);
+            cacheService.get(cacheKey1, 250, 0, stats);
             assertEquals(2, cacheService.getFreq(region0));
-            cacheService.get(cacheKey1, 250, 0);
+            cacheService.get(cacheKey1, 250, 0, stats);
             assertEquals(2, cacheService.getFreq(region0));
 
             // advance 2 ticks (decay only starts after 2 ticks)
@@ -193,12 +200,150 @@ public class FrozenCacheServiceTests extends ESTestCase {
         }
     }
 
+    public void testScanResistance() throws IOException {
+        final Settings settings = sharedCacheSettings(Settings.EMPTY);
+        final DeterministicTaskQueue taskQueue = new DeterministicTaskQueue(settings, random());
+        try (FrozenCacheService cacheService = new FrozenCacheService(newEnvironmentWithDataPaths(settings), taskQueue.getThreadPool())) {
+            final IndexInputStats stats = newIndexInputStats();
+            final CacheKey hotKey = generateCacheKey();
+            final CacheFileRegion hotRegion0 = cacheService.get(hotKey, 250, 0, stats);
+            final CacheFileRegion hotRegion1 = cacheService.get(hotKey, 250, 1, stats);
+
+            taskQueue.advanceTime();
+            taskQueue.runAllRunnableTasks();
+            assertSame(hotRegion0, cacheService.get(hotKey, 250, 0, stats));
+            assertSame(hotRegion1, cacheService.get(hotKey, 250, 1, stats));
+            assertEquals(2, cacheService.protectedRegionCount());
+
+            // scanning through many regions that are read once only evicts other regions that were read once
+            final List<CacheFileRegion> scannedRegions = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                scannedRegions.add(cacheService.get(generateCacheKey(), 250, between(0, 2), stats));
+            }
+            assertFalse(hotRegion0.isEvicted());
+            assertFalse(hotRegion1.isEvicted());
+            for (int i = 0; i < scannedRegions.size() - 3; i++) {
+                assertTrue(scannedRegions.get(i).isEvicted());
+            }
+            assertEquals(17L, stats.getSharedCacheProbationEvictions().count());
+            assertEquals(0L, stats.getSharedCacheProtectedEvictions().count());
+            assertEquals(5L, stats.getSharedCacheRegions());
+        }
+    }
+
+    public void testProtectedSegmentIsBounded() throws IOException {
+        final Settings settings = sharedCacheSettings(
+            Settings.builder().put(FrozenCacheService.SNAPSHOT_CACHE_PROTECTED_RATIO_SETTING.getKey(), 0.4).build()
+        );
+        final DeterministicTaskQueue taskQueue = new DeterministicTaskQueue(settings, random());
+        try (FrozenCacheService cacheService = new FrozenCacheService(newEnvironmentWithDataPaths(settings), taskQueue.getThreadPool())) {
+            final IndexInputStats stats = newIndexInputStats();
+            final CacheKey cacheKey = generateCacheKey();
+            final CacheFileRegion region0 = cacheService.get(cacheKey, 250, 0, stats);
+            final CacheFileRegion region1 = cacheService.get(cacheKey, 250, 1, stats);
+            final CacheFileRegion region2 = cacheService.get(cacheKey, 250, 2, stats);
+
+            taskQueue.advanceTime();
+            taskQueue.runAllRunnableTasks();
+            cacheService.get(cacheKey, 250, 0, stats);
+            cacheService.get(cacheKey, 250, 1, stats);
+            assertEquals(1, cacheService.getFreq(region0));
+            assertEquals(1, cacheService.getFreq(region1));
+
+            // promoting a third region demotes the least recently used protected region
+            cacheService.get(cacheKey, 250, 2, stats);
+            assertEquals(2, cacheService.protectedRegionCount());
+            assertEquals(0, cacheService.getFreq(region0));
+            assertEquals(1, cacheService.getFreq(region1));
+            assertEquals(1, cacheService.getFreq(region2));
+
+            // the demoted region is evicted before the protected ones
+            cacheService.get(generateCacheKey(), 250, 0, stats);
+            cacheService.get(generateCacheKey(), 250, 0, stats);
+            assertEquals(0, cacheService.freeRegionCount());
+            cacheService.get(generateCacheKey(), 250, 0, stats);
+            assertTrue(region0.isEvicted());
+            assertFalse(region1.isEvicted());
+            assertFalse(region2.isEvicted());
+            assertEquals(1L, stats.getSharedCacheProbationEvictions().count());
+            assertEquals(0L, stats.getSharedCacheProtectedEvictions().count());
+        }
+    }
+
+    public void testPinnedRegions() throws IOException {
+        final Settings settings = sharedCacheSettings(
+            Settings.builder().put(FrozenCacheService.SNAPSHOT_CACHE_MAX_PINNED_RATIO_SETTING.getKey(), 0.4).build()
+        );
+        final DeterministicTaskQueue taskQueue = new DeterministicTaskQueue(settings, random());
+        try (FrozenCacheService cacheService = new FrozenCacheService(newEnvironmentWithDataPaths(settings), taskQueue.getThreadPool())) {
+            final IndexInputStats siStats = newIndexInputStats();
+            final IndexInputStats tipStats = newIndexInputStats();
+            final IndexInputStats stats = newIndexInputStats();
+            final CacheKey siKey = generateCacheKey("_0.si");
+            final CacheKey tipKey = generateCacheKey("_0_Lucene84_0.tip");
+            final CacheFileRegion siRegion = cacheService.get(siKey, 250, 0, siStats);
+            final CacheFileRegion tipRegion0 = cacheService.get(tipKey, 250, 0, tipStats);
+            // only two regions can be pinned
+            final CacheFileRegion tipRegion1 = cacheService.get(tipKey, 250, 1, tipStats);
+            assertEquals(2, cacheService.pinnedRegionCount());
+            assertEquals(1L, siStats.getSharedCachePinnedRegions());
+            assertEquals(1L, tipStats.getSharedCachePinnedRegions());
+            assertEquals(2L, tipStats.getSharedCacheRegions());
+            assertEquals(200L, tipStats.getSharedCacheBytes());
+
+            for (int i = 0; i < 10; i++) {
+                cacheService.get(generateCacheKey(), 250, between(0, 2), stats);
+            }
+            assertFalse(siRegion.isEvicted());
+            assertFalse(tipRegion0.isEvicted());
+            assertTrue(tipRegion1.isEvicted());
+            assertEquals(1L, tipStats.getSharedCacheProbationEvictions().count());
+            assertEquals(1L, tipStats.getSharedCacheRegions());
+            assertEquals(100L, tipStats.getSharedCacheBytes());
+
+            // pinned regions are evicted when their file is removed from the cache
+            cacheService.removeFromCache(siKey);
+            assertTrue(siRegion.isEvicted());
+            assertEquals(1, cacheService.pinnedRegionCount());
+            assertEquals(1L, siStats.getSharedCacheForcedEvictions().count());
+            assertEquals(0L, siStats.getSharedCacheRegions());
+            assertEquals(0L, siStats.getSharedCachePinnedRegions());
+            assertEquals(1, cacheService.freeRegionCount());
+        }
+    }
+
+    private static Settings sharedCacheSettings(Settings settings) {
+        return Settings.builder()
+            .put(NODE_NAME_SETTING.getKey(), "node")
+            .put(SnapshotsService.SNAPSHOT_CACHE_SIZE_SETTING.getKey(), "500b")
+            .put(SnapshotsService.SNAPSHOT_CACHE_REGION_SIZE_SETTING.getKey(), "100b")
+            .put("path.home", createTempDir())
+            .put(settings)
+            .build();
+    }
+
+    private static Environment newEnvironmentWithDataPaths(Settings settings) throws IOException {
+        final Environment environment = TestEnvironment.newEnvironment(settings);
+        for (Path path : environment.dataFiles()) {
+            Files.createDirectories(path);
+        }
+        return environment;
+    }
+
+    private static IndexInputStats newIndexInputStats() {
+        return new IndexInputStats(1, 250L, () -> 0L);
+    }
+
     private static CacheKey generateCacheKey() {
+        return generateCacheKey(randomAlphaOfLength(10));
+    }
+
+    private static CacheKey generateCacheKey(String fileName) {
         return new CacheKey(
             randomAlphaOfLength(10),
             randomAlphaOfLength(10),
             new ShardId(randomAlphaOfLength(10), randomAlphaOfLength(10), randomInt(10)),
-            randomAlphaOfLength(10)
+            fileName
         );
     }
 }
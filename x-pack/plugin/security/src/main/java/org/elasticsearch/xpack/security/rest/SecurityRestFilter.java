@@ -133,6 +133,11 @@ public class SecurityRestFilter implements RestHandler {
         return restHandler.allowsUnsafeBuffers();
     }
 
+    @Override
+    public boolean allowsStreamedContent() {
+        return restHandler.allowsStreamedContent();
+    }
+
     @Override
     public List<Route> routes() {
         return restHandler.routes();
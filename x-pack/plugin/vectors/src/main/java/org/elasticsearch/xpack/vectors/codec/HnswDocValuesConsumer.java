@@ -0,0 +1,194 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0; you may not use this file except in compliance with the Elastic License
+ * 2.0.
+ */
+
+package org.elasticsearch.xpack.vectors.codec;
+
+import org.apache.lucene.codecs.CodecUtil;
+import org.apache.lucene.codecs.DocValuesConsumer;
+import org.apache.lucene.codecs.DocValuesProducer;
+import org.apache.lucene.index.BinaryDocValues;
+import org.apache.lucene.index.FieldInfo;
+import org.apache.lucene.index.IndexFileNames;
+import org.apache.lucene.index.SegmentWriteState;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.store.IndexOutput;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.IOUtils;
+import org.elasticsearch.xpack.vectors.mapper.DenseVectorFieldMapper.VectorSimilarity;
+
+import java.io.IOException;
+
+import static org.elasticsearch.xpack.vectors.codec.HnswDocValuesFormat.DATA_CODEC;
+import static org.elasticsearch.xpack.vectors.codec.HnswDocValuesFormat.DATA_EXTENSION;
+import static org.elasticsearch.xpack.vectors.codec.HnswDocValuesFormat.META_CODEC;
+import static org.elasticsearch.xpack.vectors.codec.HnswDocValuesFormat.META_EXTENSION;
+import static org.elasticsearch.xpack.vectors.codec.HnswDocValuesFormat.VERSION_CURRENT;
+
+/**
+ * Writes the doc values of a {@link HnswDocValuesFormat}. For each binary field, the data file holds the doc ids that have a
+ * vector, the vectors in the same order, and the neighbors of the nodes of each level of the graph.
+ */
+final class HnswDocValuesConsumer extends DocValuesConsumer {
+
+    private final SegmentWriteState state;
+    private final DocValuesConsumer delegate;
+    private final VectorSimilarity similarity;
+    private final int dims;
+    private final int maxConn;
+    private final int beamWidth;
+    private IndexOutput meta;
+    private IndexOutput data;
+
+    HnswDocValuesConsumer(SegmentWriteState state, DocValuesConsumer delegate, VectorSimilarity similarity, int dims, int maxConn,
+                          int beamWidth) throws IOException {
+        this.state = state;
+        this.delegate = delegate;
+        this.similarity = similarity;
+        this.dims = dims;
+        this.maxConn = maxConn;
+        this.beamWidth = beamWidth;
+        boolean success = false;
+        try {
+            final String metaName = IndexFileNames.segmentFileName(state.segmentInfo.name, state.segmentSuffix, META_EXTENSION);
+            meta = state.directory.createOutput(metaName, state.context);
+            CodecUtil.writeIndexHeader(meta, META_CODEC, VERSION_CURRENT, state.segmentInfo.getId(), state.segmentSuffix);
+            final String dataName = IndexFileNames.segmentFileName(state.segmentInfo.name, state.segmentSuffix, DATA_EXTENSION);
+            data = state.directory.createOutput(dataName, state.context);
+            CodecUtil.writeIndexHeader(data, DATA_CODEC, VERSION_CURRENT, state.segmentInfo.getId(), state.segmentSuffix);
+            success = true;
+        } finally {
+            if (success == false) {
+                IOUtils.closeWhileHandlingException(this);
+            }
+        }
+    }
+
+    @Override
+    public void addNumericField(FieldInfo field, DocValuesProducer valuesProducer) throws IOException {
+        delegate.addNumericField(field, valuesProducer);
+    }
+
+    @Override
+    public void addBinaryField(FieldInfo field, DocValuesProducer valuesProducer) throws IOException {
+        delegate.addBinaryField(field, valuesProducer);
+        writeVectors(field, valuesProducer.getBinary(field));
+    }
+
+    @Override
+    public void addSortedField(FieldInfo field, DocValuesProducer valuesProducer) throws IOException {
+        delegate.addSortedField(field, valuesProducer);
+    }
+
+    @Override
+    public void addSortedNumericField(FieldInfo field, DocValuesProducer valuesProducer) throws IOException {
+        delegate.addSortedNumericField(field, valuesProducer);
+    }
+
+    @Override
+    public void addSortedSetField(FieldInfo field, DocValuesProducer valuesProducer) throws IOException {
+        delegate.addSortedSetField(field, valuesProducer);
+    }
+
+    private void writeVectors(FieldInfo field, BinaryDocValues values) throws IOException {
+        final int vectorBytes = dims * Float.BYTES;
+        final long docsOffset = data.getFilePointer();
+        int size = 0;
+        // the graph is built from a temporary copy of the vectors rather than from memory, which could not hold them all
+        String tempVectorsName = null;
+        try {
+            try (IndexOutput tempVectors = state.directory.createTempOutput(data.getName(), "vectors", state.context)) {
+                tempVectorsName = tempVectors.getName();
+                for (int doc = values.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = values.nextDoc()) {
+                    final BytesRef bytes = values.binaryValue();
+                    if (bytes.length < vectorBytes) {
+                        throw new IllegalStateException("vector of doc [" + doc + "] of field [" + field.name + "] has ["
+                            + bytes.length + "] bytes but [" + dims + "] dimensions");
+                    }
+                    data.writeInt(doc);
+                    // the encoded vector starts with its values as big endian floats
+                    tempVectors.writeBytes(bytes.bytes, bytes.offset, vectorBytes);
+                    size++;
+                }
+            }
+            try (IndexInput vectorsInput = state.directory.openInput(tempVectorsName, state.context)) {
+                final HnswGraph graph = new HnswGraphBuilder(similarity, new OffHeapVectors(vectorsInput, size, dims), maxConn,
+                    beamWidth).build();
+                final long vectorsOffset = data.getFilePointer();
+                vectorsInput.seek(0);
+                data.copyBytes(vectorsInput, (long) size * vectorBytes);
+
+                meta.writeInt(field.number);
+                meta.writeString(similarity.name());
+                meta.writeVInt(dims);
+                meta.writeVInt(size);
+                meta.writeLong(docsOffset);
+                meta.writeLong(vectorsOffset);
+                writeGraph(graph);
+            }
+        } finally {
+            if (tempVectorsName != null) {
+                IOUtils.deleteFilesIgnoringExceptions(state.directory, tempVectorsName);
+            }
+        }
+    }
+
+    private void writeGraph(HnswGraph graph) throws IOException {
+        meta.writeVInt(graph.numLevels());
+        if (graph.numLevels() == 0) {
+            return;
+        }
+        meta.writeVInt(graph.entryNode());
+        for (int level = 0; level < graph.numLevels(); level++) {
+            final int[] nodes = graph.nodesOnLevel(level);
+            final int levelMaxConn = level == 0 ? maxConn * 2 : maxConn;
+            meta.writeVInt(nodes.length);
+            meta.writeVInt(levelMaxConn);
+            if (level > 0) {
+                meta.writeLong(data.getFilePointer());
+                for (int node : nodes) {
+                    data.writeInt(node);
+                }
+            }
+            meta.writeLong(data.getFilePointer());
+            final int[] neighbors = new int[levelMaxConn];
+            for (int node : nodes) {
+                int numNeighbors = 0;
+                graph.seek(level, node);
+                for (int neighbor = graph.nextNeighbor(); neighbor != HnswGraph.NO_MORE_NEIGHBORS; neighbor = graph.nextNeighbor()) {
+                    neighbors[numNeighbors++] = neighbor;
+                }
+                data.writeInt(numNeighbors);
+                for (int i = 0; i < levelMaxConn; i++) {
+                    data.writeInt(i < numNeighbors ? neighbors[i] : 0);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        boolean success = false;
+        try {
+            if (meta != null) {
+                meta.writeInt(-1); // write EOF marker
+                CodecUtil.writeFooter(meta);
+            }
+            if (data != null) {
+                CodecUtil.writeFooter(data);
+            }
+            success = true;
+        } finally {
+            if (success) {
+                IOUtils.close(data, meta, delegate);
+            } else {
+                IOUtils.closeWhileHandlingException(data, meta, delegate);
+            }
+            meta = data = null;
+        }
+    }
+}
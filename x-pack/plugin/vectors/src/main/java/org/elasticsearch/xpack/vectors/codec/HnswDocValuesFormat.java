@@ -0,0 +1,105 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0; you may not use this file except in compliance with the Elastic License
+ * 2.0.
+ */
+
+package org.elasticsearch.xpack.vectors.codec;
+
+import org.apache.lucene.codecs.DocValuesConsumer;
+import org.apache.lucene.codecs.DocValuesFormat;
+import org.apache.lucene.codecs.DocValuesProducer;
+import org.apache.lucene.codecs.lucene80.Lucene80DocValuesFormat;
+import org.apache.lucene.index.SegmentReadState;
+import org.apache.lucene.index.SegmentWriteState;
+import org.apache.lucene.util.IOUtils;
+import org.elasticsearch.xpack.vectors.mapper.DenseVectorFieldMapper.VectorSimilarity;
+
+import java.io.IOException;
+
+/**
+ * A {@link DocValuesFormat} for indexed <code>dense_vector</code> fields. The binary doc values are written by a delegate format
+ * so that scripts keep reading them as usual, and the vectors are also copied to a file of their own along with an
+ * {@link HnswGraph} of each segment, which {@link HnswVectorValues} searches for the nearest neighbors of a query vector.
+ * The graph is built when a segment is flushed and rebuilt from the merged vectors when segments are merged.
+ */
+public final class HnswDocValuesFormat extends DocValuesFormat {
+
+    public static final String NAME = "ESHnsw80";
+
+    static final String META_CODEC = "ESHnswVectorsMeta";
+    static final String DATA_CODEC = "ESHnswVectorsData";
+    static final String META_EXTENSION = "vem";
+    static final String DATA_EXTENSION = "vec";
+    static final int VERSION_START = 0;
+    static final int VERSION_CURRENT = VERSION_START;
+
+    private final DocValuesFormat delegate;
+    private final VectorSimilarity similarity;
+    private final int dims;
+    private final int maxConn;
+    private final int beamWidth;
+
+    /**
+     * Only meant to be used by Lucene's SPI to read segments, the parameters of the graph are read from the segments.
+     */
+    public HnswDocValuesFormat() {
+        this(new Lucene80DocValuesFormat(), null, 0, HnswGraphBuilder.DEFAULT_MAX_CONN, HnswGraphBuilder.DEFAULT_BEAM_WIDTH);
+    }
+
+    /**
+     * @param delegate   the format that writes the binary doc values
+     * @param similarity the similarity that the graph connects the most similar vectors with
+     * @param dims       the number of dimensions of the vectors
+     * @param maxConn    the maximum number of neighbors of a node on the levels above 0 of the graph, twice as many on level 0
+     * @param beamWidth  the number of candidates that are explored to find the neighbors of a new node
+     */
+    public HnswDocValuesFormat(DocValuesFormat delegate, VectorSimilarity similarity, int dims, int maxConn, int beamWidth) {
+        super(NAME);
+        this.delegate = delegate;
+        this.similarity = similarity;
+        this.dims = dims;
+        this.maxConn = maxConn;
+        this.beamWidth = beamWidth;
+    }
+
+    @Override
+    public DocValuesConsumer fieldsConsumer(SegmentWriteState state) throws IOException {
+        if (similarity == null) {
+            throw new UnsupportedOperationException("format [" + NAME + "] must be created with the parameters of a field to write");
+        }
+        final DocValuesConsumer delegateConsumer = delegate.fieldsConsumer(state);
+        boolean success = false;
+        try {
+            final DocValuesConsumer consumer = new HnswDocValuesConsumer(state, delegateConsumer, similarity, dims, maxConn, beamWidth);
+            success = true;
+            return consumer;
+        } finally {
+            if (success == false) {
+                IOUtils.closeWhileHandlingException(delegateConsumer);
+            }
+        }
+    }
+
+    @Override
+    public DocValuesProducer fieldsProducer(SegmentReadState state) throws IOException {
+        final DocValuesProducer delegateProducer = delegate.fieldsProducer(state);
+        boolean success = false;
+        try {
+            final DocValuesProducer producer = new HnswDocValuesProducer(state, delegateProducer);
+            success = true;
+            return producer;
+        } finally {
+            if (success == false) {
+                IOUtils.closeWhileHandlingException(delegateProducer);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return NAME + "(delegate=" + delegate + ", similarity=" + similarity + ", dims=" + dims + ", maxConn=" + maxConn
+            + ", beamWidth=" + beamWidth + ")";
+    }
+}
@@ -0,0 +1,227 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0; you may not use this file except in compliance with the Elastic License
+ * 2.0.
+ */
+
+package org.elasticsearch.xpack.vectors.codec;
+
+import org.apache.lucene.codecs.CodecUtil;
+import org.apache.lucene.codecs.DocValuesProducer;
+import org.apache.lucene.index.BinaryDocValues;
+import org.apache.lucene.index.CorruptIndexException;
+import org.apache.lucene.index.FieldInfo;
+import org.apache.lucene.index.FieldInfos;
+import org.apache.lucene.index.IndexFileNames;
+import org.apache.lucene.index.NumericDocValues;
+import org.apache.lucene.index.SegmentReadState;
+import org.apache.lucene.index.SortedDocValues;
+import org.apache.lucene.index.SortedNumericDocValues;
+import org.apache.lucene.index.SortedSetDocValues;
+import org.apache.lucene.store.ChecksumIndexInput;
+import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.store.RandomAccessInput;
+import org.apache.lucene.util.IOUtils;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.elasticsearch.xpack.vectors.mapper.DenseVectorFieldMapper.VectorSimilarity;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.elasticsearch.xpack.vectors.codec.HnswDocValuesFormat.DATA_CODEC;
+import static org.elasticsearch.xpack.vectors.codec.HnswDocValuesFormat.DATA_EXTENSION;
+import static org.elasticsearch.xpack.vectors.codec.HnswDocValuesFormat.META_CODEC;
+import static org.elasticsearch.xpack.vectors.codec.HnswDocValuesFormat.META_EXTENSION;
+import static org.elasticsearch.xpack.vectors.codec.HnswDocValuesFormat.VERSION_CURRENT;
+import static org.elasticsearch.xpack.vectors.codec.HnswDocValuesFormat.VERSION_START;
+
+/**
+ * Reads the doc values of a {@link HnswDocValuesFormat}. The binary doc values of the fields that have a graph are returned as
+ * {@link HnswVectorValues}.
+ */
+final class HnswDocValuesProducer extends DocValuesProducer {
+
+    private final DocValuesProducer delegate;
+    private final Map<String, FieldEntry> fields = new HashMap<>();
+    private final IndexInput data;
+
+    HnswDocValuesProducer(SegmentReadState state, DocValuesProducer delegate) throws IOException {
+        this.delegate = delegate;
+        final String metaName = IndexFileNames.segmentFileName(state.segmentInfo.name, state.segmentSuffix, META_EXTENSION);
+        int version = -1;
+        try (ChecksumIndexInput meta = state.directory.openChecksumInput(metaName, state.context)) {
+            Throwable priorE = null;
+            try {
+                version = CodecUtil.checkIndexHeader(meta, META_CODEC, VERSION_START, VERSION_CURRENT, state.segmentInfo.getId(),
+                    state.segmentSuffix);
+                readFields(meta, state.fieldInfos);
+            } catch (Throwable exception) {
+                priorE = exception;
+            } finally {
+                CodecUtil.checkFooter(meta, priorE);
+            }
+        }
+
+        final String dataName = IndexFileNames.segmentFileName(state.segmentInfo.name, state.segmentSuffix, DATA_EXTENSION);
+        this.data = state.directory.openInput(dataName, state.context);
+        boolean success = false;
+        try {
+            final int dataVersion = CodecUtil.checkIndexHeader(data, DATA_CODEC, VERSION_START, VERSION_CURRENT,
+                state.segmentInfo.getId(), state.segmentSuffix);
+            if (version != dataVersion) {
+                throw new CorruptIndexException("Format versions mismatch: meta=" + version + ", data=" + dataVersion, data);
+            }
+            // just checks the footer, the whole file is verified by checkIntegrity
+            CodecUtil.retrieveChecksum(data);
+            for (FieldEntry entry : fields.values()) {
+                entry.readNodes(data);
+            }
+            success = true;
+        } finally {
+            if (success == false) {
+                IOUtils.closeWhileHandlingException(data);
+            }
+        }
+    }
+
+    private void readFields(ChecksumIndexInput meta, FieldInfos infos) throws IOException {
+        for (int fieldNumber = meta.readInt(); fieldNumber != -1; fieldNumber = meta.readInt()) {
+            final FieldInfo info = infos.fieldInfo(fieldNumber);
+            if (info == null) {
+                throw new CorruptIndexException("Invalid field number: " + fieldNumber, meta);
+            }
+            fields.put(info.name, new FieldEntry(meta));
+        }
+    }
+
+    @Override
+    public NumericDocValues getNumeric(FieldInfo field) throws IOException {
+        return delegate.getNumeric(field);
+    }
+
+    @Override
+    public BinaryDocValues getBinary(FieldInfo field) throws IOException {
+        final BinaryDocValues values = delegate.getBinary(field);
+        final FieldEntry entry = fields.get(field.name);
+        if (entry == null) {
+            return values;
+        }
+        final RandomAccessInput docs = data.randomAccessSlice(entry.docsOffset, (long) entry.size * Integer.BYTES);
+        final IndexInput vectors = data.slice("vectors", entry.vectorsOffset, (long) entry.size * entry.dims * Float.BYTES);
+        final RandomAccessInput[] neighbors = new RandomAccessInput[entry.numLevels];
+        for (int level = 0; level < neighbors.length; level++) {
+            final long length = (long) entry.numNodes[level] * (1 + entry.maxConns[level]) * Integer.BYTES;
+            neighbors[level] = data.randomAccessSlice(entry.neighborsOffsets[level], length);
+        }
+        final HnswGraph graph = new OffHeapHnswGraph(entry.size, entry.entryNode, entry.nodesByLevel, entry.maxConns, neighbors);
+        return new HnswVectorValues(values, entry.similarity, docs, new OffHeapVectors(vectors, entry.size, entry.dims), graph);
+    }
+
+    @Override
+    public SortedDocValues getSorted(FieldInfo field) throws IOException {
+        return delegate.getSorted(field);
+    }
+
+    @Override
+    public SortedNumericDocValues getSortedNumeric(FieldInfo field) throws IOException {
+        return delegate.getSortedNumeric(field);
+    }
+
+    @Override
+    public SortedSetDocValues getSortedSet(FieldInfo field) throws IOException {
+        return delegate.getSortedSet(field);
+    }
+
+    @Override
+    public void checkIntegrity() throws IOException {
+        delegate.checkIntegrity();
+        CodecUtil.checksumEntireFile(data);
+    }
+
+    @Override
+    public void close() throws IOException {
+        IOUtils.close(data, delegate);
+    }
+
+    @Override
+    public long ramBytesUsed() {
+        long ramBytesUsed = delegate.ramBytesUsed();
+        for (FieldEntry entry : fields.values()) {
+            ramBytesUsed += entry.ramBytesUsed();
+        }
+        return ramBytesUsed;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "(delegate=" + delegate + ", fields=" + fields.size() + ")";
+    }
+
+    private static final class FieldEntry {
+        final VectorSimilarity similarity;
+        final int dims;
+        final int size;
+        final long docsOffset;
+        final long vectorsOffset;
+        final int numLevels;
+        final int entryNode;
+        final int[] numNodes;
+        final int[] maxConns;
+        final long[] nodesOffsets;
+        final long[] neighborsOffsets;
+        // the nodes of the levels above 0 are read once the data file is open
+        final int[][] nodesByLevel;
+
+        FieldEntry(IndexInput meta) throws IOException {
+            final String similarityName = meta.readString();
+            try {
+                similarity = VectorSimilarity.valueOf(similarityName);
+            } catch (IllegalArgumentException e) {
+                throw new CorruptIndexException("Unknown similarity: " + similarityName, meta, e);
+            }
+            dims = meta.readVInt();
+            size = meta.readVInt();
+            docsOffset = meta.readLong();
+            vectorsOffset = meta.readLong();
+            numLevels = meta.readVInt();
+            entryNode = numLevels == 0 ? -1 : meta.readVInt();
+            numNodes = new int[numLevels];
+            maxConns = new int[numLevels];
+            nodesOffsets = new long[numLevels];
+            neighborsOffsets = new long[numLevels];
+            nodesByLevel = new int[numLevels][];
+            for (int level = 0; level < numLevels; level++) {
+                numNodes[level] = meta.readVInt();
+                maxConns[level] = meta.readVInt();
+                if (level > 0) {
+                    nodesOffsets[level] = meta.readLong();
+                }
+                neighborsOffsets[level] = meta.readLong();
+            }
+        }
+
+        void readNodes(IndexInput data) throws IOException {
+            for (int level = 1; level < numLevels; level++) {
+                final int[] nodes = new int[numNodes[level]];
+                data.seek(nodesOffsets[level]);
+                for (int i = 0; i < nodes.length; i++) {
+                    nodes[i] = data.readInt();
+                }
+                nodesByLevel[level] = nodes;
+            }
+        }
+
+        long ramBytesUsed() {
+            long ramBytesUsed = RamUsageEstimator.sizeOf(numNodes) + RamUsageEstimator.sizeOf(maxConns)
+                + RamUsageEstimator.sizeOf(nodesOffsets) + RamUsageEstimator.sizeOf(neighborsOffsets);
+            for (int[] nodes : nodesByLevel) {
+                if (nodes != null) {
+                    ramBytesUsed += RamUsageEstimator.sizeOf(nodes);
+                }
+            }
+            return ramBytesUsed;
+        }
+    }
+}
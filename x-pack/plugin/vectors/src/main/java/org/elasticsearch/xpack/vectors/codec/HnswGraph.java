@@ -0,0 +1,53 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0; you may not use this file except in compliance with the Elastic License
+ * 2.0.
+ */
+
+package org.elasticsearch.xpack.vectors.codec;
+
+import org.apache.lucene.search.DocIdSetIterator;
+
+import java.io.IOException;
+
+/**
+ * A hierarchical navigable small world graph as described in <a href="https://arxiv.org/abs/1603.09320">Efficient and robust
+ * approximate nearest neighbor search using Hierarchical Navigable Small World graphs</a>. Nodes are vector ordinals. All nodes
+ * are on level 0, and each level above holds a random subset of the nodes of the level below it, which allows searches to get
+ * close to their target in few hops before exploring the dense bottom level.
+ */
+public abstract class HnswGraph {
+
+    public static final int NO_MORE_NEIGHBORS = DocIdSetIterator.NO_MORE_DOCS;
+
+    /**
+     * The number of nodes of the graph.
+     */
+    public abstract int size();
+
+    /**
+     * The number of levels of the graph, or <code>0</code> if it has no nodes.
+     */
+    public abstract int numLevels();
+
+    /**
+     * The node that searches start from, which is on the top level.
+     */
+    public abstract int entryNode();
+
+    /**
+     * Returns the nodes on the given level in ordinal order.
+     */
+    public abstract int[] nodesOnLevel(int level);
+
+    /**
+     * Positions this graph on the neighbors of the given node on the given level.
+     */
+    public abstract void seek(int level, int node) throws IOException;
+
+    /**
+     * Returns the next neighbor of the node this graph is positioned on, or {@link #NO_MORE_NEIGHBORS}.
+     */
+    public abstract int nextNeighbor() throws IOException;
+}
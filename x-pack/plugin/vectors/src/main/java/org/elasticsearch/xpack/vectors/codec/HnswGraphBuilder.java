@@ -0,0 +1,126 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0; you may not use this file except in compliance with the Elastic License
+ * 2.0.
+ */
+
+package org.elasticsearch.xpack.vectors.codec;
+
+import org.elasticsearch.xpack.vectors.mapper.DenseVectorFieldMapper.VectorSimilarity;
+
+import java.io.IOException;
+import java.util.SplittableRandom;
+
+/**
+ * Builds an {@link HnswGraph} in memory by inserting the vectors one at a time in ordinal order. Each vector is connected to
+ * at most <code>maxConn</code> of the most similar vectors found by a search of width <code>beamWidth</code> on each of its
+ * levels, skipping the candidates that are more similar to an already selected neighbor than to the new vector so that
+ * neighborhoods span several directions.
+ */
+public final class HnswGraphBuilder {
+
+    public static final int DEFAULT_MAX_CONN = 16;
+    public static final int DEFAULT_BEAM_WIDTH = 100;
+    // the levels are random but the graph of a given set of vectors should always be the same
+    static final long SEED = 42;
+
+    private final VectorSimilarity similarity;
+    private final RandomAccessVectors vectors;
+    // a second view of the vectors to compare two neighbors with each other
+    private final RandomAccessVectors neighborVectors;
+    private final int beamWidth;
+    private final double levelMultiplier;
+    private final SplittableRandom random = new SplittableRandom(SEED);
+    private final OnHeapHnswGraph graph;
+    private final HnswGraphSearcher searcher;
+
+    public HnswGraphBuilder(VectorSimilarity similarity, RandomAccessVectors vectors, int maxConn, int beamWidth) throws IOException {
+        if (maxConn < 2) {
+            throw new IllegalArgumentException("maxConn must be >= 2 but was [" + maxConn + "]");
+        }
+        if (beamWidth < 1) {
+            throw new IllegalArgumentException("beamWidth must be >= 1 but was [" + beamWidth + "]");
+        }
+        this.similarity = similarity;
+        this.vectors = vectors;
+        this.neighborVectors = vectors.copy();
+        this.beamWidth = beamWidth;
+        this.levelMultiplier = 1 / Math.log(maxConn);
+        this.graph = new OnHeapHnswGraph(maxConn);
+        this.searcher = new HnswGraphSearcher(similarity, graph, vectors.copy());
+    }
+
+    /**
+     * Inserts all vectors and returns the graph.
+     */
+    public HnswGraph build() throws IOException {
+        for (int node = 0; node < vectors.size(); node++) {
+            addNode(node);
+        }
+        return graph;
+    }
+
+    private void addNode(int node) throws IOException {
+        final float[] target = vectors.vectorValue(node).clone();
+        final int nodeLevel = randomLevel();
+        final int numLevels = graph.numLevels();
+        graph.addNode(node, nodeLevel);
+        if (numLevels == 0) {
+            graph.setEntryNode(node);
+            return;
+        }
+        int[] entryPoints = new int[] { graph.entryNode() };
+        for (int level = numLevels - 1; level > nodeLevel; level--) {
+            entryPoints = new int[] { searcher.searchLevel(target, 1, level, entryPoints, null).topNode() };
+        }
+        for (int level = Math.min(nodeLevel, numLevels - 1); level >= 0; level--) {
+            final NeighborQueue candidates = searcher.searchLevel(target, beamWidth, level, entryPoints, null);
+            entryPoints = candidates.nodes();
+            connect(node, level, candidates);
+        }
+        if (nodeLevel >= numLevels) {
+            graph.setEntryNode(node);
+        }
+    }
+
+    private void connect(int node, int level, NeighborQueue candidates) throws IOException {
+        final int maxConn = graph.maxConn(level);
+        // from the most to the least similar candidate
+        final int[] nodes = new int[candidates.size()];
+        final float[] scores = new float[candidates.size()];
+        for (int i = nodes.length - 1; i >= 0; i--) {
+            scores[i] = candidates.topScore();
+            nodes[i] = candidates.pop();
+        }
+        final NeighborArray neighbors = graph.neighbors(level, node);
+        for (int i = 0; i < nodes.length && neighbors.size < maxConn; i++) {
+            if (isDiverse(nodes[i], scores[i], neighbors)) {
+                neighbors.add(nodes[i], scores[i]);
+            }
+        }
+        for (int i = 0; i < neighbors.size; i++) {
+            final NeighborArray reverse = graph.neighbors(level, neighbors.nodes[i]);
+            reverse.add(node, neighbors.scores[i]);
+            if (reverse.size > maxConn) {
+                reverse.removeWorst();
+            }
+        }
+    }
+
+    // returns true if the candidate is less similar to all selected neighbors than to the node they are the neighbors of
+    private boolean isDiverse(int candidate, float score, NeighborArray neighbors) throws IOException {
+        final float[] candidateVector = vectors.vectorValue(candidate);
+        for (int i = 0; i < neighbors.size; i++) {
+            if (similarity.score(candidateVector, neighborVectors.vectorValue(neighbors.nodes[i])) > score) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int randomLevel() {
+        // 1 - nextDouble() is in (0, 1]
+        return (int) (-Math.log(1 - random.nextDouble()) * levelMultiplier);
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0; you may not use this file except in compliance with the Elastic License
+ * 2.0.
+ */
+
+package org.elasticsearch.xpack.vectors.codec;
+
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TotalHits;
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.FixedBitSet;
+import org.elasticsearch.xpack.vectors.mapper.DenseVectorFieldMapper.VectorSimilarity;
+
+import java.io.IOException;
+
+/**
+ * Searches an {@link HnswGraph} for the nodes that are the most similar to a target vector.
+ */
+public final class HnswGraphSearcher {
+
+    private final VectorSimilarity similarity;
+    private final HnswGraph graph;
+    private final RandomAccessVectors vectors;
+    private final NeighborQueue candidates;
+    // the graph may grow between searches while it is built
+    private FixedBitSet visited;
+    // the nodes whose bit is set, so that clearing the visited nodes doesn't take time linear with the size of the graph
+    private int[] visitedNodes = new int[16];
+    private int numVisited;
+
+    public HnswGraphSearcher(VectorSimilarity similarity, HnswGraph graph, RandomAccessVectors vectors) {
+        this.similarity = similarity;
+        this.graph = graph;
+        this.vectors = vectors;
+        this.visited = new FixedBitSet(Math.max(1, graph.size()));
+        this.candidates = new NeighborQueue(16, false);
+    }
+
+    /**
+     * Returns the <code>topK</code> accepted nodes that are the most similar to the target, from the most to the least similar,
+     * found by exploring the <code>numCandidates</code> most similar nodes seen on level 0. The doc ids of the returned top docs
+     * are node ordinals. Nodes that are not accepted are still used to navigate the graph.
+     */
+    public TopDocs search(float[] target, int topK, int numCandidates, Bits acceptOrds) throws IOException {
+        if (graph.size() == 0) {
+            return new TopDocs(new TotalHits(0, TotalHits.Relation.EQUAL_TO), new ScoreDoc[0]);
+        }
+        int[] entryPoints = new int[] { graph.entryNode() };
+        for (int level = graph.numLevels() - 1; level > 0; level--) {
+            entryPoints = new int[] { searchLevel(target, 1, level, entryPoints, null).topNode() };
+        }
+        final NeighborQueue results = searchLevel(target, Math.max(topK, numCandidates), 0, entryPoints, acceptOrds);
+        while (results.size() > topK) {
+            results.pop();
+        }
+        final ScoreDoc[] scoreDocs = new ScoreDoc[results.size()];
+        for (int i = scoreDocs.length - 1; i >= 0; i--) {
+            final float score = results.topScore();
+            scoreDocs[i] = new ScoreDoc(results.pop(), score);
+        }
+        return new TopDocs(new TotalHits(scoreDocs.length, TotalHits.Relation.EQUAL_TO), scoreDocs);
+    }
+
+    /**
+     * Greedily explores one level of the graph from the given entry points and returns a min-heap of the <code>beamWidth</code>
+     * accepted nodes that are the most similar to the target.
+     */
+    NeighborQueue searchLevel(float[] target, int beamWidth, int level, int[] entryPoints, Bits acceptOrds) throws IOException {
+        final NeighborQueue results = new NeighborQueue(beamWidth, true);
+        clearVisited();
+        candidates.clear();
+        for (int entryPoint : entryPoints) {
+            if (visit(entryPoint)) {
+                final float score = similarity.score(target, vectors.vectorValue(entryPoint));
+                candidates.add(entryPoint, score);
+                if (acceptOrds == null || acceptOrds.get(entryPoint)) {
+                    results.insertWithOverflow(entryPoint, score, beamWidth);
+                }
+            }
+        }
+        while (candidates.size() > 0) {
+            // the candidates are explored from the most similar one, so the search is over once none of them can improve the results
+            if (results.size() >= beamWidth && candidates.topScore() < results.topScore()) {
+                break;
+            }
+            graph.seek(level, candidates.pop());
+            for (int neighbor = graph.nextNeighbor(); neighbor != HnswGraph.NO_MORE_NEIGHBORS; neighbor = graph.nextNeighbor()) {
+                if (visit(neighbor) == false) {
+                    continue;
+                }
+                final float score = similarity.score(target, vectors.vectorValue(neighbor));
+                if (results.size() < beamWidth || score > results.topScore()) {
+                    candidates.add(neighbor, score);
+                    if (acceptOrds == null || acceptOrds.get(neighbor)) {
+                        results.insertWithOverflow(neighbor, score, beamWidth);
+                    }
+                }
+            }
+        }
+        return results;
+    }
+
+    // returns true if the node wasn't visited yet
+    private boolean visit(int node) {
+        if (visited.getAndSet(node)) {
+            return false;
+        }
+        visitedNodes = ArrayUtil.grow(visitedNodes, numVisited + 1);
+        visitedNodes[numVisited++] = node;
+        return true;
+    }
+
+    private void clearVisited() {
+        if (visited.length() < graph.size()) {
+            visited = new FixedBitSet(ArrayUtil.oversize(graph.size(), 1));
+        } else {
+            for (int i = 0; i < numVisited; i++) {
+                visited.clear(visitedNodes[i]);
+            }
+        }
+        numVisited = 0;
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0; you may not use this file except in compliance with the Elastic License
+ * 2.0.
+ */
+
+package org.elasticsearch.xpack.vectors.codec;
+
+import org.apache.lucene.index.BinaryDocValues;
+import org.apache.lucene.index.FilterBinaryDocValues;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.RandomAccessInput;
+import org.apache.lucene.util.Bits;
+import org.elasticsearch.xpack.vectors.mapper.DenseVectorFieldMapper.VectorSimilarity;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * The binary doc values of an indexed <code>dense_vector</code> field in a segment, which can also be searched for the
+ * nearest neighbors of a vector through the {@link HnswGraph} of the segment.
+ */
+public final class HnswVectorValues extends FilterBinaryDocValues {
+
+    private final VectorSimilarity similarity;
+    // the doc id of each vector ordinal
+    private final RandomAccessInput docs;
+    private final RandomAccessVectors vectors;
+    private final HnswGraph graph;
+
+    HnswVectorValues(BinaryDocValues in, VectorSimilarity similarity, RandomAccessInput docs, RandomAccessVectors vectors,
+                     HnswGraph graph) {
+        super(in);
+        this.similarity = similarity;
+        this.docs = docs;
+        this.vectors = vectors;
+        this.graph = graph;
+    }
+
+    /**
+     * The similarity that the graph was built with, and that the scores of {@link #search} are computed with.
+     */
+    public VectorSimilarity similarity() {
+        return similarity;
+    }
+
+    /**
+     * Returns the <code>k</code> accepted documents whose vectors are the most similar to the target, from the most to the least
+     * similar. The search explores the <code>numCandidates</code> most similar vectors it finds, so the higher it is the more
+     * likely the true nearest neighbors are found. This doesn't move the iterator of these doc values.
+     *
+     * @param acceptDocs the documents that may be returned, or <code>null</code> for all of them
+     */
+    public TopDocs search(float[] target, int k, int numCandidates, Bits acceptDocs) throws IOException {
+        if (target.length != vectors.dims()) {
+            throw new IllegalArgumentException("the query vector has [" + target.length + "] dimensions but the indexed vectors have ["
+                + vectors.dims() + "]");
+        }
+        final Bits acceptOrds = acceptDocs == null ? null : new Bits() {
+            @Override
+            public boolean get(int ord) {
+                try {
+                    return acceptDocs.get(docs.readInt((long) ord * Integer.BYTES));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            @Override
+            public int length() {
+                return vectors.size();
+            }
+        };
+        final TopDocs topDocs = new HnswGraphSearcher(similarity, graph, vectors).search(target, k, numCandidates, acceptOrds);
+        for (ScoreDoc scoreDoc : topDocs.scoreDocs) {
+            scoreDoc.doc = docs.readInt((long) scoreDoc.doc * Integer.BYTES);
+        }
+        return topDocs;
+    }
+}
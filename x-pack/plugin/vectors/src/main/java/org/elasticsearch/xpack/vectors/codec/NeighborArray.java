@@ -0,0 +1,51 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0; you may not use this file except in compliance with the Elastic License
+ * 2.0.
+ */
+
+package org.elasticsearch.xpack.vectors.codec;
+
+import org.apache.lucene.util.ArrayUtil;
+
+/**
+ * The neighbors of a node on one level of a graph that is being built, along with their similarity to that node.
+ */
+final class NeighborArray {
+
+    int[] nodes;
+    float[] scores;
+    int size;
+
+    NeighborArray(int initialCapacity) {
+        nodes = new int[initialCapacity];
+        scores = new float[initialCapacity];
+    }
+
+    void add(int node, float score) {
+        if (size == nodes.length) {
+            nodes = ArrayUtil.grow(nodes, size + 1);
+            scores = ArrayUtil.growExact(scores, nodes.length);
+        }
+        nodes[size] = node;
+        scores[size] = score;
+        size++;
+    }
+
+    /**
+     * Removes the least similar neighbor.
+     */
+    void removeWorst() {
+        assert size > 0;
+        int worst = 0;
+        for (int i = 1; i < size; i++) {
+            if (scores[i] < scores[worst] || (scores[i] == scores[worst] && nodes[i] > nodes[worst])) {
+                worst = i;
+            }
+        }
+        size--;
+        nodes[worst] = nodes[size];
+        scores[worst] = scores[size];
+    }
+}
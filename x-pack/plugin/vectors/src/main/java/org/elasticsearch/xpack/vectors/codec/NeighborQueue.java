@@ -0,0 +1,139 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0; you may not use this file except in compliance with the Elastic License
+ * 2.0.
+ */
+
+package org.elasticsearch.xpack.vectors.codec;
+
+import org.apache.lucene.util.ArrayUtil;
+
+/**
+ * A binary heap of graph nodes and their similarity to a target vector. The top of a min-heap is the least similar node, which
+ * makes it suitable for keeping the best nodes seen so far, and the top of a max-heap is the most similar node, which makes it
+ * suitable for picking the next candidate to explore. Ties are broken on the node ordinal so that searches are deterministic.
+ */
+final class NeighborQueue {
+
+    private final boolean minHeap;
+    private int[] nodes;
+    private float[] scores;
+    private int size;
+
+    NeighborQueue(int initialCapacity, boolean minHeap) {
+        this.minHeap = minHeap;
+        this.nodes = new int[Math.max(1, initialCapacity)];
+        this.scores = new float[nodes.length];
+    }
+
+    int size() {
+        return size;
+    }
+
+    int topNode() {
+        assert size > 0;
+        return nodes[0];
+    }
+
+    float topScore() {
+        assert size > 0;
+        return scores[0];
+    }
+
+    void add(int node, float score) {
+        if (size == nodes.length) {
+            nodes = ArrayUtil.grow(nodes, size + 1);
+            scores = ArrayUtil.growExact(scores, nodes.length);
+        }
+        nodes[size] = node;
+        scores[size] = score;
+        upHeap(size++);
+    }
+
+    /**
+     * Adds the given node if this queue holds less than <code>maxSize</code> nodes, or replaces the top node if the given node
+     * ranks higher. This is only meant to be used on min-heaps.
+     */
+    void insertWithOverflow(int node, float score, int maxSize) {
+        assert minHeap;
+        if (size < maxSize) {
+            add(node, score);
+        } else if (lessThan(nodes[0], scores[0], node, score)) {
+            nodes[0] = node;
+            scores[0] = score;
+            downHeap(0);
+        }
+    }
+
+    /**
+     * Removes the top node and returns it.
+     */
+    int pop() {
+        assert size > 0;
+        final int top = nodes[0];
+        size--;
+        nodes[0] = nodes[size];
+        scores[0] = scores[size];
+        downHeap(0);
+        return top;
+    }
+
+    /**
+     * Returns the nodes of this queue in no particular order.
+     */
+    int[] nodes() {
+        return ArrayUtil.copyOfSubArray(nodes, 0, size);
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    // returns true if the first node must be closer to the top of the heap than the second node
+    private boolean lessThan(int node1, float score1, int node2, float score2) {
+        if (minHeap) {
+            return score1 < score2 || (score1 == score2 && node1 > node2);
+        } else {
+            return score1 > score2 || (score1 == score2 && node1 < node2);
+        }
+    }
+
+    private void upHeap(int i) {
+        final int node = nodes[i];
+        final float score = scores[i];
+        while (i > 0) {
+            final int parent = (i - 1) >>> 1;
+            if (lessThan(node, score, nodes[parent], scores[parent]) == false) {
+                break;
+            }
+            nodes[i] = nodes[parent];
+            scores[i] = scores[parent];
+            i = parent;
+        }
+        nodes[i] = node;
+        scores[i] = score;
+    }
+
+    private void downHeap(int i) {
+        final int node = nodes[i];
+        final float score = scores[i];
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && lessThan(nodes[child + 1], scores[child + 1], nodes[child], scores[child])) {
+                child++;
+            }
+            if (lessThan(nodes[child], scores[child], node, score) == false) {
+                break;
+            }
+            nodes[i] = nodes[child];
+            scores[i] = scores[child];
+            i = child;
+        }
+        nodes[i] = node;
+        scores[i] = score;
+    }
+}
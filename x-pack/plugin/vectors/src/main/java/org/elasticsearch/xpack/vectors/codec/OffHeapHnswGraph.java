@@ -0,0 +1,88 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0; you may not use this file except in compliance with the Elastic License
+ * 2.0.
+ */
+
+package org.elasticsearch.xpack.vectors.codec;
+
+import org.apache.lucene.store.RandomAccessInput;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * An {@link HnswGraph} that is read from the data file of a {@link HnswDocValuesFormat}. The neighbors of each node on a level
+ * are stored in a slot of fixed size, which starts with the number of neighbors, so that the neighbors of a node on level 0 are
+ * found by ordinal. The levels above 0 are sparse and their nodes are kept in memory in order to find the index of their slot.
+ */
+final class OffHeapHnswGraph extends HnswGraph {
+
+    private final int size;
+    private final int entryNode;
+    // the nodes of each level above 0, in ordinal order
+    private final int[][] nodesByLevel;
+    private final int[] maxConns;
+    private final RandomAccessInput[] neighbors;
+
+    private RandomAccessInput current;
+    private long slot;
+    private int numNeighbors;
+    private int cur;
+
+    OffHeapHnswGraph(int size, int entryNode, int[][] nodesByLevel, int[] maxConns, RandomAccessInput[] neighbors) {
+        assert nodesByLevel.length == neighbors.length && maxConns.length == neighbors.length;
+        this.size = size;
+        this.entryNode = entryNode;
+        this.nodesByLevel = nodesByLevel;
+        this.maxConns = maxConns;
+        this.neighbors = neighbors;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int numLevels() {
+        return neighbors.length;
+    }
+
+    @Override
+    public int entryNode() {
+        return entryNode;
+    }
+
+    @Override
+    public int[] nodesOnLevel(int level) {
+        if (level == 0) {
+            final int[] nodes = new int[size];
+            for (int i = 0; i < nodes.length; i++) {
+                nodes[i] = i;
+            }
+            return nodes;
+        }
+        return nodesByLevel[level].clone();
+    }
+
+    @Override
+    public void seek(int level, int node) throws IOException {
+        final int index = level == 0 ? node : Arrays.binarySearch(nodesByLevel[level], node);
+        assert index >= 0 : "node [" + node + "] is not on level [" + level + "]";
+        current = neighbors[level];
+        slot = (long) index * (1 + maxConns[level]) * Integer.BYTES;
+        numNeighbors = current.readInt(slot);
+        cur = 0;
+    }
+
+    @Override
+    public int nextNeighbor() throws IOException {
+        if (cur < numNeighbors) {
+            cur++;
+            return current.readInt(slot + (long) cur * Integer.BYTES);
+        }
+        return NO_MORE_NEIGHBORS;
+    }
+}
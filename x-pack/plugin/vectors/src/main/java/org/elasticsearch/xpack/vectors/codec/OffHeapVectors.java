@@ -0,0 +1,64 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0; you may not use this file except in compliance with the Elastic License
+ * 2.0.
+ */
+
+package org.elasticsearch.xpack.vectors.codec;
+
+import org.apache.lucene.store.IndexInput;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+
+/**
+ * {@link RandomAccessVectors} that are read from a file where they are stored one after the other as big endian floats.
+ */
+final class OffHeapVectors implements RandomAccessVectors {
+
+    private final IndexInput input;
+    private final int size;
+    private final int dims;
+    private final byte[] bytes;
+    private final FloatBuffer floats;
+    private final float[] value;
+    private int lastOrd = -1;
+
+    OffHeapVectors(IndexInput input, int size, int dims) {
+        this.input = input;
+        this.size = size;
+        this.dims = dims;
+        this.bytes = new byte[dims * Float.BYTES];
+        this.floats = ByteBuffer.wrap(bytes).asFloatBuffer();
+        this.value = new float[dims];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int dims() {
+        return dims;
+    }
+
+    @Override
+    public float[] vectorValue(int ord) throws IOException {
+        if (ord != lastOrd) {
+            input.seek((long) ord * bytes.length);
+            input.readBytes(bytes, 0, bytes.length);
+            floats.rewind();
+            floats.get(value);
+            lastOrd = ord;
+        }
+        return value;
+    }
+
+    @Override
+    public RandomAccessVectors copy() {
+        return new OffHeapVectors(input.clone(), size, dims);
+    }
+}
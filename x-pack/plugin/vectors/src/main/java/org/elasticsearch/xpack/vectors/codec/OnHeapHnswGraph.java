@@ -0,0 +1,103 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0; you may not use this file except in compliance with the Elastic License
+ * 2.0.
+ */
+
+package org.elasticsearch.xpack.vectors.codec;
+
+import com.carrotsearch.hppc.IntObjectHashMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An {@link HnswGraph} that is held in memory while it is built, see {@link HnswGraphBuilder}.
+ */
+final class OnHeapHnswGraph extends HnswGraph {
+
+    private final int maxConn;
+    private final List<NeighborArray> level0 = new ArrayList<>();
+    // the nodes of the levels above 0 are sparse
+    private final List<IntObjectHashMap<NeighborArray>> upperLevels = new ArrayList<>();
+    private int entryNode = -1;
+
+    private NeighborArray current;
+    private int cur;
+
+    OnHeapHnswGraph(int maxConn) {
+        this.maxConn = maxConn;
+    }
+
+    /**
+     * Adds the given node to all levels up to the given one. Nodes must be added in ordinal order.
+     */
+    void addNode(int node, int level) {
+        assert node == level0.size();
+        level0.add(new NeighborArray(maxConn(0) + 1));
+        while (upperLevels.size() < level) {
+            upperLevels.add(new IntObjectHashMap<>());
+        }
+        for (int l = 1; l <= level; l++) {
+            upperLevels.get(l - 1).put(node, new NeighborArray(maxConn(l) + 1));
+        }
+    }
+
+    void setEntryNode(int entryNode) {
+        this.entryNode = entryNode;
+    }
+
+    /**
+     * The maximum number of neighbors of a node on the given level, which is twice the number of neighbors on the upper levels
+     * for level 0, like the paper suggests.
+     */
+    int maxConn(int level) {
+        return level == 0 ? maxConn * 2 : maxConn;
+    }
+
+    NeighborArray neighbors(int level, int node) {
+        return level == 0 ? level0.get(node) : upperLevels.get(level - 1).get(node);
+    }
+
+    @Override
+    public int[] nodesOnLevel(int level) {
+        if (level == 0) {
+            final int[] nodes = new int[size()];
+            for (int i = 0; i < nodes.length; i++) {
+                nodes[i] = i;
+            }
+            return nodes;
+        }
+        final int[] nodes = upperLevels.get(level - 1).keys().toArray();
+        Arrays.sort(nodes);
+        return nodes;
+    }
+
+    @Override
+    public int size() {
+        return level0.size();
+    }
+
+    @Override
+    public int numLevels() {
+        return level0.isEmpty() ? 0 : upperLevels.size() + 1;
+    }
+
+    @Override
+    public int entryNode() {
+        return entryNode;
+    }
+
+    @Override
+    public void seek(int level, int node) {
+        current = neighbors(level, node);
+        cur = 0;
+    }
+
+    @Override
+    public int nextNeighbor() {
+        return cur < current.size ? current.nodes[cur++] : NO_MORE_NEIGHBORS;
+    }
+}
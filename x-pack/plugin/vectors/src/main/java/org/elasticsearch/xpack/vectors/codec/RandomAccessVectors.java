@@ -0,0 +1,37 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0; you may not use this file except in compliance with the Elastic License
+ * 2.0.
+ */
+
+package org.elasticsearch.xpack.vectors.codec;
+
+import java.io.IOException;
+
+/**
+ * Gives access to the vectors of a segment by their ordinal. Ordinals are assigned to the documents that have a vector in
+ * increasing doc id order.
+ */
+public interface RandomAccessVectors {
+
+    /**
+     * The number of vectors.
+     */
+    int size();
+
+    /**
+     * The number of dimensions of the vectors.
+     */
+    int dims();
+
+    /**
+     * Returns the vector with the given ordinal. The returned array may be reused by the next call.
+     */
+    float[] vectorValue(int ord) throws IOException;
+
+    /**
+     * Returns an independent view of the same vectors, so that two vectors can be compared without copying one of them.
+     */
+    RandomAccessVectors copy() throws IOException;
+}
@@ -8,10 +8,13 @@
 
 package org.elasticsearch.xpack.vectors.mapper;
 
+import org.apache.lucene.codecs.DocValuesFormat;
 import org.apache.lucene.document.BinaryDocValuesField;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.Version;
+import org.elasticsearch.common.xcontent.ToXContentObject;
+import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.common.xcontent.XContentParser.Token;
 import org.elasticsearch.common.xcontent.support.XContentMapValues;
 import org.elasticsearch.index.fielddata.IndexFieldData;
@@ -21,27 +24,35 @@ import org.elasticsearch.index.mapper.FieldMapper;
 import org.elasticsearch.index.mapper.MappedFieldType;
 import org.elasticsearch.index.mapper.MapperParsingException;
 import org.elasticsearch.index.mapper.ParseContext;
+import org.elasticsearch.index.mapper.PerFieldDocValuesFormatFieldMapper;
 import org.elasticsearch.index.mapper.TextSearchInfo;
 import org.elasticsearch.index.mapper.ValueFetcher;
 import org.elasticsearch.index.query.SearchExecutionContext;
 import org.elasticsearch.search.DocValueFormat;
 import org.elasticsearch.search.aggregations.support.CoreValuesSourceType;
 import org.elasticsearch.search.lookup.SearchLookup;
+import org.elasticsearch.xpack.vectors.codec.HnswDocValuesFormat;
+import org.elasticsearch.xpack.vectors.codec.HnswGraphBuilder;
+import org.elasticsearch.xpack.vectors.query.KnnVectorQuery;
 import org.elasticsearch.xpack.vectors.query.VectorIndexFieldData;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.time.ZoneId;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
 import java.util.function.Supplier;
 
 import static org.elasticsearch.common.xcontent.XContentParserUtils.ensureExpectedToken;
 
 /**
- * A {@link FieldMapper} for indexing a dense vector of floats.
+ * A {@link FieldMapper} for indexing a dense vector of floats. Vectors are stored as binary doc values, and when the field is
+ * indexed they are also connected in a graph of each segment that allows to search for their approximate nearest neighbors.
  */
-public class DenseVectorFieldMapper extends FieldMapper {
+public class DenseVectorFieldMapper extends FieldMapper implements PerFieldDocValuesFormatFieldMapper {
 
     public static final String CONTENT_TYPE = "dense_vector";
     public static short MAX_DIMS_COUNT = 2048; //maximum allowed number of dimensions
@@ -64,6 +75,21 @@ public class DenseVectorFieldMapper extends FieldMapper {
                         "] should be in the range [1, " + MAX_DIMS_COUNT + "] but was [" + dims + "]");
                 }
             });
+        Parameter<Boolean> indexed = Parameter.indexParam(m -> toType(m).indexed, false);
+        Parameter<VectorSimilarity> similarity = new Parameter<>("similarity", false, () -> null,
+            (n, c, o) -> VectorSimilarity.fromString(name, o), m -> toType(m).similarity)
+            .setSerializer((b, n, v) -> {
+                if (v != null) {
+                    b.field(n, v.toString());
+                }
+            }, Objects::toString);
+        Parameter<HnswIndexOptions> indexOptions = new Parameter<>("index_options", false, () -> null,
+            (n, c, o) -> HnswIndexOptions.parse(name, o), m -> toType(m).indexOptions)
+            .setSerializer((b, n, v) -> {
+                if (v != null) {
+                    b.field(n, v);
+                }
+            }, Objects::toString);
         Parameter<Map<String, String>> meta = Parameter.metaParam();
 
         final Version indexVersionCreated;
@@ -75,29 +101,204 @@ public class DenseVectorFieldMapper extends FieldMapper {
 
         @Override
         protected List<Parameter<?>> getParameters() {
-            return List.of(dims, meta);
+            return List.of(dims, indexed, similarity, indexOptions, meta);
         }
 
         @Override
         public DenseVectorFieldMapper build(ContentPath contentPath) {
+            if (indexed.getValue()) {
+                if (similarity.getValue() == null) {
+                    throw new MapperParsingException("Field [" + name + "] of type [" + CONTENT_TYPE + "] requires [similarity] "
+                        + "when [index] is true");
+                }
+            } else if (similarity.getValue() != null || indexOptions.getValue() != null) {
+                throw new MapperParsingException("Field [" + name + "] of type [" + CONTENT_TYPE + "] only supports [similarity] "
+                    + "and [index_options] when [index] is true");
+            }
             return new DenseVectorFieldMapper(
                 name,
-                new DenseVectorFieldType(buildFullName(contentPath), dims.getValue(), meta.getValue()),
+                new DenseVectorFieldType(buildFullName(contentPath), dims.getValue(), indexed.getValue(), similarity.getValue(),
+                    meta.getValue()),
                 dims.getValue(),
+                indexed.getValue(),
+                similarity.getValue(),
+                indexOptions.getValue(),
                 indexVersionCreated,
                 multiFieldsBuilder.build(this, contentPath),
                 copyTo.build());
         }
     }
 
+    /**
+     * The similarity that indexed vectors are compared with. Scores are positive and higher for more similar vectors.
+     */
+    public enum VectorSimilarity {
+        L2_NORM {
+            @Override
+            public float score(float[] v1, float[] v2) {
+                float squareDistance = 0;
+                for (int i = 0; i < v1.length; i++) {
+                    float diff = v1[i] - v2[i];
+                    squareDistance += diff * diff;
+                }
+                return 1 / (1 + squareDistance);
+            }
+        },
+        /**
+         * The dot product of vectors of unit length, which is cheaper to compute than {@link #COSINE} for the same ranking.
+         */
+        DOT_PRODUCT {
+            @Override
+            public float score(float[] v1, float[] v2) {
+                return (1 + dotProduct(v1, v2)) / 2;
+            }
+        },
+        COSINE {
+            @Override
+            public float score(float[] v1, float[] v2) {
+                float norm1 = 0;
+                float norm2 = 0;
+                for (int i = 0; i < v1.length; i++) {
+                    norm1 += v1[i] * v1[i];
+                    norm2 += v2[i] * v2[i];
+                }
+                return (1 + dotProduct(v1, v2) / (float) Math.sqrt((double) norm1 * norm2)) / 2;
+            }
+        };
+
+        /**
+         * Returns the similarity of the given vectors, which must have the same number of dimensions.
+         */
+        public abstract float score(float[] v1, float[] v2);
+
+        private static float dotProduct(float[] v1, float[] v2) {
+            float dotProduct = 0;
+            for (int i = 0; i < v1.length; i++) {
+                dotProduct += v1[i] * v2[i];
+            }
+            return dotProduct;
+        }
+
+        /**
+         * Checks that the given vector, whose magnitude is given, can be compared with this similarity.
+         */
+        void checkVector(String field, float magnitude, Supplier<String> vectorDescription) {
+            if (this == DOT_PRODUCT && Math.abs(magnitude - 1) > 1e-4) {
+                throw new IllegalArgumentException("The [" + this + "] similarity can only be used with unit-length vectors but "
+                    + vectorDescription.get() + " of field [" + field + "] has a magnitude of [" + magnitude + "]");
+            }
+            if (this == COSINE && magnitude == 0) {
+                throw new IllegalArgumentException("The [" + this + "] similarity doesn't support vectors of zero magnitude but "
+                    + vectorDescription.get() + " of field [" + field + "] has a magnitude of [0]");
+            }
+        }
+
+        static VectorSimilarity fromString(String field, Object value) {
+            String similarity = XContentMapValues.nodeStringValue(value);
+            try {
+                return valueOf(similarity.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new MapperParsingException("Unknown [similarity] [" + similarity + "] for field [" + field
+                    + "], expected one of [l2_norm, dot_product, cosine]");
+            }
+        }
+
+        @Override
+        public String toString() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    /**
+     * The parameters of the graph of an indexed field.
+     */
+    public static final class HnswIndexOptions implements ToXContentObject {
+        private final int m;
+        private final int efConstruction;
+
+        HnswIndexOptions(int m, int efConstruction) {
+            this.m = m;
+            this.efConstruction = efConstruction;
+        }
+
+        static HnswIndexOptions parse(String field, Object value) {
+            if (value instanceof Map == false) {
+                throw new MapperParsingException("[index_options] of field [" + field + "] must be an object");
+            }
+            Map<?, ?> options = new HashMap<>((Map<?, ?>) value);
+            Object type = options.remove("type");
+            if (type == null) {
+                throw new MapperParsingException("[index_options] of field [" + field + "] requires [type] to be configured");
+            }
+            if ("hnsw".equals(XContentMapValues.nodeStringValue(type)) == false) {
+                throw new MapperParsingException("Unknown [index_options] type [" + type + "] for field [" + field + "]");
+            }
+            Object m = options.remove("m");
+            Object efConstruction = options.remove("ef_construction");
+            if (options.isEmpty() == false) {
+                throw new MapperParsingException("Unknown [index_options] parameters " + options.keySet() + " for field [" + field
+                    + "]");
+            }
+            HnswIndexOptions indexOptions = new HnswIndexOptions(
+                m == null ? HnswGraphBuilder.DEFAULT_MAX_CONN : XContentMapValues.nodeIntegerValue(m),
+                efConstruction == null ? HnswGraphBuilder.DEFAULT_BEAM_WIDTH : XContentMapValues.nodeIntegerValue(efConstruction));
+            if (indexOptions.m < 2 || indexOptions.m > 512) {
+                throw new MapperParsingException("[m] of field [" + field + "] should be in the range [2, 512] but was ["
+                    + indexOptions.m + "]");
+            }
+            if (indexOptions.efConstruction < 1 || indexOptions.efConstruction > 3200) {
+                throw new MapperParsingException("[ef_construction] of field [" + field + "] should be in the range [1, 3200] but was ["
+                    + indexOptions.efConstruction + "]");
+            }
+            return indexOptions;
+        }
+
+        @Override
+        public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+            builder.startObject();
+            builder.field("type", "hnsw");
+            builder.field("m", m);
+            builder.field("ef_construction", efConstruction);
+            return builder.endObject();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            HnswIndexOptions that = (HnswIndexOptions) o;
+            return m == that.m && efConstruction == that.efConstruction;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(m, efConstruction);
+        }
+
+        @Override
+        public String toString() {
+            return "{type=hnsw, m=" + m + ", ef_construction=" + efConstruction + "}";
+        }
+    }
+
     public static final TypeParser PARSER = new TypeParser((n, c) -> new Builder(n, c.indexVersionCreated()));
 
     public static final class DenseVectorFieldType extends MappedFieldType {
         private final int dims;
+        private final VectorSimilarity similarity;
 
         public DenseVectorFieldType(String name, int dims, Map<String, String> meta) {
-            super(name, false, false, true, TextSearchInfo.NONE, meta);
+            this(name, dims, false, null, meta);
+        }
+
+        public DenseVectorFieldType(String name, int dims, boolean indexed, VectorSimilarity similarity, Map<String, String> meta) {
+            super(name, indexed, false, true, TextSearchInfo.NONE, meta);
             this.dims = dims;
+            this.similarity = similarity;
         }
 
         int dims() {
@@ -143,16 +344,44 @@ public class DenseVectorFieldMapper extends FieldMapper {
             throw new IllegalArgumentException(
                 "Field [" + name() + "] of type [" + typeName() + "] doesn't support queries");
         }
+
+        /**
+         * Returns a query that matches the <code>k</code> documents whose vectors are the most similar to the given vector,
+         * which are searched for among <code>numCandidates</code> candidates on each segment.
+         */
+        public Query createKnnQuery(float[] queryVector, int k, int numCandidates) {
+            if (isSearchable() == false) {
+                throw new IllegalArgumentException("Field [" + name() + "] of type [" + typeName() + "] can only be searched for "
+                    + "nearest neighbors if [index] is true");
+            }
+            if (queryVector.length != dims) {
+                throw new IllegalArgumentException("The query vector has [" + queryVector.length + "] dimensions but field ["
+                    + name() + "] has [" + dims + "]");
+            }
+            double squaredMagnitude = 0;
+            for (float value : queryVector) {
+                squaredMagnitude += value * value;
+            }
+            similarity.checkVector(name(), (float) Math.sqrt(squaredMagnitude), () -> "the query vector");
+            return new KnnVectorQuery(name(), queryVector, k, numCandidates, similarity);
+        }
     }
 
     private final Version indexCreatedVersion;
     private final int dims;
+    private final boolean indexed;
+    private final VectorSimilarity similarity;
+    private final HnswIndexOptions indexOptions;
 
-    private DenseVectorFieldMapper(String simpleName, MappedFieldType mappedFieldType, int dims,
-                                   Version indexCreatedVersion, MultiFields multiFields, CopyTo copyTo) {
+    private DenseVectorFieldMapper(String simpleName, MappedFieldType mappedFieldType, int dims, boolean indexed,
+                                   VectorSimilarity similarity, HnswIndexOptions indexOptions, Version indexCreatedVersion,
+                                   MultiFields multiFields, CopyTo copyTo) {
         super(simpleName, mappedFieldType, multiFields, copyTo);
         this.indexCreatedVersion = indexCreatedVersion;
         this.dims = dims;
+        this.indexed = indexed;
+        this.similarity = similarity;
+        this.indexOptions = indexOptions;
     }
 
     @Override
@@ -197,9 +426,12 @@ public class DenseVectorFieldMapper extends FieldMapper {
                 "] less than defined in the mapping [" +  dims +"]");
         }
 
+        float vectorMagnitude = (float) Math.sqrt(dotProduct);
+        if (indexed) {
+            similarity.checkVector(name(), vectorMagnitude, () -> "the vector of doc [" + context.sourceToParse().id() + "]");
+        }
         if (indexCreatedVersion.onOrAfter(Version.V_7_5_0)) {
             // encode vector magnitude at the end
-            float vectorMagnitude = (float) Math.sqrt(dotProduct);
             byteBuffer.putFloat(vectorMagnitude);
         }
         BinaryDocValuesField field = new BinaryDocValuesField(fieldType().name(), new BytesRef(bytes));
@@ -220,6 +452,17 @@ public class DenseVectorFieldMapper extends FieldMapper {
         return CONTENT_TYPE;
     }
 
+    @Override
+    public DocValuesFormat getDocValuesFormatForField(DocValuesFormat defaultFormat) {
+        if (indexed == false) {
+            return defaultFormat;
+        }
+        HnswIndexOptions options = indexOptions == null
+            ? new HnswIndexOptions(HnswGraphBuilder.DEFAULT_MAX_CONN, HnswGraphBuilder.DEFAULT_BEAM_WIDTH)
+            : indexOptions;
+        return new HnswDocValuesFormat(defaultFormat, similarity, dims, options.m, options.efConstruction);
+    }
+
     @Override
     public FieldMapper.Builder getMergeBuilder() {
         return new Builder(simpleName(), indexCreatedVersion).init(this);
@@ -0,0 +1,180 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0; you may not use this file except in compliance with the Elastic License
+ * 2.0.
+ */
+
+package org.elasticsearch.xpack.vectors.query;
+
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.Explanation;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.QueryVisitor;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.search.Scorer;
+import org.apache.lucene.search.Weight;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Set;
+
+/**
+ * Matches a fixed set of documents of a top-level reader with fixed scores. This is what a {@link KnnVectorQuery} rewrites to,
+ * so its doc ids are only valid for the reader that it was rewritten against and it must not be cached.
+ */
+final class KnnScoreDocQuery extends Query {
+
+    // sorted by doc id
+    private final int[] docs;
+    private final float[] scores;
+
+    KnnScoreDocQuery(ScoreDoc[] scoreDocs) {
+        final ScoreDoc[] sorted = scoreDocs.clone();
+        Arrays.sort(sorted, Comparator.comparingInt(scoreDoc -> scoreDoc.doc));
+        docs = new int[sorted.length];
+        scores = new float[sorted.length];
+        for (int i = 0; i < sorted.length; i++) {
+            docs[i] = sorted[i].doc;
+            scores[i] = sorted[i].score;
+        }
+    }
+
+    @Override
+    public Weight createWeight(IndexSearcher searcher, ScoreMode scoreMode, float boost) {
+        return new Weight(this) {
+            @Override
+            public void extractTerms(Set<Term> terms) {}
+
+            @Override
+            public Explanation explain(LeafReaderContext context, int doc) {
+                final int index = Arrays.binarySearch(docs, context.docBase + doc);
+                if (index < 0) {
+                    return Explanation.noMatch("not a nearest neighbor");
+                }
+                return Explanation.match(scores[index] * boost, "similarity of a nearest neighbor");
+            }
+
+            @Override
+            public Scorer scorer(LeafReaderContext context) {
+                final int from = firstIndex(context.docBase);
+                final int to = firstIndex(context.docBase + context.reader().maxDoc());
+                if (from == to) {
+                    return null;
+                }
+                return new SegmentScorer(this, context.docBase, from, to, boost);
+            }
+
+            @Override
+            public boolean isCacheable(LeafReaderContext ctx) {
+                return false;
+            }
+        };
+    }
+
+    // the index of the first doc that is greater than or equal to the given doc
+    private int firstIndex(int doc) {
+        final int index = Arrays.binarySearch(docs, doc);
+        return index < 0 ? -1 - index : index;
+    }
+
+    private class SegmentScorer extends Scorer {
+        private final int docBase;
+        private final int from;
+        private final int to;
+        private final float boost;
+        private final float maxScore;
+        private int index;
+
+        SegmentScorer(Weight weight, int docBase, int from, int to, float boost) {
+            super(weight);
+            this.docBase = docBase;
+            this.from = from;
+            this.to = to;
+            this.boost = boost;
+            float maxScore = 0;
+            for (int i = from; i < to; i++) {
+                maxScore = Math.max(maxScore, scores[i]);
+            }
+            this.maxScore = maxScore * boost;
+            this.index = from - 1;
+        }
+
+        @Override
+        public DocIdSetIterator iterator() {
+            return new DocIdSetIterator() {
+                @Override
+                public int docID() {
+                    return SegmentScorer.this.docID();
+                }
+
+                @Override
+                public int nextDoc() {
+                    index++;
+                    return docID();
+                }
+
+                @Override
+                public int advance(int target) {
+                    if (target == DocIdSetIterator.NO_MORE_DOCS) {
+                        index = to;
+                    } else {
+                        index = Math.max(index + 1, Math.min(to, firstIndex(docBase + target)));
+                    }
+                    return docID();
+                }
+
+                @Override
+                public long cost() {
+                    return to - from;
+                }
+            };
+        }
+
+        @Override
+        public float getMaxScore(int upTo) {
+            return maxScore;
+        }
+
+        @Override
+        public float score() {
+            return scores[index] * boost;
+        }
+
+        @Override
+        public int docID() {
+            if (index < from) {
+                return -1;
+            }
+            return index < to ? docs[index] - docBase : DocIdSetIterator.NO_MORE_DOCS;
+        }
+    }
+
+    @Override
+    public void visit(QueryVisitor visitor) {
+        visitor.visitLeaf(this);
+    }
+
+    @Override
+    public String toString(String field) {
+        return getClass().getSimpleName() + Arrays.toString(docs);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (sameClassAs(obj) == false) {
+            return false;
+        }
+        KnnScoreDocQuery other = (KnnScoreDocQuery) obj;
+        return Arrays.equals(docs, other.docs) && Arrays.equals(scores, other.scores);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * classHash() + 31 * Arrays.hashCode(docs) + Arrays.hashCode(scores);
+    }
+}
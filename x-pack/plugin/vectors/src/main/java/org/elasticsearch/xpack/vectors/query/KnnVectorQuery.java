@@ -0,0 +1,138 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0; you may not use this file except in compliance with the Elastic License
+ * 2.0.
+ */
+
+package org.elasticsearch.xpack.vectors.query;
+
+import org.apache.lucene.index.BinaryDocValues;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.MatchNoDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.QueryVisitor;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TotalHits;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.PriorityQueue;
+import org.elasticsearch.xpack.vectors.codec.HnswVectorValues;
+import org.elasticsearch.xpack.vectors.mapper.DenseVectorFieldMapper.VectorSimilarity;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * A query that matches the <code>k</code> documents whose vectors are the most similar to a query vector, scored by their
+ * similarity. Each segment is searched through its graph for its own top <code>k</code> documents when the query is rewritten,
+ * and the global top <code>k</code> documents are matched by a {@link KnnScoreDocQuery}. Live docs are taken into account but
+ * other queries are not, so this query returns less than <code>k</code> documents when it is combined with filters.
+ */
+public class KnnVectorQuery extends Query {
+
+    private final String field;
+    private final float[] target;
+    private final int k;
+    private final int numCandidates;
+    private final VectorSimilarity similarity;
+
+    public KnnVectorQuery(String field, float[] target, int k, int numCandidates, VectorSimilarity similarity) {
+        if (k < 1) {
+            throw new IllegalArgumentException("k must be >= 1 but was [" + k + "]");
+        }
+        this.field = Objects.requireNonNull(field);
+        this.target = Objects.requireNonNull(target);
+        this.k = k;
+        this.numCandidates = numCandidates;
+        this.similarity = Objects.requireNonNull(similarity);
+    }
+
+    @Override
+    public Query rewrite(IndexReader reader) throws IOException {
+        final TopDocs[] perLeafTopDocs = new TopDocs[reader.leaves().size()];
+        for (LeafReaderContext ctx : reader.leaves()) {
+            final TopDocs topDocs = searchLeaf(ctx);
+            for (ScoreDoc scoreDoc : topDocs.scoreDocs) {
+                scoreDoc.doc += ctx.docBase;
+            }
+            perLeafTopDocs[ctx.ord] = topDocs;
+        }
+        final TopDocs topDocs = TopDocs.merge(k, perLeafTopDocs);
+        if (topDocs.scoreDocs.length == 0) {
+            return new MatchNoDocsQuery("no vectors in field [" + field + "]");
+        }
+        return new KnnScoreDocQuery(topDocs.scoreDocs);
+    }
+
+    private TopDocs searchLeaf(LeafReaderContext ctx) throws IOException {
+        final BinaryDocValues values = ctx.reader().getBinaryDocValues(field);
+        if (values == null) {
+            return new TopDocs(new TotalHits(0, TotalHits.Relation.EQUAL_TO), new ScoreDoc[0]);
+        }
+        final Bits liveDocs = ctx.reader().getLiveDocs();
+        if (values instanceof HnswVectorValues) {
+            return ((HnswVectorValues) values).search(target, k, numCandidates, liveDocs);
+        }
+        // a reader wrapper may hide the graph, fall back to comparing the query vector with all vectors of the segment
+        return exhaustiveSearch(values, liveDocs);
+    }
+
+    private TopDocs exhaustiveSearch(BinaryDocValues values, Bits liveDocs) throws IOException {
+        final PriorityQueue<ScoreDoc> queue = new PriorityQueue<>(k) {
+            @Override
+            protected boolean lessThan(ScoreDoc a, ScoreDoc b) {
+                return a.score < b.score || (a.score == b.score && a.doc > b.doc);
+            }
+        };
+        final float[] vector = new float[target.length];
+        int numVectors = 0;
+        for (int doc = values.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = values.nextDoc()) {
+            if (liveDocs != null && liveDocs.get(doc) == false) {
+                continue;
+            }
+            final BytesRef bytes = values.binaryValue();
+            ByteBuffer.wrap(bytes.bytes, bytes.offset, bytes.length).asFloatBuffer().get(vector);
+            queue.insertWithOverflow(new ScoreDoc(doc, similarity.score(target, vector)));
+            numVectors++;
+        }
+        final ScoreDoc[] scoreDocs = new ScoreDoc[queue.size()];
+        for (int i = scoreDocs.length - 1; i >= 0; i--) {
+            scoreDocs[i] = queue.pop();
+        }
+        return new TopDocs(new TotalHits(numVectors, TotalHits.Relation.EQUAL_TO), scoreDocs);
+    }
+
+    @Override
+    public void visit(QueryVisitor visitor) {
+        if (visitor.acceptField(field)) {
+            visitor.visitLeaf(this);
+        }
+    }
+
+    @Override
+    public String toString(String field) {
+        return getClass().getSimpleName() + ":" + this.field + Arrays.toString(target) + "[k=" + k + ", num_candidates="
+            + numCandidates + "]";
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (sameClassAs(obj) == false) {
+            return false;
+        }
+        KnnVectorQuery other = (KnnVectorQuery) obj;
+        return field.equals(other.field) && Arrays.equals(target, other.target) && k == other.k
+            && numCandidates == other.numCandidates && similarity == other.similarity;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(classHash(), field, Arrays.hashCode(target), k, numCandidates, similarity);
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0; you may not use this file except in compliance with the Elastic License
+ * 2.0.
+ */
+
+package org.elasticsearch.xpack.vectors.codec;
+
+import org.apache.lucene.codecs.Codec;
+import org.apache.lucene.codecs.DocValuesFormat;
+import org.apache.lucene.codecs.lucene80.Lucene80DocValuesFormat;
+import org.apache.lucene.codecs.lucene87.Lucene87Codec;
+import org.apache.lucene.document.BinaryDocValuesField;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.BinaryDocValues;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.xpack.vectors.mapper.DenseVectorFieldMapper.VectorSimilarity;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class HnswDocValuesFormatTests extends ESTestCase {
+
+    public void testSearchSegments() throws IOException {
+        final VectorSimilarity similarity = randomFrom(VectorSimilarity.values());
+        final int dims = randomIntBetween(2, 16);
+        final DocValuesFormat format = new HnswDocValuesFormat(new Lucene80DocValuesFormat(), similarity, dims, 16, 100);
+        final Map<String, float[]> vectors = new HashMap<>();
+        try (Directory dir = newDirectory();
+             IndexWriter w = new IndexWriter(dir, new IndexWriterConfig().setCodec(codec(format)))) {
+            final int numDocs = randomIntBetween(100, 1000);
+            for (int i = 0; i < numDocs; i++) {
+                final Document doc = new Document();
+                doc.add(new StringField("id", Integer.toString(i), Field.Store.YES));
+                // some documents don't have a vector
+                if (rarely() == false) {
+                    final float[] vector = HnswGraphTests.randomVector(similarity, dims);
+                    vectors.put(Integer.toString(i), vector);
+                    doc.add(new BinaryDocValuesField("vector", encode(vector)));
+                }
+                w.addDocument(doc);
+                if (rarely()) {
+                    w.commit();
+                }
+            }
+            for (int i = 0; i < numDocs; i++) {
+                if (rarely()) {
+                    w.deleteDocuments(new Term("id", Integer.toString(i)));
+                    vectors.remove(Integer.toString(i));
+                }
+            }
+            try (DirectoryReader reader = DirectoryReader.open(w)) {
+                assertSearches(reader, similarity, dims, vectors);
+            }
+            w.forceMerge(1);
+            try (DirectoryReader reader = DirectoryReader.open(w)) {
+                assertThat(reader.leaves().size(), equalTo(1));
+                assertSearches(reader, similarity, dims, vectors);
+            }
+        }
+    }
+
+    public void testBinaryValuesAreKept() throws IOException {
+        final int dims = randomIntBetween(2, 16);
+        final DocValuesFormat format = new HnswDocValuesFormat(new Lucene80DocValuesFormat(), VectorSimilarity.L2_NORM, dims, 16, 100);
+        try (Directory dir = newDirectory();
+             IndexWriter w = new IndexWriter(dir, new IndexWriterConfig().setCodec(codec(format)))) {
+            final int numDocs = randomIntBetween(1, 100);
+            final BytesRef[] values = new BytesRef[numDocs];
+            for (int i = 0; i < numDocs; i++) {
+                values[i] = encode(HnswGraphTests.randomVector(VectorSimilarity.L2_NORM, dims));
+                final Document doc = new Document();
+                doc.add(new BinaryDocValuesField("vector", values[i]));
+                w.addDocument(doc);
+            }
+            w.forceMerge(1);
+            try (DirectoryReader reader = DirectoryReader.open(w)) {
+                final BinaryDocValues docValues = reader.leaves().get(0).reader().getBinaryDocValues("vector");
+                assertThat(docValues, instanceOf(HnswVectorValues.class));
+                for (int i = 0; i < numDocs; i++) {
+                    assertThat(docValues.nextDoc(), equalTo(i));
+                    assertThat(docValues.binaryValue(), equalTo(values[i]));
+                }
+                assertThat(docValues.nextDoc(), equalTo(DocIdSetIterator.NO_MORE_DOCS));
+            }
+        }
+    }
+
+    private static void assertSearches(DirectoryReader reader, VectorSimilarity similarity, int dims, Map<String, float[]> vectors)
+        throws IOException {
+        final int numQueries = 20;
+        final int k = 10;
+        int expectedHits = 0;
+        int found = 0;
+        for (int i = 0; i < numQueries; i++) {
+            final float[] target = HnswGraphTests.randomVector(similarity, dims);
+            for (LeafReaderContext ctx : reader.leaves()) {
+                final LeafReader leaf = ctx.reader();
+                final BinaryDocValues values = leaf.getBinaryDocValues("vector");
+                if (values == null) {
+                    continue;
+                }
+                assertThat(values, instanceOf(HnswVectorValues.class));
+                final TopDocs topDocs = ((HnswVectorValues) values).search(target, k, 100, leaf.getLiveDocs());
+                final Set<Integer> expected = new HashSet<>();
+                final float[][] segmentVectors = new float[leaf.maxDoc()][];
+                for (int doc = 0; doc < leaf.maxDoc(); doc++) {
+                    if (leaf.getLiveDocs() == null || leaf.getLiveDocs().get(doc)) {
+                        final String id = leaf.document(doc).get("id");
+                        segmentVectors[doc] = id == null ? null : vectors.get(id);
+                    }
+                }
+                final TopDocs exact = exactSearch(similarity, segmentVectors, target, k);
+                for (ScoreDoc scoreDoc : exact.scoreDocs) {
+                    expected.add(scoreDoc.doc);
+                }
+                assertThat(topDocs.scoreDocs.length, lessThanOrEqualTo(k));
+                for (ScoreDoc scoreDoc : topDocs.scoreDocs) {
+                    assertNotNull("deleted docs and docs without vectors must not be returned", segmentVectors[scoreDoc.doc]);
+                    assertThat(scoreDoc.score, equalTo(similarity.score(target, segmentVectors[scoreDoc.doc])));
+                    if (expected.contains(scoreDoc.doc)) {
+                        found++;
+                    }
+                }
+                expectedHits += expected.size();
+            }
+        }
+        assertThat("recall", (double) found / expectedHits, greaterThanOrEqualTo(0.9));
+    }
+
+    private static TopDocs exactSearch(VectorSimilarity similarity, float[][] vectors, float[] target, int k) throws IOException {
+        int size = 0;
+        final float[][] compacted = new float[vectors.length][];
+        final int[] docs = new int[vectors.length];
+        for (int doc = 0; doc < vectors.length; doc++) {
+            if (vectors[doc] != null) {
+                compacted[size] = vectors[doc];
+                docs[size++] = doc;
+            }
+        }
+        final float[][] present = new float[size][];
+        System.arraycopy(compacted, 0, present, 0, size);
+        final ScoreDoc[] scoreDocs = HnswGraphTests.exactSearch(similarity, new HnswGraphTests.OnHeapVectors(present), target, k, null);
+        for (ScoreDoc scoreDoc : scoreDocs) {
+            scoreDoc.doc = docs[scoreDoc.doc];
+        }
+        return new TopDocs(null, scoreDocs);
+    }
+
+    static Codec codec(DocValuesFormat format) {
+        return new Lucene87Codec() {
+            @Override
+            public DocValuesFormat getDocValuesFormatForField(String field) {
+                return "vector".equals(field) ? format : super.getDocValuesFormatForField(field);
+            }
+        };
+    }
+
+    /**
+     * Encodes a vector like <code>dense_vector</code> fields do.
+     */
+    static BytesRef encode(float[] vector) {
+        final ByteBuffer buffer = ByteBuffer.allocate((vector.length + 1) * Float.BYTES);
+        double squaredMagnitude = 0;
+        for (float value : vector) {
+            buffer.putFloat(value);
+            squaredMagnitude += value * value;
+        }
+        buffer.putFloat((float) Math.sqrt(squaredMagnitude));
+        return new BytesRef(buffer.array());
+    }
+}
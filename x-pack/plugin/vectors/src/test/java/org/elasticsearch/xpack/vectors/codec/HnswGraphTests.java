@@ -0,0 +1,173 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0; you may not use this file except in compliance with the Elastic License
+ * 2.0.
+ */
+
+package org.elasticsearch.xpack.vectors.codec;
+
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.FixedBitSet;
+import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.xpack.vectors.mapper.DenseVectorFieldMapper.VectorSimilarity;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class HnswGraphTests extends ESTestCase {
+
+    public void testRecall() throws IOException {
+        final VectorSimilarity similarity = randomFrom(VectorSimilarity.values());
+        final OnHeapVectors vectors = randomVectors(similarity, randomIntBetween(500, 2000), randomIntBetween(2, 32));
+        final HnswGraph graph = new HnswGraphBuilder(similarity, vectors, randomIntBetween(8, 32), randomIntBetween(50, 200)).build();
+        assertThat(graph.size(), equalTo(vectors.size()));
+        final HnswGraphSearcher searcher = new HnswGraphSearcher(similarity, graph, vectors.copy());
+        final int numQueries = 50;
+        final int k = 10;
+        int found = 0;
+        for (int i = 0; i < numQueries; i++) {
+            final float[] target = randomVector(similarity, vectors.dims());
+            final TopDocs topDocs = searcher.search(target, k, 100, null);
+            assertThat(topDocs.scoreDocs.length, equalTo(k));
+            for (int j = 1; j < topDocs.scoreDocs.length; j++) {
+                assertThat(topDocs.scoreDocs[j].score, lessThanOrEqualTo(topDocs.scoreDocs[j - 1].score));
+            }
+            final Set<Integer> expected = new HashSet<>();
+            for (ScoreDoc scoreDoc : exactSearch(similarity, vectors, target, k, null)) {
+                expected.add(scoreDoc.doc);
+            }
+            for (ScoreDoc scoreDoc : topDocs.scoreDocs) {
+                assertThat(scoreDoc.score, equalTo(similarity.score(target, vectors.vectorValue(scoreDoc.doc))));
+                if (expected.contains(scoreDoc.doc)) {
+                    found++;
+                }
+            }
+        }
+        assertThat("recall", (double) found / (numQueries * k), greaterThanOrEqualTo(0.9));
+    }
+
+    public void testAcceptOrds() throws IOException {
+        final VectorSimilarity similarity = randomFrom(VectorSimilarity.values());
+        final OnHeapVectors vectors = randomVectors(similarity, randomIntBetween(100, 500), randomIntBetween(2, 8));
+        final HnswGraph graph = new HnswGraphBuilder(similarity, vectors, 16, 100).build();
+        final FixedBitSet acceptOrds = new FixedBitSet(vectors.size());
+        for (int ord = 0; ord < vectors.size(); ord++) {
+            if (randomBoolean()) {
+                acceptOrds.set(ord);
+            }
+        }
+        final int k = randomIntBetween(1, 20);
+        final TopDocs topDocs = new HnswGraphSearcher(similarity, graph, vectors.copy())
+            .search(randomVector(similarity, vectors.dims()), k, 100, acceptOrds);
+        assertThat(topDocs.scoreDocs.length, equalTo(Math.min(k, acceptOrds.cardinality())));
+        for (ScoreDoc scoreDoc : topDocs.scoreDocs) {
+            assertTrue(acceptOrds.get(scoreDoc.doc));
+        }
+    }
+
+    public void testBuildIsDeterministic() throws IOException {
+        final VectorSimilarity similarity = randomFrom(VectorSimilarity.values());
+        final OnHeapVectors vectors = randomVectors(similarity, randomIntBetween(1, 300), randomIntBetween(2, 8));
+        final HnswGraph graph1 = new HnswGraphBuilder(similarity, vectors, 8, 50).build();
+        final HnswGraph graph2 = new HnswGraphBuilder(similarity, vectors, 8, 50).build();
+        assertThat(graph1.numLevels(), equalTo(graph2.numLevels()));
+        assertThat(graph1.entryNode(), equalTo(graph2.entryNode()));
+        for (int level = 0; level < graph1.numLevels(); level++) {
+            final int[] nodes = graph1.nodesOnLevel(level);
+            assertArrayEquals(nodes, graph2.nodesOnLevel(level));
+            for (int node : nodes) {
+                graph1.seek(level, node);
+                graph2.seek(level, node);
+                int neighbor;
+                do {
+                    neighbor = graph1.nextNeighbor();
+                    assertThat(graph2.nextNeighbor(), equalTo(neighbor));
+                } while (neighbor != HnswGraph.NO_MORE_NEIGHBORS);
+            }
+        }
+    }
+
+    public void testEmptyGraph() throws IOException {
+        final OnHeapVectors vectors = new OnHeapVectors(new float[0][]);
+        final HnswGraph graph = new HnswGraphBuilder(VectorSimilarity.L2_NORM, vectors, 16, 100).build();
+        assertThat(graph.numLevels(), equalTo(0));
+        final TopDocs topDocs = new HnswGraphSearcher(VectorSimilarity.L2_NORM, graph, vectors).search(new float[2], 10, 100, null);
+        assertThat(topDocs.scoreDocs.length, equalTo(0));
+    }
+
+    static ScoreDoc[] exactSearch(VectorSimilarity similarity, RandomAccessVectors vectors, float[] target, int k, Bits acceptOrds)
+        throws IOException {
+        final ScoreDoc[] scoreDocs = new ScoreDoc[vectors.size()];
+        for (int ord = 0; ord < vectors.size(); ord++) {
+            scoreDocs[ord] = new ScoreDoc(ord, similarity.score(target, vectors.vectorValue(ord)));
+        }
+        return Arrays.stream(scoreDocs)
+            .filter(scoreDoc -> acceptOrds == null || acceptOrds.get(scoreDoc.doc))
+            .sorted(Comparator.comparingDouble((ScoreDoc scoreDoc) -> -scoreDoc.score).thenComparingInt(scoreDoc -> scoreDoc.doc))
+            .limit(k)
+            .toArray(ScoreDoc[]::new);
+    }
+
+    static OnHeapVectors randomVectors(VectorSimilarity similarity, int size, int dims) {
+        return new OnHeapVectors(IntStream.range(0, size).mapToObj(i -> randomVector(similarity, dims)).toArray(float[][]::new));
+    }
+
+    static float[] randomVector(VectorSimilarity similarity, int dims) {
+        final float[] vector = new float[dims];
+        double squaredMagnitude = 0;
+        for (int i = 0; i < dims; i++) {
+            vector[i] = randomFloat() * 2 - 1;
+            squaredMagnitude += vector[i] * vector[i];
+        }
+        if (squaredMagnitude == 0) {
+            vector[0] = 1;
+            squaredMagnitude = 1;
+        }
+        if (similarity == VectorSimilarity.DOT_PRODUCT) {
+            final float magnitude = (float) Math.sqrt(squaredMagnitude);
+            for (int i = 0; i < dims; i++) {
+                vector[i] /= magnitude;
+            }
+        }
+        return vector;
+    }
+
+    static final class OnHeapVectors implements RandomAccessVectors {
+        private final float[][] vectors;
+
+        OnHeapVectors(float[][] vectors) {
+            this.vectors = vectors;
+        }
+
+        @Override
+        public int size() {
+            return vectors.length;
+        }
+
+        @Override
+        public int dims() {
+            return vectors.length == 0 ? 0 : vectors[0].length;
+        }
+
+        @Override
+        public float[] vectorValue(int ord) {
+            return vectors[ord];
+        }
+
+        @Override
+        public RandomAccessVectors copy() {
+            return this;
+        }
+    }
+}
@@ -7,17 +7,22 @@
 
 package org.elasticsearch.xpack.vectors.mapper;
 
+import org.apache.lucene.codecs.DocValuesFormat;
+import org.apache.lucene.codecs.lucene80.Lucene80DocValuesFormat;
 import org.apache.lucene.document.BinaryDocValuesField;
 import org.apache.lucene.index.IndexableField;
 import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.Version;
+import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.index.mapper.DocumentMapper;
 import org.elasticsearch.index.mapper.MapperParsingException;
+import org.elasticsearch.index.mapper.MapperService;
 import org.elasticsearch.index.mapper.MapperTestCase;
 import org.elasticsearch.index.mapper.ParsedDocument;
 import org.elasticsearch.plugins.Plugin;
 import org.elasticsearch.xpack.vectors.Vectors;
+import org.elasticsearch.xpack.vectors.codec.HnswDocValuesFormat;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
@@ -50,6 +55,75 @@ public class DenseVectorFieldMapperTests extends MapperTestCase {
         checker.registerConflictCheck("dims",
             fieldMapping(b -> b.field("type", "dense_vector").field("dims", 4)),
             fieldMapping(b -> b.field("type", "dense_vector").field("dims", 5)));
+        checker.registerConflictCheck("index",
+            fieldMapping(b -> b.field("type", "dense_vector").field("dims", 4)),
+            fieldMapping(b -> b.field("type", "dense_vector").field("dims", 4).field("index", true).field("similarity", "cosine")));
+        checker.registerConflictCheck("similarity",
+            fieldMapping(b -> b.field("type", "dense_vector").field("dims", 4).field("index", true).field("similarity", "cosine")),
+            fieldMapping(b -> b.field("type", "dense_vector").field("dims", 4).field("index", true).field("similarity", "l2_norm")));
+        checker.registerConflictCheck("index_options",
+            fieldMapping(b -> b.field("type", "dense_vector").field("dims", 4).field("index", true).field("similarity", "cosine")),
+            fieldMapping(b -> b.field("type", "dense_vector").field("dims", 4).field("index", true).field("similarity", "cosine")
+                .startObject("index_options").field("type", "hnsw").field("m", 5).endObject()));
+    }
+
+    public void testIndexedField() throws IOException {
+        MapperService mapperService = createMapperService(fieldMapping(b -> b.field("type", "dense_vector")
+            .field("dims", 3)
+            .field("index", true)
+            .field("similarity", "dot_product")
+            .startObject("index_options").field("type", "hnsw").field("m", 8).field("ef_construction", 50).endObject()));
+        assertThat(Strings.toString(mapperService.documentMapper().mapping()), containsString("\"index\":true,"
+            + "\"similarity\":\"dot_product\",\"index_options\":{\"type\":\"hnsw\",\"m\":8,\"ef_construction\":50}"));
+        DenseVectorFieldMapper mapper = (DenseVectorFieldMapper) mapperService.documentMapper().mappers().getMapper("field");
+        assertThat(mapper.getDocValuesFormatForField(new Lucene80DocValuesFormat()), instanceOf(HnswDocValuesFormat.class));
+        assertTrue(mapperService.fieldType("field").isSearchable());
+
+        ParsedDocument doc = mapperService.documentMapper().parse(source(b -> b.array("field", 0.6f, 0f, 0.8f)));
+        assertEquals(1, doc.rootDoc().getFields("field").length);
+        MapperParsingException e = expectThrows(MapperParsingException.class,
+            () -> mapperService.documentMapper().parse(source(b -> b.array("field", 1f, 1f, 1f))));
+        assertThat(e.getCause().getMessage(), containsString("The [dot_product] similarity can only be used with unit-length vectors"));
+    }
+
+    public void testNotIndexedField() throws IOException {
+        MapperService mapperService = createMapperService(fieldMapping(b -> b.field("type", "dense_vector").field("dims", 3)));
+        DenseVectorFieldMapper mapper = (DenseVectorFieldMapper) mapperService.documentMapper().mappers().getMapper("field");
+        DocValuesFormat defaultFormat = new Lucene80DocValuesFormat();
+        assertSame(defaultFormat, mapper.getDocValuesFormatForField(defaultFormat));
+        assertFalse(mapperService.fieldType("field").isSearchable());
+    }
+
+    public void testIndexParameters() {
+        {
+            Exception e = expectThrows(MapperParsingException.class, () -> createMapperService(fieldMapping(b -> b
+                .field("type", "dense_vector").field("dims", 3).field("index", true))));
+            assertThat(e.getMessage(), equalTo("Failed to parse mapping: " +
+                "Field [field] of type [dense_vector] requires [similarity] when [index] is true"));
+        }
+        {
+            Exception e = expectThrows(MapperParsingException.class, () -> createMapperService(fieldMapping(b -> b
+                .field("type", "dense_vector").field("dims", 3).field("similarity", "cosine"))));
+            assertThat(e.getMessage(), equalTo("Failed to parse mapping: " +
+                "Field [field] of type [dense_vector] only supports [similarity] and [index_options] when [index] is true"));
+        }
+        {
+            Exception e = expectThrows(MapperParsingException.class, () -> createMapperService(fieldMapping(b -> b
+                .field("type", "dense_vector").field("dims", 3).field("index", true).field("similarity", "manhattan"))));
+            assertThat(e.getMessage(), containsString("Unknown [similarity] [manhattan] for field [field]"));
+        }
+        {
+            Exception e = expectThrows(MapperParsingException.class, () -> createMapperService(fieldMapping(b -> b
+                .field("type", "dense_vector").field("dims", 3).field("index", true).field("similarity", "cosine")
+                .startObject("index_options").field("type", "ivf").endObject())));
+            assertThat(e.getMessage(), containsString("Unknown [index_options] type [ivf] for field [field]"));
+        }
+        {
+            Exception e = expectThrows(MapperParsingException.class, () -> createMapperService(fieldMapping(b -> b
+                .field("type", "dense_vector").field("dims", 3).field("index", true).field("similarity", "cosine")
+                .startObject("index_options").field("type", "hnsw").field("m", 1).endObject())));
+            assertThat(e.getMessage(), containsString("[m] of field [field] should be in the range [2, 512] but was [1]"));
+        }
     }
 
     public void testDims() {
@@ -0,0 +1,129 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0; you may not use this file except in compliance with the Elastic License
+ * 2.0.
+ */
+
+package org.elasticsearch.xpack.vectors.query;
+
+import org.apache.lucene.search.Query;
+import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.compress.CompressedXContent;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.index.mapper.MapperService;
+import org.elasticsearch.index.query.SearchExecutionContext;
+import org.elasticsearch.plugins.Plugin;
+import org.elasticsearch.test.AbstractQueryTestCase;
+import org.elasticsearch.test.TestGeoShapeFieldMapperPlugin;
+import org.elasticsearch.xpack.vectors.Vectors;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+
+public class KnnVectorQueryBuilderTests extends AbstractQueryTestCase<KnnVectorQueryBuilder> {
+
+    private static final String VECTOR_FIELD = "vector";
+    private static final int DIMS = 4;
+
+    @Override
+    protected Collection<Class<? extends Plugin>> getPlugins() {
+        return List.of(Vectors.class, TestGeoShapeFieldMapperPlugin.class);
+    }
+
+    @Override
+    protected void initializeAdditionalMappings(MapperService mapperService) throws IOException {
+        XContentBuilder mapping = XContentFactory.jsonBuilder().startObject().startObject("properties")
+            .startObject(VECTOR_FIELD)
+                .field("type", "dense_vector")
+                .field("dims", DIMS)
+                .field("index", true)
+                .field("similarity", "l2_norm")
+            .endObject()
+            .endObject().endObject();
+        mapperService.merge(MapperService.SINGLE_MAPPING_NAME, new CompressedXContent(Strings.toString(mapping)),
+            MapperService.MergeReason.MAPPING_UPDATE);
+    }
+
+    @Override
+    protected KnnVectorQueryBuilder doCreateTestQueryBuilder() {
+        final float[] vector = new float[DIMS];
+        for (int i = 0; i < DIMS; i++) {
+            vector[i] = randomFloat();
+        }
+        final int k = randomIntBetween(1, 100);
+        final Integer numCandidates = randomBoolean() ? null : randomIntBetween(k, KnnVectorQueryBuilder.MAX_NUM_CANDIDATES);
+        return new KnnVectorQueryBuilder(VECTOR_FIELD, vector, k, numCandidates);
+    }
+
+    @Override
+    protected void doAssertLuceneQuery(KnnVectorQueryBuilder queryBuilder, Query query, SearchExecutionContext context) {
+        assertThat(query, instanceOf(KnnVectorQuery.class));
+        assertThat(query.toString(), containsString(Arrays.toString(queryBuilder.getQueryVector())));
+        assertThat(query.toString(), containsString("[k=" + queryBuilder.getK() + ", num_candidates="
+            + queryBuilder.getNumCandidates() + "]"));
+    }
+
+    public void testDefaultNumCandidates() {
+        KnnVectorQueryBuilder builder = new KnnVectorQueryBuilder(VECTOR_FIELD, new float[DIMS], 10, null);
+        assertThat(builder.getNumCandidates(), equalTo(KnnVectorQueryBuilder.DEFAULT_NUM_CANDIDATES));
+        builder = new KnnVectorQueryBuilder(VECTOR_FIELD, new float[DIMS], 500, null);
+        assertThat(builder.getNumCandidates(), equalTo(500));
+    }
+
+    public void testIllegalArguments() {
+        IllegalArgumentException e = expectThrows(IllegalArgumentException.class,
+            () -> new KnnVectorQueryBuilder(VECTOR_FIELD, new float[DIMS], 0, null));
+        assertThat(e.getMessage(), equalTo("[k] must be greater than 0 but was [0]"));
+        e = expectThrows(IllegalArgumentException.class, () -> new KnnVectorQueryBuilder(VECTOR_FIELD, new float[DIMS], 10, 5));
+        assertThat(e.getMessage(), containsString("[num_candidates] cannot be less than [k]"));
+        e = expectThrows(IllegalArgumentException.class,
+            () -> new KnnVectorQueryBuilder(VECTOR_FIELD, new float[DIMS], 10, KnnVectorQueryBuilder.MAX_NUM_CANDIDATES + 1));
+        assertThat(e.getMessage(), containsString("[num_candidates] cannot exceed [10000]"));
+        e = expectThrows(IllegalArgumentException.class, () -> new KnnVectorQueryBuilder(null, new float[DIMS], 10, null));
+        assertThat(e.getMessage(), equalTo("[knn] requires a [field]"));
+    }
+
+    public void testWrongDimensions() {
+        KnnVectorQueryBuilder builder = new KnnVectorQueryBuilder(VECTOR_FIELD, new float[DIMS + 1], 10, null);
+        IllegalArgumentException e = expectThrows(IllegalArgumentException.class,
+            () -> builder.toQuery(createSearchExecutionContext()));
+        assertThat(e.getMessage(), containsString("dimensions"));
+    }
+
+    public void testNonVectorField() {
+        KnnVectorQueryBuilder builder = new KnnVectorQueryBuilder(TEXT_FIELD_NAME, new float[DIMS], 10, null);
+        IllegalArgumentException e = expectThrows(IllegalArgumentException.class,
+            () -> builder.toQuery(createSearchExecutionContext()));
+        assertThat(e.getMessage(), containsString("are only supported on [dense_vector] fields"));
+    }
+
+    public void testFromJson() throws IOException {
+        String json = "{\n" +
+            "  \"knn\" : {\n" +
+            "    \"field\" : \"vector\",\n" +
+            "    \"query_vector\" : [\n" +
+            "      0.5,\n" +
+            "      1.0,\n" +
+            "      -1.0,\n" +
+            "      2.0\n" +
+            "    ],\n" +
+            "    \"k\" : 10,\n" +
+            "    \"num_candidates\" : 50,\n" +
+            "    \"boost\" : 1.0\n" +
+            "  }\n" +
+            "}";
+        KnnVectorQueryBuilder parsed = (KnnVectorQueryBuilder) parseQuery(json);
+        checkGeneratedJson(json, parsed);
+        assertThat(parsed.getField(), equalTo(VECTOR_FIELD));
+        assertThat(parsed.getK(), equalTo(10));
+        assertThat(parsed.getNumCandidates(), equalTo(50));
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0; you may not use this file except in compliance with the Elastic License
+ * 2.0.
+ */
+
+package org.elasticsearch.xpack.vectors.query;
+
+import org.apache.lucene.codecs.DocValuesFormat;
+import org.apache.lucene.codecs.lucene80.Lucene80DocValuesFormat;
+import org.apache.lucene.codecs.lucene87.Lucene87Codec;
+import org.apache.lucene.document.BinaryDocValuesField;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.BinaryDocValues;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.FilterBinaryDocValues;
+import org.apache.lucene.index.FilterDirectoryReader;
+import org.apache.lucene.index.FilterLeafReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.Explanation;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchNoDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.xpack.vectors.codec.HnswDocValuesFormat;
+import org.elasticsearch.xpack.vectors.mapper.DenseVectorFieldMapper.VectorSimilarity;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.instanceOf;
+
+public class KnnVectorQueryTests extends ESTestCase {
+
+    public void testSearch() throws IOException {
+        final VectorSimilarity similarity = randomFrom(VectorSimilarity.values());
+        final int dims = randomIntBetween(2, 16);
+        final HnswDocValuesFormat format = new HnswDocValuesFormat(new Lucene80DocValuesFormat(), similarity, dims, 16, 100);
+        try (Directory dir = newDirectory();
+             IndexWriter w = new IndexWriter(dir, new IndexWriterConfig().setCodec(new Lucene87Codec() {
+                 @Override
+                 public DocValuesFormat getDocValuesFormatForField(String field) {
+                     return format;
+                 }
+             }))) {
+            final int numDocs = randomIntBetween(200, 1000);
+            for (int i = 0; i < numDocs; i++) {
+                final Document doc = new Document();
+                doc.add(new StringField("id", Integer.toString(i), Field.Store.NO));
+                if (rarely() == false) {
+                    doc.add(new BinaryDocValuesField("vector", encode(randomVector(similarity, dims))));
+                }
+                w.addDocument(doc);
+                if (rarely()) {
+                    w.commit();
+                }
+            }
+            for (int i = 0; i < numDocs; i++) {
+                if (rarely()) {
+                    w.deleteDocuments(new Term("id", Integer.toString(i)));
+                }
+            }
+            try (DirectoryReader reader = DirectoryReader.open(w);
+                 DirectoryReader exhaustiveReader = new HideGraphDirectoryReader(DirectoryReader.open(w))) {
+                // not newSearcher, which may wrap the reader and hide the graph
+                final IndexSearcher searcher = new IndexSearcher(reader);
+                final IndexSearcher exhaustiveSearcher = newSearcher(exhaustiveReader);
+                final int numQueries = 20;
+                final int k = randomIntBetween(1, 20);
+                int found = 0;
+                int expectedHits = 0;
+                for (int i = 0; i < numQueries; i++) {
+                    final Query query = new KnnVectorQuery("vector", randomVector(similarity, dims), k, 100, similarity);
+                    final TopDocs topDocs = searcher.search(query, numDocs);
+                    final TopDocs exact = exhaustiveSearcher.search(query, numDocs);
+                    assertThat(topDocs.scoreDocs.length, equalTo(exact.scoreDocs.length));
+                    assertThat(exact.scoreDocs.length, equalTo(Math.min(k, exhaustiveReader.numDocs())));
+                    final Set<Integer> expected = new HashSet<>();
+                    for (ScoreDoc scoreDoc : exact.scoreDocs) {
+                        expected.add(scoreDoc.doc);
+                    }
+                    for (ScoreDoc scoreDoc : topDocs.scoreDocs) {
+                        if (expected.contains(scoreDoc.doc)) {
+                            found++;
+                        }
+                    }
+                    expectedHits += expected.size();
+                    if (topDocs.scoreDocs.length > 0) {
+                        final float boost = randomFloat() * 10;
+                        final ScoreDoc top = exact.scoreDocs[0];
+                        final TopDocs boosted = exhaustiveSearcher.search(new BoostQuery(query, boost), 1);
+                        assertThat(boosted.scoreDocs[0].doc, equalTo(top.doc));
+                        assertThat(boosted.scoreDocs[0].score, equalTo(top.score * boost));
+                        final Explanation explanation = exhaustiveSearcher.explain(query, top.doc);
+                        assertTrue(explanation.isMatch());
+                        assertThat(explanation.getValue().floatValue(), equalTo(top.score));
+                        assertThat(exhaustiveSearcher.count(query), equalTo(exact.scoreDocs.length));
+                    }
+                }
+                assertThat("recall", (double) found / expectedHits, greaterThanOrEqualTo(0.9));
+            }
+        }
+    }
+
+    public void testNoVectors() throws IOException {
+        try (Directory dir = newDirectory();
+             IndexWriter w = new IndexWriter(dir, new IndexWriterConfig())) {
+            w.addDocument(new Document());
+            try (DirectoryReader reader = DirectoryReader.open(w)) {
+                final Query query = new KnnVectorQuery("vector", new float[] { 1, 2 }, 10, 100, VectorSimilarity.L2_NORM);
+                assertThat(query.rewrite(reader), instanceOf(MatchNoDocsQuery.class));
+            }
+        }
+    }
+
+    private static float[] randomVector(VectorSimilarity similarity, int dims) {
+        final float[] vector = new float[dims];
+        double squaredMagnitude = 0;
+        for (int i = 0; i < dims; i++) {
+            vector[i] = randomFloat() * 2 - 1;
+            squaredMagnitude += vector[i] * vector[i];
+        }
+        if (squaredMagnitude == 0) {
+            vector[0] = 1;
+            squaredMagnitude = 1;
+        }
+        if (similarity == VectorSimilarity.DOT_PRODUCT) {
+            for (int i = 0; i < dims; i++) {
+                vector[i] /= (float) Math.sqrt(squaredMagnitude);
+            }
+        }
+        return vector;
+    }
+
+    private static BytesRef encode(float[] vector) {
+        final ByteBuffer buffer = ByteBuffer.allocate((vector.length + 1) * Float.BYTES);
+        double squaredMagnitude = 0;
+        for (float value : vector) {
+            buffer.putFloat(value);
+            squaredMagnitude += value * value;
+        }
+        buffer.putFloat((float) Math.sqrt(squaredMagnitude));
+        return new BytesRef(buffer.array());
+    }
+
+    /**
+     * Hides the graph of the vectors so that the query compares the query vector with all vectors.
+     */
+    private static class HideGraphDirectoryReader extends FilterDirectoryReader {
+        HideGraphDirectoryReader(DirectoryReader in) throws IOException {
+            super(in, new SubReaderWrapper() {
+                @Override
+                public LeafReader wrap(LeafReader reader) {
+                    return new FilterLeafReader(reader) {
+                        @Override
+                        public BinaryDocValues getBinaryDocValues(String field) throws IOException {
+                            final BinaryDocValues values = super.getBinaryDocValues(field);
+                            return values == null ? null : new FilterBinaryDocValues(values) {};
+                        }
+
+                        @Override
+                        public CacheHelper getCoreCacheHelper() {
+                            return in.getCoreCacheHelper();
+                        }
+
+                        @Override
+                        public CacheHelper getReaderCacheHelper() {
+                            return in.getReaderCacheHelper();
+                        }
+                    };
+                }
+            });
+        }
+
+        @Override
+        protected DirectoryReader doWrapDirectoryReader(DirectoryReader in) throws IOException {
+            return new HideGraphDirectoryReader(in);
+        }
+
+        @Override
+        public CacheHelper getReaderCacheHelper() {
+            return in.getReaderCacheHelper();
+        }
+    }
+}